@@ -0,0 +1,303 @@
+package org.simplepoint.data.calcite.core.query;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * Cancellation handle for one query execution.
+ *
+ * <p>The handle is bound to the executing thread with {@link #bind()}. While bound, the Calcite
+ * statement opened by {@link DefaultCalciteQueryEngine} and every source statement created through
+ * a data source wrapped by {@link #cancellable(DataSource)} register themselves with it, so that
+ * {@link #cancel()} called from any other thread interrupts both the federated plan and the
+ * statements it pushed down to the physical databases.
+ *
+ * <p>Statements leave the handle again when they are closed, or at the latest when the connection
+ * they were created on is closed. Source connections are usually pooled, and cancelling a statement
+ * that was already closed may interrupt whatever the next borrower runs on the same connection.
+ */
+public final class CalciteQueryCancellation {
+
+  private static final ThreadLocal<CalciteQueryCancellation> CURRENT = new ThreadLocal<>();
+
+  private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+
+  private volatile boolean cancelled;
+
+  /**
+   * Returns the handle bound to the current thread.
+   *
+   * @return bound handle, or null when the current execution is not cancellable
+   */
+  public static CalciteQueryCancellation current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Registers a statement with the handle bound to the current thread, if any. Close the returned
+   * registration before the statement, so the handle never cancels a statement that is gone.
+   *
+   * @param statement statement about to be executed
+   * @return registration unregistering the statement on close
+   * @throws SQLException when the bound handle has already been cancelled
+   */
+  public static Registration registerCurrent(final Statement statement) throws SQLException {
+    CalciteQueryCancellation cancellation = CURRENT.get();
+    if (cancellation == null || statement == null) {
+      return () -> {
+      };
+    }
+    cancellation.register(statement);
+    return () -> cancellation.unregister(statement);
+  }
+
+  /**
+   * Wraps a data source so that statements created on its connections register with the handle
+   * bound to the creating thread.
+   *
+   * @param dataSource source data source
+   * @return cancellation-aware data source
+   */
+  public static DataSource cancellable(final DataSource dataSource) {
+    if (dataSource == null || dataSource instanceof CancellableDataSource) {
+      return dataSource;
+    }
+    return new CancellableDataSource(dataSource);
+  }
+
+  /**
+   * Binds the handle to the current thread until the returned scope is closed.
+   *
+   * @return binding scope restoring the previous handle on close
+   */
+  public Scope bind() {
+    CalciteQueryCancellation previous = CURRENT.get();
+    CURRENT.set(this);
+    return () -> {
+      if (previous == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(previous);
+      }
+    };
+  }
+
+  /**
+   * Registers a statement to be cancelled together with the query.
+   *
+   * @param statement statement about to be executed
+   * @throws SQLException when the query has already been cancelled
+   */
+  public void register(final Statement statement) throws SQLException {
+    if (statement == null) {
+      return;
+    }
+    statements.add(statement);
+    if (cancelled) {
+      statements.remove(statement);
+      throw new SQLException("查询已被取消");
+    }
+  }
+
+  /**
+   * Forgets a statement that has been closed.
+   *
+   * @param statement closed statement
+   */
+  public void unregister(final Statement statement) {
+    if (statement != null) {
+      statements.remove(statement);
+    }
+  }
+
+  /**
+   * Cancels every registered statement. Statements registered afterwards are rejected.
+   */
+  public void cancel() {
+    if (cancelled) {
+      return;
+    }
+    cancelled = true;
+    for (Statement statement : statements) {
+      try {
+        statement.cancel();
+      } catch (SQLException | RuntimeException ignored) {
+        // the statement may already be closed or the driver may not support cancel
+      }
+    }
+    statements.clear();
+  }
+
+  /**
+   * Returns whether {@link #cancel()} has been called.
+   *
+   * @return true once cancelled
+   */
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Returns the number of statements currently registered.
+   *
+   * @return registered statement count
+   */
+  public int registeredStatements() {
+    return statements.size();
+  }
+
+  /**
+   * Thread binding created by {@link #bind()}.
+   */
+  @FunctionalInterface
+  public interface Scope extends AutoCloseable {
+
+    /**
+     * Restores the handle bound before {@link #bind()}.
+     */
+    @Override
+    void close();
+  }
+
+  /**
+   * Statement registration returned by {@link #registerCurrent(Statement)}.
+   */
+  @FunctionalInterface
+  public interface Registration extends AutoCloseable {
+
+    /**
+     * Unregisters the statement from the handle it was registered with.
+     */
+    @Override
+    void close();
+  }
+
+  private static Connection cancellableConnection(final Connection connection) {
+    // statements registered through this connection, with the handle each was registered with
+    Map<Statement, CalciteQueryCancellation> registered = new ConcurrentHashMap<>();
+    return (Connection) Proxy.newProxyInstance(
+        CalciteQueryCancellation.class.getClassLoader(),
+        new Class<?>[] {Connection.class},
+        (proxy, method, args) -> {
+          if (isClose(method)) {
+            registered.forEach((statement, cancellation) -> cancellation.unregister(statement));
+            registered.clear();
+            return invoke(connection, method, args);
+          }
+          Object result = invoke(connection, method, args);
+          CalciteQueryCancellation cancellation = CURRENT.get();
+          if (!(result instanceof Statement statement) || cancellation == null || !method.getReturnType().isInterface()) {
+            return result;
+          }
+          try {
+            cancellation.register(statement);
+          } catch (SQLException ex) {
+            statement.close();
+            throw ex;
+          }
+          registered.put(statement, cancellation);
+          return trackedStatement(statement, method.getReturnType(), (Connection) proxy, () -> {
+            registered.remove(statement);
+            cancellation.unregister(statement);
+          });
+        }
+    );
+  }
+
+  private static Object trackedStatement(
+      final Statement statement,
+      final Class<?> statementType,
+      final Connection connection,
+      final Runnable unregister
+  ) {
+    return Proxy.newProxyInstance(
+        CalciteQueryCancellation.class.getClassLoader(),
+        new Class<?>[] {statementType},
+        (proxy, method, args) -> {
+          if (isClose(method)) {
+            unregister.run();
+          } else if ("getConnection".equals(method.getName()) && method.getParameterCount() == 0) {
+            return connection;
+          }
+          return invoke(statement, method, args);
+        }
+    );
+  }
+
+  private static boolean isClose(final Method method) {
+    return "close".equals(method.getName()) && method.getParameterCount() == 0;
+  }
+
+  private static Object invoke(final Object target, final Method method, final Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException ex) {
+      throw ex.getCause();
+    }
+  }
+
+  private static final class CancellableDataSource implements DataSource {
+
+    private final DataSource delegate;
+
+    private CancellableDataSource(final DataSource delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+      return cancellableConnection(delegate.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+      return cancellableConnection(delegate.getConnection(username, password));
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+      return delegate.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(final PrintWriter out) throws SQLException {
+      delegate.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(final int seconds) throws SQLException {
+      delegate.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+      return delegate.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+      return delegate.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(final Class<T> iface) throws SQLException {
+      return iface.isInstance(this) ? iface.cast(this) : delegate.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(final Class<?> iface) throws SQLException {
+      return iface.isInstance(this) || delegate.isWrapperFor(iface);
+    }
+  }
+}
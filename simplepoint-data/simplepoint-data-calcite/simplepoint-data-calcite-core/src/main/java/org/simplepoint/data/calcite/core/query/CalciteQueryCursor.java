@@ -0,0 +1,66 @@
+package org.simplepoint.data.calcite.core.query;
+
+import java.util.List;
+
+/**
+ * Forward-only cursor over a read-only Calcite query that keeps the underlying session open
+ * until the last row has been fetched or the cursor is closed.
+ */
+public interface CalciteQueryCursor extends AutoCloseable {
+
+  /**
+   * Returns the result-set columns.
+   *
+   * @return result-set columns
+   */
+  List<CalciteQueryColumn> columns();
+
+  /**
+   * Returns the explain analysis, enriched with the JDBC SQL captured while opening the cursor.
+   *
+   * @return explain-plan analysis
+   */
+  CalciteQueryAnalysis analysis();
+
+  /**
+   * Returns the time spent planning and opening the query.
+   *
+   * @return open time in milliseconds
+   */
+  long openTimeMs();
+
+  /**
+   * Fetches the next batch of rows.
+   *
+   * @param batchSize maximum rows to return
+   * @return next rows, empty once the cursor is exhausted
+   */
+  List<List<Object>> fetch(int batchSize);
+
+  /**
+   * Returns whether another {@link #fetch(int)} would return rows.
+   *
+   * @return true while rows remain
+   */
+  boolean hasMore();
+
+  /**
+   * Returns whether rows beyond the configured limit were discarded.
+   *
+   * @return true when the result was truncated
+   */
+  boolean truncated();
+
+  /**
+   * Returns the number of rows fetched so far.
+   *
+   * @return fetched row count
+   */
+  long returnedRows();
+
+  /**
+   * Releases the underlying statement and Calcite session.
+   */
+  @Override
+  void close();
+}
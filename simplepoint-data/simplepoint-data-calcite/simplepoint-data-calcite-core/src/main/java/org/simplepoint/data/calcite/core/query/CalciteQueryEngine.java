@@ -40,4 +40,19 @@ public interface CalciteQueryEngine {
   ) {
     return execute(request, schemaConfigurer);
   }
+
+  /**
+   * Opens a forward-only cursor over the supplied read-only SQL. Rows are read from the
+   * backend on demand, so the caller must close the cursor to release the session.
+   *
+   * @param request          query request
+   * @param schemaConfigurer schema registration callback
+   * @param preComputedAnalysis analysis from a previous {@link #explain} call, may be null
+   * @return open query cursor
+   */
+  CalciteQueryCursor open(
+      CalciteQueryRequest request,
+      CalciteSchemaConfigurer schemaConfigurer,
+      CalciteQueryAnalysis preComputedAnalysis
+  );
 }
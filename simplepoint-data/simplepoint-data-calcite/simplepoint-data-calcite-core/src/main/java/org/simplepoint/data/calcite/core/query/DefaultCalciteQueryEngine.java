@@ -107,26 +107,9 @@ public class DefaultCalciteQueryEngine implements CalciteQueryEngine {
             ? preComputedAnalysis
             : explainInternal(session.connection(), normalizedRequest);
         long startedAt = System.nanoTime();
-        List<Object> params = normalizedRequest.parameters();
-        boolean hasParams = params != null && !params.isEmpty();
         try {
-          ResultSet resultSet;
-          Statement statement;
-          if (hasParams) {
-            PreparedStatement ps = session.connection().prepareStatement(normalizedRequest.sql());
-            ps.setQueryTimeout(toQueryTimeoutSeconds(normalizedRequest.timeoutMs()));
-            ps.setMaxRows(toStatementMaxRows(normalizedRequest.maxRows()));
-            bindParameters(ps, params);
-            resultSet = ps.executeQuery();
-            statement = ps;
-          } else {
-            Statement st = session.connection().createStatement();
-            st.setQueryTimeout(toQueryTimeoutSeconds(normalizedRequest.timeoutMs()));
-            st.setMaxRows(toStatementMaxRows(normalizedRequest.maxRows()));
-            resultSet = st.executeQuery(normalizedRequest.sql());
-            statement = st;
-          }
-          try (statement; resultSet) {
+          OpenedQuery opened = openQuery(session.connection(), normalizedRequest);
+          try (Statement statement = opened.statement(); ResultSet resultSet = opened.resultSet()) {
             ExtractedRows extracted = extractRows(resultSet, normalizedRequest.maxRows());
             return new ExecutionPayload(extracted, toElapsedMs(startedAt), analysis);
           }
@@ -146,6 +129,50 @@ public class DefaultCalciteQueryEngine implements CalciteQueryEngine {
     });
   }
 
+  /** {@inheritDoc} */
+  @Override
+  public CalciteQueryCursor open(
+      final CalciteQueryRequest request,
+      final CalciteSchemaConfigurer schemaConfigurer,
+      final CalciteQueryAnalysis preComputedAnalysis
+  ) {
+    CalciteQueryRequest normalizedRequest = normalizeRequest(request);
+    validateReadOnlyQuery(normalizedRequest.sql());
+    CalciteSession session = openSession(normalizedRequest.defaultSchema(), schemaConfigurer);
+    try {
+      CapturedValue<OpenedCursor> captured = captureBackendQueries(() -> {
+        CalciteQueryAnalysis analysis = preComputedAnalysis != null
+            ? preComputedAnalysis
+            : explainInternal(session.connection(), normalizedRequest);
+        long startedAt = System.nanoTime();
+        try {
+          OpenedQuery opened = openQuery(session.connection(), normalizedRequest);
+          try {
+            List<CalciteQueryColumn> columns = readColumns(opened.resultSet().getMetaData());
+            return new OpenedCursor(opened, columns, toElapsedMs(startedAt), analysis);
+          } catch (SQLException ex) {
+            closeQuietly(opened.statement());
+            throw ex;
+          }
+        } catch (SQLException ex) {
+          throw new IllegalStateException("Calcite 查询执行失败: " + rootMessage(ex), ex);
+        }
+      });
+      OpenedCursor opened = captured.value();
+      return new StreamingQueryCursor(
+          session.connection(),
+          opened.query(),
+          opened.columns(),
+          normalizedRequest.maxRows(),
+          opened.openTimeMs(),
+          enrichAnalysis(opened.analysis(), captured.capturedQueries())
+      );
+    } catch (RuntimeException ex) {
+      closeQuietly(session.connection());
+      throw ex;
+    }
+  }
+
   private static CalciteQueryRequest normalizeRequest(final CalciteQueryRequest request) {
     if (request == null) {
       throw new IllegalArgumentException("查询请求不能为空");
@@ -215,6 +242,41 @@ public class DefaultCalciteQueryEngine implements CalciteQueryEngine {
     }
   }
 
+  private static OpenedQuery openQuery(
+      final Connection connection,
+      final CalciteQueryRequest request
+  ) throws SQLException {
+    List<Object> params = request.parameters();
+    Statement statement;
+    ResultSet resultSet;
+    if (params != null && !params.isEmpty()) {
+      PreparedStatement ps = connection.prepareStatement(request.sql());
+      statement = ps;
+      try {
+        CalciteQueryCancellation.registerCurrent(ps);
+        ps.setQueryTimeout(toQueryTimeoutSeconds(request.timeoutMs()));
+        ps.setMaxRows(toStatementMaxRows(request.maxRows()));
+        bindParameters(ps, params);
+        resultSet = ps.executeQuery();
+      } catch (SQLException ex) {
+        closeQuietly(statement);
+        throw ex;
+      }
+    } else {
+      statement = connection.createStatement();
+      try {
+        CalciteQueryCancellation.registerCurrent(statement);
+        statement.setQueryTimeout(toQueryTimeoutSeconds(request.timeoutMs()));
+        statement.setMaxRows(toStatementMaxRows(request.maxRows()));
+        resultSet = statement.executeQuery(request.sql());
+      } catch (SQLException ex) {
+        closeQuietly(statement);
+        throw ex;
+      }
+    }
+    return new OpenedQuery(statement, resultSet);
+  }
+
   private static CalciteQueryAnalysis toAnalysis(final String planText) {
     return new CalciteQueryAnalysis(
         planText,
@@ -284,7 +346,22 @@ public class DefaultCalciteQueryEngine implements CalciteQueryEngine {
       final ResultSet resultSet,
       final int maxRows
   ) throws SQLException {
-    ResultSetMetaData metaData = resultSet.getMetaData();
+    List<CalciteQueryColumn> columns = readColumns(resultSet.getMetaData());
+    List<List<Object>> rows = new ArrayList<>();
+    long returnedRows = 0;
+    boolean truncated = false;
+    while (resultSet.next()) {
+      if (returnedRows == maxRows) {
+        truncated = true;
+        break;
+      }
+      rows.add(readRow(resultSet, columns.size()));
+      returnedRows++;
+    }
+    return new ExtractedRows(columns, rows, truncated, returnedRows);
+  }
+
+  private static List<CalciteQueryColumn> readColumns(final ResultSetMetaData metaData) throws SQLException {
     int columnCount = metaData.getColumnCount();
     List<CalciteQueryColumn> columns = new ArrayList<>(columnCount);
     for (int index = 1; index <= columnCount; index++) {
@@ -295,23 +372,15 @@ public class DefaultCalciteQueryEngine implements CalciteQueryEngine {
           metaData.getColumnType(index)
       ));
     }
+    return List.copyOf(columns);
+  }
 
-    List<List<Object>> rows = new ArrayList<>();
-    long returnedRows = 0;
-    boolean truncated = false;
-    while (resultSet.next()) {
-      if (returnedRows == maxRows) {
-        truncated = true;
-        break;
-      }
-      List<Object> row = new ArrayList<>(columnCount);
-      for (int index = 1; index <= columnCount; index++) {
-        row.add(normalizeCellValue(resultSet.getObject(index)));
-      }
-      rows.add(Collections.unmodifiableList(row));
-      returnedRows++;
+  private static List<Object> readRow(final ResultSet resultSet, final int columnCount) throws SQLException {
+    List<Object> row = new ArrayList<>(columnCount);
+    for (int index = 1; index <= columnCount; index++) {
+      row.add(normalizeCellValue(resultSet.getObject(index)));
     }
-    return new ExtractedRows(List.copyOf(columns), rows, truncated, returnedRows);
+    return Collections.unmodifiableList(row);
   }
 
   private static Object normalizeCellValue(final Object value) throws SQLException {
@@ -447,22 +516,51 @@ public class DefaultCalciteQueryEngine implements CalciteQueryEngine {
       final String defaultSchema,
       final CalciteSchemaConfigurer schemaConfigurer,
       final SessionCallback<T> callback
+  ) {
+    CalciteSession session = openSession(defaultSchema, schemaConfigurer);
+    try (Connection ignored = session.connection()) {
+      return callback.execute(session);
+    } catch (SQLException ex) {
+      throw new IllegalStateException("创建 Calcite 会话失败: " + rootMessage(ex), ex);
+    }
+  }
+
+  private static CalciteSession openSession(
+      final String defaultSchema,
+      final CalciteSchemaConfigurer schemaConfigurer
   ) {
     if (schemaConfigurer == null) {
       throw new IllegalArgumentException("schemaConfigurer 不能为空");
     }
     Properties properties = new Properties();
     properties.setProperty(CalciteConnectionProperty.CASE_SENSITIVE.camelName(), "false");
-    try (Connection connection = DriverManager.getConnection(CALCITE_JDBC_URL, properties)) {
+    Connection connection = null;
+    try {
+      connection = DriverManager.getConnection(CALCITE_JDBC_URL, properties);
       CalciteConnection calciteConnection = connection.unwrap(CalciteConnection.class);
       SchemaPlus rootSchema = calciteConnection.getRootSchema();
       schemaConfigurer.configure(rootSchema);
       if (defaultSchema != null) {
         calciteConnection.setSchema(defaultSchema);
       }
-      return callback.execute(new CalciteSession(connection, calciteConnection));
+      return new CalciteSession(connection, calciteConnection);
     } catch (SQLException ex) {
+      closeQuietly(connection);
       throw new IllegalStateException("创建 Calcite 会话失败: " + rootMessage(ex), ex);
+    } catch (RuntimeException ex) {
+      closeQuietly(connection);
+      throw ex;
+    }
+  }
+
+  private static void closeQuietly(final AutoCloseable resource) {
+    if (resource == null) {
+      return;
+    }
+    try {
+      resource.close();
+    } catch (Exception ignored) {
+      // best-effort cleanup
     }
   }
 
@@ -497,6 +595,166 @@ public class DefaultCalciteQueryEngine implements CalciteQueryEngine {
   ) {
   }
 
+  private record OpenedQuery(
+      Statement statement,
+      ResultSet resultSet
+  ) {
+  }
+
+  private record OpenedCursor(
+      OpenedQuery query,
+      List<CalciteQueryColumn> columns,
+      long openTimeMs,
+      CalciteQueryAnalysis analysis
+  ) {
+  }
+
+  /**
+   * Cursor that reads one row ahead so {@link #hasMore()} is exact and releases the Calcite
+   * session as soon as the last row has been read.
+   */
+  private static final class StreamingQueryCursor implements CalciteQueryCursor {
+
+    private final Connection connection;
+
+    private final Statement statement;
+
+    private final ResultSet resultSet;
+
+    private final List<CalciteQueryColumn> columns;
+
+    private final int maxRows;
+
+    private final long openTimeMs;
+
+    private final CalciteQueryAnalysis analysis;
+
+    private List<Object> pendingRow;
+
+    private long readRows;
+
+    private long returnedRows;
+
+    private boolean exhausted;
+
+    private boolean truncated;
+
+    private boolean closed;
+
+    private StreamingQueryCursor(
+        final Connection connection,
+        final OpenedQuery query,
+        final List<CalciteQueryColumn> columns,
+        final int maxRows,
+        final long openTimeMs,
+        final CalciteQueryAnalysis analysis
+    ) {
+      this.connection = connection;
+      this.statement = query.statement();
+      this.resultSet = query.resultSet();
+      this.columns = columns;
+      this.maxRows = maxRows;
+      this.openTimeMs = openTimeMs;
+      this.analysis = analysis;
+    }
+
+    @Override
+    public List<CalciteQueryColumn> columns() {
+      return columns;
+    }
+
+    @Override
+    public CalciteQueryAnalysis analysis() {
+      return analysis;
+    }
+
+    @Override
+    public long openTimeMs() {
+      return openTimeMs;
+    }
+
+    @Override
+    public List<List<Object>> fetch(final int batchSize) {
+      if (batchSize < 1) {
+        throw new IllegalArgumentException("batchSize 必须大于 0");
+      }
+      if (closed) {
+        throw new IllegalStateException("Calcite 查询游标已关闭");
+      }
+      List<List<Object>> rows = new ArrayList<>(Math.min(batchSize, 1024));
+      try {
+        while (rows.size() < batchSize) {
+          List<Object> row = pendingRow != null ? pendingRow : advance();
+          pendingRow = null;
+          if (row == null) {
+            break;
+          }
+          rows.add(row);
+        }
+        if (pendingRow == null) {
+          pendingRow = advance();
+        }
+      } catch (SQLException ex) {
+        close();
+        throw new IllegalStateException("Calcite 查询读取失败: " + rootMessage(ex), ex);
+      }
+      returnedRows += rows.size();
+      return rows;
+    }
+
+    @Override
+    public boolean hasMore() {
+      return pendingRow != null;
+    }
+
+    @Override
+    public boolean truncated() {
+      return truncated;
+    }
+
+    @Override
+    public long returnedRows() {
+      return returnedRows;
+    }
+
+    @Override
+    public void close() {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      release();
+    }
+
+    private List<Object> advance() throws SQLException {
+      if (exhausted) {
+        return null;
+      }
+      if (!resultSet.next()) {
+        finish();
+        return null;
+      }
+      if (readRows == maxRows) {
+        truncated = true;
+        finish();
+        return null;
+      }
+      readRows++;
+      return readRow(resultSet, columns.size());
+    }
+
+    private void finish() {
+      exhausted = true;
+      release();
+    }
+
+    private void release() {
+      closeQuietly(resultSet);
+      closeQuietly(statement);
+      closeQuietly(connection);
+    }
+  }
+
   private record CapturedValue<T>(
       T value,
       List<String> capturedQueries
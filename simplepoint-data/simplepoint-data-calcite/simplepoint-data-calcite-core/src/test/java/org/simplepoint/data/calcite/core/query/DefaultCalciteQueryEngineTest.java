@@ -2,6 +2,8 @@ package org.simplepoint.data.calcite.core.query;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -138,6 +140,106 @@ class DefaultCalciteQueryEngineTest {
     assertEquals(2, result.rows().get(0).get(0));
   }
 
+  @Test
+  void openShouldStreamRowsInBatchesAndHonorMaxRows() throws Exception {
+    JdbcDataSource ordersDataSource = createDataSource("orders-cursor");
+    initialize(ordersDataSource, """
+        create table orders (
+          id int primary key
+        );
+        insert into orders(id) values (1), (2), (3), (4), (5);
+        """);
+
+    try (CalciteQueryCursor cursor = engine.open(
+        new CalciteQueryRequest("select id from orders_ds.orders order by id", "demo", 4, 5_000),
+        rootSchema -> {
+          SchemaPlus catalog = rootSchema.add("demo", new AbstractSchema());
+          catalog.add("orders_ds", JdbcSchema.create(catalog, "orders_ds", ordersDataSource, null, "PUBLIC"));
+        },
+        null
+    )) {
+      assertEquals(1, cursor.columns().size());
+      assertFalse(cursor.analysis().pushedSqls().isEmpty());
+
+      List<List<Object>> first = cursor.fetch(3);
+      assertEquals(List.of(List.of(1), List.of(2), List.of(3)), first);
+      assertTrue(cursor.hasMore());
+
+      List<List<Object>> second = cursor.fetch(3);
+      assertEquals(List.of(List.of(4)), second);
+      assertFalse(cursor.hasMore());
+      assertTrue(cursor.truncated());
+      assertEquals(4, cursor.returnedRows());
+      assertTrue(cursor.fetch(3).isEmpty());
+    }
+  }
+
+  @Test
+  void cancelShouldInterruptCalciteAndSourceStatementsOfBoundQuery() throws Exception {
+    JdbcDataSource ordersDataSource = createDataSource("orders-cancel");
+    initialize(ordersDataSource, """
+        create table orders (
+          id int primary key
+        );
+        insert into orders(id) values (1), (2), (3);
+        """);
+    DataSource cancellableDataSource = CalciteQueryCancellation.cancellable(ordersDataSource);
+    CalciteSchemaConfigurer configurer = rootSchema -> {
+      SchemaPlus catalog = rootSchema.add("demo", new AbstractSchema());
+      catalog.add("orders_ds", JdbcSchema.create(catalog, "orders_ds", cancellableDataSource, null, "PUBLIC"));
+    };
+    CalciteQueryRequest request = new CalciteQueryRequest("select id from orders_ds.orders", "demo", 100, 5_000);
+
+    CalciteQueryCancellation cancellation = new CalciteQueryCancellation();
+    try (CalciteQueryCancellation.Scope ignored = cancellation.bind();
+         CalciteQueryCursor cursor = engine.open(request, configurer, null)) {
+      assertTrue(cancellation.registeredStatements() >= 2);
+      cancellation.cancel();
+      assertTrue(cancellation.isCancelled());
+      assertThrows(IllegalStateException.class, () -> cursor.fetch(10));
+    }
+
+    try (CalciteQueryCancellation.Scope ignored = cancellation.bind()) {
+      IllegalStateException exception = assertThrows(IllegalStateException.class, () -> engine.execute(request, configurer));
+      assertTrue(exception.getMessage().contains("查询已被取消"));
+    }
+    assertNull(CalciteQueryCancellation.current());
+  }
+
+  @Test
+  void closedSourceStatementsShouldLeaveTheCancellationHandle() throws Exception {
+    JdbcDataSource ordersDataSource = createDataSource("orders-unregister");
+    initialize(ordersDataSource, """
+        create table orders (
+          id int primary key
+        );
+        """);
+    DataSource cancellableDataSource = CalciteQueryCancellation.cancellable(ordersDataSource);
+    CalciteQueryCancellation cancellation = new CalciteQueryCancellation();
+
+    try (CalciteQueryCancellation.Scope ignored = cancellation.bind();
+         Connection connection = cancellableDataSource.getConnection()) {
+      Statement closed = connection.createStatement();
+      final Statement open = connection.prepareStatement("select id from orders");
+      assertEquals(2, cancellation.registeredStatements());
+      assertSame(connection, open.getConnection());
+
+      closed.close();
+      assertEquals(1, cancellation.registeredStatements());
+      cancellation.cancel();
+      assertFalse(open.isClosed());
+    }
+
+    CalciteQueryCancellation leaked = new CalciteQueryCancellation();
+    try (CalciteQueryCancellation.Scope ignored = leaked.bind()) {
+      Connection connection = cancellableDataSource.getConnection();
+      connection.createStatement();
+      assertEquals(1, leaked.registeredStatements());
+      connection.close();
+      assertEquals(0, leaked.registeredStatements());
+    }
+  }
+
   @Test
   void explainShouldRejectNonQueryStatements() {
     IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> engine.explain(
@@ -109,13 +109,21 @@ public class AiApiKey extends BaseEntityImpl<String> {
   private Integer rateLimitPerMinute;
 
   @Order(5)
+  @Schema(title = "i18n:ai.api-keys.title.tokenLimitPerMinute",
+      minimum = "1", maximum = "100000000",
+      extensions = @Extension(name = "x-ui", properties =
+          @ExtensionProperty(name = "x-list-visible", value = "true")))
+  @Column(name = "token_limit_per_minute")
+  private Integer tokenLimitPerMinute;
+
+  @Order(6)
   @Schema(title = "i18n:ai.api-keys.title.expiresAt",
       extensions = @Extension(name = "x-ui", properties =
           @ExtensionProperty(name = "x-list-visible", value = "true")))
   @Column(name = "expires_at")
   private Instant expiresAt;
 
-  @Order(6)
+  @Order(7)
   @Schema(title = "i18n:ai.api-keys.title.lastUsedAt", accessMode = Schema.AccessMode.READ_ONLY,
       extensions = @Extension(name = "x-ui", properties =
           @ExtensionProperty(name = "x-list-visible", value = "true")))
@@ -128,7 +136,7 @@ public class AiApiKey extends BaseEntityImpl<String> {
   @Column(name = "usage_count", nullable = false)
   private Long usageCount;
 
-  @Order(7)
+  @Order(8)
   @Schema(title = "i18n:ai.api-keys.title.description", maxLength = 512)
   @Column(length = 512)
   private String description;
@@ -22,6 +22,33 @@ public class AiProperties {
   /** Default per-key request limit for the local compatibility gateway. */
   private Integer apiKeyDefaultRateLimitPerMinute = 60;
 
+  /** Default per-key token budget per model and minute; 0 leaves token usage unlimited. */
+  private Integer apiKeyDefaultTokenLimitPerMinute = 0;
+
+  /** Seconds a verified API key is served from the gateway cache before it is reloaded. */
+  private Integer apiKeyCacheTtlSeconds = 30;
+
+  /** Maximum verified API keys cached per instance. */
+  private Integer apiKeyCacheMaxEntries = 10_000;
+
+  /** Minimum interval between checks of the shared key invalidation generation in Redis. */
+  private Long apiKeyCacheSyncMs = 1000L;
+
+  /** Delay between flushes of API key usage counters aggregated in memory. */
+  private Long apiKeyUsageFlushMs = 10_000L;
+
+  /** Seconds a gateway model catalog is cached per resource scope. */
+  private Integer gatewayModelCacheTtlSeconds = 30;
+
+  /** Seconds of refill a key may spend at once; bounds request bursts under the per-minute limit. */
+  private Integer gatewayRateLimitBurstSeconds = 10;
+
+  /** Share of a bucket's capacity leased from Redis per round trip, at least one lease period of refill. */
+  private Double gatewayRateLimitLeaseRatio = 0.1;
+
+  /** Lifetime of a leased batch of permits before unused ones are returned to Redis. */
+  private Long gatewayRateLimitLeaseMs = 1000L;
+
   private Integer connectTimeoutSeconds = 10;
 
   private Integer requestTimeoutSeconds = 30;
@@ -54,6 +81,33 @@ public class AiProperties {
 
   private Long streamingTimeoutMs = 300_000L;
 
+  /** Interval of SSE comments on gateway streams, used to notice disconnected clients; 0 disables. */
+  private Long gatewayStreamHeartbeatMs = 15_000L;
+
+  /** Delay between write-behind flushes of finished invocation records. */
+  private Long invocationLedgerFlushMs = 1000L;
+
+  /** Invocation records persisted per transaction. */
+  private Integer invocationLedgerBatchSize = 500;
+
+  /**
+   * Pending invocation records at which a background flush is requested early; also the bound of
+   * records held in memory when they cannot be spooled.
+   */
+  private Integer invocationLedgerQueueCapacity = 10_000;
+
+  /** Interval of group syncs of the spool to disk; a power failure loses at most this window. */
+  private Long invocationLedgerSyncMs = 200L;
+
+  /** Upper bound of the exponential backoff between flushes while the database is unavailable. */
+  private Long invocationLedgerMaxRetryDelayMs = 60_000L;
+
+  /** Age after which an invocation without an outcome is written as RUNNING and untracked. */
+  private Long invocationLedgerInFlightTtlMs = 3_600_000L;
+
+  /** Directory of the local spool that keeps unflushed invocation records across crashes. */
+  private String invocationLedgerSpoolDirectory = "data/ai-ledger";
+
   /**
    * Whether organization tenants may maintain their own provider credentials.
    */
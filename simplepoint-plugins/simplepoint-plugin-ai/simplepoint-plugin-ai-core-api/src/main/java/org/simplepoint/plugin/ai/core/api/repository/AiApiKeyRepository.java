@@ -23,6 +23,12 @@ public interface AiApiKeyRepository extends BaseRepository<AiApiKey, String> {
       String excludeId
   );
 
-  /** Updates usage metadata after a key has authenticated one public request. */
-  void recordUsage(String id, Instant usedAt);
+  /**
+   * Adds aggregated usage of a key and advances its last-used time.
+   *
+   * @param id         key id
+   * @param requests   authenticated requests since the previous flush
+   * @param lastUsedAt time of the latest of those requests
+   */
+  void recordUsage(String id, long requests, Instant lastUsedAt);
 }
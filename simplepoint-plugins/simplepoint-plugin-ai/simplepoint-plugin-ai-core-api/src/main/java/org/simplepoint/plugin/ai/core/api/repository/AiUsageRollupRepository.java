@@ -0,0 +1,29 @@
+package org.simplepoint.plugin.ai.core.api.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import org.simplepoint.plugin.ai.core.api.model.AiResourceScope;
+import org.simplepoint.plugin.ai.core.api.vo.AiUsageRollup;
+
+/** Repository contract for per-minute AI usage rollups. */
+public interface AiUsageRollupRepository {
+
+  /**
+   * Adds the given totals to the stored rollups, creating missing minutes.
+   *
+   * @param rollups increments keyed by minute, scope, model definition and operation
+   */
+  void accumulate(Collection<AiUsageRollup> rollups);
+
+  /**
+   * Loads rollups of one scope whose minute lies in {@code [from, to)}.
+   *
+   * @param scopeType resource scope
+   * @param tenantId  tenant id, null for the platform scope
+   * @param from      inclusive lower bound
+   * @param to        exclusive upper bound
+   * @return rollups ordered by minute
+   */
+  List<AiUsageRollup> findByScope(AiResourceScope scopeType, String tenantId, Instant from, Instant to);
+}
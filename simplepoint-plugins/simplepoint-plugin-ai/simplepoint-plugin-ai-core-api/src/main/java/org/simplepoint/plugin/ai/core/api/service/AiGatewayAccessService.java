@@ -3,6 +3,8 @@ package org.simplepoint.plugin.ai.core.api.service;
 import java.util.List;
 import java.util.function.Supplier;
 import org.simplepoint.plugin.ai.core.api.model.AiResourceScope;
+import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.GenerationRequest;
+import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.TokenUsage;
 
 /** Authenticates public model API requests and installs their isolated invocation context. */
 public interface AiGatewayAccessService {
@@ -19,12 +21,44 @@ public interface AiGatewayAccessService {
   /** Runs model preparation inside an isolated authorization context for the key. */
   <T> T withSession(GatewaySession session, Supplier<T> operation);
 
-  /** Authenticated API key identity and ownership scope. */
+  /**
+   * Takes the estimated prompt and maximum completion tokens of a request from the key's token
+   * budget for the requested model.
+   *
+   * @param session authenticated key session
+   * @param request resolved generation request
+   * @return reservation to settle once the model reports usage
+   */
+  TokenReservation reserveTokens(GatewaySession session, GenerationRequest request);
+
+  /**
+   * Replaces a reservation with the tokens the model actually used.
+   *
+   * @param reservation reservation returned by {@link #reserveTokens}
+   * @param usage       reported usage, or null when no model call was made
+   */
+  void settleTokens(TokenReservation reservation, TokenUsage usage);
+
+  /**
+   * Authenticated API key identity and ownership scope.
+   *
+   * @param tokenLimitPerMinute tokens the key may use per model and minute, 0 for no limit
+   */
   record GatewaySession(
       String apiKeyId,
       String apiKeyName,
       AiResourceScope scopeType,
-      String tenantId
+      String tenantId,
+      long tokenLimitPerMinute
+  ) {
+  }
+
+  /** Tokens taken from a key's per-model budget ahead of a generation. */
+  record TokenReservation(
+      String apiKeyId,
+      String modelDefinitionId,
+      long tokenLimitPerMinute,
+      long reservedTokens
   ) {
   }
 
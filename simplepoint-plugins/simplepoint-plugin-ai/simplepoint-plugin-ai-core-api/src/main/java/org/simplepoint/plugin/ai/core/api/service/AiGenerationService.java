@@ -4,6 +4,8 @@ import java.util.function.Consumer;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.GenerationEvent;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.GenerationRequest;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.GenerationResult;
+import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.StreamFrame;
+import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.StreamProtocol;
 
 /**
  * Provider-neutral text and tool generation contract exposed to AI feature modules.
@@ -36,6 +38,27 @@ public interface AiGenerationService {
      */
     void consume(Consumer<GenerationEvent> consumer);
 
+    /**
+     * Consumes the stream while also handing every provider event, unmodified, to
+     * {@code frames} before it is normalized, so a caller speaking {@link #protocol()} can relay
+     * it without re-serializing. Normalized events, including completion and errors, still reach
+     * {@code consumer}.
+     *
+     * @param consumer normalized event consumer
+     * @param frames   raw provider event consumer
+     */
+    default void consume(
+        final Consumer<GenerationEvent> consumer,
+        final Consumer<StreamFrame> frames
+    ) {
+      consume(consumer);
+    }
+
+    /** Returns the provider wire protocol, or null when raw frames are not available. */
+    default StreamProtocol protocol() {
+      return null;
+    }
+
     /** Cancels the provider request and closes any active response body. */
     void cancel();
   }
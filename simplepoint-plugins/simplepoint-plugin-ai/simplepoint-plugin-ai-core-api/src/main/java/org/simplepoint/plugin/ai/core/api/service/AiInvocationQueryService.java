@@ -1,8 +1,11 @@
 package org.simplepoint.plugin.ai.core.api.service;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 import org.simplepoint.api.base.BaseService;
 import org.simplepoint.plugin.ai.core.api.entity.AiInvocationRecord;
+import org.simplepoint.plugin.ai.core.api.vo.AiUsageRollup;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -14,4 +17,13 @@ public interface AiInvocationQueryService extends BaseService<AiInvocationRecord
       Map<String, String> attributes,
       Pageable pageable
   );
+
+  /**
+   * Loads per-minute usage rollups of the current management scope.
+   *
+   * @param from inclusive start, null for 24 hours before {@code to}
+   * @param to   exclusive end, null for now
+   * @return rollups ordered by minute
+   */
+  List<AiUsageRollup> usage(Instant from, Instant to);
 }
@@ -7,11 +7,11 @@ import java.util.List;
  *
  * @param modelId remote model identifier
  * @param dimensions actual vector dimensions
- * @param vectors vectors ordered like the request inputs
+ * @param vectors single-precision vectors ordered like the request inputs
  */
 public record AiEmbeddingResult(
     String modelId,
     int dimensions,
-    List<List<Double>> vectors
+    List<float[]> vectors
 ) {
 }
@@ -35,6 +35,13 @@ public final class AiGenerationModels {
     JSON_SCHEMA
   }
 
+  /** Provider wire protocols whose streams can be relayed to a matching client unchanged. */
+  public enum StreamProtocol {
+    OPENAI_CHAT_COMPLETIONS,
+    OPENAI_RESPONSES,
+    ANTHROPIC_MESSAGES
+  }
+
   /** Normalized stream event types. */
   public enum EventType {
     STARTED,
@@ -118,6 +125,15 @@ public final class AiGenerationModels {
   ) {
   }
 
+  /**
+   * One server-sent event exactly as the provider sent it.
+   *
+   * @param event event name, null when the provider sent none
+   * @param data  data lines joined with line feeds
+   */
+  public record StreamFrame(String event, String data) {
+  }
+
   /** One normalized server-sent generation event. */
   public record GenerationEvent(
       String invocationId,
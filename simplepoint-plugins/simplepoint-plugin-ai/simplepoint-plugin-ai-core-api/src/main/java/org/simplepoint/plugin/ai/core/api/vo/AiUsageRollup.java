@@ -0,0 +1,27 @@
+package org.simplepoint.plugin.ai.core.api.vo;
+
+import java.time.Instant;
+import org.simplepoint.plugin.ai.core.api.model.AiInvocationOperation;
+import org.simplepoint.plugin.ai.core.api.model.AiResourceScope;
+
+/**
+ * Per-minute usage totals of one model and operation in one scope, keyed by the minute in which
+ * the invocations started. Only finished invocations are counted.
+ */
+public record AiUsageRollup(
+    Instant minute,
+    AiResourceScope scopeType,
+    String tenantId,
+    String modelDefinitionId,
+    String modelId,
+    AiInvocationOperation operation,
+    long invocations,
+    long failedInvocations,
+    long cancelledInvocations,
+    long inputTokens,
+    long outputTokens,
+    long totalTokens,
+    long cachedInputTokens,
+    long durationMillis
+) {
+}
@@ -1,4 +1,5 @@
 dependencies {
     implementation(project(":simplepoint-data:simplepoint-data-jpa"))
     implementation(project(":simplepoint-plugins:simplepoint-plugin-ai:simplepoint-plugin-ai-core-api"))
+    implementation("org.springframework:spring-jdbc")
 }
@@ -46,8 +46,16 @@ public interface JpaAiApiKeyRepository
   @Transactional
   @Query("""
       update AiApiKey k
-      set k.lastUsedAt = :usedAt, k.usageCount = coalesce(k.usageCount, 0) + 1
+      set k.lastUsedAt = case
+            when k.lastUsedAt is null or k.lastUsedAt < :lastUsedAt then :lastUsedAt
+            else k.lastUsedAt
+          end,
+          k.usageCount = coalesce(k.usageCount, 0) + :requests
       where k.id = :id and k.deletedAt is null
       """)
-  void recordUsage(@Param("id") String id, @Param("usedAt") Instant usedAt);
+  void recordUsage(
+      @Param("id") String id,
+      @Param("requests") long requests,
+      @Param("lastUsedAt") Instant lastUsedAt
+  );
 }
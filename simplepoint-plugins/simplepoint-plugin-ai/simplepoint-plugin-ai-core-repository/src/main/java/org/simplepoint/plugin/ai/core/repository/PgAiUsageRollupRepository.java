@@ -0,0 +1,135 @@
+package org.simplepoint.plugin.ai.core.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.simplepoint.plugin.ai.core.api.model.AiInvocationOperation;
+import org.simplepoint.plugin.ai.core.api.model.AiResourceScope;
+import org.simplepoint.plugin.ai.core.api.repository.AiUsageRollupRepository;
+import org.simplepoint.plugin.ai.core.api.vo.AiUsageRollup;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+/**
+ * PostgreSQL per-minute usage rollups. Increments are applied with one batched
+ * {@code insert ... on conflict do update}, so concurrent writers on several instances add up.
+ */
+@Repository
+public class PgAiUsageRollupRepository implements AiUsageRollupRepository {
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /** Creates the rollup repository. */
+  public PgAiUsageRollupRepository(final JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  @Override
+  public void accumulate(final Collection<AiUsageRollup> rollups) {
+    if (rollups == null || rollups.isEmpty()) {
+      return;
+    }
+    List<AiUsageRollup> rows = new ArrayList<>(rollups);
+    jdbcTemplate.batchUpdate("""
+        insert into simpoint_ai_usage_minutes (
+          minute_at, scope_type, tenant_id, model_definition_id, model_id, operation,
+          invocations, failed_invocations, cancelled_invocations, input_tokens, output_tokens,
+          total_tokens, cached_input_tokens, duration_millis
+        ) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        on conflict (minute_at, scope_type, coalesce(tenant_id, ''), model_definition_id, operation)
+        do update set
+          model_id = excluded.model_id,
+          invocations = simpoint_ai_usage_minutes.invocations + excluded.invocations,
+          failed_invocations = simpoint_ai_usage_minutes.failed_invocations
+            + excluded.failed_invocations,
+          cancelled_invocations = simpoint_ai_usage_minutes.cancelled_invocations
+            + excluded.cancelled_invocations,
+          input_tokens = simpoint_ai_usage_minutes.input_tokens + excluded.input_tokens,
+          output_tokens = simpoint_ai_usage_minutes.output_tokens + excluded.output_tokens,
+          total_tokens = simpoint_ai_usage_minutes.total_tokens + excluded.total_tokens,
+          cached_input_tokens = simpoint_ai_usage_minutes.cached_input_tokens
+            + excluded.cached_input_tokens,
+          duration_millis = simpoint_ai_usage_minutes.duration_millis + excluded.duration_millis
+        """, new BatchPreparedStatementSetter() {
+          @Override
+          public void setValues(final PreparedStatement statement, final int index)
+              throws SQLException {
+            AiUsageRollup rollup = rows.get(index);
+            statement.setTimestamp(1, Timestamp.from(rollup.minute()));
+            statement.setString(2, rollup.scopeType().name());
+            statement.setString(3, rollup.tenantId());
+            statement.setString(4, rollup.modelDefinitionId());
+            statement.setString(5, rollup.modelId());
+            statement.setString(6, rollup.operation().name());
+            statement.setLong(7, rollup.invocations());
+            statement.setLong(8, rollup.failedInvocations());
+            statement.setLong(9, rollup.cancelledInvocations());
+            statement.setLong(10, rollup.inputTokens());
+            statement.setLong(11, rollup.outputTokens());
+            statement.setLong(12, rollup.totalTokens());
+            statement.setLong(13, rollup.cachedInputTokens());
+            statement.setLong(14, rollup.durationMillis());
+          }
+
+          @Override
+          public int getBatchSize() {
+            return rows.size();
+          }
+        });
+  }
+
+  @Override
+  public List<AiUsageRollup> findByScope(
+      final AiResourceScope scopeType,
+      final String tenantId,
+      final Instant from,
+      final Instant to
+  ) {
+    return jdbcTemplate.query("""
+        select minute_at, scope_type, tenant_id, model_definition_id, model_id, operation,
+               invocations, failed_invocations, cancelled_invocations, input_tokens,
+               output_tokens, total_tokens, cached_input_tokens, duration_millis
+        from simpoint_ai_usage_minutes
+        where scope_type = ? and tenant_id is not distinct from ?
+          and minute_at >= ? and minute_at < ?
+        order by minute_at asc, model_id asc, operation asc
+        """,
+        new UsageRollupRowMapper(),
+        scopeType.name(),
+        tenantId,
+        Timestamp.from(from),
+        Timestamp.from(to)
+    );
+  }
+
+  private static final class UsageRollupRowMapper implements RowMapper<AiUsageRollup> {
+
+    @Override
+    public AiUsageRollup mapRow(final ResultSet resultSet, final int rowNumber)
+        throws SQLException {
+      return new AiUsageRollup(
+          resultSet.getTimestamp("minute_at").toInstant(),
+          AiResourceScope.valueOf(resultSet.getString("scope_type")),
+          resultSet.getString("tenant_id"),
+          resultSet.getString("model_definition_id"),
+          resultSet.getString("model_id"),
+          AiInvocationOperation.valueOf(resultSet.getString("operation")),
+          resultSet.getLong("invocations"),
+          resultSet.getLong("failed_invocations"),
+          resultSet.getLong("cancelled_invocations"),
+          resultSet.getLong("input_tokens"),
+          resultSet.getLong("output_tokens"),
+          resultSet.getLong("total_tokens"),
+          resultSet.getLong("cached_input_tokens"),
+          resultSet.getLong("duration_millis")
+      );
+    }
+  }
+}
@@ -14,8 +14,14 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import org.simplepoint.plugin.ai.core.api.constants.AiPaths;
 import org.simplepoint.plugin.ai.core.api.exception.AiGatewayAccessException;
 import org.simplepoint.plugin.ai.core.api.exception.AiGatewayAccessException.FailureType;
@@ -23,16 +29,20 @@ import org.simplepoint.plugin.ai.core.api.exception.AiProviderRequestException;
 import org.simplepoint.plugin.ai.core.api.properties.AiProperties;
 import org.simplepoint.plugin.ai.core.api.service.AiGatewayAccessService;
 import org.simplepoint.plugin.ai.core.api.service.AiGatewayAccessService.GatewaySession;
+import org.simplepoint.plugin.ai.core.api.service.AiGatewayAccessService.TokenReservation;
 import org.simplepoint.plugin.ai.core.api.service.AiGenerationService;
 import org.simplepoint.plugin.ai.core.api.service.AiGenerationService.GenerationStream;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.EventType;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.GenerationEvent;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.GenerationRequest;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.GenerationResult;
+import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.StreamFrame;
+import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.StreamProtocol;
 import org.simplepoint.plugin.ai.core.rest.gateway.AiCompatibilityMapper;
 import org.simplepoint.plugin.ai.core.rest.gateway.OpenAiResponsesProtocol;
 import org.simplepoint.plugin.ai.core.rest.gateway.OpenAiResponsesProtocol.StreamEvent;
 import org.simplepoint.plugin.ai.core.rest.gateway.OpenAiResponsesProtocol.StreamState;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -47,11 +57,20 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-/** OpenAI Chat Completions, Responses, and Anthropic Messages compatible model gateway. */
+/**
+ * OpenAI Chat Completions, Responses, and Anthropic Messages compatible model gateway.
+ *
+ * <p>When a streamed request reaches a provider speaking the same protocol, provider events are
+ * relayed unchanged instead of being normalized and serialized again. Streams are written on the
+ * inference thread that reads the provider, so a slow client slows the provider read. Streams
+ * also send periodic SSE comments so a client that disconnects while the provider is silent still
+ * cancels the provider request. Relayed frames keep the provider's {@code id} and {@code model}
+ * fields; only normalized streams carry the invocation id and the requested model name.
+ */
 @RestController
 @RequestMapping(AiPaths.COMPATIBLE_API)
 @Tag(name = "AI兼容网关", description = "使用平台签发的 API Key 调用 SimplePoint 模型")
-public class AiCompatibleGatewayController {
+public class AiCompatibleGatewayController implements DisposableBean {
 
   private static final String ANTHROPIC_API_KEY = "x-api-key";
 
@@ -67,6 +86,12 @@ public class AiCompatibleGatewayController {
 
   private final AiProperties properties;
 
+  private final ScheduledExecutorService heartbeatScheduler = Executors.newSingleThreadScheduledExecutor(
+      Thread.ofPlatform().name("ai-gateway-heartbeat").daemon().factory());
+
+  private final ExecutorService heartbeatSender = Executors.newThreadPerTaskExecutor(
+      Thread.ofVirtual().name("ai-gateway-heartbeat-", 0).factory());
+
   /** Creates the public compatibility gateway controller. */
   public AiCompatibleGatewayController(
       final AiGatewayAccessService accessService,
@@ -84,6 +109,12 @@ public class AiCompatibleGatewayController {
     this.properties = properties;
   }
 
+  @Override
+  public void destroy() {
+    heartbeatScheduler.shutdownNow();
+    heartbeatSender.shutdownNow();
+  }
+
   /** OpenAI-compatible model catalog. */
   @GetMapping("/models")
   @Operation(summary = "OpenAI 兼容模型列表")
@@ -127,12 +158,10 @@ public class AiCompatibleGatewayController {
       String modelDefinitionId = accessService.resolveModelDefinitionId(session, requestedModel);
       GenerationRequest request = compatibilityMapper.fromOpenAi(body, modelDefinitionId);
       if (body.path("stream").asBoolean(false)) {
-        GenerationStream stream = accessService.withSession(
-            session, () -> generationService.prepareStream(request));
+        GenerationStream stream = prepareStream(session, request);
         return startOpenAiStream(stream, requestedModel);
       }
-      GenerationResult result = accessService.withSession(
-          session, () -> generationService.generate(request));
+      GenerationResult result = generate(session, request);
       return jsonResponse(compatibilityMapper.toOpenAiResponse(result, requestedModel));
     } catch (RuntimeException ex) {
       return openAiError(ex);
@@ -155,12 +184,10 @@ public class AiCompatibleGatewayController {
       String modelDefinitionId = accessService.resolveModelDefinitionId(session, requestedModel);
       GenerationRequest request = responsesProtocol.fromRequest(body, modelDefinitionId);
       if (body.path("stream").asBoolean(false)) {
-        GenerationStream stream = accessService.withSession(
-            session, () -> generationService.prepareStream(request));
+        GenerationStream stream = prepareStream(session, request);
         return startResponsesStream(stream, requestedModel, body);
       }
-      GenerationResult result = accessService.withSession(
-          session, () -> generationService.generate(request));
+      GenerationResult result = generate(session, request);
       return jsonResponse(responsesProtocol.toResponse(result, requestedModel, body));
     } catch (RuntimeException ex) {
       return openAiError(ex);
@@ -183,12 +210,10 @@ public class AiCompatibleGatewayController {
       String modelDefinitionId = accessService.resolveModelDefinitionId(session, requestedModel);
       GenerationRequest request = compatibilityMapper.fromAnthropic(body, modelDefinitionId);
       if (body.path("stream").asBoolean(false)) {
-        GenerationStream stream = accessService.withSession(
-            session, () -> generationService.prepareStream(request));
+        GenerationStream stream = prepareStream(session, request);
         return startAnthropicStream(stream, requestedModel);
       }
-      GenerationResult result = accessService.withSession(
-          session, () -> generationService.generate(request));
+      GenerationResult result = generate(session, request);
       return jsonResponse(compatibilityMapper.toAnthropicResponse(result, requestedModel));
     } catch (RuntimeException ex) {
       return anthropicError(ex);
@@ -206,32 +231,75 @@ public class AiCompatibleGatewayController {
         ? anthropicError(error) : openAiError(error);
   }
 
+  private GenerationResult generate(final GatewaySession session, final GenerationRequest request) {
+    TokenReservation reservation = accessService.reserveTokens(session, request);
+    GenerationResult result;
+    try {
+      result = accessService.withSession(session, () -> generationService.generate(request));
+    } catch (RuntimeException ex) {
+      refundIfRejected(reservation, ex);
+      throw ex;
+    }
+    accessService.settleTokens(reservation, result == null ? null : result.usage());
+    return result;
+  }
+
+  private GenerationStream prepareStream(
+      final GatewaySession session,
+      final GenerationRequest request
+  ) {
+    TokenReservation reservation = accessService.reserveTokens(session, request);
+    GenerationStream stream;
+    try {
+      stream = accessService.withSession(session, () -> generationService.prepareStream(request));
+    } catch (RuntimeException ex) {
+      refundIfRejected(reservation, ex);
+      throw ex;
+    }
+    return new MeteredStream(stream, reservation);
+  }
+
+  /**
+   * Refunds a token reservation when the request was rejected before reaching the provider:
+   * invalid input, access checks, or a saturated inference executor. Provider and transport
+   * failures keep the reservation, because the provider may already have spent tokens on it.
+   */
+  private void refundIfRejected(final TokenReservation reservation, final RuntimeException ex) {
+    if (ex instanceof IllegalArgumentException
+        || ex instanceof AiGatewayAccessException
+        || ex instanceof RejectedExecutionException) {
+      accessService.settleTokens(reservation, null);
+    }
+  }
+
   private ResponseEntity<SseEmitter> startOpenAiStream(
       final GenerationStream stream,
       final String requestedModel
   ) {
-    SseEmitter emitter = emitter(stream);
+    SseSession session = new SseSession(stream);
     try {
-      inferenceExecutor.execute(() -> consumeOpenAi(stream, emitter, requestedModel));
+      inferenceExecutor.execute(() -> consumeOpenAi(stream, session.emitter, requestedModel));
     } catch (RejectedExecutionException ex) {
-      stream.cancel();
+      session.cancel();
       throw ex;
     }
-    return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(emitter);
+    session.startHeartbeat();
+    return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(session.emitter);
   }
 
   private ResponseEntity<SseEmitter> startAnthropicStream(
       final GenerationStream stream,
       final String requestedModel
   ) {
-    SseEmitter emitter = emitter(stream);
+    SseSession session = new SseSession(stream);
     try {
-      inferenceExecutor.execute(() -> consumeAnthropic(stream, emitter, requestedModel));
+      inferenceExecutor.execute(() -> consumeAnthropic(stream, session.emitter, requestedModel));
     } catch (RejectedExecutionException ex) {
-      stream.cancel();
+      session.cancel();
       throw ex;
     }
-    return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(emitter);
+    session.startHeartbeat();
+    return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(session.emitter);
   }
 
   private ResponseEntity<SseEmitter> startResponsesStream(
@@ -239,28 +307,15 @@ public class AiCompatibleGatewayController {
       final String requestedModel,
       final JsonNode request
   ) {
-    SseEmitter emitter = emitter(stream);
+    SseSession session = new SseSession(stream);
     try {
-      inferenceExecutor.execute(() -> consumeResponses(stream, emitter, requestedModel, request));
+      inferenceExecutor.execute(() -> consumeResponses(stream, session.emitter, requestedModel, request));
     } catch (RejectedExecutionException ex) {
-      stream.cancel();
+      session.cancel();
       throw ex;
     }
-    return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(emitter);
-  }
-
-  private SseEmitter emitter(final GenerationStream stream) {
-    SseEmitter emitter = new SseEmitter(timeout());
-    AtomicBoolean terminal = new AtomicBoolean();
-    Runnable cancel = () -> {
-      if (terminal.compareAndSet(false, true)) {
-        stream.cancel();
-      }
-    };
-    emitter.onTimeout(cancel);
-    emitter.onError(error -> cancel.run());
-    emitter.onCompletion(cancel);
-    return emitter;
+    session.startHeartbeat();
+    return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(session.emitter);
   }
 
   private void consumeOpenAi(
@@ -270,7 +325,20 @@ public class AiCompatibleGatewayController {
   ) {
     OpenAiStreamState state = new OpenAiStreamState(requestedModel);
     try {
-      stream.consume(event -> sendOpenAiEvent(emitter, state, event));
+      if (stream.protocol() == StreamProtocol.OPENAI_CHAT_COMPLETIONS) {
+        stream.consume(event -> {
+          if (event.type() == EventType.ERROR) {
+            sendOpenAiEvent(emitter, state, event);
+          } else if (event.type() == EventType.COMPLETED && !state.doneRelayed) {
+            sendData(emitter, "[DONE]");
+          }
+        }, frame -> {
+          state.doneRelayed |= "[DONE]".equals(frame.data().trim());
+          sendFrame(emitter, frame);
+        });
+      } else {
+        stream.consume(event -> sendOpenAiEvent(emitter, state, event));
+      }
       emitter.complete();
     } catch (CancellationException ex) {
       emitter.complete();
@@ -345,7 +413,15 @@ public class AiCompatibleGatewayController {
   ) {
     AnthropicStreamState state = new AnthropicStreamState(requestedModel);
     try {
-      stream.consume(event -> sendAnthropicEvent(emitter, state, event));
+      if (stream.protocol() == StreamProtocol.ANTHROPIC_MESSAGES) {
+        stream.consume(event -> {
+          if (event.type() == EventType.ERROR) {
+            sendAnthropicEvent(emitter, state, event);
+          }
+        }, frame -> sendFrame(emitter, frame));
+      } else {
+        stream.consume(event -> sendAnthropicEvent(emitter, state, event));
+      }
       emitter.complete();
     } catch (CancellationException ex) {
       emitter.complete();
@@ -584,6 +660,11 @@ public class AiCompatibleGatewayController {
     return configured != null && configured > 0 ? configured : 300_000L;
   }
 
+  private long heartbeatInterval() {
+    Long configured = properties.getGatewayStreamHeartbeatMs();
+    return configured == null ? 15_000L : configured;
+  }
+
   private static void sendData(final SseEmitter emitter, final Object data) {
     try {
       emitter.send(SseEmitter.event().data(data instanceof JsonNode node ? json(node) : data));
@@ -608,6 +689,20 @@ public class AiCompatibleGatewayController {
     }
   }
 
+  private static void sendFrame(final SseEmitter emitter, final StreamFrame frame) {
+    SseEmitter.SseEventBuilder event = SseEmitter.event();
+    if (frame.event() != null) {
+      event.name(frame.event());
+    }
+    try {
+      emitter.send(event.data(frame.data()));
+    } catch (IOException ex) {
+      CancellationException cancellation = new CancellationException("客户端已断开流式连接");
+      cancellation.initCause(ex);
+      throw cancellation;
+    }
+  }
+
   private static void sendResponseEvent(
       final SseEmitter emitter,
       final StreamEvent event
@@ -615,6 +710,121 @@ public class AiCompatibleGatewayController {
     sendEvent(emitter, event.name(), event.data());
   }
 
+  /**
+   * SSE response of one streamed request. Heartbeats start only once the relay has been handed to
+   * the inference executor; each tick sends its comment on a virtual thread so a slow client never
+   * delays the heartbeats of other streams. A failed heartbeat write cancels the provider request.
+   */
+  private final class SseSession {
+
+    private final SseEmitter emitter = new SseEmitter(timeout());
+
+    private final GenerationStream stream;
+
+    private final AtomicBoolean terminal = new AtomicBoolean();
+
+    private final AtomicBoolean sending = new AtomicBoolean();
+
+    private volatile ScheduledFuture<?> heartbeat;
+
+    private SseSession(final GenerationStream stream) {
+      this.stream = stream;
+      emitter.onTimeout(this::cancel);
+      emitter.onError(error -> cancel());
+      emitter.onCompletion(this::cancel);
+    }
+
+    private void startHeartbeat() {
+      long interval = heartbeatInterval();
+      if (interval <= 0) {
+        return;
+      }
+      try {
+        heartbeat = heartbeatScheduler.scheduleAtFixedRate(
+            this::tick, interval, interval, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException ex) {
+        return;
+      }
+      if (terminal.get()) {
+        heartbeat.cancel(false);
+      }
+    }
+
+    private void tick() {
+      if (terminal.get() || !sending.compareAndSet(false, true)) {
+        return;
+      }
+      try {
+        heartbeatSender.execute(() -> {
+          try {
+            emitter.send(SseEmitter.event().comment("keep-alive"));
+          } catch (IOException | IllegalStateException ex) {
+            cancel();
+          } finally {
+            sending.set(false);
+          }
+        });
+      } catch (RejectedExecutionException ex) {
+        sending.set(false);
+      }
+    }
+
+    private void cancel() {
+      if (terminal.compareAndSet(false, true)) {
+        stream.cancel();
+        ScheduledFuture<?> scheduled = heartbeat;
+        if (scheduled != null) {
+          scheduled.cancel(false);
+        }
+      }
+    }
+  }
+
+  /** Settles the token reservation with the usage carried by the completion event. */
+  private final class MeteredStream implements GenerationStream {
+
+    private final GenerationStream delegate;
+
+    private final TokenReservation reservation;
+
+    private MeteredStream(final GenerationStream delegate, final TokenReservation reservation) {
+      this.delegate = delegate;
+      this.reservation = reservation;
+    }
+
+    @Override
+    public void consume(final Consumer<GenerationEvent> consumer) {
+      delegate.consume(settling(consumer));
+    }
+
+    @Override
+    public void consume(
+        final Consumer<GenerationEvent> consumer,
+        final Consumer<StreamFrame> frames
+    ) {
+      delegate.consume(settling(consumer), frames);
+    }
+
+    @Override
+    public StreamProtocol protocol() {
+      return delegate.protocol();
+    }
+
+    private Consumer<GenerationEvent> settling(final Consumer<GenerationEvent> consumer) {
+      return event -> {
+        if (event.type() == EventType.COMPLETED && event.result() != null) {
+          accessService.settleTokens(reservation, event.result().usage());
+        }
+        consumer.accept(event);
+      };
+    }
+
+    @Override
+    public void cancel() {
+      delegate.cancel();
+    }
+  }
+
   private record ErrorStatus(
       int status,
       String message,
@@ -634,6 +844,8 @@ public class AiCompatibleGatewayController {
 
     private String invocationId = "pending";
 
+    private boolean doneRelayed;
+
     private OpenAiStreamState(final String requestedModel) {
       this.requestedModel = requestedModel;
     }
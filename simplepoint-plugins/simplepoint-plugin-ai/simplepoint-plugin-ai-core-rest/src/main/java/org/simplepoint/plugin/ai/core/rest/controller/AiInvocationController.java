@@ -2,12 +2,15 @@ package org.simplepoint.plugin.ai.core.rest.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 import org.simplepoint.core.base.controller.BaseController;
 import org.simplepoint.core.http.Response;
 import org.simplepoint.plugin.ai.core.api.constants.AiPaths;
 import org.simplepoint.plugin.ai.core.api.entity.AiInvocationRecord;
 import org.simplepoint.plugin.ai.core.api.service.AiInvocationQueryService;
+import org.simplepoint.plugin.ai.core.api.vo.AiUsageRollup;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -41,4 +44,18 @@ public class AiInvocationController
   ) {
     return Response.okay(service.limit(attributes, pageable));
   }
+
+  /** Lists per-minute usage rollups in the current scope, by default for the last 24 hours. */
+  @GetMapping("/usage")
+  @PreAuthorize(
+      "hasRole('Administrator') "
+          + "or hasAnyAuthority('ai.system.invocations.view', 'ai.invocations.view')"
+  )
+  @Operation(summary = "查询 AI 每分钟用量汇总")
+  public Response<List<AiUsageRollup>> usage(
+      @RequestParam(required = false) final Instant from,
+      @RequestParam(required = false) final Instant to
+  ) {
+    return Response.okay(service.usage(from, to));
+  }
 }
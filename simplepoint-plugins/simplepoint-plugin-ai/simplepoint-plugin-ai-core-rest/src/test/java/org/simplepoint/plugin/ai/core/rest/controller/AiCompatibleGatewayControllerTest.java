@@ -1,38 +1,66 @@
 package org.simplepoint.plugin.ai.core.rest.controller;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.Filter;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
 import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.simplepoint.plugin.ai.core.api.exception.AiGatewayAccessException;
 import org.simplepoint.plugin.ai.core.api.exception.AiGatewayAccessException.FailureType;
+import org.simplepoint.plugin.ai.core.api.exception.AiProviderRequestException;
 import org.simplepoint.plugin.ai.core.api.model.AiResourceScope;
 import org.simplepoint.plugin.ai.core.api.properties.AiProperties;
 import org.simplepoint.plugin.ai.core.api.service.AiGatewayAccessService;
 import org.simplepoint.plugin.ai.core.api.service.AiGatewayAccessService.GatewaySession;
+import org.simplepoint.plugin.ai.core.api.service.AiGatewayAccessService.TokenReservation;
 import org.simplepoint.plugin.ai.core.api.service.AiGenerationService;
+import org.simplepoint.plugin.ai.core.api.service.AiGenerationService.GenerationStream;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.ContentBlock;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.ContentType;
+import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.EventType;
+import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.GenerationEvent;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.GenerationRequest;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.GenerationResult;
+import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.StreamFrame;
+import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.StreamProtocol;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.TokenUsage;
 import org.simplepoint.plugin.ai.core.rest.gateway.AiCompatibilityMapper;
 import org.simplepoint.plugin.ai.core.rest.gateway.OpenAiResponsesProtocol;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 class AiCompatibleGatewayControllerTest {
@@ -41,24 +69,28 @@ class AiCompatibleGatewayControllerTest {
 
   private AiGenerationService generationService;
 
+  private AiCompatibleGatewayController controller;
+
+  private ExecutorService inferenceExecutor;
+
   private MockMvc mockMvc;
 
   @BeforeEach
   void setUp() {
     accessService = mock(AiGatewayAccessService.class);
     generationService = mock(AiGenerationService.class);
-    ObjectMapper objectMapper = new ObjectMapper();
-    AiCompatibleGatewayController controller = new AiCompatibleGatewayController(
-        accessService,
-        generationService,
-        new AiCompatibilityMapper(objectMapper),
-        new OpenAiResponsesProtocol(objectMapper),
-        Runnable::run,
-        new AiProperties()
-    );
+    controller = controller(Runnable::run, new AiProperties());
     mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
   }
 
+  @AfterEach
+  void tearDown() {
+    controller.destroy();
+    if (inferenceExecutor != null) {
+      inferenceExecutor.shutdownNow();
+    }
+  }
+
   @Test
   void openAiErrorsUseProtocolNativeJson() throws Exception {
     rejectApiKey();
@@ -117,7 +149,7 @@ class AiCompatibleGatewayControllerTest {
   @Test
   void responsesEndpointReturnsProtocolNativeObject() throws Exception {
     GatewaySession session = new GatewaySession(
-        "key-1", "test", AiResourceScope.SYSTEM, null);
+        "key-1", "test", AiResourceScope.SYSTEM, null, 0L);
     when(accessService.authenticate("valid", "127.0.0.1")).thenReturn(session);
     when(accessService.resolveModelDefinitionId(session, "test")).thenReturn("definition-1");
     when(accessService.withSession(eq(session), any())).thenAnswer(invocation -> {
@@ -147,6 +179,320 @@ class AiCompatibleGatewayControllerTest {
         .andExpect(jsonPath("$.usage.total_tokens").value(3));
   }
 
+  @Test
+  void matchingProtocolStreamsRelayProviderFramesUnchanged() throws Exception {
+    GatewaySession session = new GatewaySession(
+        "key-1", "test", AiResourceScope.SYSTEM, null, 0L);
+    when(accessService.authenticate("valid", "127.0.0.1")).thenReturn(session);
+    when(accessService.resolveModelDefinitionId(session, "test")).thenReturn("definition-1");
+    when(accessService.withSession(eq(session), any())).thenAnswer(invocation -> {
+      Supplier<?> operation = invocation.getArgument(1);
+      return operation.get();
+    });
+    String chunk = "{\"id\":\"chatcmpl-upstream\",\"object\":\"chat.completion.chunk\","
+        + "\"choices\":[{\"index\":0,\"delta\":{\"content\":\"pong\"}}]}";
+    when(generationService.prepareStream(any(GenerationRequest.class))).thenReturn(
+        new GenerationStream() {
+          @Override
+          public void consume(final Consumer<GenerationEvent> consumer) {
+            throw new AssertionError("matching protocols should relay raw frames");
+          }
+
+          @Override
+          public void consume(
+              final Consumer<GenerationEvent> consumer,
+              final Consumer<StreamFrame> frames
+          ) {
+            frames.accept(new StreamFrame(null, chunk));
+            frames.accept(new StreamFrame(null, "[DONE]"));
+            consumer.accept(new GenerationEvent("inv-1", 1L, EventType.COMPLETED,
+                null, null, null, null, null, null, null, null));
+          }
+
+          @Override
+          public StreamProtocol protocol() {
+            return StreamProtocol.OPENAI_CHAT_COMPLETIONS;
+          }
+
+          @Override
+          public void cancel() {
+          }
+        });
+
+    String body = mockMvc.perform(post("/v1/chat/completions")
+            .header("Authorization", "Bearer valid")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("""
+                {"model":"test","stream":true,
+                 "messages":[{"role":"user","content":"ping"}]}
+                """))
+        .andExpect(request().asyncStarted())
+        .andReturn()
+        .getResponse()
+        .getContentAsString();
+
+    assertThat(body).isEqualTo("data:" + chunk + "\n\ndata:[DONE]\n\n");
+  }
+
+  @Test
+  void openAiRelayAddsDoneWhenProviderOmitsIt() throws Exception {
+    acceptApiKeyWithReservation();
+    String chunk = "{\"id\":\"chatcmpl-upstream\",\"object\":\"chat.completion.chunk\","
+        + "\"choices\":[{\"index\":0,\"delta\":{\"content\":\"pong\"}}]}";
+    when(generationService.prepareStream(any(GenerationRequest.class))).thenReturn(
+        new RelayedStream(StreamProtocol.OPENAI_CHAT_COMPLETIONS, (consumer, frames) -> {
+          frames.accept(new StreamFrame(null, chunk));
+          consumer.accept(event(EventType.COMPLETED, null));
+        }));
+
+    String body = chat(true)
+        .andExpect(request().asyncStarted())
+        .andReturn()
+        .getResponse()
+        .getContentAsString();
+
+    assertThat(body).isEqualTo("data:" + chunk + "\n\ndata:[DONE]\n\n");
+  }
+
+  @Test
+  void openAiRelaySendsErrorEventAfterRelayedFrames() throws Exception {
+    acceptApiKeyWithReservation();
+    String chunk = "{\"id\":\"chatcmpl-upstream\",\"object\":\"chat.completion.chunk\","
+        + "\"choices\":[{\"index\":0,\"delta\":{\"content\":\"po\"}}]}";
+    when(generationService.prepareStream(any(GenerationRequest.class))).thenReturn(
+        new RelayedStream(StreamProtocol.OPENAI_CHAT_COMPLETIONS, (consumer, frames) -> {
+          frames.accept(new StreamFrame(null, chunk));
+          consumer.accept(event(EventType.ERROR, "upstream connection reset"));
+        }));
+
+    String body = chat(true)
+        .andExpect(request().asyncStarted())
+        .andReturn()
+        .getResponse()
+        .getContentAsString();
+
+    assertThat(body).startsWith("data:" + chunk + "\n\ndata:{\"error\":");
+    assertThat(body).contains("\"message\":\"upstream connection reset\"").doesNotContain("[DONE]");
+  }
+
+  @Test
+  void anthropicStreamsRelayNamedProviderEventsUnchanged() throws Exception {
+    acceptApiKeyWithReservation();
+    String start = "{\"type\":\"message_start\",\"message\":{\"id\":\"msg-upstream\"}}";
+    String stop = "{\"type\":\"message_stop\"}";
+    when(generationService.prepareStream(any(GenerationRequest.class))).thenReturn(
+        new RelayedStream(StreamProtocol.ANTHROPIC_MESSAGES, (consumer, frames) -> {
+          frames.accept(new StreamFrame("message_start", start));
+          frames.accept(new StreamFrame("message_stop", stop));
+          consumer.accept(event(EventType.COMPLETED, null));
+        }));
+
+    String body = mockMvc.perform(post("/v1/messages")
+            .header("x-api-key", "valid")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("""
+                {"model":"test","max_tokens":16,"stream":true,
+                 "messages":[{"role":"user","content":"ping"}]}
+                """))
+        .andExpect(request().asyncStarted())
+        .andReturn()
+        .getResponse()
+        .getContentAsString();
+
+    assertThat(body).isEqualTo("event:message_start\ndata:" + start + "\n\n"
+        + "event:message_stop\ndata:" + stop + "\n\n");
+  }
+
+  @Test
+  void silentProviderStreamsSendHeartbeatComments() throws Exception {
+    useHeartbeatController(20L);
+    acceptApiKeyWithReservation();
+    CountDownLatch cancelled = new CountDownLatch(1);
+    CountDownLatch released = new CountDownLatch(1);
+    when(generationService.prepareStream(any(GenerationRequest.class)))
+        .thenReturn(silentStream(released, cancelled));
+
+    MockHttpServletResponse response = chat(true)
+        .andExpect(request().asyncStarted())
+        .andReturn()
+        .getResponse();
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!response.getContentAsString().contains(":keep-alive") && System.nanoTime() < deadline) {
+      Thread.sleep(10L);
+    }
+    released.countDown();
+
+    assertThat(response.getContentAsString()).startsWith(":keep-alive\n\n");
+    assertThat(cancelled.getCount()).isEqualTo(1);
+  }
+
+  @Test
+  void failedHeartbeatWriteCancelsProviderStream() throws Exception {
+    useHeartbeatController(20L);
+    Filter disconnected = (servletRequest, servletResponse, chain) -> chain.doFilter(servletRequest,
+        new HttpServletResponseWrapper((HttpServletResponse) servletResponse) {
+          @Override
+          public ServletOutputStream getOutputStream() {
+            return new DisconnectedOutputStream();
+          }
+        });
+    mockMvc = MockMvcBuilders.standaloneSetup(controller).addFilters(disconnected).build();
+    acceptApiKeyWithReservation();
+    CountDownLatch cancelled = new CountDownLatch(1);
+    when(generationService.prepareStream(any(GenerationRequest.class)))
+        .thenReturn(silentStream(new CountDownLatch(1), cancelled));
+
+    chat(true).andExpect(request().asyncStarted());
+
+    assertThat(cancelled.await(5, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  void rejectedRequestsRefundTheirReservationOnBothPaths() throws Exception {
+    TokenReservation reservation = acceptApiKeyWithReservation();
+    when(generationService.generate(any(GenerationRequest.class)))
+        .thenThrow(new IllegalArgumentException("不支持的参数"));
+    when(generationService.prepareStream(any(GenerationRequest.class)))
+        .thenThrow(new IllegalArgumentException("不支持的参数"));
+
+    chat(false).andExpect(status().isBadRequest());
+    chat(true).andExpect(status().isBadRequest());
+
+    verify(accessService, times(2)).settleTokens(reservation, null);
+  }
+
+  @Test
+  void providerFailuresKeepTheirReservationOnBothPaths() throws Exception {
+    acceptApiKeyWithReservation();
+    when(generationService.generate(any(GenerationRequest.class)))
+        .thenThrow(new AiProviderRequestException(500, "upstream failed"));
+    when(generationService.prepareStream(any(GenerationRequest.class)))
+        .thenThrow(new AiProviderRequestException(500, "upstream failed"));
+
+    chat(false).andExpect(status().isBadGateway());
+    chat(true).andExpect(status().isBadGateway());
+
+    verify(accessService, never()).settleTokens(any(), any());
+  }
+
+  private AiCompatibleGatewayController controller(
+      final Executor executor,
+      final AiProperties properties
+  ) {
+    ObjectMapper objectMapper = new ObjectMapper();
+    return new AiCompatibleGatewayController(
+        accessService,
+        generationService,
+        new AiCompatibilityMapper(objectMapper),
+        new OpenAiResponsesProtocol(objectMapper),
+        executor,
+        properties
+    );
+  }
+
+  private void useHeartbeatController(final long heartbeatMs) {
+    controller.destroy();
+    inferenceExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    AiProperties properties = new AiProperties();
+    properties.setGatewayStreamHeartbeatMs(heartbeatMs);
+    controller = controller(inferenceExecutor, properties);
+    mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+  }
+
+  private static GenerationStream silentStream(
+      final CountDownLatch released,
+      final CountDownLatch cancelled
+  ) {
+    return new GenerationStream() {
+      @Override
+      public void consume(final Consumer<GenerationEvent> consumer) {
+        try {
+          while (released.getCount() > 0 && cancelled.getCount() > 0) {
+            released.await(10L, TimeUnit.MILLISECONDS);
+          }
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+      }
+
+      @Override
+      public void cancel() {
+        cancelled.countDown();
+      }
+    };
+  }
+
+  private static GenerationEvent event(final EventType type, final String errorMessage) {
+    return new GenerationEvent("inv-1", 1L, type,
+        null, null, null, null, null, null, null, errorMessage);
+  }
+
+  private TokenReservation acceptApiKeyWithReservation() {
+    GatewaySession session = new GatewaySession(
+        "key-1", "test", AiResourceScope.SYSTEM, null, 1_000L);
+    when(accessService.authenticate("valid", "127.0.0.1")).thenReturn(session);
+    when(accessService.resolveModelDefinitionId(session, "test")).thenReturn("definition-1");
+    when(accessService.withSession(eq(session), any())).thenAnswer(invocation -> {
+      Supplier<?> operation = invocation.getArgument(1);
+      return operation.get();
+    });
+    TokenReservation reservation = new TokenReservation("key-1", "definition-1", 1_000L, 20L);
+    when(accessService.reserveTokens(eq(session), any(GenerationRequest.class))).thenReturn(reservation);
+    return reservation;
+  }
+
+  private ResultActions chat(final boolean stream) throws Exception {
+    return mockMvc.perform(post("/v1/chat/completions")
+        .header("Authorization", "Bearer valid")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("""
+            {"model":"test","stream":%s,
+             "messages":[{"role":"user","content":"ping"}]}
+            """.formatted(stream)));
+  }
+
+  /** Provider stream that hands raw frames to the relay. */
+  private record RelayedStream(
+      StreamProtocol protocol,
+      BiConsumer<Consumer<GenerationEvent>, Consumer<StreamFrame>> body
+  ) implements GenerationStream {
+
+    @Override
+    public void consume(final Consumer<GenerationEvent> consumer) {
+      throw new AssertionError("matching protocols should relay raw frames");
+    }
+
+    @Override
+    public void consume(
+        final Consumer<GenerationEvent> consumer,
+        final Consumer<StreamFrame> frames
+    ) {
+      body.accept(consumer, frames);
+    }
+
+    @Override
+    public void cancel() {
+    }
+  }
+
+  /** Response body of a client that has already disconnected. */
+  private static final class DisconnectedOutputStream extends ServletOutputStream {
+
+    @Override
+    public void write(final int b) throws IOException {
+      throw new IOException("Broken pipe");
+    }
+
+    @Override
+    public boolean isReady() {
+      return true;
+    }
+
+    @Override
+    public void setWriteListener(final WriteListener writeListener) {
+    }
+  }
+
   private void rejectApiKey() {
     when(accessService.authenticate(anyString(), anyString())).thenThrow(
         new AiGatewayAccessException(FailureType.AUTHENTICATION, "模型 API Key 无效")
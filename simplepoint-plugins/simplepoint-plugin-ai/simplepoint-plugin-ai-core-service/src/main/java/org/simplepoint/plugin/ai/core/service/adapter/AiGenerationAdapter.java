@@ -4,24 +4,35 @@ import java.util.function.Consumer;
 import org.simplepoint.plugin.ai.core.api.model.AiProviderType;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.GenerationEvent;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.GenerationResult;
+import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.StreamFrame;
+import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.StreamProtocol;
 
 /** Internal SPI implemented by each provider generation protocol. */
 interface AiGenerationAdapter {
 
   boolean supports(AiProviderType providerType);
 
+  /** Wire protocol of the provider streams this adapter reads. */
+  StreamProtocol protocol();
+
   GenerationResult generate(AiRuntimeInvocation invocation);
 
   default void stream(
       final AiRuntimeInvocation invocation,
       final Consumer<GenerationEvent> consumer
   ) {
-    stream(invocation, consumer, new AiStreamCancellation());
+    stream(invocation, consumer, frame -> {
+    }, new AiStreamCancellation());
   }
 
+  /**
+   * Streams a generation; every provider event reaches {@code frames} unmodified before it is
+   * normalized into {@code consumer} events.
+   */
   void stream(
       AiRuntimeInvocation invocation,
       Consumer<GenerationEvent> consumer,
+      Consumer<StreamFrame> frames,
       AiStreamCancellation cancellation
   );
 }
@@ -1,6 +1,9 @@
 package org.simplepoint.plugin.ai.core.service.adapter;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.extern.slf4j.Slf4j;
 import org.simplepoint.core.AuthorizationContext;
 import org.simplepoint.core.AuthorizationContextHolder;
@@ -10,28 +13,45 @@ import org.simplepoint.plugin.ai.core.api.entity.AiProviderDefinition;
 import org.simplepoint.plugin.ai.core.api.model.AiInvocationOperation;
 import org.simplepoint.plugin.ai.core.api.model.AiInvocationStatus;
 import org.simplepoint.plugin.ai.core.api.model.AiResourceScope;
-import org.simplepoint.plugin.ai.core.api.repository.AiInvocationRecordRepository;
+import org.simplepoint.plugin.ai.core.api.properties.AiProperties;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.GenerationResult;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.TokenUsage;
 import org.simplepoint.plugin.ai.core.service.support.AiScopeAccessPolicy;
 import org.simplepoint.plugin.ai.core.service.support.AiScopeAccessPolicy.ScopeAssignment;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-/** Writes metadata-only invocation lifecycle records without retaining request or response content. */
+/**
+ * Records metadata-only invocation lifecycles without retaining request or response content.
+ *
+ * <p>Running invocations are only tracked in memory; the request path never waits for the
+ * database. Final outcomes are handed to the {@link AiInvocationLedgerWriter}, which spools and
+ * persists them in batches. Invocations still running at shutdown, or still unfinished after
+ * {@code invocation-ledger-in-flight-ttl-ms}, are written as RUNNING and no longer tracked; an
+ * outcome reported later still completes the row.
+ */
 @Slf4j
 @Component
-final class AiInvocationLedger {
+final class AiInvocationLedger implements DisposableBean {
 
-  private final AiInvocationRecordRepository repository;
+  private final AiInvocationLedgerWriter writer;
 
   private final AiScopeAccessPolicy scopeAccessPolicy;
 
+  private final Map<String, AiInvocationRecord> inFlight = new ConcurrentHashMap<>();
+
+  private final Duration inFlightTtl;
+
   AiInvocationLedger(
-      final AiInvocationRecordRepository repository,
-      final AiScopeAccessPolicy scopeAccessPolicy
+      final AiInvocationLedgerWriter writer,
+      final AiScopeAccessPolicy scopeAccessPolicy,
+      final AiProperties properties
   ) {
-    this.repository = repository;
+    this.writer = writer;
     this.scopeAccessPolicy = scopeAccessPolicy;
+    Long ttl = properties.getInvocationLedgerInFlightTtlMs();
+    this.inFlightTtl = Duration.ofMillis(ttl == null || ttl <= 0L ? 3_600_000L : ttl);
   }
 
   InvocationActor captureActor() {
@@ -77,7 +97,8 @@ final class AiInvocationLedger {
       record.setStream(stream);
       record.setStatus(AiInvocationStatus.RUNNING);
       record.setStartedAt(Instant.now());
-      return repository.save(record);
+      inFlight.put(invocationId, record);
+      return record;
     } catch (RuntimeException ex) {
       log.warn("Unable to start AI invocation ledger record {}: {}", invocationId, ex.getMessage());
       return null;
@@ -139,14 +160,68 @@ final class AiInvocationLedger {
     save(record);
   }
 
+  /**
+   * Stops tracking invocations that never reported an outcome, for example because the caller
+   * abandoned a stream, and writes them as RUNNING rows.
+   */
+  @Scheduled(fixedDelay = 60_000L, initialDelay = 60_000L)
+  public void evictStale() {
+    Instant cutoff = Instant.now().minus(inFlightTtl);
+    inFlight.values().removeIf(record -> {
+      if (!record.getStartedAt().isBefore(cutoff)) {
+        return false;
+      }
+      log.warn("AI 调用 {} 超过 {} 秒未结束，已按运行中状态写入台账", record.getId(), inFlightTtl.toSeconds());
+      submitRunning(record);
+      return true;
+    });
+  }
+
+  /**
+   * Writes invocations that are still running as RUNNING rows. An outcome reported later is
+   * spooled as usual and completes the row on the next flush, or after the next start.
+   */
+  @Override
+  public void destroy() {
+    inFlight.values().forEach(this::submitRunning);
+    inFlight.clear();
+  }
+
+  private void submitRunning(final AiInvocationRecord record) {
+    try {
+      writer.submit(running(record));
+    } catch (RuntimeException ex) {
+      log.warn("Unable to record running AI invocation {}: {}", record.getId(), ex.getMessage());
+    }
+  }
+
   private void save(final AiInvocationRecord record) {
     try {
-      repository.save(record);
+      inFlight.remove(record.getId());
+      writer.submit(record);
     } catch (RuntimeException ex) {
       log.warn("Unable to update AI invocation ledger record {}: {}", record.getId(), ex.getMessage());
     }
   }
 
+  private static AiInvocationRecord running(final AiInvocationRecord source) {
+    AiInvocationRecord record = new AiInvocationRecord();
+    record.setId(source.getId());
+    record.setScopeType(source.getScopeType());
+    record.setTenantId(source.getTenantId());
+    record.setUserId(source.getUserId());
+    record.setContextId(source.getContextId());
+    record.setProviderDefinitionId(source.getProviderDefinitionId());
+    record.setModelDefinitionId(source.getModelDefinitionId());
+    record.setModelId(source.getModelId());
+    record.setProviderType(source.getProviderType());
+    record.setOperation(source.getOperation());
+    record.setStream(source.getStream());
+    record.setStatus(AiInvocationStatus.RUNNING);
+    record.setStartedAt(source.getStartedAt());
+    return record;
+  }
+
   private static void applyUsage(final AiInvocationRecord record, final TokenUsage usage) {
     if (usage == null) {
       return;
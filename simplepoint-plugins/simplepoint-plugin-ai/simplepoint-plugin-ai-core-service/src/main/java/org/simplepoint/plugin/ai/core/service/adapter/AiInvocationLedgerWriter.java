@@ -0,0 +1,609 @@
+package org.simplepoint.plugin.ai.core.service.adapter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.simplepoint.plugin.ai.core.api.entity.AiInvocationRecord;
+import org.simplepoint.plugin.ai.core.api.model.AiInvocationOperation;
+import org.simplepoint.plugin.ai.core.api.model.AiInvocationStatus;
+import org.simplepoint.plugin.ai.core.api.model.AiProviderType;
+import org.simplepoint.plugin.ai.core.api.model.AiResourceScope;
+import org.simplepoint.plugin.ai.core.api.properties.AiProperties;
+import org.simplepoint.plugin.ai.core.api.repository.AiInvocationRecordRepository;
+import org.simplepoint.plugin.ai.core.api.repository.AiUsageRollupRepository;
+import org.simplepoint.plugin.ai.core.api.vo.AiUsageRollup;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Write-behind persistence of invocation ledger records.
+ *
+ * <p>Submitted records are appended to a local spool segment; a scheduled sync forces the segment
+ * to disk in groups, so a power failure loses at most the records submitted since the last sync,
+ * while a process crash loses none. A scheduled flush seals the segment and writes the sealed
+ * segments in batches together with per-minute usage rollups, one transaction per batch, deleting
+ * each segment once it is stored. Segments left behind by a crash are replayed by the first flush
+ * after a restart. A record whose id is already stored as finished is skipped, so a replayed
+ * segment never counts usage twice.
+ *
+ * <p>Submitting never touches the database: when the pending records reach the queue capacity a
+ * background flush is requested instead. After a failed flush the next one is delayed with
+ * exponential backoff, and failed records are read back from their segments rather than held in
+ * memory. Records that cannot be spooled are kept in memory, bounded by the queue capacity.
+ */
+@Slf4j
+@Component
+final class AiInvocationLedgerWriter implements DisposableBean {
+
+  private static final String SEGMENT_PREFIX = "ledger-";
+
+  private static final String SEGMENT_SUFFIX = ".spool";
+
+  private static final int FORMAT_VERSION = 1;
+
+  private static final int MAX_BACKOFF_SHIFT = 16;
+
+  private final AiInvocationRecordRepository repository;
+
+  private final AiUsageRollupRepository rollupRepository;
+
+  private final TransactionTemplate transactionTemplate;
+
+  private final int batchSize;
+
+  private final int queueCapacity;
+
+  private final long flushMillis;
+
+  private final long maxRetryDelayMillis;
+
+  private final Path directory;
+
+  private final Object spoolLock = new Object();
+
+  private final ReentrantLock flushLock = new ReentrantLock();
+
+  private final Deque<AiInvocationRecord> queue = new ArrayDeque<>();
+
+  private final List<AiInvocationRecord> retry = new ArrayList<>();
+
+  private final List<Path> sealedSegments = new ArrayList<>();
+
+  private final ExecutorService flusher = Executors.newSingleThreadExecutor(
+      Thread.ofPlatform().name("ai-ledger-flush").daemon().factory()
+  );
+
+  private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+  private FileChannel segment;
+
+  private Path segmentPath;
+
+  private long nextSegment;
+
+  private int segmentRecords;
+
+  private boolean unsynced;
+
+  private long dropped;
+
+  private int consecutiveFailures;
+
+  private volatile long nextAttemptAt;
+
+  AiInvocationLedgerWriter(
+      final AiInvocationRecordRepository repository,
+      final AiUsageRollupRepository rollupRepository,
+      final PlatformTransactionManager transactionManager,
+      final AiProperties properties
+  ) {
+    this.repository = repository;
+    this.rollupRepository = rollupRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.batchSize = positive(properties.getInvocationLedgerBatchSize(), 500);
+    this.queueCapacity = positive(properties.getInvocationLedgerQueueCapacity(), 10_000);
+    this.flushMillis = positive(properties.getInvocationLedgerFlushMs(), 1000L);
+    this.maxRetryDelayMillis = Math.max(flushMillis, positive(properties.getInvocationLedgerMaxRetryDelayMs(), 60_000L));
+    this.directory = openSpool(properties.getInvocationLedgerSpoolDirectory());
+    recover();
+  }
+
+  /**
+   * Spools a record and returns without waiting for the database. The caller must not modify it
+   * afterwards.
+   *
+   * @param record running snapshot or final outcome of an invocation
+   */
+  void submit(final AiInvocationRecord record) {
+    boolean full;
+    synchronized (spoolLock) {
+      if (!append(record)) {
+        if (queue.size() >= queueCapacity) {
+          queue.removeFirst();
+          if (dropped++ % queueCapacity == 0) {
+            log.warn("AI 调用台账内存队列已满，已丢弃 {} 条最早的未缓冲记录", dropped);
+          }
+        }
+        queue.addLast(record);
+      }
+      full = segmentRecords + queue.size() >= queueCapacity;
+    }
+    if (full && flushRequested.compareAndSet(false, true)) {
+      try {
+        flusher.execute(() -> {
+          flushRequested.set(false);
+          flushIfDue();
+        });
+      } catch (RejectedExecutionException ex) {
+        flushRequested.set(false);
+      }
+    }
+  }
+
+  /** Forces records appended since the previous sync to disk. */
+  @Scheduled(
+      fixedDelayString = "${simplepoint.ai.invocation-ledger-sync-ms:200}",
+      initialDelayString = "${simplepoint.ai.invocation-ledger-sync-ms:200}"
+  )
+  public void sync() {
+    FileChannel channel;
+    Path path;
+    synchronized (spoolLock) {
+      if (segment == null || !unsynced) {
+        return;
+      }
+      channel = segment;
+      path = segmentPath;
+      unsynced = false;
+    }
+    try {
+      channel.force(false);
+    } catch (ClosedChannelException ignored) {
+      // Sealing forced the segment before closing it.
+    } catch (IOException ex) {
+      log.warn("无法同步 AI 调用台账缓冲文件 {}: {}", path, ex.getMessage());
+    }
+  }
+
+  /** Persists pending records unless a previous failure is still backing off. */
+  @Scheduled(
+      fixedDelayString = "${simplepoint.ai.invocation-ledger-flush-ms:1000}",
+      initialDelayString = "${simplepoint.ai.invocation-ledger-flush-ms:1000}"
+  )
+  public void flushIfDue() {
+    if (System.currentTimeMillis() >= nextAttemptAt) {
+      flush();
+    }
+  }
+
+  /** Persists pending records; failed segments stay on disk and are retried after a backoff. */
+  void flush() {
+    flushLock.lock();
+    try {
+      List<Path> segments;
+      synchronized (spoolLock) {
+        sealSegment();
+        segments = List.copyOf(sealedSegments);
+        retry.addAll(queue);
+        queue.clear();
+      }
+      for (Path path : segments) {
+        persistAll(readSegment(path));
+        deleteSegment(path);
+      }
+      persistAll(retry);
+      retry.clear();
+      consecutiveFailures = 0;
+      nextAttemptAt = 0L;
+    } catch (RuntimeException ex) {
+      long delay = Math.min(maxRetryDelayMillis, flushMillis << Math.min(MAX_BACKOFF_SHIFT, consecutiveFailures++));
+      nextAttemptAt = System.currentTimeMillis() + delay;
+      if (retry.size() > queueCapacity) {
+        int excess = retry.size() - queueCapacity;
+        retry.subList(0, excess).clear();
+        log.warn("AI 调用台账待重试的内存记录超过上限，已丢弃最早的 {} 条", excess);
+      }
+      int pendingSegments;
+      synchronized (spoolLock) {
+        pendingSegments = sealedSegments.size();
+      }
+      log.warn("AI 调用台账批量写入失败，{} 个缓冲文件与 {} 条内存记录将在 {} 毫秒后重试: {}",
+          pendingSegments, retry.size(), delay, ex.getMessage());
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  @Override
+  public void destroy() {
+    flusher.shutdown();
+    flush();
+    synchronized (spoolLock) {
+      sealSegment();
+    }
+  }
+
+  private void persistAll(final List<AiInvocationRecord> records) {
+    for (int from = 0; from < records.size(); from += batchSize) {
+      List<AiInvocationRecord> batch = records.subList(from, Math.min(records.size(), from + batchSize));
+      transactionTemplate.executeWithoutResult(status -> persist(batch));
+    }
+  }
+
+  private void persist(final List<AiInvocationRecord> batch) {
+    Map<String, AiInvocationRecord> stored = new HashMap<>();
+    repository.findAllByIds(batch.stream().map(AiInvocationRecord::getId).toList())
+        .forEach(record -> stored.put(record.getId(), record));
+    List<AiInvocationRecord> writes = new ArrayList<>();
+    List<AiInvocationRecord> finished = new ArrayList<>();
+    for (AiInvocationRecord record : batch) {
+      AiInvocationRecord existing = stored.get(record.getId());
+      if (existing == null) {
+        stored.put(record.getId(), record);
+        writes.add(record);
+      } else if (existing.getStatus() == AiInvocationStatus.RUNNING
+          && record.getStatus() != AiInvocationStatus.RUNNING) {
+        copyOutcome(record, existing);
+        writes.add(existing);
+      } else {
+        continue;
+      }
+      if (record.getStatus() != AiInvocationStatus.RUNNING) {
+        finished.add(record);
+      }
+    }
+    if (!writes.isEmpty()) {
+      repository.saveAll(writes);
+    }
+    rollupRepository.accumulate(rollups(finished));
+  }
+
+  /** Sums finished records per start minute, scope, model definition and operation. */
+  static List<AiUsageRollup> rollups(final List<AiInvocationRecord> records) {
+    Map<List<Object>, AiUsageRollup> rollups = new LinkedHashMap<>();
+    for (AiInvocationRecord record : records) {
+      Instant minute = record.getStartedAt().truncatedTo(ChronoUnit.MINUTES);
+      List<Object> key = Arrays.asList(
+          minute, record.getScopeType(), record.getTenantId(),
+          record.getModelDefinitionId(), record.getOperation()
+      );
+      AiUsageRollup increment = new AiUsageRollup(
+          minute,
+          record.getScopeType(),
+          record.getTenantId(),
+          record.getModelDefinitionId(),
+          record.getModelId(),
+          record.getOperation(),
+          1L,
+          record.getStatus() == AiInvocationStatus.FAILED ? 1L : 0L,
+          record.getStatus() == AiInvocationStatus.CANCELLED ? 1L : 0L,
+          value(record.getInputTokens()),
+          value(record.getOutputTokens()),
+          value(record.getTotalTokens()),
+          value(record.getCachedInputTokens()),
+          record.getDurationMillis() == null ? 0L : record.getDurationMillis()
+      );
+      rollups.merge(key, increment, AiInvocationLedgerWriter::add);
+    }
+    return List.copyOf(rollups.values());
+  }
+
+  private static AiUsageRollup add(final AiUsageRollup left, final AiUsageRollup right) {
+    return new AiUsageRollup(
+        left.minute(), left.scopeType(), left.tenantId(), left.modelDefinitionId(), right.modelId(),
+        left.operation(),
+        left.invocations() + right.invocations(),
+        left.failedInvocations() + right.failedInvocations(),
+        left.cancelledInvocations() + right.cancelledInvocations(),
+        left.inputTokens() + right.inputTokens(),
+        left.outputTokens() + right.outputTokens(),
+        left.totalTokens() + right.totalTokens(),
+        left.cachedInputTokens() + right.cachedInputTokens(),
+        left.durationMillis() + right.durationMillis()
+    );
+  }
+
+  private static void copyOutcome(final AiInvocationRecord source, final AiInvocationRecord target) {
+    target.setStatus(source.getStatus());
+    target.setProviderRequestId(source.getProviderRequestId());
+    target.setCompletedAt(source.getCompletedAt());
+    target.setDurationMillis(source.getDurationMillis());
+    target.setInputTokens(source.getInputTokens());
+    target.setOutputTokens(source.getOutputTokens());
+    target.setTotalTokens(source.getTotalTokens());
+    target.setCachedInputTokens(source.getCachedInputTokens());
+    target.setErrorCode(source.getErrorCode());
+    target.setErrorMessage(source.getErrorMessage());
+  }
+
+  private Path openSpool(final String configured) {
+    if (configured == null || configured.isBlank()) {
+      return null;
+    }
+    Path path = Path.of(configured);
+    try {
+      Files.createDirectories(path);
+      return path;
+    } catch (IOException ex) {
+      log.warn("无法创建 AI 调用台账缓冲目录 {}，未写入的记录将只保存在内存中: {}", path, ex.getMessage());
+      return null;
+    }
+  }
+
+  private void recover() {
+    if (directory == null) {
+      return;
+    }
+    List<Path> segments;
+    try (Stream<Path> files = Files.list(directory)) {
+      segments = files.filter(AiInvocationLedgerWriter::isSegment)
+          .sorted((left, right) -> Long.compare(sequence(left), sequence(right)))
+          .toList();
+    } catch (IOException ex) {
+      log.warn("无法读取 AI 调用台账缓冲目录 {}: {}", directory, ex.getMessage());
+      return;
+    }
+    for (Path path : segments) {
+      nextSegment = Math.max(nextSegment, sequence(path) + 1);
+      sealedSegments.add(path);
+    }
+    if (!segments.isEmpty()) {
+      log.info("Found {} AI invocation ledger spool segments to replay", segments.size());
+    }
+  }
+
+  /** Appends a record to the open segment; returns false when it could not be spooled. */
+  private boolean append(final AiInvocationRecord record) {
+    if (directory == null) {
+      return false;
+    }
+    long position = -1L;
+    try {
+      if (segment == null) {
+        segmentPath = directory.resolve(SEGMENT_PREFIX + nextSegment++ + SEGMENT_SUFFIX);
+        segment = FileChannel.open(segmentPath, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+      }
+      position = segment.size();
+      ByteBuffer frame = ByteBuffer.wrap(frame(record));
+      while (frame.hasRemaining()) {
+        segment.write(frame);
+      }
+      segmentRecords++;
+      unsynced = true;
+      return true;
+    } catch (IOException ex) {
+      log.warn("无法写入 AI 调用台账缓冲文件 {}: {}", segmentPath, ex.getMessage());
+      discardTornFrame(position);
+      return false;
+    }
+  }
+
+  /** Cuts a partially written frame so later frames stay readable, or seals the segment. */
+  private void discardTornFrame(final long position) {
+    if (segment == null) {
+      return;
+    }
+    try {
+      if (position >= 0L) {
+        segment.truncate(position);
+        return;
+      }
+    } catch (IOException ex) {
+      log.debug("Unable to truncate AI invocation ledger spool segment {}: {}", segmentPath, ex.getMessage());
+    }
+    sealSegment();
+  }
+
+  private void sealSegment() {
+    if (segment == null) {
+      return;
+    }
+    try (FileChannel channel = segment) {
+      channel.force(false);
+    } catch (IOException ex) {
+      log.warn("无法同步 AI 调用台账缓冲文件 {}: {}", segmentPath, ex.getMessage());
+    }
+    sealedSegments.add(segmentPath);
+    segment = null;
+    segmentPath = null;
+    segmentRecords = 0;
+    unsynced = false;
+  }
+
+  private void deleteSegment(final Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException ex) {
+      log.warn("无法删除已写入的 AI 调用台账缓冲文件 {}: {}", path, ex.getMessage());
+    }
+    synchronized (spoolLock) {
+      sealedSegments.remove(path);
+    }
+  }
+
+  private static List<AiInvocationRecord> readSegment(final Path path) {
+    List<AiInvocationRecord> records = new ArrayList<>();
+    try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(path)))) {
+      while (true) {
+        int length = input.readInt();
+        if (length <= 0 || length > input.available()) {
+          break;
+        }
+        byte[] payload = new byte[length];
+        input.readFully(payload);
+        records.add(readRecord(payload));
+      }
+    } catch (EOFException ignored) {
+      // A torn frame at the end of the segment was never acknowledged to anyone.
+    } catch (IOException | RuntimeException ex) {
+      log.warn("AI 调用台账缓冲文件 {} 已损坏，仅恢复前 {} 条记录: {}", path, records.size(), ex.getMessage());
+    }
+    return records;
+  }
+
+  private static byte[] frame(final AiInvocationRecord record) throws IOException {
+    ByteArrayOutputStream payload = new ByteArrayOutputStream(256);
+    try (DataOutputStream output = new DataOutputStream(payload)) {
+      output.writeByte(FORMAT_VERSION);
+      writeString(output, record.getId());
+      writeString(output, name(record.getScopeType()));
+      writeString(output, record.getTenantId());
+      writeString(output, record.getUserId());
+      writeString(output, record.getContextId());
+      writeString(output, record.getProviderDefinitionId());
+      writeString(output, record.getModelDefinitionId());
+      writeString(output, record.getModelId());
+      writeString(output, name(record.getProviderType()));
+      writeString(output, name(record.getOperation()));
+      output.writeBoolean(Boolean.TRUE.equals(record.getStream()));
+      writeString(output, name(record.getStatus()));
+      writeString(output, record.getProviderRequestId());
+      writeString(output, record.getStartedAt() == null ? null : record.getStartedAt().toString());
+      writeString(output, record.getCompletedAt() == null ? null : record.getCompletedAt().toString());
+      writeLong(output, record.getDurationMillis());
+      writeInteger(output, record.getInputTokens());
+      writeInteger(output, record.getOutputTokens());
+      writeInteger(output, record.getTotalTokens());
+      writeInteger(output, record.getCachedInputTokens());
+      writeString(output, record.getErrorCode());
+      writeString(output, record.getErrorMessage());
+    }
+    ByteArrayOutputStream frame = new ByteArrayOutputStream(payload.size() + Integer.BYTES);
+    try (DataOutputStream output = new DataOutputStream(frame)) {
+      output.writeInt(payload.size());
+      payload.writeTo(output);
+    }
+    return frame.toByteArray();
+  }
+
+  private static AiInvocationRecord readRecord(final byte[] payload) throws IOException {
+    try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload))) {
+      int version = input.readUnsignedByte();
+      if (version != FORMAT_VERSION) {
+        throw new IOException("不支持的缓冲记录版本 " + version);
+      }
+      AiInvocationRecord record = new AiInvocationRecord();
+      record.setId(readString(input));
+      record.setScopeType(AiResourceScope.valueOf(readString(input)));
+      record.setTenantId(readString(input));
+      record.setUserId(readString(input));
+      record.setContextId(readString(input));
+      record.setProviderDefinitionId(readString(input));
+      record.setModelDefinitionId(readString(input));
+      record.setModelId(readString(input));
+      record.setProviderType(AiProviderType.valueOf(readString(input)));
+      record.setOperation(AiInvocationOperation.valueOf(readString(input)));
+      record.setStream(input.readBoolean());
+      record.setStatus(AiInvocationStatus.valueOf(readString(input)));
+      record.setProviderRequestId(readString(input));
+      record.setStartedAt(readInstant(input));
+      record.setCompletedAt(readInstant(input));
+      record.setDurationMillis(readLong(input));
+      record.setInputTokens(readInteger(input));
+      record.setOutputTokens(readInteger(input));
+      record.setTotalTokens(readInteger(input));
+      record.setCachedInputTokens(readInteger(input));
+      record.setErrorCode(readString(input));
+      record.setErrorMessage(readString(input));
+      return record;
+    }
+  }
+
+  private static void writeString(final DataOutputStream output, final String value) throws IOException {
+    output.writeBoolean(value != null);
+    if (value != null) {
+      output.writeUTF(value);
+    }
+  }
+
+  private static String readString(final DataInputStream input) throws IOException {
+    return input.readBoolean() ? input.readUTF() : null;
+  }
+
+  private static void writeLong(final DataOutputStream output, final Long value) throws IOException {
+    output.writeBoolean(value != null);
+    if (value != null) {
+      output.writeLong(value);
+    }
+  }
+
+  private static Long readLong(final DataInputStream input) throws IOException {
+    return input.readBoolean() ? input.readLong() : null;
+  }
+
+  private static void writeInteger(final DataOutputStream output, final Integer value) throws IOException {
+    output.writeBoolean(value != null);
+    if (value != null) {
+      output.writeInt(value);
+    }
+  }
+
+  private static Integer readInteger(final DataInputStream input) throws IOException {
+    return input.readBoolean() ? input.readInt() : null;
+  }
+
+  private static Instant readInstant(final DataInputStream input) throws IOException {
+    String value = readString(input);
+    return value == null ? null : Instant.parse(value);
+  }
+
+  private static String name(final Enum<?> value) {
+    return value == null ? null : value.name();
+  }
+
+  private static boolean isSegment(final Path path) {
+    String name = path.getFileName().toString();
+    return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX) && sequence(path) >= 0;
+  }
+
+  private static long sequence(final Path path) {
+    String name = path.getFileName().toString();
+    try {
+      return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    } catch (RuntimeException ex) {
+      return -1L;
+    }
+  }
+
+  private static long value(final Integer value) {
+    return value == null ? 0L : value;
+  }
+
+  private static int positive(final Integer value, final int fallback) {
+    return value != null && value > 0 ? value : fallback;
+  }
+
+  private static long positive(final Long value, final long fallback) {
+    return value != null && value > 0L ? value : fallback;
+  }
+}
@@ -24,6 +24,8 @@ import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.Message;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.MessageRole;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.ResponseFormat;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.ResponseFormatType;
+import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.StreamFrame;
+import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.StreamProtocol;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.TokenUsage;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.ToolDefinition;
 import org.springframework.stereotype.Component;
@@ -53,6 +55,11 @@ final class AnthropicMessagesGenerationAdapter implements AiGenerationAdapter {
     return providerType == AiProviderType.ANTHROPIC;
   }
 
+  @Override
+  public StreamProtocol protocol() {
+    return StreamProtocol.ANTHROPIC_MESSAGES;
+  }
+
   @Override
   public GenerationResult generate(final AiRuntimeInvocation invocation) {
     long started = System.nanoTime();
@@ -71,6 +78,7 @@ final class AnthropicMessagesGenerationAdapter implements AiGenerationAdapter {
   public void stream(
       final AiRuntimeInvocation invocation,
       final Consumer<GenerationEvent> consumer,
+      final Consumer<StreamFrame> frames,
       final AiStreamCancellation cancellation
   ) {
     StreamState state = new StreamState(invocation, consumer);
@@ -78,7 +86,10 @@ final class AnthropicMessagesGenerationAdapter implements AiGenerationAdapter {
     http.stream(
         request(invocation, true),
         Boolean.TRUE.equals(invocation.provider().getAllowPrivateNetwork()),
-        state::accept,
+        frame -> {
+          frames.accept(frame);
+          state.accept(frame.data());
+        },
         cancellation
     );
     state.complete();
@@ -253,11 +264,8 @@ final class AnthropicMessagesGenerationAdapter implements AiGenerationAdapter {
       this.consumer = consumer;
     }
 
-    private void accept(final String line) {
-      if (!line.startsWith("data:")) {
-        return;
-      }
-      String data = line.substring(5).trim();
+    private void accept(final String frameData) {
+      String data = frameData.trim();
       if (data.isEmpty()) {
         return;
       }
@@ -25,6 +25,8 @@ import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.Message;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.MessageRole;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.ResponseFormat;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.ResponseFormatType;
+import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.StreamFrame;
+import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.StreamProtocol;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.TokenUsage;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.ToolDefinition;
 import org.springframework.stereotype.Component;
@@ -50,6 +52,11 @@ final class OpenAiCompatibleGenerationAdapter implements AiGenerationAdapter {
     return providerType == AiProviderType.OPENAI_COMPATIBLE;
   }
 
+  @Override
+  public StreamProtocol protocol() {
+    return StreamProtocol.OPENAI_CHAT_COMPLETIONS;
+  }
+
   @Override
   public GenerationResult generate(final AiRuntimeInvocation invocation) {
     long started = System.nanoTime();
@@ -68,6 +75,7 @@ final class OpenAiCompatibleGenerationAdapter implements AiGenerationAdapter {
   public void stream(
       final AiRuntimeInvocation invocation,
       final Consumer<GenerationEvent> consumer,
+      final Consumer<StreamFrame> frames,
       final AiStreamCancellation cancellation
   ) {
     StreamState state = new StreamState(invocation, consumer);
@@ -75,7 +83,10 @@ final class OpenAiCompatibleGenerationAdapter implements AiGenerationAdapter {
     http.stream(
         request(invocation, true),
         Boolean.TRUE.equals(invocation.provider().getAllowPrivateNetwork()),
-        line -> state.accept(line),
+        frame -> {
+          frames.accept(frame);
+          state.accept(frame.data());
+        },
         cancellation
     );
     state.complete();
@@ -269,11 +280,8 @@ final class OpenAiCompatibleGenerationAdapter implements AiGenerationAdapter {
       this.consumer = consumer;
     }
 
-    private void accept(final String line) {
-      if (!line.startsWith("data:")) {
-        return;
-      }
-      String data = line.substring(5).trim();
+    private void accept(final String frameData) {
+      String data = frameData.trim();
       if (data.isEmpty()) {
         return;
       }
@@ -239,14 +239,16 @@ public class OpenAiEmbeddingService implements AiEmbeddingService {
         if (!embedding.isArray() || embedding.isEmpty()) {
           throw new IllegalStateException("供应商 Embedding 响应缺少向量");
         }
-        List<Double> vector = new ArrayList<>(embedding.size());
-        embedding.forEach(value -> vector.add(value.asDouble()));
+        float[] vector = new float[embedding.size()];
+        for (int index = 0; index < vector.length; index++) {
+          vector[index] = embedding.get(index).floatValue();
+        }
         indexed.add(new IndexedVector(item.path("index").asInt(position), vector));
       }
       indexed.sort(Comparator.comparingInt(IndexedVector::index));
-      List<List<Double>> vectors = indexed.stream().map(IndexedVector::vector).toList();
-      int actualDimensions = vectors.getFirst().size();
-      if (vectors.stream().anyMatch(vector -> vector.size() != actualDimensions)) {
+      List<float[]> vectors = indexed.stream().map(IndexedVector::vector).toList();
+      int actualDimensions = vectors.getFirst().length;
+      if (vectors.stream().anyMatch(vector -> vector.length != actualDimensions)) {
         throw new IllegalStateException("供应商返回的 Embedding 向量维度不一致");
       }
       JsonNode usage = root.path("usage");
@@ -279,7 +281,7 @@ public class OpenAiEmbeddingService implements AiEmbeddingService {
     return value.trim();
   }
 
-  private record IndexedVector(int index, List<Double> vector) {
+  private record IndexedVector(int index, float[] vector) {
   }
 
   private record EmbeddingInvocationResult(
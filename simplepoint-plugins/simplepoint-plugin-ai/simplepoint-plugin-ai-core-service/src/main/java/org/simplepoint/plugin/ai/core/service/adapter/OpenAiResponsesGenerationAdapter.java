@@ -23,6 +23,8 @@ import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.GenerationResult
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.Message;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.ResponseFormat;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.ResponseFormatType;
+import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.StreamFrame;
+import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.StreamProtocol;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.TokenUsage;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.ToolDefinition;
 import org.springframework.stereotype.Component;
@@ -48,6 +50,11 @@ final class OpenAiResponsesGenerationAdapter implements AiGenerationAdapter {
     return providerType == AiProviderType.OPENAI;
   }
 
+  @Override
+  public StreamProtocol protocol() {
+    return StreamProtocol.OPENAI_RESPONSES;
+  }
+
   @Override
   public GenerationResult generate(final AiRuntimeInvocation invocation) {
     long started = System.nanoTime();
@@ -70,6 +77,7 @@ final class OpenAiResponsesGenerationAdapter implements AiGenerationAdapter {
   public void stream(
       final AiRuntimeInvocation invocation,
       final Consumer<GenerationEvent> consumer,
+      final Consumer<StreamFrame> frames,
       final AiStreamCancellation cancellation
   ) {
     long started = System.nanoTime();
@@ -79,23 +87,23 @@ final class OpenAiResponsesGenerationAdapter implements AiGenerationAdapter {
     http.stream(
         request(invocation, true),
         Boolean.TRUE.equals(invocation.provider().getAllowPrivateNetwork()),
-        line -> consumeSseLine(invocation, line, started, sequence, callIds, consumer),
+        frame -> {
+          frames.accept(frame);
+          consumeSseData(invocation, frame.data(), started, sequence, callIds, consumer);
+        },
         cancellation
     );
   }
 
-  private void consumeSseLine(
+  private void consumeSseData(
       final AiRuntimeInvocation invocation,
-      final String line,
+      final String frameData,
       final long started,
       final AtomicLong sequence,
       final Map<String, String> callIds,
       final Consumer<GenerationEvent> consumer
   ) {
-    if (!line.startsWith("data:")) {
-      return;
-    }
-    String data = line.substring(5).trim();
+    String data = frameData.trim();
     if (data.isEmpty() || "[DONE]".equals(data)) {
       return;
     }
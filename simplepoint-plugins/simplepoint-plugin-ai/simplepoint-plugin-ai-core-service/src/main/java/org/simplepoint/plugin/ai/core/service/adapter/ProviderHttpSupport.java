@@ -21,9 +21,14 @@ import java.util.concurrent.CompletionException;
 import java.util.function.Consumer;
 import org.simplepoint.plugin.ai.core.api.exception.AiProviderRequestException;
 import org.simplepoint.plugin.ai.core.api.properties.AiProperties;
+import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.StreamFrame;
 
 /**
  * Shared HTTP behavior for provider adapters.
+ *
+ * <p>Streams are read on the consuming thread: the next provider bytes are requested only after
+ * the previous event has been handled, so a slow client slows the provider read instead of
+ * buffering the response in memory.
  */
 final class ProviderHttpSupport {
 
@@ -79,7 +84,7 @@ final class ProviderHttpSupport {
   void stream(
       final HttpRequest request,
       final boolean allowPrivateNetwork,
-      final Consumer<String> lineConsumer,
+      final Consumer<StreamFrame> frameConsumer,
       final AiStreamCancellation cancellation
   ) {
     validateDestination(request.uri(), allowPrivateNetwork);
@@ -110,14 +115,11 @@ final class ProviderHttpSupport {
                 + truncate(readErrorBody(input))
         );
       }
-      readStreamLines(
-          new LimitedInputStream(input, maxStreamBytes),
-          maxStreamLineCharacters,
-          line -> {
+      new SseFrameReader(new LimitedInputStream(input, maxStreamBytes), maxStreamLineCharacters)
+          .read(frame -> {
             cancellation.throwIfCancelled();
-            lineConsumer.accept(line);
-          }
-      );
+            frameConsumer.accept(frame);
+          });
       cancellation.throwIfCancelled();
     } catch (ResponseLimitExceededException ex) {
       throw responseLimitException(ex);
@@ -226,47 +228,6 @@ final class ProviderHttpSupport {
     );
   }
 
-  private static void readStreamLines(
-      final InputStream input,
-      final int maxLineCharacters,
-      final Consumer<String> lineConsumer
-  ) throws IOException {
-    InputStreamReader reader = new InputStreamReader(input, StandardCharsets.UTF_8);
-    char[] buffer = new char[8192];
-    StringBuilder line = new StringBuilder(Math.min(maxLineCharacters, 8192));
-    int read;
-    while ((read = reader.read(buffer)) >= 0) {
-      for (int index = 0; index < read; index++) {
-        char value = buffer[index];
-        if (value == '\n') {
-          emitLine(line, lineConsumer);
-          continue;
-        }
-        line.append(value);
-        if (line.length() > maxLineCharacters) {
-          throw new ResponseLimitExceededException(
-              "供应商流式响应单行超过 " + maxLineCharacters + " 个字符"
-          );
-        }
-      }
-    }
-    if (!line.isEmpty()) {
-      emitLine(line, lineConsumer);
-    }
-  }
-
-  private static void emitLine(
-      final StringBuilder line,
-      final Consumer<String> lineConsumer
-  ) {
-    int length = line.length();
-    if (length > 0 && line.charAt(length - 1) == '\r') {
-      line.setLength(length - 1);
-    }
-    lineConsumer.accept(line.toString());
-    line.setLength(0);
-  }
-
   private static byte[] readLimited(final InputStream input, final long limit) throws IOException {
     ByteArrayOutputStream output = new ByteArrayOutputStream((int) Math.min(limit, 8192L));
     byte[] buffer = new byte[8192];
@@ -343,9 +304,9 @@ final class ProviderHttpSupport {
     }
   }
 
-  private static final class ResponseLimitExceededException extends IOException {
+  static final class ResponseLimitExceededException extends IOException {
 
-    private ResponseLimitExceededException(final String message) {
+    ResponseLimitExceededException(final String message) {
       super(message);
     }
   }
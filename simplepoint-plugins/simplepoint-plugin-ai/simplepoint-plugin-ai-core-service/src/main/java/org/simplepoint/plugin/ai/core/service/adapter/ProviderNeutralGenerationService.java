@@ -24,6 +24,8 @@ import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.GenerationEvent;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.GenerationRequest;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.GenerationResult;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.Message;
+import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.StreamFrame;
+import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.StreamProtocol;
 import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.ToolDefinition;
 import org.simplepoint.plugin.ai.core.service.security.AiCredentialCipher;
 import org.simplepoint.plugin.ai.core.service.support.AiScopeAccessPolicy;
@@ -91,11 +93,25 @@ public class ProviderNeutralGenerationService implements AiGenerationService {
     return new GenerationStream() {
       @Override
       public void consume(final Consumer<GenerationEvent> consumer) {
+        consume(consumer, frame -> {
+        });
+      }
+
+      @Override
+      public void consume(
+          final Consumer<GenerationEvent> consumer,
+          final Consumer<StreamFrame> frames
+      ) {
         if (!consumed.compareAndSet(false, true)) {
           throw new IllegalStateException("同一个 AI 流式调用只能消费一次");
         }
         cancellation.throwIfCancelled();
-        consumeStream(prepared, consumer, cancellation);
+        consumeStream(prepared, consumer, frames, cancellation);
+      }
+
+      @Override
+      public StreamProtocol protocol() {
+        return prepared.adapter().protocol();
       }
 
       @Override
@@ -108,9 +124,10 @@ public class ProviderNeutralGenerationService implements AiGenerationService {
   private void consumeStream(
       final PreparedInvocation prepared,
       final Consumer<GenerationEvent> consumer,
+      final Consumer<StreamFrame> frames,
       final AiStreamCancellation cancellation
   ) {
-    if (consumer == null) {
+    if (consumer == null || frames == null) {
       throw new IllegalArgumentException("流式事件消费者不能为空");
     }
     var record = invocationLedger.start(
@@ -128,7 +145,7 @@ public class ProviderNeutralGenerationService implements AiGenerationService {
           completed.set(true);
           invocationLedger.success(record, event.result());
         }
-      }, cancellation);
+      }, frames, cancellation);
       if (!completed.get()) {
         throw new IllegalStateException("供应商流式响应未正常完成");
       }
@@ -0,0 +1,136 @@
+package org.simplepoint.plugin.ai.core.service.adapter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.StreamFrame;
+
+/**
+ * Incremental server-sent event parser working on raw bytes.
+ *
+ * <p>The read buffer and the line buffer are reused for the whole stream. Lines are split on the
+ * byte level and only {@code data} and {@code event} values are decoded, so comments, ids and
+ * retry hints never become strings. An event is dispatched at the blank line that ends it; an
+ * unterminated last event is dispatched at the end of the stream.
+ */
+final class SseFrameReader {
+
+  private static final byte[] DATA = "data".getBytes(StandardCharsets.US_ASCII);
+
+  private static final byte[] EVENT = "event".getBytes(StandardCharsets.US_ASCII);
+
+  private final InputStream input;
+
+  private final int maxLineCharacters;
+
+  private final byte[] buffer = new byte[8192];
+
+  private byte[] line = new byte[1024];
+
+  private int lineLength;
+
+  private int lineCharacters;
+
+  private final StringBuilder data = new StringBuilder();
+
+  private boolean hasData;
+
+  private String event;
+
+  SseFrameReader(final InputStream input, final int maxLineCharacters) {
+    this.input = input;
+    this.maxLineCharacters = maxLineCharacters;
+  }
+
+  /**
+   * Reads events until the end of the stream.
+   *
+   * @param consumer receives each complete event
+   * @throws IOException when reading fails or a line exceeds the limit
+   */
+  void read(final Consumer<StreamFrame> consumer) throws IOException {
+    int read;
+    while ((read = input.read(buffer, 0, buffer.length)) >= 0) {
+      int start = 0;
+      for (int index = 0; index < read; index++) {
+        if (buffer[index] == '\n') {
+          append(start, index);
+          processLine(consumer);
+          start = index + 1;
+        }
+      }
+      append(start, read);
+    }
+    if (lineLength > 0) {
+      processLine(consumer);
+    }
+    dispatch(consumer);
+  }
+
+  private void append(final int from, final int to) throws IOException {
+    int length = to - from;
+    if (length <= 0) {
+      return;
+    }
+    for (int index = from; index < to; index++) {
+      if ((buffer[index] & 0xC0) != 0x80 && ++lineCharacters > maxLineCharacters) {
+        throw new ProviderHttpSupport.ResponseLimitExceededException(
+            "供应商流式响应单行超过 " + maxLineCharacters + " 个字符"
+        );
+      }
+    }
+    if (lineLength + length > line.length) {
+      line = Arrays.copyOf(line, Math.max(line.length * 2, lineLength + length));
+    }
+    System.arraycopy(buffer, from, line, lineLength, length);
+    lineLength += length;
+  }
+
+  private void processLine(final Consumer<StreamFrame> consumer) {
+    int length = lineLength;
+    lineLength = 0;
+    lineCharacters = 0;
+    if (length > 0 && line[length - 1] == '\r') {
+      length--;
+    }
+    if (length == 0) {
+      dispatch(consumer);
+      return;
+    }
+    if (line[0] == ':') {
+      return;
+    }
+    int colon = 0;
+    while (colon < length && line[colon] != ':') {
+      colon++;
+    }
+    int valueStart = colon < length ? colon + 1 : length;
+    if (valueStart < length && line[valueStart] == ' ') {
+      valueStart++;
+    }
+    if (fieldIs(DATA, colon)) {
+      if (hasData) {
+        data.append('\n');
+      }
+      data.append(new String(line, valueStart, length - valueStart, StandardCharsets.UTF_8));
+      hasData = true;
+    } else if (fieldIs(EVENT, colon)) {
+      event = new String(line, valueStart, length - valueStart, StandardCharsets.UTF_8);
+    }
+  }
+
+  private boolean fieldIs(final byte[] field, final int length) {
+    return length == field.length && Arrays.equals(line, 0, length, field, 0, length);
+  }
+
+  private void dispatch(final Consumer<StreamFrame> consumer) {
+    if (hasData) {
+      consumer.accept(new StreamFrame(event, data.toString()));
+    }
+    data.setLength(0);
+    hasData = false;
+    event = null;
+  }
+}
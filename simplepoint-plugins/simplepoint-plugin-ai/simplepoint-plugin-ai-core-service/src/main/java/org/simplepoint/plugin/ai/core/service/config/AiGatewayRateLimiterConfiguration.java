@@ -0,0 +1,30 @@
+package org.simplepoint.plugin.ai.core.service.config;
+
+import org.simplepoint.plugin.ai.core.api.properties.AiProperties;
+import org.simplepoint.plugin.ai.core.service.support.AiGatewayRateLimiter;
+import org.simplepoint.plugin.ai.core.service.support.LocalAiGatewayRateLimiter;
+import org.simplepoint.plugin.ai.core.service.support.RedisAiGatewayRateLimiter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * Selects the gateway rate limiter: shared Redis buckets when Redis is configured, otherwise
+ * per-instance buckets.
+ */
+@Configuration
+public class AiGatewayRateLimiterConfiguration {
+
+  /** Creates the gateway token bucket limiter. */
+  @Bean
+  public AiGatewayRateLimiter aiGatewayRateLimiter(
+      final ObjectProvider<StringRedisTemplate> redisTemplate,
+      final AiProperties properties
+  ) {
+    StringRedisTemplate redis = redisTemplate.getIfAvailable();
+    return redis == null
+        ? new LocalAiGatewayRateLimiter()
+        : new RedisAiGatewayRateLimiter(redis, properties);
+  }
+}
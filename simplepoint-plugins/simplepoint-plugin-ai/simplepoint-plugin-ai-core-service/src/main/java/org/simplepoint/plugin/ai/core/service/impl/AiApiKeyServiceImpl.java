@@ -17,6 +17,7 @@ import org.simplepoint.plugin.ai.core.api.repository.AiApiKeyRepository;
 import org.simplepoint.plugin.ai.core.api.service.AiApiKeyService;
 import org.simplepoint.plugin.ai.core.service.security.AiApiKeyHasher;
 import org.simplepoint.plugin.ai.core.service.security.AiApiKeyHasher.IssuedSecret;
+import org.simplepoint.plugin.ai.core.service.support.AiGatewayAccessCache;
 import org.simplepoint.plugin.ai.core.service.support.AiScopeAccessPolicy;
 import org.simplepoint.plugin.ai.core.service.support.AiScopeAccessPolicy.ScopeAssignment;
 import org.springframework.data.domain.Page;
@@ -36,17 +37,21 @@ public class AiApiKeyServiceImpl
 
   private final AiApiKeyHasher keyHasher;
 
+  private final AiGatewayAccessCache gatewayAccessCache;
+
   /** Creates the scope-aware key management service. */
   public AiApiKeyServiceImpl(
       final AiApiKeyRepository repository,
       final DetailsProviderService detailsProviderService,
       final AiScopeAccessPolicy scopeAccessPolicy,
-      final AiApiKeyHasher keyHasher
+      final AiApiKeyHasher keyHasher,
+      final AiGatewayAccessCache gatewayAccessCache
   ) {
     super(repository, detailsProviderService);
     this.repository = repository;
     this.scopeAccessPolicy = scopeAccessPolicy;
     this.keyHasher = keyHasher;
+    this.gatewayAccessCache = gatewayAccessCache;
   }
 
   @Override
@@ -115,6 +120,7 @@ public class AiApiKeyServiceImpl
     entity.setRevokedAt(current.getRevokedAt());
     entity.setIssuedKey(null);
     normalizeEditable(entity, current);
+    gatewayAccessCache.invalidateKeys();
     return super.modifyById(entity);
   }
 
@@ -133,6 +139,7 @@ public class AiApiKeyServiceImpl
     current.setEnabled(Boolean.TRUE);
     AiApiKey saved = repository.save(current);
     saved.setIssuedKey(issued.rawKey());
+    gatewayAccessCache.invalidateKeys();
     return saved;
   }
 
@@ -155,6 +162,7 @@ public class AiApiKeyServiceImpl
       repository.save(key);
     });
     super.removeByIds(ids);
+    gatewayAccessCache.invalidateKeys();
   }
 
   @Override
@@ -184,6 +192,10 @@ public class AiApiKeyServiceImpl
         && (entity.getRateLimitPerMinute() < 1 || entity.getRateLimitPerMinute() > 100_000)) {
       throw new IllegalArgumentException("每分钟请求上限必须在 1 到 100000 之间");
     }
+    if (entity.getTokenLimitPerMinute() != null
+        && (entity.getTokenLimitPerMinute() < 1 || entity.getTokenLimitPerMinute() > 100_000_000)) {
+      throw new IllegalArgumentException("每模型每分钟 Token 上限必须在 1 到 100000000 之间");
+    }
     entity.setEnabled(entity.getEnabled() == null ? Boolean.TRUE : entity.getEnabled());
     if (repository.existsActiveByNameAndScope(
         entity.getName(), entity.getScopeType(), entity.getTenantId(),
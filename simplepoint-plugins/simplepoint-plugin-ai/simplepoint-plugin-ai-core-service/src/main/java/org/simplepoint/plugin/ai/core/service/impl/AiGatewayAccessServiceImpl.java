@@ -1,13 +1,14 @@
 package org.simplepoint.plugin.ai.core.service.impl;
 
+import java.security.MessageDigest;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
 import org.simplepoint.core.AuthorizationActorRole;
 import org.simplepoint.core.AuthorizationContext;
 import org.simplepoint.core.AuthorizationContextHolder;
@@ -23,12 +24,34 @@ import org.simplepoint.plugin.ai.core.api.properties.AiProperties;
 import org.simplepoint.plugin.ai.core.api.repository.AiApiKeyRepository;
 import org.simplepoint.plugin.ai.core.api.repository.AiModelDefinitionRepository;
 import org.simplepoint.plugin.ai.core.api.service.AiGatewayAccessService;
+import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.ContentBlock;
+import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.GenerationRequest;
+import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.Message;
+import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.TokenUsage;
+import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.ToolDefinition;
 import org.simplepoint.plugin.ai.core.service.security.AiApiKeyHasher;
+import org.simplepoint.plugin.ai.core.service.support.AiGatewayAccessCache;
+import org.simplepoint.plugin.ai.core.service.support.AiGatewayAccessCache.VerifiedKey;
+import org.simplepoint.plugin.ai.core.service.support.AiGatewayRateLimiter;
+import org.simplepoint.plugin.ai.core.service.support.AiGatewayRateLimiter.BucketLimit;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-/** Default API key authenticator and public model catalog resolver. */
+/**
+ * Default API key authenticator and public model catalog resolver.
+ *
+ * <p>Verified keys and model catalogs are served from {@link AiGatewayAccessCache}. Key usage is
+ * counted in memory and written periodically, one update per key, so an authenticated request
+ * normally performs no database round trip.
+ *
+ * <p>Request limits and per-model token budgets are smooth token buckets in the shared
+ * {@link AiGatewayRateLimiter}. A generation reserves its estimated prompt plus maximum output
+ * tokens up front and is settled against the usage the model reports.
+ */
+@Slf4j
 @Service
-public class AiGatewayAccessServiceImpl implements AiGatewayAccessService {
+public class AiGatewayAccessServiceImpl implements AiGatewayAccessService, DisposableBean {
 
   private static final String TENANT_ID_ATTRIBUTE = "X-Tenant-Id";
 
@@ -40,67 +63,86 @@ public class AiGatewayAccessServiceImpl implements AiGatewayAccessService {
 
   private final AiProperties properties;
 
-  private final ConcurrentHashMap<String, MinuteBucket> rateLimits = new ConcurrentHashMap<>();
+  private final AiGatewayAccessCache accessCache;
+
+  private final AiGatewayRateLimiter rateLimiter;
+
+  private final ConcurrentHashMap<String, KeyUsage> usage = new ConcurrentHashMap<>();
 
   /** Creates the gateway authenticator and model catalog resolver. */
   public AiGatewayAccessServiceImpl(
       final AiApiKeyRepository apiKeyRepository,
       final AiModelDefinitionRepository modelRepository,
       final AiApiKeyHasher keyHasher,
-      final AiProperties properties
+      final AiProperties properties,
+      final AiGatewayAccessCache accessCache,
+      final AiGatewayRateLimiter rateLimiter
   ) {
     this.apiKeyRepository = apiKeyRepository;
     this.modelRepository = modelRepository;
     this.keyHasher = keyHasher;
     this.properties = properties;
+    this.accessCache = accessCache;
+    this.rateLimiter = rateLimiter;
   }
 
   @Override
   public GatewaySession authenticate(final String rawApiKey, final String remoteAddress) {
     String prefix = keyHasher.prefix(rawApiKey);
-    AiApiKey key = prefix == null ? null : apiKeyRepository.findActiveByPrefix(prefix).orElse(null);
-    if (key == null || !keyHasher.matches(rawApiKey, key.getSecretHash())) {
+    if (prefix == null) {
       throw failure(FailureType.AUTHENTICATION, "无效的 API Key");
     }
+    byte[] fingerprint = keyHasher.fingerprint(rawApiKey);
+    VerifiedKey key = accessCache.key(prefix);
+    if (key == null || !MessageDigest.isEqual(key.fingerprint(), fingerprint)) {
+      // A mismatch may be a key regenerated under the same prefix; only the stored verifier decides.
+      key = verify(prefix, rawApiKey, fingerprint);
+    }
     Instant now = Instant.now();
-    if (!Boolean.TRUE.equals(key.getEnabled()) || key.getRevokedAt() != null) {
+    if (!key.enabled() || key.revokedAt() != null) {
       throw failure(FailureType.AUTHENTICATION, "API Key 已禁用或已吊销");
     }
-    if (key.getExpiresAt() != null && !key.getExpiresAt().isAfter(now)) {
+    if (key.expiresAt() != null && !key.expiresAt().isAfter(now)) {
       throw failure(FailureType.AUTHENTICATION, "API Key 已过期");
     }
-    enforceRateLimit(key, now);
-    apiKeyRepository.recordUsage(key.getId(), now);
+    enforceRateLimit(key);
+    usage.merge(key.id(), new KeyUsage(1L, now), KeyUsage::add);
+    long tokenLimit = key.tokenLimitPerMinute() != null
+        ? key.tokenLimitPerMinute() : positive(properties.getApiKeyDefaultTokenLimitPerMinute(), 0);
     return new GatewaySession(
-        key.getId(), key.getName(), key.getScopeType(), normalize(key.getTenantId())
-    );
+        key.id(), key.name(), key.scopeType(), normalize(key.tenantId()), tokenLimit);
+  }
+
+  /** Writes usage counters aggregated since the previous flush, one update per key. */
+  @Scheduled(
+      fixedDelayString = "${simplepoint.ai.api-key-usage-flush-ms:10000}",
+      initialDelayString = "${simplepoint.ai.api-key-usage-flush-ms:10000}"
+  )
+  public void flushUsage() {
+    for (String keyId : List.copyOf(usage.keySet())) {
+      KeyUsage pending = usage.remove(keyId);
+      if (pending == null) {
+        continue;
+      }
+      try {
+        apiKeyRepository.recordUsage(keyId, pending.requests(), pending.lastUsedAt());
+      } catch (RuntimeException ex) {
+        usage.merge(keyId, pending, KeyUsage::add);
+        log.warn("模型 API Key 使用统计写入失败，将在下次刷新时重试: {}", ex.getMessage());
+        return;
+      }
+    }
+  }
+
+  @Override
+  public void destroy() {
+    flushUsage();
   }
 
   @Override
   public List<GatewayModel> availableModels(final GatewaySession session) {
     requireSession(session);
-    List<AiModelDefinition> models = session.scopeType() == AiResourceScope.SYSTEM
-        ? modelRepository.findAllAvailableSystemModels()
-        : modelRepository.findAllAvailableForTenant(requireTenantId(session));
-    List<AiModelDefinition> generationModels = models.stream()
-        .filter(model -> model.getModelType() == AiModelType.LLM
-            || model.getModelType() == AiModelType.MULTIMODAL)
-        .toList();
-    Map<String, Integer> modelIdCounts = new LinkedHashMap<>();
-    generationModels.forEach(model -> modelIdCounts.merge(model.getModelId(), 1, Integer::sum));
-    List<GatewayModel> result = new ArrayList<>(generationModels.size());
-    for (AiModelDefinition model : generationModels) {
-      String externalId = modelIdCounts.getOrDefault(model.getModelId(), 0) == 1
-          ? model.getModelId() : model.getId();
-      long createdAt = model.getCreatedAt() == null ? 0L : model.getCreatedAt().getEpochSecond();
-      result.add(new GatewayModel(
-          externalId,
-          model.getId(),
-          normalize(model.getDisplayName()) == null ? model.getModelId() : model.getDisplayName().trim(),
-          createdAt
-      ));
-    }
-    return List.copyOf(result);
+    return accessCache.models(session.scopeType(), normalize(session.tenantId()), () -> loadModels(session));
   }
 
   @Override
@@ -150,19 +192,139 @@ public class AiGatewayAccessServiceImpl implements AiGatewayAccessService {
     }
   }
 
-  private void enforceRateLimit(final AiApiKey key, final Instant now) {
-    int configured = key.getRateLimitPerMinute() == null
+  @Override
+  public TokenReservation reserveTokens(
+      final GatewaySession session,
+      final GenerationRequest request
+  ) {
+    requireSession(session);
+    String modelDefinitionId = request == null ? null : normalize(request.modelDefinitionId());
+    if (session.tokenLimitPerMinute() <= 0L || modelDefinitionId == null) {
+      return new TokenReservation(session.apiKeyId(), modelDefinitionId, 0L, 0L);
+    }
+    TokenReservation reservation = new TokenReservation(
+        session.apiKeyId(), modelDefinitionId, session.tokenLimitPerMinute(), estimateTokens(request));
+    if (!rateLimiter.tryAcquire(tokenBucket(reservation), tokenLimit(reservation),
+        reservation.reservedTokens())) {
+      throw failure(FailureType.RATE_LIMIT, "API Key 已超过该模型每分钟 Token 上限");
+    }
+    return reservation;
+  }
+
+  @Override
+  public void settleTokens(final TokenReservation reservation, final TokenUsage usage) {
+    if (reservation == null || reservation.tokenLimitPerMinute() <= 0L) {
+      return;
+    }
+    long used = usage == null ? 0L : usedTokens(usage, reservation.reservedTokens());
+    long difference = used - reservation.reservedTokens();
+    if (difference != 0L) {
+      rateLimiter.charge(tokenBucket(reservation), tokenLimit(reservation), difference);
+    }
+  }
+
+  private VerifiedKey verify(final String prefix, final String rawApiKey, final byte[] fingerprint) {
+    long epoch = accessCache.epoch();
+    AiApiKey stored = apiKeyRepository.findActiveByPrefix(prefix).orElse(null);
+    if (stored == null || !keyHasher.matches(rawApiKey, stored.getSecretHash())) {
+      throw failure(FailureType.AUTHENTICATION, "无效的 API Key");
+    }
+    VerifiedKey key = new VerifiedKey(
+        stored.getId(),
+        stored.getName(),
+        stored.getScopeType(),
+        stored.getTenantId(),
+        Boolean.TRUE.equals(stored.getEnabled()),
+        stored.getRevokedAt(),
+        stored.getExpiresAt(),
+        stored.getRateLimitPerMinute(),
+        stored.getTokenLimitPerMinute(),
+        fingerprint
+    );
+    accessCache.putKey(prefix, key, epoch);
+    return key;
+  }
+
+  private List<GatewayModel> loadModels(final GatewaySession session) {
+    List<AiModelDefinition> models = session.scopeType() == AiResourceScope.SYSTEM
+        ? modelRepository.findAllAvailableSystemModels()
+        : modelRepository.findAllAvailableForTenant(requireTenantId(session));
+    List<AiModelDefinition> generationModels = models.stream()
+        .filter(model -> model.getModelType() == AiModelType.LLM
+            || model.getModelType() == AiModelType.MULTIMODAL)
+        .toList();
+    Map<String, Integer> modelIdCounts = new LinkedHashMap<>();
+    generationModels.forEach(model -> modelIdCounts.merge(model.getModelId(), 1, Integer::sum));
+    List<GatewayModel> result = new ArrayList<>(generationModels.size());
+    for (AiModelDefinition model : generationModels) {
+      String externalId = modelIdCounts.getOrDefault(model.getModelId(), 0) == 1
+          ? model.getModelId() : model.getId();
+      long createdAt = model.getCreatedAt() == null ? 0L : model.getCreatedAt().getEpochSecond();
+      result.add(new GatewayModel(
+          externalId,
+          model.getId(),
+          normalize(model.getDisplayName()) == null ? model.getModelId() : model.getDisplayName().trim(),
+          createdAt
+      ));
+    }
+    return List.copyOf(result);
+  }
+
+  private void enforceRateLimit(final VerifiedKey key) {
+    int configured = key.rateLimitPerMinute() == null
         ? positive(properties.getApiKeyDefaultRateLimitPerMinute(), 60)
-        : key.getRateLimitPerMinute();
-    long minute = now.getEpochSecond() / 60;
-    MinuteBucket bucket = rateLimits.compute(key.getId(), (ignored, current) ->
-        current == null || current.minute != minute ? new MinuteBucket(minute) : current);
-    if (bucket.requests.incrementAndGet() > configured) {
+        : key.rateLimitPerMinute();
+    BucketLimit limit = BucketLimit.perMinute(
+        configured, positive(properties.getGatewayRateLimitBurstSeconds(), 10));
+    if (!rateLimiter.tryAcquire("requests:" + key.id(), limit, 1L)) {
       throw failure(FailureType.RATE_LIMIT, "API Key 已超过每分钟请求上限");
     }
-    if (rateLimits.size() > 10_000) {
-      rateLimits.entrySet().removeIf(entry -> entry.getValue().minute < minute - 1);
+  }
+
+  private static String tokenBucket(final TokenReservation reservation) {
+    return "tokens:" + reservation.apiKeyId() + ":" + reservation.modelDefinitionId();
+  }
+
+  private static BucketLimit tokenLimit(final TokenReservation reservation) {
+    return BucketLimit.perMinute(reservation.tokenLimitPerMinute(), 60);
+  }
+
+  /** Roughly four characters per token, plus the requested output ceiling. */
+  private static long estimateTokens(final GenerationRequest request) {
+    long characters = length(request.instructions());
+    if (request.messages() != null) {
+      for (Message message : request.messages()) {
+        if (message == null || message.content() == null) {
+          continue;
+        }
+        for (ContentBlock block : message.content()) {
+          if (block != null) {
+            characters += length(block.text()) + length(block.argumentsJson());
+          }
+        }
+      }
+    }
+    if (request.tools() != null) {
+      for (ToolDefinition tool : request.tools()) {
+        if (tool != null) {
+          characters += length(tool.name()) + length(tool.description())
+              + length(tool.inputSchemaJson());
+        }
+      }
     }
+    long output = request.maxOutputTokens() == null ? 0L : Math.max(0, request.maxOutputTokens());
+    return Math.max(1L, (characters + 3L) / 4L + output);
+  }
+
+  private static long usedTokens(final TokenUsage usage, final long fallback) {
+    if (usage.totalTokens() != null) {
+      return usage.totalTokens();
+    }
+    if (usage.inputTokens() == null && usage.outputTokens() == null) {
+      return fallback;
+    }
+    return (usage.inputTokens() == null ? 0L : usage.inputTokens())
+        + (usage.outputTokens() == null ? 0L : usage.outputTokens());
   }
 
   private static GatewaySession requireSession(final GatewaySession session) {
@@ -194,6 +356,10 @@ public class AiGatewayAccessServiceImpl implements AiGatewayAccessService {
     return value != null && value > 0 ? value : fallback;
   }
 
+  private static int length(final String value) {
+    return value == null ? 0 : value.length();
+  }
+
   private static String normalize(final String value) {
     if (value == null) {
       return null;
@@ -202,14 +368,13 @@ public class AiGatewayAccessServiceImpl implements AiGatewayAccessService {
     return normalized.isEmpty() ? null : normalized;
   }
 
-  private static final class MinuteBucket {
-
-    private final long minute;
-
-    private final AtomicInteger requests = new AtomicInteger();
+  private record KeyUsage(long requests, Instant lastUsedAt) {
 
-    private MinuteBucket(final long minute) {
-      this.minute = minute;
+    private KeyUsage add(final KeyUsage other) {
+      return new KeyUsage(
+          requests + other.requests,
+          lastUsedAt.isAfter(other.lastUsedAt) ? lastUsedAt : other.lastUsedAt
+      );
     }
   }
 }
@@ -1,12 +1,17 @@
 package org.simplepoint.plugin.ai.core.service.impl;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import org.simplepoint.api.security.service.DetailsProviderService;
 import org.simplepoint.core.base.service.impl.BaseServiceImpl;
 import org.simplepoint.plugin.ai.core.api.entity.AiInvocationRecord;
 import org.simplepoint.plugin.ai.core.api.repository.AiInvocationRecordRepository;
+import org.simplepoint.plugin.ai.core.api.repository.AiUsageRollupRepository;
 import org.simplepoint.plugin.ai.core.api.service.AiInvocationQueryService;
+import org.simplepoint.plugin.ai.core.api.vo.AiUsageRollup;
 import org.simplepoint.plugin.ai.core.service.support.AiScopeAccessPolicy;
 import org.simplepoint.plugin.ai.core.service.support.AiScopeAccessPolicy.ScopeAssignment;
 import org.springframework.data.domain.Page;
@@ -19,18 +24,24 @@ public class AiInvocationQueryServiceImpl
     extends BaseServiceImpl<AiInvocationRecordRepository, AiInvocationRecord, String>
     implements AiInvocationQueryService {
 
+  private static final Duration MAX_USAGE_RANGE = Duration.ofDays(93);
+
   private final AiInvocationRecordRepository repository;
 
+  private final AiUsageRollupRepository rollupRepository;
+
   private final AiScopeAccessPolicy scopeAccessPolicy;
 
   /** Creates the query service. */
   public AiInvocationQueryServiceImpl(
       final AiInvocationRecordRepository repository,
+      final AiUsageRollupRepository rollupRepository,
       final DetailsProviderService detailsProviderService,
       final AiScopeAccessPolicy scopeAccessPolicy
   ) {
     super(repository, detailsProviderService);
     this.repository = repository;
+    this.rollupRepository = rollupRepository;
     this.scopeAccessPolicy = scopeAccessPolicy;
   }
 
@@ -57,6 +68,20 @@ public class AiInvocationQueryServiceImpl
     return repository.limit(filters, pageable);
   }
 
+  @Override
+  public List<AiUsageRollup> usage(final Instant from, final Instant to) {
+    Instant end = to == null ? Instant.now() : to;
+    Instant start = from == null ? end.minus(Duration.ofDays(1)) : from;
+    if (!start.isBefore(end)) {
+      throw new IllegalArgumentException("用量查询开始时间必须早于结束时间");
+    }
+    if (Duration.between(start, end).compareTo(MAX_USAGE_RANGE) > 0) {
+      throw new IllegalArgumentException("用量查询时间范围不能超过 93 天");
+    }
+    ScopeAssignment scope = scopeAccessPolicy.currentManagementScope();
+    return rollupRepository.findByScope(scope.scopeType(), scope.tenantId(), start, end);
+  }
+
   private static void copyFilter(
       final Map<String, String> source,
       final Map<String, String> target,
@@ -1,7 +1,9 @@
 package org.simplepoint.plugin.ai.core.service.security;
 
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.Base64;
 import javax.crypto.Mac;
@@ -57,13 +59,25 @@ public class AiApiKeyHasher {
     return MessageDigest.isEqual(expected, actual);
   }
 
+  /**
+   * Returns the SHA-256 digest of a presented key. It lets a cache recognize a key that was
+   * already verified without keeping the raw secret or recomputing the peppered verifier.
+   */
+  public byte[] fingerprint(final String rawKey) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(rawKey.getBytes(StandardCharsets.UTF_8));
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException("无法计算模型 API Key 摘要", ex);
+    }
+  }
+
   private String hash(final String rawKey) {
     try {
       Mac mac = Mac.getInstance("HmacSHA256");
       mac.init(new SecretKeySpec(requirePepper().getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
       return Base64.getUrlEncoder().withoutPadding()
           .encodeToString(mac.doFinal(rawKey.getBytes(StandardCharsets.UTF_8)));
-    } catch (java.security.GeneralSecurityException ex) {
+    } catch (GeneralSecurityException ex) {
       throw new IllegalStateException("无法初始化模型 API Key 校验器", ex);
     }
   }
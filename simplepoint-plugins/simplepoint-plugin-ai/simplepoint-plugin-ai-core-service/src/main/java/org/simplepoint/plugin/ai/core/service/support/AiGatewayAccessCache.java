@@ -0,0 +1,245 @@
+package org.simplepoint.plugin.ai.core.service.support;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.simplepoint.plugin.ai.core.api.model.AiResourceScope;
+import org.simplepoint.plugin.ai.core.api.properties.AiProperties;
+import org.simplepoint.plugin.ai.core.api.service.AiGatewayAccessService.GatewayModel;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Short-lived caches for the OpenAI-compatible gateway.
+ *
+ * <p>Verified API keys are cached by lookup prefix together with a SHA-256 fingerprint of the
+ * presented secret, so repeated requests skip both the database lookup and the peppered verifier.
+ * Generation model catalogs are cached per resource scope. Entries expire after their TTL.
+ *
+ * <p>Key changes clear the local key cache once their transaction commits and bump a shared
+ * generation in Redis. Every instance re-reads that generation at most once per sync interval and
+ * drops its cached keys when it moved, so revocations reach all instances within about one
+ * interval. Without Redis, other instances converge within the key TTL.
+ */
+@Slf4j
+@Component
+public class AiGatewayAccessCache {
+
+  private static final String GENERATION_KEY = "ai:gateway:key-generation";
+
+  private final ObjectProvider<StringRedisTemplate> redisTemplate;
+
+  private final AiProperties properties;
+
+  private final Map<String, CachedKey> keys = new ConcurrentHashMap<>();
+
+  private final Map<String, CachedModels> models = new ConcurrentHashMap<>();
+
+  private final AtomicLong localEpoch = new AtomicLong();
+
+  private volatile long generation;
+
+  private volatile long lastSyncMillis;
+
+  /** Creates the gateway cache; Redis is used for invalidation broadcast when configured. */
+  public AiGatewayAccessCache(
+      final ObjectProvider<StringRedisTemplate> redisTemplate,
+      final AiProperties properties
+  ) {
+    this.redisTemplate = redisTemplate;
+    this.properties = properties;
+  }
+
+  /**
+   * Returns a cached verified key for the lookup prefix.
+   *
+   * @param prefix public key prefix
+   * @return cached key, or null when it is missing or expired
+   */
+  public VerifiedKey key(final String prefix) {
+    syncGeneration();
+    CachedKey cached = keys.get(prefix);
+    if (cached == null) {
+      return null;
+    }
+    if (cached.expiresAtNanos() - System.nanoTime() <= 0L) {
+      keys.remove(prefix, cached);
+      return null;
+    }
+    return cached.key();
+  }
+
+  /**
+   * Returns the local invalidation epoch; read it before loading a key from the database and pass
+   * it to {@link #putKey} so a load that raced with an invalidation is not cached.
+   */
+  public long epoch() {
+    return localEpoch.get();
+  }
+
+  /**
+   * Caches a key that has just been verified against its stored verifier.
+   *
+   * @param prefix public key prefix
+   * @param key    verified key snapshot
+   * @param epoch  {@link #epoch()} read before the key was loaded
+   */
+  public void putKey(final String prefix, final VerifiedKey key, final long epoch) {
+    if (epoch != localEpoch.get()) {
+      return;
+    }
+    int ttlSeconds = positive(properties.getApiKeyCacheTtlSeconds(), 30);
+    if (keys.size() >= positive(properties.getApiKeyCacheMaxEntries(), 10_000)) {
+      long now = System.nanoTime();
+      keys.values().removeIf(entry -> entry.expiresAtNanos() - now <= 0L);
+      if (keys.size() >= positive(properties.getApiKeyCacheMaxEntries(), 10_000)) {
+        keys.clear();
+      }
+    }
+    keys.put(prefix, new CachedKey(key, System.nanoTime() + ttlSeconds * 1_000_000_000L));
+  }
+
+  /**
+   * Returns the cached model catalog of a scope, loading it on a miss.
+   *
+   * @param scopeType scope of the requesting key
+   * @param tenantId  tenant of the requesting key, null for the platform scope
+   * @param loader    loads the catalog from the database
+   * @return immutable catalog
+   */
+  public List<GatewayModel> models(
+      final AiResourceScope scopeType,
+      final String tenantId,
+      final Supplier<List<GatewayModel>> loader
+  ) {
+    String scopeKey = scopeType == AiResourceScope.SYSTEM ? scopeType.name() : scopeType + ":" + tenantId;
+    CachedModels cached = models.get(scopeKey);
+    long now = System.nanoTime();
+    if (cached != null && cached.expiresAtNanos() - now > 0L) {
+      return cached.models();
+    }
+    List<GatewayModel> loaded = List.copyOf(loader.get());
+    long ttlNanos = positive(properties.getGatewayModelCacheTtlSeconds(), 30) * 1_000_000_000L;
+    models.put(scopeKey, new CachedModels(loaded, now + ttlNanos));
+    return loaded;
+  }
+
+  /**
+   * Drops cached keys on every instance after the current transaction commits, or immediately
+   * when no transaction is active.
+   */
+  public void invalidateKeys() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          broadcastInvalidation();
+        }
+      });
+      return;
+    }
+    broadcastInvalidation();
+  }
+
+  private void broadcastInvalidation() {
+    clearKeys();
+    StringRedisTemplate redis = redisTemplate.getIfAvailable();
+    if (redis == null) {
+      return;
+    }
+    try {
+      Long next = redis.opsForValue().increment(GENERATION_KEY);
+      if (next != null) {
+        generation = Math.max(generation, next);
+      }
+    } catch (RuntimeException ex) {
+      log.warn("无法广播模型 API Key 缓存失效，其他实例将在缓存过期后生效: {}", ex.getMessage());
+    }
+  }
+
+  private void syncGeneration() {
+    long nowMillis = System.currentTimeMillis();
+    long syncMillis = properties.getApiKeyCacheSyncMs() == null ? 1000L : properties.getApiKeyCacheSyncMs();
+    if (nowMillis - lastSyncMillis < syncMillis) {
+      return;
+    }
+    lastSyncMillis = nowMillis;
+    StringRedisTemplate redis = redisTemplate.getIfAvailable();
+    if (redis == null) {
+      return;
+    }
+    String remote;
+    try {
+      remote = redis.opsForValue().get(GENERATION_KEY);
+    } catch (RuntimeException ex) {
+      log.debug("Unable to read AI gateway key cache generation: {}", ex.getMessage());
+      return;
+    }
+    long parsed = parseLong(remote);
+    if (parsed != generation) {
+      generation = parsed;
+      clearKeys();
+    }
+  }
+
+  private void clearKeys() {
+    localEpoch.incrementAndGet();
+    keys.clear();
+  }
+
+  private static long parseLong(final String value) {
+    if (value == null) {
+      return 0L;
+    }
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException ex) {
+      return 0L;
+    }
+  }
+
+  private static int positive(final Integer value, final int fallback) {
+    return value != null && value > 0 ? value : fallback;
+  }
+
+  /**
+   * Key attributes needed to authorize a gateway request.
+   *
+   * @param id                  key id
+   * @param name                key name
+   * @param scopeType           owning scope
+   * @param tenantId            owning tenant, null for the platform scope
+   * @param enabled             whether the key is enabled
+   * @param revokedAt           revocation time, null when active
+   * @param expiresAt           expiry time, null when the key does not expire
+   * @param rateLimitPerMinute  key-specific request limit, null for the default
+   * @param tokenLimitPerMinute key-specific token budget per model, null for the default
+   * @param fingerprint         SHA-256 of the raw key that was verified
+   */
+  public record VerifiedKey(
+      String id,
+      String name,
+      AiResourceScope scopeType,
+      String tenantId,
+      boolean enabled,
+      Instant revokedAt,
+      Instant expiresAt,
+      Integer rateLimitPerMinute,
+      Integer tokenLimitPerMinute,
+      byte[] fingerprint
+  ) {
+  }
+
+  private record CachedKey(VerifiedKey key, long expiresAtNanos) {
+  }
+
+  private record CachedModels(List<GatewayModel> models, long expiresAtNanos) {
+  }
+}
@@ -0,0 +1,51 @@
+package org.simplepoint.plugin.ai.core.service.support;
+
+/**
+ * Token buckets shared by every gateway instance.
+ *
+ * <p>A bucket holds at most {@link BucketLimit#capacity()} permits and refills continuously at
+ * {@link BucketLimit#refillPerSecond()}, so a limit is enforced smoothly instead of resetting at
+ * fixed window boundaries.
+ */
+public interface AiGatewayRateLimiter {
+
+  /**
+   * Takes permits when enough are available.
+   *
+   * <p>Requests larger than the bucket capacity are admitted once the bucket is full and leave it
+   * in debt, so an oversized request is throttled afterwards instead of being rejected forever.
+   *
+   * @param bucket  bucket identifier
+   * @param limit   bucket capacity and refill rate
+   * @param permits permits to take
+   * @return whether the permits were taken
+   */
+  boolean tryAcquire(String bucket, BucketLimit limit, long permits);
+
+  /**
+   * Charges permits regardless of the current balance; negative permits are refunded.
+   *
+   * @param bucket  bucket identifier
+   * @param limit   bucket capacity and refill rate
+   * @param permits permits to charge, negative to refund
+   */
+  void charge(String bucket, BucketLimit limit, long permits);
+
+  /**
+   * Capacity and refill rate of one bucket.
+   *
+   * @param capacity        maximum permits held, also the largest burst
+   * @param refillPerSecond permits added per second
+   */
+  record BucketLimit(long capacity, double refillPerSecond) {
+
+    /**
+     * Creates a bucket that admits {@code perMinute} permits per minute on average and bursts of
+     * up to {@code burstSeconds} worth of refill.
+     */
+    public static BucketLimit perMinute(final long perMinute, final int burstSeconds) {
+      long burst = (long) Math.ceil(perMinute * Math.max(1, burstSeconds) / 60D);
+      return new BucketLimit(Math.max(1L, Math.min(perMinute, burst)), perMinute / 60D);
+    }
+  }
+}
@@ -0,0 +1,112 @@
+package org.simplepoint.plugin.ai.core.service.support;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * In-process token buckets.
+ *
+ * <p>Used when no Redis is configured, as the fallback while Redis is unreachable, and in tests.
+ * Limits are enforced per instance only. Buckets that have refilled completely are dropped by a
+ * periodic sweep, or early when the bucket count reaches its bound.
+ */
+public class LocalAiGatewayRateLimiter implements AiGatewayRateLimiter {
+
+  private static final int MAX_BUCKETS = 100_000;
+
+  private static final long MIN_SWEEP_INTERVAL_NANOS = 1_000_000_000L;
+
+  private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+  private final LongSupplier nanoClock;
+
+  private volatile long lastSweepNanos;
+
+  /** Creates buckets driven by {@link System#nanoTime()}. */
+  public LocalAiGatewayRateLimiter() {
+    this(System::nanoTime);
+  }
+
+  LocalAiGatewayRateLimiter(final LongSupplier nanoClock) {
+    this.nanoClock = nanoClock;
+    this.lastSweepNanos = nanoClock.getAsLong();
+  }
+
+  @Override
+  public boolean tryAcquire(final String bucket, final BucketLimit limit, final long permits) {
+    Bucket state = bucket(bucket, limit);
+    long now = nanoClock.getAsLong();
+    synchronized (state) {
+      state.refill(limit, now);
+      if (state.tokens < Math.min(permits, limit.capacity())) {
+        return false;
+      }
+      state.tokens -= permits;
+      return true;
+    }
+  }
+
+  @Override
+  public void charge(final String bucket, final BucketLimit limit, final long permits) {
+    Bucket state = bucket(bucket, limit);
+    long now = nanoClock.getAsLong();
+    synchronized (state) {
+      state.refill(limit, now);
+      state.tokens = Math.min(limit.capacity(), state.tokens - permits);
+    }
+  }
+
+  /** Drops buckets that have refilled completely; they behave exactly like new ones. */
+  @Scheduled(fixedDelay = 60_000L, initialDelay = 60_000L)
+  public void sweep() {
+    long now = nanoClock.getAsLong();
+    lastSweepNanos = now;
+    buckets.values().removeIf(state -> state.idleFull(now));
+  }
+
+  int size() {
+    return buckets.size();
+  }
+
+  private Bucket bucket(final String bucket, final BucketLimit limit) {
+    Bucket state = buckets.get(bucket);
+    if (state != null) {
+      return state;
+    }
+    if (buckets.size() >= MAX_BUCKETS && nanoClock.getAsLong() - lastSweepNanos >= MIN_SWEEP_INTERVAL_NANOS) {
+      sweep();
+    }
+    return buckets.computeIfAbsent(bucket, ignored -> new Bucket(limit, nanoClock.getAsLong()));
+  }
+
+  private static final class Bucket {
+
+    private double tokens;
+
+    private long updatedNanos;
+
+    private long capacity;
+
+    private double refillPerNano;
+
+    private Bucket(final BucketLimit limit, final long now) {
+      this.tokens = limit.capacity();
+      this.updatedNanos = now;
+      this.capacity = limit.capacity();
+    }
+
+    private void refill(final BucketLimit limit, final long now) {
+      capacity = limit.capacity();
+      refillPerNano = limit.refillPerSecond() / 1_000_000_000D;
+      long elapsed = Math.max(0L, now - updatedNanos);
+      tokens = Math.min(capacity, tokens + elapsed * refillPerNano);
+      updatedNanos = now;
+    }
+
+    private synchronized boolean idleFull(final long now) {
+      return tokens + Math.max(0L, now - updatedNanos) * refillPerNano >= capacity;
+    }
+  }
+}
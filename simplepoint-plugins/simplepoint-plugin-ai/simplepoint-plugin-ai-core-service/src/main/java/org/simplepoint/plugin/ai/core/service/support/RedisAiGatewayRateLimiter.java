@@ -0,0 +1,236 @@
+package org.simplepoint.plugin.ai.core.service.support;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.simplepoint.plugin.ai.core.api.properties.AiProperties;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Cluster-wide token buckets stored in Redis and leased to instances in batches.
+ *
+ * <p>The bucket itself lives in one Redis hash and is refilled by a script against the Redis
+ * clock, so every instance sees the same smooth limit. To avoid a round trip per request, an
+ * instance takes a lease of several permits at once and serves requests from it locally. Unused
+ * leased permits and locally charged debt are returned in the next script call for the bucket or
+ * by the periodic flush once the lease expires. While Redis is unreachable buckets fall back to
+ * {@link LocalAiGatewayRateLimiter}.
+ */
+@Slf4j
+public class RedisAiGatewayRateLimiter implements AiGatewayRateLimiter, DisposableBean {
+
+  private static final String KEY_PREFIX = "ai:gateway:bucket:";
+
+  /** Smallest lease, so small buckets do not cost a Redis round trip per request. */
+  private static final long MIN_LEASE_PERMITS = 4L;
+
+  /**
+   * KEYS[1] bucket hash; ARGV capacity, refill per millisecond, balance returned by the caller
+   * (negative for debt), permits wanted, minimum permits to grant, expiry in milliseconds.
+   * Returns the granted permits, 0 when fewer than the minimum are available.
+   */
+  private static final RedisScript<Long> TAKE = new DefaultRedisScript<>("""
+      local capacity = tonumber(ARGV[1])
+      local rate = tonumber(ARGV[2])
+      local returned = tonumber(ARGV[3])
+      local wanted = tonumber(ARGV[4])
+      local minimum = tonumber(ARGV[5])
+      local clock = redis.call('TIME')
+      local now = tonumber(clock[1]) * 1000 + math.floor(tonumber(clock[2]) / 1000)
+      local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+      local tokens = tonumber(state[1])
+      local updated = tonumber(state[2])
+      if tokens == nil or updated == nil then
+        tokens = capacity
+        updated = now
+      end
+      tokens = math.min(capacity, tokens + math.max(0, now - updated) * rate + returned)
+      local granted = 0
+      if wanted > 0 and tokens >= minimum then
+        granted = math.min(wanted, math.floor(tokens))
+        tokens = tokens - granted
+      end
+      redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(now))
+      redis.call('PEXPIRE', KEYS[1], ARGV[6])
+      return granted
+      """, Long.class);
+
+  private final StringRedisTemplate redisTemplate;
+
+  private final AiProperties properties;
+
+  private final LocalAiGatewayRateLimiter fallback = new LocalAiGatewayRateLimiter();
+
+  private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+
+  private volatile boolean degraded;
+
+  /** Creates Redis-backed buckets. */
+  public RedisAiGatewayRateLimiter(
+      final StringRedisTemplate redisTemplate,
+      final AiProperties properties
+  ) {
+    this.redisTemplate = redisTemplate;
+    this.properties = properties;
+  }
+
+  @Override
+  public boolean tryAcquire(final String bucket, final BucketLimit limit, final long permits) {
+    long needed = Math.min(permits, limit.capacity());
+    while (true) {
+      Lease lease = leases.computeIfAbsent(bucket, ignored -> new Lease());
+      synchronized (lease) {
+        if (lease.retired) {
+          continue;
+        }
+        lease.limit = limit;
+        long now = System.nanoTime();
+        if (lease.expiresAtNanos - now > 0L && lease.balance >= needed) {
+          lease.balance -= permits;
+          return true;
+        }
+        Long granted = take(bucket, limit, lease.balance, Math.max(needed, leaseSize(limit)), needed);
+        if (granted == null) {
+          return fallback.tryAcquire(bucket, limit, permits);
+        }
+        lease.balance = granted;
+        lease.expiresAtNanos = now + leaseMillis() * 1_000_000L;
+        if (granted < needed) {
+          return false;
+        }
+        lease.balance -= permits;
+        return true;
+      }
+    }
+  }
+
+  @Override
+  public void charge(final String bucket, final BucketLimit limit, final long permits) {
+    while (true) {
+      Lease lease = leases.computeIfAbsent(bucket, ignored -> new Lease());
+      synchronized (lease) {
+        if (lease.retired) {
+          continue;
+        }
+        lease.limit = limit;
+        lease.balance -= permits;
+        if (lease.balance < -leaseSize(limit)) {
+          settle(bucket, lease);
+        }
+        return;
+      }
+    }
+  }
+
+  /**
+   * Returns expired leases and pushes local debt to Redis; idle leases and idle fallback buckets
+   * are dropped.
+   */
+  @Scheduled(
+      fixedDelayString = "${simplepoint.ai.gateway-rate-limit-lease-ms:1000}",
+      initialDelayString = "${simplepoint.ai.gateway-rate-limit-lease-ms:1000}"
+  )
+  public void flush() {
+    long now = System.nanoTime();
+    for (String bucket : List.copyOf(leases.keySet())) {
+      Lease lease = leases.get(bucket);
+      if (lease == null) {
+        continue;
+      }
+      synchronized (lease) {
+        boolean expired = lease.expiresAtNanos - now <= 0L;
+        if (lease.balance < 0L || (expired && lease.balance > 0L)) {
+          settle(bucket, lease);
+        }
+        if (expired && lease.balance == 0L) {
+          lease.retired = true;
+          leases.remove(bucket, lease);
+        }
+      }
+    }
+    fallback.sweep();
+  }
+
+  @Override
+  public void destroy() {
+    for (Map.Entry<String, Lease> entry : leases.entrySet()) {
+      Lease lease = entry.getValue();
+      synchronized (lease) {
+        if (lease.balance != 0L) {
+          settle(entry.getKey(), lease);
+        }
+      }
+    }
+  }
+
+  private void settle(final String bucket, final Lease lease) {
+    if (lease.limit != null && take(bucket, lease.limit, lease.balance, 0L, 0L) != null) {
+      lease.balance = 0L;
+    }
+  }
+
+  private Long take(
+      final String bucket,
+      final BucketLimit limit,
+      final long returned,
+      final long wanted,
+      final long minimum
+  ) {
+    double refillPerMilli = limit.refillPerSecond() / 1000D;
+    long fullMillis = refillPerMilli > 0D ? (long) Math.ceil(limit.capacity() / refillPerMilli) : 0L;
+    long expiryMillis = Math.min(86_400_000L, Math.max(60_000L, fullMillis * 2L + leaseMillis()));
+    try {
+      Long granted = redisTemplate.execute(TAKE, List.of(KEY_PREFIX + bucket),
+          Long.toString(limit.capacity()),
+          Double.toString(refillPerMilli),
+          Long.toString(returned),
+          Long.toString(wanted),
+          Long.toString(minimum),
+          Long.toString(expiryMillis));
+      if (degraded) {
+        degraded = false;
+        log.info("模型网关限流已恢复使用 Redis 共享令牌桶");
+      }
+      return granted == null ? 0L : granted;
+    } catch (RuntimeException ex) {
+      if (!degraded) {
+        degraded = true;
+        log.warn("无法访问 Redis 令牌桶，模型网关暂时按实例本地限流: {}", ex.getMessage());
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Permits leased per round trip: the configured share of the capacity, raised to the refill of
+   * one lease period and to {@link #MIN_LEASE_PERMITS}, but never more than the bucket holds.
+   */
+  long leaseSize(final BucketLimit limit) {
+    Double ratio = properties.getGatewayRateLimitLeaseRatio();
+    double effective = ratio == null || !(ratio > 0D) ? 0.1D : Math.min(ratio, 1D);
+    long byRatio = (long) Math.floor(limit.capacity() * effective);
+    long byRefill = (long) Math.ceil(limit.refillPerSecond() * leaseMillis() / 1000D);
+    return Math.max(1L, Math.min(limit.capacity(), Math.max(MIN_LEASE_PERMITS, Math.max(byRatio, byRefill))));
+  }
+
+  private long leaseMillis() {
+    Long configured = properties.getGatewayRateLimitLeaseMs();
+    return configured != null && configured > 0L ? configured : 1000L;
+  }
+
+  private static final class Lease {
+
+    private long balance;
+
+    private long expiresAtNanos = System.nanoTime();
+
+    private BucketLimit limit;
+
+    private boolean retired;
+  }
+}
@@ -0,0 +1,89 @@
+package org.simplepoint.plugin.ai.core.service.adapter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Instant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.simplepoint.plugin.ai.core.api.entity.AiInvocationRecord;
+import org.simplepoint.plugin.ai.core.api.entity.AiModelDefinition;
+import org.simplepoint.plugin.ai.core.api.entity.AiProviderDefinition;
+import org.simplepoint.plugin.ai.core.api.model.AiInvocationOperation;
+import org.simplepoint.plugin.ai.core.api.model.AiInvocationStatus;
+import org.simplepoint.plugin.ai.core.api.model.AiResourceScope;
+import org.simplepoint.plugin.ai.core.api.properties.AiProperties;
+import org.simplepoint.plugin.ai.core.service.adapter.AiInvocationLedger.InvocationActor;
+import org.simplepoint.plugin.ai.core.service.support.AiScopeAccessPolicy;
+
+class AiInvocationLedgerTest {
+
+  private static final InvocationActor ACTOR = new InvocationActor(AiResourceScope.TENANT, "tenant-1", "user-1", null);
+
+  private AiInvocationLedgerWriter writer;
+
+  private AiInvocationLedger ledger;
+
+  @BeforeEach
+  void setUp() {
+    writer = mock(AiInvocationLedgerWriter.class);
+    AiProperties properties = new AiProperties();
+    properties.setInvocationLedgerInFlightTtlMs(60_000L);
+    ledger = new AiInvocationLedger(writer, mock(AiScopeAccessPolicy.class), properties);
+  }
+
+  @Test
+  void evictStaleWritesAbandonedInvocationsAsRunningOnce() {
+    AiInvocationRecord record = start("invocation-1");
+    record.setStartedAt(Instant.now().minusSeconds(120L));
+
+    ledger.evictStale();
+    ledger.evictStale();
+
+    ArgumentCaptor<AiInvocationRecord> written = ArgumentCaptor.forClass(AiInvocationRecord.class);
+    verify(writer).submit(written.capture());
+    assertThat(written.getValue()).isNotSameAs(record);
+    assertThat(written.getValue().getId()).isEqualTo("invocation-1");
+    assertThat(written.getValue().getStatus()).isEqualTo(AiInvocationStatus.RUNNING);
+  }
+
+  @Test
+  void evictStaleKeepsRecentInvocations() {
+    start("invocation-1");
+
+    ledger.evictStale();
+    ledger.destroy();
+
+    verify(writer).submit(any());
+  }
+
+  @Test
+  void outcomeOfEvictedInvocationIsStillWritten() {
+    AiInvocationRecord record = start("invocation-1");
+    record.setStartedAt(Instant.now().minusSeconds(120L));
+    ledger.evictStale();
+
+    ledger.cancelled(record);
+    ledger.destroy();
+
+    ArgumentCaptor<AiInvocationRecord> written = ArgumentCaptor.forClass(AiInvocationRecord.class);
+    verify(writer, times(2)).submit(written.capture());
+    assertThat(written.getAllValues().getLast().getStatus()).isEqualTo(AiInvocationStatus.CANCELLED);
+  }
+
+  private AiInvocationRecord start(final String invocationId) {
+    AiProviderDefinition provider = new AiProviderDefinition();
+    provider.setId("provider-1");
+    AiModelDefinition model = new AiModelDefinition();
+    model.setId("model-1");
+    model.setModelId("gpt-test");
+    AiInvocationRecord record = ledger.start(ACTOR, invocationId, provider, model, AiInvocationOperation.GENERATION, false);
+    verify(writer, never()).submit(any());
+    return record;
+  }
+}
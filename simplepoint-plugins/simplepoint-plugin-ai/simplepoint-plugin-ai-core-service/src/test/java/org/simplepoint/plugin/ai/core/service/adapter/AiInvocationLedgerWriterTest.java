@@ -0,0 +1,189 @@
+package org.simplepoint.plugin.ai.core.service.adapter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.simplepoint.plugin.ai.core.api.entity.AiInvocationRecord;
+import org.simplepoint.plugin.ai.core.api.model.AiInvocationOperation;
+import org.simplepoint.plugin.ai.core.api.model.AiInvocationStatus;
+import org.simplepoint.plugin.ai.core.api.model.AiProviderType;
+import org.simplepoint.plugin.ai.core.api.model.AiResourceScope;
+import org.simplepoint.plugin.ai.core.api.properties.AiProperties;
+import org.simplepoint.plugin.ai.core.api.repository.AiInvocationRecordRepository;
+import org.simplepoint.plugin.ai.core.api.repository.AiUsageRollupRepository;
+import org.simplepoint.plugin.ai.core.api.vo.AiUsageRollup;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class AiInvocationLedgerWriterTest {
+
+  private static final Instant STARTED = Instant.parse("2026-01-01T10:15:30Z");
+
+  @TempDir
+  Path spool;
+
+  private final AiInvocationRecordRepository repository = mock(AiInvocationRecordRepository.class);
+
+  private final List<AiUsageRollup> rollups = new ArrayList<>();
+
+  private final AiUsageRollupRepository rollupRepository = new AiUsageRollupRepository() {
+    @Override
+    public void accumulate(final Collection<AiUsageRollup> increments) {
+      rollups.addAll(increments);
+    }
+
+    @Override
+    public List<AiUsageRollup> findByScope(
+        final AiResourceScope scopeType,
+        final String tenantId,
+        final Instant from,
+        final Instant to
+    ) {
+      return List.of();
+    }
+  };
+
+  private AiProperties properties;
+
+  @BeforeEach
+  void setUp() {
+    properties = new AiProperties();
+    properties.setInvocationLedgerSpoolDirectory(spool.toString());
+  }
+
+  @Test
+  void flushWritesBatchAndRollupsThenDeletesSpool() throws Exception {
+    AiInvocationLedgerWriter writer = writer();
+    writer.submit(record("a", AiInvocationStatus.SUCCEEDED, 10));
+    writer.submit(record("b", AiInvocationStatus.FAILED, 5));
+    assertThat(Files.list(spool)).hasSize(1);
+
+    writer.flush();
+
+    verify(repository).saveAll(any());
+    assertThat(rollups).singleElement().satisfies(rollup -> {
+      assertThat(rollup.minute()).isEqualTo(Instant.parse("2026-01-01T10:15:00Z"));
+      assertThat(rollup.invocations()).isEqualTo(2L);
+      assertThat(rollup.failedInvocations()).isEqualTo(1L);
+      assertThat(rollup.totalTokens()).isEqualTo(15L);
+    });
+    assertThat(Files.list(spool)).isEmpty();
+  }
+
+  @Test
+  void spooledRecordsAreReplayedOnceAfterRestart() throws Exception {
+    writer().submit(record("a", AiInvocationStatus.SUCCEEDED, 10));
+
+    AiInvocationRecord running = record("a", AiInvocationStatus.RUNNING, 0);
+    running.setTotalTokens(null);
+    when(repository.findAllByIds(any())).thenReturn(List.of(running));
+    AiInvocationLedgerWriter restarted = writer();
+    restarted.flush();
+
+    assertThat(running.getStatus()).isEqualTo(AiInvocationStatus.SUCCEEDED);
+    assertThat(running.getTotalTokens()).isEqualTo(10);
+    assertThat(rollups).singleElement().extracting(AiUsageRollup::invocations).isEqualTo(1L);
+    assertThat(Files.list(spool)).isEmpty();
+  }
+
+  @Test
+  void failedFlushKeepsRecordsForRetryWithoutCountingFinishedRows() throws Exception {
+    when(repository.saveAll(any())).thenThrow(new IllegalStateException("database down"));
+    AiInvocationLedgerWriter writer = writer();
+    writer.submit(record("a", AiInvocationStatus.SUCCEEDED, 10));
+    writer.flush();
+    assertThat(rollups).isEmpty();
+    assertThat(Files.list(spool)).hasSize(1);
+
+    when(repository.findAllByIds(any())).thenReturn(List.of(record("a", AiInvocationStatus.SUCCEEDED, 10)));
+    writer.flush();
+
+    assertThat(rollups).isEmpty();
+    assertThat(Files.list(spool)).isEmpty();
+  }
+
+  @Test
+  void fullQueueIsFlushedInTheBackgroundInsteadOfOnTheSubmittingThread() {
+    properties.setInvocationLedgerQueueCapacity(2);
+    AtomicReference<String> flushThread = new AtomicReference<>();
+    when(repository.saveAll(any())).thenAnswer(invocation -> {
+      flushThread.set(Thread.currentThread().getName());
+      return List.of();
+    });
+    AiInvocationLedgerWriter writer = writer();
+
+    writer.submit(record("a", AiInvocationStatus.SUCCEEDED, 10));
+    writer.submit(record("b", AiInvocationStatus.SUCCEEDED, 10));
+
+    verify(repository, timeout(5_000L)).saveAll(any());
+    assertThat(flushThread.get()).isEqualTo("ai-ledger-flush");
+    writer.destroy();
+  }
+
+  @Test
+  void failedFlushBacksOffBeforeTheNextScheduledAttempt() throws Exception {
+    properties.setInvocationLedgerFlushMs(60_000L);
+    when(repository.saveAll(any())).thenThrow(new IllegalStateException("database down"));
+    AiInvocationLedgerWriter writer = writer();
+    writer.submit(record("a", AiInvocationStatus.SUCCEEDED, 10));
+
+    writer.flushIfDue();
+    writer.flushIfDue();
+
+    verify(repository, times(1)).saveAll(any());
+    assertThat(Files.list(spool)).hasSize(1);
+  }
+
+  @Test
+  void recordsAreSyncedAndReadableBeforeTheSegmentIsSealed() throws Exception {
+    AiInvocationLedgerWriter writer = writer();
+    writer.submit(record("a", AiInvocationStatus.SUCCEEDED, 10));
+
+    writer.sync();
+
+    AiInvocationLedgerWriter restarted = writer();
+    restarted.flush();
+    assertThat(rollups).singleElement().extracting(AiUsageRollup::totalTokens).isEqualTo(10L);
+  }
+
+  private AiInvocationLedgerWriter writer() {
+    return new AiInvocationLedgerWriter(
+        repository, rollupRepository, mock(PlatformTransactionManager.class), properties);
+  }
+
+  private static AiInvocationRecord record(
+      final String id,
+      final AiInvocationStatus status,
+      final int totalTokens
+  ) {
+    AiInvocationRecord record = new AiInvocationRecord();
+    record.setId(id);
+    record.setScopeType(AiResourceScope.TENANT);
+    record.setTenantId("tenant-1");
+    record.setProviderDefinitionId("provider-1");
+    record.setModelDefinitionId("model-1");
+    record.setModelId("gpt-test");
+    record.setProviderType(AiProviderType.OPENAI);
+    record.setOperation(AiInvocationOperation.GENERATION);
+    record.setStream(true);
+    record.setStatus(status);
+    record.setStartedAt(STARTED);
+    record.setDurationMillis(20L);
+    record.setTotalTokens(totalTokens);
+    return record;
+  }
+}
@@ -7,12 +7,16 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.http.HttpRequest;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
@@ -22,6 +26,7 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.simplepoint.plugin.ai.core.api.exception.AiProviderRequestException;
 import org.simplepoint.plugin.ai.core.api.properties.AiProperties;
+import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.StreamFrame;
 
 class ProviderHttpSupportTest {
 
@@ -108,6 +113,27 @@ class ProviderHttpSupportTest {
     assertTrue(error.getMessage().contains("单行超过 10 个字符"));
   }
 
+  @Test
+  void parsesSseFramesDeliveredByteByByte() throws IOException {
+    byte[] bytes = (": keep-alive\r\nevent: message_delta\r\ndata: {\"text\":\"你好\"}\r\n\r\n"
+        + "id: 7\ndata: first\ndata:second\n\ndata: [DONE]").getBytes(StandardCharsets.UTF_8);
+    InputStream trickle = new ByteArrayInputStream(bytes) {
+      @Override
+      public synchronized int read(final byte[] buffer, final int offset, final int length) {
+        return super.read(buffer, offset, Math.min(length, 1));
+      }
+    };
+    List<StreamFrame> frames = new ArrayList<>();
+
+    new SseFrameReader(trickle, 100).read(frames::add);
+
+    assertEquals(List.of(
+        new StreamFrame("message_delta", "{\"text\":\"你好\"}"),
+        new StreamFrame(null, "first\nsecond"),
+        new StreamFrame(null, "[DONE]")
+    ), frames);
+  }
+
   @Test
   void cancellationClosesActiveProviderStream() throws Exception {
     CountDownLatch firstLineWritten = new CountDownLatch(1);
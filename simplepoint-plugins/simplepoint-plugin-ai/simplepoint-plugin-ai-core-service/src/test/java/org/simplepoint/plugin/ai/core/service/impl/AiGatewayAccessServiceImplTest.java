@@ -3,7 +3,10 @@ package org.simplepoint.plugin.ai.core.service.impl;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -21,7 +24,15 @@ import org.simplepoint.plugin.ai.core.api.properties.AiProperties;
 import org.simplepoint.plugin.ai.core.api.repository.AiApiKeyRepository;
 import org.simplepoint.plugin.ai.core.api.repository.AiModelDefinitionRepository;
 import org.simplepoint.plugin.ai.core.api.service.AiGatewayAccessService.GatewaySession;
+import org.simplepoint.plugin.ai.core.api.service.AiGatewayAccessService.TokenReservation;
+import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.GenerationRequest;
+import org.simplepoint.plugin.ai.core.api.vo.AiGenerationModels.TokenUsage;
 import org.simplepoint.plugin.ai.core.service.security.AiApiKeyHasher;
+import org.simplepoint.plugin.ai.core.service.support.AiGatewayAccessCache;
+import org.simplepoint.plugin.ai.core.service.support.AiGatewayAccessCache.VerifiedKey;
+import org.simplepoint.plugin.ai.core.service.support.LocalAiGatewayRateLimiter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
 
 class AiGatewayAccessServiceImplTest {
 
@@ -31,6 +42,8 @@ class AiGatewayAccessServiceImplTest {
 
   private AiApiKeyHasher keyHasher;
 
+  private AiGatewayAccessCache accessCache;
+
   private AiGatewayAccessServiceImpl service;
 
   @BeforeEach
@@ -39,8 +52,12 @@ class AiGatewayAccessServiceImplTest {
     properties.setApiKeyHashPepper("unit-test-api-key-pepper");
     properties.setApiKeyDefaultRateLimitPerMinute(10);
     keyHasher = new AiApiKeyHasher(properties);
+    @SuppressWarnings("unchecked")
+    ObjectProvider<StringRedisTemplate> redis = mock(ObjectProvider.class);
+    accessCache = new AiGatewayAccessCache(redis, properties);
     service = new AiGatewayAccessServiceImpl(
-        apiKeyRepository, modelRepository, keyHasher, properties);
+        apiKeyRepository, modelRepository, keyHasher, properties, accessCache,
+        new LocalAiGatewayRateLimiter());
   }
 
   @Test
@@ -50,10 +67,50 @@ class AiGatewayAccessServiceImplTest {
     when(apiKeyRepository.findActiveByPrefix(issued.prefix())).thenReturn(Optional.of(key));
 
     GatewaySession session = service.authenticate(issued.rawKey(), "127.0.0.1");
+    service.authenticate(issued.rawKey(), "127.0.0.1");
 
     assertThat(session.apiKeyId()).isEqualTo("key-1");
     assertThat(session.tenantId()).isEqualTo("tenant-1");
-    verify(apiKeyRepository).recordUsage(any(), any(Instant.class));
+    verify(apiKeyRepository).findActiveByPrefix(issued.prefix());
+    verify(apiKeyRepository, never()).recordUsage(any(), any(Long.class), any());
+    service.flushUsage();
+    verify(apiKeyRepository).recordUsage(eq("key-1"), eq(2L), any(Instant.class));
+  }
+
+  @Test
+  void cachedKeyRejectsOtherSecretsAndReloadsAfterInvalidation() {
+    AiApiKeyHasher.IssuedSecret issued = keyHasher.issue();
+    AiApiKey key = key("key-1", issued, AiResourceScope.SYSTEM, null);
+    when(apiKeyRepository.findActiveByPrefix(issued.prefix())).thenReturn(Optional.of(key));
+    service.authenticate(issued.rawKey(), "127.0.0.1");
+
+    assertThatThrownBy(() -> service.authenticate(issued.prefix() + ".forged", "127.0.0.1"))
+        .isInstanceOf(AiGatewayAccessException.class);
+    service.authenticate(issued.rawKey(), "127.0.0.1");
+
+    key.setRevokedAt(Instant.now());
+    accessCache.invalidateKeys();
+    assertThatThrownBy(() -> service.authenticate(issued.rawKey(), "127.0.0.1"))
+        .isInstanceOf(AiGatewayAccessException.class)
+        .hasMessageContaining("吊销");
+    verify(apiKeyRepository, times(3)).findActiveByPrefix(issued.prefix());
+  }
+
+  @Test
+  void cachedKeyWithOtherFingerprintIsReverifiedAgainstStoredSecret() {
+    AiApiKeyHasher.IssuedSecret issued = keyHasher.issue();
+    AiApiKey key = key("key-1", issued, AiResourceScope.SYSTEM, null);
+    when(apiKeyRepository.findActiveByPrefix(issued.prefix())).thenReturn(Optional.of(key));
+    accessCache.putKey(issued.prefix(), new VerifiedKey(
+        "key-1", "integration", AiResourceScope.SYSTEM, null, true, null, null, null, null,
+        keyHasher.fingerprint(issued.prefix() + ".previous-secret")
+    ), accessCache.epoch());
+
+    GatewaySession session = service.authenticate(issued.rawKey(), "127.0.0.1");
+    service.authenticate(issued.rawKey(), "127.0.0.1");
+
+    assertThat(session.apiKeyId()).isEqualTo("key-1");
+    verify(apiKeyRepository, times(1)).findActiveByPrefix(issued.prefix());
   }
 
   @Test
@@ -68,10 +125,29 @@ class AiGatewayAccessServiceImplTest {
         .hasMessageContaining("过期");
   }
 
+  @Test
+  void tokenBudgetIsReservedPerModelAndSettledWithReportedUsage() {
+    AiApiKeyHasher.IssuedSecret issued = keyHasher.issue();
+    AiApiKey key = key("key-1", issued, AiResourceScope.SYSTEM, null);
+    key.setTokenLimitPerMinute(100);
+    when(apiKeyRepository.findActiveByPrefix(issued.prefix())).thenReturn(Optional.of(key));
+    GatewaySession session = service.authenticate(issued.rawKey(), "127.0.0.1");
+
+    TokenReservation first = service.reserveTokens(session, request("model-1", 60));
+    assertThat(first.reservedTokens()).isEqualTo(61L);
+    assertThatThrownBy(() -> service.reserveTokens(session, request("model-1", 60)))
+        .isInstanceOf(AiGatewayAccessException.class)
+        .hasMessageContaining("Token");
+    service.reserveTokens(session, request("model-2", 60));
+
+    service.settleTokens(first, new TokenUsage(4, 6, 10, null));
+    service.reserveTokens(session, request("model-1", 60));
+  }
+
   @Test
   void exposesOnlyGenerationModelsAndDisambiguatesDuplicateProviderIds() {
     GatewaySession session = new GatewaySession(
-        "key-1", "integration", AiResourceScope.TENANT, "tenant-1");
+        "key-1", "integration", AiResourceScope.TENANT, "tenant-1", 0L);
     AiModelDefinition first = model("model-1", "shared-model", AiModelType.LLM);
     AiModelDefinition second = model("model-2", "shared-model", AiModelType.MULTIMODAL);
     AiModelDefinition embedding = model("model-3", "embed-model", AiModelType.EMBEDDING);
@@ -83,6 +159,12 @@ class AiGatewayAccessServiceImplTest {
     assertThat(available).extracting(model -> model.id())
         .containsExactly("model-1", "model-2");
     assertThat(service.resolveModelDefinitionId(session, "model-2")).isEqualTo("model-2");
+    verify(modelRepository).findAllAvailableForTenant("tenant-1");
+  }
+
+  private static GenerationRequest request(final String modelDefinitionId, final int maxOutputTokens) {
+    return new GenerationRequest(
+        modelDefinitionId, "Hi", List.of(), maxOutputTokens, null, null, List.of(), null);
   }
 
   private static AiApiKey key(
@@ -0,0 +1,42 @@
+package org.simplepoint.plugin.ai.core.service.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.simplepoint.plugin.ai.core.service.support.AiGatewayRateLimiter.BucketLimit;
+
+class LocalAiGatewayRateLimiterTest {
+
+  private final AtomicLong clock = new AtomicLong();
+
+  private final LocalAiGatewayRateLimiter limiter = new LocalAiGatewayRateLimiter(clock::get);
+
+  @Test
+  void refillsSmoothlyInsteadOfResettingPerMinute() {
+    BucketLimit limit = BucketLimit.perMinute(60, 10);
+    assertThat(limit.capacity()).isEqualTo(10L);
+
+    for (int index = 0; index < 10; index++) {
+      assertThat(limiter.tryAcquire("requests:key-1", limit, 1L)).isTrue();
+    }
+    assertThat(limiter.tryAcquire("requests:key-1", limit, 1L)).isFalse();
+
+    clock.addAndGet(1_000_000_000L);
+    assertThat(limiter.tryAcquire("requests:key-1", limit, 1L)).isTrue();
+    assertThat(limiter.tryAcquire("requests:key-1", limit, 1L)).isFalse();
+    assertThat(limiter.tryAcquire("requests:key-2", limit, 1L)).isTrue();
+  }
+
+  @Test
+  void oversizedRequestIsAdmittedWhenFullAndLeavesDebt() {
+    BucketLimit limit = BucketLimit.perMinute(600, 60);
+
+    assertThat(limiter.tryAcquire("tokens", limit, 900L)).isTrue();
+    clock.addAndGet(20_000_000_000L);
+    assertThat(limiter.tryAcquire("tokens", limit, 1L)).isFalse();
+
+    limiter.charge("tokens", limit, -400L);
+    assertThat(limiter.tryAcquire("tokens", limit, 300L)).isTrue();
+  }
+}
@@ -0,0 +1,172 @@
+package org.simplepoint.plugin.ai.core.service.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.simplepoint.plugin.ai.core.api.properties.AiProperties;
+import org.simplepoint.plugin.ai.core.service.support.AiGatewayRateLimiter.BucketLimit;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+class RedisAiGatewayRateLimiterTest {
+
+  private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+
+  private final List<Call> calls = new ArrayList<>();
+
+  private final Map<String, Double> tokens = new HashMap<>();
+
+  private AiProperties properties;
+
+  private RedisAiGatewayRateLimiter limiter;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    properties = new AiProperties();
+    properties.setGatewayRateLimitLeaseMs(60_000L);
+    limiter = new RedisAiGatewayRateLimiter(redisTemplate, properties);
+    when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenAnswer(invocation -> {
+      List<String> keys = invocation.getArgument(1);
+      return take(keys.getFirst(), (Object[]) invocation.getRawArguments()[2]);
+    });
+  }
+
+  @Test
+  void scriptRefillsAgainstRedisClockAndExpiresIdleBuckets() {
+    RedisScript<Long> script = scriptOf(limiter);
+
+    assertThat(script.getResultType()).isEqualTo(Long.class);
+    assertThat(script.getScriptAsString())
+        .contains("redis.call('TIME')")
+        .contains("math.min(capacity, tokens + math.max(0, now - updated) * rate + returned)")
+        .contains("if wanted > 0 and tokens >= minimum then")
+        .contains("redis.call('PEXPIRE', KEYS[1], ARGV[6])");
+  }
+
+  @Test
+  void leaseServesFollowingRequestsWithoutRedisRoundTrips() {
+    BucketLimit limit = new BucketLimit(100L, 0D);
+
+    for (int index = 0; index < 10; index++) {
+      assertThat(limiter.tryAcquire("requests:key-1", limit, 1L)).isTrue();
+    }
+    assertThat(calls).singleElement().satisfies(call -> {
+      assertThat(call.key()).isEqualTo("ai:gateway:bucket:requests:key-1");
+      assertThat(call.wanted()).isEqualTo(10L);
+      assertThat(call.minimum()).isEqualTo(1L);
+    });
+
+    assertThat(limiter.tryAcquire("requests:key-1", limit, 1L)).isTrue();
+    assertThat(calls).hasSize(2);
+  }
+
+  @Test
+  void smallBucketsLeaseMoreThanOnePermit() {
+    BucketLimit limit = BucketLimit.perMinute(60, 10);
+    properties.setGatewayRateLimitLeaseMs(1_000L);
+
+    assertThat(limiter.leaseSize(limit)).isEqualTo(4L);
+    properties.setGatewayRateLimitLeaseMs(5_000L);
+    assertThat(limiter.leaseSize(limit)).isEqualTo(5L);
+    assertThat(limiter.leaseSize(new BucketLimit(2L, 1D / 60D))).isEqualTo(2L);
+  }
+
+  @Test
+  void rejectsWhenRedisGrantsFewerPermitsThanNeeded() {
+    BucketLimit limit = new BucketLimit(100L, 0D);
+    tokens.put("ai:gateway:bucket:tokens", 5D);
+
+    assertThat(limiter.tryAcquire("tokens", limit, 20L)).isFalse();
+    assertThat(calls.getFirst().minimum()).isEqualTo(20L);
+  }
+
+  @Test
+  void refundsAndUnusedLeaseAreReturnedOnceTheLeaseExpires() {
+    properties.setGatewayRateLimitLeaseMs(1L);
+    BucketLimit limit = new BucketLimit(100L, 0D);
+    assertThat(limiter.tryAcquire("tokens", limit, 3L)).isTrue();
+    assertThat(tokens.get("ai:gateway:bucket:tokens")).isEqualTo(90D);
+
+    limiter.charge("tokens", limit, -2L);
+    sleep(5L);
+    limiter.flush();
+
+    assertThat(calls.getLast().returned()).isEqualTo(9L);
+    assertThat(tokens.get("ai:gateway:bucket:tokens")).isEqualTo(99D);
+    limiter.flush();
+    assertThat(calls).hasSize(2);
+  }
+
+  @Test
+  void localDebtBeyondOneLeaseIsSettledImmediately() {
+    BucketLimit limit = new BucketLimit(100L, 0D);
+    assertThat(limiter.tryAcquire("tokens", limit, 1L)).isTrue();
+
+    limiter.charge("tokens", limit, 30L);
+
+    assertThat(calls.getLast().returned()).isEqualTo(-21L);
+    assertThat(calls.getLast().wanted()).isZero();
+    assertThat(tokens.get("ai:gateway:bucket:tokens")).isEqualTo(69D);
+  }
+
+  @Test
+  void fallsBackToLocalBucketsWhileRedisIsUnreachable() {
+    when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+        .thenThrow(new IllegalStateException("connection refused"));
+    BucketLimit limit = new BucketLimit(2L, 0D);
+
+    assertThat(limiter.tryAcquire("requests:key-1", limit, 1L)).isTrue();
+    assertThat(limiter.tryAcquire("requests:key-1", limit, 1L)).isTrue();
+    assertThat(limiter.tryAcquire("requests:key-1", limit, 1L)).isFalse();
+  }
+
+  /** Applies the script's contract to an in-memory bucket with a frozen clock. */
+  private Long take(final String key, final Object[] args) {
+    long capacity = Long.parseLong((String) args[0]);
+    long returned = Long.parseLong((String) args[2]);
+    long wanted = Long.parseLong((String) args[3]);
+    long minimum = Long.parseLong((String) args[4]);
+    calls.add(new Call(key, returned, wanted, minimum));
+    double balance = Math.min(capacity, tokens.getOrDefault(key, (double) capacity) + returned);
+    long granted = 0L;
+    if (wanted > 0 && balance >= minimum) {
+      granted = Math.min(wanted, (long) Math.floor(balance));
+      balance -= granted;
+    }
+    tokens.put(key, balance);
+    return granted;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static RedisScript<Long> scriptOf(final RedisAiGatewayRateLimiter limiter) {
+    try {
+      Field field = RedisAiGatewayRateLimiter.class.getDeclaredField("TAKE");
+      field.setAccessible(true);
+      return (RedisScript<Long>) field.get(limiter);
+    } catch (ReflectiveOperationException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  private static void sleep(final long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private record Call(String key, long returned, long wanted, long minimum) {
+  }
+}
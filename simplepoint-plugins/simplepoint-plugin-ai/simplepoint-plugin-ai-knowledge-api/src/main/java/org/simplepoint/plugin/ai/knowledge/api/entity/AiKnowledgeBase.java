@@ -173,12 +173,18 @@ public class AiKnowledgeBase extends BaseEntityImpl<String> {
   private Double keywordWeight;
 
   @Order(13)
+  @Column(name = "vector_ef_search")
+  @Schema(title = "i18n:ai.knowledge-bases.title.vectorEfSearch", minimum = "1",
+      maximum = "1000")
+  private Integer vectorEfSearch;
+
+  @Order(14)
   @Schema(title = "i18n:ai.knowledge-bases.title.enabled",
       extensions = @Extension(name = "x-ui", properties =
           @ExtensionProperty(name = "x-list-visible", value = "true")))
   private Boolean enabled;
 
-  @Order(14)
+  @Order(15)
   @Column(length = 1024)
   @Schema(title = "i18n:ai.knowledge-bases.title.description", maxLength = 1024)
   private String description;
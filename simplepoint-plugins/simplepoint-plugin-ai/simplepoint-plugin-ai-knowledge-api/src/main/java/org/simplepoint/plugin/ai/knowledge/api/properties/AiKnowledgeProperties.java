@@ -24,10 +24,32 @@ public class AiKnowledgeProperties {
 
   private Integer storedVectorDimensions = 2000;
 
-  private Integer indexWorkerConcurrency = 2;
+  /**
+   * pgvector column type of chunk embeddings: {@code vector} (single precision) or
+   * {@code halfvec} (half precision, half the storage; the column and index must be migrated).
+   */
+  private String storedVectorType = "vector";
 
+  private Integer indexWorkerConcurrency = 4;
+
+  /** Upper bound of one claim statement; a poll keeps claiming until every free worker slot is used. */
   private Integer indexClaimBatchSize = 2;
 
+  /** Threads shared by all documents for concurrent embedding requests. */
+  private Integer indexEmbeddingConcurrency = 8;
+
+  /** Concurrent embedding requests allowed per embedding model. */
+  private Integer embeddingMaxConcurrentRequests = 4;
+
+  /** Embedding requests per minute allowed per embedding model, {@code 0} for no limit. */
+  private Integer embeddingRequestsPerMinute = 0;
+
+  /** Estimated input tokens per minute allowed per embedding model, {@code 0} for no limit. */
+  private Integer embeddingTokensPerMinute = 0;
+
+  /** Estimated input tokens packed into one embedding request. */
+  private Integer embeddingMaxTokensPerRequest = 100_000;
+
   private Long indexPollDelayMs = 1000L;
 
   private Integer indexLeaseSeconds = 300;
@@ -44,4 +66,31 @@ public class AiKnowledgeProperties {
 
   /** Hard limit protecting the database from oversized candidate sets. */
   private Integer maxRetrievalCandidates = 1000;
+
+  /** First-stage candidates handed to a registered reranker; ignored without one. */
+  private Integer rerankCandidates = 50;
+
+  /** Chunk vector backend: {@code pgvector} or the embedded {@code hnsw} index. */
+  private String vectorStore = "pgvector";
+
+  /** Root directory of the embedded HNSW indexes, one subdirectory per knowledge base. */
+  private String hnswDirectory = "data/ai-knowledge/hnsw";
+
+  /** Neighbours kept per HNSW node on the upper layers; layer 0 keeps twice as many. */
+  private Integer hnswM = 16;
+
+  /** Candidate list size used while inserting into the HNSW graph. */
+  private Integer hnswEfConstruction = 200;
+
+  /**
+   * Default candidate list size used while searching HNSW graphs, both embedded and pgvector;
+   * knowledge bases may override it.
+   */
+  private Integer hnswEfSearch = 100;
+
+  /** Knowledge bases with at most this many vectors are searched exactly instead of through the graph. */
+  private Integer hnswExactSearchThreshold = 2000;
+
+  /** Journal entries written between two HNSW index snapshots. */
+  private Integer hnswSnapshotInterval = 10_000;
 }
@@ -1,6 +1,8 @@
 package org.simplepoint.plugin.ai.knowledge.api.repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import org.simplepoint.plugin.ai.knowledge.api.vo.AiKnowledgeChunkRecord;
 import org.simplepoint.plugin.ai.knowledge.api.vo.AiKnowledgeSearchHit;
 import org.simplepoint.plugin.ai.knowledge.api.vo.AiKnowledgeSearchSpec;
@@ -10,7 +12,10 @@ import org.simplepoint.plugin.ai.knowledge.api.vo.AiKnowledgeSearchSpec;
  */
 public interface AiKnowledgeChunkRepository {
 
-  /** Atomically replaces all chunks for a document. */
+  /**
+   * Atomically replaces all chunks for a document. Backends may keep stored chunks whose index,
+   * content hash and metadata are unchanged instead of rewriting them.
+   */
   void replaceDocumentChunks(String documentId, List<AiKnowledgeChunkRecord> chunks);
 
   /** Deletes all chunks for a document. */
@@ -22,6 +27,14 @@ public interface AiKnowledgeChunkRepository {
   /** Counts chunks in a knowledge base. */
   long countByKnowledgeBaseId(String knowledgeBaseId);
 
+  /**
+   * Finds stored embeddings in a knowledge base by chunk content hash. A knowledge base cannot
+   * change its embedding model while it has chunks, so hits are valid for the current model.
+   *
+   * @return embeddings keyed by content hash, missing hashes are absent
+   */
+  Map<String, float[]> findEmbeddingsByContentHash(String knowledgeBaseId, Collection<String> contentHashes);
+
   /** Searches and ranks chunks. */
   List<AiKnowledgeSearchHit> search(AiKnowledgeSearchSpec spec);
 }
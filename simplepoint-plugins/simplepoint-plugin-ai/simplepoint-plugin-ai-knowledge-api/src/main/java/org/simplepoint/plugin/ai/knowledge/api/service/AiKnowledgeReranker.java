@@ -0,0 +1,27 @@
+package org.simplepoint.plugin.ai.knowledge.api.service;
+
+import java.util.List;
+import org.simplepoint.plugin.ai.knowledge.api.vo.AiKnowledgeSearchHit;
+
+/**
+ * Optional second-stage ranker, such as a cross-encoder, applied to retrieval candidates.
+ *
+ * <p>When a bean of this type exists, retrieval fetches a larger candidate pool from the chunk
+ * repository and keeps the first {@code topK} hits in the order returned here.
+ */
+public interface AiKnowledgeReranker {
+
+  /**
+   * Reorders candidates by relevance to the query.
+   *
+   * @param knowledgeBaseId knowledge base being searched
+   * @param query           user query
+   * @param candidates      first-stage hits ordered by fused score
+   * @return hits ordered by descending relevance, optionally with updated scores
+   */
+  List<AiKnowledgeSearchHit> rerank(
+      String knowledgeBaseId,
+      String query,
+      List<AiKnowledgeSearchHit> candidates
+  );
+}
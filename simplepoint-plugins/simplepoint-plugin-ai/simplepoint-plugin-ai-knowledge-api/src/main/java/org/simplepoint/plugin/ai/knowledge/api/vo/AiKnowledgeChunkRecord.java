@@ -1,10 +1,10 @@
 package org.simplepoint.plugin.ai.knowledge.api.vo;
 
-import java.util.List;
 import org.simplepoint.plugin.ai.core.api.model.AiResourceScope;
 
 /**
- * Chunk persistence payload.
+ * Chunk persistence payload. {@code contentHash} is the SHA-256 of {@code content} and keys both
+ * embedding reuse and incremental chunk replacement.
  */
 public record AiKnowledgeChunkRecord(
     String id,
@@ -14,9 +14,10 @@ public record AiKnowledgeChunkRecord(
     String tenantId,
     int chunkIndex,
     String content,
+    String contentHash,
     String metadataJson,
     int characterCount,
-    List<Double> embedding,
+    float[] embedding,
     Integer embeddingDimensions
 ) {
 }
@@ -1,21 +1,25 @@
 package org.simplepoint.plugin.ai.knowledge.api.vo;
 
-import java.util.List;
 import java.util.Set;
 import org.simplepoint.plugin.ai.knowledge.api.model.AiKnowledgeRetrievalMode;
 
 /**
  * Internal hybrid retrieval specification.
+ *
+ * <p>{@code efSearch} is the knowledge base's HNSW candidate list size, or null for the
+ * configured default.
  */
 public record AiKnowledgeSearchSpec(
     String knowledgeBaseId,
+    String tenantId,
     String query,
     AiKnowledgeRetrievalMode mode,
-    List<Double> queryEmbedding,
+    float[] queryEmbedding,
     Set<String> documentIds,
     int topK,
     double scoreThreshold,
     double vectorWeight,
-    double keywordWeight
+    double keywordWeight,
+    Integer efSearch
 ) {
 }
@@ -2,4 +2,6 @@ dependencies {
     implementation(project(":simplepoint-data:simplepoint-data-jpa"))
     implementation(project(":simplepoint-plugins:simplepoint-plugin-ai:simplepoint-plugin-ai-knowledge-api"))
     implementation("org.springframework:spring-jdbc")
+
+    testImplementation("org.springframework.boot:spring-boot-starter-test")
 }
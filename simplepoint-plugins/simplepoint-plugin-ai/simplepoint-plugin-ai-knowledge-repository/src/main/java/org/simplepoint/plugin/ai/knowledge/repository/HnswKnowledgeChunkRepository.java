@@ -0,0 +1,419 @@
+package org.simplepoint.plugin.ai.knowledge.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.simplepoint.plugin.ai.knowledge.api.entity.AiKnowledgeDocument;
+import org.simplepoint.plugin.ai.knowledge.api.model.AiKnowledgeDocumentStatus;
+import org.simplepoint.plugin.ai.knowledge.api.model.AiKnowledgeRetrievalMode;
+import org.simplepoint.plugin.ai.knowledge.api.properties.AiKnowledgeProperties;
+import org.simplepoint.plugin.ai.knowledge.api.repository.AiKnowledgeChunkRepository;
+import org.simplepoint.plugin.ai.knowledge.api.repository.AiKnowledgeDocumentRepository;
+import org.simplepoint.plugin.ai.knowledge.api.vo.AiKnowledgeChunkRecord;
+import org.simplepoint.plugin.ai.knowledge.api.vo.AiKnowledgeSearchHit;
+import org.simplepoint.plugin.ai.knowledge.api.vo.AiKnowledgeSearchSpec;
+import org.simplepoint.plugin.ai.knowledge.repository.hnsw.HnswChunkEntry;
+import org.simplepoint.plugin.ai.knowledge.repository.hnsw.HnswKnowledgeIndex;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Chunk repository backed by embedded HNSW indexes, one per knowledge base.
+ *
+ * <p>Chunks and vectors are kept on local disk under {@code hnsw-directory} instead of PostgreSQL,
+ * so vector search does not depend on pgvector or database load. Document names and statuses are
+ * still resolved through the document repository. Index writes are durable once the call returns
+ * but do not take part in surrounding database transactions.
+ */
+@Slf4j
+@Repository
+@ConditionalOnProperty(prefix = AiKnowledgeProperties.PREFIX, name = "vector-store", havingValue = "hnsw")
+public class HnswKnowledgeChunkRepository implements AiKnowledgeChunkRepository, DisposableBean {
+
+  private static final Set<AiKnowledgeDocumentStatus> SEARCHABLE_STATUSES = EnumSet.of(
+      AiKnowledgeDocumentStatus.READY,
+      AiKnowledgeDocumentStatus.REINDEXING,
+      AiKnowledgeDocumentStatus.REINDEX_FAILED
+  );
+
+  private static final int SEGMENT_CAPACITY = 4096;
+
+  private final AiKnowledgeDocumentRepository documentRepository;
+
+  private final Path root;
+
+  private final HnswKnowledgeIndex.Settings settings;
+
+  private final int hybridCandidateMultiplier;
+
+  private final int hybridRrfK;
+
+  private final int maxRetrievalCandidates;
+
+  private final Map<String, HnswKnowledgeIndex> indexes = new ConcurrentHashMap<>();
+
+  /**
+   * Creates the repository and opens every index found under the configured directory.
+   */
+  public HnswKnowledgeChunkRepository(
+      final AiKnowledgeDocumentRepository documentRepository,
+      final AiKnowledgeProperties properties
+  ) {
+    this.documentRepository = documentRepository;
+    this.root = Path.of(properties.getHnswDirectory());
+    this.settings = new HnswKnowledgeIndex.Settings(
+        positive(properties.getHnswM(), 16),
+        positive(properties.getHnswEfConstruction(), 200),
+        positive(properties.getHnswEfSearch(), 100),
+        Math.max(0, Objects.requireNonNullElse(properties.getHnswExactSearchThreshold(), 2000)),
+        positive(properties.getHnswSnapshotInterval(), 10_000),
+        SEGMENT_CAPACITY
+    );
+    this.hybridCandidateMultiplier = positive(properties.getHybridCandidateMultiplier(), 5);
+    this.hybridRrfK = positive(properties.getHybridRrfK(), 60);
+    this.maxRetrievalCandidates = positive(properties.getMaxRetrievalCandidates(), 1000);
+    openExisting();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void replaceDocumentChunks(
+      final String documentId,
+      final List<AiKnowledgeChunkRecord> chunks
+  ) {
+    if (chunks == null || chunks.isEmpty()) {
+      deleteByDocumentId(documentId);
+      return;
+    }
+    String knowledgeBaseId = chunks.getFirst().knowledgeBaseId();
+    List<HnswChunkEntry> entries = new ArrayList<>(chunks.size());
+    List<float[]> embeddings = new ArrayList<>(chunks.size());
+    for (AiKnowledgeChunkRecord chunk : chunks) {
+      if (!knowledgeBaseId.equals(chunk.knowledgeBaseId())) {
+        throw new IllegalArgumentException("同一文档的分块必须属于同一个知识库");
+      }
+      float[] embedding = requireDimensions(chunk.embedding());
+      entries.add(new HnswChunkEntry(
+          chunk.id(),
+          documentId,
+          chunk.scopeType() == null ? null : chunk.scopeType().name(),
+          chunk.tenantId(),
+          chunk.chunkIndex(),
+          chunk.content(),
+          chunk.contentHash(),
+          chunk.metadataJson(),
+          chunk.characterCount(),
+          chunk.embeddingDimensions(),
+          embedding != null
+      ));
+      embeddings.add(embedding);
+    }
+    indexes.forEach((id, index) -> {
+      if (!id.equals(knowledgeBaseId)) {
+        index.deleteDocument(documentId);
+      }
+    });
+    indexFor(knowledgeBaseId).replaceDocument(documentId, entries, embeddings);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void deleteByDocumentId(final String documentId) {
+    indexes.values().forEach(index -> index.deleteDocument(documentId));
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void deleteByKnowledgeBaseId(final String knowledgeBaseId) {
+    HnswKnowledgeIndex index = indexes.remove(knowledgeBaseId);
+    if (index != null) {
+      index.drop();
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public long countByKnowledgeBaseId(final String knowledgeBaseId) {
+    HnswKnowledgeIndex index = indexes.get(knowledgeBaseId);
+    return index == null ? 0L : index.size();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The index only keeps normalized vectors, so reused embeddings are unit length; cosine
+   * similarity is unaffected.
+   */
+  @Override
+  public Map<String, float[]> findEmbeddingsByContentHash(
+      final String knowledgeBaseId,
+      final Collection<String> contentHashes
+  ) {
+    HnswKnowledgeIndex index = indexes.get(knowledgeBaseId);
+    if (index == null || contentHashes == null || contentHashes.isEmpty()) {
+      return Map.of();
+    }
+    return index.vectorsByContentHash(new HashSet<>(contentHashes));
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public List<AiKnowledgeSearchHit> search(final AiKnowledgeSearchSpec spec) {
+    HnswKnowledgeIndex index = indexes.get(spec.knowledgeBaseId());
+    if (index == null) {
+      return List.of();
+    }
+    Map<String, String> documentNames = searchableDocuments(spec);
+    if (documentNames.isEmpty()) {
+      return List.of();
+    }
+    Predicate<HnswChunkEntry> filter = entry -> Objects.equals(spec.tenantId(), entry.tenantId())
+        && documentNames.containsKey(entry.documentId());
+    int candidateLimit = candidateLimit(spec.topK());
+    List<HnswKnowledgeIndex.Hit> vectorHits = spec.mode() == AiKnowledgeRetrievalMode.KEYWORD
+        ? List.of()
+        : spec.efSearch() == null
+            ? index.vectorSearch(requireQueryEmbedding(spec), candidateLimit, filter)
+            : index.vectorSearch(requireQueryEmbedding(spec), candidateLimit, spec.efSearch(), filter);
+    List<HnswKnowledgeIndex.Hit> keywordHits = spec.mode() == AiKnowledgeRetrievalMode.VECTOR
+        ? List.of()
+        : index.scan(keywordScorer(spec.query()), filter, candidateLimit);
+    List<AiKnowledgeSearchHit> hits = switch (spec.mode()) {
+      case VECTOR -> vectorHits.stream()
+          .map(hit -> toSearchHit(hit.entry(), documentNames, clamp(hit.score()), clamp(hit.score()), 0D))
+          .toList();
+      case KEYWORD -> keywordHits.stream()
+          .map(hit -> toSearchHit(hit.entry(), documentNames, hit.score(), 0D, hit.score()))
+          .toList();
+      case HYBRID -> fuse(vectorHits, keywordHits, spec, documentNames);
+    };
+    return hits.stream()
+        .filter(hit -> hit.score() >= spec.scoreThreshold())
+        .sorted(Comparator.comparingDouble(AiKnowledgeSearchHit::score).reversed()
+            .thenComparingInt(AiKnowledgeSearchHit::chunkIndex))
+        .limit(Math.max(0, spec.topK()))
+        .toList();
+  }
+
+  /**
+   * Snapshots every open index so the next start does not replay journals.
+   */
+  @Override
+  public void destroy() {
+    indexes.values().forEach(index -> {
+      try {
+        index.close();
+      } catch (RuntimeException ex) {
+        log.warn("关闭知识库向量索引失败", ex);
+      }
+    });
+    indexes.clear();
+  }
+
+  private List<AiKnowledgeSearchHit> fuse(
+      final List<HnswKnowledgeIndex.Hit> vectorHits,
+      final List<HnswKnowledgeIndex.Hit> keywordHits,
+      final AiKnowledgeSearchSpec spec,
+      final Map<String, String> documentNames
+  ) {
+    Map<String, double[]> fused = new HashMap<>();
+    Map<String, HnswChunkEntry> entries = new HashMap<>();
+    for (int rank = 0; rank < vectorHits.size(); rank++) {
+      HnswKnowledgeIndex.Hit hit = vectorHits.get(rank);
+      double[] scores = fused.computeIfAbsent(hit.entry().id(), ignored -> new double[3]);
+      scores[0] += spec.vectorWeight() * (hybridRrfK + 1D) / (hybridRrfK + rank + 1D);
+      scores[1] = clamp(hit.score());
+      entries.put(hit.entry().id(), hit.entry());
+    }
+    for (int rank = 0; rank < keywordHits.size(); rank++) {
+      HnswKnowledgeIndex.Hit hit = keywordHits.get(rank);
+      double[] scores = fused.computeIfAbsent(hit.entry().id(), ignored -> new double[3]);
+      scores[0] += spec.keywordWeight() * (hybridRrfK + 1D) / (hybridRrfK + rank + 1D);
+      scores[2] = hit.score();
+      entries.put(hit.entry().id(), hit.entry());
+    }
+    List<AiKnowledgeSearchHit> hits = new ArrayList<>(fused.size());
+    fused.forEach((id, scores) ->
+        hits.add(toSearchHit(entries.get(id), documentNames, scores[0], scores[1], scores[2])));
+    return hits;
+  }
+
+  private Map<String, String> searchableDocuments(final AiKnowledgeSearchSpec spec) {
+    Map<String, String> names = new HashMap<>();
+    for (AiKnowledgeDocument document
+        : documentRepository.findAllActiveByKnowledgeBaseId(spec.knowledgeBaseId())) {
+      boolean requested = spec.documentIds() == null
+          || spec.documentIds().isEmpty()
+          || spec.documentIds().contains(document.getId());
+      if (requested && document.getStatus() != null && SEARCHABLE_STATUSES.contains(document.getStatus())) {
+        names.put(document.getId(), document.getName());
+      }
+    }
+    return names;
+  }
+
+  private HnswKnowledgeIndex indexFor(final String knowledgeBaseId) {
+    return indexes.computeIfAbsent(knowledgeBaseId, id -> HnswKnowledgeIndex.open(
+        root.resolve(HexFormat.of().formatHex(id.getBytes(StandardCharsets.UTF_8))),
+        settings
+    ));
+  }
+
+  private void openExisting() {
+    if (!Files.isDirectory(root)) {
+      return;
+    }
+    try (Stream<Path> children = Files.list(root)) {
+      for (Path child : children.filter(Files::isDirectory).toList()) {
+        String name = child.getFileName().toString();
+        try {
+          String knowledgeBaseId = new String(HexFormat.of().parseHex(name), StandardCharsets.UTF_8);
+          indexes.put(knowledgeBaseId, HnswKnowledgeIndex.open(child, settings));
+        } catch (IllegalArgumentException ex) {
+          log.warn("忽略无法识别的向量索引目录: {}", child);
+        }
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException("读取向量索引目录失败: " + root, ex);
+    }
+  }
+
+  private int candidateLimit(final int topK) {
+    long desired = (long) Math.max(1, topK) * hybridCandidateMultiplier;
+    return (int) Math.min(maxRetrievalCandidates, desired);
+  }
+
+  private static float[] requireQueryEmbedding(final AiKnowledgeSearchSpec spec) {
+    float[] embedding = requireDimensions(spec.queryEmbedding());
+    if (embedding == null) {
+      throw new IllegalArgumentException("向量检索需要查询 Embedding");
+    }
+    return embedding;
+  }
+
+  private static AiKnowledgeSearchHit toSearchHit(
+      final HnswChunkEntry entry,
+      final Map<String, String> documentNames,
+      final double score,
+      final double vectorScore,
+      final double keywordScore
+  ) {
+    return new AiKnowledgeSearchHit(
+        entry.id(),
+        entry.documentId(),
+        documentNames.get(entry.documentId()),
+        entry.chunkIndex(),
+        entry.content(),
+        score,
+        vectorScore,
+        keywordScore,
+        entry.metadataJson()
+    );
+  }
+
+  /**
+   * Scores a chunk by the share of query terms it contains. Latin words are matched whole and
+   * CJK runs are split into bigrams, so the scan behaves like the trigram fallback of the SQL
+   * backend without a tokenizer.
+   */
+  private static ToDoubleFunction<HnswChunkEntry> keywordScorer(final String query) {
+    Set<String> terms = keywordTerms(query);
+    if (terms.isEmpty()) {
+      return entry -> 0D;
+    }
+    return entry -> {
+      if (entry.content() == null) {
+        return 0D;
+      }
+      String content = entry.content().toLowerCase(Locale.ROOT);
+      int matched = 0;
+      for (String term : terms) {
+        if (content.contains(term)) {
+          matched++;
+        }
+      }
+      return (double) matched / terms.size();
+    };
+  }
+
+  static Set<String> keywordTerms(final String query) {
+    Set<String> terms = new LinkedHashSet<>();
+    if (query == null) {
+      return terms;
+    }
+    String normalized = query.toLowerCase(Locale.ROOT);
+    StringBuilder word = new StringBuilder();
+    StringBuilder ideographs = new StringBuilder();
+    for (int offset = 0; offset < normalized.length(); ) {
+      int codePoint = normalized.codePointAt(offset);
+      offset += Character.charCount(codePoint);
+      if (Character.isIdeographic(codePoint)) {
+        flushWord(word, terms);
+        ideographs.appendCodePoint(codePoint);
+      } else if (Character.isLetterOrDigit(codePoint)) {
+        flushIdeographs(ideographs, terms);
+        word.appendCodePoint(codePoint);
+      } else {
+        flushWord(word, terms);
+        flushIdeographs(ideographs, terms);
+      }
+    }
+    flushWord(word, terms);
+    flushIdeographs(ideographs, terms);
+    return terms;
+  }
+
+  private static void flushWord(final StringBuilder word, final Set<String> terms) {
+    if (!word.isEmpty()) {
+      terms.add(word.toString());
+      word.setLength(0);
+    }
+  }
+
+  private static void flushIdeographs(final StringBuilder ideographs, final Set<String> terms) {
+    int[] codePoints = ideographs.codePoints().toArray();
+    if (codePoints.length == 1) {
+      terms.add(new String(codePoints, 0, 1));
+    }
+    for (int index = 0; index + 1 < codePoints.length; index++) {
+      terms.add(new String(codePoints, index, 2));
+    }
+    ideographs.setLength(0);
+  }
+
+  private static float[] requireDimensions(final float[] vector) {
+    if (vector != null && vector.length == 0) {
+      throw new IllegalArgumentException("Embedding 维度必须大于 0");
+    }
+    return vector;
+  }
+
+  private static double clamp(final double score) {
+    return Math.max(0D, Math.min(1D, score));
+  }
+
+  private static int positive(final Integer value, final int fallback) {
+    return value != null && value > 0 ? value : fallback;
+  }
+}
@@ -1,40 +1,79 @@
 package org.simplepoint.plugin.ai.knowledge.repository;
 
+import java.sql.Array;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import org.simplepoint.plugin.ai.knowledge.api.model.AiKnowledgeRetrievalMode;
 import org.simplepoint.plugin.ai.knowledge.api.properties.AiKnowledgeProperties;
 import org.simplepoint.plugin.ai.knowledge.api.repository.AiKnowledgeChunkRepository;
 import org.simplepoint.plugin.ai.knowledge.api.vo.AiKnowledgeChunkRecord;
 import org.simplepoint.plugin.ai.knowledge.api.vo.AiKnowledgeSearchHit;
 import org.simplepoint.plugin.ai.knowledge.api.vo.AiKnowledgeSearchSpec;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
  * PostgreSQL full-text, trigram and pgvector chunk repository.
+ *
+ * <p>Embeddings are bound as {@code real[]} parameters, which the PostgreSQL driver transfers in
+ * its binary array format, and cast to the configured column type ({@code vector} or
+ * {@code halfvec}) on the server instead of being formatted as text literals.
+ *
+ * <p>Replacing a document's chunks only deletes and inserts rows whose chunk index, content hash
+ * or metadata changed; unchanged rows, their embeddings and index entries are left in place.
+ *
+ * <p>Each search is one statement. Keyword candidates are pre-filtered with predicates the GIN
+ * full-text and trigram indexes can answer, so ranking functions only run on matching chunks, and
+ * both candidate pools are bounded before fusion. Vector searches raise {@code hnsw.ef_search}
+ * to at least the candidate pool size, because an HNSW scan returns no more rows than its
+ * candidate list. Searches always run in their own read-only transaction so that transaction-local
+ * setting never leaks into a caller's transaction.
  */
 @Repository
+@ConditionalOnProperty(
+    prefix = AiKnowledgeProperties.PREFIX,
+    name = "vector-store",
+    havingValue = "pgvector",
+    matchIfMissing = true
+)
 public class PgVectorKnowledgeChunkRepository implements AiKnowledgeChunkRepository {
 
+  private static final int HASH_LOOKUP_BATCH_SIZE = 1000;
+
+  private static final int MAX_EF_SEARCH = 1000;
+
   private final JdbcTemplate jdbcTemplate;
 
   private final NamedParameterJdbcTemplate namedJdbcTemplate;
 
   private final int storedVectorDimensions;
 
+  private final String vectorType;
+
   private final int hybridCandidateMultiplier;
 
   private final int hybridRrfK;
 
   private final int maxRetrievalCandidates;
 
+  private final int defaultEfSearch;
+
   /**
    * Creates the repository.
    */
@@ -45,9 +84,11 @@ public class PgVectorKnowledgeChunkRepository implements AiKnowledgeChunkReposit
     this.jdbcTemplate = jdbcTemplate;
     this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
     this.storedVectorDimensions = properties.getStoredVectorDimensions();
+    this.vectorType = vectorType(properties.getStoredVectorType());
     this.hybridCandidateMultiplier = positive(properties.getHybridCandidateMultiplier(), 5);
     this.hybridRrfK = positive(properties.getHybridRrfK(), 60);
     this.maxRetrievalCandidates = positive(properties.getMaxRetrievalCandidates(), 1000);
+    this.defaultEfSearch = positive(properties.getHnswEfSearch(), 100);
   }
 
   /** {@inheritDoc} */
@@ -57,21 +98,55 @@ public class PgVectorKnowledgeChunkRepository implements AiKnowledgeChunkReposit
       final String documentId,
       final List<AiKnowledgeChunkRecord> chunks
   ) {
-    deleteByDocumentId(documentId);
     if (chunks == null || chunks.isEmpty()) {
+      deleteByDocumentId(documentId);
+      return;
+    }
+    Map<Integer, AiKnowledgeChunkRecord> incoming = new HashMap<>();
+    chunks.forEach(chunk -> incoming.put(chunk.chunkIndex(), chunk));
+    Set<Integer> unchanged = new HashSet<>();
+    List<Object[]> stale = new ArrayList<>();
+    jdbcTemplate.query(
+        """
+            select id, chunk_index, content_hash, metadata_json
+            from simpoint_ai_knowledge_chunks
+            where document_id = ?
+            """,
+        resultSet -> {
+          AiKnowledgeChunkRecord replacement = incoming.get(resultSet.getInt("chunk_index"));
+          String contentHash = resultSet.getString("content_hash");
+          if (replacement != null
+              && contentHash != null
+              && contentHash.equals(replacement.contentHash())
+              && Objects.equals(resultSet.getString("metadata_json"), replacement.metadataJson())) {
+            unchanged.add(replacement.chunkIndex());
+          } else {
+            stale.add(new Object[] {resultSet.getString("id")});
+          }
+        },
+        documentId
+    );
+    if (!stale.isEmpty()) {
+      jdbcTemplate.batchUpdate("delete from simpoint_ai_knowledge_chunks where id = ?", stale);
+    }
+    final List<AiKnowledgeChunkRecord> inserts = chunks.stream()
+        .filter(chunk -> !unchanged.contains(chunk.chunkIndex()))
+        .toList();
+    if (inserts.isEmpty()) {
       return;
     }
     final String sql = """
         insert into simpoint_ai_knowledge_chunks (
           id, knowledge_base_id, document_id, scope_type, tenant_id, chunk_index,
-          content, metadata_json, character_count, embedding, embedding_dimensions, created_at
-        ) values (?, ?, ?, ?, ?, ?, ?, ?, ?, cast(? as vector), ?, current_timestamp)
-        """;
+          content, content_hash, metadata_json, character_count, embedding, embedding_dimensions,
+          created_at
+        ) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, cast(cast(? as real[]) as %s), ?, current_timestamp)
+        """.formatted(vectorType);
     jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
       @Override
       public void setValues(final PreparedStatement statement, final int index)
           throws SQLException {
-        AiKnowledgeChunkRecord chunk = chunks.get(index);
+        AiKnowledgeChunkRecord chunk = inserts.get(index);
         statement.setString(1, chunk.id());
         statement.setString(2, chunk.knowledgeBaseId());
         statement.setString(3, chunk.documentId());
@@ -79,19 +154,25 @@ public class PgVectorKnowledgeChunkRepository implements AiKnowledgeChunkReposit
         statement.setString(5, chunk.tenantId());
         statement.setInt(6, chunk.chunkIndex());
         statement.setString(7, chunk.content());
-        statement.setString(8, chunk.metadataJson());
-        statement.setInt(9, chunk.characterCount());
-        statement.setString(10, vectorLiteral(chunk.embedding()));
+        statement.setString(8, chunk.contentHash());
+        statement.setString(9, chunk.metadataJson());
+        statement.setInt(10, chunk.characterCount());
+        float[] embedding = storedVector(chunk.embedding());
+        if (embedding == null) {
+          statement.setNull(11, Types.ARRAY);
+        } else {
+          statement.setObject(11, embedding);
+        }
         if (chunk.embeddingDimensions() == null) {
-          statement.setNull(11, java.sql.Types.INTEGER);
+          statement.setNull(12, java.sql.Types.INTEGER);
         } else {
-          statement.setInt(11, chunk.embeddingDimensions());
+          statement.setInt(12, chunk.embeddingDimensions());
         }
       }
 
       @Override
       public int getBatchSize() {
-        return chunks.size();
+        return inserts.size();
       }
     });
   }
@@ -127,14 +208,52 @@ public class PgVectorKnowledgeChunkRepository implements AiKnowledgeChunkReposit
 
   /** {@inheritDoc} */
   @Override
+  public Map<String, float[]> findEmbeddingsByContentHash(
+      final String knowledgeBaseId,
+      final Collection<String> contentHashes
+  ) {
+    if (contentHashes == null || contentHashes.isEmpty()) {
+      return Map.of();
+    }
+    final String sql = """
+        select distinct on (content_hash) content_hash, embedding_dimensions,
+               cast(embedding as real[]) as embedding
+        from simpoint_ai_knowledge_chunks
+        where knowledge_base_id = :knowledgeBaseId
+          and content_hash in (:contentHashes)
+          and embedding is not null
+          and embedding_dimensions is not null
+        """;
+    List<String> hashes = List.copyOf(new HashSet<>(contentHashes));
+    Map<String, float[]> embeddings = new HashMap<>();
+    for (int start = 0; start < hashes.size(); start += HASH_LOOKUP_BATCH_SIZE) {
+      Map<String, Object> parameters = new HashMap<>();
+      parameters.put("knowledgeBaseId", knowledgeBaseId);
+      parameters.put(
+          "contentHashes",
+          hashes.subList(start, Math.min(start + HASH_LOOKUP_BATCH_SIZE, hashes.size()))
+      );
+      namedJdbcTemplate.query(sql, parameters, resultSet -> {
+        embeddings.put(
+            resultSet.getString("content_hash"),
+            toFloats(resultSet.getArray("embedding"), resultSet.getInt("embedding_dimensions"))
+        );
+      });
+    }
+    return embeddings;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  @Transactional(readOnly = true, propagation = Propagation.REQUIRES_NEW)
   public List<AiKnowledgeSearchHit> search(final AiKnowledgeSearchSpec spec) {
     String documentFilter = spec.documentIds() == null || spec.documentIds().isEmpty()
         ? ""
         : " and c.document_id in (:documentIds)";
     final String sql = switch (spec.mode()) {
-      case VECTOR -> vectorSearchSql(documentFilter);
+      case VECTOR -> vectorSearchSql(documentFilter, queryVector());
       case KEYWORD -> keywordSearchSql(documentFilter);
-      case HYBRID -> hybridSearchSql(documentFilter);
+      case HYBRID -> hybridSearchSql(documentFilter, queryVector());
     };
     Map<String, Object> parameters = new HashMap<>();
     parameters.put("knowledgeBaseId", spec.knowledgeBaseId());
@@ -146,7 +265,12 @@ public class PgVectorKnowledgeChunkRepository implements AiKnowledgeChunkReposit
     parameters.put("rrfK", hybridRrfK);
     parameters.put("candidateLimit", candidateLimit(spec.topK()));
     if (spec.mode() != AiKnowledgeRetrievalMode.KEYWORD) {
-      parameters.put("embedding", vectorLiteral(spec.queryEmbedding()));
+      parameters.put("embedding", storedVector(spec.queryEmbedding()));
+      jdbcTemplate.queryForObject(
+          "select set_config('hnsw.ef_search', ?, true)",
+          String.class,
+          String.valueOf(efSearch(spec))
+      );
     }
     if (!documentFilter.isEmpty()) {
       parameters.put("documentIds", spec.documentIds());
@@ -165,21 +289,21 @@ public class PgVectorKnowledgeChunkRepository implements AiKnowledgeChunkReposit
         ));
   }
 
-  private static String vectorSearchSql(final String documentFilter) {
+  private static String vectorSearchSql(final String documentFilter, final String queryVector) {
     return """
         with candidates as (
           select c.id, c.document_id, d.name as document_name, c.chunk_index,
                  c.content, c.metadata_json,
                  greatest(0.0, least(1.0,
-                   1.0 - (c.embedding <=> cast(:embedding as vector)))) as vector_score
+                   1.0 - (c.embedding <=> %2$s))) as vector_score
           from simpoint_ai_knowledge_chunks c
           join simpoint_ai_knowledge_documents d on d.id = c.document_id
           where c.knowledge_base_id = :knowledgeBaseId
             and c.embedding is not null
             and d.deleted_at is null
             and d.status in ('READY', 'REINDEXING', 'REINDEX_FAILED')
-            %s
-          order by c.embedding <=> cast(:embedding as vector)
+            %1$s
+          order by c.embedding <=> %2$s
           limit :candidateLimit
         )
         select id, document_id, document_name, chunk_index, content, metadata_json,
@@ -188,7 +312,7 @@ public class PgVectorKnowledgeChunkRepository implements AiKnowledgeChunkReposit
         where vector_score >= :scoreThreshold
         order by score desc, chunk_index asc
         limit :topK
-        """.formatted(documentFilter);
+        """.formatted(documentFilter, queryVector);
   }
 
   private static String keywordSearchSql(final String documentFilter) {
@@ -203,6 +327,8 @@ public class PgVectorKnowledgeChunkRepository implements AiKnowledgeChunkReposit
           from simpoint_ai_knowledge_chunks c
           join simpoint_ai_knowledge_documents d on d.id = c.document_id
           where c.knowledge_base_id = :knowledgeBaseId
+            and (c.content_tsv @@ websearch_to_tsquery('simple', :query)
+              or c.content %% :query)
             and d.deleted_at is null
             and d.status in ('READY', 'REINDEXING', 'REINDEX_FAILED')
             %s
@@ -218,20 +344,20 @@ public class PgVectorKnowledgeChunkRepository implements AiKnowledgeChunkReposit
         """.formatted(documentFilter);
   }
 
-  private static String hybridSearchSql(final String documentFilter) {
+  private static String hybridSearchSql(final String documentFilter, final String queryVector) {
     return """
         with vector_candidates as (
           select c.id,
                  greatest(0.0, least(1.0,
-                   1.0 - (c.embedding <=> cast(:embedding as vector)))) as vector_score
+                   1.0 - (c.embedding <=> %2$s))) as vector_score
           from simpoint_ai_knowledge_chunks c
           join simpoint_ai_knowledge_documents d on d.id = c.document_id
           where c.knowledge_base_id = :knowledgeBaseId
             and c.embedding is not null
             and d.deleted_at is null
             and d.status in ('READY', 'REINDEXING', 'REINDEX_FAILED')
-            %s
-          order by c.embedding <=> cast(:embedding as vector)
+            %1$s
+          order by c.embedding <=> %2$s
           limit :candidateLimit
         ), vector_ranked as (
           select id, vector_score,
@@ -246,9 +372,11 @@ public class PgVectorKnowledgeChunkRepository implements AiKnowledgeChunkReposit
           from simpoint_ai_knowledge_chunks c
           join simpoint_ai_knowledge_documents d on d.id = c.document_id
           where c.knowledge_base_id = :knowledgeBaseId
+            and (c.content_tsv @@ websearch_to_tsquery('simple', :query)
+              or c.content %% :query)
             and d.deleted_at is null
             and d.status in ('READY', 'REINDEXING', 'REINDEX_FAILED')
-            %s
+            %1$s
           order by keyword_score desc, c.id
           limit :candidateLimit
         ), keyword_ranked as (
@@ -275,7 +403,7 @@ public class PgVectorKnowledgeChunkRepository implements AiKnowledgeChunkReposit
         where f.score >= :scoreThreshold
         order by f.score desc, c.chunk_index asc
         limit :topK
-        """.formatted(documentFilter, documentFilter);
+        """.formatted(documentFilter, queryVector);
   }
 
   private int candidateLimit(final int topK) {
@@ -283,23 +411,52 @@ public class PgVectorKnowledgeChunkRepository implements AiKnowledgeChunkReposit
     return (int) Math.min(maxRetrievalCandidates, desired);
   }
 
-  private String vectorLiteral(final List<Double> vector) {
+  /**
+   * Returns the HNSW candidate list size: the knowledge base's setting or the default, raised to
+   * the candidate pool and capped at the pgvector maximum.
+   */
+  private int efSearch(final AiKnowledgeSearchSpec spec) {
+    int configured = positive(spec.efSearch(), defaultEfSearch);
+    return Math.min(MAX_EF_SEARCH, Math.max(configured, candidateLimit(spec.topK())));
+  }
+
+  private String queryVector() {
+    return "cast(cast(:embedding as real[]) as " + vectorType + ")";
+  }
+
+  private float[] storedVector(final float[] vector) {
     if (vector == null) {
       return null;
     }
-    if (vector.isEmpty() || vector.size() > storedVectorDimensions) {
+    if (vector.length == 0 || vector.length > storedVectorDimensions) {
       throw new IllegalArgumentException(
           "Embedding 维度必须在 1 到 " + storedVectorDimensions + " 之间"
       );
     }
-    StringBuilder value = new StringBuilder(storedVectorDimensions * 8).append('[');
-    for (int index = 0; index < storedVectorDimensions; index++) {
-      if (index > 0) {
-        value.append(',');
+    return vector.length == storedVectorDimensions
+        ? vector : Arrays.copyOf(vector, storedVectorDimensions);
+  }
+
+  private static float[] toFloats(final Array array, final int dimensions) throws SQLException {
+    try {
+      Object[] values = (Object[]) array.getArray();
+      float[] vector = new float[Math.min(dimensions, values.length)];
+      for (int index = 0; index < vector.length; index++) {
+        vector[index] = ((Number) values[index]).floatValue();
       }
-      value.append(index < vector.size() ? vector.get(index) : 0.0D);
+      return vector;
+    } finally {
+      array.free();
+    }
+  }
+
+  private static String vectorType(final String configured) {
+    String type = configured == null || configured.isBlank()
+        ? "vector" : configured.trim().toLowerCase(Locale.ROOT);
+    if (!"vector".equals(type) && !"halfvec".equals(type)) {
+      throw new IllegalArgumentException("不支持的向量存储类型: " + configured);
     }
-    return value.append(']').toString();
+    return type;
   }
 
   private static int positive(final Integer value, final int fallback) {
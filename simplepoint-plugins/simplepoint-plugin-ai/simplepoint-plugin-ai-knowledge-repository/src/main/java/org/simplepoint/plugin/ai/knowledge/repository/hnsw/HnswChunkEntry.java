@@ -0,0 +1,31 @@
+package org.simplepoint.plugin.ai.knowledge.repository.hnsw;
+
+/**
+ * Chunk payload kept next to its vector slot in the embedded index.
+ *
+ * @param id                  chunk id
+ * @param documentId          document id
+ * @param scopeType           resource scope name
+ * @param tenantId            owning tenant id
+ * @param chunkIndex          zero-based chunk index
+ * @param content             chunk text
+ * @param contentHash         SHA-256 of the chunk text, null for entries written before hashing
+ * @param metadataJson        optional source metadata
+ * @param characterCount      chunk length in characters
+ * @param embeddingDimensions embedding dimensions reported by the model
+ * @param hasVector           whether the slot holds a vector
+ */
+public record HnswChunkEntry(
+    String id,
+    String documentId,
+    String scopeType,
+    String tenantId,
+    int chunkIndex,
+    String content,
+    String contentHash,
+    String metadataJson,
+    int characterCount,
+    Integer embeddingDimensions,
+    boolean hasVector
+) {
+}
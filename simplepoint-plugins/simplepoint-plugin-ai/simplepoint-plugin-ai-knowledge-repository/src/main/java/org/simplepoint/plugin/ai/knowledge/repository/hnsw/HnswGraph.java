@@ -0,0 +1,374 @@
+package org.simplepoint.plugin.ai.knowledge.repository.hnsw;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.function.IntPredicate;
+
+/**
+ * Hierarchical navigable small world graph over the unit vectors of a {@link MappedVectorStore}.
+ *
+ * <p>Nodes are vector slots and similarity is the dot product, which equals cosine similarity
+ * because vectors are normalized before they are stored. Deleted nodes stay in the graph as
+ * navigation waypoints and are only excluded from results until the owner compacts the index.
+ * Levels are derived from a stable hash of the node key, so replaying the same inserts rebuilds
+ * the same graph. The graph is not thread-safe; the owner serializes writes against reads.
+ */
+final class HnswGraph {
+
+  private static final int MAX_LEVEL = 16;
+
+  private static final int[] EMPTY = new int[0];
+
+  private static final Comparator<Scored> BEST_FIRST = Comparator.comparingDouble(Scored::score).reversed();
+
+  private static final Comparator<Scored> WORST_FIRST = Comparator.comparingDouble(Scored::score);
+
+  private final MappedVectorStore vectors;
+
+  private final int maxConnections;
+
+  private final int maxConnectionsLayerZero;
+
+  private final int efConstruction;
+
+  private final List<int[][]> links = new ArrayList<>();
+
+  private final BitSet deleted = new BitSet();
+
+  private int entryPoint = -1;
+
+  private int maxLevel = -1;
+
+  HnswGraph(final MappedVectorStore vectors, final int maxConnections, final int efConstruction) {
+    this.vectors = vectors;
+    this.maxConnections = Math.max(2, maxConnections);
+    this.maxConnectionsLayerZero = this.maxConnections * 2;
+    this.efConstruction = Math.max(this.maxConnections, efConstruction);
+  }
+
+  /**
+   * Derives the level of a node from its key.
+   *
+   * @param key            stable node key
+   * @param maxConnections graph connectivity used to size the level distribution
+   * @return node level
+   */
+  static int levelFor(final String key, final int maxConnections) {
+    long hash = 1_125_899_906_842_597L;
+    for (int index = 0; index < key.length(); index++) {
+      hash = 31L * hash + key.charAt(index);
+    }
+    double uniform = new SplittableRandom(hash).nextDouble();
+    double multiplier = 1D / Math.log(Math.max(2, maxConnections));
+    return Math.min(MAX_LEVEL, (int) Math.floor(-Math.log(1D - uniform) * multiplier));
+  }
+
+  int entryPoint() {
+    return entryPoint;
+  }
+
+  int maxLevel() {
+    return maxLevel;
+  }
+
+  boolean contains(final int node) {
+    return node < links.size() && links.get(node) != null;
+  }
+
+  int[][] links(final int node) {
+    return links.get(node);
+  }
+
+  /**
+   * Restores a node and its adjacency from a snapshot without searching.
+   */
+  void restore(final int node, final int[][] nodeLinks) {
+    ensureCapacity(node);
+    links.set(node, nodeLinks);
+  }
+
+  void restoreEntryPoint(final int node, final int level) {
+    entryPoint = node;
+    maxLevel = level;
+  }
+
+  void markDeleted(final int node) {
+    deleted.set(node);
+  }
+
+  boolean isDeleted(final int node) {
+    return deleted.get(node);
+  }
+
+  /**
+   * Inserts a node whose vector has already been written to the store.
+   *
+   * @param node  vector slot
+   * @param level node level from {@link #levelFor(String, int)}
+   */
+  void insert(final int node, final int level) {
+    ensureCapacity(node);
+    int[][] nodeLinks = new int[level + 1][];
+    Arrays.fill(nodeLinks, EMPTY);
+    links.set(node, nodeLinks);
+    if (entryPoint < 0) {
+      entryPoint = node;
+      maxLevel = level;
+      return;
+    }
+    float[] query = vectors.read(node);
+    int entry = descend(query, entryPoint, maxLevel, level);
+    for (int layer = Math.min(level, maxLevel); layer >= 0; layer--) {
+      entry = link(node, query, layer, entry);
+    }
+    if (level > maxLevel) {
+      maxLevel = level;
+      entryPoint = node;
+    }
+  }
+
+  /**
+   * Finds the nodes most similar to a unit query vector.
+   *
+   * @param query  normalized query vector
+   * @param limit  number of results
+   * @param ef     size of the dynamic candidate list, at least {@code limit}
+   * @param accept filter applied to result nodes; rejected nodes are still traversed
+   * @return results ordered by descending similarity
+   */
+  List<Scored> search(final float[] query, final int limit, final int ef, final IntPredicate accept) {
+    if (entryPoint < 0 || limit <= 0) {
+      return List.of();
+    }
+    int entry = descend(query, entryPoint, maxLevel, 0);
+    IntPredicate live = node -> !deleted.get(node) && accept.test(node);
+    List<Scored> found = searchLayer(query, entry, Math.max(limit, ef), 0, live);
+    return found.size() > limit ? List.copyOf(found.subList(0, limit)) : found;
+  }
+
+  /**
+   * Copies the live nodes into a new graph over {@code target}, renumbered through
+   * {@code remap}. Edges to removed nodes are dropped and nodes left with too few neighbours
+   * are linked again by searching the new graph.
+   *
+   * @param remap  new slot per old slot, {@code -1} for removed nodes
+   * @param target store already holding the copied vectors
+   * @return compacted graph
+   */
+  HnswGraph compact(final int[] remap, final MappedVectorStore target) {
+    HnswGraph compacted = new HnswGraph(target, maxConnections, efConstruction);
+    int newEntry = -1;
+    int newMaxLevel = -1;
+    for (int node = 0; node < remap.length; node++) {
+      if (remap[node] < 0 || !contains(node)) {
+        continue;
+      }
+      int[][] source = links.get(node);
+      int[][] copied = new int[source.length][];
+      for (int layer = 0; layer < source.length; layer++) {
+        copied[layer] = Arrays.stream(source[layer])
+            .filter(neighbour -> neighbour < remap.length && remap[neighbour] >= 0)
+            .map(neighbour -> remap[neighbour])
+            .toArray();
+      }
+      compacted.restore(remap[node], copied);
+      if (source.length - 1 > newMaxLevel) {
+        newMaxLevel = source.length - 1;
+        newEntry = remap[node];
+      }
+    }
+    if (newEntry < 0) {
+      return compacted;
+    }
+    compacted.restoreEntryPoint(newEntry, newMaxLevel);
+    int threshold = Math.max(1, maxConnections / 2);
+    for (int node = 0; node < compacted.links.size(); node++) {
+      int[][] nodeLinks = compacted.links.get(node);
+      if (nodeLinks == null || node == newEntry) {
+        continue;
+      }
+      float[] query = null;
+      for (int layer = nodeLinks.length - 1; layer >= 0; layer--) {
+        if (nodeLinks[layer].length >= threshold) {
+          continue;
+        }
+        if (query == null) {
+          query = target.read(node);
+        }
+        int entry = compacted.descend(query, newEntry, newMaxLevel, layer);
+        compacted.link(node, query, layer, entry);
+      }
+    }
+    return compacted;
+  }
+
+  private int descend(final float[] query, final int start, final int fromLevel, final int toLevel) {
+    int current = start;
+    float currentScore = vectors.dot(current, query);
+    for (int layer = fromLevel; layer > toLevel; layer--) {
+      boolean changed = true;
+      while (changed) {
+        changed = false;
+        for (int neighbour : neighbours(current, layer)) {
+          float score = vectors.dot(neighbour, query);
+          if (score > currentScore) {
+            current = neighbour;
+            currentScore = score;
+            changed = true;
+          }
+        }
+      }
+    }
+    return current;
+  }
+
+  private int link(final int node, final float[] query, final int layer, final int entry) {
+    List<Scored> candidates = new ArrayList<>(searchLayer(query, entry, efConstruction, layer, other -> other != node));
+    for (int existing : links.get(node)[layer]) {
+      if (candidates.stream().noneMatch(candidate -> candidate.node() == existing)) {
+        candidates.add(new Scored(existing, vectors.dot(existing, query)));
+      }
+    }
+    candidates.sort(BEST_FIRST);
+    int[] selected = selectNeighbours(candidates, maxConnections);
+    links.get(node)[layer] = selected;
+    int limit = layer == 0 ? maxConnectionsLayerZero : maxConnections;
+    for (int neighbour : selected) {
+      connect(neighbour, node, layer, limit);
+    }
+    return candidates.isEmpty() ? entry : candidates.getFirst().node();
+  }
+
+  private void connect(final int node, final int neighbour, final int layer, final int limit) {
+    int[] current = links.get(node)[layer];
+    for (int existing : current) {
+      if (existing == neighbour) {
+        return;
+      }
+    }
+    if (current.length < limit) {
+      int[] grown = Arrays.copyOf(current, current.length + 1);
+      grown[current.length] = neighbour;
+      links.get(node)[layer] = grown;
+      return;
+    }
+    float[] base = vectors.read(node);
+    List<Scored> candidates = new ArrayList<>(current.length + 1);
+    for (int existing : current) {
+      candidates.add(new Scored(existing, vectors.dot(existing, base)));
+    }
+    candidates.add(new Scored(neighbour, vectors.dot(neighbour, base)));
+    candidates.sort(BEST_FIRST);
+    links.get(node)[layer] = selectNeighbours(candidates, limit);
+  }
+
+  /**
+   * Keeps candidates that are closer to the base than to any already selected neighbour, then
+   * tops up with the pruned ones so sparse regions stay connected.
+   */
+  private int[] selectNeighbours(final List<Scored> candidates, final int limit) {
+    List<Integer> selected = new ArrayList<>(limit);
+    List<float[]> selectedVectors = new ArrayList<>(limit);
+    List<Integer> pruned = new ArrayList<>();
+    for (Scored candidate : candidates) {
+      if (selected.size() >= limit) {
+        break;
+      }
+      float[] vector = vectors.read(candidate.node());
+      boolean diverse = true;
+      for (float[] kept : selectedVectors) {
+        if (dot(vector, kept) > candidate.score()) {
+          diverse = false;
+          break;
+        }
+      }
+      if (diverse) {
+        selected.add(candidate.node());
+        selectedVectors.add(vector);
+      } else {
+        pruned.add(candidate.node());
+      }
+    }
+    for (int index = 0; index < pruned.size() && selected.size() < limit; index++) {
+      selected.add(pruned.get(index));
+    }
+    return selected.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  private List<Scored> searchLayer(
+      final float[] query,
+      final int entry,
+      final int ef,
+      final int layer,
+      final IntPredicate accept
+  ) {
+    BitSet visited = new BitSet(links.size());
+    PriorityQueue<Scored> candidates = new PriorityQueue<>(BEST_FIRST);
+    PriorityQueue<Scored> results = new PriorityQueue<>(WORST_FIRST);
+    Scored start = new Scored(entry, vectors.dot(entry, query));
+    visited.set(entry);
+    candidates.add(start);
+    if (accept.test(entry)) {
+      results.add(start);
+    }
+    while (!candidates.isEmpty()) {
+      Scored current = candidates.poll();
+      if (results.size() >= ef && current.score() < results.peek().score()) {
+        break;
+      }
+      for (int neighbour : neighbours(current.node(), layer)) {
+        if (visited.get(neighbour)) {
+          continue;
+        }
+        visited.set(neighbour);
+        float score = vectors.dot(neighbour, query);
+        if (results.size() < ef || score > results.peek().score()) {
+          Scored scored = new Scored(neighbour, score);
+          candidates.add(scored);
+          if (accept.test(neighbour)) {
+            results.add(scored);
+            if (results.size() > ef) {
+              results.poll();
+            }
+          }
+        }
+      }
+    }
+    List<Scored> ordered = new ArrayList<>(results);
+    ordered.sort(BEST_FIRST);
+    return ordered;
+  }
+
+  private int[] neighbours(final int node, final int layer) {
+    int[][] nodeLinks = links.get(node);
+    return nodeLinks == null || layer >= nodeLinks.length ? EMPTY : nodeLinks[layer];
+  }
+
+  private void ensureCapacity(final int node) {
+    while (links.size() <= node) {
+      links.add(null);
+    }
+  }
+
+  private static float dot(final float[] left, final float[] right) {
+    float sum = 0F;
+    for (int index = 0; index < left.length; index++) {
+      sum += left[index] * right[index];
+    }
+    return sum;
+  }
+
+  /**
+   * Node with its similarity to the query.
+   *
+   * @param node  vector slot
+   * @param score similarity
+   */
+  record Scored(int node, float score) {
+  }
+}
@@ -0,0 +1,855 @@
+package org.simplepoint.plugin.ai.knowledge.repository.hnsw;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+
+/**
+ * Embedded vector index of one knowledge base.
+ *
+ * <p>Vectors live in memory-mapped segment files and are searched through an {@link HnswGraph};
+ * chunk payloads and the graph adjacency are held on heap. Every mutation is appended to the
+ * journal and forced to disk before it is applied in memory, so a failed write leaves both
+ * unchanged; after {@code snapshotInterval} journal entries the index writes
+ * a snapshot and truncates the journal, so a restart loads the snapshot and replays only the
+ * tail. When deleted slots outnumber live ones the snapshot compacts the index into a new
+ * generation directory and switches the {@code CURRENT} pointer atomically.
+ *
+ * <p>Searches share a read lock; inserts, deletes and snapshots take the write lock.
+ */
+public final class HnswKnowledgeIndex implements AutoCloseable {
+
+  private static final int MAGIC = 0x534E5357;
+
+  private static final int VERSION = 2;
+
+  private static final String CURRENT = "CURRENT";
+
+  private static final String SNAPSHOT = "snapshot.bin";
+
+  private static final String JOURNAL = "journal.log";
+
+  /** Insert written before entries carried a content hash; only replayed. */
+  private static final byte OP_INSERT_V1 = 'I';
+
+  private static final byte OP_INSERT = 'J';
+
+  private static final byte OP_DELETE = 'D';
+
+  private static final Comparator<Hit> WORST_FIRST = Comparator.comparingDouble(Hit::score);
+
+  private final Path directory;
+
+  private final Settings settings;
+
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private final List<HnswChunkEntry> entries = new ArrayList<>();
+
+  private final Map<String, List<Integer>> slotsByDocument = new HashMap<>();
+
+  private int generation;
+
+  private Path generationDirectory;
+
+  private int dimension;
+
+  private MappedVectorStore vectors;
+
+  private HnswGraph graph;
+
+  private int live;
+
+  private int liveVectors;
+
+  private int deletedSlots;
+
+  private long sequence;
+
+  private int journalEntries;
+
+  private FileChannel journal;
+
+  private HnswKnowledgeIndex(final Path directory, final Settings settings) {
+    this.directory = directory;
+    this.settings = settings;
+  }
+
+  /**
+   * Opens the index stored under a directory, restoring the latest snapshot and journal.
+   *
+   * @param directory index directory, created when missing
+   * @param settings  graph and persistence settings
+   * @return opened index
+   */
+  public static HnswKnowledgeIndex open(final Path directory, final Settings settings) {
+    HnswKnowledgeIndex index = new HnswKnowledgeIndex(directory, settings);
+    try {
+      index.restore();
+    } catch (IOException ex) {
+      throw new UncheckedIOException("加载向量索引失败: " + directory, ex);
+    }
+    return index;
+  }
+
+  /**
+   * Replaces every chunk of a document.
+   *
+   * @param documentId document id
+   * @param chunks     chunk payloads
+   * @param embeddings raw embeddings aligned with {@code chunks}, elements may be null
+   */
+  public void replaceDocument(
+      final String documentId,
+      final List<HnswChunkEntry> chunks,
+      final List<float[]> embeddings
+  ) {
+    int incoming = validateDimensions(embeddings);
+    lock.writeLock().lock();
+    try {
+      if (dimension > 0 && incoming > 0 && incoming != dimension) {
+        throw new IllegalArgumentException("Embedding 维度与索引不一致: " + incoming + " != " + dimension);
+      }
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      DataOutputStream operations = new DataOutputStream(buffer);
+      boolean replacing = slotsByDocument.containsKey(documentId);
+      long nextSequence = sequence;
+      if (replacing) {
+        writeDelete(operations, ++nextSequence, documentId);
+      }
+      // Deletes only tombstone slots, so the new chunks take the slots after the current ones.
+      // Their vectors are written first; the slots stay unreachable until the journal commits.
+      int firstSlot = entries.size();
+      for (int index = 0; index < chunks.size(); index++) {
+        float[] embedding = embeddings.get(index);
+        if (embedding != null) {
+          ensureVectors(embedding.length);
+          vectors.write(firstSlot + index, normalize(embedding));
+        }
+        writeInsert(
+            operations, ++nextSequence, firstSlot + index, embedding == null ? 0 : embedding.length, chunks.get(index)
+        );
+      }
+      int written = (int) (nextSequence - sequence);
+      if (written == 0) {
+        return;
+      }
+      if (vectors != null) {
+        vectors.force();
+      }
+      appendJournal(buffer.toByteArray(), written);
+      sequence = nextSequence;
+      if (replacing) {
+        applyDelete(documentId);
+      }
+      for (int index = 0; index < chunks.size(); index++) {
+        applyInsert(firstSlot + index, chunks.get(index));
+      }
+      snapshotIfDue();
+    } catch (IOException ex) {
+      throw new UncheckedIOException("写入向量索引日志失败: " + directory, ex);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Deletes every chunk of a document.
+   *
+   * @param documentId document id
+   */
+  public void deleteDocument(final String documentId) {
+    lock.writeLock().lock();
+    try {
+      if (!slotsByDocument.containsKey(documentId)) {
+        return;
+      }
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      writeDelete(new DataOutputStream(buffer), sequence + 1, documentId);
+      appendJournal(buffer.toByteArray(), 1);
+      sequence++;
+      applyDelete(documentId);
+      snapshotIfDue();
+    } catch (IOException ex) {
+      throw new UncheckedIOException("写入向量索引日志失败: " + directory, ex);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of live chunks.
+   *
+   * @return live chunk count
+   */
+  public long size() {
+    lock.readLock().lock();
+    try {
+      return live;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Finds the chunks whose embeddings are most similar to the query. Small indexes are scanned
+   * exactly; larger ones are searched through the graph.
+   *
+   * @param query  raw query embedding
+   * @param limit  number of results
+   * @param filter chunk filter
+   * @return hits ordered by descending cosine similarity
+   */
+  public List<Hit> vectorSearch(final float[] query, final int limit, final Predicate<HnswChunkEntry> filter) {
+    return vectorSearch(query, limit, settings.efSearch(), filter);
+  }
+
+  /**
+   * Finds the most similar chunks with an explicit graph candidate list size.
+   *
+   * @param query    raw query embedding
+   * @param limit    number of results
+   * @param efSearch candidate list size while searching the graph
+   * @param filter   chunk filter
+   * @return hits ordered by descending cosine similarity
+   */
+  public List<Hit> vectorSearch(
+      final float[] query,
+      final int limit,
+      final int efSearch,
+      final Predicate<HnswChunkEntry> filter
+  ) {
+    lock.readLock().lock();
+    try {
+      if (graph == null || liveVectors == 0 || limit <= 0) {
+        return List.of();
+      }
+      if (query.length != dimension) {
+        throw new IllegalArgumentException("查询向量维度与索引不一致: " + query.length + " != " + dimension);
+      }
+      float[] unit = normalize(query);
+      IntPredicate accept = slot -> {
+        HnswChunkEntry entry = entries.get(slot);
+        return entry != null && entry.hasVector() && filter.test(entry);
+      };
+      if (liveVectors <= settings.exactSearchThreshold()) {
+        return exactSearch(unit, limit, accept);
+      }
+      return graph.search(unit, limit, efSearch, accept).stream()
+          .map(scored -> new Hit(entries.get(scored.node()), scored.score()))
+          .toList();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the stored unit vectors of live chunks with the given content hashes.
+   *
+   * @param contentHashes chunk content hashes
+   * @return vectors keyed by content hash
+   */
+  public Map<String, float[]> vectorsByContentHash(final Set<String> contentHashes) {
+    lock.readLock().lock();
+    try {
+      Map<String, float[]> found = new HashMap<>();
+      for (int slot = 0; slot < entries.size() && found.size() < contentHashes.size(); slot++) {
+        HnswChunkEntry entry = entries.get(slot);
+        if (entry != null && entry.hasVector() && contentHashes.contains(entry.contentHash())) {
+          found.putIfAbsent(entry.contentHash(), vectors.read(slot));
+        }
+      }
+      return found;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Scores every live chunk and keeps the best ones.
+   *
+   * @param scorer scoring function, results at or below zero are skipped
+   * @param filter chunk filter
+   * @param limit  number of results
+   * @return hits ordered by descending score
+   */
+  public List<Hit> scan(
+      final ToDoubleFunction<HnswChunkEntry> scorer,
+      final Predicate<HnswChunkEntry> filter,
+      final int limit
+  ) {
+    lock.readLock().lock();
+    try {
+      PriorityQueue<Hit> best = new PriorityQueue<>(WORST_FIRST);
+      for (HnswChunkEntry entry : entries) {
+        if (entry == null || !filter.test(entry)) {
+          continue;
+        }
+        double score = scorer.applyAsDouble(entry);
+        if (score > 0D) {
+          offer(best, new Hit(entry, score), limit);
+        }
+      }
+      return drain(best);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Writes a snapshot and truncates the journal, compacting first when deleted slots outnumber
+   * live ones.
+   */
+  public void snapshot() {
+    lock.writeLock().lock();
+    try {
+      if (deletedSlots > 0 && deletedSlots >= live) {
+        compact();
+      } else {
+        checkpoint();
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException("写入向量索引快照失败: " + directory, ex);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Snapshots the index and releases the journal.
+   */
+  @Override
+  public void close() {
+    lock.writeLock().lock();
+    try {
+      if (journal != null && journal.isOpen()) {
+        if (journalEntries > 0) {
+          snapshot();
+        }
+        journal.close();
+      }
+      if (vectors != null) {
+        vectors.close();
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException("关闭向量索引失败: " + directory, ex);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Closes the index without a snapshot and deletes its files.
+   */
+  public void drop() {
+    lock.writeLock().lock();
+    try {
+      if (journal != null) {
+        journal.close();
+      }
+      if (vectors != null) {
+        vectors.close();
+      }
+      deleteRecursively(directory);
+    } catch (IOException ex) {
+      throw new UncheckedIOException("删除向量索引失败: " + directory, ex);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void restore() throws IOException {
+    Files.createDirectories(directory);
+    Path current = directory.resolve(CURRENT);
+    generation = Files.exists(current) ? Integer.parseInt(Files.readString(current).trim()) : 0;
+    generationDirectory = directory.resolve("gen-" + generation);
+    Files.createDirectories(generationDirectory);
+    Path snapshot = generationDirectory.resolve(SNAPSHOT);
+    if (Files.exists(snapshot)) {
+      try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+        readSnapshot(input);
+      }
+    }
+    replayJournal(generationDirectory.resolve(JOURNAL));
+    journal = openJournal(generationDirectory);
+    if (!Files.exists(current)) {
+      writeCurrent(generation);
+    }
+  }
+
+  private void readSnapshot(final DataInputStream input) throws IOException {
+    if (input.readInt() != MAGIC) {
+      throw new IOException("向量索引快照格式不正确");
+    }
+    int version = input.readInt();
+    if (version < 1 || version > VERSION) {
+      throw new IOException("不支持的向量索引快照版本: " + version);
+    }
+    sequence = input.readLong();
+    int storedDimension = input.readInt();
+    if (storedDimension > 0) {
+      ensureVectors(storedDimension);
+    }
+    int slots = input.readInt();
+    int entryPoint = input.readInt();
+    int maxLevel = input.readInt();
+    for (int slot = 0; slot < slots; slot++) {
+      int flags = input.readByte();
+      HnswChunkEntry entry = (flags & 1) != 0 ? readEntry(input, version >= 2) : null;
+      entries.add(entry);
+      if (entry == null) {
+        deletedSlots++;
+      } else {
+        slotsByDocument.computeIfAbsent(entry.documentId(), ignored -> new ArrayList<>()).add(slot);
+        live++;
+      }
+      if ((flags & 2) != 0) {
+        int[][] links = new int[input.readByte()][];
+        for (int layer = 0; layer < links.length; layer++) {
+          links[layer] = new int[input.readInt()];
+          for (int index = 0; index < links[layer].length; index++) {
+            links[layer][index] = input.readInt();
+          }
+        }
+        graph.restore(slot, links);
+        if (entry == null) {
+          graph.markDeleted(slot);
+        } else {
+          liveVectors++;
+        }
+      }
+    }
+    if (entryPoint >= 0) {
+      graph.restoreEntryPoint(entryPoint, maxLevel);
+    }
+  }
+
+  private void replayJournal(final Path path) throws IOException {
+    if (!Files.exists(path)) {
+      return;
+    }
+    byte[] content = Files.readAllBytes(path);
+    DataInputStream input = new DataInputStream(new ByteArrayInputStream(content));
+    int valid = 0;
+    while (valid < content.length) {
+      try {
+        long operationSequence = input.readLong();
+        byte operation = input.readByte();
+        if (operation == OP_INSERT || operation == OP_INSERT_V1) {
+          int slot = input.readInt();
+          int embeddingDimension = input.readInt();
+          HnswChunkEntry entry = readEntry(input, operation == OP_INSERT);
+          if (operationSequence > sequence) {
+            if (embeddingDimension > 0) {
+              ensureVectors(embeddingDimension);
+            }
+            applyInsert(slot, entry);
+          }
+        } else if (operation == OP_DELETE) {
+          String documentId = readString(input);
+          if (operationSequence > sequence) {
+            applyDelete(documentId);
+          }
+        } else {
+          break;
+        }
+        sequence = Math.max(sequence, operationSequence);
+        journalEntries++;
+        valid = content.length - input.available();
+      } catch (EOFException ex) {
+        break;
+      }
+    }
+    if (valid < content.length) {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+        channel.truncate(valid);
+      }
+    }
+  }
+
+  private void applyInsert(final int slot, final HnswChunkEntry entry) {
+    if (slot != entries.size()) {
+      throw new IllegalStateException("向量索引槽位不连续: " + slot + " != " + entries.size());
+    }
+    entries.add(entry);
+    slotsByDocument.computeIfAbsent(entry.documentId(), ignored -> new ArrayList<>()).add(slot);
+    live++;
+    if (entry.hasVector()) {
+      graph.insert(slot, HnswGraph.levelFor(entry.id(), settings.maxConnections()));
+      liveVectors++;
+    }
+  }
+
+  private void applyDelete(final String documentId) {
+    List<Integer> slots = slotsByDocument.remove(documentId);
+    if (slots == null) {
+      return;
+    }
+    for (int slot : slots) {
+      HnswChunkEntry entry = entries.set(slot, null);
+      live--;
+      deletedSlots++;
+      if (entry != null && entry.hasVector()) {
+        graph.markDeleted(slot);
+        liveVectors--;
+      }
+    }
+  }
+
+  /**
+   * Appends and forces journal records. A failed write is cut off again so later appends do not
+   * follow a torn record.
+   */
+  private void appendJournal(final byte[] operations, final int count) throws IOException {
+    long committed = journal.size();
+    try {
+      ByteBuffer buffer = ByteBuffer.wrap(operations);
+      while (buffer.hasRemaining()) {
+        journal.write(buffer);
+      }
+      journal.force(false);
+    } catch (IOException ex) {
+      try {
+        journal.truncate(committed);
+      } catch (IOException truncateFailure) {
+        ex.addSuppressed(truncateFailure);
+      }
+      throw ex;
+    }
+    journalEntries += count;
+  }
+
+  private void snapshotIfDue() {
+    if (journalEntries >= settings.snapshotInterval()) {
+      snapshot();
+    }
+  }
+
+  private void checkpoint() throws IOException {
+    Path temporary = generationDirectory.resolve(SNAPSHOT + ".tmp");
+    try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+      writeSnapshot(output);
+    }
+    if (vectors != null) {
+      vectors.force();
+    }
+    Files.move(
+        temporary,
+        generationDirectory.resolve(SNAPSHOT),
+        StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING
+    );
+    journal.truncate(0L);
+    journal.force(true);
+    journalEntries = 0;
+  }
+
+  private void writeSnapshot(final DataOutputStream output) throws IOException {
+    output.writeInt(MAGIC);
+    output.writeInt(VERSION);
+    output.writeLong(sequence);
+    output.writeInt(dimension);
+    output.writeInt(entries.size());
+    output.writeInt(graph == null ? -1 : graph.entryPoint());
+    output.writeInt(graph == null ? -1 : graph.maxLevel());
+    for (int slot = 0; slot < entries.size(); slot++) {
+      HnswChunkEntry entry = entries.get(slot);
+      boolean node = graph != null && graph.contains(slot);
+      output.writeByte((entry == null ? 0 : 1) | (node ? 2 : 0));
+      if (entry != null) {
+        writeEntry(output, entry);
+      }
+      if (node) {
+        int[][] links = graph.links(slot);
+        output.writeByte(links.length);
+        for (int[] layer : links) {
+          output.writeInt(layer.length);
+          for (int neighbour : layer) {
+            output.writeInt(neighbour);
+          }
+        }
+      }
+    }
+  }
+
+  private void compact() throws IOException {
+    int nextGeneration = generation + 1;
+    Path nextDirectory = directory.resolve("gen-" + nextGeneration);
+    deleteRecursively(nextDirectory);
+    Files.createDirectories(nextDirectory);
+    int[] remap = new int[entries.size()];
+    List<HnswChunkEntry> kept = new ArrayList<>(live);
+    for (int slot = 0; slot < entries.size(); slot++) {
+      HnswChunkEntry entry = entries.get(slot);
+      remap[slot] = entry == null ? -1 : kept.size();
+      if (entry != null) {
+        kept.add(entry);
+      }
+    }
+    MappedVectorStore nextVectors = dimension > 0
+        ? new MappedVectorStore(nextDirectory, dimension, settings.segmentCapacity())
+        : null;
+    for (int slot = 0; slot < remap.length; slot++) {
+      if (remap[slot] >= 0 && entries.get(slot).hasVector()) {
+        nextVectors.write(remap[slot], vectors.read(slot));
+      }
+    }
+    final HnswGraph nextGraph = graph == null ? null : graph.compact(remap, nextVectors);
+    final Path previousDirectory = generationDirectory;
+    final MappedVectorStore previousVectors = vectors;
+    journal.close();
+    entries.clear();
+    entries.addAll(kept);
+    slotsByDocument.clear();
+    for (int slot = 0; slot < entries.size(); slot++) {
+      slotsByDocument.computeIfAbsent(entries.get(slot).documentId(), ignored -> new ArrayList<>()).add(slot);
+    }
+    vectors = nextVectors;
+    graph = nextGraph;
+    deletedSlots = 0;
+    generation = nextGeneration;
+    generationDirectory = nextDirectory;
+    journal = openJournal(nextDirectory);
+    checkpoint();
+    writeCurrent(nextGeneration);
+    if (previousVectors != null) {
+      previousVectors.close();
+    }
+    deleteRecursively(previousDirectory);
+  }
+
+  private List<Hit> exactSearch(final float[] unit, final int limit, final IntPredicate accept) {
+    PriorityQueue<Hit> best = new PriorityQueue<>(WORST_FIRST);
+    for (int slot = 0; slot < entries.size(); slot++) {
+      if (accept.test(slot)) {
+        offer(best, new Hit(entries.get(slot), vectors.dot(slot, unit)), limit);
+      }
+    }
+    return drain(best);
+  }
+
+  private void ensureVectors(final int embeddingDimension) {
+    if (vectors == null) {
+      dimension = embeddingDimension;
+      vectors = new MappedVectorStore(generationDirectory, embeddingDimension, settings.segmentCapacity());
+      graph = new HnswGraph(vectors, settings.maxConnections(), settings.efConstruction());
+    }
+  }
+
+  private void writeCurrent(final int value) throws IOException {
+    Path temporary = directory.resolve(CURRENT + ".tmp");
+    Files.writeString(temporary, Integer.toString(value));
+    Files.move(
+        temporary,
+        directory.resolve(CURRENT),
+        StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING
+    );
+  }
+
+  private static FileChannel openJournal(final Path generationDirectory) throws IOException {
+    return FileChannel.open(
+        generationDirectory.resolve(JOURNAL),
+        StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE,
+        StandardOpenOption.APPEND
+    );
+  }
+
+  private static int validateDimensions(final List<float[]> embeddings) {
+    int found = 0;
+    for (float[] embedding : embeddings) {
+      if (embedding == null) {
+        continue;
+      }
+      if (embedding.length == 0 || found > 0 && embedding.length != found) {
+        throw new IllegalArgumentException("同一文档的 Embedding 维度必须一致且大于 0");
+      }
+      found = embedding.length;
+    }
+    return found;
+  }
+
+  private static void offer(final PriorityQueue<Hit> best, final Hit hit, final int limit) {
+    if (best.size() < limit) {
+      best.add(hit);
+    } else if (limit > 0 && hit.score() > best.peek().score()) {
+      best.poll();
+      best.add(hit);
+    }
+  }
+
+  private static List<Hit> drain(final PriorityQueue<Hit> best) {
+    List<Hit> ordered = new ArrayList<>(best);
+    ordered.sort(WORST_FIRST.reversed());
+    return ordered;
+  }
+
+  private static float[] normalize(final float[] vector) {
+    double norm = 0D;
+    for (float value : vector) {
+      norm += value * value;
+    }
+    if (norm == 0D) {
+      return vector.clone();
+    }
+    float scale = (float) (1D / Math.sqrt(norm));
+    float[] unit = new float[vector.length];
+    for (int index = 0; index < vector.length; index++) {
+      unit[index] = vector[index] * scale;
+    }
+    return unit;
+  }
+
+  private static void writeInsert(
+      final DataOutput output,
+      final long operationSequence,
+      final int slot,
+      final int embeddingDimension,
+      final HnswChunkEntry entry
+  ) throws IOException {
+    output.writeLong(operationSequence);
+    output.writeByte(OP_INSERT);
+    output.writeInt(slot);
+    output.writeInt(embeddingDimension);
+    writeEntry(output, entry);
+  }
+
+  private static void writeDelete(
+      final DataOutput output,
+      final long operationSequence,
+      final String documentId
+  ) throws IOException {
+    output.writeLong(operationSequence);
+    output.writeByte(OP_DELETE);
+    writeString(output, documentId);
+  }
+
+  private static void writeEntry(final DataOutput output, final HnswChunkEntry entry) throws IOException {
+    writeString(output, entry.id());
+    writeString(output, entry.documentId());
+    writeString(output, entry.scopeType());
+    writeString(output, entry.tenantId());
+    output.writeInt(entry.chunkIndex());
+    writeString(output, entry.content());
+    writeString(output, entry.contentHash());
+    writeString(output, entry.metadataJson());
+    output.writeInt(entry.characterCount());
+    output.writeInt(entry.embeddingDimensions() == null ? -1 : entry.embeddingDimensions());
+    output.writeBoolean(entry.hasVector());
+  }
+
+  private static HnswChunkEntry readEntry(final DataInput input, final boolean hashed) throws IOException {
+    String id = readString(input);
+    String documentId = readString(input);
+    String scopeType = readString(input);
+    String tenantId = readString(input);
+    int chunkIndex = input.readInt();
+    String content = readString(input);
+    String contentHash = hashed ? readString(input) : null;
+    String metadataJson = readString(input);
+    int characterCount = input.readInt();
+    int embeddingDimensions = input.readInt();
+    boolean hasVector = input.readBoolean();
+    return new HnswChunkEntry(
+        id,
+        documentId,
+        scopeType,
+        tenantId,
+        chunkIndex,
+        content,
+        contentHash,
+        metadataJson,
+        characterCount,
+        embeddingDimensions < 0 ? null : embeddingDimensions,
+        hasVector
+    );
+  }
+
+  private static void writeString(final DataOutput output, final String value) throws IOException {
+    if (value == null) {
+      output.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  private static String readString(final DataInput input) throws IOException {
+    int length = input.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    input.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void deleteRecursively(final Path path) throws IOException {
+    if (!Files.exists(path)) {
+      return;
+    }
+    try (Stream<Path> walk = Files.walk(path)) {
+      for (Path item : walk.sorted(Comparator.reverseOrder()).toList()) {
+        Files.deleteIfExists(item);
+      }
+    }
+  }
+
+  /**
+   * Graph and persistence settings.
+   *
+   * @param maxConnections       neighbours per node on the upper layers, doubled on layer 0
+   * @param efConstruction       candidate list size while inserting
+   * @param efSearch             candidate list size while searching
+   * @param exactSearchThreshold vector count up to which searches scan exactly
+   * @param snapshotInterval     journal entries between snapshots
+   * @param segmentCapacity      vectors per memory-mapped segment file
+   */
+  public record Settings(
+      int maxConnections,
+      int efConstruction,
+      int efSearch,
+      int exactSearchThreshold,
+      int snapshotInterval,
+      int segmentCapacity
+  ) {
+  }
+
+  /**
+   * Chunk with its score.
+   *
+   * @param entry chunk payload
+   * @param score similarity or keyword score
+   */
+  public record Hit(HnswChunkEntry entry, double score) {
+  }
+}
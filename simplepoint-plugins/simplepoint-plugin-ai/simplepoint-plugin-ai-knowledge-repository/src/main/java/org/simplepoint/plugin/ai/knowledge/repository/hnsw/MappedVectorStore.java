@@ -0,0 +1,184 @@
+package org.simplepoint.plugin.ai.knowledge.repository.hnsw;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-dimension float vectors kept in memory-mapped segment files, addressed by slot.
+ *
+ * <p>Slot {@code n} lives in segment {@code n / segmentCapacity}; segments are created on demand
+ * and mapped once, so vectors are read straight from the page cache without heap copies. Reads
+ * use absolute buffer access and are safe to run concurrently with each other; writes must be
+ * serialized by the owner.
+ *
+ * <p>{@link #close()} unmaps the segments right away instead of waiting for the buffers to be
+ * garbage collected, so retired generations give their address space back and their files can
+ * be deleted. The owner must guarantee that no read is in flight when it closes the store.
+ */
+final class MappedVectorStore implements AutoCloseable {
+
+  private static final String SEGMENT_PATTERN = "vectors-%05d.bin";
+
+  private static final Unmapper UNMAPPER = Unmapper.lookup();
+
+  private final Path directory;
+
+  private final int dimension;
+
+  private final int segmentCapacity;
+
+  private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+  private final List<FloatBuffer> views = new ArrayList<>();
+
+  private boolean closed;
+
+  MappedVectorStore(final Path directory, final int dimension, final int segmentCapacity) {
+    this.directory = directory;
+    this.dimension = dimension;
+    this.segmentCapacity = segmentCapacity;
+    try {
+      Files.createDirectories(directory);
+      for (int index = 0; Files.exists(segmentPath(index)); index++) {
+        map(index);
+      }
+    } catch (IOException ex) {
+      throw new UncheckedIOException("打开向量文件失败: " + directory, ex);
+    }
+  }
+
+  int dimension() {
+    return dimension;
+  }
+
+  void write(final int slot, final float[] vector) {
+    FloatBuffer view = segmentFor(slot, true);
+    int offset = (slot % segmentCapacity) * dimension;
+    for (int index = 0; index < dimension; index++) {
+      view.put(offset + index, vector[index]);
+    }
+  }
+
+  float[] read(final int slot) {
+    FloatBuffer view = segmentFor(slot, false);
+    int offset = (slot % segmentCapacity) * dimension;
+    float[] vector = new float[dimension];
+    view.get(offset, vector);
+    return vector;
+  }
+
+  float dot(final int slot, final float[] query) {
+    FloatBuffer view = segmentFor(slot, false);
+    int offset = (slot % segmentCapacity) * dimension;
+    float sum = 0F;
+    for (int index = 0; index < dimension; index++) {
+      sum += view.get(offset + index) * query[index];
+    }
+    return sum;
+  }
+
+  void force() {
+    for (MappedByteBuffer segment : segments) {
+      segment.force();
+    }
+  }
+
+  /**
+   * Flushes and unmaps every segment. Later reads and writes fail instead of touching unmapped
+   * memory.
+   */
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    force();
+    views.clear();
+    for (MappedByteBuffer segment : segments) {
+      UNMAPPER.unmap(segment);
+    }
+    segments.clear();
+  }
+
+  private FloatBuffer segmentFor(final int slot, final boolean create) {
+    if (closed) {
+      throw new IllegalStateException("向量文件已关闭: " + directory);
+    }
+    int segment = slot / segmentCapacity;
+    if (segment >= views.size()) {
+      if (!create) {
+        throw new IllegalStateException("向量槽位不存在: " + slot);
+      }
+      try {
+        while (views.size() <= segment) {
+          map(views.size());
+        }
+      } catch (IOException ex) {
+        throw new UncheckedIOException("扩展向量文件失败: " + directory, ex);
+      }
+    }
+    return views.get(segment);
+  }
+
+  private void map(final int index) throws IOException {
+    long size = (long) segmentCapacity * dimension * Float.BYTES;
+    try (FileChannel channel = FileChannel.open(
+        segmentPath(index),
+        StandardOpenOption.CREATE,
+        StandardOpenOption.READ,
+        StandardOpenOption.WRITE
+    )) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+      segments.add(buffer);
+      views.add(buffer.asFloatBuffer());
+    }
+  }
+
+  private Path segmentPath(final int index) {
+    return directory.resolve(SEGMENT_PATTERN.formatted(index));
+  }
+
+  /**
+   * Releases a mapping eagerly through {@code sun.misc.Unsafe#invokeCleaner}, the only unmap hook
+   * on JDK 21. When it is unavailable the mapping is left to the garbage collector.
+   */
+  @FunctionalInterface
+  private interface Unmapper {
+
+    void unmap(ByteBuffer buffer);
+
+    private static Unmapper lookup() {
+      try {
+        Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+        Field field = unsafeClass.getDeclaredField("theUnsafe");
+        field.setAccessible(true);
+        Object unsafe = field.get(null);
+        Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        return buffer -> {
+          try {
+            invokeCleaner.invoke(unsafe, buffer);
+          } catch (ReflectiveOperationException ex) {
+            // Left to the garbage collector.
+          }
+        };
+      } catch (ReflectiveOperationException | RuntimeException ex) {
+        return buffer -> {
+        };
+      }
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package org.simplepoint.plugin.ai.knowledge.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.simplepoint.plugin.ai.knowledge.api.model.AiKnowledgeRetrievalMode;
+import org.simplepoint.plugin.ai.knowledge.api.properties.AiKnowledgeProperties;
+import org.simplepoint.plugin.ai.knowledge.api.vo.AiKnowledgeSearchSpec;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlProvider;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+class PgVectorKnowledgeChunkRepositoryTest {
+
+  private static final String SET_EF_SEARCH = "select set_config('hnsw.ef_search', ?, true)";
+
+  private JdbcTemplate jdbcTemplate;
+
+  private AiKnowledgeProperties properties;
+
+  @BeforeEach
+  void setUp() {
+    jdbcTemplate = mock(JdbcTemplate.class);
+    properties = new AiKnowledgeProperties();
+  }
+
+  @Test
+  void keywordSearchPreFiltersWithIndexablePredicatesAndLeavesEfSearchAlone() {
+    repository().search(spec(AiKnowledgeRetrievalMode.KEYWORD, null, 10, null));
+
+    String sql = executedSql();
+    assertThat(sql).contains("""
+        and (c.content_tsv @@ websearch_to_tsquery('simple', ?)
+              or c.content % ?)""");
+    assertThat(sql.indexOf("c.content % ?")).isLessThan(sql.indexOf("limit ?"));
+    assertThat(sql).doesNotContain("<=>");
+    verify(jdbcTemplate, never()).queryForObject(anyString(), eq(String.class), any(Object[].class));
+  }
+
+  @Test
+  void hybridSearchPreFiltersKeywordCandidatesBeforeFusion() {
+    repository().search(spec(AiKnowledgeRetrievalMode.HYBRID, new float[] {1F}, 10, null));
+
+    String sql = executedSql();
+    int keywordCandidates = sql.indexOf("keyword_candidates as (");
+    assertThat(sql.indexOf("or c.content % ?)", keywordCandidates))
+        .isBetween(keywordCandidates, sql.indexOf("keyword_ranked as ("));
+  }
+
+  @Test
+  void vectorSearchRaisesEfSearchToTheCandidatePool() {
+    repository().search(spec(AiKnowledgeRetrievalMode.VECTOR, new float[] {1F}, 30, null));
+
+    verify(jdbcTemplate).queryForObject(SET_EF_SEARCH, String.class, "150");
+  }
+
+  @Test
+  void vectorSearchUsesKnowledgeBaseEfSearchAboveTheCandidatePool() {
+    repository().search(spec(AiKnowledgeRetrievalMode.VECTOR, new float[] {1F}, 10, 400));
+
+    verify(jdbcTemplate).queryForObject(SET_EF_SEARCH, String.class, "400");
+  }
+
+  @Test
+  void vectorSearchFallsBackToConfiguredEfSearch() {
+    properties.setHnswEfSearch(120);
+
+    repository().search(spec(AiKnowledgeRetrievalMode.HYBRID, new float[] {1F}, 10, null));
+
+    verify(jdbcTemplate).queryForObject(SET_EF_SEARCH, String.class, "120");
+  }
+
+  @Test
+  void vectorSearchCapsEfSearchAtPgVectorMaximum() {
+    properties.setMaxRetrievalCandidates(5000);
+
+    repository().search(spec(AiKnowledgeRetrievalMode.VECTOR, new float[] {1F}, 300, null));
+
+    verify(jdbcTemplate).queryForObject(SET_EF_SEARCH, String.class, "1000");
+  }
+
+  @Test
+  void searchRunsInItsOwnReadOnlyTransaction() throws NoSuchMethodException {
+    Transactional transactional = PgVectorKnowledgeChunkRepository.class
+        .getMethod("search", AiKnowledgeSearchSpec.class)
+        .getAnnotation(Transactional.class);
+
+    assertThat(transactional.readOnly()).isTrue();
+    assertThat(transactional.propagation()).isEqualTo(Propagation.REQUIRES_NEW);
+  }
+
+  private PgVectorKnowledgeChunkRepository repository() {
+    return new PgVectorKnowledgeChunkRepository(jdbcTemplate, properties);
+  }
+
+  @SuppressWarnings("unchecked")
+  private String executedSql() {
+    ArgumentCaptor<PreparedStatementCreator> creator = ArgumentCaptor.forClass(PreparedStatementCreator.class);
+    verify(jdbcTemplate).query(creator.capture(), any(RowMapper.class));
+    return ((SqlProvider) creator.getValue()).getSql();
+  }
+
+  private static AiKnowledgeSearchSpec spec(
+      final AiKnowledgeRetrievalMode mode,
+      final float[] embedding,
+      final int topK,
+      final Integer efSearch
+  ) {
+    return new AiKnowledgeSearchSpec(
+        "kb-1", "tenant-1", "pgvector 索引", mode, embedding, null, topK, 0.0D, 0.7D, 0.3D, efSearch
+    );
+  }
+}
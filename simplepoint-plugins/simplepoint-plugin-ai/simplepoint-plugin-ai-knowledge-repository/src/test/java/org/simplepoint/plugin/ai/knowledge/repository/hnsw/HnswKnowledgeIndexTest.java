@@ -0,0 +1,218 @@
+package org.simplepoint.plugin.ai.knowledge.repository.hnsw;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HnswKnowledgeIndexTest {
+
+  private static final int DIMENSION = 16;
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void graphSearchRecallsExactNeighbours() {
+    Random random = new Random(7);
+    List<float[]> vectors = new ArrayList<>();
+    try (HnswKnowledgeIndex index = HnswKnowledgeIndex.open(directory, settings(0, 100_000))) {
+      for (int document = 0; document < 100; document++) {
+        List<float[]> embeddings = new ArrayList<>();
+        for (int chunk = 0; chunk < 10; chunk++) {
+          float[] vector = randomVector(random);
+          embeddings.add(vector);
+          vectors.add(vector);
+        }
+        index.replaceDocument("doc-" + document, entries("doc-" + document, 10, "t1"), embeddings);
+      }
+      int found = 0;
+      for (int query = 0; query < 20; query++) {
+        float[] probe = randomVector(random);
+        Set<String> expected = exactTop(vectors, probe, 10);
+        found += (int) index.vectorSearch(probe, 10, entry -> true).stream()
+            .filter(hit -> expected.contains(hit.entry().id()))
+            .count();
+      }
+      assertTrue(found >= 180, "recall@10 too low: " + found + "/200");
+    }
+  }
+
+  @Test
+  void deletesAndFiltersAreExcludedFromResults() {
+    Random random = new Random(11);
+    try (HnswKnowledgeIndex index = HnswKnowledgeIndex.open(directory, settings(0, 100_000))) {
+      float[] target = randomVector(random);
+      index.replaceDocument("a", entries("a", 1, "t1"), List.of(target));
+      index.replaceDocument("b", entries("b", 1, "t2"), List.of(target.clone()));
+      index.replaceDocument("c", entries("c", 1, "t1"), List.of(randomVector(random)));
+
+      List<HnswKnowledgeIndex.Hit> tenantHits = index.vectorSearch(target, 3, entry -> "t2".equals(entry.tenantId()));
+      assertEquals(List.of("b"), tenantHits.stream().map(hit -> hit.entry().documentId()).toList());
+
+      index.deleteDocument("a");
+      assertEquals(2, index.size());
+      assertTrue(index.vectorSearch(target, 3, entry -> true).stream()
+          .noneMatch(hit -> "a".equals(hit.entry().documentId())));
+    }
+  }
+
+  @Test
+  void replaceDocumentRejectsMismatchedDimensions() {
+    try (HnswKnowledgeIndex index = HnswKnowledgeIndex.open(directory, settings(0, 100_000))) {
+      index.replaceDocument("a", entries("a", 1, "t1"), List.of(new float[DIMENSION]));
+      assertThrows(IllegalArgumentException.class,
+          () -> index.replaceDocument("b", entries("b", 1, "t1"), List.of(new float[DIMENSION + 1])));
+      assertEquals(1, index.size());
+    }
+  }
+
+  @Test
+  void journalIsReplayedAfterUncleanShutdown() {
+    Random random = new Random(3);
+    float[] target = randomVector(random);
+    HnswKnowledgeIndex first = HnswKnowledgeIndex.open(directory, settings(0, 100_000));
+    first.replaceDocument("a", entries("a", 2, "t1"), List.of(target, randomVector(random)));
+    first.replaceDocument("b", entries("b", 1, "t1"), List.of(randomVector(random)));
+    first.deleteDocument("b");
+
+    try (HnswKnowledgeIndex reopened = HnswKnowledgeIndex.open(directory, settings(0, 100_000))) {
+      assertEquals(2, reopened.size());
+      assertEquals("a-0", reopened.vectorSearch(target, 1, entry -> true).getFirst().entry().id());
+      assertEquals(Set.of("a#1"), reopened.vectorsByContentHash(Set.of("a#1", "b#0")).keySet());
+    }
+  }
+
+  @Test
+  void snapshotCompactsDeletedSlotsIntoNewGeneration() throws Exception {
+    Random random = new Random(5);
+    float[] target = randomVector(random);
+    try (HnswKnowledgeIndex index = HnswKnowledgeIndex.open(directory, settings(0, 100_000))) {
+      index.replaceDocument("keep", entries("keep", 1, "t1"), List.of(target));
+      for (int document = 0; document < 5; document++) {
+        index.replaceDocument("drop-" + document, entries("drop-" + document, 4, "t1"),
+            IntStream.range(0, 4).mapToObj(ignored -> randomVector(random)).toList());
+        index.deleteDocument("drop-" + document);
+      }
+      index.snapshot();
+    }
+    assertEquals("1", Files.readString(directory.resolve("CURRENT")));
+    assertFalse(Files.exists(directory.resolve("gen-0")));
+    try (HnswKnowledgeIndex reopened = HnswKnowledgeIndex.open(directory, settings(0, 100_000))) {
+      assertEquals(1, reopened.size());
+      assertEquals("keep-0", reopened.vectorSearch(target, 5, entry -> true).getFirst().entry().id());
+      assertEquals(1, reopened.scan(entry -> 1D, entry -> true, 10).size());
+    }
+  }
+
+  @Test
+  void periodicSnapshotsKeepRestoredGraphSearchable() {
+    Random random = new Random(9);
+    List<float[]> vectors = new ArrayList<>();
+    try (HnswKnowledgeIndex index = HnswKnowledgeIndex.open(directory, settings(0, 7))) {
+      for (int document = 0; document < 30; document++) {
+        float[] vector = randomVector(random);
+        vectors.add(vector);
+        index.replaceDocument("doc-" + document, entries("doc-" + document, 1, "t1"), List.of(vector));
+      }
+    }
+    try (HnswKnowledgeIndex reopened = HnswKnowledgeIndex.open(directory, settings(0, 7))) {
+      assertEquals(30, reopened.size());
+      for (int document = 0; document < 30; document++) {
+        List<HnswKnowledgeIndex.Hit> hits = reopened.vectorSearch(vectors.get(document), 1, entry -> true);
+        assertEquals("doc-" + document + "-0", hits.getFirst().entry().id());
+      }
+    }
+  }
+
+  @Test
+  void failedJournalWriteLeavesIndexUnchanged() throws Exception {
+    Random random = new Random(13);
+    float[] target = randomVector(random);
+    HnswKnowledgeIndex index = HnswKnowledgeIndex.open(directory, settings(0, 100_000));
+    index.replaceDocument("a", entries("a", 1, "t1"), List.of(target));
+    Field journal = HnswKnowledgeIndex.class.getDeclaredField("journal");
+    journal.setAccessible(true);
+    ((FileChannel) journal.get(index)).close();
+
+    assertThrows(UncheckedIOException.class,
+        () -> index.replaceDocument("a", entries("a", 2, "t1"), List.of(randomVector(random), randomVector(random))));
+    assertThrows(UncheckedIOException.class, () -> index.deleteDocument("a"));
+
+    assertEquals(1, index.size());
+    assertEquals("a-0", index.vectorSearch(target, 2, entry -> true).getFirst().entry().id());
+    index.close();
+    try (HnswKnowledgeIndex reopened = HnswKnowledgeIndex.open(directory, settings(0, 100_000))) {
+      assertEquals(1, reopened.size());
+      assertEquals("a-0", reopened.vectorSearch(target, 2, entry -> true).getFirst().entry().id());
+    }
+  }
+
+  @Test
+  void closedIndexRejectsSearchesInsteadOfReadingUnmappedVectors() {
+    Random random = new Random(17);
+    float[] target = randomVector(random);
+    HnswKnowledgeIndex index = HnswKnowledgeIndex.open(directory, settings(0, 100_000));
+    index.replaceDocument("a", entries("a", 1, "t1"), List.of(target));
+
+    index.close();
+
+    assertThrows(IllegalStateException.class, () -> index.vectorSearch(target, 1, entry -> true));
+  }
+
+  private static HnswKnowledgeIndex.Settings settings(final int exactThreshold, final int snapshotInterval) {
+    return new HnswKnowledgeIndex.Settings(8, 64, 64, exactThreshold, snapshotInterval, 128);
+  }
+
+  private static List<HnswChunkEntry> entries(final String documentId, final int count, final String tenantId) {
+    return IntStream.range(0, count)
+        .mapToObj(index -> new HnswChunkEntry(
+            documentId + "-" + index, documentId, "TENANT", tenantId, index,
+            "chunk " + index, documentId + "#" + index, null, 7, DIMENSION, true))
+        .toList();
+  }
+
+  private static float[] randomVector(final Random random) {
+    float[] vector = new float[DIMENSION];
+    for (int index = 0; index < DIMENSION; index++) {
+      vector[index] = (float) random.nextGaussian();
+    }
+    return vector;
+  }
+
+  private static Set<String> exactTop(final List<float[]> vectors, final float[] query, final int limit) {
+    return IntStream.range(0, vectors.size()).boxed()
+        .sorted(Comparator.comparingDouble((Integer slot) -> cosine(vectors.get(slot), query)).reversed())
+        .limit(limit)
+        .map(slot -> "doc-" + slot / 10 + "-" + slot % 10)
+        .collect(Collectors.toCollection(HashSet::new));
+  }
+
+  private static double cosine(final float[] left, final float[] right) {
+    double dot = 0D;
+    double leftNorm = 0D;
+    double rightNorm = 0D;
+    for (int index = 0; index < left.length; index++) {
+      dot += left[index] * right[index];
+      leftNorm += left[index] * left[index];
+      rightNorm += right[index] * right[index];
+    }
+    return dot / Math.sqrt(leftNorm * rightNorm);
+  }
+}
@@ -25,10 +25,13 @@ import org.simplepoint.plugin.ai.knowledge.api.repository.AiKnowledgeChunkReposi
 import org.simplepoint.plugin.ai.knowledge.api.repository.AiKnowledgeDocumentRepository;
 import org.simplepoint.plugin.ai.knowledge.api.repository.AiKnowledgeIndexJobRepository;
 import org.simplepoint.plugin.ai.knowledge.api.service.AiKnowledgeBaseService;
+import org.simplepoint.plugin.ai.knowledge.api.service.AiKnowledgeReranker;
 import org.simplepoint.plugin.ai.knowledge.api.vo.AiKnowledgeRetrievalRequest;
 import org.simplepoint.plugin.ai.knowledge.api.vo.AiKnowledgeRetrievalResult;
+import org.simplepoint.plugin.ai.knowledge.api.vo.AiKnowledgeSearchHit;
 import org.simplepoint.plugin.ai.knowledge.api.vo.AiKnowledgeSearchSpec;
 import org.simplepoint.plugin.storage.client.service.ObjectStorageRemoteService;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -60,6 +63,8 @@ public class AiKnowledgeBaseServiceImpl
 
   private final ObjectStorageRemoteService objectStorageRemoteService;
 
+  private final ObjectProvider<AiKnowledgeReranker> rerankerProvider;
+
   /**
    * Creates the knowledge base service.
    */
@@ -73,7 +78,8 @@ public class AiKnowledgeBaseServiceImpl
       final AiEmbeddingService embeddingService,
       final AiScopeAccessPolicy scopeAccessPolicy,
       final AiKnowledgeProperties properties,
-      final ObjectStorageRemoteService objectStorageRemoteService
+      final ObjectStorageRemoteService objectStorageRemoteService,
+      final ObjectProvider<AiKnowledgeReranker> rerankerProvider
   ) {
     super(repository, detailsProviderService);
     this.repository = repository;
@@ -85,6 +91,7 @@ public class AiKnowledgeBaseServiceImpl
     this.scopeAccessPolicy = scopeAccessPolicy;
     this.properties = properties;
     this.objectStorageRemoteService = objectStorageRemoteService;
+    this.rerankerProvider = rerankerProvider;
   }
 
   @Override
@@ -204,7 +211,7 @@ public class AiKnowledgeBaseServiceImpl
         ? knowledgeBase.getScoreThreshold() : request.getScoreThreshold();
     validateRange(topK, 1, 100, "Top K");
     validateUnitInterval(threshold, "最低相关度");
-    List<Double> queryEmbedding = null;
+    float[] queryEmbedding = null;
     if (mode != AiKnowledgeRetrievalMode.KEYWORD) {
       validateEmbeddingModel(knowledgeBase);
       AiEmbeddingResult embedding = embeddingService.embed(
@@ -215,18 +222,31 @@ public class AiKnowledgeBaseServiceImpl
       validateEmbeddingDimensions(knowledgeBase, embedding.dimensions());
       queryEmbedding = embedding.vectors().getFirst();
     }
+    AiKnowledgeReranker reranker = rerankerProvider.getIfAvailable();
+    int candidates = reranker == null ? topK : Math.max(topK, rerankCandidates());
     AiKnowledgeSearchSpec spec = new AiKnowledgeSearchSpec(
         knowledgeBase.getId(),
+        knowledgeBase.getTenantId(),
         query,
         mode,
         queryEmbedding,
         request.getDocumentIds(),
-        topK,
+        candidates,
         threshold,
         knowledgeBase.getVectorWeight(),
-        knowledgeBase.getKeywordWeight()
+        knowledgeBase.getKeywordWeight(),
+        knowledgeBase.getVectorEfSearch()
     );
-    return new AiKnowledgeRetrievalResult(query, mode, chunkRepository.search(spec));
+    List<AiKnowledgeSearchHit> hits = chunkRepository.search(spec);
+    if (reranker != null && hits.size() > 1) {
+      hits = reranker.rerank(knowledgeBase.getId(), query, hits).stream().limit(topK).toList();
+    }
+    return new AiKnowledgeRetrievalResult(query, mode, hits);
+  }
+
+  private int rerankCandidates() {
+    Integer configured = properties.getRerankCandidates();
+    return configured == null || configured <= 0 ? 50 : configured;
   }
 
   private void normalizeAndValidate(final AiKnowledgeBase entity, final String currentId) {
@@ -270,6 +290,9 @@ public class AiKnowledgeBaseServiceImpl
           "Embedding 维度"
       );
     }
+    if (entity.getVectorEfSearch() != null) {
+      validateRange(entity.getVectorEfSearch(), 1, 1000, "向量检索候选数");
+    }
     if (entity.getRetrievalMode() != AiKnowledgeRetrievalMode.KEYWORD) {
       validateEmbeddingModel(entity);
     }
@@ -6,14 +6,14 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
-/** Dedicated bounded executor for durable knowledge indexing. */
+/** Dedicated bounded executors for durable knowledge indexing and its embedding requests. */
 @Configuration
 public class AiKnowledgeIndexConfiguration {
 
   /** Creates the knowledge-index worker executor. */
   @Bean(name = "aiKnowledgeIndexExecutor", destroyMethod = "shutdown")
   public Executor aiKnowledgeIndexExecutor(final AiKnowledgeProperties properties) {
-    int concurrency = positive(properties.getIndexWorkerConcurrency(), 2);
+    int concurrency = positive(properties.getIndexWorkerConcurrency(), 4);
     ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
     executor.setThreadNamePrefix("ai-knowledge-index-");
     executor.setCorePoolSize(concurrency);
@@ -25,6 +25,24 @@ public class AiKnowledgeIndexConfiguration {
     return executor;
   }
 
+  /**
+   * Creates the executor running embedding requests of all index jobs. Per-model concurrency is
+   * limited by {@link KnowledgeEmbeddingScheduler}, so queued requests simply wait for a thread.
+   */
+  @Bean(name = "aiKnowledgeEmbeddingExecutor", destroyMethod = "shutdown")
+  public Executor aiKnowledgeEmbeddingExecutor(final AiKnowledgeProperties properties) {
+    int concurrency = positive(properties.getIndexEmbeddingConcurrency(), 8);
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setThreadNamePrefix("ai-knowledge-embedding-");
+    executor.setCorePoolSize(concurrency);
+    executor.setMaxPoolSize(concurrency);
+    executor.setQueueCapacity(Integer.MAX_VALUE);
+    executor.setWaitForTasksToCompleteOnShutdown(true);
+    executor.setAwaitTerminationSeconds(30);
+    executor.initialize();
+    return executor;
+  }
+
   private static int positive(final Integer value, final int fallback) {
     return value != null && value > 0 ? value : fallback;
   }
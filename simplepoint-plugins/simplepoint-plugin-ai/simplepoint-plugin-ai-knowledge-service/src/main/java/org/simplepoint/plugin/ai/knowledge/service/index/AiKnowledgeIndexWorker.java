@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import lombok.extern.slf4j.Slf4j;
 import org.simplepoint.plugin.ai.knowledge.api.properties.AiKnowledgeProperties;
 import org.simplepoint.plugin.ai.knowledge.api.repository.AiKnowledgeIndexJobRepository;
@@ -13,7 +14,13 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-/** Polls and executes durable knowledge-index jobs. */
+/**
+ * Polls and executes durable knowledge-index jobs.
+ *
+ * <p>Each poll claims only as many jobs as there are free worker slots, in statements of at most
+ * {@code index-claim-batch-size}, and keeps claiming while the queue returns full batches, so a
+ * deep backlog fills every slot at once and an empty queue costs a single small query.
+ */
 @Slf4j
 @Component
 public class AiKnowledgeIndexWorker {
@@ -30,6 +37,8 @@ public class AiKnowledgeIndexWorker {
 
   private final String workerId = UUID.randomUUID().toString();
 
+  private final AtomicInteger running = new AtomicInteger();
+
   /** Creates the durable index worker. */
   public AiKnowledgeIndexWorker(
       final AiKnowledgeIndexJobRepository jobRepository,
@@ -48,24 +57,40 @@ public class AiKnowledgeIndexWorker {
   /** Claims available work without blocking other service instances. */
   @Scheduled(fixedDelayString = "${simplepoint.ai.knowledge.index-poll-delay-ms:1000}")
   public void poll() {
-    List<AiKnowledgeIndexJob> jobs;
-    try {
-      jobs = jobRepository.claim(
-          workerId,
-          positive(properties.getIndexClaimBatchSize(), 2),
-          leaseDuration()
-      );
-    } catch (RuntimeException ex) {
-      log.warn("Unable to claim AI knowledge index jobs: {}", ex.getMessage());
-      return;
+    int concurrency = positive(properties.getIndexWorkerConcurrency(), 4);
+    int claimLimit = positive(properties.getIndexClaimBatchSize(), 2);
+    while (true) {
+      int free = concurrency - running.get();
+      if (free <= 0) {
+        return;
+      }
+      int requested = Math.min(free, claimLimit);
+      List<AiKnowledgeIndexJob> jobs;
+      try {
+        jobs = jobRepository.claim(workerId, requested, leaseDuration());
+      } catch (RuntimeException ex) {
+        log.warn("Unable to claim AI knowledge index jobs: {}", ex.getMessage());
+        return;
+      }
+      jobs.forEach(this::submit);
+      if (jobs.size() < requested) {
+        return;
+      }
     }
-    jobs.forEach(this::submit);
   }
 
   private void submit(final AiKnowledgeIndexJob job) {
+    running.incrementAndGet();
     try {
-      executor.execute(() -> execute(job));
+      executor.execute(() -> {
+        try {
+          execute(job);
+        } finally {
+          running.decrementAndGet();
+        }
+      });
     } catch (RejectedExecutionException ex) {
+      running.decrementAndGet();
       jobRepository.release(job);
     }
   }
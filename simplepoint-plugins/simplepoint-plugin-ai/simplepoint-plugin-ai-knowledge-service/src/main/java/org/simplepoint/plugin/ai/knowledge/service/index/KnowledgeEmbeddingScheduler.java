@@ -0,0 +1,381 @@
+package org.simplepoint.plugin.ai.knowledge.service.index;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.simplepoint.plugin.ai.core.api.exception.AiProviderRequestException;
+import org.simplepoint.plugin.ai.core.api.model.AiResourceScope;
+import org.simplepoint.plugin.ai.core.api.service.AiEmbeddingService;
+import org.simplepoint.plugin.ai.core.api.vo.AiEmbeddingResult;
+import org.simplepoint.plugin.ai.knowledge.api.properties.AiKnowledgeProperties;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the embedding batches of a document concurrently under per-model budgets.
+ *
+ * <p>Every embedding model has its own concurrency limit, request and token buckets refilled per
+ * minute, and an adaptive batch size. The index job that calls {@link #embed} takes a batch's
+ * budget before handing it to the shared embedding executor and waits for throttled budgets
+ * itself, so pooled threads only run provider requests and a throttled model cannot starve the
+ * others. A batch the provider rejects as too large or over a limit is retried once as two
+ * halves and the model's batch size shrinks with it, then grows back by a quarter after each
+ * successful request; any other failure fails the document. Every response must carry exactly
+ * one vector per input. Token counts are estimated from the text because the provider tokenizer
+ * is not available here.
+ */
+@Slf4j
+@Component
+public class KnowledgeEmbeddingScheduler {
+
+  private static final int MAX_BATCH_SIZE = 128;
+
+  /** Re-check interval while every concurrency permit of a model is held by other documents. */
+  private static final long CONCURRENCY_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(50L);
+
+  /** HTTP 400 messages that indicate an oversized request rather than an invalid one. */
+  private static final List<String> SIZE_HINTS = List.of(
+      "token", "length", "too large", "too long", "too many", "limit", "maximum", "batch"
+  );
+
+  private final AiEmbeddingService embeddingService;
+
+  private final AiKnowledgeProperties properties;
+
+  private final Executor executor;
+
+  private final Map<String, ModelBudget> budgets = new ConcurrentHashMap<>();
+
+  /** Creates the embedding scheduler. */
+  public KnowledgeEmbeddingScheduler(
+      final AiEmbeddingService embeddingService,
+      final AiKnowledgeProperties properties,
+      @Qualifier("aiKnowledgeEmbeddingExecutor") final Executor executor
+  ) {
+    this.embeddingService = embeddingService;
+    this.properties = properties;
+    this.executor = executor;
+  }
+
+  /**
+   * Embeds texts and returns one result per request, ordered like the input.
+   *
+   * @param scope      durable job scope
+   * @param tenantId   durable job tenant
+   * @param modelId    embedding model id, also the budget key
+   * @param dimensions requested dimensions, null for the model default
+   * @param texts      texts to embed
+   * @param heartbeat  called periodically while requests are running or throttled
+   * @return results covering {@code texts} in order
+   */
+  public List<AiEmbeddingResult> embed(
+      final AiResourceScope scope,
+      final String tenantId,
+      final String modelId,
+      final Integer dimensions,
+      final List<String> texts,
+      final Runnable heartbeat
+  ) {
+    if (texts.isEmpty()) {
+      return List.of();
+    }
+    ModelBudget budget = budgets.computeIfAbsent(modelId, ignored -> new ModelBudget(
+        initialBatchSize(),
+        positive(properties.getEmbeddingMaxConcurrentRequests(), 4),
+        nonNegative(properties.getEmbeddingRequestsPerMinute()),
+        nonNegative(properties.getEmbeddingTokensPerMinute())
+    ));
+    Request request = new Request(budget, scope, tenantId, modelId, dimensions);
+    Deque<Batch> pending = new ArrayDeque<>();
+    int offset = 0;
+    for (List<String> batch : partition(texts, budget.batchSize())) {
+      pending.add(new Batch(offset, batch, true));
+      offset += batch.size();
+    }
+    NavigableMap<Integer, AiEmbeddingResult> results = new TreeMap<>();
+    BlockingQueue<Outcome> outcomes = new LinkedBlockingQueue<>();
+    long heartbeatNanos = TimeUnit.SECONDS.toNanos(Math.max(1L, positive(properties.getIndexLeaseSeconds(), 300) / 10L));
+    long nextHeartbeat = System.nanoTime();
+    int running = 0;
+    try {
+      while (!pending.isEmpty() || running > 0) {
+        long now = System.nanoTime();
+        if (now - nextHeartbeat >= 0L) {
+          heartbeat.run();
+          nextHeartbeat = now + heartbeatNanos;
+        }
+        long waitNanos = nextHeartbeat - now;
+        while (!pending.isEmpty()) {
+          long shortfall = budget.tryAcquire(pending.peek().tokens());
+          if (shortfall > 0L) {
+            waitNanos = Math.min(waitNanos, shortfall);
+            break;
+          }
+          submit(request, pending.poll(), outcomes);
+          running++;
+        }
+        Outcome outcome = outcomes.poll(Math.max(0L, waitNanos), TimeUnit.NANOSECONDS);
+        while (outcome != null) {
+          running--;
+          complete(request, outcome, pending, results);
+          outcome = outcomes.poll();
+        }
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Embedding 请求被中断", ex);
+    }
+    return List.copyOf(results.values());
+  }
+
+  /**
+   * Runs one batch on the shared executor; the caller already holds its budget.
+   */
+  private void submit(final Request request, final Batch batch, final BlockingQueue<Outcome> outcomes) {
+    try {
+      executor.execute(() -> {
+        Outcome outcome;
+        try {
+          AiEmbeddingResult result = embeddingService.embedForScope(
+              request.scope(), request.tenantId(), request.modelId(), batch.texts(), request.dimensions()
+          );
+          if (result == null || result.vectors() == null || result.vectors().size() != batch.texts().size()) {
+            throw new IllegalStateException("Embedding 响应数量与文档分块数不一致");
+          }
+          outcome = new Outcome(batch, result, null);
+        } catch (RuntimeException ex) {
+          outcome = new Outcome(batch, null, ex);
+        } finally {
+          request.budget().release();
+        }
+        outcomes.add(outcome);
+      });
+    } catch (RejectedExecutionException ex) {
+      request.budget().release();
+      throw ex;
+    }
+  }
+
+  private void complete(
+      final Request request,
+      final Outcome outcome,
+      final Deque<Batch> pending,
+      final Map<Integer, AiEmbeddingResult> results
+  ) {
+    Batch batch = outcome.batch();
+    RuntimeException failure = outcome.failure();
+    if (failure == null) {
+      results.put(batch.offset(), outcome.result());
+      request.budget().grow(initialBatchSize());
+      return;
+    }
+    if (!batch.splittable() || batch.texts().size() <= 1 || !isSizeOrLimitFailure(failure)) {
+      throw failure;
+    }
+    int half = batch.texts().size() / 2;
+    request.budget().shrink(half);
+    log.debug("Embedding batch of {} rejected for model {}, retrying in halves: {}",
+        batch.texts().size(), request.modelId(), failure.getMessage());
+    pending.addFirst(new Batch(batch.offset() + half, batch.texts().subList(half, batch.texts().size()), false));
+    pending.addFirst(new Batch(batch.offset(), batch.texts().subList(0, half), false));
+  }
+
+  /**
+   * Returns whether a smaller request could succeed: payload too large, rate or token limits, or
+   * a bad request whose message points at the input size.
+   */
+  static boolean isSizeOrLimitFailure(final RuntimeException failure) {
+    if (!(failure instanceof AiProviderRequestException provider)) {
+      return false;
+    }
+    int status = provider.getProviderStatus();
+    if (status == 413 || status == 429) {
+      return true;
+    }
+    String message = provider.getMessage() == null ? "" : provider.getMessage().toLowerCase(Locale.ROOT);
+    return status == 400 && SIZE_HINTS.stream().anyMatch(message::contains);
+  }
+
+  private List<List<String>> partition(final List<String> texts, final int batchSize) {
+    int maxTokens = positive(properties.getEmbeddingMaxTokensPerRequest(), 100_000);
+    List<List<String>> batches = new ArrayList<>();
+    int start = 0;
+    int tokens = 0;
+    for (int index = 0; index < texts.size(); index++) {
+      int estimated = estimateTokens(texts.get(index));
+      if (index > start && (index - start >= batchSize || tokens + estimated > maxTokens)) {
+        batches.add(texts.subList(start, index));
+        start = index;
+        tokens = 0;
+      }
+      tokens += estimated;
+    }
+    batches.add(texts.subList(start, texts.size()));
+    return batches;
+  }
+
+  private int initialBatchSize() {
+    return Math.max(1, Math.min(MAX_BATCH_SIZE, positive(properties.getEmbeddingBatchSize(), 64)));
+  }
+
+  /**
+   * Estimates input tokens: one per CJK character and one per four other characters.
+   */
+  static int estimateTokens(final String text) {
+    int ideographs = 0;
+    int others = 0;
+    for (int offset = 0; offset < text.length(); ) {
+      int codePoint = text.codePointAt(offset);
+      offset += Character.charCount(codePoint);
+      if (Character.isIdeographic(codePoint)) {
+        ideographs++;
+      } else {
+        others++;
+      }
+    }
+    return Math.max(1, ideographs + (others + 3) / 4);
+  }
+
+  private static int positive(final Integer value, final int fallback) {
+    return value != null && value > 0 ? value : fallback;
+  }
+
+  private static int nonNegative(final Integer value) {
+    return value == null ? 0 : Math.max(0, value);
+  }
+
+  /** Concurrency, rate and batch-size state of one embedding model. */
+  private static final class ModelBudget {
+
+    private final AtomicInteger batchSize;
+
+    private final Semaphore concurrency;
+
+    private final MinuteBucket requests;
+
+    private final MinuteBucket tokens;
+
+    private ModelBudget(
+        final int batchSize,
+        final int maxConcurrentRequests,
+        final int requestsPerMinute,
+        final int tokensPerMinute
+    ) {
+      this.batchSize = new AtomicInteger(batchSize);
+      this.concurrency = new Semaphore(maxConcurrentRequests, true);
+      this.requests = new MinuteBucket(requestsPerMinute);
+      this.tokens = new MinuteBucket(tokensPerMinute);
+    }
+
+    private int batchSize() {
+      return batchSize.get();
+    }
+
+    private void shrink(final int size) {
+      batchSize.accumulateAndGet(Math.max(1, size), Math::min);
+    }
+
+    private void grow(final int ceiling) {
+      batchSize.updateAndGet(current -> Math.min(ceiling, current + Math.max(1, current / 4)));
+    }
+
+    /**
+     * Takes the budget of one request without blocking.
+     *
+     * @return zero when taken, otherwise the nanoseconds to wait before trying again
+     */
+    private synchronized long tryAcquire(final int estimatedTokens) {
+      long now = System.nanoTime();
+      long shortfall = Math.max(requests.shortfallNanos(1, now), tokens.shortfallNanos(estimatedTokens, now));
+      if (shortfall > 0L) {
+        return shortfall;
+      }
+      if (!concurrency.tryAcquire()) {
+        return CONCURRENCY_RETRY_NANOS;
+      }
+      requests.take(1);
+      tokens.take(estimatedTokens);
+      return 0L;
+    }
+
+    private void release() {
+      concurrency.release();
+    }
+  }
+
+  /**
+   * Token bucket refilled continuously to {@code capacity} per minute; zero disables it. Guarded
+   * by the owning budget.
+   */
+  private static final class MinuteBucket {
+
+    private static final long MINUTE_NANOS = Duration.ofMinutes(1).toNanos();
+
+    private final long capacity;
+
+    private double available;
+
+    private long refilledAt = System.nanoTime();
+
+    private MinuteBucket(final long capacity) {
+      this.capacity = capacity;
+      this.available = capacity;
+    }
+
+    private long shortfallNanos(final long amount, final long now) {
+      if (capacity <= 0) {
+        return 0L;
+      }
+      available = Math.min(capacity, available + (double) (now - refilledAt) * capacity / MINUTE_NANOS);
+      refilledAt = now;
+      long wanted = Math.min(amount, capacity);
+      if (available >= wanted) {
+        return 0L;
+      }
+      return Math.max(1_000_000L, (long) ((wanted - available) * MINUTE_NANOS / capacity));
+    }
+
+    private void take(final long amount) {
+      if (capacity > 0) {
+        available -= Math.min(amount, capacity);
+      }
+    }
+  }
+
+  /** Fixed arguments of one {@link #embed} call. */
+  private record Request(
+      ModelBudget budget,
+      AiResourceScope scope,
+      String tenantId,
+      String modelId,
+      Integer dimensions
+  ) {
+  }
+
+  /** Texts of one provider request and their offset in the document. */
+  private record Batch(int offset, List<String> texts, boolean splittable) {
+
+    private int tokens() {
+      return texts.stream().mapToInt(KnowledgeEmbeddingScheduler::estimateTokens).sum();
+    }
+  }
+
+  /** Result or failure of one batch. */
+  private record Outcome(Batch batch, AiEmbeddingResult result, RuntimeException failure) {
+  }
+}
@@ -1,10 +1,16 @@
 package org.simplepoint.plugin.ai.knowledge.service.index;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
-import org.simplepoint.plugin.ai.core.api.service.AiEmbeddingService;
 import org.simplepoint.plugin.ai.core.api.vo.AiEmbeddingResult;
 import org.simplepoint.plugin.ai.knowledge.api.entity.AiKnowledgeBase;
 import org.simplepoint.plugin.ai.knowledge.api.entity.AiKnowledgeDocument;
@@ -12,17 +18,26 @@ import org.simplepoint.plugin.ai.knowledge.api.model.AiKnowledgeDocumentSourceTy
 import org.simplepoint.plugin.ai.knowledge.api.model.AiKnowledgeRetrievalMode;
 import org.simplepoint.plugin.ai.knowledge.api.properties.AiKnowledgeProperties;
 import org.simplepoint.plugin.ai.knowledge.api.repository.AiKnowledgeBaseRepository;
+import org.simplepoint.plugin.ai.knowledge.api.repository.AiKnowledgeChunkRepository;
 import org.simplepoint.plugin.ai.knowledge.api.repository.AiKnowledgeDocumentRepository;
 import org.simplepoint.plugin.ai.knowledge.api.vo.AiKnowledgeChunkRecord;
 import org.simplepoint.plugin.ai.knowledge.api.vo.AiKnowledgeIndexJob;
 import org.simplepoint.plugin.ai.knowledge.service.support.KnowledgeDocumentExtractor;
 import org.simplepoint.plugin.ai.knowledge.service.support.KnowledgeDocumentExtractor.ExtractedDocument;
+import org.simplepoint.plugin.ai.knowledge.service.support.KnowledgeDocumentExtractor.UploadDescriptor;
 import org.simplepoint.plugin.ai.knowledge.service.support.KnowledgeTextChunker;
 import org.simplepoint.plugin.storage.api.model.ObjectStorageSourceContent;
 import org.simplepoint.plugin.storage.api.service.ObjectStorageSourceService;
 import org.springframework.stereotype.Component;
 
-/** Performs CPU and provider work outside the queue-finalization transaction. */
+/**
+ * Performs CPU and provider work outside the queue-finalization transaction.
+ *
+ * <p>Chunks whose content hash already has a stored embedding in the knowledge base reuse it, so a
+ * reindex after a small edit only sends new or changed chunks to the embedding provider. Uploaded
+ * sources are parsed straight into a streaming chunker, which keeps only the normalized text that
+ * is persisted on the document instead of several intermediate copies.
+ */
 @Component
 public class KnowledgeIndexProcessor {
 
@@ -30,7 +45,9 @@ public class KnowledgeIndexProcessor {
 
   private final AiKnowledgeDocumentRepository documentRepository;
 
-  private final AiEmbeddingService embeddingService;
+  private final AiKnowledgeChunkRepository chunkRepository;
+
+  private final KnowledgeEmbeddingScheduler embeddingScheduler;
 
   private final ObjectStorageSourceService objectStorageSourceService;
 
@@ -44,7 +61,8 @@ public class KnowledgeIndexProcessor {
   public KnowledgeIndexProcessor(
       final AiKnowledgeBaseRepository knowledgeBaseRepository,
       final AiKnowledgeDocumentRepository documentRepository,
-      final AiEmbeddingService embeddingService,
+      final AiKnowledgeChunkRepository chunkRepository,
+      final KnowledgeEmbeddingScheduler embeddingScheduler,
       final ObjectStorageSourceService objectStorageSourceService,
       final KnowledgeDocumentExtractor extractor,
       final KnowledgeTextChunker chunker,
@@ -52,7 +70,8 @@ public class KnowledgeIndexProcessor {
   ) {
     this.knowledgeBaseRepository = knowledgeBaseRepository;
     this.documentRepository = documentRepository;
-    this.embeddingService = embeddingService;
+    this.chunkRepository = chunkRepository;
+    this.embeddingScheduler = embeddingScheduler;
     this.objectStorageSourceService = objectStorageSourceService;
     this.extractor = extractor;
     this.chunker = chunker;
@@ -71,28 +90,35 @@ public class KnowledgeIndexProcessor {
     AiKnowledgeDocument document = documentRepository.findActiveById(job.documentId())
         .orElseThrow(() -> new IllegalStateException("知识库文档已被删除"));
     validateTarget(job, knowledgeBase, document);
-    ExtractedDocument extraction = extractIfNeeded(document, heartbeat);
-    String extractedText = extraction == null
-        ? document.getExtractedText() : extraction.content();
-    if (extractedText == null || extractedText.isBlank()) {
-      throw new IllegalArgumentException("文档中没有可建立索引的文本");
+    int maxChunks = positive(properties.getMaxChunksPerDocument(), 5000);
+    ExtractedDocument extraction = null;
+    List<String> texts;
+    if (document.getExtractedText() != null && !document.getExtractedText().isBlank()) {
+      texts = chunker.split(
+          document.getExtractedText(),
+          knowledgeBase.getChunkSize(),
+          knowledgeBase.getChunkOverlap()
+      );
+    } else {
+      KnowledgeTextChunker.ChunkWriter writer = chunker.open(
+          knowledgeBase.getChunkSize(),
+          knowledgeBase.getChunkOverlap(),
+          maxChunks
+      );
+      extraction = extract(document, writer, heartbeat);
+      texts = writer.chunks();
     }
-    List<String> texts = chunker.split(
-        extractedText,
-        knowledgeBase.getChunkSize(),
-        knowledgeBase.getChunkOverlap()
-    );
     if (texts.isEmpty()) {
       throw new IllegalArgumentException("文档中没有可建立索引的文本");
     }
-    int maxChunks = positive(properties.getMaxChunksPerDocument(), 5000);
     if (texts.size() > maxChunks) {
       throw new IllegalArgumentException("文档分块数超过允许的最大值 " + maxChunks);
     }
-    EmbeddingBatch embeddings = createEmbeddings(knowledgeBase, job, texts, heartbeat);
+    List<String> contentHashes = texts.stream().map(KnowledgeIndexProcessor::contentHash).toList();
+    EmbeddingBatch embeddings = createEmbeddings(knowledgeBase, job, texts, contentHashes, heartbeat);
     List<AiKnowledgeChunkRecord> chunks = new ArrayList<>(texts.size());
     for (int index = 0; index < texts.size(); index++) {
-      List<Double> embedding = embeddings.vectors() == null
+      float[] embedding = embeddings.vectors() == null
           ? null : embeddings.vectors().get(index);
       String text = texts.get(index);
       chunks.add(new AiKnowledgeChunkRecord(
@@ -103,10 +129,11 @@ public class KnowledgeIndexProcessor {
           knowledgeBase.getTenantId(),
           index,
           text,
+          contentHashes.get(index),
           document.getMetadataJson(),
           text.length(),
           embedding,
-          embedding == null ? null : embedding.size()
+          embedding == null ? null : embedding.length
       ));
     }
     heartbeat.run();
@@ -119,13 +146,11 @@ public class KnowledgeIndexProcessor {
     );
   }
 
-  private ExtractedDocument extractIfNeeded(
+  private ExtractedDocument extract(
       final AiKnowledgeDocument document,
+      final KnowledgeTextChunker.ChunkWriter writer,
       final Runnable heartbeat
   ) {
-    if (document.getExtractedText() != null && !document.getExtractedText().isBlank()) {
-      return null;
-    }
     if (document.getSourceType() != AiKnowledgeDocumentSourceType.UPLOAD) {
       throw new IllegalArgumentException("文档中没有可建立索引的文本");
     }
@@ -139,37 +164,67 @@ public class KnowledgeIndexProcessor {
         maxUploadBytes()
     );
     heartbeat.run();
-    ExtractedDocument extraction = extractor.extract(
+    UploadDescriptor descriptor = extractor.extract(
         source.fileName() == null ? document.getFileName() : source.fileName(),
         source.contentType(),
-        source.content()
+        source.content(),
+        writer
     );
+    writer.close();
     heartbeat.run();
-    return extraction;
+    return new ExtractedDocument(
+        descriptor.fileName(),
+        descriptor.mimeType(),
+        descriptor.fileSize(),
+        writer.text()
+    );
   }
 
   private EmbeddingBatch createEmbeddings(
       final AiKnowledgeBase knowledgeBase,
       final AiKnowledgeIndexJob job,
       final List<String> texts,
+      final List<String> contentHashes,
       final Runnable heartbeat
   ) {
     if (knowledgeBase.getRetrievalMode() == AiKnowledgeRetrievalMode.KEYWORD) {
       return new EmbeddingBatch(null, null);
     }
-    List<List<Double>> embeddings = new ArrayList<>(texts.size());
+    Map<String, float[]> cached = chunkRepository.findEmbeddingsByContentHash(
+        knowledgeBase.getId(), contentHashes
+    );
+    List<float[]> embeddings = new ArrayList<>(Collections.nCopies(texts.size(), null));
+    Map<String, List<Integer>> pending = new LinkedHashMap<>();
+    List<String> pendingTexts = new ArrayList<>();
     Integer actualDimensions = null;
-    int batchSize = Math.max(1, Math.min(128, properties.getEmbeddingBatchSize()));
-    for (int start = 0; start < texts.size(); start += batchSize) {
-      heartbeat.run();
-      int end = Math.min(start + batchSize, texts.size());
-      AiEmbeddingResult result = embeddingService.embedForScope(
-          job.scopeType(),
-          job.tenantId(),
-          knowledgeBase.getEmbeddingModelId(),
-          texts.subList(start, end),
-          knowledgeBase.getEmbeddingDimensions()
-      );
+    for (int index = 0; index < texts.size(); index++) {
+      float[] reused = cached.get(contentHashes.get(index));
+      if (reused != null && (knowledgeBase.getEmbeddingDimensions() == null
+          || knowledgeBase.getEmbeddingDimensions() == reused.length)) {
+        if (actualDimensions != null && actualDimensions != reused.length) {
+          throw new IllegalStateException("同一文档的 Embedding 向量维度不一致");
+        }
+        embeddings.set(index, reused);
+        actualDimensions = reused.length;
+        continue;
+      }
+      List<Integer> positions = pending.computeIfAbsent(contentHashes.get(index), ignored -> new ArrayList<>());
+      if (positions.isEmpty()) {
+        pendingTexts.add(texts.get(index));
+      }
+      positions.add(index);
+    }
+    List<List<Integer>> pendingPositions = List.copyOf(pending.values());
+    List<AiEmbeddingResult> results = embeddingScheduler.embed(
+        job.scopeType(),
+        job.tenantId(),
+        knowledgeBase.getEmbeddingModelId(),
+        knowledgeBase.getEmbeddingDimensions(),
+        pendingTexts,
+        heartbeat
+    );
+    int position = 0;
+    for (AiEmbeddingResult result : results) {
       if (result.dimensions() > properties.getStoredVectorDimensions()) {
         throw new IllegalArgumentException(
             "模型返回 " + result.dimensions() + " 维向量，超过 pgvector 索引上限 "
@@ -184,14 +239,28 @@ public class KnowledgeIndexProcessor {
         throw new IllegalStateException("同一文档的 Embedding 向量维度不一致");
       }
       actualDimensions = result.dimensions();
-      embeddings.addAll(result.vectors());
+      for (float[] vector : result.vectors()) {
+        if (position >= pendingPositions.size()) {
+          throw new IllegalStateException("Embedding 响应数量与文档分块数不一致");
+        }
+        pendingPositions.get(position++).forEach(index -> embeddings.set(index, vector));
+      }
     }
-    if (embeddings.size() != texts.size()) {
+    if (position != pendingPositions.size()) {
       throw new IllegalStateException("Embedding 响应数量与文档分块数不一致");
     }
     return new EmbeddingBatch(List.copyOf(embeddings), actualDimensions);
   }
 
+  private static String contentHash(final String text) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException("当前 JVM 不支持 SHA-256", ex);
+    }
+  }
+
   private static void validateTarget(
       final AiKnowledgeIndexJob job,
       final AiKnowledgeBase knowledgeBase,
@@ -226,6 +295,6 @@ public class KnowledgeIndexProcessor {
     return value != null && value > 0 ? value : fallback;
   }
 
-  private record EmbeddingBatch(List<List<Double>> vectors, Integer dimensions) {
+  private record EmbeddingBatch(List<float[]> vectors, Integer dimensions) {
   }
 }
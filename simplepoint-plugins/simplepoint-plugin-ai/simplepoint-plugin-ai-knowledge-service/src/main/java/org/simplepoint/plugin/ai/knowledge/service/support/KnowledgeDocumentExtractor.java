@@ -2,6 +2,7 @@ package org.simplepoint.plugin.ai.knowledge.service.support;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.io.Writer;
 import java.util.Locale;
 import java.util.Set;
 import org.apache.tika.exception.WriteLimitReachedException;
@@ -10,9 +11,11 @@ import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.parser.AutoDetectParser;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.sax.WriteOutContentHandler;
 import org.simplepoint.plugin.ai.knowledge.api.properties.AiKnowledgeProperties;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.ContentHandler;
 
 /**
  * Extracts text from common office, PDF, web and plain-text document formats.
@@ -101,38 +104,89 @@ public class KnowledgeDocumentExtractor {
     }
   }
 
+  /**
+   * Parses content downloaded by a background worker and streams its text into {@code sink}
+   * as SAX character events arrive, without materializing the extracted text here.
+   *
+   * @return upload metadata with the detected MIME type
+   */
+  public UploadDescriptor extract(
+      final String fileName,
+      final String contentType,
+      final byte[] content,
+      final Writer sink
+  ) {
+    if (content == null || content.length == 0) {
+      throw new IllegalArgumentException("上传文档不能为空");
+    }
+    UploadDescriptor descriptor = validate(fileName, contentType, content.length);
+    ContentHandler handler = new BodyContentHandler(
+        new WriteOutContentHandler(sink, properties.getMaxExtractedCharacters())
+    );
+    try (InputStream input = new ByteArrayInputStream(content)) {
+      String mimeType = parse(descriptor, input, handler);
+      return new UploadDescriptor(descriptor.fileName(), mimeType, descriptor.fileSize());
+    } catch (IllegalArgumentException ex) {
+      throw ex;
+    } catch (Exception ex) {
+      throw new IllegalArgumentException("文档解析失败: " + ex.getMessage(), ex);
+    }
+  }
+
   private ExtractedDocument extract(
       final UploadDescriptor descriptor,
       final InputStream input
+  ) {
+    BodyContentHandler handler = new BodyContentHandler(properties.getMaxExtractedCharacters());
+    String mimeType = parse(descriptor, input, handler);
+    String content = handler.toString().trim();
+    if (content.isBlank()) {
+      throw new IllegalArgumentException("文档中未提取到可索引文本");
+    }
+    return new ExtractedDocument(
+        descriptor.fileName(),
+        mimeType,
+        descriptor.fileSize(),
+        content
+    );
+  }
+
+  private static String parse(
+      final UploadDescriptor descriptor,
+      final InputStream input,
+      final ContentHandler handler
   ) {
     Metadata metadata = new Metadata();
     metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, descriptor.fileName());
     if (descriptor.mimeType() != null) {
       metadata.set("Content-Type", descriptor.mimeType());
     }
-    BodyContentHandler handler = new BodyContentHandler(properties.getMaxExtractedCharacters());
     try {
       new AutoDetectParser().parse(input, handler, metadata, new ParseContext());
-      String content = handler.toString().trim();
-      if (content.isBlank()) {
-        throw new IllegalArgumentException("文档中未提取到可索引文本");
-      }
       String mimeType = metadata.get("Content-Type");
-      return new ExtractedDocument(
-          descriptor.fileName(),
-          mimeType == null ? descriptor.mimeType() : mimeType,
-          descriptor.fileSize(),
-          content
-      );
-    } catch (WriteLimitReachedException ex) {
-      throw new IllegalArgumentException("文档文本超过允许的最大字符数", ex);
-    } catch (IllegalArgumentException ex) {
-      throw ex;
+      return mimeType == null ? descriptor.mimeType() : mimeType;
     } catch (Exception ex) {
+      if (WriteLimitReachedException.isWriteLimitReached(ex)) {
+        throw new IllegalArgumentException("文档文本超过允许的最大字符数", ex);
+      }
+      IllegalArgumentException rejected = rejection(ex);
+      if (rejected != null) {
+        throw rejected;
+      }
       throw new IllegalArgumentException("文档解析失败: " + ex.getMessage(), ex);
     }
   }
 
+  /** Finds a rejection raised by the sink, which parsers may wrap in their own exceptions. */
+  private static IllegalArgumentException rejection(final Throwable failure) {
+    for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+      if (cause instanceof IllegalArgumentException rejected) {
+        return rejected;
+      }
+    }
+    return null;
+  }
+
   private static String normalizeFileName(final String value) {
     if (value == null || value.isBlank()) {
       return "document.txt";
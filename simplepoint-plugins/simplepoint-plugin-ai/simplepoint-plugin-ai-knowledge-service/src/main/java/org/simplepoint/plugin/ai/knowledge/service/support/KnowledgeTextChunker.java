@@ -1,11 +1,16 @@
 package org.simplepoint.plugin.ai.knowledge.service.support;
 
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
 import org.springframework.stereotype.Component;
 
 /**
  * Paragraph-aware character chunker with deterministic overlap.
+ *
+ * <p>Text is normalized and split in one streaming pass: only the current window of roughly one
+ * chunk is buffered, so extracted documents can be written straight into a {@link ChunkWriter}
+ * instead of being materialized and rewritten by whole-string regular expressions.
  */
 @Component
 public class KnowledgeTextChunker {
@@ -17,41 +22,35 @@ public class KnowledgeTextChunker {
     if (text == null || text.isBlank()) {
       return List.of();
     }
+    ChunkWriter writer = new ChunkWriter(chunkSize, overlap, Integer.MAX_VALUE, false);
+    writer.write(text);
+    writer.close();
+    return writer.chunks();
+  }
+
+  /**
+   * Opens a streaming chunker that also keeps the normalized text for persistence.
+   *
+   * @param chunkSize maximum characters per chunk
+   * @param overlap   characters repeated at the start of the next chunk
+   * @param maxChunks chunk count at which writing fails early
+   * @return writer receiving raw extracted text
+   */
+  public ChunkWriter open(final int chunkSize, final int overlap, final int maxChunks) {
+    return new ChunkWriter(chunkSize, overlap, maxChunks, true);
+  }
+
+  private static void validate(final int chunkSize, final int overlap) {
     if (chunkSize < 100) {
       throw new IllegalArgumentException("分块大小不能小于 100");
     }
     if (overlap < 0 || overlap >= chunkSize) {
       throw new IllegalArgumentException("分块重叠必须大于等于 0 且小于分块大小");
     }
-    String normalized = normalize(text);
-    List<String> chunks = new ArrayList<>();
-    int start = 0;
-    while (start < normalized.length()) {
-      int hardEnd = Math.min(start + chunkSize, normalized.length());
-      int end = hardEnd == normalized.length()
-          ? hardEnd
-          : findBoundary(normalized, start, hardEnd, chunkSize);
-      if (end <= start) {
-        end = hardEnd;
-      }
-      String chunk = normalized.substring(start, end).trim();
-      if (!chunk.isEmpty()) {
-        chunks.add(chunk);
-      }
-      if (end >= normalized.length()) {
-        break;
-      }
-      int next = Math.max(start + 1, end - overlap);
-      while (next < end && Character.isWhitespace(normalized.charAt(next))) {
-        next++;
-      }
-      start = next;
-    }
-    return chunks;
   }
 
   private static int findBoundary(
-      final String text,
+      final StringBuilder text,
       final int start,
       final int hardEnd,
       final int chunkSize
@@ -68,17 +67,192 @@ public class KnowledgeTextChunker {
         return index + 1;
       }
     }
-    int whitespace = text.lastIndexOf(' ', hardEnd);
+    int whitespace = text.lastIndexOf(" ", hardEnd);
     return whitespace >= minimum ? whitespace + 1 : hardEnd;
   }
 
-  private static String normalize(final String text) {
-    return text.replace("\r\n", "\n")
-        .replace('\r', '\n')
-        .replace('\u0000', ' ')
-        .replaceAll("[\\t\\x0B\\f ]+", " ")
-        .replaceAll(" *\\n *", "\n")
-        .replaceAll("\\n{3,}", "\n\n")
-        .trim();
+  /**
+   * Streaming normalizer and chunker.
+   *
+   * <p>Line breaks are unified, runs of blanks collapse to one space, blanks around line breaks
+   * are dropped, at most one empty line is kept and the text is trimmed. Whitespace is held back
+   * until the next visible character, so trailing whitespace never reaches a chunk. A chunk is cut
+   * once the window holds more than two characters past the chunk size, beyond everything the
+   * boundary search looks at, so the result equals splitting the fully normalized text.
+   */
+  public static final class ChunkWriter extends Writer {
+
+    private final int chunkSize;
+
+    private final int overlap;
+
+    private final int maxChunks;
+
+    private final StringBuilder window = new StringBuilder();
+
+    private final StringBuilder text;
+
+    private final StringBuilder pendingControls = new StringBuilder();
+
+    private final List<String> chunks = new ArrayList<>();
+
+    private boolean pendingSpace;
+
+    private int pendingNewlines;
+
+    private boolean afterCarriageReturn;
+
+    private boolean started;
+
+    private boolean closed;
+
+    private ChunkWriter(
+        final int chunkSize,
+        final int overlap,
+        final int maxChunks,
+        final boolean keepText
+    ) {
+      validate(chunkSize, overlap);
+      this.chunkSize = chunkSize;
+      this.overlap = overlap;
+      this.maxChunks = maxChunks;
+      this.text = keepText ? new StringBuilder() : null;
+    }
+
+    @Override
+    public void write(final char[] buffer, final int offset, final int length) {
+      ensureOpen();
+      for (int index = offset; index < offset + length; index++) {
+        accept(buffer[index]);
+        if (window.length() > chunkSize + 2) {
+          drain(false);
+        }
+      }
+    }
+
+    @Override
+    public void write(final String value) {
+      write(value, 0, value.length());
+    }
+
+    @Override
+    public void write(final String value, final int offset, final int length) {
+      ensureOpen();
+      for (int index = offset; index < offset + length; index++) {
+        accept(value.charAt(index));
+        if (window.length() > chunkSize + 2) {
+          drain(false);
+        }
+      }
+    }
+
+    @Override
+    public void flush() {
+      // Chunks are cut as soon as enough lookahead is buffered.
+    }
+
+    /** Finishes the text; trailing whitespace is dropped and the last window becomes chunks. */
+    @Override
+    public void close() {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      drain(true);
+    }
+
+    /** Returns the chunks cut so far; complete after {@link #close()}. */
+    public List<String> chunks() {
+      return List.copyOf(chunks);
+    }
+
+    /** Returns the normalized text written so far, or null when it is not kept. */
+    public String text() {
+      return text == null ? null : text.toString();
+    }
+
+    private void ensureOpen() {
+      if (closed) {
+        throw new IllegalStateException("分块写入已结束");
+      }
+    }
+
+    private void accept(final char value) {
+      if (value == '\n' && afterCarriageReturn) {
+        afterCarriageReturn = false;
+        return;
+      }
+      afterCarriageReturn = value == '\r';
+      if (value == '\r' || value == '\n') {
+        pendingNewlines++;
+        pendingSpace = false;
+      } else if (value == ' ' || value == '\t' || value == '\u000B' || value == '\f' || value == '\u0000') {
+        pendingSpace = pendingNewlines == 0;
+      } else {
+        holdPendingWhitespace();
+        if (value <= ' ') {
+          pendingControls.append(value);
+        } else {
+          if (started) {
+            emit(pendingControls);
+          }
+          pendingControls.setLength(0);
+          started = true;
+          emit(value);
+        }
+      }
+    }
+
+    private void holdPendingWhitespace() {
+      if (pendingNewlines > 0) {
+        pendingControls.append(pendingNewlines > 1 ? "\n\n" : "\n");
+      } else if (pendingSpace) {
+        pendingControls.append(' ');
+      }
+      pendingNewlines = 0;
+      pendingSpace = false;
+    }
+
+    private void emit(final CharSequence value) {
+      window.append(value);
+      if (text != null) {
+        text.append(value);
+      }
+    }
+
+    private void emit(final char value) {
+      window.append(value);
+      if (text != null) {
+        text.append(value);
+      }
+    }
+
+    private void drain(final boolean finished) {
+      while (!window.isEmpty() && (finished || window.length() > chunkSize + 2)) {
+        int hardEnd = Math.min(chunkSize, window.length());
+        int end = hardEnd == window.length()
+            ? hardEnd
+            : findBoundary(window, 0, hardEnd, chunkSize);
+        if (end <= 0) {
+          end = hardEnd;
+        }
+        String chunk = window.substring(0, end).trim();
+        if (!chunk.isEmpty()) {
+          if (chunks.size() >= maxChunks) {
+            throw new IllegalArgumentException("文档分块数超过允许的最大值 " + maxChunks);
+          }
+          chunks.add(chunk);
+        }
+        if (finished && end >= window.length()) {
+          window.setLength(0);
+          return;
+        }
+        int next = Math.max(1, end - overlap);
+        while (next < end && Character.isWhitespace(window.charAt(next))) {
+          next++;
+        }
+        window.delete(0, next);
+      }
+    }
   }
 }
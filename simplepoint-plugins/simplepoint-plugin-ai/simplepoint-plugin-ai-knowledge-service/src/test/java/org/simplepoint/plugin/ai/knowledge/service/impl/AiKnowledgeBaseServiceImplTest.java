@@ -0,0 +1,187 @@
+package org.simplepoint.plugin.ai.knowledge.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.simplepoint.api.security.service.DetailsProviderService;
+import org.simplepoint.plugin.ai.core.api.entity.AiModelDefinition;
+import org.simplepoint.plugin.ai.core.api.model.AiModelType;
+import org.simplepoint.plugin.ai.core.api.model.AiResourceScope;
+import org.simplepoint.plugin.ai.core.api.repository.AiModelDefinitionRepository;
+import org.simplepoint.plugin.ai.core.api.service.AiEmbeddingService;
+import org.simplepoint.plugin.ai.core.api.vo.AiEmbeddingResult;
+import org.simplepoint.plugin.ai.core.service.support.AiScopeAccessPolicy;
+import org.simplepoint.plugin.ai.knowledge.api.entity.AiKnowledgeBase;
+import org.simplepoint.plugin.ai.knowledge.api.model.AiKnowledgeRetrievalMode;
+import org.simplepoint.plugin.ai.knowledge.api.properties.AiKnowledgeProperties;
+import org.simplepoint.plugin.ai.knowledge.api.repository.AiKnowledgeBaseRepository;
+import org.simplepoint.plugin.ai.knowledge.api.repository.AiKnowledgeChunkRepository;
+import org.simplepoint.plugin.ai.knowledge.api.repository.AiKnowledgeDocumentRepository;
+import org.simplepoint.plugin.ai.knowledge.api.repository.AiKnowledgeIndexJobRepository;
+import org.simplepoint.plugin.ai.knowledge.api.service.AiKnowledgeReranker;
+import org.simplepoint.plugin.ai.knowledge.api.vo.AiKnowledgeRetrievalRequest;
+import org.simplepoint.plugin.ai.knowledge.api.vo.AiKnowledgeRetrievalResult;
+import org.simplepoint.plugin.ai.knowledge.api.vo.AiKnowledgeSearchHit;
+import org.simplepoint.plugin.ai.knowledge.api.vo.AiKnowledgeSearchSpec;
+import org.simplepoint.plugin.storage.client.service.ObjectStorageRemoteService;
+import org.springframework.beans.factory.ObjectProvider;
+
+class AiKnowledgeBaseServiceImplTest {
+
+  private AiKnowledgeBaseRepository repository;
+
+  private AiKnowledgeChunkRepository chunkRepository;
+
+  private AiModelDefinitionRepository modelRepository;
+
+  private AiEmbeddingService embeddingService;
+
+  private AiScopeAccessPolicy scopeAccessPolicy;
+
+  private AiKnowledgeProperties properties;
+
+  private ObjectProvider<AiKnowledgeReranker> rerankerProvider;
+
+  private AiKnowledgeBaseServiceImpl service;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    repository = mock(AiKnowledgeBaseRepository.class);
+    chunkRepository = mock(AiKnowledgeChunkRepository.class);
+    modelRepository = mock(AiModelDefinitionRepository.class);
+    embeddingService = mock(AiEmbeddingService.class);
+    scopeAccessPolicy = mock(AiScopeAccessPolicy.class);
+    properties = new AiKnowledgeProperties();
+    rerankerProvider = mock(ObjectProvider.class);
+    service = new AiKnowledgeBaseServiceImpl(
+        repository,
+        mock(DetailsProviderService.class),
+        mock(AiKnowledgeDocumentRepository.class),
+        chunkRepository,
+        mock(AiKnowledgeIndexJobRepository.class),
+        modelRepository,
+        embeddingService,
+        scopeAccessPolicy,
+        properties,
+        mock(ObjectStorageRemoteService.class),
+        rerankerProvider
+    );
+    when(repository.findActiveById("kb-1")).thenReturn(Optional.of(knowledgeBase()));
+  }
+
+  @Test
+  void retrieve_withoutRerankerSearchesRequestedHitsOnly() {
+    List<AiKnowledgeSearchHit> hits = hits(3);
+    when(chunkRepository.search(any())).thenReturn(hits);
+
+    AiKnowledgeRetrievalResult result = service.retrieve("kb-1", request(3));
+
+    assertThat(searchedSpec().topK()).isEqualTo(3);
+    assertThat(result.hits()).isEqualTo(hits);
+  }
+
+  @Test
+  void retrieve_reranksLargerCandidatePoolAndKeepsTopK() {
+    properties.setRerankCandidates(5);
+    AiKnowledgeReranker reranker = (knowledgeBaseId, query, candidates) ->
+        candidates.reversed();
+    when(rerankerProvider.getIfAvailable()).thenReturn(reranker);
+    when(chunkRepository.search(any())).thenReturn(hits(5));
+
+    AiKnowledgeRetrievalResult result = service.retrieve("kb-1", request(2));
+
+    assertThat(searchedSpec().topK()).isEqualTo(5);
+    assertThat(result.hits()).extracting(AiKnowledgeSearchHit::chunkId)
+        .containsExactly("chunk-4", "chunk-3");
+  }
+
+  @Test
+  void retrieve_skipsRerankerForSingleCandidate() {
+    AiKnowledgeReranker reranker = mock(AiKnowledgeReranker.class);
+    when(rerankerProvider.getIfAvailable()).thenReturn(reranker);
+    when(chunkRepository.search(any())).thenReturn(hits(1));
+
+    AiKnowledgeRetrievalResult result = service.retrieve("kb-1", request(5));
+
+    assertThat(searchedSpec().topK()).isEqualTo(50);
+    assertThat(result.hits()).hasSize(1);
+    verify(reranker, never()).rerank(any(), any(), any());
+  }
+
+  @Test
+  void retrieve_passesKnowledgeBaseEfSearchToVectorSearch() {
+    AiKnowledgeBase knowledgeBase = knowledgeBase();
+    knowledgeBase.setRetrievalMode(AiKnowledgeRetrievalMode.VECTOR);
+    knowledgeBase.setEmbeddingModelId("embedding-1");
+    knowledgeBase.setVectorEfSearch(400);
+    when(repository.findActiveById("kb-1")).thenReturn(Optional.of(knowledgeBase));
+    when(modelRepository.findActiveById("embedding-1")).thenReturn(Optional.of(embeddingModel()));
+    when(scopeAccessPolicy.canUseResource(any(), any())).thenReturn(true);
+    when(embeddingService.embed("embedding-1", List.of("向量检索"), null))
+        .thenReturn(new AiEmbeddingResult("embedding-1", 2, List.of(new float[] {0.6F, 0.8F})));
+
+    service.retrieve("kb-1", request(3));
+
+    AiKnowledgeSearchSpec spec = searchedSpec();
+    assertThat(spec.mode()).isEqualTo(AiKnowledgeRetrievalMode.VECTOR);
+    assertThat(spec.efSearch()).isEqualTo(400);
+    assertThat(spec.queryEmbedding()).containsExactly(0.6F, 0.8F);
+  }
+
+  private AiKnowledgeSearchSpec searchedSpec() {
+    ArgumentCaptor<AiKnowledgeSearchSpec> spec = ArgumentCaptor.forClass(AiKnowledgeSearchSpec.class);
+    verify(chunkRepository).search(spec.capture());
+    return spec.getValue();
+  }
+
+  private static AiKnowledgeRetrievalRequest request(final int topK) {
+    AiKnowledgeRetrievalRequest request = new AiKnowledgeRetrievalRequest();
+    request.setQuery("向量检索");
+    request.setTopK(topK);
+    return request;
+  }
+
+  private static List<AiKnowledgeSearchHit> hits(final int count) {
+    return IntStream.range(0, count)
+        .mapToObj(index -> new AiKnowledgeSearchHit(
+            "chunk-" + index, "document-1", "文档", index, "内容 " + index,
+            1.0D - index * 0.1D, 0.0D, 1.0D - index * 0.1D, null
+        ))
+        .toList();
+  }
+
+  private static AiKnowledgeBase knowledgeBase() {
+    AiKnowledgeBase knowledgeBase = new AiKnowledgeBase();
+    knowledgeBase.setId("kb-1");
+    knowledgeBase.setScopeType(AiResourceScope.TENANT);
+    knowledgeBase.setTenantId("tenant-1");
+    knowledgeBase.setEnabled(true);
+    knowledgeBase.setRetrievalMode(AiKnowledgeRetrievalMode.KEYWORD);
+    knowledgeBase.setTopK(10);
+    knowledgeBase.setScoreThreshold(0.0D);
+    knowledgeBase.setVectorWeight(0.7D);
+    knowledgeBase.setKeywordWeight(0.3D);
+    return knowledgeBase;
+  }
+
+  private static AiModelDefinition embeddingModel() {
+    AiModelDefinition model = new AiModelDefinition();
+    model.setModelType(AiModelType.EMBEDDING);
+    model.setEnabled(true);
+    model.setAvailable(true);
+    model.setScopeType(AiResourceScope.TENANT);
+    model.setTenantId("tenant-1");
+    return model;
+  }
+}
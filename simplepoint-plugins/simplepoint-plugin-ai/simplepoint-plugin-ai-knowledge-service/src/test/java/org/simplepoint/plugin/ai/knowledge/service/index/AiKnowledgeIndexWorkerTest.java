@@ -1,13 +1,16 @@
 package org.simplepoint.plugin.ai.knowledge.service.index;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
@@ -70,6 +73,20 @@ class AiKnowledgeIndexWorkerTest {
     verify(jobRepository).release(job);
   }
 
+  @Test
+  void poll_claimsOnlyFreeSlotsAndStopsWhenBusy() {
+    when(jobRepository.claim(anyString(), eq(2), eq(Duration.ofSeconds(300))))
+        .thenReturn(List.of(job(), job()));
+    List<Runnable> queued = new ArrayList<>();
+    AiKnowledgeIndexWorker worker = worker(queued::add);
+
+    worker.poll();
+    worker.poll();
+
+    verify(jobRepository, times(2)).claim(anyString(), eq(2), eq(Duration.ofSeconds(300)));
+    assertEquals(4, queued.size());
+  }
+
   @Test
   void poll_reschedulesTransientFailureWithExponentialDelay() {
     AiKnowledgeIndexJob job = job();
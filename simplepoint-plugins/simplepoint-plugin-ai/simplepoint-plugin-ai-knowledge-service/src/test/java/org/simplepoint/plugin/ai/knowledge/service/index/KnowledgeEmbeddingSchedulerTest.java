@@ -0,0 +1,193 @@
+package org.simplepoint.plugin.ai.knowledge.service.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.simplepoint.plugin.ai.core.api.exception.AiProviderRequestException;
+import org.simplepoint.plugin.ai.core.api.model.AiResourceScope;
+import org.simplepoint.plugin.ai.core.api.service.AiEmbeddingService;
+import org.simplepoint.plugin.ai.core.api.vo.AiEmbeddingResult;
+import org.simplepoint.plugin.ai.knowledge.api.properties.AiKnowledgeProperties;
+
+class KnowledgeEmbeddingSchedulerTest {
+
+  private AiEmbeddingService embeddingService;
+
+  private AiKnowledgeProperties properties;
+
+  private KnowledgeEmbeddingScheduler scheduler;
+
+  @BeforeEach
+  void setUp() {
+    embeddingService = mock(AiEmbeddingService.class);
+    properties = new AiKnowledgeProperties();
+    properties.setEmbeddingBatchSize(2);
+    scheduler = new KnowledgeEmbeddingScheduler(embeddingService, properties, Runnable::run);
+    when(embeddingService.embedForScope(
+        eq(AiResourceScope.TENANT), eq("tenant-1"), anyString(), anyList(), eq(null)
+    )).thenAnswer(invocation -> {
+      List<String> texts = invocation.getArgument(3);
+      if (texts.contains("oversized") && texts.size() > 1) {
+        throw new AiProviderRequestException(413, "request too large");
+      }
+      return new AiEmbeddingResult(
+          invocation.getArgument(2),
+          1,
+          texts.stream().map(text -> new float[] {text.length()}).toList()
+      );
+    });
+  }
+
+  @Test
+  void embed_partitionsTextsAndKeepsInputOrder() {
+    List<AiEmbeddingResult> results = embed(List.of("a", "bb", "ccc", "dddd", "eeeee"));
+
+    assertThat(results).hasSize(3);
+    assertThat(results.stream().flatMap(result -> result.vectors().stream()).map(vector -> vector[0]))
+        .containsExactly(1F, 2F, 3F, 4F, 5F);
+  }
+
+  @Test
+  void embed_retriesFailedBatchInHalves() {
+    List<AiEmbeddingResult> results = embed(List.of("a", "oversized", "ccc"));
+
+    assertThat(results.stream().flatMap(result -> result.vectors().stream()).map(vector -> vector[0]))
+        .containsExactly(1F, 9F, 3F);
+  }
+
+  @Test
+  void embed_propagatesFailureOfSingleText() {
+    when(embeddingService.embedForScope(
+        eq(AiResourceScope.TENANT), eq("tenant-1"), eq("embedding-1"), eq(List.of("x")), eq(null)
+    )).thenThrow(new IllegalStateException("provider down"));
+
+    assertThatThrownBy(() -> embed(List.of("x")))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessage("provider down");
+  }
+
+  @Test
+  void embed_doesNotSplitFailuresUnrelatedToRequestSize() {
+    when(embeddingService.embedForScope(
+        eq(AiResourceScope.TENANT), eq("tenant-1"), eq("embedding-1"), eq(List.of("a", "b")), eq(null)
+    )).thenThrow(new AiProviderRequestException(401, "invalid api key"));
+
+    assertThatThrownBy(() -> embed(List.of("a", "b")))
+        .isInstanceOf(AiProviderRequestException.class)
+        .hasMessage("invalid api key");
+    verify(embeddingService, times(1)).embedForScope(
+        eq(AiResourceScope.TENANT), eq("tenant-1"), eq("embedding-1"), anyList(), eq(null)
+    );
+  }
+
+  @Test
+  void embed_rejectsBatchWithWrongVectorCount() {
+    when(embeddingService.embedForScope(
+        eq(AiResourceScope.TENANT), eq("tenant-1"), eq("embedding-1"), eq(List.of("c", "d")), eq(null)
+    )).thenReturn(new AiEmbeddingResult("embedding-1", 1, List.of(new float[] {1F})));
+
+    assertThatThrownBy(() -> embed(List.of("a", "b", "c", "d")))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessage("Embedding 响应数量与文档分块数不一致");
+  }
+
+  @Test
+  void isSizeOrLimitFailure_acceptsOnlySizeAndRateLimitErrors() {
+    assertThat(KnowledgeEmbeddingScheduler.isSizeOrLimitFailure(new AiProviderRequestException(413, "too large"))).isTrue();
+    assertThat(KnowledgeEmbeddingScheduler.isSizeOrLimitFailure(new AiProviderRequestException(429, "slow down"))).isTrue();
+    assertThat(KnowledgeEmbeddingScheduler.isSizeOrLimitFailure(
+        new AiProviderRequestException(400, "Input exceeds maximum context length"))).isTrue();
+    assertThat(KnowledgeEmbeddingScheduler.isSizeOrLimitFailure(new AiProviderRequestException(400, "unknown model"))).isFalse();
+    assertThat(KnowledgeEmbeddingScheduler.isSizeOrLimitFailure(new AiProviderRequestException(401, "token expired"))).isFalse();
+    assertThat(KnowledgeEmbeddingScheduler.isSizeOrLimitFailure(new IllegalStateException("request too large"))).isFalse();
+  }
+
+  @Test
+  void embed_limitsConcurrentRequestsPerModelOnSharedExecutor() {
+    properties.setEmbeddingMaxConcurrentRequests(2);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger peak = new AtomicInteger();
+    when(embeddingService.embedForScope(
+        eq(AiResourceScope.TENANT), eq("tenant-1"), eq("embedding-1"), anyList(), eq(null)
+    )).thenAnswer(invocation -> {
+      peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(50L);
+      } finally {
+        running.decrementAndGet();
+      }
+      List<String> texts = invocation.getArgument(3);
+      return new AiEmbeddingResult("embedding-1", 1, texts.stream().map(text -> new float[] {text.length()}).toList());
+    });
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      KnowledgeEmbeddingScheduler pooled = new KnowledgeEmbeddingScheduler(embeddingService, properties, executor);
+      List<String> texts = IntStream.rangeClosed(1, 12).mapToObj("x"::repeat).toList();
+
+      List<AiEmbeddingResult> results = pooled.embed(AiResourceScope.TENANT, "tenant-1", "embedding-1", null, texts, () -> {});
+
+      assertThat(peak).hasValue(2);
+      assertThat(results.stream().flatMap(result -> result.vectors().stream()).map(vector -> (int) vector[0]))
+          .containsExactlyElementsOf(IntStream.rangeClosed(1, 12).boxed().toList());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void embed_throttledModelDoesNotOccupySharedThreads() throws InterruptedException {
+    properties.setEmbeddingRequestsPerMinute(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      KnowledgeEmbeddingScheduler pooled = new KnowledgeEmbeddingScheduler(embeddingService, properties, executor);
+      AtomicReference<Throwable> throttledFailure = new AtomicReference<>();
+      Thread throttled = new Thread(() -> {
+        try {
+          pooled.embed(AiResourceScope.TENANT, "tenant-1", "embedding-slow", null, List.of("a", "b", "c", "d"), () -> {});
+        } catch (RuntimeException ex) {
+          throttledFailure.set(ex);
+        }
+      });
+      throttled.start();
+      Thread.sleep(200L);
+
+      List<AiEmbeddingResult> results = assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+          pooled.embed(AiResourceScope.TENANT, "tenant-1", "embedding-1", null, List.of("e"), () -> {}));
+
+      assertThat(results).singleElement().extracting(AiEmbeddingResult::modelId).isEqualTo("embedding-1");
+      throttled.interrupt();
+      throttled.join(5_000L);
+      assertThat(throttled.isAlive()).isFalse();
+      assertThat(throttledFailure.get()).isInstanceOf(IllegalStateException.class).hasMessage("Embedding 请求被中断");
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void estimateTokens_countsIdeographsIndividually() {
+    assertThat(KnowledgeEmbeddingScheduler.estimateTokens("知识库")).isEqualTo(3);
+    assertThat(KnowledgeEmbeddingScheduler.estimateTokens("abcdefgh")).isEqualTo(2);
+  }
+
+  private List<AiEmbeddingResult> embed(final List<String> texts) {
+    return scheduler.embed(AiResourceScope.TENANT, "tenant-1", "embedding-1", null, texts, () -> {});
+  }
+}
@@ -1,13 +1,17 @@
 package org.simplepoint.plugin.ai.knowledge.service.index;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.BeforeEach;
@@ -21,10 +25,11 @@ import org.simplepoint.plugin.ai.knowledge.api.model.AiKnowledgeDocumentSourceTy
 import org.simplepoint.plugin.ai.knowledge.api.model.AiKnowledgeRetrievalMode;
 import org.simplepoint.plugin.ai.knowledge.api.properties.AiKnowledgeProperties;
 import org.simplepoint.plugin.ai.knowledge.api.repository.AiKnowledgeBaseRepository;
+import org.simplepoint.plugin.ai.knowledge.api.repository.AiKnowledgeChunkRepository;
 import org.simplepoint.plugin.ai.knowledge.api.repository.AiKnowledgeDocumentRepository;
 import org.simplepoint.plugin.ai.knowledge.api.vo.AiKnowledgeIndexJob;
 import org.simplepoint.plugin.ai.knowledge.service.support.KnowledgeDocumentExtractor;
-import org.simplepoint.plugin.ai.knowledge.service.support.KnowledgeDocumentExtractor.ExtractedDocument;
+import org.simplepoint.plugin.ai.knowledge.service.support.KnowledgeDocumentExtractor.UploadDescriptor;
 import org.simplepoint.plugin.ai.knowledge.service.support.KnowledgeTextChunker;
 import org.simplepoint.plugin.storage.api.model.ObjectStorageSourceContent;
 import org.simplepoint.plugin.storage.api.service.ObjectStorageSourceService;
@@ -35,6 +40,8 @@ class KnowledgeIndexProcessorTest {
 
   private AiKnowledgeDocumentRepository documentRepository;
 
+  private AiKnowledgeChunkRepository chunkRepository;
+
   private AiEmbeddingService embeddingService;
 
   private ObjectStorageSourceService objectStorageSourceService;
@@ -51,6 +58,7 @@ class KnowledgeIndexProcessorTest {
   void setUp() {
     knowledgeBaseRepository = mock(AiKnowledgeBaseRepository.class);
     documentRepository = mock(AiKnowledgeDocumentRepository.class);
+    chunkRepository = mock(AiKnowledgeChunkRepository.class);
     embeddingService = mock(AiEmbeddingService.class);
     objectStorageSourceService = mock(ObjectStorageSourceService.class);
     extractor = mock(KnowledgeDocumentExtractor.class);
@@ -59,7 +67,8 @@ class KnowledgeIndexProcessorTest {
     processor = new KnowledgeIndexProcessor(
         knowledgeBaseRepository,
         documentRepository,
-        embeddingService,
+        chunkRepository,
+        new KnowledgeEmbeddingScheduler(embeddingService, properties, Runnable::run),
         objectStorageSourceService,
         extractor,
         chunker,
@@ -105,13 +114,13 @@ class KnowledgeIndexProcessorTest {
     )).thenReturn(new AiEmbeddingResult(
         "remote-embedding",
         2,
-        List.of(List.of(0.1D, 0.2D), List.of(0.3D, 0.4D))
+        List.of(new float[] {0.1F, 0.2F}, new float[] {0.3F, 0.4F})
     ));
 
     KnowledgeIndexPreparation result = processor.prepare(job, () -> {});
 
     assertThat(result.embeddingDimensions()).isEqualTo(2);
-    assertThat(result.chunks().getFirst().embedding()).containsExactly(0.1D, 0.2D);
+    assertThat(result.chunks().getFirst().embedding()).containsExactly(0.1F, 0.2F);
     verify(embeddingService).embedForScope(
         AiResourceScope.TENANT,
         "tenant-1",
@@ -121,6 +130,42 @@ class KnowledgeIndexProcessorTest {
     );
   }
 
+  @Test
+  void vectorJob_reusesStoredEmbeddingsForUnchangedChunks() {
+    AiKnowledgeBase knowledgeBase = knowledgeBase(AiKnowledgeRetrievalMode.VECTOR);
+    knowledgeBase.setEmbeddingModelId("embedding-1");
+    knowledgeBase.setEmbeddingDimensions(2);
+    AiKnowledgeDocument document = document();
+    AiKnowledgeIndexJob job = job(false);
+    when(knowledgeBaseRepository.findActiveById("kb-1")).thenReturn(Optional.of(knowledgeBase));
+    when(documentRepository.findActiveById("doc-1")).thenReturn(Optional.of(document));
+    when(chunker.split("first second", 1000, 150)).thenReturn(List.of("first", "second", "first"));
+    when(chunkRepository.findEmbeddingsByContentHash(eq("kb-1"), any())).thenAnswer(invocation -> {
+      List<String> hashes = invocation.getArgument(1);
+      return Map.of(hashes.get(1), new float[] {0.5F, 0.6F});
+    });
+    when(embeddingService.embedForScope(
+        AiResourceScope.TENANT,
+        "tenant-1",
+        "embedding-1",
+        List.of("first"),
+        2
+    )).thenReturn(new AiEmbeddingResult("remote-embedding", 2, List.<float[]>of(new float[] {0.1F, 0.2F})));
+
+    KnowledgeIndexPreparation result = processor.prepare(job, () -> {});
+
+    assertThat(result.embeddingDimensions()).isEqualTo(2);
+    assertThat(result.chunks()).extracting(chunk -> chunk.embedding()[0]).containsExactly(0.1F, 0.5F, 0.1F);
+    assertThat(result.chunks().get(0).contentHash()).isEqualTo(result.chunks().get(2).contentHash());
+    verify(embeddingService).embedForScope(
+        AiResourceScope.TENANT,
+        "tenant-1",
+        "embedding-1",
+        List.of("first"),
+        2
+    );
+  }
+
   @Test
   void uploadJob_downloadsAndExtractsSourceInWorker() {
     AiKnowledgeDocument document = document();
@@ -138,19 +183,19 @@ class KnowledgeIndexProcessorTest {
     )).thenReturn(new ObjectStorageSourceContent(
         content, "source.md", "text/markdown", content.length
     ));
-    when(extractor.extract("source.md", "text/markdown", content))
-        .thenReturn(new ExtractedDocument(
-            "source.md", "text/markdown", content.length, "parsed knowledge"
-        ));
-    when(chunker.split("parsed knowledge", 1000, 150))
-        .thenReturn(List.of("parsed knowledge"));
+    when(chunker.open(1000, 150, 5000)).thenReturn(new KnowledgeTextChunker().open(1000, 150, 5000));
+    when(extractor.extract(eq("source.md"), eq("text/markdown"), eq(content), any(Writer.class)))
+        .thenAnswer(invocation -> {
+          invocation.getArgument(3, Writer.class).write("  parsed   knowledge \n\n\n");
+          return new UploadDescriptor("source.md", "text/markdown", content.length);
+        });
     AtomicInteger heartbeats = new AtomicInteger();
 
     KnowledgeIndexPreparation result = processor.prepare(job, heartbeats::incrementAndGet);
 
     assertThat(result.extraction()).isNotNull();
     assertThat(result.extraction().content()).isEqualTo("parsed knowledge");
-    assertThat(result.chunks()).hasSize(1);
+    assertThat(result.chunks()).extracting(chunk -> chunk.content()).containsExactly("parsed knowledge");
     assertThat(heartbeats).hasValue(5);
     verify(objectStorageSourceService).downloadSource(
         "storage-1", "storage-tenant-1", "ai", 20L * 1024L * 1024L
@@ -27,6 +27,30 @@ class KnowledgeTextChunkerTest {
     assertThat(chunks.getLast()).contains("第六句");
   }
 
+  @Test
+  void streamingWriterMatchesWholeTextSplitAndKeepsNormalizedText() {
+    String text = ("  第一段内容，用于验证流式分块。\r\n\r\n\r\n第二段 \t 包含多个空白字符。 \n"
+        + "Third sentence keeps going without stopping.  ").repeat(20);
+    KnowledgeTextChunker.ChunkWriter writer = chunker.open(120, 30, 100);
+
+    for (int offset = 0; offset < text.length(); offset += 7) {
+      writer.write(text, offset, Math.min(7, text.length() - offset));
+    }
+    writer.close();
+
+    assertThat(writer.chunks()).isEqualTo(chunker.split(text, 120, 30));
+    assertThat(writer.text()).startsWith("第一段内容").doesNotContain("\r", "\t", "\n\n\n", " \n").endsWith("stopping.");
+  }
+
+  @Test
+  void streamingWriterRejectsTooManyChunksBeforeTextEnds() {
+    KnowledgeTextChunker.ChunkWriter writer = chunker.open(100, 0, 2);
+
+    assertThatThrownBy(() -> writer.write("这是一段很长的文本。".repeat(100)))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("分块数");
+  }
+
   @Test
   void rejectsOverlapThatIsNotSmallerThanChunkSize() {
     assertThatThrownBy(() -> chunker.split("有效内容", 100, 100))
@@ -1,10 +1,13 @@
 package org.simplepoint.plugin.dna.core.api.service;
 
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.Optional;
 import org.simplepoint.api.base.BaseService;
 import org.simplepoint.data.datasource.jdbc.SimpleDataSource;
 import org.simplepoint.plugin.dna.core.api.entity.JdbcDataSourceDefinition;
 import org.simplepoint.plugin.dna.core.api.vo.JdbcDataSourceConnectionResult;
+import org.simplepoint.plugin.dna.core.api.vo.JdbcDataSourcePoolStats;
 
 /**
  * Service contract for managed datasource definitions.
@@ -58,6 +61,19 @@ public interface JdbcDataSourceDefinitionService extends BaseService<JdbcDataSou
    */
   SimpleDataSource requireSimpleDataSource(String id);
 
+  /**
+   * Borrows a connection from the managed datasource for background housekeeping such as
+   * metadata polling. Unlike {@link #requireSimpleDataSource(String)} connections, it does not
+   * count as use, so periodic polling never keeps an otherwise idle pool from being released.
+   *
+   * @param id datasource id
+   * @return pooled connection, to be closed by the caller
+   * @throws SQLException when no connection can be obtained
+   */
+  default Connection openBackgroundConnection(final String id) throws SQLException {
+    return requireSimpleDataSource(id).getConnection();
+  }
+
   /**
    * Creates a non-cached datasource for runtime operations with an overridden JDBC URL.
    *
@@ -80,4 +96,11 @@ public interface JdbcDataSourceDefinitionService extends BaseService<JdbcDataSou
    * @param driverId driver id
    */
   void disconnectByDriverId(String driverId);
+
+  /**
+   * Returns connection pool statistics of every cached runtime datasource.
+   *
+   * @return pool statistics ordered by datasource code
+   */
+  java.util.List<JdbcDataSourcePoolStats> listPoolStats();
 }
@@ -585,6 +585,18 @@ public interface JdbcDatabaseDialect {
     return "SELECT COUNT(*) FROM " + qualifiedName;
   }
 
+  /**
+   * Builds a cheap query returning one row per schema: the schema label and a fingerprint that
+   * changes whenever tables or columns of that schema are created, altered or dropped. Metadata
+   * caches poll it to invalidate only the schemas that changed.
+   *
+   * @param context support context
+   * @return fingerprint SQL, or null when the dialect cannot detect schema changes cheaply
+   */
+  default String buildMetadataFingerprintSql(final SupportContext context) {
+    return null;
+  }
+
   /**
    * Builds SQL for creating a namespace using the runtime quote style.
    *
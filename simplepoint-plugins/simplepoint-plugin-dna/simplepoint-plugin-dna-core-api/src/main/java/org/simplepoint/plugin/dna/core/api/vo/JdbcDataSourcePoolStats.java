@@ -0,0 +1,27 @@
+package org.simplepoint.plugin.dna.core.api.vo;
+
+import java.time.Instant;
+
+/**
+ * Connection pool snapshot of a cached runtime datasource.
+ *
+ * <p>Pool counters are {@code -1} when the underlying datasource is not a recognized pool or its
+ * pool has not been started yet.
+ */
+public record JdbcDataSourcePoolStats(
+    String dataSourceId,
+    String dataSourceCode,
+    String poolType,
+    int activeConnections,
+    int idleConnections,
+    int totalConnections,
+    int threadsAwaitingConnection,
+    int maximumPoolSize,
+    long acquireCount,
+    long acquireFailures,
+    double averageAcquireMillis,
+    double maxAcquireMillis,
+    Instant lastUsedAt,
+    boolean idleEvicted
+) {
+}
@@ -192,6 +192,18 @@ public class JdbcDataSourceDefinitionController
     return ok(stats);
   }
 
+  /**
+   * Returns connection pool statistics of the cached runtime datasources.
+   *
+   * @return pool statistics
+   */
+  @GetMapping("/pools")
+  @PreAuthorize("hasRole('Administrator') or hasAuthority('dna.data-sources.view')")
+  @Operation(summary = "数据源连接池状态", description = "查看已缓存数据源的活动、空闲、等待连接数及获取连接耗时")
+  public Response<?> pools() {
+    return ok(service.listPoolStats());
+  }
+
   /**
    * Creates a bad-request response with plain-text payload.
    *
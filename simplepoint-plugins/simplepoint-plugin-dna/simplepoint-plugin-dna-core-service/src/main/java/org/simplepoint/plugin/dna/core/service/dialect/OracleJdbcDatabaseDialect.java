@@ -121,6 +121,16 @@ public class OracleJdbcDatabaseDialect extends AbstractJdbcDatabaseDialect {
     return "DROP VIEW " + qualifiedName;
   }
 
+  @Override
+  public String buildMetadataFingerprintSql(final SupportContext context) {
+    return """
+        select owner, to_char(max(last_ddl_time), 'YYYYMMDDHH24MISS') || ':' || count(*)
+        from all_objects
+        where object_type in ('TABLE', 'VIEW', 'MATERIALIZED VIEW')
+        group by owner
+        """;
+  }
+
   private static String normalize(final String value) {
     return value == null ? "" : value.trim().toLowerCase();
   }
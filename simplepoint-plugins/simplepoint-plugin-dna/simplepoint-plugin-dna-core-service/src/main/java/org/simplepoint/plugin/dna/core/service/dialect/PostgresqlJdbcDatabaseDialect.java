@@ -203,6 +203,23 @@ public class PostgresqlJdbcDatabaseDialect extends AbstractJdbcDatabaseDialect {
     return constraints;
   }
 
+  @Override
+  public String buildMetadataFingerprintSql(final SupportContext context) {
+    return """
+        select n.nspname,
+               count(*) || ':' || sum(hashtext(c.relname || '.' || a.attname || ':' || a.atttypid || ':' || a.atttypmod))
+        from pg_catalog.pg_attribute a
+        join pg_catalog.pg_class c on c.oid = a.attrelid
+        join pg_catalog.pg_namespace n on n.oid = c.relnamespace
+        where a.attnum > 0
+          and not a.attisdropped
+          and c.relkind in ('r', 'v', 'm', 'p', 'f')
+          and n.nspname not in ('pg_catalog', 'information_schema')
+          and n.nspname not like 'pg\\_%'
+        group by n.nspname
+        """;
+  }
+
   private static String normalize(final String value) {
     return value == null ? "" : value.trim().toLowerCase();
   }
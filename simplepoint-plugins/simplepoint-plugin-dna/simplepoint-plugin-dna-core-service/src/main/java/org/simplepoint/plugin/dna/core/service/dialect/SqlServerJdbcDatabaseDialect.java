@@ -208,6 +208,17 @@ public class SqlServerJdbcDatabaseDialect extends AbstractJdbcDatabaseDialect {
     return builder.toString();
   }
 
+  @Override
+  public String buildMetadataFingerprintSql(final SupportContext context) {
+    return """
+        select s.name, convert(varchar(33), max(o.modify_date), 126) + ':' + cast(count(*) as varchar(20))
+        from sys.objects o
+        join sys.schemas s on s.schema_id = o.schema_id
+        where o.type in ('U', 'V')
+        group by s.name
+        """;
+  }
+
   private static String normalize(final String value) {
     return value == null ? "" : value.trim().toLowerCase();
   }
@@ -3,6 +3,7 @@ package org.simplepoint.plugin.dna.core.service.impl;
 import java.io.StringReader;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.Comparator;
@@ -26,6 +27,8 @@ import org.simplepoint.plugin.dna.core.api.service.JdbcDataSourceDefinitionServi
 import org.simplepoint.plugin.dna.core.api.spi.JdbcManagedDataSourceCustomizer;
 import org.simplepoint.plugin.dna.core.api.spi.JdbcManagedDataSourceFactory;
 import org.simplepoint.plugin.dna.core.api.vo.JdbcDataSourceConnectionResult;
+import org.simplepoint.plugin.dna.core.api.vo.JdbcDataSourcePoolStats;
+import org.simplepoint.plugin.dna.core.service.support.JdbcDataSourcePoolManager;
 import org.simplepoint.plugin.dna.core.service.support.JdbcDriverArtifactManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -49,6 +52,8 @@ public class JdbcDataSourceDefinitionServiceImpl
 
   private final List<JdbcManagedDataSourceCustomizer> customizers;
 
+  private final JdbcDataSourcePoolManager poolManager;
+
   private final Map<String, SimpleDataSource> runtimeDataSources = new ConcurrentHashMap<>();
 
   /**
@@ -60,6 +65,7 @@ public class JdbcDataSourceDefinitionServiceImpl
    * @param artifactManager        driver artifact manager
    * @param factories              datasource factories
    * @param customizers            datasource customizers
+   * @param poolManager            runtime pool manager
    */
   public JdbcDataSourceDefinitionServiceImpl(
       final JdbcDataSourceDefinitionRepository repository,
@@ -67,7 +73,8 @@ public class JdbcDataSourceDefinitionServiceImpl
       final JdbcDriverDefinitionRepository driverRepository,
       final JdbcDriverArtifactManager artifactManager,
       final List<JdbcManagedDataSourceFactory> factories,
-      final List<JdbcManagedDataSourceCustomizer> customizers
+      final List<JdbcManagedDataSourceCustomizer> customizers,
+      final JdbcDataSourcePoolManager poolManager
   ) {
     super(repository, detailsProviderService);
     this.repository = repository;
@@ -75,6 +82,7 @@ public class JdbcDataSourceDefinitionServiceImpl
     this.artifactManager = artifactManager;
     this.factories = factories == null ? List.of() : List.copyOf(factories);
     this.customizers = customizers == null ? List.of() : List.copyOf(customizers);
+    this.poolManager = poolManager;
   }
 
   /** {@inheritDoc} */
@@ -159,6 +167,12 @@ public class JdbcDataSourceDefinitionServiceImpl
     return obtainSimpleDataSource(definition, driver, true);
   }
 
+  /** {@inheritDoc} */
+  @Override
+  public Connection openBackgroundConnection(final String id) throws SQLException {
+    return poolManager.backgroundConnection(requireSimpleDataSource(id));
+  }
+
   /** {@inheritDoc} */
   @Override
   public SimpleDataSource createTransientSimpleDataSource(final String id, final String jdbcUrl) {
@@ -179,6 +193,7 @@ public class JdbcDataSourceDefinitionServiceImpl
   public void disconnect(final String id) {
     if (id != null && !id.isBlank()) {
       closeQuietly(runtimeDataSources.remove(id));
+      poolManager.unregister(id);
     }
   }
 
@@ -192,8 +207,13 @@ public class JdbcDataSourceDefinitionServiceImpl
     repository.findAllActiveByDriverId(normalizedDriverId)
         .stream()
         .map(JdbcDataSourceDefinition::getId)
-        .map(runtimeDataSources::remove)
-        .forEach(JdbcDataSourceDefinitionServiceImpl::closeQuietly);
+        .forEach(this::disconnect);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public List<JdbcDataSourcePoolStats> listPoolStats() {
+    return poolManager.stats();
   }
 
   /** {@inheritDoc} */
@@ -298,7 +318,11 @@ public class JdbcDataSourceDefinitionServiceImpl
     if (requireEnabled) {
       ensureEnabled(definition, driver);
     }
-    return runtimeDataSources.computeIfAbsent(definition.getId(), ignored -> createSimpleDataSource(definition, driver));
+    return runtimeDataSources.computeIfAbsent(definition.getId(), ignored -> poolManager.register(
+        definition.getId(),
+        definition.getCode(),
+        createSimpleDataSource(definition, driver)
+    ));
   }
 
   private void ensureEnabled(
@@ -26,13 +26,20 @@ public class DefaultJdbcManagedDataSourceFactory implements JdbcManagedDataSourc
 
   private final JdbcDriverArtifactManager artifactManager;
 
+  private final JdbcDataSourcePoolManager poolManager;
+
   /**
    * Creates a default managed datasource factory.
    *
    * @param artifactManager driver artifact manager
+   * @param poolManager     pool manager applying the pool defaults
    */
-  public DefaultJdbcManagedDataSourceFactory(final JdbcDriverArtifactManager artifactManager) {
+  public DefaultJdbcManagedDataSourceFactory(
+      final JdbcDriverArtifactManager artifactManager,
+      final JdbcDataSourcePoolManager poolManager
+  ) {
     this.artifactManager = artifactManager;
+    this.poolManager = poolManager;
   }
 
   /** {@inheritDoc} */
@@ -59,6 +66,7 @@ public class DefaultJdbcManagedDataSourceFactory implements JdbcManagedDataSourc
     properties.setUsername(dataSource.getUsername());
     properties.setPassword(dataSource.getPassword());
     DataSource delegate = withContextClassLoader(classLoader, () -> properties.initializeDataSourceBuilder().build());
+    poolManager.configure(delegate, "dna-" + dataSource.getCode());
     applyConnectionProperties(delegate, dataSource.getConnectionProperties());
     return new SimpleDataSource(new ClassLoaderAwareDataSource(delegate, classLoader));
   }
@@ -0,0 +1,522 @@
+package org.simplepoint.plugin.dna.core.service.support;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+import javax.sql.DataSource;
+import org.simplepoint.data.datasource.jdbc.SimpleDataSource;
+import org.simplepoint.plugin.dna.core.api.vo.JdbcDataSourcePoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Observes and sizes the connection pools of cached runtime datasources.
+ *
+ * <p>Cached datasources are wrapped so connection acquisition is timed and the last use is
+ * recorded. Background connections (see {@link #backgroundConnection(SimpleDataSource)}) are
+ * timed too but do not count as use, so housekeeping never keeps a pool alive. A background
+ * task samples the Hikari pools, releases every idle connection of a source that has not been
+ * used for {@code idle-evict-after}, and re-divides the global connection budget: pools with
+ * waiting threads grow, quiet pools shrink towards their smoothed demand, and when the combined
+ * demand exceeds the budget each pool keeps the floor plus a proportional share of the rest. All
+ * pools share one housekeeping scheduler instead of a thread each.
+ */
+@Component
+public class JdbcDataSourcePoolManager implements DisposableBean {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(JdbcDataSourcePoolManager.class);
+
+  private static final String METRIC_PREFIX = "simplepoint.dna.datasource.pool";
+
+  private static final double DEMAND_SMOOTHING = 0.5D;
+
+  private static final long MIN_IDLE_TIMEOUT_MS = 10_000L;
+
+  private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+  private final Map<String, PoolEntry> entries = new ConcurrentHashMap<>();
+
+  private final Object startMonitor = new Object();
+
+  private volatile ScheduledExecutorService scheduler;
+
+  @Value("${simplepoint.dna.datasource.pool.initial-maximum-size:4}")
+  private int initialMaximumSize = 4;
+
+  @Value("${simplepoint.dna.datasource.pool.minimum-size:1}")
+  private int minimumSize = 1;
+
+  @Value("${simplepoint.dna.datasource.pool.maximum-size:20}")
+  private int maximumSize = 20;
+
+  @Value("${simplepoint.dna.datasource.pool.total-budget:200}")
+  private int totalBudget = 200;
+
+  @Value("${simplepoint.dna.datasource.pool.minimum-idle:1}")
+  private int minimumIdle = 1;
+
+  @Value("${simplepoint.dna.datasource.pool.idle-timeout:300000}")
+  private long idleTimeoutMs = 300_000L;
+
+  @Value("${simplepoint.dna.datasource.pool.idle-evict-after:600000}")
+  private long idleEvictAfterMs = 600_000L;
+
+  @Value("${simplepoint.dna.datasource.pool.tune-interval:15000}")
+  private long tuneIntervalMs = 15_000L;
+
+  @Value("${simplepoint.dna.datasource.pool.saturation-threshold:100}")
+  private long saturationThresholdMs = 100L;
+
+  /**
+   * Creates the pool manager.
+   *
+   * @param meterRegistryProvider registry receiving the per-source pool metrics, when available
+   */
+  public JdbcDataSourcePoolManager(final ObjectProvider<MeterRegistry> meterRegistryProvider) {
+    this.meterRegistryProvider = meterRegistryProvider;
+  }
+
+  /**
+   * Applies the pool defaults to a freshly built datasource before its pool starts. Datasources
+   * that are not Hikari pools are left untouched.
+   *
+   * @param dataSource datasource returned by the builder
+   * @param poolName   pool name shown in logs
+   */
+  public void configure(final DataSource dataSource, final String poolName) {
+    if (!(dataSource instanceof HikariDataSource hikari)) {
+      return;
+    }
+    int maximum = clamp(initialMaximumSize, floor(), ceiling());
+    hikari.setPoolName(poolName);
+    hikari.setMaximumPoolSize(maximum);
+    hikari.setMinimumIdle(Math.min(Math.max(0, minimumIdle), maximum));
+    hikari.setIdleTimeout(Math.max(MIN_IDLE_TIMEOUT_MS, idleTimeoutMs));
+    hikari.setScheduledExecutor(ensureStarted());
+  }
+
+  /**
+   * Starts tracking a cached runtime datasource.
+   *
+   * @param dataSourceId   datasource id
+   * @param dataSourceCode datasource code
+   * @param dataSource     datasource created by the factory and customizers
+   * @return datasource that records acquisition latency and last use
+   */
+  public SimpleDataSource register(
+      final String dataSourceId,
+      final String dataSourceCode,
+      final SimpleDataSource dataSource
+  ) {
+    PoolEntry entry = new PoolEntry(dataSourceId, dataSourceCode, resolveHikari(dataSource));
+    PoolEntry previous = entries.put(dataSourceId, entry);
+    if (previous != null) {
+      previous.retire();
+    }
+    entry.registerMeters(meterRegistryProvider == null ? null : meterRegistryProvider.getIfAvailable());
+    ensureStarted();
+    return new MeteredSimpleDataSource(dataSource, entry);
+  }
+
+  /**
+   * Borrows a connection for background housekeeping. It is timed like any other acquisition but
+   * leaves the last-use time and an idle eviction untouched, so periodic pollers do not keep an
+   * unused pool from being evicted.
+   *
+   * @param dataSource datasource returned by {@link #register(String, String, SimpleDataSource)}
+   * @return pooled connection
+   * @throws SQLException when no connection can be obtained
+   */
+  public Connection backgroundConnection(final SimpleDataSource dataSource) throws SQLException {
+    if (dataSource instanceof MeteredSimpleDataSource metered) {
+      return metered.entry.acquire(metered.delegate::getConnection, false);
+    }
+    return dataSource.getConnection();
+  }
+
+  /**
+   * Stops tracking a datasource and releases the idle connections of its pool.
+   *
+   * @param dataSourceId datasource id
+   */
+  public void unregister(final String dataSourceId) {
+    PoolEntry entry = dataSourceId == null ? null : entries.remove(dataSourceId);
+    if (entry != null) {
+      entry.retire();
+    }
+  }
+
+  /**
+   * Returns a snapshot of every tracked pool.
+   *
+   * @return pool statistics ordered by datasource code
+   */
+  public List<JdbcDataSourcePoolStats> stats() {
+    return entries.values().stream()
+        .map(PoolEntry::snapshot)
+        .sorted(Comparator.comparing(JdbcDataSourcePoolStats::dataSourceCode, Comparator.nullsLast(String::compareTo)))
+        .toList();
+  }
+
+  /**
+   * Stops the shared scheduler.
+   */
+  @Override
+  public void destroy() {
+    ScheduledExecutorService current = scheduler;
+    if (current != null) {
+      current.shutdownNow();
+    }
+  }
+
+  /**
+   * Samples every started pool, evicts idle sources and applies the new maximum sizes.
+   */
+  void rebalance() {
+    List<PoolEntry> pools = entries.values().stream()
+        .filter(entry -> entry.hikari != null && !entry.hikari.isClosed() && entry.hikari.getHikariPoolMXBean() != null)
+        .toList();
+    if (pools.isEmpty()) {
+      return;
+    }
+    long now = System.currentTimeMillis();
+    int[] wants = new int[pools.size()];
+    for (int index = 0; index < wants.length; index++) {
+      wants[index] = pools.get(index).sample(now);
+    }
+    int[] sizes = allocate(wants, totalBudget, floor(), ceiling());
+    for (int index = 0; index < sizes.length; index++) {
+      pools.get(index).resize(sizes[index]);
+    }
+  }
+
+  /**
+   * Turns the per-pool demands into maximum sizes within the global budget. Each pool is clamped
+   * to {@code [floor, ceiling]}; when the sum still exceeds the budget every pool keeps the floor
+   * and the remainder is shared in proportion to what each pool asked for above the floor.
+   *
+   * @param wants   requested maximum size per pool
+   * @param budget  global connection budget
+   * @param floor   smallest maximum size of a pool
+   * @param ceiling largest maximum size of a pool
+   * @return granted maximum size per pool
+   */
+  static int[] allocate(final int[] wants, final int budget, final int floor, final int ceiling) {
+    int[] sizes = new int[wants.length];
+    long total = 0L;
+    for (int index = 0; index < wants.length; index++) {
+      sizes[index] = clamp(wants[index], floor, ceiling);
+      total += sizes[index];
+    }
+    long reserved = (long) floor * wants.length;
+    long requested = total - reserved;
+    if (total <= budget || requested <= 0L) {
+      return sizes;
+    }
+    long spare = Math.max(0L, budget - reserved);
+    for (int index = 0; index < sizes.length; index++) {
+      sizes[index] = floor + (int) ((sizes[index] - floor) * spare / requested);
+    }
+    return sizes;
+  }
+
+  private ScheduledExecutorService ensureStarted() {
+    ScheduledExecutorService current = scheduler;
+    if (current != null) {
+      return current;
+    }
+    synchronized (startMonitor) {
+      if (scheduler == null) {
+        ScheduledThreadPoolExecutor created = new ScheduledThreadPoolExecutor(
+            2,
+            Thread.ofPlatform().daemon().name("dna-datasource-pool-", 0).factory()
+        );
+        created.setRemoveOnCancelPolicy(true);
+        long interval = Math.max(1_000L, tuneIntervalMs);
+        created.scheduleWithFixedDelay(this::rebalanceQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        scheduler = created;
+      }
+      return scheduler;
+    }
+  }
+
+  private void rebalanceQuietly() {
+    try {
+      rebalance();
+    } catch (RuntimeException ex) {
+      LOGGER.warn("数据源连接池调优失败: {}", ex.getMessage(), ex);
+    }
+  }
+
+  private int floor() {
+    return Math.max(1, minimumSize);
+  }
+
+  private int ceiling() {
+    return Math.max(floor(), maximumSize);
+  }
+
+  private static int clamp(final int value, final int min, final int max) {
+    return Math.max(min, Math.min(max, value));
+  }
+
+  private static HikariDataSource resolveHikari(final SimpleDataSource dataSource) {
+    try {
+      return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+    } catch (SQLException | RuntimeException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Tracking state of one cached datasource.
+   */
+  private final class PoolEntry {
+
+    private final String dataSourceId;
+
+    private final String dataSourceCode;
+
+    private final HikariDataSource hikari;
+
+    private final LongAdder acquireCount = new LongAdder();
+
+    private final LongAdder acquireNanos = new LongAdder();
+
+    private final LongAdder acquireFailures = new LongAdder();
+
+    private final AtomicLong maxAcquireNanos = new AtomicLong();
+
+    private final AtomicLong intervalMaxAcquireNanos = new AtomicLong();
+
+    private final List<Meter> meters = new ArrayList<>();
+
+    private volatile long lastUsedAt = System.currentTimeMillis();
+
+    private volatile boolean idleEvicted;
+
+    private volatile MeterRegistry registry;
+
+    private volatile Timer acquireTimer;
+
+    private double demand;
+
+    private PoolEntry(final String dataSourceId, final String dataSourceCode, final HikariDataSource hikari) {
+      this.dataSourceId = dataSourceId;
+      this.dataSourceCode = dataSourceCode;
+      this.hikari = hikari;
+    }
+
+    private Connection acquire(final ConnectionSupplier supplier, final boolean use) throws SQLException {
+      if (use) {
+        markUsed();
+      }
+      long startedAt = System.nanoTime();
+      try {
+        return supplier.get();
+      } catch (SQLException | RuntimeException ex) {
+        acquireFailures.increment();
+        throw ex;
+      } finally {
+        long elapsed = System.nanoTime() - startedAt;
+        acquireCount.increment();
+        acquireNanos.add(elapsed);
+        maxAcquireNanos.accumulateAndGet(elapsed, Math::max);
+        intervalMaxAcquireNanos.accumulateAndGet(elapsed, Math::max);
+        Timer timer = acquireTimer;
+        if (timer != null) {
+          timer.record(elapsed, TimeUnit.NANOSECONDS);
+        }
+      }
+    }
+
+    private void markUsed() {
+      lastUsedAt = System.currentTimeMillis();
+      if (idleEvicted) {
+        idleEvicted = false;
+        HikariConfigMXBean config = hikari.getHikariConfigMXBean();
+        config.setMinimumIdle(Math.min(Math.max(0, minimumIdle), config.getMaximumPoolSize()));
+      }
+    }
+
+    private int sample(final long now) {
+      HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+      int current = hikari.getHikariConfigMXBean().getMaximumPoolSize();
+      int active = pool.getActiveConnections();
+      int waiting = pool.getThreadsAwaitingConnection();
+      long slowest = intervalMaxAcquireNanos.getAndSet(0L);
+      if (active == 0 && waiting == 0 && now - lastUsedAt >= idleEvictAfterMs) {
+        evictIdle(pool);
+        demand = 0D;
+        return floor();
+      }
+      demand = demand * DEMAND_SMOOTHING + (active + waiting) * (1D - DEMAND_SMOOTHING);
+      int want = (int) Math.round(demand) + 1;
+      boolean saturated = waiting > 0
+          || active >= current && slowest >= TimeUnit.MILLISECONDS.toNanos(saturationThresholdMs);
+      if (saturated) {
+        want = Math.max(want, current + Math.max(1, waiting));
+      }
+      return want;
+    }
+
+    private void resize(final int size) {
+      HikariConfigMXBean config = hikari.getHikariConfigMXBean();
+      int current = config.getMaximumPoolSize();
+      if (size == current) {
+        return;
+      }
+      if (config.getMinimumIdle() > size) {
+        config.setMinimumIdle(size);
+      }
+      config.setMaximumPoolSize(size);
+      LOGGER.debug("数据源 [{}] 连接池上限调整: {} -> {}", dataSourceCode, current, size);
+    }
+
+    private void evictIdle(final HikariPoolMXBean pool) {
+      if (!idleEvicted) {
+        idleEvicted = true;
+        hikari.getHikariConfigMXBean().setMinimumIdle(0);
+        LOGGER.debug("数据源 [{}] 长时间未使用，释放空闲连接", dataSourceCode);
+      }
+      if (pool.getIdleConnections() > 0) {
+        pool.softEvictConnections();
+      }
+    }
+
+    private void retire() {
+      removeMeters();
+      if (hikari == null || hikari.isClosed()) {
+        return;
+      }
+      hikari.getHikariConfigMXBean().setMinimumIdle(0);
+      HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+      if (pool != null) {
+        pool.softEvictConnections();
+      }
+    }
+
+    private void registerMeters(final MeterRegistry meterRegistry) {
+      if (meterRegistry == null) {
+        return;
+      }
+      registry = meterRegistry;
+      String code = dataSourceCode == null ? dataSourceId : dataSourceCode;
+      Timer timer = Timer.builder(METRIC_PREFIX + ".acquire")
+          .description("获取数据源连接耗时")
+          .tag("dataSource", code)
+          .register(meterRegistry);
+      meters.add(timer);
+      acquireTimer = timer;
+      if (hikari == null) {
+        return;
+      }
+      meters.add(connectionGauge(meterRegistry, code, "active", HikariPoolMXBean::getActiveConnections));
+      meters.add(connectionGauge(meterRegistry, code, "idle", HikariPoolMXBean::getIdleConnections));
+      meters.add(connectionGauge(meterRegistry, code, "pending", HikariPoolMXBean::getThreadsAwaitingConnection));
+      meters.add(Gauge.builder(METRIC_PREFIX + ".max", hikari, ds -> ds.getHikariConfigMXBean().getMaximumPoolSize())
+          .description("数据源连接池上限")
+          .tag("dataSource", code)
+          .register(meterRegistry));
+    }
+
+    private Gauge connectionGauge(
+        final MeterRegistry meterRegistry,
+        final String code,
+        final String state,
+        final ToIntFunction<HikariPoolMXBean> reader
+    ) {
+      return Gauge.builder(METRIC_PREFIX + ".connections", hikari, ds -> {
+        HikariPoolMXBean pool = ds.getHikariPoolMXBean();
+        return pool == null ? 0 : reader.applyAsInt(pool);
+      })
+          .description("数据源连接池连接数")
+          .tag("dataSource", code)
+          .tag("state", state)
+          .register(meterRegistry);
+    }
+
+    private void removeMeters() {
+      acquireTimer = null;
+      MeterRegistry current = registry;
+      if (current != null) {
+        meters.forEach(current::remove);
+      }
+      meters.clear();
+    }
+
+    private JdbcDataSourcePoolStats snapshot() {
+      HikariPoolMXBean pool = hikari == null || hikari.isClosed() ? null : hikari.getHikariPoolMXBean();
+      long count = acquireCount.sum();
+      return new JdbcDataSourcePoolStats(
+          dataSourceId,
+          dataSourceCode,
+          hikari == null ? "UNKNOWN" : "HIKARI",
+          pool == null ? -1 : pool.getActiveConnections(),
+          pool == null ? -1 : pool.getIdleConnections(),
+          pool == null ? -1 : pool.getTotalConnections(),
+          pool == null ? -1 : pool.getThreadsAwaitingConnection(),
+          hikari == null ? -1 : hikari.getHikariConfigMXBean().getMaximumPoolSize(),
+          count,
+          acquireFailures.sum(),
+          count == 0L ? 0D : acquireNanos.sum() / (double) count / 1_000_000D,
+          maxAcquireNanos.get() / 1_000_000D,
+          Instant.ofEpochMilli(lastUsedAt),
+          idleEvicted
+      );
+    }
+  }
+
+  /**
+   * Datasource wrapper that routes connection acquisition through the pool entry.
+   */
+  private static final class MeteredSimpleDataSource extends SimpleDataSource {
+
+    private final SimpleDataSource delegate;
+
+    private final PoolEntry entry;
+
+    private MeteredSimpleDataSource(final SimpleDataSource delegate, final PoolEntry entry) {
+      super(delegate);
+      this.delegate = delegate;
+      this.entry = entry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+      return entry.acquire(delegate::getConnection, true);
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+      return entry.acquire(() -> delegate.getConnection(username, password), true);
+    }
+  }
+
+  @FunctionalInterface
+  private interface ConnectionSupplier {
+    Connection get() throws SQLException;
+  }
+}
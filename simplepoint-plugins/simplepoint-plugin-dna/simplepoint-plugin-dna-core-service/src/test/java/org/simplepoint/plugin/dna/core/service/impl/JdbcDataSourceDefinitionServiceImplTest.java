@@ -28,6 +28,7 @@ import org.simplepoint.plugin.dna.core.api.repository.JdbcDataSourceDefinitionRe
 import org.simplepoint.plugin.dna.core.api.repository.JdbcDriverDefinitionRepository;
 import org.simplepoint.plugin.dna.core.api.spi.JdbcManagedDataSourceFactory;
 import org.simplepoint.plugin.dna.core.api.vo.JdbcDataSourceConnectionResult;
+import org.simplepoint.plugin.dna.core.service.support.JdbcDataSourcePoolManager;
 import org.simplepoint.plugin.dna.core.service.support.JdbcDriverArtifactManager;
 
 @ExtendWith(MockitoExtension.class)
@@ -64,7 +65,8 @@ class JdbcDataSourceDefinitionServiceImplTest {
         driverRepository,
         artifactManager,
         List.of(new StubFactory(new SimpleDataSource(new EmptyDataSource()))),
-        List.of()
+        List.of(),
+        new JdbcDataSourcePoolManager(null)
     );
     JdbcDataSourceDefinition definition = new JdbcDataSourceDefinition();
     definition.setName("demo");
@@ -104,7 +106,8 @@ class JdbcDataSourceDefinitionServiceImplTest {
         driverRepository,
         artifactManager,
         List.of(new StubFactory(simpleDataSource)),
-        List.of()
+        List.of(),
+        new JdbcDataSourcePoolManager(null)
     );
 
     JdbcDataSourceConnectionResult result = service.connect("ds-1");
@@ -125,7 +128,8 @@ class JdbcDataSourceDefinitionServiceImplTest {
     when(repository.save(any())).thenAnswer(inv -> inv.getArgument(0));
     final JdbcDataSourceDefinitionServiceImpl service = new JdbcDataSourceDefinitionServiceImpl(
         repository, detailsProviderService, driverRepository, artifactManager,
-        List.of(new ThrowingFactory()), List.of()
+        List.of(new ThrowingFactory()), List.of(),
+        new JdbcDataSourcePoolManager(null)
     );
 
     assertThrows(IllegalStateException.class, () -> service.connect("ds-1"));
@@ -135,7 +139,8 @@ class JdbcDataSourceDefinitionServiceImplTest {
   @Test
   void connectShouldThrowWhenIdIsBlank() {
     final JdbcDataSourceDefinitionServiceImpl service = new JdbcDataSourceDefinitionServiceImpl(
-        repository, detailsProviderService, driverRepository, artifactManager, List.of(), List.of()
+        repository, detailsProviderService, driverRepository, artifactManager, List.of(), List.of(),
+        new JdbcDataSourcePoolManager(null)
     );
     assertThrows(IllegalArgumentException.class, () -> service.connect("  "));
   }
@@ -144,7 +149,8 @@ class JdbcDataSourceDefinitionServiceImplTest {
   void connectShouldThrowWhenDefinitionNotFound() {
     when(repository.findActiveById("missing")).thenReturn(Optional.empty());
     final JdbcDataSourceDefinitionServiceImpl service = new JdbcDataSourceDefinitionServiceImpl(
-        repository, detailsProviderService, driverRepository, artifactManager, List.of(), List.of()
+        repository, detailsProviderService, driverRepository, artifactManager, List.of(), List.of(),
+        new JdbcDataSourcePoolManager(null)
     );
     assertThrows(IllegalArgumentException.class, () -> service.connect("missing"));
   }
@@ -152,7 +158,8 @@ class JdbcDataSourceDefinitionServiceImplTest {
   @Test
   void getCachedSimpleDataSourceShouldReturnEmptyBeforeConnect() {
     final JdbcDataSourceDefinitionServiceImpl service = new JdbcDataSourceDefinitionServiceImpl(
-        repository, detailsProviderService, driverRepository, artifactManager, List.of(), List.of()
+        repository, detailsProviderService, driverRepository, artifactManager, List.of(), List.of(),
+        new JdbcDataSourcePoolManager(null)
     );
     assertTrue(service.getCachedSimpleDataSource("ds-1").isEmpty());
   }
@@ -173,7 +180,8 @@ class JdbcDataSourceDefinitionServiceImplTest {
     when(metaData.getDatabaseProductVersion()).thenReturn("1.0");
     final JdbcDataSourceDefinitionServiceImpl service = new JdbcDataSourceDefinitionServiceImpl(
         repository, detailsProviderService, driverRepository, artifactManager,
-        List.of(new StubFactory(simpleDataSource)), List.of()
+        List.of(new StubFactory(simpleDataSource)), List.of(),
+        new JdbcDataSourcePoolManager(null)
     );
     service.connect("ds-1");
     assertTrue(service.getCachedSimpleDataSource("ds-1").isPresent());
@@ -186,7 +194,8 @@ class JdbcDataSourceDefinitionServiceImplTest {
   @Test
   void disconnectShouldDoNothingWhenIdIsNull() {
     final JdbcDataSourceDefinitionServiceImpl service = new JdbcDataSourceDefinitionServiceImpl(
-        repository, detailsProviderService, driverRepository, artifactManager, List.of(), List.of()
+        repository, detailsProviderService, driverRepository, artifactManager, List.of(), List.of(),
+        new JdbcDataSourcePoolManager(null)
     );
     // should not throw
     service.disconnect(null);
@@ -203,7 +212,8 @@ class JdbcDataSourceDefinitionServiceImplTest {
     when(driverRepository.findActiveById("driver-1")).thenReturn(Optional.of(driver));
     final JdbcDataSourceDefinitionServiceImpl service = new JdbcDataSourceDefinitionServiceImpl(
         repository, detailsProviderService, driverRepository, artifactManager,
-        List.of(new StubFactory(new SimpleDataSource(new EmptyDataSource()))), List.of()
+        List.of(new StubFactory(new SimpleDataSource(new EmptyDataSource()))), List.of(),
+        new JdbcDataSourcePoolManager(null)
     );
     assertThrows(IllegalStateException.class, () -> service.requireSimpleDataSource("ds-1"));
   }
@@ -218,7 +228,8 @@ class JdbcDataSourceDefinitionServiceImplTest {
     when(driverRepository.findActiveById("driver-1")).thenReturn(Optional.of(driver));
     final JdbcDataSourceDefinitionServiceImpl service = new JdbcDataSourceDefinitionServiceImpl(
         repository, detailsProviderService, driverRepository, artifactManager,
-        List.of(new StubFactory(new SimpleDataSource(new EmptyDataSource()))), List.of()
+        List.of(new StubFactory(new SimpleDataSource(new EmptyDataSource()))), List.of(),
+        new JdbcDataSourcePoolManager(null)
     );
     assertThrows(IllegalStateException.class, () -> service.requireSimpleDataSource("ds-1"));
   }
@@ -228,7 +239,8 @@ class JdbcDataSourceDefinitionServiceImplTest {
     JdbcDataSourceDefinition existing = buildDefinition("ds-existing", "driver-1", "jdbc:mysql://localhost/db");
     when(repository.findActiveByCode("demo")).thenReturn(Optional.of(existing));
     final JdbcDataSourceDefinitionServiceImpl service = new JdbcDataSourceDefinitionServiceImpl(
-        repository, detailsProviderService, driverRepository, artifactManager, List.of(), List.of()
+        repository, detailsProviderService, driverRepository, artifactManager, List.of(), List.of(),
+        new JdbcDataSourcePoolManager(null)
     );
     JdbcDataSourceDefinition definition = buildDefinition(null, "driver-1", "jdbc:mysql://localhost:3306/db");
 
@@ -238,7 +250,8 @@ class JdbcDataSourceDefinitionServiceImplTest {
   @Test
   void createShouldThrowWhenNameIsEmpty() {
     final JdbcDataSourceDefinitionServiceImpl service = new JdbcDataSourceDefinitionServiceImpl(
-        repository, detailsProviderService, driverRepository, artifactManager, List.of(), List.of()
+        repository, detailsProviderService, driverRepository, artifactManager, List.of(), List.of(),
+        new JdbcDataSourcePoolManager(null)
     );
     JdbcDataSourceDefinition definition = new JdbcDataSourceDefinition();
     definition.setCode("code");
@@ -251,7 +264,8 @@ class JdbcDataSourceDefinitionServiceImplTest {
   void createShouldThrowWhenDriverNotFound() {
     when(driverRepository.findActiveById("missing-driver")).thenReturn(Optional.empty());
     final JdbcDataSourceDefinitionServiceImpl service = new JdbcDataSourceDefinitionServiceImpl(
-        repository, detailsProviderService, driverRepository, artifactManager, List.of(), List.of()
+        repository, detailsProviderService, driverRepository, artifactManager, List.of(), List.of(),
+        new JdbcDataSourcePoolManager(null)
     );
     JdbcDataSourceDefinition definition = new JdbcDataSourceDefinition();
     definition.setName("demo");
@@ -282,7 +296,8 @@ class JdbcDataSourceDefinitionServiceImplTest {
 
     final JdbcDataSourceDefinitionServiceImpl service = new JdbcDataSourceDefinitionServiceImpl(
         repository, detailsProviderService, driverRepository, artifactManager,
-        List.of(new StubFactory(ds1)), List.of()
+        List.of(new StubFactory(ds1)), List.of(),
+        new JdbcDataSourcePoolManager(null)
     );
     service.connect("ds-1");
 
@@ -294,7 +309,8 @@ class JdbcDataSourceDefinitionServiceImplTest {
   @Test
   void disconnectByDriverIdShouldDoNothingForNullDriverId() {
     final JdbcDataSourceDefinitionServiceImpl service = new JdbcDataSourceDefinitionServiceImpl(
-        repository, detailsProviderService, driverRepository, artifactManager, List.of(), List.of()
+        repository, detailsProviderService, driverRepository, artifactManager, List.of(), List.of(),
+        new JdbcDataSourcePoolManager(null)
     );
     service.disconnectByDriverId(null);
     verify(repository, never()).findAllActiveByDriverId(any());
@@ -309,7 +325,8 @@ class JdbcDataSourceDefinitionServiceImplTest {
     when(repository.findActiveById("ds-1")).thenReturn(Optional.of(definition));
     when(driverRepository.findAllByIds(any())).thenReturn(List.of(driver));
     final JdbcDataSourceDefinitionServiceImpl service = new JdbcDataSourceDefinitionServiceImpl(
-        repository, detailsProviderService, driverRepository, artifactManager, List.of(), List.of()
+        repository, detailsProviderService, driverRepository, artifactManager, List.of(), List.of(),
+        new JdbcDataSourcePoolManager(null)
     );
 
     Optional<JdbcDataSourceDefinition> result = service.findActiveById("ds-1");
@@ -322,7 +339,8 @@ class JdbcDataSourceDefinitionServiceImplTest {
   void findActiveByIdShouldReturnEmptyWhenNotFound() {
     when(repository.findActiveById("unknown")).thenReturn(Optional.empty());
     final JdbcDataSourceDefinitionServiceImpl service = new JdbcDataSourceDefinitionServiceImpl(
-        repository, detailsProviderService, driverRepository, artifactManager, List.of(), List.of()
+        repository, detailsProviderService, driverRepository, artifactManager, List.of(), List.of(),
+        new JdbcDataSourcePoolManager(null)
     );
     assertFalse(service.findActiveById("unknown").isPresent());
   }
@@ -336,7 +354,8 @@ class JdbcDataSourceDefinitionServiceImplTest {
     when(repository.findActiveByCode("ds-code")).thenReturn(Optional.of(definition));
     when(driverRepository.findAllByIds(any())).thenReturn(List.of(driver));
     final JdbcDataSourceDefinitionServiceImpl service = new JdbcDataSourceDefinitionServiceImpl(
-        repository, detailsProviderService, driverRepository, artifactManager, List.of(), List.of()
+        repository, detailsProviderService, driverRepository, artifactManager, List.of(), List.of(),
+        new JdbcDataSourcePoolManager(null)
     );
 
     Optional<JdbcDataSourceDefinition> result = service.findActiveByCode("ds-code");
@@ -359,7 +378,8 @@ class JdbcDataSourceDefinitionServiceImplTest {
     when(repository.findAllActive()).thenReturn(List.of(ds1, ds2, ds3));
     when(driverRepository.findAllByIds(any())).thenReturn(List.of());
     final JdbcDataSourceDefinitionServiceImpl service = new JdbcDataSourceDefinitionServiceImpl(
-        repository, detailsProviderService, driverRepository, artifactManager, List.of(), List.of()
+        repository, detailsProviderService, driverRepository, artifactManager, List.of(), List.of(),
+        new JdbcDataSourcePoolManager(null)
     );
 
     List<JdbcDataSourceDefinition> result = service.listEnabledDefinitions();
@@ -372,7 +392,8 @@ class JdbcDataSourceDefinitionServiceImplTest {
   @Test
   void removeByIdsShouldReturnEarlyForNullOrEmpty() {
     final JdbcDataSourceDefinitionServiceImpl service = new JdbcDataSourceDefinitionServiceImpl(
-        repository, detailsProviderService, driverRepository, artifactManager, List.of(), List.of()
+        repository, detailsProviderService, driverRepository, artifactManager, List.of(), List.of(),
+        new JdbcDataSourcePoolManager(null)
     );
     // No-ops — should not throw or interact with any repository
     service.removeByIds(List.of());
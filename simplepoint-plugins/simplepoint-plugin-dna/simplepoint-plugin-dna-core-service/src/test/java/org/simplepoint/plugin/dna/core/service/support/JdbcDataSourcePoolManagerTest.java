@@ -0,0 +1,139 @@
+package org.simplepoint.plugin.dna.core.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.time.Instant;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.simplepoint.data.datasource.jdbc.SimpleDataSource;
+import org.simplepoint.plugin.dna.core.api.vo.JdbcDataSourcePoolStats;
+
+class JdbcDataSourcePoolManagerTest {
+
+  private final JdbcDataSourcePoolManager manager = new JdbcDataSourcePoolManager(null);
+
+  private HikariDataSource hikari;
+
+  @AfterEach
+  void tearDown() {
+    if (hikari != null) {
+      hikari.close();
+    }
+    manager.destroy();
+  }
+
+  @Test
+  void allocateKeepsRequestsWithinBudgetUnchanged() {
+    assertArrayEquals(new int[]{3, 20, 1}, JdbcDataSourcePoolManager.allocate(new int[]{3, 30, 0}, 100, 1, 20));
+  }
+
+  @Test
+  void allocateSharesBudgetInProportionAboveTheFloor() {
+    int[] sizes = JdbcDataSourcePoolManager.allocate(new int[]{10, 4, 1}, 10, 1, 20);
+
+    assertArrayEquals(new int[]{6, 2, 1}, sizes);
+  }
+
+  @Test
+  void allocateFallsBackToTheFloorWhenBudgetIsExhausted() {
+    assertArrayEquals(new int[]{2, 2, 2}, JdbcDataSourcePoolManager.allocate(new int[]{8, 5, 2}, 3, 2, 20));
+  }
+
+  @Test
+  void recordsAcquisitionsAndEvictsIdleSources() throws Exception {
+    SimpleDataSource dataSource = register(4);
+    try (Connection ignored = dataSource.getConnection()) {
+      assertEquals(1, single().activeConnections());
+    }
+    setField(manager, "idleEvictAfterMs", 0L);
+
+    manager.rebalance();
+
+    JdbcDataSourcePoolStats evicted = single();
+    assertTrue(evicted.idleEvicted());
+    assertEquals(0, evicted.idleConnections());
+    assertEquals(0, hikari.getMinimumIdle());
+    assertEquals(1L, evicted.acquireCount());
+
+    setField(manager, "idleEvictAfterMs", 600_000L);
+    try (Connection ignored = dataSource.getConnection()) {
+      JdbcDataSourcePoolStats revived = single();
+      assertFalse(revived.idleEvicted());
+      assertEquals(2L, revived.acquireCount());
+      assertEquals(1, hikari.getMinimumIdle());
+    }
+  }
+
+  @Test
+  void backgroundPollingDoesNotKeepUnusedPoolsFromBeingEvicted() throws Exception {
+    SimpleDataSource dataSource = register(4);
+    try (Connection ignored = dataSource.getConnection()) {
+      assertEquals(1, single().activeConnections());
+    }
+    final Instant lastUsed = single().lastUsedAt();
+    setField(manager, "idleEvictAfterMs", 50L);
+    Thread.sleep(100L);
+
+    // Metadata change detection borrows a connection on every pass, right before the pool is sampled.
+    try (Connection ignored = manager.backgroundConnection(dataSource)) {
+      assertEquals(1, single().activeConnections());
+    }
+    manager.rebalance();
+
+    JdbcDataSourcePoolStats evicted = single();
+    assertTrue(evicted.idleEvicted());
+    assertEquals(lastUsed, evicted.lastUsedAt());
+    assertEquals(2L, evicted.acquireCount());
+
+    try (Connection ignored = manager.backgroundConnection(dataSource)) {
+      assertTrue(single().idleEvicted());
+      assertEquals(0, hikari.getMinimumIdle());
+    }
+    try (Connection ignored = dataSource.getConnection()) {
+      assertFalse(single().idleEvicted());
+      assertEquals(1, hikari.getMinimumIdle());
+    }
+  }
+
+  @Test
+  void growsSaturatedPoolsAndShrinksThemOnceQuiet() throws Exception {
+    SimpleDataSource dataSource = register(2);
+    setField(manager, "saturationThresholdMs", 0L);
+    try (Connection first = dataSource.getConnection(); Connection second = dataSource.getConnection()) {
+      manager.rebalance();
+      assertEquals(3, single().maximumPoolSize());
+    }
+
+    manager.rebalance();
+    manager.rebalance();
+    manager.rebalance();
+
+    assertEquals(1, single().maximumPoolSize());
+  }
+
+  private SimpleDataSource register(final int initialMaximumSize) throws Exception {
+    setField(manager, "initialMaximumSize", initialMaximumSize);
+    hikari = new HikariDataSource();
+    hikari.setJdbcUrl("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+    manager.configure(hikari, "dna-test");
+    return manager.register("ds-1", "demo", new SimpleDataSource(hikari));
+  }
+
+  private JdbcDataSourcePoolStats single() {
+    assertEquals(1, manager.stats().size());
+    return manager.stats().getFirst();
+  }
+
+  private static void setField(final Object target, final String name, final Object value) throws Exception {
+    Field field = target.getClass().getDeclaredField(name);
+    field.setAccessible(true);
+    field.set(target, value);
+  }
+}
@@ -247,4 +247,23 @@ public class DataQualityRule extends BaseEntityImpl<String> {
   )
   @Column(length = 512)
   private String description;
+
+  @Order(14)
+  @Schema(
+      title = "i18n:dna.dataQuality.title.incrementalColumn",
+      description = "i18n:dna.dataQuality.description.incrementalColumn",
+      maxLength = 128
+  )
+  @Column(length = 128)
+  private String incrementalColumn;
+
+  @Order(15)
+  @Schema(
+      title = "i18n:dna.dataQuality.title.lastWatermark",
+      description = "i18n:dna.dataQuality.description.lastWatermark",
+      maxLength = 256,
+      accessMode = Schema.AccessMode.READ_ONLY
+  )
+  @Column(length = 256)
+  private String lastWatermark;
 }
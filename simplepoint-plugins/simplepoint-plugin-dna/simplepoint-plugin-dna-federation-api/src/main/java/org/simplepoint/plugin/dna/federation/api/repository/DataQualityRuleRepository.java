@@ -1,5 +1,6 @@
 package org.simplepoint.plugin.dna.federation.api.repository;
 
+import java.util.List;
 import java.util.Optional;
 import org.simplepoint.api.base.BaseRepository;
 import org.simplepoint.plugin.dna.federation.api.entity.DataQualityRule;
@@ -24,4 +25,11 @@ public interface DataQualityRuleRepository extends BaseRepository<DataQualityRul
    * @return active rule
    */
   Optional<DataQualityRule> findActiveByCode(String code);
+
+  /**
+   * Lists all active and enabled quality rules.
+   *
+   * @return enabled rules
+   */
+  List<DataQualityRule> findAllEnabled();
 }
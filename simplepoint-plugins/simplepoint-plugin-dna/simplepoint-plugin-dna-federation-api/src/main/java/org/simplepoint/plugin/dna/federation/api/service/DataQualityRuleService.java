@@ -1,5 +1,7 @@
 package org.simplepoint.plugin.dna.federation.api.service;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import org.simplepoint.api.base.BaseService;
 import org.simplepoint.plugin.dna.federation.api.entity.DataQualityRule;
@@ -40,4 +42,21 @@ public interface DataQualityRuleService extends BaseService<DataQualityRule, Str
    * @return updated rule with execution result
    */
   DataQualityRule executeCheck(String ruleId);
+
+  /**
+   * Executes the quality checks of several rules. Rules on the same table are evaluated by one
+   * fused scan and independent scans run in parallel.
+   *
+   * @param ruleIds rule ids
+   * @return updated rules with execution results, in request order
+   */
+  List<DataQualityRule> executeChecks(Collection<String> ruleIds);
+
+  /**
+   * Executes all enabled rules for a scheduled run. Rules with an incremental column only check
+   * rows beyond their last watermark.
+   *
+   * @return updated rules with execution results
+   */
+  List<DataQualityRule> executeScheduledChecks();
 }
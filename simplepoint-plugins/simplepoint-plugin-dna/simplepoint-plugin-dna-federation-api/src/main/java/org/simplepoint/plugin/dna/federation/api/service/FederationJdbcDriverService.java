@@ -342,13 +342,23 @@ public interface FederationJdbcDriverService {
   FederationJdbcDriverModels.TabularResult typeInfo(DriverSession session, String contextId);
 
   /**
-   * Flushes all cached metadata entries from the global cache.
+   * Flushes all cached metadata entries on every node.
    *
    * @param session reusable driver session
-   * @return the number of entries flushed, or -1 if cache is unavailable
+   * @return the number of local entries dropped on this node
    */
   long flushCache(DriverSession session);
 
+  /**
+   * Returns the version of the federation metadata served to drivers. It changes whenever cached
+   * metadata is flushed, so clients can invalidate their own metadata caches.
+   *
+   * @return metadata version
+   */
+  default long metadataVersion() {
+    return 0L;
+  }
+
   /**
    * Executes a read-only query through the current federation catalog.
    *
@@ -375,6 +385,23 @@ public interface FederationJdbcDriverService {
       FederationJdbcDriverModels.QueryRequest queryRequest
   );
 
+  /**
+   * Opens a server-side cursor over a read-only query for an existing driver session.
+   * Fetching and closing the cursor run under the session's security context.
+   *
+   * @param session reusable driver session
+   * @param contextId optional permission context id
+   * @param queryRequest query request
+   * @param fetchSize rows per batch
+   * @return open query cursor
+   */
+  FederationSqlConsoleService.QueryCursor openCursor(
+      DriverSession session,
+      String contextId,
+      FederationJdbcDriverModels.QueryRequest queryRequest,
+      int fetchSize
+  );
+
   /**
    * Executes a DML statement (INSERT / UPDATE / DELETE / UPSERT) through a request-based call.
    *
@@ -401,6 +428,40 @@ public interface FederationJdbcDriverService {
       FederationJdbcDriverModels.QueryRequest queryRequest
   );
 
+  /**
+   * Executes one DML statement once per parameter set for an existing driver session.
+   * The default implementation issues one update per parameter set.
+   *
+   * @param session reusable driver session
+   * @param contextId optional permission context id
+   * @param queryRequest query request containing the DML SQL; its parameters are ignored
+   * @param parameterSets bind parameters, one list per execution
+   * @return update count per parameter set
+   */
+  default FederationQueryModels.SqlBatchUpdateResult executeBatch(
+      final DriverSession session,
+      final String contextId,
+      final FederationJdbcDriverModels.QueryRequest queryRequest,
+      final List<List<Object>> parameterSets
+  ) {
+    long startedAt = System.nanoTime();
+    long[] updateCounts = new long[parameterSets == null ? 0 : parameterSets.size()];
+    FederationQueryModels.SqlUpdateResult last = null;
+    for (int index = 0; index < updateCounts.length; index++) {
+      last = executeUpdate(session, contextId, new FederationJdbcDriverModels.QueryRequest(
+          queryRequest.sql(), queryRequest.defaultSchema(), queryRequest.catalogCode(), parameterSets.get(index)
+      ));
+      updateCounts[index] = last.affectedRows();
+    }
+    return new FederationQueryModels.SqlBatchUpdateResult(
+        last == null ? queryRequest.catalogCode() : last.catalogCode(),
+        last == null ? null : last.dataSourceCode(),
+        updateCounts,
+        (System.nanoTime() - startedAt) / 1_000_000L,
+        last == null ? null : last.pushedSql()
+    );
+  }
+
   /**
    * Executes a DDL statement (CREATE / ALTER / DROP / TRUNCATE) through a request-based call.
    *
@@ -0,0 +1,77 @@
+package org.simplepoint.plugin.dna.federation.api.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Optional;
+import org.simplepoint.plugin.dna.federation.api.vo.FederationQueryModels;
+
+/**
+ * Service contract for streaming exports of federation query results.
+ */
+public interface FederationQueryExportService {
+
+  /**
+   * An export whose query has already been validated and opened, ready to be written.
+   */
+  interface ExportStream extends AutoCloseable {
+
+    /**
+     * Returns the export id used to poll progress.
+     *
+     * @return export id
+     */
+    String exportId();
+
+    /**
+     * Returns the download file name.
+     *
+     * @return file name including extension
+     */
+    String fileName();
+
+    /**
+     * Returns the MIME type of the written content.
+     *
+     * @return content type
+     */
+    String contentType();
+
+    /**
+     * Streams every remaining row to the output, then closes the query.
+     *
+     * @param output destination stream, not closed by this method
+     * @return final progress
+     * @throws IOException when writing to the output fails
+     */
+    FederationQueryModels.SqlExportProgress writeTo(OutputStream output) throws IOException;
+
+    @Override
+    void close();
+  }
+
+  /**
+   * Validates the request and opens the query so errors surface before any byte is written.
+   * Fails with {@link IllegalStateException} when the export id is already running or belongs to
+   * another user.
+   *
+   * @param request export request
+   * @return open export, which the caller must write or close
+   */
+  ExportStream openStream(FederationQueryModels.SqlExportRequest request);
+
+  /**
+   * Exports the query to object storage as a sequence of part files.
+   *
+   * @param request export request
+   * @return final progress, listing the uploaded parts
+   */
+  FederationQueryModels.SqlExportProgress exportToStorage(FederationQueryModels.SqlExportRequest request);
+
+  /**
+   * Returns the progress of a running or recently finished export of the current user.
+   *
+   * @param exportId export id
+   * @return progress, empty when unknown, expired or submitted by another user
+   */
+  Optional<FederationQueryModels.SqlExportProgress> progress(String exportId);
+}
@@ -1,5 +1,6 @@
 package org.simplepoint.plugin.dna.federation.api.service;
 
+import java.util.List;
 import org.simplepoint.plugin.dna.federation.api.vo.FederationQueryModels;
 
 /**
@@ -7,6 +8,46 @@ import org.simplepoint.plugin.dna.federation.api.vo.FederationQueryModels;
  */
 public interface FederationSqlConsoleService {
 
+  /**
+   * Forward-only server-side cursor over a read-only federation query.
+   */
+  interface QueryCursor extends AutoCloseable {
+
+    /**
+     * Returns the query metadata together with the first batch of rows.
+     *
+     * @return first batch of the query result
+     */
+    FederationQueryModels.SqlQueryResult firstBatch();
+
+    /**
+     * Fetches the next batch of rows.
+     *
+     * @param batchSize maximum rows to return
+     * @return next rows, empty once the cursor is exhausted
+     */
+    List<List<Object>> fetch(int batchSize);
+
+    /**
+     * Returns whether more rows remain.
+     *
+     * @return true while rows remain
+     */
+    boolean hasMore();
+
+    /**
+     * Returns whether rows beyond the effective row limit were discarded.
+     *
+     * @return true when the result was truncated
+     */
+    default boolean truncated() {
+      return firstBatch().truncated();
+    }
+
+    @Override
+    void close();
+  }
+
   /**
    * Produces an explain-plan analysis for a read-only federation SQL query.
    *
@@ -37,6 +78,59 @@ public interface FederationSqlConsoleService {
     return execute(request);
   }
 
+  /**
+   * Opens a cursor over a read-only federation SQL query with an already resolved datasource id.
+   * The first {@code fetchSize} rows are returned by {@link QueryCursor#firstBatch()}; the rest
+   * are read from the backend on demand until the cursor is closed.
+   *
+   * <p>The default implementation executes the query eagerly and pages through the buffered rows.
+   *
+   * @param dataSourceId resolved datasource id
+   * @param request SQL console request
+   * @param fetchSize rows per batch
+   * @return open query cursor
+   */
+  default QueryCursor openCursor(
+      final String dataSourceId,
+      final FederationQueryModels.SqlConsoleRequest request,
+      final int fetchSize
+  ) {
+    if (fetchSize < 1) {
+      throw new IllegalArgumentException("fetchSize 必须大于 0");
+    }
+    FederationQueryModels.SqlQueryResult result = execute(dataSourceId, request);
+    List<List<Object>> rows = result.rows();
+    int firstEnd = Math.min(fetchSize, rows.size());
+    FederationQueryModels.SqlQueryResult firstBatch = result.withRows(rows.subList(0, firstEnd));
+    return new QueryCursor() {
+
+      private int position = firstEnd;
+
+      @Override
+      public FederationQueryModels.SqlQueryResult firstBatch() {
+        return firstBatch;
+      }
+
+      @Override
+      public List<List<Object>> fetch(final int batchSize) {
+        int end = Math.min(rows.size(), position + Math.max(1, batchSize));
+        List<List<Object>> batch = rows.subList(position, end);
+        position = end;
+        return batch;
+      }
+
+      @Override
+      public boolean hasMore() {
+        return position < rows.size();
+      }
+
+      @Override
+      public void close() {
+        position = rows.size();
+      }
+    };
+  }
+
   /**
    * Executes a DML statement (INSERT / UPDATE / DELETE / UPSERT) against a single physical datasource.
    * The statement is pushed directly to the target database without Calcite optimization.
@@ -60,6 +154,39 @@ public interface FederationSqlConsoleService {
     return executeUpdate(request);
   }
 
+  /**
+   * Executes one DML statement once per parameter set against a single physical datasource.
+   * The default implementation issues one update per parameter set; implementations backed by
+   * JDBC should send the whole matrix as a single statement batch.
+   *
+   * @param dataSourceId  resolved datasource id
+   * @param request       SQL console request containing the DML statement; its parameters are ignored
+   * @param parameterSets bind parameters, one list per execution
+   * @return update count per parameter set
+   */
+  default FederationQueryModels.SqlBatchUpdateResult executeBatch(
+      final String dataSourceId,
+      final FederationQueryModels.SqlConsoleRequest request,
+      final List<List<Object>> parameterSets
+  ) {
+    long startedAt = System.nanoTime();
+    long[] updateCounts = new long[parameterSets == null ? 0 : parameterSets.size()];
+    FederationQueryModels.SqlUpdateResult last = null;
+    for (int index = 0; index < updateCounts.length; index++) {
+      last = executeUpdate(dataSourceId, new FederationQueryModels.SqlConsoleRequest(
+          request.catalogCode(), request.sql(), request.defaultSchema(), parameterSets.get(index)
+      ));
+      updateCounts[index] = last.affectedRows();
+    }
+    return new FederationQueryModels.SqlBatchUpdateResult(
+        request.catalogCode(),
+        last == null ? null : last.dataSourceCode(),
+        updateCounts,
+        (System.nanoTime() - startedAt) / 1_000_000L,
+        last == null ? null : last.pushedSql()
+    );
+  }
+
   /**
    * Executes a DDL statement (CREATE / ALTER / DROP / TRUNCATE / RENAME / COMMENT)
    * against a single physical datasource. The statement is pushed directly to
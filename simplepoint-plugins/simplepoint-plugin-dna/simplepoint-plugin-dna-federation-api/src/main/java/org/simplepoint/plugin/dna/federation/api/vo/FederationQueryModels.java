@@ -1,5 +1,6 @@
 package org.simplepoint.plugin.dna.federation.api.vo;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -226,6 +227,101 @@ public final class FederationQueryModels {
   ) {
   }
 
+  /**
+   * Batched DML execution response payload: one statement executed once per parameter set.
+   *
+   * @param catalogCode     target federation catalog code
+   * @param dataSourceCode  physical datasource code that executed the batch
+   * @param updateCounts    update count per parameter set, as reported by the target JDBC driver
+   * @param executionTimeMs execution time in milliseconds
+   * @param pushedSql       actual SQL pushed to the physical database
+   */
+  public record SqlBatchUpdateResult(
+      String catalogCode,
+      String dataSourceCode,
+      long[] updateCounts,
+      long executionTimeMs,
+      String pushedSql
+  ) {
+  }
+
+  /**
+   * Streaming export request payload.
+   *
+   * <p>{@code startRow} resumes an interrupted CSV download: the first {@code startRow} rows are
+   * skipped and the header is omitted so the output can be appended to the partial file.
+   * Object-storage exports are split into parts of {@code partRows} rows; {@code startPart}
+   * together with the original {@code exportId} resumes after the last uploaded part. Both rely
+   * on the query returning rows in a stable order, so resumed exports should use ORDER BY.
+   *
+   * @param catalogCode   target federation catalog code
+   * @param sql           read-only SQL to export
+   * @param defaultSchema optional default schema for unqualified identifiers
+   * @param parameters    optional bind parameters
+   * @param maxRows       optional row limit, capped by the query policy
+   * @param format        {@code CSV} (default), {@code JSON} or {@code PARQUET}
+   * @param compression   {@code NONE} or {@code GZIP}; defaults to GZIP for Parquet and NONE otherwise
+   * @param startRow      rows to skip before writing, HTTP CSV exports only
+   * @param partRows      rows per object-storage part, null for the server default
+   * @param startPart     first part to write when resuming an object-storage export
+   * @param exportId      export id to resume, null to start a new export
+   */
+  public record SqlExportRequest(
+      String catalogCode,
+      String sql,
+      String defaultSchema,
+      List<Object> parameters,
+      Integer maxRows,
+      String format,
+      String compression,
+      Long startRow,
+      Long partRows,
+      Integer startPart,
+      String exportId
+  ) {
+
+    /**
+     * Returns the SQL console request that produces the exported rows.
+     *
+     * @return SQL console request
+     */
+    public SqlConsoleRequest toConsoleRequest() {
+      return new SqlConsoleRequest(catalogCode, sql, defaultSchema, parameters, maxRows);
+    }
+  }
+
+  /**
+   * Progress of a running or finished export.
+   *
+   * @param exportId       export id
+   * @param format         export format
+   * @param status         {@code RUNNING}, {@code COMPLETED} or {@code FAILED}
+   * @param startRow       rows skipped before writing
+   * @param rowsWritten    rows written so far
+   * @param bytesWritten   bytes written so far, after compression
+   * @param partsCompleted object-storage parts uploaded so far, including resumed ones
+   * @param objectIds      object-storage ids of the parts uploaded by this run
+   * @param truncated      whether the query policy row limit cut the export short
+   * @param errorMessage   failure reason when status is FAILED
+   * @param startedAt      start time
+   * @param updatedAt      time of the last progress update
+   */
+  public record SqlExportProgress(
+      String exportId,
+      String format,
+      String status,
+      long startRow,
+      long rowsWritten,
+      long bytesWritten,
+      int partsCompleted,
+      List<String> objectIds,
+      boolean truncated,
+      String errorMessage,
+      Instant startedAt,
+      Instant updatedAt
+  ) {
+  }
+
   /**
    * Unified execution response returned by the smart {@code /execute} endpoint.
    * Wraps one of the concrete result types and exposes a {@code type} discriminator
@@ -438,5 +534,36 @@ public final class FederationQueryModels {
       mountedDataSourceCount = Math.max(0, mountedDataSourceCount);
       pushedDownOperators = pushedDownOperators == null ? List.of() : List.copyOf(pushedDownOperators);
     }
+
+    /**
+     * Returns a copy of this result carrying only the supplied rows, as used for cursor batches.
+     *
+     * @param batchRows rows of the batch
+     * @return result with the supplied rows and a matching returned-row count
+     */
+    public SqlQueryResult withRows(final List<List<Object>> batchRows) {
+      return new SqlQueryResult(
+          catalogCode,
+          policyCode,
+          maxRows,
+          timeoutMs,
+          allowCrossSourceJoin,
+          crossSourceJoin,
+          dataSources,
+          columns,
+          batchRows,
+          truncated,
+          batchRows == null ? 0L : batchRows.size(),
+          executionTimeMs,
+          planText,
+          pushedSqls,
+          pushdownSummary,
+          schemaCacheHit,
+          schemaAssemblyTimeMs,
+          mountedDataSourceCount,
+          pushedDownOperators,
+          platformJoin
+      );
+    }
   }
 }
@@ -1,5 +1,6 @@
 package org.simplepoint.plugin.dna.federation.repository;
 
+import java.util.List;
 import java.util.Optional;
 import org.simplepoint.data.jpa.base.BaseRepository;
 import org.simplepoint.plugin.dna.federation.api.entity.DataQualityRule;
@@ -30,4 +31,13 @@ public interface JpaDataQualityRuleRepository
       where r.code = :code and r.deletedAt is null
       """)
   Optional<DataQualityRule> findActiveByCode(@Param("code") String code);
+
+  @Override
+  @Query("""
+      select r
+      from DataQualityRule r
+      where r.deletedAt is null and r.enabled = true
+      order by r.catalogId, r.targetTable
+      """)
+  List<DataQualityRule> findAllEnabled();
 }
@@ -7,4 +7,7 @@ dependencies {
     implementation("org.springframework.security:spring-security-config")
     implementation("org.springframework.security:spring-security-web")
     implementation(libs.swagger.annotations)
+
+    testImplementation("org.springframework.boot:spring-boot-starter-test")
+    testImplementation("jakarta.servlet:jakarta.servlet-api")
 }
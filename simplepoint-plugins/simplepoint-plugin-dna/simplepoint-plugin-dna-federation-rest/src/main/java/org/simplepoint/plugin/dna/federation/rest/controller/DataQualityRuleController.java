@@ -129,6 +129,23 @@ public class DataQualityRuleController
     }
   }
 
+  /**
+   * Executes the quality checks of several rules; rules on the same table share one scan.
+   *
+   * @param ids comma-separated rule ids
+   * @return rules with updated execution results
+   */
+  @PostMapping("/execute-batch")
+  @PreAuthorize("hasRole('Administrator') or hasAuthority('dna.data-quality.execute')")
+  @Operation(summary = "批量执行质量检查", description = "立即执行多条规则的质量检查，同表规则合并为一次扫描")
+  public Response<?> executeBatch(@RequestParam("ids") final String ids) {
+    try {
+      return ok(service.executeChecks(StringUtil.stringToSet(ids)));
+    } catch (IllegalArgumentException ex) {
+      return badRequest(ex.getMessage());
+    }
+  }
+
   private Response<String> badRequest(final String message) {
     return Response.of(
         ResponseEntity.badRequest()
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
@@ -12,12 +13,15 @@ import java.nio.charset.StandardCharsets;
 import java.util.List;
 import org.simplepoint.core.http.Response;
 import org.simplepoint.plugin.dna.federation.api.constants.DnaFederationPaths;
+import org.simplepoint.plugin.dna.federation.api.service.FederationQueryExportService;
 import org.simplepoint.plugin.dna.federation.api.service.FederationSqlConsoleService;
 import org.simplepoint.plugin.dna.federation.api.vo.FederationQueryModels;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -31,21 +35,28 @@ import org.springframework.web.bind.annotation.RestController;
 @Tag(name = "联邦 SQL 控制台", description = "用于执行和分析联邦 SQL（支持 SELECT / DML / DDL / FLUSH CACHE）")
 public class FederationSqlConsoleController {
 
+  private static final String EXPORT_ID_HEADER = "X-Export-Id";
+
   private final FederationSqlConsoleService service;
 
+  private final FederationQueryExportService exportService;
+
   private final ObjectMapper objectMapper;
 
   /**
    * Creates a federation SQL console controller.
    *
    * @param service SQL console service
+   * @param exportService streaming export service
    * @param objectMapper JSON serializer
    */
   public FederationSqlConsoleController(
       final FederationSqlConsoleService service,
+      final FederationQueryExportService exportService,
       final ObjectMapper objectMapper
   ) {
     this.service = service;
+    this.exportService = exportService;
     this.objectMapper = objectMapper;
   }
 
@@ -139,6 +150,76 @@ public class FederationSqlConsoleController {
     }
   }
 
+  /**
+   * Streams query results straight to the response without materializing them. The query is
+   * validated before any byte is written, so rejected SQL still gets a plain-text 400; the
+   * {@value #EXPORT_ID_HEADER} response header carries the id for polling progress.
+   *
+   * @param request  export request
+   * @param response servlet response written in the request thread
+   * @throws IOException when writing to the client fails
+   */
+  @PostMapping("/export/stream")
+  @PreAuthorize("hasRole('Administrator') or hasAuthority('dna.federation.sql-console.execute')")
+  @Operation(
+      summary = "流式导出查询结果",
+      description = "逐批读取查询结果并直接写入响应，支持 CSV / JSON / Parquet、GZIP 压缩和 CSV 按行续传"
+  )
+  public void exportStream(
+      @RequestBody final FederationQueryModels.SqlExportRequest request,
+      final HttpServletResponse response
+  ) throws IOException {
+    FederationQueryExportService.ExportStream export;
+    try {
+      export = exportService.openStream(request);
+    } catch (IllegalArgumentException | IllegalStateException ex) {
+      response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+      response.setContentType(MediaType.TEXT_PLAIN_VALUE + ";charset=UTF-8");
+      response.getOutputStream().write(
+          (trimToNull(ex.getMessage()) == null ? "请求参数错误" : ex.getMessage()).getBytes(StandardCharsets.UTF_8)
+      );
+      return;
+    }
+    try (export) {
+      response.setContentType(export.contentType());
+      response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + export.fileName());
+      response.setHeader(EXPORT_ID_HEADER, export.exportId());
+      export.writeTo(response.getOutputStream());
+    }
+  }
+
+  /**
+   * Exports query results to object storage as part files.
+   *
+   * @param request export request
+   * @return final export progress with the uploaded part ids
+   */
+  @PostMapping("/export/storage")
+  @PreAuthorize("hasRole('Administrator') or hasAuthority('dna.federation.sql-console.execute')")
+  @Operation(summary = "导出查询结果到对象存储", description = "按分片写入对象存储，中断后可通过 startPart 续传")
+  public Response<?> exportToStorage(@RequestBody final FederationQueryModels.SqlExportRequest request) {
+    try {
+      return Response.okay(exportService.exportToStorage(request));
+    } catch (IllegalArgumentException | IllegalStateException ex) {
+      return badRequest(ex.getMessage());
+    }
+  }
+
+  /**
+   * Returns the progress of a running or recently finished export.
+   *
+   * @param exportId export id
+   * @return export progress
+   */
+  @GetMapping("/export/progress/{exportId}")
+  @PreAuthorize("hasRole('Administrator') or hasAuthority('dna.federation.sql-console.execute')")
+  @Operation(summary = "查询导出进度", description = "返回导出任务已写入的行数、字节数和分片数")
+  public Response<?> exportProgress(@PathVariable("exportId") final String exportId) {
+    return exportService.progress(exportId)
+        .<Response<?>>map(Response::okay)
+        .orElseGet(() -> badRequest("导出任务不存在或已过期: " + exportId));
+  }
+
   private ResponseEntity<byte[]> buildCsvExport(
       final FederationQueryModels.SqlQueryResult result
   ) throws IOException {
@@ -3,17 +3,24 @@ package org.simplepoint.plugin.dna.federation.rest.controller;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import org.junit.jupiter.api.Test;
+import org.simplepoint.plugin.dna.federation.api.service.FederationQueryExportService;
 import org.simplepoint.plugin.dna.federation.api.service.FederationSqlConsoleService;
 import org.simplepoint.plugin.dna.federation.api.vo.FederationQueryModels;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
 
 class FederationSqlConsoleControllerTest {
 
@@ -88,8 +95,133 @@ class FederationSqlConsoleControllerTest {
     assertEquals("仅支持只读查询 SQL", new String(response.getBody(), StandardCharsets.UTF_8));
   }
 
+  @Test
+  void exportStreamShouldWriteRowsWithDownloadAndProgressHeaders() throws Exception {
+    final StubExportService exportService = new StubExportService();
+    final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    controller(exportService).exportStream(exportRequest("exp-1"), response);
+
+    assertEquals(200, response.getStatus());
+    assertEquals("text/csv", response.getContentType());
+    assertEquals("attachment; filename=export.csv", response.getHeader("Content-Disposition"));
+    assertEquals("exp-1", response.getHeader("X-Export-Id"));
+    assertEquals("id\n7\n", response.getContentAsString());
+    assertTrue(exportService.streamClosed);
+  }
+
+  @Test
+  void exportStreamShouldReturnPlainTextBadRequestWhenExportIsRejected() throws Exception {
+    final StubExportService exportService = new StubExportService();
+    exportService.failure = new IllegalStateException("导出任务正在执行中: exp-1");
+    final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    controller(exportService).exportStream(exportRequest("exp-1"), response);
+
+    assertEquals(400, response.getStatus());
+    assertEquals("导出任务正在执行中: exp-1", response.getContentAsString(StandardCharsets.UTF_8));
+    assertNull(response.getHeader("X-Export-Id"));
+  }
+
+  @Test
+  void exportToStorageShouldReturnProgressOrBadRequest() {
+    final StubExportService exportService = new StubExportService();
+    final FederationSqlConsoleController controller = controller(exportService);
+
+    final ResponseEntity<?> completed = controller.exportToStorage(exportRequest("exp-1"));
+    exportService.failure = new IllegalStateException("导出ID已被占用: exp-1");
+    final ResponseEntity<?> rejected = controller.exportToStorage(exportRequest("exp-1"));
+
+    assertEquals(200, completed.getStatusCode().value());
+    assertEquals("COMPLETED", ((FederationQueryModels.SqlExportProgress) completed.getBody()).status());
+    assertEquals(400, rejected.getStatusCode().value());
+  }
+
+  @Test
+  void exportProgressShouldReturnBadRequestForUnknownOrForeignExport() {
+    final StubExportService exportService = new StubExportService();
+    final FederationSqlConsoleController controller = controller(exportService);
+
+    final ResponseEntity<?> known = controller.exportProgress("exp-1");
+    final ResponseEntity<?> unknown = controller.exportProgress("someone-elses");
+
+    assertEquals(200, known.getStatusCode().value());
+    assertEquals("exp-1", ((FederationQueryModels.SqlExportProgress) known.getBody()).exportId());
+    assertEquals(400, unknown.getStatusCode().value());
+  }
+
   private static FederationSqlConsoleController controller(final RecordingSqlConsoleService service) {
-    return new FederationSqlConsoleController(service, OBJECT_MAPPER);
+    return new FederationSqlConsoleController(service, null, OBJECT_MAPPER);
+  }
+
+  private static FederationSqlConsoleController controller(final StubExportService exportService) {
+    return new FederationSqlConsoleController(new RecordingSqlConsoleService(), exportService, OBJECT_MAPPER);
+  }
+
+  private static FederationQueryModels.SqlExportRequest exportRequest(final String exportId) {
+    return new FederationQueryModels.SqlExportRequest(
+        "cat1", "select id from t", null, null, null, "CSV", null, null, null, null, exportId
+    );
+  }
+
+  private static FederationQueryModels.SqlExportProgress exportProgress(final String exportId, final String status) {
+    return new FederationQueryModels.SqlExportProgress(
+        exportId, "CSV", status, 0L, 1L, 5L, 0, List.of(), false, null, Instant.EPOCH, Instant.EPOCH
+    );
+  }
+
+  private static final class StubExportService implements FederationQueryExportService {
+
+    private RuntimeException failure;
+
+    private boolean streamClosed;
+
+    @Override
+    public ExportStream openStream(final FederationQueryModels.SqlExportRequest request) {
+      if (failure != null) {
+        throw failure;
+      }
+      return new ExportStream() {
+        @Override
+        public String exportId() {
+          return request.exportId();
+        }
+
+        @Override
+        public String fileName() {
+          return "export.csv";
+        }
+
+        @Override
+        public String contentType() {
+          return "text/csv";
+        }
+
+        @Override
+        public FederationQueryModels.SqlExportProgress writeTo(final OutputStream output) throws IOException {
+          output.write("id\n7\n".getBytes(StandardCharsets.UTF_8));
+          return exportProgress(request.exportId(), "COMPLETED");
+        }
+
+        @Override
+        public void close() {
+          streamClosed = true;
+        }
+      };
+    }
+
+    @Override
+    public FederationQueryModels.SqlExportProgress exportToStorage(final FederationQueryModels.SqlExportRequest request) {
+      if (failure != null) {
+        throw failure;
+      }
+      return exportProgress(request.exportId(), "COMPLETED");
+    }
+
+    @Override
+    public Optional<FederationQueryModels.SqlExportProgress> progress(final String exportId) {
+      return "exp-1".equals(exportId) ? Optional.of(exportProgress(exportId, "RUNNING")) : Optional.empty();
+    }
   }
 
   private static final class RecordingSqlConsoleService implements FederationSqlConsoleService {
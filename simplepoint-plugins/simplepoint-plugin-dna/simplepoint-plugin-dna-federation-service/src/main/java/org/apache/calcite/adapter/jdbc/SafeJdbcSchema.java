@@ -22,6 +22,7 @@ import org.apache.calcite.sql.type.SqlTypeFactoryImpl;
 import org.apache.calcite.sql.type.SqlTypeName;
 import org.apache.calcite.util.Util;
 import org.checkerframework.checker.nullness.qual.Nullable;
+import org.simplepoint.data.calcite.core.query.CalciteQueryCancellation;
 
 /**
  * A {@link JdbcSchema} subclass that gracefully handles databases reporting
@@ -34,6 +35,10 @@ import org.checkerframework.checker.nullness.qual.Nullable;
  * a no-precision type (effectively {@code DECIMAL} with the system default
  * maximum precision), which matches the database semantics of
  * &ldquo;any precision&rdquo;.
+ *
+ * <p>Source connections are handed out through
+ * {@link CalciteQueryCancellation#cancellable(DataSource)} so that statements pushed down to the
+ * database are cancelled together with the federated query.
  */
 public final class SafeJdbcSchema extends JdbcSchema {
 
@@ -78,7 +83,9 @@ public final class SafeJdbcSchema extends JdbcSchema {
     final SqlDialect dialect = JdbcSchema.createDialect(dialectFactory, dataSource);
     final JdbcConvention convention =
         JdbcConvention.of(dialect, expression, name);
-    return new SafeJdbcSchema(dataSource, dialect, convention, catalog, schema);
+    return new SafeJdbcSchema(
+        CalciteQueryCancellation.cancellable(dataSource), dialect, convention, catalog, schema
+    );
   }
 
   // ------------------------------------------------------------------ //
@@ -0,0 +1,12 @@
+package org.simplepoint.plugin.dna.federation.service.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables scheduled data quality checks.
+ */
+@Configuration
+@EnableScheduling
+public class FederationSchedulingConfiguration {
+}
@@ -6,6 +6,7 @@ import static org.simplepoint.plugin.dna.federation.service.support.FederationSe
 import static org.simplepoint.plugin.dna.federation.service.support.FederationServiceSupport.trimToNull;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -13,7 +14,11 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.regex.Pattern;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.stream.Collectors;
 import org.simplepoint.api.security.service.DetailsProviderService;
 import org.simplepoint.core.base.service.impl.BaseServiceImpl;
@@ -24,13 +29,23 @@ import org.simplepoint.plugin.dna.federation.api.repository.DataQualityRuleRepos
 import org.simplepoint.plugin.dna.federation.api.service.DataQualityRuleService;
 import org.simplepoint.plugin.dna.federation.api.service.FederationSqlConsoleService;
 import org.simplepoint.plugin.dna.federation.api.vo.FederationQueryModels;
+import org.simplepoint.plugin.dna.federation.service.support.DataQualityScanPlanner;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 /**
  * Data quality rule service implementation. Supports CRUD for quality rules
  * and executes SQL-based quality checks against datasources.
+ *
+ * <p>Checks are planned by {@link DataQualityScanPlanner}: rules on the same table share one
+ * aggregate scan, and independent scans run in parallel within
+ * {@code simplepoint.dna.data-quality.max-parallel-scans}.
  */
 @Service
 public class DataQualityRuleServiceImpl
@@ -47,15 +62,18 @@ public class DataQualityRuleServiceImpl
       "NOT_NULL", "UNIQUE", "RANGE", "REGEX"
   );
 
-  /** Allows letters, digits, underscores, dots (for schema.table), and hyphens. */
-  private static final Pattern SAFE_IDENTIFIER = Pattern.compile("^[a-zA-Z_][a-zA-Z0-9_.\\-]*$");
-
   private final DataQualityRuleRepository repository;
 
   private final JdbcDataSourceDefinitionService dataSourceService;
 
   private final FederationSqlConsoleService sqlConsoleService;
 
+  @Value("${simplepoint.dna.data-quality.max-parallel-scans:4}")
+  private int maxParallelScans = 4;
+
+  @Value("${simplepoint.dna.data-quality.max-checks-per-scan:32}")
+  private int maxChecksPerScan = 32;
+
   /**
    * Creates a data quality rule service.
    *
@@ -118,6 +136,7 @@ public class DataQualityRuleServiceImpl
   @Override
   public <S extends DataQualityRule> S create(final S entity) {
     normalizeAndValidate(entity, null);
+    entity.setLastWatermark(null);
     applyDefaults(entity);
     S saved = super.create(entity);
     decorate(saved);
@@ -133,7 +152,17 @@ public class DataQualityRuleServiceImpl
     if (entity.getEnabled() == null) {
       entity.setEnabled(current.getEnabled());
     }
+    // The watermark is advanced by scheduled checks only and restarts when the column changes.
+    String watermark = Objects.equals(entity.getIncrementalColumn(), current.getIncrementalColumn())
+        ? current.getLastWatermark()
+        : null;
+    entity.setLastWatermark(watermark);
     DataQualityRule updated = (DataQualityRule) super.modifyById(entity);
+    if (!Objects.equals(updated.getLastWatermark(), watermark)) {
+      // The base merge restores read-only columns from the stored row.
+      updated.setLastWatermark(watermark);
+      updated = repository.updateById(updated);
+    }
     decorate(updated);
     return updated;
   }
@@ -141,115 +170,161 @@ public class DataQualityRuleServiceImpl
   /** {@inheritDoc} */
   @Override
   public DataQualityRule executeCheck(final String ruleId) {
-    DataQualityRule rule = repository.findActiveById(ruleId)
-        .orElseThrow(() -> new IllegalArgumentException("质量规则不存在: " + ruleId));
+    return executeChecks(List.of(ruleId)).get(0);
+  }
 
-    String sql = buildCheckSql(rule);
-    if (sql == null || sql.isBlank()) {
-      throw new IllegalArgumentException("质量规则未配置检查 SQL");
+  /** {@inheritDoc} */
+  @Override
+  public List<DataQualityRule> executeChecks(final Collection<String> ruleIds) {
+    if (ruleIds == null || ruleIds.isEmpty()) {
+      return List.of();
     }
+    List<DataQualityRule> rules = ruleIds.stream()
+        .distinct()
+        .map(ruleId -> repository.findActiveById(ruleId)
+            .orElseThrow(() -> new IllegalArgumentException("质量规则不存在: " + ruleId)))
+        .toList();
+    return runChecks(rules, false);
+  }
 
-    try {
-      // Resolve catalog code from catalog id
-      String catalogCode = dataSourceService.findActiveById(rule.getCatalogId())
-          .map(JdbcDataSourceDefinition::getCode)
-          .orElseThrow(() -> new IllegalArgumentException("数据源不存在: " + rule.getCatalogId()));
-
-      FederationQueryModels.SqlConsoleRequest request =
-          new FederationQueryModels.SqlConsoleRequest(catalogCode, sql);
-
-      FederationQueryModels.SqlQueryResult result = sqlConsoleService.execute(request);
-
-      boolean passed = evaluateResult(rule, result);
-      rule.setLastRunStatus(passed ? "PASSED" : "FAILED");
-      rule.setLastRunMessage(passed
-          ? "检查通过"
-          : "检查未通过 - 实际结果不符合预期");
-    } catch (IllegalArgumentException ex) {
-      rule.setLastRunStatus("ERROR");
-      rule.setLastRunMessage(ex.getMessage());
-    } catch (RuntimeException ex) {
-      rule.setLastRunStatus("ERROR");
-      String msg = ex.getMessage();
-      rule.setLastRunMessage(msg != null && msg.length() > 2000 ? msg.substring(0, 2000) : msg);
+  /** {@inheritDoc} */
+  @Override
+  public List<DataQualityRule> executeScheduledChecks() {
+    List<DataQualityRule> rules = repository.findAllEnabled();
+    if (rules == null || rules.isEmpty()) {
+      return List.of();
     }
+    return runChecks(rules, true);
+  }
 
-    rule.setLastRunAt(Instant.now());
-    return (DataQualityRule) super.modifyById(rule);
+  private List<DataQualityRule> runChecks(final List<DataQualityRule> rules, final boolean incremental) {
+    DataQualityScanPlanner.Plan plan = new DataQualityScanPlanner(maxChecksPerScan).plan(rules, incremental);
+    plan.rejected().forEach(rejected -> markError(rejected.rule(), rejected.message()));
+
+    Map<String, Optional<String>> catalogCodes = new LinkedHashMap<>();
+    plan.scans().forEach(scan -> catalogCodes.computeIfAbsent(scan.catalogId(), catalogId ->
+        dataSourceService.findActiveById(catalogId).map(JdbcDataSourceDefinition::getCode)));
+    List<ScanOutcome> outcomes = executeScans(plan.scans(), catalogCodes);
+    outcomes.forEach(this::applyOutcome);
+
+    Instant runAt = Instant.now();
+    List<DataQualityRule> updated = new ArrayList<>(rules.size());
+    for (DataQualityRule rule : rules) {
+      rule.setLastRunAt(runAt);
+      updated.add((DataQualityRule) super.modifyById(rule));
+    }
+    return updated;
   }
 
-  private String buildCheckSql(final DataQualityRule rule) {
-    if ("CUSTOM_SQL".equals(rule.getRuleType())) {
-      return rule.getCheckSql();
+  private List<ScanOutcome> executeScans(
+      final List<DataQualityScanPlanner.TableScan> scans,
+      final Map<String, Optional<String>> catalogCodes
+  ) {
+    int parallelism = Math.min(Math.max(1, maxParallelScans), scans.size());
+    if (parallelism <= 1) {
+      return scans.stream().map(scan -> executeScan(scan, catalogCodes.get(scan.catalogId()))).toList();
     }
-    String table = requireSafeIdentifier(rule.getTargetTable(), "目标表");
-    String column = rule.getTargetColumn();
-    return switch (rule.getRuleType()) {
-      case "NOT_NULL" -> {
-        requireSafeIdentifier(column, "目标列");
-        yield "SELECT COUNT(*) AS cnt FROM " + table + " WHERE " + column + " IS NULL";
-      }
-      case "UNIQUE" -> {
-        requireSafeIdentifier(column, "目标列");
-        yield "SELECT COUNT(*) - COUNT(DISTINCT " + column + ") AS cnt FROM " + table;
+    // Scans run on worker threads, so the caller's request and security context travel with them.
+    RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+    SecurityContext securityContext = SecurityContextHolder.getContext();
+    Semaphore budget = new Semaphore(parallelism);
+    try (ExecutorService executor = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("dna-quality-scan-", 0).factory())) {
+      List<Future<ScanOutcome>> futures = new ArrayList<>(scans.size());
+      for (DataQualityScanPlanner.TableScan scan : scans) {
+        futures.add(executor.submit(() -> {
+          budget.acquire();
+          RequestContextHolder.setRequestAttributes(requestAttributes);
+          SecurityContextHolder.setContext(securityContext);
+          try {
+            return executeScan(scan, catalogCodes.get(scan.catalogId()));
+          } finally {
+            SecurityContextHolder.clearContext();
+            RequestContextHolder.resetRequestAttributes();
+            budget.release();
+          }
+        }));
       }
-      case "ROW_COUNT" -> "SELECT COUNT(*) AS cnt FROM " + table;
-      case "RANGE" -> {
-        requireSafeIdentifier(column, "目标列");
-        String expected = rule.getExpectedValue();
-        if (expected != null && expected.contains(",")) {
-          String[] parts = expected.split(",", 2);
-          double minVal = parseNumericBound(parts[0].trim(), "最小值");
-          double maxVal = parseNumericBound(parts[1].trim(), "最大值");
-          yield "SELECT COUNT(*) AS cnt FROM " + table
-              + " WHERE " + column + " < " + minVal
-              + " OR " + column + " > " + maxVal;
-        }
-        yield "SELECT COUNT(*) AS cnt FROM " + table;
+      List<ScanOutcome> outcomes = new ArrayList<>(futures.size());
+      for (int i = 0; i < futures.size(); i++) {
+        outcomes.add(awaitOutcome(scans.get(i), futures.get(i)));
       }
-      case "REGEX" -> {
-        requireSafeIdentifier(column, "目标列");
-        String pattern = rule.getExpectedValue() != null
-            ? rule.getExpectedValue().replace("'", "''") : "";
-        yield "SELECT COUNT(*) AS cnt FROM " + table
-            + " WHERE " + column + " NOT REGEXP '" + pattern + "'";
-      }
-      default -> rule.getCheckSql();
-    };
+      return outcomes;
+    }
   }
 
-  private static String requireSafeIdentifier(final String identifier, final String label) {
-    if (identifier == null || identifier.isBlank()) {
-      throw new IllegalArgumentException(label + "不能为空");
-    }
-    if (!SAFE_IDENTIFIER.matcher(identifier).matches()) {
-      throw new IllegalArgumentException(
-          label + "包含非法字符: " + identifier);
+  private ScanOutcome executeScan(final DataQualityScanPlanner.TableScan scan, final Optional<String> catalogCode) {
+    try {
+      String code = catalogCode
+          .orElseThrow(() -> new IllegalArgumentException("数据源不存在: " + scan.catalogId()));
+      FederationQueryModels.SqlQueryResult result = sqlConsoleService.execute(
+          new FederationQueryModels.SqlConsoleRequest(code, scan.sql()));
+      return new ScanOutcome(scan, result, null);
+    } catch (RuntimeException ex) {
+      return new ScanOutcome(scan, null, ex.getMessage());
     }
-    return identifier;
   }
 
-  private static double parseNumericBound(final String value, final String label) {
+  private static ScanOutcome awaitOutcome(
+      final DataQualityScanPlanner.TableScan scan,
+      final Future<ScanOutcome> future
+  ) {
     try {
-      return Double.parseDouble(value);
-    } catch (NumberFormatException ex) {
-      throw new IllegalArgumentException(label + "必须为数值: " + value, ex);
+      return future.get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return new ScanOutcome(scan, null, "质量检查被中断");
+    } catch (ExecutionException ex) {
+      Throwable cause = ex.getCause() == null ? ex : ex.getCause();
+      return new ScanOutcome(scan, null, cause.getMessage());
     }
   }
 
-  private boolean evaluateResult(final DataQualityRule rule, final FederationQueryModels.SqlQueryResult result) {
-    if (result == null || result.rows() == null || result.rows().isEmpty()) {
-      return false;
+  private void applyOutcome(final ScanOutcome outcome) {
+    DataQualityScanPlanner.TableScan scan = outcome.scan();
+    if (outcome.error() != null || outcome.result() == null) {
+      scan.checks().forEach(check -> markError(check.rule(), outcome.error()));
+      return;
+    }
+    String watermark = scan.watermarkIndex() < 0 ? null : cellValue(outcome.result(), scan.watermarkIndex());
+    for (DataQualityScanPlanner.PlannedCheck check : scan.checks()) {
+      DataQualityRule rule = check.rule();
+      try {
+        boolean passed = evaluateValue(rule, cellValue(outcome.result(), check.valueIndex()));
+        rule.setLastRunStatus(passed ? "PASSED" : "FAILED");
+        rule.setLastRunMessage(passed
+            ? "检查通过"
+            : "检查未通过 - 实际结果不符合预期");
+        // A failed check keeps its watermark, so the next incremental run scans the failing rows again.
+        if (passed && watermark != null) {
+          rule.setLastWatermark(watermark);
+        }
+      } catch (RuntimeException ex) {
+        markError(rule, ex.getMessage());
+      }
+    }
+  }
+
+  private static void markError(final DataQualityRule rule, final String message) {
+    rule.setLastRunStatus("ERROR");
+    rule.setLastRunMessage(message != null && message.length() > 2000 ? message.substring(0, 2000) : message);
+  }
+
+  private static String cellValue(final FederationQueryModels.SqlQueryResult result, final int index) {
+    if (result.rows() == null || result.rows().isEmpty()) {
+      return null;
     }
     List<Object> firstRow = result.rows().get(0);
-    if (firstRow == null || firstRow.isEmpty()) {
-      return false;
+    if (firstRow == null || firstRow.size() <= index || firstRow.get(index) == null) {
+      return null;
     }
-    Object firstValue = firstRow.get(0);
-    if (firstValue == null) {
+    return firstRow.get(index).toString().trim();
+  }
+
+  private boolean evaluateValue(final DataQualityRule rule, final String valueStr) {
+    if (valueStr == null) {
       return false;
     }
-    String valueStr = firstValue.toString().trim();
 
     return switch (rule.getRuleType()) {
       case "NOT_NULL", "UNIQUE", "RANGE", "REGEX" ->
@@ -291,6 +366,7 @@ public class DataQualityRuleServiceImpl
     entity.setTargetColumn(trimToNull(entity.getTargetColumn()));
     entity.setCheckSql(trimToNull(entity.getCheckSql()));
     entity.setExpectedValue(trimToNull(entity.getExpectedValue()));
+    entity.setIncrementalColumn(trimToNull(entity.getIncrementalColumn()));
 
     if (!VALID_RULE_TYPES.contains(entity.getRuleType())) {
       throw new IllegalArgumentException(
@@ -354,4 +430,11 @@ public class DataQualityRuleServiceImpl
       item.setCatalogName(ds != null ? ds.getName() : null);
     });
   }
+
+  private record ScanOutcome(
+      DataQualityScanPlanner.TableScan scan,
+      FederationQueryModels.SqlQueryResult result,
+      String error
+  ) {
+  }
 }
@@ -145,6 +145,7 @@ public class FederationJdbcDriverServiceImpl implements FederationJdbcDriverServ
     JdbcConnectionSession requiredSession = requireSession(session);
     return withDriverContext(requiredSession, contextId, requiredSession.selectedCatalogCode(), (resolvedSession, resolvedContextId) ->
         requiredSession.cachedMetadata("catalogs",
+            null,
             () -> metadataQueryService.catalogs(toDataSourceList(requiredSession.requireMetadataDataSources())),
             metadataCacheService)
     );
@@ -173,6 +174,7 @@ public class FederationJdbcDriverServiceImpl implements FederationJdbcDriverServ
     return withDriverContext(requiredSession, contextId, resolveMetadataContextCatalog(requiredSession, catalogPattern), (resolvedSession, resolvedContextId) ->
         requiredSession.cachedMetadata(
             "schemas:" + normalizedCacheValue(catalogPattern) + ':' + normalizedCacheValue(schemaPattern),
+            schemaPattern,
             () -> metadataQueryService.schemas(
                 toDataSourceList(requiredSession.requireMetadataDataSources()), catalogPattern, schemaPattern),
             metadataCacheService
@@ -195,6 +197,7 @@ public class FederationJdbcDriverServiceImpl implements FederationJdbcDriverServ
     JdbcConnectionSession requiredSession = requireSession(session);
     return withDriverContext(requiredSession, contextId, requiredSession.selectedCatalogCode(), (resolvedSession, resolvedContextId) ->
         requiredSession.cachedMetadata("tableTypes",
+            null,
             () -> metadataQueryService.tableTypes(toDataSourceList(requiredSession.requireMetadataDataSources())),
             metadataCacheService)
     );
@@ -228,6 +231,7 @@ public class FederationJdbcDriverServiceImpl implements FederationJdbcDriverServ
         requiredSession.cachedMetadata(
             "tables:" + normalizedCacheValue(catalogPattern) + ':' + normalizedCacheValue(schemaPattern) + ':'
                 + normalizedCacheValue(tablePattern) + ':' + normalizeTypeKey(types),
+            schemaPattern,
             () -> metadataQueryService.tables(
                 toDataSourceList(requiredSession.requireMetadataDataSources()),
                 catalogPattern, schemaPattern, tablePattern, types),
@@ -264,6 +268,7 @@ public class FederationJdbcDriverServiceImpl implements FederationJdbcDriverServ
         requiredSession.cachedMetadata(
             "columns:" + normalizedCacheValue(catalogPattern) + ':' + normalizedCacheValue(schemaPattern) + ':'
                 + normalizedCacheValue(tablePattern) + ':' + normalizedCacheValue(columnPattern),
+            schemaPattern,
             () -> metadataQueryService.columns(
                 toDataSourceList(requiredSession.requireMetadataDataSources()),
                 catalogPattern, schemaPattern, tablePattern, columnPattern),
@@ -297,6 +302,7 @@ public class FederationJdbcDriverServiceImpl implements FederationJdbcDriverServ
     return withDriverContext(requiredSession, contextId, resolveMetadataContextCatalog(requiredSession, catalog), (resolvedSession, resolvedContextId) ->
         requiredSession.cachedMetadata(
             "primaryKeys:" + normalizedCacheValue(catalog) + ':' + normalizedCacheValue(schema) + ':' + normalizedCacheValue(table),
+            schema,
             () -> metadataQueryService.primaryKeys(
                 toDataSourceList(requiredSession.requireMetadataDataSources()), catalog, schema, table),
             metadataCacheService
@@ -334,6 +340,7 @@ public class FederationJdbcDriverServiceImpl implements FederationJdbcDriverServ
         requiredSession.cachedMetadata(
             "indexInfo:" + normalizedCacheValue(catalog) + ':' + normalizedCacheValue(schema) + ':'
                 + normalizedCacheValue(table) + ':' + unique + ':' + approximate,
+            schema,
             () -> metadataQueryService.indexInfo(
                 toDataSourceList(requiredSession.requireMetadataDataSources()),
                 catalog, schema, table, unique, approximate),
@@ -367,6 +374,7 @@ public class FederationJdbcDriverServiceImpl implements FederationJdbcDriverServ
     return withDriverContext(requiredSession, contextId, resolveMetadataContextCatalog(requiredSession, catalog), (resolvedSession, resolvedContextId) ->
         requiredSession.cachedMetadata(
             "importedKeys:" + normalizedCacheValue(catalog) + ':' + normalizedCacheValue(schema) + ':' + normalizedCacheValue(table),
+            schema,
             () -> metadataQueryService.importedKeys(
                 toDataSourceList(requiredSession.requireMetadataDataSources()), catalog, schema, table),
             metadataCacheService
@@ -399,6 +407,7 @@ public class FederationJdbcDriverServiceImpl implements FederationJdbcDriverServ
     return withDriverContext(requiredSession, contextId, resolveMetadataContextCatalog(requiredSession, catalog), (resolvedSession, resolvedContextId) ->
         requiredSession.cachedMetadata(
             "exportedKeys:" + normalizedCacheValue(catalog) + ':' + normalizedCacheValue(schema) + ':' + normalizedCacheValue(table),
+            schema,
             () -> metadataQueryService.exportedKeys(
                 toDataSourceList(requiredSession.requireMetadataDataSources()), catalog, schema, table),
             metadataCacheService
@@ -421,6 +430,7 @@ public class FederationJdbcDriverServiceImpl implements FederationJdbcDriverServ
     JdbcConnectionSession requiredSession = requireSession(session);
     return withDriverContext(requiredSession, contextId, requiredSession.selectedCatalogCode(), (resolvedSession, resolvedContextId) ->
         requiredSession.cachedMetadata("typeInfo",
+            null,
             () -> metadataQueryService.typeInfo(toDataSourceList(requiredSession.requireMetadataDataSources())),
             metadataCacheService)
     );
@@ -428,11 +438,15 @@ public class FederationJdbcDriverServiceImpl implements FederationJdbcDriverServ
 
   @Override
   public long flushCache(final FederationJdbcDriverService.DriverSession session) {
-    JdbcConnectionSession requiredSession = requireSession(session);
-    requiredSession.clearMetadataCache();
+    requireSession(session);
     return metadataCacheService.flushAll();
   }
 
+  @Override
+  public long metadataVersion() {
+    return metadataCacheService.metadataVersion();
+  }
+
   @Override
   public FederationQueryModels.SqlQueryResult query(
       final FederationJdbcDriverModels.DriverRequest request,
@@ -468,6 +482,56 @@ public class FederationJdbcDriverServiceImpl implements FederationJdbcDriverServ
     });
   }
 
+  @Override
+  public FederationSqlConsoleService.QueryCursor openCursor(
+      final FederationJdbcDriverService.DriverSession session,
+      final String contextId,
+      final FederationJdbcDriverModels.QueryRequest queryRequest,
+      final int fetchSize
+  ) {
+    JdbcConnectionSession requiredSession = requireSession(session);
+    AuthorizedDataSource queryDataSource = requiredSession.requireQueryDataSource(
+        queryRequest == null ? null : queryRequest.catalogCode()
+    );
+    String catalogCode = queryDataSource.dataSource().getCode();
+    FederationSqlConsoleService.QueryCursor cursor = withDriverContext(requiredSession, contextId, catalogCode, (ignored, resolvedContextId) ->
+        sqlConsoleService.openCursor(queryDataSource.dataSource().getId(), new FederationQueryModels.SqlConsoleRequest(
+            catalogCode,
+            requireValue(queryRequest == null ? null : queryRequest.sql(), "SQL 不能为空"),
+            trimToNull(queryRequest == null ? null : queryRequest.defaultSchema()),
+            queryRequest == null ? null : queryRequest.parameters(),
+            queryRequest == null ? null : queryRequest.maxRows()
+        ), fetchSize)
+    );
+    return new FederationSqlConsoleService.QueryCursor() {
+
+      @Override
+      public FederationQueryModels.SqlQueryResult firstBatch() {
+        return cursor.firstBatch();
+      }
+
+      @Override
+      public List<List<Object>> fetch(final int batchSize) {
+        return withDriverContext(requiredSession, contextId, catalogCode, (resolvedSession, resolvedContextId) ->
+            cursor.fetch(batchSize)
+        );
+      }
+
+      @Override
+      public boolean hasMore() {
+        return cursor.hasMore();
+      }
+
+      @Override
+      public void close() {
+        withDriverContext(requiredSession, contextId, catalogCode, (resolvedSession, resolvedContextId) -> {
+          cursor.close();
+          return null;
+        });
+      }
+    };
+  }
+
   @Override
   public FederationQueryModels.SqlUpdateResult executeUpdate(
       final FederationJdbcDriverModels.DriverRequest request,
@@ -501,6 +565,29 @@ public class FederationJdbcDriverServiceImpl implements FederationJdbcDriverServ
     });
   }
 
+  @Override
+  public FederationQueryModels.SqlBatchUpdateResult executeBatch(
+      final FederationJdbcDriverService.DriverSession session,
+      final String contextId,
+      final FederationJdbcDriverModels.QueryRequest queryRequest,
+      final List<List<Object>> parameterSets
+  ) {
+    JdbcConnectionSession requiredSession = requireSession(session);
+    AuthorizedDataSource dmlDataSource = requiredSession.requireDmlDataSource(
+        queryRequest == null ? null : queryRequest.catalogCode()
+    );
+    return withDriverContext(requiredSession, contextId, dmlDataSource.dataSource().getCode(), (resolvedSession, resolvedContextId) -> {
+      String sql = requireValue(queryRequest == null ? null : queryRequest.sql(), "SQL 不能为空");
+      String defaultSchema = trimToNull(queryRequest == null ? null : queryRequest.defaultSchema());
+      return sqlConsoleService.executeBatch(dmlDataSource.dataSource().getId(), new FederationQueryModels.SqlConsoleRequest(
+          dmlDataSource.dataSource().getCode(),
+          sql,
+          defaultSchema,
+          null
+      ), parameterSets);
+    });
+  }
+
   @Override
   public FederationQueryModels.SqlUpdateResult executeDdl(
       final FederationJdbcDriverModels.DriverRequest request,
@@ -742,8 +829,6 @@ public class FederationJdbcDriverServiceImpl implements FederationJdbcDriverServ
 
     private final ConcurrentMap<String, AuthorizationContext> authorizationContexts;
 
-    private final ConcurrentMap<String, FederationJdbcDriverModels.TabularResult> metadataCache;
-
     private JdbcConnectionSession(
         final String loginSubject,
         final String userId,
@@ -759,7 +844,6 @@ public class FederationJdbcDriverServiceImpl implements FederationJdbcDriverServ
       this.tenantId = tenantId;
       this.authentication = authentication;
       this.authorizationContexts = new ConcurrentHashMap<>();
-      this.metadataCache = new ConcurrentHashMap<>();
     }
 
     private AuthorizationContext resolveAuthorizationContext(
@@ -775,24 +859,20 @@ public class FederationJdbcDriverServiceImpl implements FederationJdbcDriverServ
       return authorizationContexts.computeIfAbsent(cacheKey, ignored -> loader.load(normalizedContextId));
     }
 
+    /**
+     * Reads metadata through the shared cache, scoped to the datasources this session may browse
+     * so sessions with different grants never share entries.
+     */
     private FederationJdbcDriverModels.TabularResult cachedMetadata(
         final String key,
+        final String schemaPattern,
         final MetadataLoader loader,
         final FederationMetadataCacheService globalCache
     ) {
-      return metadataCache.computeIfAbsent(key, ignored -> {
-        FederationJdbcDriverModels.TabularResult cached = globalCache.get(key);
-        if (cached != null) {
-          return cached;
-        }
-        FederationJdbcDriverModels.TabularResult result = loader.load();
-        globalCache.put(key, result);
-        return result;
-      });
-    }
-
-    private void clearMetadataCache() {
-      metadataCache.clear();
+      List<String> dataSourceCodes = requireMetadataDataSources().stream()
+          .map(source -> source.dataSource().getCode())
+          .toList();
+      return globalCache.getOrLoad(key, dataSourceCodes, schemaPattern, loader::load);
     }
 
     private String loginSubject() {
@@ -881,7 +961,6 @@ public class FederationJdbcDriverServiceImpl implements FederationJdbcDriverServ
 
     @Override
     public void close() {
-      metadataCache.clear();
       authorizationContexts.clear();
     }
   }
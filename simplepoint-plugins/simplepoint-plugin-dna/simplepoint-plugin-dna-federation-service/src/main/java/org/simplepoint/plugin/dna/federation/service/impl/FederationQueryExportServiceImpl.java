@@ -0,0 +1,441 @@
+package org.simplepoint.plugin.dna.federation.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+import org.simplepoint.plugin.dna.federation.api.service.FederationQueryExportService;
+import org.simplepoint.plugin.dna.federation.api.service.FederationSqlConsoleService;
+import org.simplepoint.plugin.dna.federation.api.vo.FederationQueryModels;
+import org.simplepoint.plugin.dna.federation.service.support.FederationCsvExportWriter;
+import org.simplepoint.plugin.dna.federation.service.support.FederationExportFormat;
+import org.simplepoint.plugin.dna.federation.service.support.FederationExportProgressRegistry;
+import org.simplepoint.plugin.dna.federation.service.support.FederationExportWriter;
+import org.simplepoint.plugin.dna.federation.service.support.FederationJsonExportWriter;
+import org.simplepoint.plugin.dna.federation.service.support.FederationParquetExportWriter;
+import org.simplepoint.plugin.dna.federation.service.support.FederationServiceSupport;
+import org.simplepoint.plugin.storage.api.entity.ObjectStorageObject;
+import org.simplepoint.plugin.storage.api.model.ObjectStorageUploadRequest;
+import org.simplepoint.plugin.storage.client.service.ObjectStorageRemoteService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+/**
+ * Streams federation query results into CSV, JSON or Parquet without materializing them.
+ *
+ * <p>Rows are pulled from a server-side console cursor one fetch batch at a time and handed to an
+ * incremental writer, so memory stays bounded by the fetch size (or one Parquet row group)
+ * regardless of the result size. HTTP exports write straight to the response; object-storage
+ * exports write fixed-size part files to a temporary file and upload each one before starting the
+ * next, which lets an interrupted export resume from the first missing part.
+ *
+ * <p>Export ids are scoped to the submitting principal: progress is only visible to that
+ * principal, a running id cannot be started twice, and storage parts are written below a
+ * per-principal directory so two users choosing the same id never overwrite each other.
+ */
+@Service
+public class FederationQueryExportServiceImpl implements FederationQueryExportService {
+
+  private static final Pattern EXPORT_ID = Pattern.compile("^[A-Za-z0-9-]{1,64}$");
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final FederationSqlConsoleService sqlConsoleService;
+
+  private final FederationExportProgressRegistry progressRegistry;
+
+  private final ObjectMapper objectMapper;
+
+  private final ObjectProvider<ObjectStorageRemoteService> objectStorageProvider;
+
+  @Value("${simplepoint.dna.federation.export.fetch-size:1000}")
+  private int fetchSize = 1000;
+
+  @Value("${simplepoint.dna.federation.export.part-rows:1000000}")
+  private long defaultPartRows = 1_000_000L;
+
+  @Value("${simplepoint.dna.federation.export.parquet.row-group-rows:100000}")
+  private int rowGroupRows = 100_000;
+
+  @Value("${simplepoint.dna.federation.export.parquet.row-group-bytes:67108864}")
+  private long rowGroupBytes = 64L * 1024 * 1024;
+
+  @Value("${simplepoint.dna.federation.export.storage-directory:dna/exports}")
+  private String storageDirectory = "dna/exports";
+
+  /**
+   * Creates an export service.
+   *
+   * @param sqlConsoleService     SQL console service providing query cursors
+   * @param progressRegistry      export progress registry
+   * @param objectMapper          JSON serializer
+   * @param objectStorageProvider optional object-storage client
+   */
+  public FederationQueryExportServiceImpl(
+      final FederationSqlConsoleService sqlConsoleService,
+      final FederationExportProgressRegistry progressRegistry,
+      final ObjectMapper objectMapper,
+      final ObjectProvider<ObjectStorageRemoteService> objectStorageProvider
+  ) {
+    this.sqlConsoleService = sqlConsoleService;
+    this.progressRegistry = progressRegistry;
+    this.objectMapper = objectMapper;
+    this.objectStorageProvider = objectStorageProvider;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public ExportStream openStream(final FederationQueryModels.SqlExportRequest request) {
+    ExportOptions options = options(request);
+    if (options.startRow() > 0 && options.format() != FederationExportFormat.CSV) {
+      throw new IllegalArgumentException("仅 CSV 导出支持按行续传");
+    }
+    FederationExportProgressRegistry.Tracker tracker = progressRegistry.start(
+        options.exportId(), currentOwner(), options.format().name(), options.startRow(), 0
+    );
+    try {
+      FederationSqlConsoleService.QueryCursor cursor = sqlConsoleService.openCursor(
+          null,
+          request.toConsoleRequest(),
+          Math.max(1, fetchSize)
+      );
+      return new HttpExportStream(options, cursor, tracker);
+    } catch (RuntimeException ex) {
+      tracker.fail(ex.getMessage());
+      throw ex;
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public FederationQueryModels.SqlExportProgress exportToStorage(
+      final FederationQueryModels.SqlExportRequest request
+  ) {
+    ObjectStorageRemoteService storage = objectStorageProvider.getIfAvailable();
+    if (storage == null) {
+      throw new IllegalStateException("未配置对象存储服务，无法导出到对象存储");
+    }
+    ExportOptions options = options(request);
+    if (options.startRow() > 0) {
+      throw new IllegalArgumentException("对象存储导出请使用 startPart 续传");
+    }
+    long partRows = request.partRows() == null ? defaultPartRows : request.partRows();
+    if (partRows < 1) {
+      throw new IllegalArgumentException("partRows 必须大于 0");
+    }
+    int startPart = request.startPart() == null ? 0 : request.startPart();
+    if (startPart < 0) {
+      throw new IllegalArgumentException("startPart 不能小于 0");
+    }
+    String owner = currentOwner();
+    FederationExportProgressRegistry.Tracker tracker = progressRegistry.start(
+        options.exportId(), owner, options.format().name(), startPart * partRows, startPart
+    );
+    String directory = storageDirectory + "/" + ownerDirectory(owner) + "/" + options.exportId();
+    try (FederationSqlConsoleService.QueryCursor cursor = sqlConsoleService.openCursor(
+        null,
+        request.toConsoleRequest(),
+        Math.max(1, fetchSize)
+    )) {
+      RowSource rows = new RowSource(cursor);
+      rows.skip(startPart * partRows);
+      int part = startPart;
+      do {
+        // An empty export still gets its first part so consumers see the columns.
+        if (!rows.hasMore() && part > 0) {
+          break;
+        }
+        uploadPart(storage, rows, cursor.firstBatch().columns(), options, directory, part, partRows, tracker);
+        part++;
+      } while (rows.hasMore());
+      return tracker.complete(cursor.truncated());
+    } catch (IOException ex) {
+      tracker.fail(ex.getMessage());
+      throw new IllegalStateException("导出失败: " + ex.getMessage(), ex);
+    } catch (RuntimeException ex) {
+      tracker.fail(ex.getMessage());
+      throw ex;
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public Optional<FederationQueryModels.SqlExportProgress> progress(final String exportId) {
+    return progressRegistry.find(exportId, currentOwner());
+  }
+
+  private static String currentOwner() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    String username = authentication == null ? null : FederationServiceSupport.trimToNull(authentication.getName());
+    return username == null ? "anonymous" : username;
+  }
+
+  /**
+   * Maps a principal name to a stable, path-safe directory name.
+   */
+  private static String ownerDirectory(final String owner) {
+    return UUID.nameUUIDFromBytes(owner.getBytes(StandardCharsets.UTF_8)).toString();
+  }
+
+  private void uploadPart(
+      final ObjectStorageRemoteService storage,
+      final RowSource rows,
+      final List<FederationQueryModels.SqlColumn> columns,
+      final ExportOptions options,
+      final String directory,
+      final int part,
+      final long partRows,
+      final FederationExportProgressRegistry.Tracker tracker
+  ) throws IOException {
+    Path file = Files.createTempFile("dna-export-", "." + options.extension());
+    try {
+      try (OutputStream output = new CountingOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE), tracker
+      )) {
+        writeRows(rows, columns, output, options, partRows, true, tracker);
+      }
+      String fileName = String.format(Locale.ROOT, "part-%05d.%s", part, options.extension());
+      ObjectStorageUploadRequest upload = new ObjectStorageUploadRequest();
+      upload.setDirectory(directory);
+      upload.setFileName(fileName);
+      upload.setSourceServiceName("dna");
+      ObjectStorageObject stored = storage.upload(
+          new FileSystemResource(file), fileName, options.contentType(), Files.size(file), upload
+      );
+      tracker.partUploaded(stored == null ? null : stored.getId());
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  private long writeRows(
+      final RowSource rows,
+      final List<FederationQueryModels.SqlColumn> columns,
+      final OutputStream output,
+      final ExportOptions options,
+      final long rowLimit,
+      final boolean header,
+      final FederationExportProgressRegistry.Tracker tracker
+  ) throws IOException {
+    GZIPOutputStream gzip = options.compressesStream() ? new GZIPOutputStream(output, BUFFER_SIZE) : null;
+    OutputStream target = gzip == null ? output : gzip;
+    FederationExportWriter writer = switch (options.format()) {
+      case JSON -> new FederationJsonExportWriter(columns, target, objectMapper);
+      case PARQUET -> new FederationParquetExportWriter(columns, target, options.gzip(), rowGroupRows, rowGroupBytes);
+      default -> new FederationCsvExportWriter(columns, target, header);
+    };
+    long written = 0L;
+    while (written < rowLimit && rows.hasMore()) {
+      List<List<Object>> batch = rows.next((int) Math.min(Math.max(1, fetchSize), rowLimit - written));
+      if (batch.isEmpty()) {
+        break;
+      }
+      writer.writeRows(batch);
+      written += batch.size();
+      tracker.rowsWritten(batch.size());
+    }
+    writer.finish();
+    if (gzip != null) {
+      gzip.finish();
+    }
+    output.flush();
+    return written;
+  }
+
+  private static ExportOptions options(final FederationQueryModels.SqlExportRequest request) {
+    if (request == null) {
+      throw new IllegalArgumentException("导出请求不能为空");
+    }
+    FederationExportFormat format = FederationExportFormat.of(request.format());
+    String compression = FederationServiceSupport.trimToNull(request.compression());
+    boolean gzip;
+    if (compression == null) {
+      gzip = format == FederationExportFormat.PARQUET;
+    } else if ("GZIP".equalsIgnoreCase(compression)) {
+      gzip = true;
+    } else if ("NONE".equalsIgnoreCase(compression)) {
+      gzip = false;
+    } else {
+      throw new IllegalArgumentException("不支持的压缩方式: " + compression);
+    }
+    long startRow = request.startRow() == null ? 0L : request.startRow();
+    if (startRow < 0) {
+      throw new IllegalArgumentException("startRow 不能小于 0");
+    }
+    String exportId = FederationServiceSupport.trimToNull(request.exportId());
+    if (exportId == null) {
+      exportId = UUID.randomUUID().toString();
+    } else if (!EXPORT_ID.matcher(exportId).matches()) {
+      throw new IllegalArgumentException("导出ID不合法: " + exportId);
+    }
+    return new ExportOptions(format, gzip, startRow, exportId);
+  }
+
+  /**
+   * Validated export settings.
+   *
+   * @param format   file format
+   * @param gzip     whether output is GZIP-compressed (whole stream for text, per page for Parquet)
+   * @param startRow rows to skip before writing
+   * @param exportId export id
+   */
+  private record ExportOptions(FederationExportFormat format, boolean gzip, long startRow, String exportId) {
+
+    private boolean compressesStream() {
+      return gzip && format != FederationExportFormat.PARQUET;
+    }
+
+    private String extension() {
+      return compressesStream() ? format.extension() + ".gz" : format.extension();
+    }
+
+    private String contentType() {
+      return compressesStream() ? "application/gzip" : format.contentType();
+    }
+  }
+
+  private final class HttpExportStream implements ExportStream {
+
+    private final ExportOptions options;
+
+    private final FederationSqlConsoleService.QueryCursor cursor;
+
+    private final FederationExportProgressRegistry.Tracker tracker;
+
+    private HttpExportStream(
+        final ExportOptions options,
+        final FederationSqlConsoleService.QueryCursor cursor,
+        final FederationExportProgressRegistry.Tracker tracker
+    ) {
+      this.options = options;
+      this.cursor = cursor;
+      this.tracker = tracker;
+    }
+
+    @Override
+    public String exportId() {
+      return options.exportId();
+    }
+
+    @Override
+    public String fileName() {
+      return "export." + options.extension();
+    }
+
+    @Override
+    public String contentType() {
+      return options.contentType();
+    }
+
+    @Override
+    public FederationQueryModels.SqlExportProgress writeTo(final OutputStream output) throws IOException {
+      try (cursor) {
+        RowSource rows = new RowSource(cursor);
+        rows.skip(options.startRow());
+        writeRows(
+            rows,
+            cursor.firstBatch().columns(),
+            new CountingOutputStream(output, tracker),
+            options,
+            Long.MAX_VALUE,
+            options.startRow() == 0,
+            tracker
+        );
+        return tracker.complete(cursor.truncated());
+      } catch (IOException | RuntimeException ex) {
+        tracker.fail(ex.getMessage());
+        throw ex;
+      }
+    }
+
+    @Override
+    public void close() {
+      cursor.close();
+      if (tracker.running()) {
+        tracker.fail("导出已取消");
+      }
+    }
+  }
+
+  /**
+   * Reads rows from the cursor, starting with the rows of its first batch.
+   */
+  private final class RowSource {
+
+    private final FederationSqlConsoleService.QueryCursor cursor;
+
+    private List<List<Object>> pending;
+
+    private int offset;
+
+    private RowSource(final FederationSqlConsoleService.QueryCursor cursor) {
+      this.cursor = cursor;
+      List<List<Object>> firstRows = cursor.firstBatch().rows();
+      this.pending = firstRows == null ? List.of() : firstRows;
+    }
+
+    private boolean hasMore() {
+      return offset < pending.size() || cursor.hasMore();
+    }
+
+    private List<List<Object>> next(final int maxRows) {
+      if (offset < pending.size()) {
+        int end = Math.min(pending.size(), offset + maxRows);
+        List<List<Object>> batch = pending.subList(offset, end);
+        offset = end;
+        return batch;
+      }
+      return cursor.hasMore() ? cursor.fetch(maxRows) : List.of();
+    }
+
+    private void skip(final long rows) {
+      long remaining = rows;
+      while (remaining > 0 && hasMore()) {
+        List<List<Object>> skipped = next((int) Math.min(Math.max(1, fetchSize), remaining));
+        if (skipped.isEmpty()) {
+          return;
+        }
+        remaining -= skipped.size();
+      }
+    }
+  }
+
+  /**
+   * Reports every written byte to the export progress.
+   */
+  private static final class CountingOutputStream extends FilterOutputStream {
+
+    private final FederationExportProgressRegistry.Tracker tracker;
+
+    private CountingOutputStream(final OutputStream output, final FederationExportProgressRegistry.Tracker tracker) {
+      super(output);
+      this.tracker = tracker;
+    }
+
+    @Override
+    public void write(final int value) throws IOException {
+      out.write(value);
+      tracker.bytesWritten(1);
+    }
+
+    @Override
+    public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+      out.write(bytes, offset, length);
+      tracker.bytesWritten(length);
+    }
+  }
+}
@@ -7,6 +7,7 @@ import static org.simplepoint.plugin.dna.federation.service.support.FederationSe
 
 import java.util.Collection;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -19,6 +20,7 @@ import org.simplepoint.plugin.dna.core.api.service.JdbcDataSourceDefinitionServi
 import org.simplepoint.plugin.dna.federation.api.entity.FederationQueryPolicy;
 import org.simplepoint.plugin.dna.federation.api.repository.FederationQueryPolicyRepository;
 import org.simplepoint.plugin.dna.federation.api.service.FederationQueryPolicyService;
+import org.simplepoint.plugin.dna.federation.service.support.FederationQueryPolicyCache;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -35,21 +37,27 @@ public class FederationQueryPolicyServiceImpl
 
   private final JdbcDataSourceDefinitionService dataSourceService;
 
+  private final FederationQueryPolicyCache policyCache;
+
   /**
-   * Creates a federation query policy service implementation.
+   * Creates a federation query policy service implementation that invalidates the compiled policy
+   * snapshots on every write.
    *
    * @param repository policy repository
    * @param detailsProviderService details provider service
    * @param dataSourceService datasource service
+   * @param policyCache compiled policy cache
    */
   public FederationQueryPolicyServiceImpl(
       final FederationQueryPolicyRepository repository,
       final DetailsProviderService detailsProviderService,
-      final JdbcDataSourceDefinitionService dataSourceService
+      final JdbcDataSourceDefinitionService dataSourceService,
+      final FederationQueryPolicyCache policyCache
   ) {
     super(repository, detailsProviderService);
     this.repository = repository;
     this.dataSourceService = dataSourceService;
+    this.policyCache = Objects.requireNonNull(policyCache, "policyCache");
   }
 
   /** {@inheritDoc} */
@@ -85,6 +93,7 @@ public class FederationQueryPolicyServiceImpl
     JdbcDataSourceDefinition dataSource = normalizeAndValidate(entity, null);
     applyDefaults(entity);
     S saved = super.create(entity);
+    invalidatePolicies(List.of(saved.getCatalogId()));
     decorate(saved, dataSource);
     return saved;
   }
@@ -111,12 +120,31 @@ public class FederationQueryPolicyServiceImpl
       entity.setEnabled(current.getEnabled());
     }
     FederationQueryPolicy updated = (FederationQueryPolicy) super.modifyById(entity);
+    invalidatePolicies(List.of(current.getCatalogId(), updated.getCatalogId()));
     JdbcDataSourceDefinition dataSource = dataSourceService.findActiveById(updated.getCatalogId())
         .orElseThrow(() -> new IllegalArgumentException("数据源不存在: " + updated.getCatalogId()));
     decorate(updated, dataSource);
     return updated;
   }
 
+  /** {@inheritDoc} */
+  @Override
+  public void removeById(final String id) {
+    super.removeById(id);
+    invalidatePolicies(null);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void removeByIds(final Collection<String> ids) {
+    super.removeByIds(ids);
+    invalidatePolicies(null);
+  }
+
+  private void invalidatePolicies(final Collection<String> catalogIds) {
+    policyCache.invalidate(catalogIds);
+  }
+
   private JdbcDataSourceDefinition normalizeAndValidate(final FederationQueryPolicy entity, final String currentId) {
     if (entity == null) {
       throw new IllegalArgumentException("查询策略不能为空");
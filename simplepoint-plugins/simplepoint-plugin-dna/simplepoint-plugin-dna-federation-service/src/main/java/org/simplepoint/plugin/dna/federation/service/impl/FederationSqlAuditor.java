@@ -6,11 +6,15 @@ import static org.simplepoint.plugin.dna.federation.service.support.FederationSe
 import java.time.Instant;
 import org.simplepoint.plugin.dna.federation.api.entity.FederationQueryAudit;
 import org.simplepoint.plugin.dna.federation.api.service.FederationQueryAuditService;
+import org.simplepoint.plugin.dna.federation.service.support.FederationQueryAuditWriter;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 /**
  * Records federation query audit entries on success and failure.
+ *
+ * <p>Entries go through the asynchronous {@link FederationQueryAuditWriter} when one is
+ * configured, and are written synchronously otherwise.
  */
 class FederationSqlAuditor {
 
@@ -20,8 +24,15 @@ class FederationSqlAuditor {
 
   private final FederationQueryAuditService auditService;
 
+  private final FederationQueryAuditWriter auditWriter;
+
   FederationSqlAuditor(final FederationQueryAuditService auditService) {
+    this(auditService, null);
+  }
+
+  FederationSqlAuditor(final FederationQueryAuditService auditService, final FederationQueryAuditWriter auditWriter) {
     this.auditService = auditService;
+    this.auditWriter = auditWriter;
   }
 
   /**
@@ -69,7 +80,11 @@ class FederationSqlAuditor {
     audit.setQueryText(truncate(sql, SQL_TEXT_MAX_LENGTH));
     audit.setPushdownSummary(truncate(pushdownSummary, AUDIT_MESSAGE_MAX_LENGTH));
     audit.setErrorMessage(truncate(errorMessage, AUDIT_MESSAGE_MAX_LENGTH));
-    auditService.create(audit);
+    if (auditWriter == null) {
+      auditService.create(audit);
+    } else {
+      auditWriter.submit(audit);
+    }
   }
 
   static long toElapsedMs(final long startedAt) {
@@ -7,21 +7,21 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.regex.Pattern;
 import org.simplepoint.data.calcite.core.query.CalciteQueryAnalysis;
+import org.simplepoint.data.calcite.core.query.CalciteQueryCancellation;
+import org.simplepoint.data.calcite.core.query.CalciteQueryColumn;
+import org.simplepoint.data.calcite.core.query.CalciteQueryCursor;
 import org.simplepoint.data.calcite.core.query.CalciteQueryEngine;
 import org.simplepoint.data.calcite.core.query.CalciteQueryRequest;
 import org.simplepoint.data.calcite.core.query.CalciteQueryResult;
 import org.simplepoint.data.datasource.jdbc.SimpleDataSource;
 import org.simplepoint.plugin.dna.core.api.entity.JdbcDataSourceDefinition;
 import org.simplepoint.plugin.dna.core.api.service.JdbcDataSourceDefinitionService;
-import org.simplepoint.plugin.dna.federation.api.entity.FederationQueryPolicy;
-import org.simplepoint.plugin.dna.federation.api.repository.FederationQueryPolicyRepository;
 import org.simplepoint.plugin.dna.federation.api.service.FederationQueryAuditService;
 import org.simplepoint.plugin.dna.federation.api.service.FederationSqlConsoleService;
 import org.simplepoint.plugin.dna.federation.api.vo.FederationQueryModels;
@@ -30,8 +30,11 @@ import org.simplepoint.plugin.dna.federation.service.impl.FederationDmlStatement
 import org.simplepoint.plugin.dna.federation.service.impl.FederationSqlAnalysisUtils.TableReferenceSummary;
 import org.simplepoint.plugin.dna.federation.service.support.FederationCalciteCatalogAssembler;
 import org.simplepoint.plugin.dna.federation.service.support.FederationMetadataCacheService;
+import org.simplepoint.plugin.dna.federation.service.support.FederationQueryAuditWriter;
+import org.simplepoint.plugin.dna.federation.service.support.FederationQueryPolicyCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 /**
@@ -45,6 +48,9 @@ public class FederationSqlConsoleServiceImpl implements FederationSqlConsoleServ
   /** Default statement timeout (in seconds) for DDL and DML execution to prevent indefinite hangs. */
   private static final int DDL_DML_STATEMENT_TIMEOUT_SECONDS = 60;
 
+  /** Parameter sets sent to the target JDBC driver per {@code executeBatch} call. */
+  private static final int DML_BATCH_FLUSH_SIZE = 1000;
+
   private static final Pattern SMART_DML_PATTERN = Pattern.compile(
       "\\s*(INSERT|UPDATE|DELETE|MERGE|UPSERT)\\b", Pattern.CASE_INSENSITIVE
   );
@@ -55,7 +61,7 @@ public class FederationSqlConsoleServiceImpl implements FederationSqlConsoleServ
 
   private final JdbcDataSourceDefinitionService dataSourceService;
 
-  private final FederationQueryPolicyRepository policyRepository;
+  private final FederationQueryPolicyCache policyCache;
 
   private final FederationCalciteCatalogAssembler catalogAssembler;
 
@@ -70,31 +76,35 @@ public class FederationSqlConsoleServiceImpl implements FederationSqlConsoleServ
   private final FederationSqlAuditor sqlAuditor;
 
   /**
-   * Creates a SQL console service implementation.
+   * Creates a SQL console service implementation backed by the shared policy snapshot cache and
+   * the asynchronous audit writer.
    *
    * @param dataSourceService datasource service
-   * @param policyRepository query policy repository
+   * @param policyCache compiled query policy cache
    * @param auditService query audit service
    * @param catalogAssembler Calcite catalog assembler
    * @param queryEngine Calcite query engine
    * @param metadataCacheService metadata cache service
+   * @param auditWriter asynchronous audit writer, null to write audits synchronously
    */
+  @Autowired
   public FederationSqlConsoleServiceImpl(
       final JdbcDataSourceDefinitionService dataSourceService,
-      final FederationQueryPolicyRepository policyRepository,
+      final FederationQueryPolicyCache policyCache,
       final FederationQueryAuditService auditService,
       final FederationCalciteCatalogAssembler catalogAssembler,
       final CalciteQueryEngine queryEngine,
-      final FederationMetadataCacheService metadataCacheService
+      final FederationMetadataCacheService metadataCacheService,
+      final FederationQueryAuditWriter auditWriter
   ) {
     this.dataSourceService = dataSourceService;
-    this.policyRepository = policyRepository;
+    this.policyCache = policyCache;
     this.catalogAssembler = catalogAssembler;
     this.queryEngine = queryEngine;
     this.metadataCacheService = metadataCacheService;
     this.dmlProcessor = new FederationDmlStatementProcessor(dataSourceService);
     this.ddlProcessor = new FederationDdlStatementProcessor(dataSourceService);
-    this.sqlAuditor = new FederationSqlAuditor(auditService);
+    this.sqlAuditor = new FederationSqlAuditor(auditService, auditWriter);
   }
 
   /** {@inheritDoc} */
@@ -142,35 +152,14 @@ public class FederationSqlConsoleServiceImpl implements FederationSqlConsoleServ
           prepared.assembly().schemaConfigurer(),
           prepared.analysis()
       );
-      List<String> resultSources = FederationSqlAnalysisUtils.resolveResponseDataSources(
-          result.analysis().planText(),
-          prepared.assembly().physicalDataSourceCodes(),
-          prepared.dataSources()
-      );
-      String pushdownSummary = FederationSqlAnalysisUtils.buildPushdownSummary(result.analysis(), resultSources);
-      FederationQueryModels.SqlQueryResult response = new FederationQueryModels.SqlQueryResult(
-          prepared.catalogCode(),
-          prepared.policy().code(),
-          prepared.queryRequest().maxRows(),
-          prepared.policy().timeoutMs(),
-          prepared.policy().allowCrossSourceJoin(),
-          resultSources.size() > 1,
-          resultSources,
-          result.columns().stream()
-              .map(column -> new FederationQueryModels.SqlColumn(column.name(), column.typeName(), column.jdbcType()))
-              .toList(),
+      FederationQueryModels.SqlQueryResult response = toQueryResult(
+          prepared,
+          result.columns(),
           result.rows(),
           result.truncated(),
           result.returnedRows(),
           result.executionTimeMs(),
-          result.analysis().planText(),
-          result.analysis().pushedSqls(),
-          pushdownSummary,
-          prepared.schemaCacheHit(),
-          prepared.schemaAssemblyTimeMs(),
-          prepared.mountedDataSourceCount(),
-          result.analysis().pushedDownOperators(),
-          result.analysis().platformJoin()
+          result.analysis()
       );
       sqlAuditor.persist(
           prepared.catalogCode(),
@@ -178,7 +167,7 @@ public class FederationSqlConsoleServiceImpl implements FederationSqlConsoleServ
           "SUCCESS",
           result.executionTimeMs(),
           result.returnedRows(),
-          pushdownSummary,
+          response.pushdownSummary(),
           null
       );
       return response;
@@ -193,6 +182,53 @@ public class FederationSqlConsoleServiceImpl implements FederationSqlConsoleServ
     }
   }
 
+  /** {@inheritDoc} */
+  @Override
+  public QueryCursor openCursor(
+      final String dataSourceId,
+      final FederationQueryModels.SqlConsoleRequest request,
+      final int fetchSize
+  ) {
+    PreparedExecution prepared = null;
+    long startedAt = System.nanoTime();
+    try {
+      if (fetchSize < 1) {
+        throw new IllegalArgumentException("fetchSize 必须大于 0");
+      }
+      prepared = prepare(dataSourceId, request);
+      CalciteQueryCursor cursor = queryEngine.open(
+          prepared.queryRequest(),
+          prepared.assembly().schemaConfigurer(),
+          prepared.analysis()
+      );
+      try {
+        List<List<Object>> rows = cursor.fetch(fetchSize);
+        FederationQueryModels.SqlQueryResult firstBatch = toQueryResult(
+            prepared,
+            cursor.columns(),
+            rows,
+            cursor.truncated(),
+            rows.size(),
+            cursor.openTimeMs(),
+            cursor.analysis()
+        );
+        return new ConsoleQueryCursor(prepared, cursor, firstBatch, startedAt);
+      } catch (RuntimeException ex) {
+        cursor.close();
+        throw ex;
+      }
+    } catch (IllegalArgumentException ex) {
+      closePreparedExecution(prepared);
+      throw auditFailureAndReturn(ex, request, prepared, startedAt, "REJECTED");
+    } catch (PolicyViolationException ex) {
+      closePreparedExecution(prepared);
+      throw auditFailureAndReturn(ex, request, prepared, startedAt, "REJECTED");
+    } catch (IllegalStateException ex) {
+      closePreparedExecution(prepared);
+      throw auditFailureAndReturn(ex, request, prepared, startedAt, "FAILED");
+    }
+  }
+
   /** {@inheritDoc} */
   @Override
   public FederationQueryModels.SqlUpdateResult executeUpdate(
@@ -223,7 +259,8 @@ public class FederationSqlConsoleServiceImpl implements FederationSqlConsoleServ
     LOGGER.debug("DML 下推到物理数据源 [{}]: {}", dmlTarget.dataSource().getCode(), pushedSql);
     long startedAt = System.nanoTime();
     try (Connection connection = simpleDataSource.getConnection();
-         PreparedStatement statement = connection.prepareStatement(pushedSql)) {
+         PreparedStatement statement = connection.prepareStatement(pushedSql);
+         CalciteQueryCancellation.Registration ignored = CalciteQueryCancellation.registerCurrent(statement)) {
       statement.setQueryTimeout(DDL_DML_STATEMENT_TIMEOUT_SECONDS);
       bindParameters(statement, request == null ? null : request.parameters());
       int affectedRows = statement.executeUpdate();
@@ -259,6 +296,72 @@ public class FederationSqlConsoleServiceImpl implements FederationSqlConsoleServ
     }
   }
 
+  /** {@inheritDoc} */
+  @Override
+  public FederationQueryModels.SqlBatchUpdateResult executeBatch(
+      final String dataSourceId,
+      final FederationQueryModels.SqlConsoleRequest request,
+      final List<List<Object>> parameterSets
+  ) {
+    String catalogCode = requireValue(request == null ? null : request.catalogCode(), "数据源编码不能为空");
+    String sql = requireValue(request == null ? null : request.sql(), "SQL 不能为空");
+    if (sql.length() > FederationSqlAuditor.SQL_TEXT_MAX_LENGTH) {
+      throw new IllegalArgumentException("SQL 长度不能超过 " + FederationSqlAuditor.SQL_TEXT_MAX_LENGTH + " 个字符");
+    }
+    List<List<Object>> batches = parameterSets == null ? List.of() : parameterSets;
+    String normalizedSql = FederationSqlAnalysisUtils.normalizeQualifiedIdentifiers(sql);
+    JdbcDataSourceDefinition resolvedDataSource = resolveDataSource(dataSourceId, catalogCode);
+    TableReferenceSummary references = FederationSqlAnalysisUtils.collectTableReferences(normalizedSql);
+    DmlTarget dmlTarget = dmlProcessor.resolve(resolvedDataSource, references);
+    String pushedSql = FederationDmlStatementProcessor.rewrite(normalizedSql, dmlTarget.dataSource().getCode());
+    if (batches.isEmpty()) {
+      return new FederationQueryModels.SqlBatchUpdateResult(
+          catalogCode, dmlTarget.dataSource().getCode(), new long[0], 0L, pushedSql
+      );
+    }
+    SimpleDataSource simpleDataSource = dataSourceService.requireSimpleDataSource(
+        requireValue(dmlTarget.dataSource().getId(), "数据源ID不能为空")
+    );
+    LOGGER.debug("DML 批量下推到物理数据源 [{}], {} 组参数: {}", dmlTarget.dataSource().getCode(), batches.size(), pushedSql);
+    long startedAt = System.nanoTime();
+    try (Connection connection = simpleDataSource.getConnection()) {
+      long[] updateCounts = executeJdbcBatch(connection, pushedSql, batches);
+      long elapsed = FederationSqlAuditor.toElapsedMs(startedAt);
+      long affectedRows = 0L;
+      for (long count : updateCounts) {
+        affectedRows += Math.max(count, 0L);
+      }
+      sqlAuditor.persist(
+          catalogCode,
+          normalizedSql,
+          "SUCCESS",
+          elapsed,
+          affectedRows,
+          "DML 批量下推到物理数据源: " + dmlTarget.dataSource().getCode() + ", 共 " + batches.size() + " 组参数",
+          null
+      );
+      return new FederationQueryModels.SqlBatchUpdateResult(
+          catalogCode,
+          dmlTarget.dataSource().getCode(),
+          updateCounts,
+          elapsed,
+          pushedSql
+      );
+    } catch (SQLException ex) {
+      long elapsed = FederationSqlAuditor.toElapsedMs(startedAt);
+      sqlAuditor.persist(
+          catalogCode,
+          normalizedSql,
+          "FAILED",
+          elapsed,
+          null,
+          "DML 批量执行失败 - 目标数据源: " + dmlTarget.dataSource().getCode(),
+          FederationSqlAuditor.resolveMessage(ex)
+      );
+      throw new IllegalStateException("DML 批量执行失败: " + ex.getMessage(), ex);
+    }
+  }
+
   /** {@inheritDoc} */
   @Override
   public FederationQueryModels.SqlUpdateResult executeDdl(
@@ -291,13 +394,15 @@ public class FederationSqlConsoleServiceImpl implements FederationSqlConsoleServ
     try (Connection connection = simpleDataSource.getConnection()) {
       int result;
       if (hasParams) {
-        try (PreparedStatement ps = connection.prepareStatement(pushedSql)) {
+        try (PreparedStatement ps = connection.prepareStatement(pushedSql);
+             CalciteQueryCancellation.Registration ignored = CalciteQueryCancellation.registerCurrent(ps)) {
           ps.setQueryTimeout(DDL_DML_STATEMENT_TIMEOUT_SECONDS);
           bindParameters(ps, params);
           result = ps.executeUpdate();
         }
       } else {
-        try (Statement statement = connection.createStatement()) {
+        try (Statement statement = connection.createStatement();
+             CalciteQueryCancellation.Registration ignored = CalciteQueryCancellation.registerCurrent(statement)) {
           statement.setQueryTimeout(DDL_DML_STATEMENT_TIMEOUT_SECONDS);
           result = statement.executeUpdate(pushedSql);
         }
@@ -312,6 +417,8 @@ public class FederationSqlConsoleServiceImpl implements FederationSqlConsoleServ
           "DDL 直接下推到物理数据源: " + ddlTarget.dataSource().getCode(),
           null
       );
+      // Only the target datasource's cached metadata is stale; other datasources stay warm.
+      metadataCacheService.invalidate(ddlTarget.dataSource().getCode(), null);
       return new FederationQueryModels.SqlUpdateResult(
           catalogCode,
           ddlTarget.dataSource().getCode(),
@@ -377,17 +484,14 @@ public class FederationSqlConsoleServiceImpl implements FederationSqlConsoleServ
     }
     String normalizedSql = FederationSqlAnalysisUtils.normalizeQualifiedIdentifiers(sql);
     JdbcDataSourceDefinition resolvedDataSource = resolveDataSource(dataSourceId, catalogCode);
-    ResolvedPolicy policy = resolvePolicy(resolvedDataSource);
+    FederationQueryPolicyCache.CompiledPolicy policy = resolvePolicy(resolvedDataSource);
     List<JdbcDataSourceDefinition> queryDataSources = resolveQueryDataSources(resolvedDataSource, normalizedSql);
     FederationCalciteCatalogAssembler.FederationCalciteCatalogAssembly assembly = catalogAssembler.assemble(
         resolvedDataSource.getCode(),
         queryDataSources
     );
     try {
-      int effectiveMaxRows = policy.maxRows();
-      if (request != null && request.maxRows() != null && request.maxRows() > 0) {
-        effectiveMaxRows = Math.min(effectiveMaxRows, request.maxRows());
-      }
+      int effectiveMaxRows = policy.effectiveMaxRows(request == null ? null : request.maxRows());
       CalciteQueryRequest queryRequest = new CalciteQueryRequest(
           normalizedSql,
           resolveDefaultSchema(request == null ? null : request.defaultSchema(), resolvedDataSource.getCode(), queryDataSources),
@@ -422,6 +526,46 @@ public class FederationSqlConsoleServiceImpl implements FederationSqlConsoleServ
     }
   }
 
+  private static FederationQueryModels.SqlQueryResult toQueryResult(
+      final PreparedExecution prepared,
+      final List<CalciteQueryColumn> columns,
+      final List<List<Object>> rows,
+      final boolean truncated,
+      final long returnedRows,
+      final long executionTimeMs,
+      final CalciteQueryAnalysis analysis
+  ) {
+    List<String> resultSources = FederationSqlAnalysisUtils.resolveResponseDataSources(
+        analysis.planText(),
+        prepared.assembly().physicalDataSourceCodes(),
+        prepared.dataSources()
+    );
+    return new FederationQueryModels.SqlQueryResult(
+        prepared.catalogCode(),
+        prepared.policy().code(),
+        prepared.queryRequest().maxRows(),
+        prepared.policy().timeoutMs(),
+        prepared.policy().allowCrossSourceJoin(),
+        resultSources.size() > 1,
+        resultSources,
+        columns.stream()
+            .map(column -> new FederationQueryModels.SqlColumn(column.name(), column.typeName(), column.jdbcType()))
+            .toList(),
+        rows,
+        truncated,
+        returnedRows,
+        executionTimeMs,
+        analysis.planText(),
+        analysis.pushedSqls(),
+        FederationSqlAnalysisUtils.buildPushdownSummary(analysis, resultSources),
+        prepared.schemaCacheHit(),
+        prepared.schemaAssemblyTimeMs(),
+        prepared.mountedDataSourceCount(),
+        analysis.pushedDownOperators(),
+        analysis.platformJoin()
+    );
+  }
+
   private JdbcDataSourceDefinition resolveDataSource(
       final String dataSourceId,
       final String catalogCode
@@ -449,38 +593,16 @@ public class FederationSqlConsoleServiceImpl implements FederationSqlConsoleServ
     return dataSource;
   }
 
-  private ResolvedPolicy resolvePolicy(final JdbcDataSourceDefinition dataSource) {
-    FederationQueryPolicy policy = policyRepository.findAllActiveByCatalogId(requireValue(
+  private FederationQueryPolicyCache.CompiledPolicy resolvePolicy(final JdbcDataSourceDefinition dataSource) {
+    FederationQueryPolicyCache.CompiledPolicy policy = policyCache.resolve(requireValue(
             dataSource == null ? null : dataSource.getId(),
             "数据源ID不能为空"
-        )).stream()
-        .filter(candidate -> Boolean.TRUE.equals(candidate.getEnabled()))
-        .sorted(Comparator.comparing(
-            FederationQueryPolicy::getUpdatedAt,
-            Comparator.nullsLast(Comparator.reverseOrder())
-        ).thenComparing(
-            FederationQueryPolicy::getCreatedAt,
-            Comparator.nullsLast(Comparator.reverseOrder())
-        ).thenComparing(FederationQueryPolicy::getCode, Comparator.nullsLast(String::compareTo)))
-        .findFirst()
+        ))
         .orElseThrow(() -> new PolicyViolationException("数据源未配置已启用的查询策略: " + dataSource.getCode()));
-    if (!Boolean.TRUE.equals(policy.getAllowSqlConsole())) {
-      throw new PolicyViolationException("当前查询策略未开放 SQL 控制台: " + policy.getCode());
-    }
-    Integer maxRows = policy.getMaxRows();
-    if (maxRows == null || maxRows < 1) {
-      throw new PolicyViolationException("查询策略未配置有效的最大返回行数: " + policy.getCode());
-    }
-    Integer timeoutMs = policy.getTimeoutMs();
-    if (timeoutMs == null || timeoutMs < 1) {
-      throw new PolicyViolationException("查询策略未配置有效的超时时间: " + policy.getCode());
-    }
-    return new ResolvedPolicy(
-        requireValue(policy.getCode(), "查询策略编码不能为空"),
-        maxRows,
-        timeoutMs,
-        Boolean.TRUE.equals(policy.getAllowCrossSourceJoin())
-    );
+    if (policy.violation() != null) {
+      throw new PolicyViolationException(policy.violation());
+    }
+    return policy;
   }
 
   private List<JdbcDataSourceDefinition> resolveQueryDataSources(
@@ -574,17 +696,9 @@ public class FederationSqlConsoleServiceImpl implements FederationSqlConsoleServ
     }
   }
 
-  private record ResolvedPolicy(
-      String code,
-      int maxRows,
-      int timeoutMs,
-      boolean allowCrossSourceJoin
-  ) {
-  }
-
   private record PreparedExecution(
       String catalogCode,
-      ResolvedPolicy policy,
+      FederationQueryPolicyCache.CompiledPolicy policy,
       FederationCalciteCatalogAssembler.FederationCalciteCatalogAssembly assembly,
       CalciteQueryRequest queryRequest,
       CalciteQueryAnalysis analysis,
@@ -602,6 +716,142 @@ public class FederationSqlConsoleServiceImpl implements FederationSqlConsoleServ
     }
   }
 
+  /**
+   * Streams a query through a Calcite cursor; the schema assembly stays leased until close, at
+   * which point the query is audited with the total number of rows delivered.
+   */
+  private final class ConsoleQueryCursor implements QueryCursor {
+
+    private final PreparedExecution prepared;
+
+    private final CalciteQueryCursor cursor;
+
+    private final FederationQueryModels.SqlQueryResult firstBatch;
+
+    private final long startedAt;
+
+    private boolean closed;
+
+    private ConsoleQueryCursor(
+        final PreparedExecution prepared,
+        final CalciteQueryCursor cursor,
+        final FederationQueryModels.SqlQueryResult firstBatch,
+        final long startedAt
+    ) {
+      this.prepared = prepared;
+      this.cursor = cursor;
+      this.firstBatch = firstBatch;
+      this.startedAt = startedAt;
+    }
+
+    @Override
+    public FederationQueryModels.SqlQueryResult firstBatch() {
+      return firstBatch;
+    }
+
+    @Override
+    public List<List<Object>> fetch(final int batchSize) {
+      if (closed) {
+        throw new IllegalStateException("查询游标已关闭");
+      }
+      try {
+        return cursor.fetch(batchSize);
+      } catch (IllegalStateException ex) {
+        release();
+        throw sqlAuditor.recordFailure(
+            ex,
+            prepared.catalogCode(),
+            prepared.queryRequest().sql(),
+            startedAt,
+            "FAILED",
+            prepared.pushdownSummary()
+        );
+      }
+    }
+
+    @Override
+    public boolean hasMore() {
+      return !closed && cursor.hasMore();
+    }
+
+    @Override
+    public boolean truncated() {
+      return cursor.truncated();
+    }
+
+    @Override
+    public void close() {
+      if (closed) {
+        return;
+      }
+      release();
+      sqlAuditor.persist(
+          prepared.catalogCode(),
+          prepared.queryRequest().sql(),
+          "SUCCESS",
+          FederationSqlAuditor.toElapsedMs(startedAt),
+          cursor.returnedRows(),
+          firstBatch.pushdownSummary(),
+          null
+      );
+    }
+
+    private void release() {
+      closed = true;
+      try {
+        cursor.close();
+      } finally {
+        prepared.close();
+      }
+    }
+  }
+
+  /**
+   * Runs the parameter matrix as JDBC statement batches inside one transaction, so the whole
+   * batch either commits or rolls back on the target datasource.
+   */
+  private static long[] executeJdbcBatch(
+      final Connection connection,
+      final String pushedSql,
+      final List<List<Object>> parameterSets
+  ) throws SQLException {
+    boolean autoCommit = connection.getAutoCommit();
+    if (autoCommit) {
+      connection.setAutoCommit(false);
+    }
+    try (PreparedStatement statement = connection.prepareStatement(pushedSql);
+         CalciteQueryCancellation.Registration ignored = CalciteQueryCancellation.registerCurrent(statement)) {
+      statement.setQueryTimeout(DDL_DML_STATEMENT_TIMEOUT_SECONDS);
+      long[] updateCounts = new long[parameterSets.size()];
+      int flushed = 0;
+      for (int index = 0; index < parameterSets.size(); index++) {
+        statement.clearParameters();
+        bindParameters(statement, parameterSets.get(index));
+        statement.addBatch();
+        if (index + 1 - flushed == DML_BATCH_FLUSH_SIZE || index == parameterSets.size() - 1) {
+          int[] counts = statement.executeBatch();
+          for (int offset = 0; offset < counts.length && flushed + offset < updateCounts.length; offset++) {
+            updateCounts[flushed + offset] = counts[offset];
+          }
+          flushed = index + 1;
+        }
+      }
+      connection.commit();
+      return updateCounts;
+    } catch (SQLException | RuntimeException ex) {
+      try {
+        connection.rollback();
+      } catch (SQLException rollbackEx) {
+        ex.addSuppressed(rollbackEx);
+      }
+      throw ex;
+    } finally {
+      if (autoCommit) {
+        connection.setAutoCommit(true);
+      }
+    }
+  }
+
   /**
    * Binds parameters to a prepared statement using {@code setObject}.
    * If parameters is {@code null} or empty, this is a no-op.
@@ -0,0 +1,106 @@
+package org.simplepoint.plugin.dna.federation.service.support;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import org.jspecify.annotations.Nullable;
+import org.simplepoint.plugin.dna.federation.api.entity.DataQualityRule;
+import org.simplepoint.plugin.dna.federation.api.service.DataQualityRuleService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs all enabled data quality rules on a cron schedule. Disabled unless
+ * {@code simplepoint.dna.data-quality.schedule-cron} is set.
+ *
+ * <p>Every node fires the cron, so a run first takes a Redis lock and nodes that lose the race
+ * skip it. Without Redis the node runs the checks on its own, as a single-node deployment does.
+ */
+@Component
+public class DataQualityCheckScheduler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DataQualityCheckScheduler.class);
+
+  private static final String LOCK_KEY = "dna:data-quality:schedule-lock";
+
+  private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>("""
+      if redis.call('get', KEYS[1]) == ARGV[1] then
+        return redis.call('del', KEYS[1])
+      end
+      return 0
+      """, Long.class);
+
+  private final DataQualityRuleService dataQualityRuleService;
+
+  private final @Nullable StringRedisTemplate redisTemplate;
+
+  @Value("${simplepoint.dna.data-quality.schedule-lock-seconds:1800}")
+  private long lockSeconds = 1_800L;
+
+  /**
+   * Creates the scheduler.
+   *
+   * @param dataQualityRuleService data quality rule service
+   * @param redisTemplate          Redis template guarding runs across nodes, null if Redis is not configured
+   */
+  public DataQualityCheckScheduler(
+      final DataQualityRuleService dataQualityRuleService,
+      @Autowired(required = false) @Nullable final StringRedisTemplate redisTemplate
+  ) {
+    this.dataQualityRuleService = dataQualityRuleService;
+    this.redisTemplate = redisTemplate;
+  }
+
+  /**
+   * Runs the scheduled incremental quality checks unless another node holds the run lock.
+   */
+  @Scheduled(cron = "${simplepoint.dna.data-quality.schedule-cron:-}")
+  public void runChecks() {
+    String token = UUID.randomUUID().toString();
+    if (!acquireLock(token)) {
+      LOGGER.debug("定时数据质量检查已由其他节点执行，本节点跳过");
+      return;
+    }
+    try {
+      List<DataQualityRule> rules = dataQualityRuleService.executeScheduledChecks();
+      long failed = rules.stream().filter(rule -> !"PASSED".equals(rule.getLastRunStatus())).count();
+      LOGGER.info("定时数据质量检查完成: 共 {} 条规则, {} 条未通过", rules.size(), failed);
+    } catch (RuntimeException ex) {
+      LOGGER.warn("定时数据质量检查失败: {}", ex.getMessage(), ex);
+    } finally {
+      releaseLock(token);
+    }
+  }
+
+  private boolean acquireLock(final String token) {
+    if (redisTemplate == null) {
+      return true;
+    }
+    try {
+      return Boolean.TRUE.equals(redisTemplate.opsForValue()
+          .setIfAbsent(LOCK_KEY, token, Duration.ofSeconds(Math.max(1L, lockSeconds))));
+    } catch (RuntimeException ex) {
+      // Skipping is safer than letting every node scan the same tables while Redis is down.
+      LOGGER.warn("获取定时数据质量检查锁失败，本节点跳过本次执行: {}", ex.getMessage());
+      return false;
+    }
+  }
+
+  private void releaseLock(final String token) {
+    if (redisTemplate == null) {
+      return;
+    }
+    try {
+      redisTemplate.execute(RELEASE, List.of(LOCK_KEY), token);
+    } catch (RuntimeException ex) {
+      LOGGER.warn("释放定时数据质量检查锁失败，锁将在 {}s 后过期: {}", lockSeconds, ex.getMessage());
+    }
+  }
+}
@@ -0,0 +1,218 @@
+package org.simplepoint.plugin.dna.federation.service.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import org.simplepoint.plugin.dna.federation.api.entity.DataQualityRule;
+
+/**
+ * Plans data quality rules into as few table scans as possible.
+ *
+ * <p>Column rules (NOT_NULL, UNIQUE, RANGE, REGEX) and ROW_COUNT rules that target the same table
+ * of the same datasource are fused into one aggregate statement, one conditional count per rule,
+ * so the table is read once instead of once per rule. CUSTOM_SQL rules keep their own statement.
+ *
+ * <p>In incremental mode, row-level rules (NOT_NULL, RANGE, REGEX) that declare an incremental
+ * column only scan rows beyond their last watermark, and the scan also returns the new maximum
+ * of that column. UNIQUE and ROW_COUNT describe the whole table and always scan it fully.
+ */
+public final class DataQualityScanPlanner {
+
+  /** Allows letters, digits, underscores, dots (for schema.table), and hyphens. */
+  private static final Pattern SAFE_IDENTIFIER = Pattern.compile("^[a-zA-Z_][a-zA-Z0-9_.\\-]*$");
+
+  private static final Pattern NUMERIC_LITERAL = Pattern.compile("^-?\\d+(\\.\\d+)?$");
+
+  private static final Set<String> INCREMENTAL_RULE_TYPES = Set.of("NOT_NULL", "RANGE", "REGEX");
+
+  private final int maxChecksPerScan;
+
+  /**
+   * Creates a planner.
+   *
+   * @param maxChecksPerScan maximum number of rules fused into one statement
+   */
+  public DataQualityScanPlanner(final int maxChecksPerScan) {
+    this.maxChecksPerScan = Math.max(1, maxChecksPerScan);
+  }
+
+  /**
+   * Plans the scans needed to evaluate the given rules.
+   *
+   * @param rules       rules to evaluate
+   * @param incremental whether rules with an incremental column only scan new rows
+   * @return planned scans and the rules that could not be planned
+   */
+  public Plan plan(final Collection<DataQualityRule> rules, final boolean incremental) {
+    Map<ScanKey, List<DataQualityRule>> groups = new LinkedHashMap<>();
+    List<TableScan> scans = new ArrayList<>();
+    List<RejectedRule> rejected = new ArrayList<>();
+    for (DataQualityRule rule : rules) {
+      try {
+        if ("CUSTOM_SQL".equals(rule.getRuleType())) {
+          scans.add(customScan(rule));
+          continue;
+        }
+        // Validates the expression eagerly so one broken rule does not fail its whole group.
+        checkExpression(rule);
+        groups.computeIfAbsent(scanKey(rule, incremental), key -> new ArrayList<>()).add(rule);
+      } catch (IllegalArgumentException ex) {
+        rejected.add(new RejectedRule(rule, ex.getMessage()));
+      }
+    }
+    groups.forEach((key, grouped) -> {
+      for (int from = 0; from < grouped.size(); from += maxChecksPerScan) {
+        scans.add(fusedScan(key, grouped.subList(from, Math.min(grouped.size(), from + maxChecksPerScan))));
+      }
+    });
+    return new Plan(List.copyOf(scans), List.copyOf(rejected));
+  }
+
+  private static TableScan customScan(final DataQualityRule rule) {
+    String sql = rule.getCheckSql();
+    if (sql == null || sql.isBlank()) {
+      throw new IllegalArgumentException("质量规则未配置检查 SQL");
+    }
+    return new TableScan(rule.getCatalogId(), rule.getTargetTable(), sql, List.of(new PlannedCheck(rule, 0)), -1);
+  }
+
+  private static ScanKey scanKey(final DataQualityRule rule, final boolean incremental) {
+    String table = requireSafeIdentifier(rule.getTargetTable(), "目标表");
+    String incrementalColumn = incremental && INCREMENTAL_RULE_TYPES.contains(rule.getRuleType())
+        ? rule.getIncrementalColumn()
+        : null;
+    if (incrementalColumn == null) {
+      return new ScanKey(rule.getCatalogId(), table, null, null);
+    }
+    requireSafeIdentifier(incrementalColumn, "增量列");
+    return new ScanKey(rule.getCatalogId(), table, incrementalColumn, rule.getLastWatermark());
+  }
+
+  private static TableScan fusedScan(final ScanKey key, final List<DataQualityRule> rules) {
+    Map<String, Integer> expressions = new LinkedHashMap<>();
+    List<PlannedCheck> checks = new ArrayList<>(rules.size());
+    for (DataQualityRule rule : rules) {
+      int index = expressions.computeIfAbsent(checkExpression(rule), expression -> expressions.size());
+      checks.add(new PlannedCheck(rule, index));
+    }
+    int watermarkIndex = -1;
+    if (key.incrementalColumn() != null) {
+      watermarkIndex = expressions.size();
+      expressions.put("MAX(" + key.incrementalColumn() + ")", watermarkIndex);
+    }
+    StringBuilder sql = new StringBuilder("SELECT ");
+    expressions.forEach((expression, index) -> {
+      if (index > 0) {
+        sql.append(", ");
+      }
+      sql.append(expression).append(" AS c").append(index);
+    });
+    sql.append(" FROM ").append(key.table());
+    if (key.incrementalColumn() != null && key.watermark() != null) {
+      sql.append(" WHERE ").append(key.incrementalColumn()).append(" > ").append(literal(key.watermark()));
+    }
+    return new TableScan(key.catalogId(), key.table(), sql.toString(), List.copyOf(checks), watermarkIndex);
+  }
+
+  private static String checkExpression(final DataQualityRule rule) {
+    String column = rule.getTargetColumn();
+    return switch (rule.getRuleType()) {
+      case "NOT_NULL" -> "COUNT(CASE WHEN " + requireSafeIdentifier(column, "目标列") + " IS NULL THEN 1 END)";
+      case "UNIQUE" -> "COUNT(*) - COUNT(DISTINCT " + requireSafeIdentifier(column, "目标列") + ")";
+      case "ROW_COUNT" -> "COUNT(*)";
+      case "RANGE" -> {
+        requireSafeIdentifier(column, "目标列");
+        String expected = rule.getExpectedValue();
+        if (expected != null && expected.contains(",")) {
+          String[] parts = expected.split(",", 2);
+          double minVal = parseNumericBound(parts[0].trim(), "最小值");
+          double maxVal = parseNumericBound(parts[1].trim(), "最大值");
+          yield "COUNT(CASE WHEN " + column + " < " + minVal + " OR " + column + " > " + maxVal + " THEN 1 END)";
+        }
+        yield "COUNT(*)";
+      }
+      case "REGEX" -> {
+        requireSafeIdentifier(column, "目标列");
+        String pattern = rule.getExpectedValue() != null
+            ? rule.getExpectedValue().replace("'", "''") : "";
+        yield "COUNT(CASE WHEN " + column + " NOT REGEXP '" + pattern + "' THEN 1 END)";
+      }
+      default -> throw new IllegalArgumentException("不支持的规则类型: " + rule.getRuleType());
+    };
+  }
+
+  private static String literal(final String watermark) {
+    return NUMERIC_LITERAL.matcher(watermark).matches() ? watermark : "'" + watermark.replace("'", "''") + "'";
+  }
+
+  private static String requireSafeIdentifier(final String identifier, final String label) {
+    if (identifier == null || identifier.isBlank()) {
+      throw new IllegalArgumentException(label + "不能为空");
+    }
+    if (!SAFE_IDENTIFIER.matcher(identifier).matches()) {
+      throw new IllegalArgumentException(
+          label + "包含非法字符: " + identifier);
+    }
+    return identifier;
+  }
+
+  private static double parseNumericBound(final String value, final String label) {
+    try {
+      return Double.parseDouble(value);
+    } catch (NumberFormatException ex) {
+      throw new IllegalArgumentException(label + "必须为数值: " + value, ex);
+    }
+  }
+
+  /**
+   * Planned scans.
+   *
+   * @param scans    statements to run, one per fused table group or custom rule
+   * @param rejected rules that could not be planned
+   */
+  public record Plan(List<TableScan> scans, List<RejectedRule> rejected) {
+  }
+
+  /**
+   * One statement against one datasource.
+   *
+   * @param catalogId      datasource id
+   * @param table          target table
+   * @param sql            statement returning a single row
+   * @param checks         rules evaluated from the row
+   * @param watermarkIndex row position of the new incremental watermark, -1 for full scans
+   */
+  public record TableScan(
+      String catalogId,
+      String table,
+      String sql,
+      List<PlannedCheck> checks,
+      int watermarkIndex
+  ) {
+  }
+
+  /**
+   * A rule and the row position holding its measured value.
+   *
+   * @param rule       quality rule
+   * @param valueIndex row position of the rule value
+   */
+  public record PlannedCheck(DataQualityRule rule, int valueIndex) {
+  }
+
+  /**
+   * A rule that could not be planned.
+   *
+   * @param rule    quality rule
+   * @param message reason
+   */
+  public record RejectedRule(DataQualityRule rule, String message) {
+  }
+
+  private record ScanKey(String catalogId, String table, String incrementalColumn, String watermark) {
+  }
+}
@@ -18,8 +18,15 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 import org.apache.calcite.adapter.jdbc.SafeJdbcSchema;
 import org.apache.calcite.schema.SchemaPlus;
@@ -31,14 +38,30 @@ import org.simplepoint.plugin.dna.core.api.service.JdbcDataSourceDefinitionServi
 import org.simplepoint.plugin.dna.core.api.service.JdbcDialectManagementService;
 import org.simplepoint.plugin.dna.core.api.service.JdbcDriverDefinitionService;
 import org.simplepoint.plugin.dna.core.api.spi.JdbcDatabaseDialect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
 /**
  * Assembles physical datasource schemas into one Calcite root tree for query execution.
+ *
+ * <p>Assemblies are cached per catalog and datasource scope. Builds are single-flight per cache
+ * key, so a slow source only delays the requests that need it. Once an entry enters its
+ * refresh-ahead window, or has expired but is still within the stale window, it keeps being served
+ * while a background thread rebuilds it. Every assembly handed out holds a lease on its cache
+ * entry, and a replaced or flushed entry closes its transient datasources only once the last
+ * query, cursor or export using it has closed its assembly.
  */
 @Component
-public class FederationCalciteCatalogAssembler {
+public class FederationCalciteCatalogAssembler implements DisposableBean {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FederationCalciteCatalogAssembler.class);
+
+  private static final int REFRESH_THREADS = 2;
 
   /**
    * Pattern matching characters safe for Calcite convention/rule descriptions.
@@ -49,7 +72,13 @@ public class FederationCalciteCatalogAssembler {
 
   private final Map<String, CachedCatalogAssembly> schemaCache = new ConcurrentHashMap<>();
 
-  private final Object schemaCacheMonitor = new Object();
+  private final Map<String, CompletableFuture<CachedCatalogAssembly>> inFlightBuilds = new ConcurrentHashMap<>();
+
+  private final Set<String> pendingRefreshes = ConcurrentHashMap.newKeySet();
+
+  private final AtomicLong cacheGeneration = new AtomicLong();
+
+  private final ScheduledThreadPoolExecutor refreshExecutor;
 
   @Value("${simplepoint.dna.calcite.schema-cache.enabled:true}")
   private boolean schemaCacheEnabled = true;
@@ -57,6 +86,15 @@ public class FederationCalciteCatalogAssembler {
   @Value("${simplepoint.dna.calcite.schema-cache.ttl-seconds:300}")
   private long schemaCacheTtlSeconds = 300L;
 
+  @Value("${simplepoint.dna.calcite.schema-cache.refresh-ahead-seconds:60}")
+  private long refreshAheadSeconds = 60L;
+
+  @Value("${simplepoint.dna.calcite.schema-cache.max-stale-seconds:300}")
+  private long maxStaleSeconds = 300L;
+
+  @Value("${simplepoint.dna.calcite.schema-cache.warmup-catalogs:}")
+  private String warmupCatalogs;
+
   private final JdbcDataSourceDefinitionService dataSourceService;
 
   private final JdbcDriverDefinitionService driverService;
@@ -78,6 +116,13 @@ public class FederationCalciteCatalogAssembler {
     this.dataSourceService = dataSourceService;
     this.driverService = driverService;
     this.dialectManagementService = dialectManagementService;
+    AtomicInteger threadCounter = new AtomicInteger();
+    this.refreshExecutor = new ScheduledThreadPoolExecutor(REFRESH_THREADS, runnable -> {
+      Thread thread = new Thread(runnable, "dna-calcite-schema-refresh-" + threadCounter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.refreshExecutor.setRemoveOnCancelPolicy(true);
   }
 
   /**
@@ -100,25 +145,49 @@ public class FederationCalciteCatalogAssembler {
           normalizedDataSources,
           expireAtMillis()
       );
-      return assembly.toRuntimeAssembly(false, toElapsedMs(startedAt), true);
+      FederationCalciteCatalogAssembly runtime = assembly.lease(false, toElapsedMs(startedAt));
+      assembly.retire();
+      return runtime;
     }
     String cacheKey = schemaCacheKey(normalizedCatalogCode, normalizedDataSources);
-    CachedCatalogAssembly cached = lookupCachedAssembly(cacheKey);
-    if (cached != null) {
-      return cached.toRuntimeAssembly(true, toElapsedMs(startedAt), false);
-    }
-    synchronized (schemaCacheMonitor) {
-      cached = lookupCachedAssembly(cacheKey);
-      if (cached != null) {
-        return cached.toRuntimeAssembly(true, toElapsedMs(startedAt), false);
+    while (true) {
+      long nowMillis = System.currentTimeMillis();
+      CachedCatalogAssembly cached = schemaCache.get(cacheKey);
+      if (cached != null && cached.servable(nowMillis, TimeUnit.SECONDS.toMillis(Math.max(0L, maxStaleSeconds)))) {
+        FederationCalciteCatalogAssembly runtime = cached.lease(true, toElapsedMs(startedAt));
+        if (runtime == null) {
+          continue;
+        }
+        if (cached.refreshDue(nowMillis, TimeUnit.SECONDS.toMillis(Math.max(0L, refreshAheadSeconds)))) {
+          scheduleRefresh(cacheKey, normalizedCatalogCode, normalizedDataSources);
+        }
+        return runtime;
+      }
+      LoadedAssembly loaded = loadAssembly(cacheKey, normalizedCatalogCode, normalizedDataSources);
+      FederationCalciteCatalogAssembly runtime = loaded.assembly().lease(!loaded.built(), toElapsedMs(startedAt));
+      if (runtime != null) {
+        if (!loaded.cached()) {
+          loaded.assembly().retire();
+        }
+        return runtime;
       }
-      CachedCatalogAssembly assembly = buildCatalogAssembly(
-          normalizedCatalogCode,
-          normalizedDataSources,
-          expireAtMillis()
-      );
-      schemaCache.put(cacheKey, assembly);
-      return assembly.toRuntimeAssembly(false, toElapsedMs(startedAt), false);
+    }
+  }
+
+  /**
+   * Builds the schemas of the configured warm-up catalogs in the background once the application
+   * is ready, so the first queries against them do not pay for the source metadata round trips.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUp() {
+    String catalogs = trimToNull(warmupCatalogs);
+    if (!schemaCacheEnabled || catalogs == null) {
+      return;
+    }
+    try {
+      refreshExecutor.execute(() -> warmUpCatalogs(catalogs));
+    } catch (RejectedExecutionException ex) {
+      LOGGER.warn("Calcite Schema 预热任务提交失败: {}", ex.getMessage());
     }
   }
 
@@ -128,15 +197,116 @@ public class FederationCalciteCatalogAssembler {
    * @return number of cache entries cleared
    */
   public long flushSchemaCache() {
-    List<CachedCatalogAssembly> entries;
-    synchronized (schemaCacheMonitor) {
-      entries = new ArrayList<>(schemaCache.values());
-      schemaCache.clear();
+    cacheGeneration.incrementAndGet();
+    List<CachedCatalogAssembly> entries = new ArrayList<>();
+    for (String cacheKey : new ArrayList<>(schemaCache.keySet())) {
+      CachedCatalogAssembly removed = schemaCache.remove(cacheKey);
+      if (removed != null) {
+        entries.add(removed);
+      }
     }
-    entries.forEach(CachedCatalogAssembly::close);
+    entries.forEach(CachedCatalogAssembly::retire);
     return entries.size();
   }
 
+  /**
+   * Stops background refreshes and closes every cached assembly.
+   */
+  @Override
+  public void destroy() {
+    refreshExecutor.shutdownNow();
+    flushSchemaCache();
+  }
+
+  private LoadedAssembly loadAssembly(
+      final String cacheKey,
+      final String normalizedCatalogCode,
+      final List<JdbcDataSourceDefinition> dataSources
+  ) {
+    CompletableFuture<CachedCatalogAssembly> flight = new CompletableFuture<>();
+    CompletableFuture<CachedCatalogAssembly> running = inFlightBuilds.putIfAbsent(cacheKey, flight);
+    if (running != null) {
+      return new LoadedAssembly(awaitBuild(running), false, true);
+    }
+    long generation = cacheGeneration.get();
+    try {
+      CachedCatalogAssembly assembly = buildCatalogAssembly(normalizedCatalogCode, dataSources, expireAtMillis());
+      CachedCatalogAssembly previous = schemaCache.put(cacheKey, assembly);
+      if (previous != null) {
+        previous.retire();
+      }
+      boolean cached = true;
+      if (generation != cacheGeneration.get() && schemaCache.remove(cacheKey, assembly)) {
+        cached = false;
+      }
+      flight.complete(assembly);
+      return new LoadedAssembly(assembly, true, cached);
+    } catch (RuntimeException ex) {
+      flight.completeExceptionally(ex);
+      throw ex;
+    } finally {
+      inFlightBuilds.remove(cacheKey, flight);
+    }
+  }
+
+  private static CachedCatalogAssembly awaitBuild(final CompletableFuture<CachedCatalogAssembly> running) {
+    try {
+      return running.join();
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new IllegalStateException("Calcite Schema 构建失败", ex.getCause());
+    }
+  }
+
+  private void scheduleRefresh(
+      final String cacheKey,
+      final String normalizedCatalogCode,
+      final List<JdbcDataSourceDefinition> dataSources
+  ) {
+    if (inFlightBuilds.containsKey(cacheKey) || !pendingRefreshes.add(cacheKey)) {
+      return;
+    }
+    try {
+      refreshExecutor.execute(() -> {
+        try {
+          loadAssembly(cacheKey, normalizedCatalogCode, dataSources);
+        } catch (RuntimeException ex) {
+          LOGGER.warn("Calcite Schema 后台刷新失败: {} - {}", normalizedCatalogCode, ex.getMessage());
+        } finally {
+          pendingRefreshes.remove(cacheKey);
+        }
+      });
+    } catch (RejectedExecutionException ex) {
+      pendingRefreshes.remove(cacheKey);
+    }
+  }
+
+  private void warmUpCatalogs(final String catalogs) {
+    List<JdbcDataSourceDefinition> definitions;
+    if ("*".equals(catalogs)) {
+      definitions = dataSourceService.listEnabledDefinitions();
+    } else {
+      definitions = new ArrayList<>();
+      for (String code : catalogs.split(",")) {
+        String normalizedCode = trimToNull(code);
+        if (normalizedCode != null) {
+          dataSourceService.findActiveByCode(normalizedCode)
+              .filter(definition -> Boolean.TRUE.equals(definition.getEnabled()))
+              .ifPresent(definitions::add);
+        }
+      }
+    }
+    for (JdbcDataSourceDefinition definition : definitions) {
+      try (FederationCalciteCatalogAssembly ignored = assemble(definition.getCode(), List.of(definition))) {
+        LOGGER.info("Calcite Schema 预热完成: {}", definition.getCode());
+      } catch (RuntimeException ex) {
+        LOGGER.warn("Calcite Schema 预热失败: {} - {}", definition.getCode(), ex.getMessage());
+      }
+    }
+  }
+
   private CachedCatalogAssembly buildCatalogAssembly(
       final String normalizedCatalogCode,
       final List<JdbcDataSourceDefinition> dataSources,
@@ -155,20 +325,6 @@ public class FederationCalciteCatalogAssembler {
     );
   }
 
-  private CachedCatalogAssembly lookupCachedAssembly(final String cacheKey) {
-    CachedCatalogAssembly cached = schemaCache.get(cacheKey);
-    if (cached == null) {
-      return null;
-    }
-    if (!cached.expired(System.currentTimeMillis())) {
-      return cached;
-    }
-    if (schemaCache.remove(cacheKey, cached)) {
-      cached.close();
-    }
-    return null;
-  }
-
   private static List<JdbcDataSourceDefinition> normalizeDataSources(
       final Collection<JdbcDataSourceDefinition> dataSources
   ) {
@@ -694,7 +850,7 @@ public class FederationCalciteCatalogAssembler {
       boolean schemaCacheHit,
       long schemaAssemblyTimeMs,
       int mountedDataSourceCount,
-      boolean closeOnClose
+      Runnable onClose
   ) implements AutoCloseable {
 
     /**
@@ -725,7 +881,7 @@ public class FederationCalciteCatalogAssembler {
           false,
           0L,
           physicalDataSourceCodes == null ? 0 : physicalDataSourceCodes.size(),
-          true
+          null
       );
     }
 
@@ -749,36 +905,72 @@ public class FederationCalciteCatalogAssembler {
       mountedDataSourceCount = Math.max(0, mountedDataSourceCount);
     }
 
+    /**
+     * Releases the assembly. Cached assemblies give back their lease; assemblies created without
+     * a release callback close their cleanup datasources directly.
+     */
     @Override
     public void close() {
-      if (closeOnClose) {
+      if (onClose != null) {
+        onClose.run();
+      } else {
         closeDataSources(cleanupDataSources);
       }
     }
   }
 
-  private record CachedCatalogAssembly(
-      String catalogCode,
-      List<String> physicalDataSourceCodes,
-      List<ResolvedJdbcSource> jdbcSources,
-      List<SimpleDataSource> cleanupDataSources,
-      long expiresAtMillis
-  ) implements AutoCloseable {
+  /**
+   * Cache entry shared by concurrent queries.
+   *
+   * <p>{@code leases} counts the runtime assemblies that are still open; it becomes {@code -1} once
+   * the transient datasources are closed, after which no new lease can be taken. A retired entry
+   * closes as soon as its lease count drops to zero.
+   */
+  private static final class CachedCatalogAssembly {
 
-    private CachedCatalogAssembly {
-      catalogCode = requireValue(catalogCode, "数据目录编码不能为空");
-      physicalDataSourceCodes = physicalDataSourceCodes == null
+    private final String catalogCode;
+
+    private final List<String> physicalDataSourceCodes;
+
+    private final List<ResolvedJdbcSource> jdbcSources;
+
+    private final List<SimpleDataSource> cleanupDataSources;
+
+    private final long expiresAtMillis;
+
+    private final AtomicInteger leases = new AtomicInteger();
+
+    private volatile boolean retired;
+
+    private CachedCatalogAssembly(
+        final String catalogCode,
+        final List<String> physicalDataSourceCodes,
+        final List<ResolvedJdbcSource> jdbcSources,
+        final List<SimpleDataSource> cleanupDataSources,
+        final long expiresAtMillis
+    ) {
+      this.catalogCode = requireValue(catalogCode, "数据目录编码不能为空");
+      this.physicalDataSourceCodes = physicalDataSourceCodes == null
           ? List.of()
           : List.copyOf(physicalDataSourceCodes);
-      jdbcSources = jdbcSources == null ? List.of() : List.copyOf(jdbcSources);
-      cleanupDataSources = cleanupDataSources == null ? List.of() : List.copyOf(cleanupDataSources);
+      this.jdbcSources = jdbcSources == null ? List.of() : List.copyOf(jdbcSources);
+      this.cleanupDataSources = cleanupDataSources == null ? List.of() : List.copyOf(cleanupDataSources);
+      this.expiresAtMillis = expiresAtMillis;
     }
 
-    private FederationCalciteCatalogAssembly toRuntimeAssembly(
-        final boolean cacheHit,
-        final long assemblyTimeMs,
-        final boolean closeOnClose
-    ) {
+    /**
+     * Takes a lease and returns a runtime assembly that gives it back on close, or {@code null}
+     * when the entry has already been closed.
+     */
+    private FederationCalciteCatalogAssembly lease(final boolean cacheHit, final long assemblyTimeMs) {
+      int current;
+      do {
+        current = leases.get();
+        if (current < 0) {
+          return null;
+        }
+      } while (!leases.compareAndSet(current, current + 1));
+      AtomicBoolean released = new AtomicBoolean();
       return new FederationCalciteCatalogAssembly(
           catalogCode,
           physicalDataSourceCodes,
@@ -787,17 +979,32 @@ public class FederationCalciteCatalogAssembler {
           cacheHit,
           assemblyTimeMs,
           physicalDataSourceCodes.size(),
-          closeOnClose
+          () -> {
+            if (released.compareAndSet(false, true) && leases.decrementAndGet() == 0 && retired) {
+              closeIfIdle();
+            }
+          }
       );
     }
 
-    private boolean expired(final long nowMillis) {
-      return expiresAtMillis < nowMillis;
+    /** Marks the entry as no longer cached; it closes once every lease has been released. */
+    private void retire() {
+      retired = true;
+      closeIfIdle();
     }
 
-    @Override
-    public void close() {
-      closeDataSources(cleanupDataSources);
+    private void closeIfIdle() {
+      if (leases.compareAndSet(0, -1)) {
+        closeDataSources(cleanupDataSources);
+      }
+    }
+
+    private boolean refreshDue(final long nowMillis, final long refreshAheadMillis) {
+      return expiresAtMillis != Long.MAX_VALUE && expiresAtMillis - refreshAheadMillis <= nowMillis;
+    }
+
+    private boolean servable(final long nowMillis, final long maxStaleMillis) {
+      return expiresAtMillis >= nowMillis || nowMillis - expiresAtMillis <= maxStaleMillis;
     }
   }
 
@@ -823,6 +1030,9 @@ public class FederationCalciteCatalogAssembler {
     }
   }
 
+  private record LoadedAssembly(CachedCatalogAssembly assembly, boolean built, boolean cached) {
+  }
+
   private record ResolvedJdbcSource(
       JdbcDataSourceDefinition definition,
       SimpleDataSource simpleDataSource,
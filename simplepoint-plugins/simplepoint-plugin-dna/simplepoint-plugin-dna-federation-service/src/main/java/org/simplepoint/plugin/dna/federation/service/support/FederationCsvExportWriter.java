@@ -0,0 +1,73 @@
+package org.simplepoint.plugin.dna.federation.service.support;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.simplepoint.plugin.dna.federation.api.vo.FederationQueryModels;
+
+/**
+ * Writes exported rows as UTF-8 CSV with RFC 4180 quoting.
+ */
+public final class FederationCsvExportWriter implements FederationExportWriter {
+
+  private final Writer writer;
+
+  /**
+   * Creates a CSV writer.
+   *
+   * @param columns result columns
+   * @param output  destination stream
+   * @param header  whether to write the byte-order mark and header line, false when appending
+   * @throws IOException when writing the header fails
+   */
+  public FederationCsvExportWriter(
+      final List<FederationQueryModels.SqlColumn> columns,
+      final OutputStream output,
+      final boolean header
+  ) throws IOException {
+    this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+    if (header) {
+      writer.write('\uFEFF');
+      writeRecord(FederationExportWriter.columnNames(columns));
+    }
+  }
+
+  @Override
+  public void writeRows(final List<List<Object>> rows) throws IOException {
+    for (List<Object> row : rows) {
+      writeRecord(row);
+    }
+  }
+
+  @Override
+  public void finish() throws IOException {
+    writer.flush();
+  }
+
+  private void writeRecord(final List<?> values) throws IOException {
+    for (int index = 0; index < values.size(); index++) {
+      if (index > 0) {
+        writer.write(',');
+      }
+      writeField(FederationExportWriter.text(values.get(index)));
+    }
+    writer.write('\n');
+  }
+
+  private void writeField(final String value) throws IOException {
+    if (value.indexOf(',') >= 0
+        || value.indexOf('"') >= 0
+        || value.indexOf('\n') >= 0
+        || value.indexOf('\r') >= 0) {
+      writer.write('"');
+      writer.write(value.replace("\"", "\"\""));
+      writer.write('"');
+    } else {
+      writer.write(value);
+    }
+  }
+}
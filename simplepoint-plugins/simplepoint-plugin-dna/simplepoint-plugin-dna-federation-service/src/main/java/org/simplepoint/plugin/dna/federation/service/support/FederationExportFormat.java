@@ -0,0 +1,59 @@
+package org.simplepoint.plugin.dna.federation.service.support;
+
+import java.util.Locale;
+
+/**
+ * File formats supported by query exports.
+ */
+public enum FederationExportFormat {
+
+  CSV("csv", "text/csv; charset=UTF-8"),
+
+  JSON("json", "application/json"),
+
+  PARQUET("parquet", "application/vnd.apache.parquet");
+
+  private final String extension;
+
+  private final String contentType;
+
+  FederationExportFormat(final String extension, final String contentType) {
+    this.extension = extension;
+    this.contentType = contentType;
+  }
+
+  /**
+   * Returns the file extension without the leading dot.
+   *
+   * @return file extension
+   */
+  public String extension() {
+    return extension;
+  }
+
+  /**
+   * Returns the MIME type of uncompressed output.
+   *
+   * @return content type
+   */
+  public String contentType() {
+    return contentType;
+  }
+
+  /**
+   * Resolves a format name.
+   *
+   * @param value format name, CSV when blank
+   * @return export format
+   */
+  public static FederationExportFormat of(final String value) {
+    if (value == null || value.isBlank()) {
+      return CSV;
+    }
+    try {
+      return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException ex) {
+      throw new IllegalArgumentException("不支持的导出格式: " + value, ex);
+    }
+  }
+}
@@ -0,0 +1,212 @@
+package org.simplepoint.plugin.dna.federation.service.support;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import org.simplepoint.plugin.dna.federation.api.vo.FederationQueryModels;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Node-local progress of running and recently finished query exports, so clients can poll a
+ * long export while it streams. Each entry records the principal that submitted it; only that
+ * principal can read its progress or reuse its id. Finished entries are dropped after the
+ * retention period.
+ */
+@Component
+public class FederationExportProgressRegistry {
+
+  private final Map<String, Tracker> trackers = new ConcurrentHashMap<>();
+
+  @Value("${simplepoint.dna.federation.export.progress-retention-seconds:3600}")
+  private long retentionSeconds = 3600L;
+
+  /**
+   * Registers an export. A finished entry with the same id is replaced only when it belongs to
+   * the same owner, so a user can resume their own export but never take over someone else's.
+   *
+   * @param exportId  export id
+   * @param owner     principal that submitted the export
+   * @param format    export format
+   * @param startRow  rows skipped before writing
+   * @param startPart parts already uploaded by earlier runs
+   * @return progress tracker
+   * @throws IllegalStateException when the id is still running or belongs to another owner
+   */
+  public Tracker start(
+      final String exportId,
+      final String owner,
+      final String format,
+      final long startRow,
+      final int startPart
+  ) {
+    purgeExpired();
+    return trackers.compute(exportId, (id, existing) -> {
+      if (existing != null && existing.running()) {
+        throw new IllegalStateException("导出任务正在执行中: " + id);
+      }
+      if (existing != null && !existing.owner.equals(owner)) {
+        throw new IllegalStateException("导出ID已被占用: " + id);
+      }
+      return new Tracker(id, owner, format, startRow, startPart);
+    });
+  }
+
+  /**
+   * Returns the progress of an export submitted by the given owner.
+   *
+   * @param exportId export id
+   * @param owner    principal asking for the progress
+   * @return progress, empty when unknown, expired or owned by someone else
+   */
+  public Optional<FederationQueryModels.SqlExportProgress> find(final String exportId, final String owner) {
+    Tracker tracker = exportId == null ? null : trackers.get(exportId);
+    if (tracker == null || !tracker.owner.equals(owner)) {
+      return Optional.empty();
+    }
+    return Optional.of(tracker.snapshot());
+  }
+
+  private void purgeExpired() {
+    Instant threshold = Instant.now().minus(Duration.ofSeconds(Math.max(0L, retentionSeconds)));
+    trackers.values().removeIf(tracker -> !tracker.running() && tracker.updatedAt.isBefore(threshold));
+  }
+
+  /**
+   * Mutable progress of one export, updated by the exporting thread and read by pollers.
+   */
+  public static final class Tracker {
+
+    private final String exportId;
+
+    private final String owner;
+
+    private final String format;
+
+    private final long startRow;
+
+    private final Instant startedAt = Instant.now();
+
+    private final AtomicLong rowsWritten = new AtomicLong();
+
+    private final AtomicLong bytesWritten = new AtomicLong();
+
+    private final List<String> objectIds = new CopyOnWriteArrayList<>();
+
+    private volatile int partsCompleted;
+
+    private volatile String status = "RUNNING";
+
+    private volatile boolean truncated;
+
+    private volatile String errorMessage;
+
+    private volatile Instant updatedAt = startedAt;
+
+    private Tracker(
+        final String exportId,
+        final String owner,
+        final String format,
+        final long startRow,
+        final int startPart
+    ) {
+      this.exportId = exportId;
+      this.owner = owner;
+      this.format = format;
+      this.startRow = startRow;
+      this.partsCompleted = startPart;
+    }
+
+    /**
+     * Records written rows.
+     *
+     * @param rows rows written since the last call
+     */
+    public void rowsWritten(final long rows) {
+      rowsWritten.addAndGet(rows);
+      updatedAt = Instant.now();
+    }
+
+    /**
+     * Records written bytes.
+     *
+     * @param bytes bytes written since the last call
+     */
+    public void bytesWritten(final long bytes) {
+      bytesWritten.addAndGet(bytes);
+    }
+
+    /**
+     * Records an uploaded part.
+     *
+     * @param objectId object-storage id of the part, may be null
+     */
+    public void partUploaded(final String objectId) {
+      if (objectId != null) {
+        objectIds.add(objectId);
+      }
+      partsCompleted++;
+      updatedAt = Instant.now();
+    }
+
+    /**
+     * Marks the export as completed.
+     *
+     * @param truncatedByPolicy whether the row limit cut the export short
+     * @return final progress
+     */
+    public FederationQueryModels.SqlExportProgress complete(final boolean truncatedByPolicy) {
+      truncated = truncatedByPolicy;
+      status = "COMPLETED";
+      updatedAt = Instant.now();
+      return snapshot();
+    }
+
+    /**
+     * Marks the export as failed.
+     *
+     * @param message failure reason
+     */
+    public void fail(final String message) {
+      errorMessage = message;
+      status = "FAILED";
+      updatedAt = Instant.now();
+    }
+
+    /**
+     * Returns whether the export is still running.
+     *
+     * @return true until the export completes or fails
+     */
+    public boolean running() {
+      return "RUNNING".equals(status);
+    }
+
+    /**
+     * Returns an immutable view of the current progress.
+     *
+     * @return progress
+     */
+    public FederationQueryModels.SqlExportProgress snapshot() {
+      return new FederationQueryModels.SqlExportProgress(
+          exportId,
+          format,
+          status,
+          startRow,
+          rowsWritten.get(),
+          bytesWritten.get(),
+          partsCompleted,
+          List.copyOf(objectIds),
+          truncated,
+          errorMessage,
+          startedAt,
+          updatedAt
+      );
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package org.simplepoint.plugin.dna.federation.service.support;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.simplepoint.plugin.dna.federation.api.vo.FederationQueryModels;
+
+/**
+ * Incremental writer of exported query rows. Implementations hold at most one batch (or one
+ * Parquet row group) in memory and never close the underlying stream.
+ */
+public interface FederationExportWriter {
+
+  /**
+   * Writes a batch of rows.
+   *
+   * @param rows rows in column order
+   * @throws IOException when writing fails
+   */
+  void writeRows(List<List<Object>> rows) throws IOException;
+
+  /**
+   * Writes any buffered rows and the format trailer, then flushes the underlying stream.
+   *
+   * @throws IOException when writing fails
+   */
+  void finish() throws IOException;
+
+  /**
+   * Returns unique, non-blank output names for the result columns.
+   *
+   * @param columns result columns
+   * @return one name per column
+   */
+  static List<String> columnNames(final List<FederationQueryModels.SqlColumn> columns) {
+    List<String> names = new ArrayList<>(columns.size());
+    Set<String> used = new HashSet<>();
+    for (int index = 0; index < columns.size(); index++) {
+      String name = FederationServiceSupport.trimToNull(columns.get(index).name());
+      String base = name == null ? "column_" + (index + 1) : name;
+      String unique = base;
+      for (int suffix = 2; !used.add(unique); suffix++) {
+        unique = base + "_" + suffix;
+      }
+      names.add(unique);
+    }
+    return names;
+  }
+
+  /**
+   * Renders a value as text for text-based formats.
+   *
+   * @param value cell value
+   * @return text, empty for null and Base64 for binary values
+   */
+  static String text(final Object value) {
+    if (value == null) {
+      return "";
+    }
+    if (value instanceof byte[] bytes) {
+      return Base64.getEncoder().encodeToString(bytes);
+    }
+    return String.valueOf(value);
+  }
+}
@@ -0,0 +1,418 @@
+package org.simplepoint.plugin.dna.federation.service.support;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission control for work executed by the DNA JDBC socket server.
+ *
+ * <p>Work is split into lanes so that cheap metadata calls issued by database tools never wait
+ * behind heavy federated queries. Each lane has its own concurrency limit and a bounded wait
+ * queue: a request that cannot start immediately waits up to the lane's queue timeout instead of
+ * being rejected, and is only rejected outright when the queue is full.
+ *
+ * <p>Freed slots go to the waiting tenant/catalog pair with the fewest running requests relative
+ * to its tenant weight, oldest waiter first on ties, so one tenant refreshing a large dashboard
+ * cannot starve the others. An optional per-tenant limit caps how many slots a single tenant may
+ * hold. Concurrency limits of {@code 0} or below disable the corresponding check.
+ */
+public final class FederationJdbcAdmissionController implements MeterBinder {
+
+  private static final String DEFAULT_TENANT = "default";
+
+  private static final String DEFAULT_CATALOG = "default";
+
+  private static final String METRIC_PREFIX = "simplepoint.dna.jdbc.admission";
+
+  private final Map<Lane, LaneState> lanes;
+
+  private final Map<String, Integer> tenantWeights;
+
+  /**
+   * Creates an admission controller.
+   *
+   * @param query         settings of the query lane
+   * @param metadata      settings of the metadata lane
+   * @param tenantWeights relative share of each tenant, unlisted tenants weigh {@code 1}
+   */
+  public FederationJdbcAdmissionController(
+      final LaneSettings query,
+      final LaneSettings metadata,
+      final Map<String, Integer> tenantWeights
+  ) {
+    this.lanes = new EnumMap<>(Lane.class);
+    this.lanes.put(Lane.QUERY, new LaneState(query));
+    this.lanes.put(Lane.METADATA, new LaneState(metadata));
+    Map<String, Integer> weights = new HashMap<>();
+    if (tenantWeights != null) {
+      tenantWeights.forEach((tenantId, weight) -> {
+        if (weight != null && weight > 0) {
+          weights.put(normalize(tenantId, DEFAULT_TENANT), weight);
+        }
+      });
+    }
+    this.tenantWeights = Collections.unmodifiableMap(weights);
+  }
+
+  /**
+   * Parses tenant weights written as {@code tenant-a=3,tenant-b=1}. Malformed entries are skipped.
+   *
+   * @param value configured weights, may be blank
+   * @return tenant id to weight
+   */
+  public static Map<String, Integer> parseTenantWeights(final String value) {
+    if (value == null || value.isBlank()) {
+      return Map.of();
+    }
+    Map<String, Integer> weights = new LinkedHashMap<>();
+    for (String entry : value.split(",")) {
+      int separator = entry.indexOf('=');
+      if (separator <= 0) {
+        continue;
+      }
+      try {
+        weights.put(entry.substring(0, separator).trim(), Integer.parseInt(entry.substring(separator + 1).trim()));
+      } catch (NumberFormatException ignored) {
+        // skip malformed weight
+      }
+    }
+    return weights;
+  }
+
+  /**
+   * Waits for a slot in the given lane.
+   *
+   * @param lane        lane to enter
+   * @param tenantId    tenant id, blank values share the default bucket
+   * @param catalogCode catalog code, blank values share the default bucket
+   * @return permit that must be closed once the work has finished
+   * @throws IllegalStateException when the queue is full, the wait times out or the thread is interrupted
+   */
+  public Permit acquire(final Lane lane, final String tenantId, final String catalogCode) {
+    return lanes.get(lane).acquire(normalize(tenantId, DEFAULT_TENANT), normalize(catalogCode, DEFAULT_CATALOG));
+  }
+
+  /**
+   * Returns a snapshot of a lane's counters.
+   *
+   * @param lane lane
+   * @return lane statistics
+   */
+  public LaneStats stats(final Lane lane) {
+    return lanes.get(lane).stats();
+  }
+
+  /**
+   * Registers queue depth, running requests, outcome counters and queue wait time for every lane.
+   *
+   * @param registry meter registry
+   */
+  @Override
+  public void bindTo(final MeterRegistry registry) {
+    lanes.forEach((lane, state) -> state.bindTo(registry, lane.name().toLowerCase(Locale.ROOT)));
+  }
+
+  private int weightOf(final String tenantId) {
+    return tenantWeights.getOrDefault(tenantId, 1);
+  }
+
+  private static String normalize(final String value, final String defaultValue) {
+    return value == null || value.isBlank() ? defaultValue : value.trim();
+  }
+
+  /**
+   * Admission lanes.
+   */
+  public enum Lane {
+    /**
+     * QUERY and EXECUTE_* requests. FETCH runs under the permit kept by its open cursor.
+     */
+    QUERY,
+    /**
+     * DatabaseMetaData requests.
+     */
+    METADATA
+  }
+
+  /**
+   * Limits of one lane.
+   *
+   * @param maxConcurrent  requests running at the same time, {@code 0} or below for unlimited
+   * @param maxQueued      requests waiting for a slot, {@code 0} to reject when saturated and
+   *                       below {@code 0} for an unbounded queue
+   * @param queueTimeoutMs longest time a request waits for a slot
+   * @param maxPerTenant   requests one tenant may run at the same time, {@code 0} or below for
+   *                       unlimited
+   */
+  public record LaneSettings(int maxConcurrent, int maxQueued, long queueTimeoutMs, int maxPerTenant) {
+  }
+
+  /**
+   * Lane counters.
+   *
+   * @param active        running requests
+   * @param queued        waiting requests
+   * @param admitted      requests admitted so far
+   * @param rejected      requests rejected because the queue was full
+   * @param timedOut      requests that gave up waiting
+   * @param totalWaitMs   total time admitted requests spent waiting
+   * @param maxWaitMs     longest time an admitted request spent waiting
+   */
+  public record LaneStats(
+      int active,
+      int queued,
+      long admitted,
+      long rejected,
+      long timedOut,
+      long totalWaitMs,
+      long maxWaitMs
+  ) {
+  }
+
+  /**
+   * Slot held by one request. Closing it more than once has no effect, so the slot can be handed
+   * back early, e.g. on cancellation, and again when the request unwinds.
+   */
+  public static final class Permit implements AutoCloseable {
+
+    private final AtomicBoolean released;
+
+    private final Runnable release;
+
+    private Permit(final Runnable release) {
+      this.released = new AtomicBoolean();
+      this.release = release;
+    }
+
+    /**
+     * Returns the slot to the lane.
+     */
+    @Override
+    public void close() {
+      if (released.compareAndSet(false, true)) {
+        release.run();
+      }
+    }
+  }
+
+  private final class LaneState {
+
+    private final LaneSettings settings;
+
+    private final ReentrantLock lock;
+
+    private final Map<String, ArrayDeque<Waiter>> waiting;
+
+    private final Map<String, Integer> activeByKey;
+
+    private final Map<String, Integer> activeByTenant;
+
+    private final AtomicLong admitted;
+
+    private final AtomicLong rejected;
+
+    private final AtomicLong timedOut;
+
+    private final AtomicLong totalWaitNanos;
+
+    private final AtomicLong maxWaitNanos;
+
+    private volatile Timer waitTimer;
+
+    private int active;
+
+    private int queued;
+
+    private LaneState(final LaneSettings settings) {
+      this.settings = settings;
+      this.lock = new ReentrantLock();
+      this.waiting = new LinkedHashMap<>();
+      this.activeByKey = new HashMap<>();
+      this.activeByTenant = new HashMap<>();
+      this.admitted = new AtomicLong();
+      this.rejected = new AtomicLong();
+      this.timedOut = new AtomicLong();
+      this.totalWaitNanos = new AtomicLong();
+      this.maxWaitNanos = new AtomicLong();
+    }
+
+    private Permit acquire(final String tenantId, final String catalogCode) {
+      Waiter waiter = new Waiter(tenantId, tenantId + '/' + catalogCode, lock.newCondition(), System.nanoTime());
+      lock.lock();
+      try {
+        waiting.computeIfAbsent(waiter.key, ignored -> new ArrayDeque<>()).addLast(waiter);
+        queued++;
+        dispatch();
+        if (!waiter.granted && settings.maxQueued() >= 0 && queued > settings.maxQueued()) {
+          dequeue(waiter);
+          rejected.incrementAndGet();
+          throw new IllegalStateException("服务器查询排队已满，请稍后重试");
+        }
+        long remainingNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, settings.queueTimeoutMs()));
+        while (!waiter.granted && remainingNanos > 0L) {
+          remainingNanos = waiter.condition.awaitNanos(remainingNanos);
+        }
+        if (!waiter.granted) {
+          dequeue(waiter);
+          timedOut.incrementAndGet();
+          throw new IllegalStateException("服务器查询排队超时 (" + settings.queueTimeoutMs() + "ms)，请稍后重试");
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        if (waiter.granted) {
+          release(waiter);
+        } else {
+          dequeue(waiter);
+        }
+        throw new IllegalStateException("等待查询执行槽位时被中断", ex);
+      } finally {
+        lock.unlock();
+      }
+      recordWait(System.nanoTime() - waiter.enqueuedNanos);
+      return new Permit(() -> {
+        lock.lock();
+        try {
+          release(waiter);
+        } finally {
+          lock.unlock();
+        }
+      });
+    }
+
+    /**
+     * Hands free slots to waiters while capacity remains. Must be called with the lock held.
+     */
+    private void dispatch() {
+      while (queued > 0 && (settings.maxConcurrent() <= 0 || active < settings.maxConcurrent())) {
+        Waiter next = null;
+        double nextShare = Double.MAX_VALUE;
+        for (ArrayDeque<Waiter> queue : waiting.values()) {
+          Waiter head = queue.peekFirst();
+          if (head == null || !tenantHasCapacity(head.tenantId)) {
+            continue;
+          }
+          double share = activeByKey.getOrDefault(head.key, 0) / (double) weightOf(head.tenantId);
+          if (next == null || share < nextShare
+              || share == nextShare && head.enqueuedNanos - next.enqueuedNanos < 0L) {
+            next = head;
+            nextShare = share;
+          }
+        }
+        if (next == null) {
+          return;
+        }
+        dequeue(next);
+        active++;
+        activeByKey.merge(next.key, 1, Integer::sum);
+        activeByTenant.merge(next.tenantId, 1, Integer::sum);
+        next.granted = true;
+        next.condition.signal();
+      }
+    }
+
+    private boolean tenantHasCapacity(final String tenantId) {
+      return settings.maxPerTenant() <= 0 || activeByTenant.getOrDefault(tenantId, 0) < settings.maxPerTenant();
+    }
+
+    private void dequeue(final Waiter waiter) {
+      ArrayDeque<Waiter> queue = waiting.get(waiter.key);
+      if (queue != null && queue.remove(waiter)) {
+        queued--;
+        if (queue.isEmpty()) {
+          waiting.remove(waiter.key);
+        }
+      }
+    }
+
+    private void release(final Waiter waiter) {
+      active--;
+      activeByKey.computeIfPresent(waiter.key, (ignored, count) -> count <= 1 ? null : count - 1);
+      activeByTenant.computeIfPresent(waiter.tenantId, (ignored, count) -> count <= 1 ? null : count - 1);
+      dispatch();
+    }
+
+    private void recordWait(final long waitNanos) {
+      admitted.incrementAndGet();
+      totalWaitNanos.addAndGet(waitNanos);
+      maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+      Timer timer = waitTimer;
+      if (timer != null) {
+        timer.record(waitNanos, TimeUnit.NANOSECONDS);
+      }
+    }
+
+    private LaneStats stats() {
+      lock.lock();
+      try {
+        return new LaneStats(
+            active,
+            queued,
+            admitted.get(),
+            rejected.get(),
+            timedOut.get(),
+            TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get()),
+            TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get())
+        );
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    private void bindTo(final MeterRegistry registry, final String laneTag) {
+      Gauge.builder(METRIC_PREFIX + ".queue.depth", this, state -> state.stats().queued())
+          .tag("lane", laneTag)
+          .description("DNA JDBC 请求排队数")
+          .register(registry);
+      Gauge.builder(METRIC_PREFIX + ".active", this, state -> state.stats().active())
+          .tag("lane", laneTag)
+          .description("DNA JDBC 正在执行的请求数")
+          .register(registry);
+      Map<String, AtomicLong> outcomes = Map.of("admitted", admitted, "rejected", rejected, "timeout", timedOut);
+      for (Map.Entry<String, AtomicLong> outcome : outcomes.entrySet()) {
+        FunctionCounter.builder(METRIC_PREFIX + ".requests", outcome.getValue(), AtomicLong::doubleValue)
+            .tag("lane", laneTag)
+            .tag("outcome", outcome.getKey())
+            .register(registry);
+      }
+      this.waitTimer = Timer.builder(METRIC_PREFIX + ".wait")
+          .tag("lane", laneTag)
+          .description("DNA JDBC 请求排队等待时间")
+          .register(registry);
+    }
+  }
+
+  private static final class Waiter {
+
+    private final String tenantId;
+
+    private final String key;
+
+    private final Condition condition;
+
+    private final long enqueuedNanos;
+
+    private boolean granted;
+
+    private Waiter(final String tenantId, final String key, final Condition condition, final long enqueuedNanos) {
+      this.tenantId = tenantId;
+      this.key = key;
+      this.condition = condition;
+      this.enqueuedNanos = enqueuedNanos;
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package org.simplepoint.plugin.dna.federation.service.support;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.simplepoint.data.calcite.core.query.CalciteQueryCancellation;
+
+/**
+ * Requests currently executing on the DNA JDBC socket server, indexed by the query id the driver
+ * attached to them.
+ *
+ * <p>The registry is shared by every connection so that a CANCEL sent on a separate side-channel
+ * connection reaches the request running on the original one. Cancelling a query cancels its
+ * {@link CalciteQueryCancellation} handle and runs the release callback registered with it, which
+ * the server uses to hand the query permit back without waiting for the worker thread to unwind.
+ */
+public final class FederationJdbcCancellationRegistry {
+
+  private final ConcurrentMap<String, RunningQuery> runningQueries;
+
+  /**
+   * Creates an empty registry.
+   */
+  public FederationJdbcCancellationRegistry() {
+    this.runningQueries = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Registers a running request. Requests without a query id cannot be cancelled and are ignored.
+   *
+   * @param queryId      query id chosen by the driver, may be null
+   * @param cancellation cancellation handle bound to the executing thread
+   * @param onCancel     callback run once when the request is cancelled
+   */
+  public void register(
+      final String queryId,
+      final CalciteQueryCancellation cancellation,
+      final Runnable onCancel
+  ) {
+    if (queryId == null || queryId.isBlank()) {
+      return;
+    }
+    if (runningQueries.putIfAbsent(queryId, new RunningQuery(cancellation, onCancel)) != null) {
+      throw new IllegalArgumentException("DNA JDBC 查询ID重复: " + queryId);
+    }
+  }
+
+  /**
+   * Forgets a request once it has finished. Entries registered by another request are kept.
+   *
+   * @param queryId      query id, may be null
+   * @param cancellation cancellation handle passed to {@link #register}
+   */
+  public void unregister(final String queryId, final CalciteQueryCancellation cancellation) {
+    if (queryId == null) {
+      return;
+    }
+    RunningQuery runningQuery = runningQueries.get(queryId);
+    if (runningQuery != null && runningQuery.cancellation() == cancellation) {
+      runningQueries.remove(queryId, runningQuery);
+    }
+  }
+
+  /**
+   * Cancels a running request.
+   *
+   * @param queryId query id
+   * @return true when a running request was found and cancelled
+   */
+  public boolean cancel(final String queryId) {
+    RunningQuery runningQuery = queryId == null ? null : runningQueries.remove(queryId);
+    if (runningQuery == null) {
+      return false;
+    }
+    runningQuery.cancellation().cancel();
+    if (runningQuery.onCancel() != null) {
+      runningQuery.onCancel().run();
+    }
+    return true;
+  }
+
+  /**
+   * Returns the number of cancellable requests currently running.
+   *
+   * @return running request count
+   */
+  public int size() {
+    return runningQueries.size();
+  }
+
+  private record RunningQuery(CalciteQueryCancellation cancellation, Runnable onCancel) {
+  }
+}
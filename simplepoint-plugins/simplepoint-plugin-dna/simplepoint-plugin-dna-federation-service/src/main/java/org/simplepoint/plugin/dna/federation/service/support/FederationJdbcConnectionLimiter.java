@@ -0,0 +1,120 @@
+package org.simplepoint.plugin.dna.federation.service.support;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks open DNA JDBC socket connections globally and per tenant.
+ *
+ * <p>The global slot is taken when a socket is accepted; the tenant slot is taken once the
+ * CONNECT handshake has resolved the tenant. Limits of {@code 0} or below disable the check.
+ */
+public final class FederationJdbcConnectionLimiter {
+
+  private static final String DEFAULT_TENANT = "default";
+
+  private final int maxConnections;
+
+  private final int maxConnectionsPerTenant;
+
+  private final AtomicInteger activeConnections;
+
+  private final ConcurrentMap<String, AtomicInteger> tenantConnections;
+
+  /**
+   * Creates a connection limiter.
+   *
+   * @param maxConnections maximum open connections across all tenants
+   * @param maxConnectionsPerTenant maximum authenticated connections per tenant
+   */
+  public FederationJdbcConnectionLimiter(final int maxConnections, final int maxConnectionsPerTenant) {
+    this.maxConnections = maxConnections;
+    this.maxConnectionsPerTenant = maxConnectionsPerTenant;
+    this.activeConnections = new AtomicInteger();
+    this.tenantConnections = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Reserves a global connection slot.
+   *
+   * @return true when the connection may be served
+   */
+  public boolean tryAcquireConnection() {
+    while (true) {
+      int current = activeConnections.get();
+      if (maxConnections > 0 && current >= maxConnections) {
+        return false;
+      }
+      if (activeConnections.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Releases a global connection slot.
+   */
+  public void releaseConnection() {
+    activeConnections.updateAndGet(current -> Math.max(0, current - 1));
+  }
+
+  /**
+   * Reserves a connection slot for the supplied tenant.
+   *
+   * @param tenantId tenant id, blank values share the default bucket
+   * @return true when the tenant still has capacity
+   */
+  public boolean tryAcquireTenant(final String tenantId) {
+    String key = normalizeTenant(tenantId);
+    boolean[] acquired = new boolean[1];
+    tenantConnections.compute(key, (ignored, counter) -> {
+      AtomicInteger resolved = counter == null ? new AtomicInteger() : counter;
+      if (maxConnectionsPerTenant > 0 && resolved.get() >= maxConnectionsPerTenant) {
+        return resolved.get() == 0 ? null : resolved;
+      }
+      resolved.incrementAndGet();
+      acquired[0] = true;
+      return resolved;
+    });
+    return acquired[0];
+  }
+
+  /**
+   * Releases a tenant connection slot, dropping the bucket once it is empty.
+   *
+   * @param tenantId tenant id
+   */
+  public void releaseTenant(final String tenantId) {
+    tenantConnections.computeIfPresent(normalizeTenant(tenantId), (ignored, counter) ->
+        counter.decrementAndGet() <= 0 ? null : counter
+    );
+  }
+
+  /**
+   * Returns the number of open connections.
+   *
+   * @return open connection count
+   */
+  public int activeConnections() {
+    return activeConnections.get();
+  }
+
+  /**
+   * Returns a snapshot of authenticated connections grouped by tenant.
+   *
+   * @return tenant id to connection count
+   */
+  public Map<String, Integer> tenantConnections() {
+    Map<String, Integer> snapshot = new TreeMap<>();
+    tenantConnections.forEach((tenantId, counter) -> snapshot.put(tenantId, counter.get()));
+    return Collections.unmodifiableMap(snapshot);
+  }
+
+  private static String normalizeTenant(final String tenantId) {
+    return tenantId == null || tenantId.isBlank() ? DEFAULT_TENANT : tenantId.trim();
+  }
+}
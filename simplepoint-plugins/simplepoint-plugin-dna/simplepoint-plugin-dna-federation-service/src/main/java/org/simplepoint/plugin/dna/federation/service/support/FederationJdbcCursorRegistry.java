@@ -0,0 +1,266 @@
+package org.simplepoint.plugin.dna.federation.service.support;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import org.simplepoint.data.calcite.core.query.CalciteQueryCancellation;
+import org.simplepoint.plugin.dna.federation.api.service.FederationSqlConsoleService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Server-side query cursors opened by one DNA JDBC socket connection.
+ *
+ * <p>A registry belongs to the thread serving a single connection, but {@link #expireIdle()} is
+ * also called by the server's cursor reaper, so a client that goes quiet cannot keep cursors open
+ * until its socket times out. A cursor handed out by {@link #require(String)} is in use until
+ * {@link #markIdle(String)} or {@link #release(String)} and is never expired meanwhile. Every
+ * remaining cursor is closed together with the connection.
+ *
+ * <p>A cursor may hold the admission permit of the QUERY that opened it; the permit is returned
+ * when the cursor is released, expires or is closed with the connection.
+ */
+public final class FederationJdbcCursorRegistry implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FederationJdbcCursorRegistry.class);
+
+  private final int maxOpenCursors;
+
+  private final long idleTimeoutMs;
+
+  private final LongSupplier clock;
+
+  private final Map<String, OpenCursor> cursors;
+
+  private final Object lock;
+
+  private long sequence;
+
+  /**
+   * Creates a cursor registry.
+   *
+   * @param maxOpenCursors maximum cursors open at the same time, {@code 0} or below for unlimited
+   * @param idleTimeoutMs idle time after which a cursor is closed, {@code 0} or below to disable
+   */
+  public FederationJdbcCursorRegistry(final int maxOpenCursors, final long idleTimeoutMs) {
+    this(maxOpenCursors, idleTimeoutMs, System::currentTimeMillis);
+  }
+
+  FederationJdbcCursorRegistry(final int maxOpenCursors, final long idleTimeoutMs, final LongSupplier clock) {
+    this.maxOpenCursors = maxOpenCursors;
+    this.idleTimeoutMs = idleTimeoutMs;
+    this.clock = clock;
+    this.cursors = new LinkedHashMap<>();
+    this.lock = new Object();
+  }
+
+  /**
+   * Registers an open cursor. The cursor is closed when the registry is full.
+   *
+   * @param cursor open query cursor
+   * @return cursor id to be used by FETCH and CLOSE_CURSOR
+   */
+  public String register(final FederationSqlConsoleService.QueryCursor cursor) {
+    return register(cursor, null);
+  }
+
+  /**
+   * Registers an open cursor together with the cancellation handle of the query that opened it,
+   * so that a FETCH can be cancelled the same way as the original QUERY.
+   *
+   * @param cursor       open query cursor
+   * @param cancellation cancellation handle holding the cursor statements, may be null
+   * @return cursor id to be used by FETCH and CLOSE_CURSOR
+   */
+  public String register(
+      final FederationSqlConsoleService.QueryCursor cursor,
+      final CalciteQueryCancellation cancellation
+  ) {
+    return register(cursor, cancellation, null);
+  }
+
+  /**
+   * Registers an open cursor that keeps the admission permit of the query that opened it. The
+   * cursor and the permit are closed when the registry is full.
+   *
+   * @param cursor       open query cursor
+   * @param cancellation cancellation handle holding the cursor statements, may be null
+   * @param permit       admission permit returned when the cursor is closed, may be null
+   * @return cursor id to be used by FETCH and CLOSE_CURSOR
+   */
+  public String register(
+      final FederationSqlConsoleService.QueryCursor cursor,
+      final CalciteQueryCancellation cancellation,
+      final FederationJdbcAdmissionController.Permit permit
+  ) {
+    expireIdle();
+    OpenCursor openCursor = new OpenCursor(cursor, cancellation, permit, clock.getAsLong());
+    synchronized (lock) {
+      if (maxOpenCursors <= 0 || cursors.size() < maxOpenCursors) {
+        String cursorId = "c" + (++sequence);
+        cursors.put(cursorId, openCursor);
+        return cursorId;
+      }
+    }
+    closeQuietly(openCursor);
+    throw new IllegalStateException("当前连接打开的查询游标数已达上限: " + maxOpenCursors);
+  }
+
+  /**
+   * Returns an open cursor and marks it as in use until {@link #markIdle(String)} or
+   * {@link #release(String)}.
+   *
+   * @param cursorId cursor id
+   * @return open query cursor
+   */
+  public FederationSqlConsoleService.QueryCursor require(final String cursorId) {
+    expireIdle();
+    synchronized (lock) {
+      OpenCursor openCursor = cursorId == null ? null : cursors.get(cursorId);
+      if (openCursor == null) {
+        throw new IllegalArgumentException("查询游标不存在或已过期: " + cursorId);
+      }
+      openCursor.inUse = true;
+      openCursor.lastAccessMs = clock.getAsLong();
+      return openCursor.cursor;
+    }
+  }
+
+  /**
+   * Marks a cursor returned by {@link #require(String)} as idle again, starting its idle timeout.
+   * Unknown ids are ignored.
+   *
+   * @param cursorId cursor id
+   */
+  public void markIdle(final String cursorId) {
+    synchronized (lock) {
+      OpenCursor openCursor = cursorId == null ? null : cursors.get(cursorId);
+      if (openCursor != null) {
+        openCursor.inUse = false;
+        openCursor.lastAccessMs = clock.getAsLong();
+      }
+    }
+  }
+
+  /**
+   * Returns the cancellation handle registered with a cursor.
+   *
+   * @param cursorId cursor id
+   * @return cancellation handle, or null when the cursor is unknown or has none
+   */
+  public CalciteQueryCancellation cancellation(final String cursorId) {
+    synchronized (lock) {
+      OpenCursor openCursor = cursorId == null ? null : cursors.get(cursorId);
+      return openCursor == null ? null : openCursor.cancellation;
+    }
+  }
+
+  /**
+   * Closes and forgets a cursor. Unknown ids are ignored.
+   *
+   * @param cursorId cursor id
+   */
+  public void release(final String cursorId) {
+    OpenCursor openCursor;
+    synchronized (lock) {
+      openCursor = cursorId == null ? null : cursors.remove(cursorId);
+    }
+    if (openCursor != null) {
+      closeQuietly(openCursor);
+    }
+  }
+
+  /**
+   * Closes cursors that are not in use and have been idle for longer than the configured timeout.
+   *
+   * @return number of cursors closed
+   */
+  public int expireIdle() {
+    if (idleTimeoutMs <= 0) {
+      return 0;
+    }
+    List<OpenCursor> expired = new ArrayList<>();
+    synchronized (lock) {
+      if (cursors.isEmpty()) {
+        return 0;
+      }
+      long now = clock.getAsLong();
+      Iterator<Map.Entry<String, OpenCursor>> iterator = cursors.entrySet().iterator();
+      while (iterator.hasNext()) {
+        Map.Entry<String, OpenCursor> entry = iterator.next();
+        OpenCursor openCursor = entry.getValue();
+        if (!openCursor.inUse && now - openCursor.lastAccessMs >= idleTimeoutMs) {
+          iterator.remove();
+          expired.add(openCursor);
+          LOGGER.debug("DNA JDBC 查询游标 {} 空闲超过 {}ms，已关闭", entry.getKey(), idleTimeoutMs);
+        }
+      }
+    }
+    expired.forEach(FederationJdbcCursorRegistry::closeQuietly);
+    return expired.size();
+  }
+
+  /**
+   * Returns the number of open cursors.
+   *
+   * @return open cursor count
+   */
+  public int size() {
+    synchronized (lock) {
+      return cursors.size();
+    }
+  }
+
+  /**
+   * Closes every open cursor.
+   */
+  @Override
+  public void close() {
+    List<OpenCursor> remaining;
+    synchronized (lock) {
+      remaining = new ArrayList<>(cursors.values());
+      cursors.clear();
+    }
+    remaining.forEach(FederationJdbcCursorRegistry::closeQuietly);
+  }
+
+  private static void closeQuietly(final OpenCursor openCursor) {
+    try {
+      openCursor.cursor.close();
+    } catch (RuntimeException ex) {
+      LOGGER.debug("DNA JDBC 查询游标关闭失败: {}", ex.getMessage());
+    } finally {
+      if (openCursor.permit != null) {
+        openCursor.permit.close();
+      }
+    }
+  }
+
+  private static final class OpenCursor {
+
+    private final FederationSqlConsoleService.QueryCursor cursor;
+
+    private final CalciteQueryCancellation cancellation;
+
+    private final FederationJdbcAdmissionController.Permit permit;
+
+    private long lastAccessMs;
+
+    private boolean inUse;
+
+    private OpenCursor(
+        final FederationSqlConsoleService.QueryCursor cursor,
+        final CalciteQueryCancellation cancellation,
+        final FederationJdbcAdmissionController.Permit permit,
+        final long lastAccessMs
+    ) {
+      this.cursor = cursor;
+      this.cancellation = cancellation;
+      this.permit = permit;
+      this.lastAccessMs = lastAccessMs;
+    }
+  }
+}
@@ -10,6 +10,7 @@ import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
@@ -17,6 +18,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Properties;
 import org.simplepoint.data.datasource.jdbc.SimpleDataSource;
 import org.simplepoint.plugin.dna.core.api.entity.JdbcDataSourceDefinition;
@@ -338,6 +340,34 @@ public class FederationJdbcMetadataSupport {
     });
   }
 
+  /**
+   * Returns the dialect's per-schema DDL fingerprints of the datasource. The query runs on a
+   * background connection, so polling does not keep an unused pool from being evicted.
+   *
+   * @param dataSource datasource definition
+   * @return fingerprint by schema label (an empty map for a database without schemas yet), or
+   *     empty when the dialect cannot detect schema changes
+   */
+  public Optional<Map<String, String>> schemaFingerprints(final JdbcDataSourceDefinition dataSource) {
+    return withContext(dataSource, null, true, context -> {
+      String sql = context.dialect().buildMetadataFingerprintSql(context.supportContext());
+      if (sql == null || sql.isBlank()) {
+        return Optional.empty();
+      }
+      Map<String, String> fingerprints = new LinkedHashMap<>();
+      try (Statement statement = context.connection().createStatement();
+           ResultSet rs = statement.executeQuery(sql)) {
+        while (rs.next()) {
+          String schema = trimToNull(rs.getString(1));
+          if (schema != null) {
+            fingerprints.put(schema, Objects.toString(rs.getString(2), ""));
+          }
+        }
+      }
+      return Optional.of(fingerprints);
+    });
+  }
+
   /**
    * Generic helper for table-scoped metadata that resolves the catalog/schema target and converts
    * the raw JDBC ResultSet into a TabularResult with overridden TABLE_CAT/TABLE_SCHEM.
@@ -559,6 +589,15 @@ public class FederationJdbcMetadataSupport {
       final JdbcDataSourceDefinition dataSource,
       final String targetCatalog,
       final SqlCallback<T> callback
+  ) {
+    return withContext(dataSource, targetCatalog, false, callback);
+  }
+
+  private <T> T withContext(
+      final JdbcDataSourceDefinition dataSource,
+      final String targetCatalog,
+      final boolean background,
+      final SqlCallback<T> callback
   ) {
     if (dataSource == null) {
       throw new IllegalArgumentException("数据源不能为空");
@@ -568,7 +607,9 @@ public class FederationJdbcMetadataSupport {
         "数据源驱动ID不能为空"
     )).orElseThrow(() -> new IllegalArgumentException("驱动不存在: " + dataSource.getDriverId()));
     String dataSourceId = requireValue(dataSource.getId(), "数据源ID不能为空");
-    try (Connection baseConnection = dataSourceService.requireSimpleDataSource(dataSourceId).getConnection()) {
+    try (Connection baseConnection = background
+        ? dataSourceService.openBackgroundConnection(dataSourceId)
+        : dataSourceService.requireSimpleDataSource(dataSourceId).getConnection()) {
       RuntimeContext runtimeContext = createRuntimeContext(baseConnection, driver, dataSource);
       String normalizedTargetCatalog = trimToNull(targetCatalog);
       if (normalizedTargetCatalog != null
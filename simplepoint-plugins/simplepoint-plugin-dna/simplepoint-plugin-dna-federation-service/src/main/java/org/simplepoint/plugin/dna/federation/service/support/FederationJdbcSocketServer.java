@@ -2,6 +2,7 @@ package org.simplepoint.plugin.dna.federation.service.support;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
@@ -9,18 +10,23 @@ import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Serial;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
+import java.net.SocketTimeoutException;
 import java.nio.charset.StandardCharsets;
 import java.security.KeyStore;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -28,12 +34,19 @@ import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLServerSocket;
 import javax.net.ssl.SSLServerSocketFactory;
+import org.simplepoint.data.calcite.core.query.CalciteQueryCancellation;
 import org.simplepoint.plugin.dna.federation.api.service.FederationJdbcDriverService;
+import org.simplepoint.plugin.dna.federation.api.service.FederationSqlConsoleService;
 import org.simplepoint.plugin.dna.federation.api.vo.FederationJdbcDriverModels;
 import org.simplepoint.plugin.dna.federation.api.vo.FederationQueryModels;
+import org.simplepoint.plugin.dna.jdbc.protocol.DnaJdbcErrorCodes;
+import org.simplepoint.plugin.dna.jdbc.protocol.DnaJdbcFrame;
+import org.simplepoint.plugin.dna.jdbc.protocol.DnaJdbcRowBatchCodec;
+import org.simplepoint.plugin.dna.jdbc.protocol.DnaJdbcWireFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
@@ -44,21 +57,60 @@ import org.springframework.stereotype.Component;
 
 /**
  * Dedicated TCP socket server used by the DNA JDBC driver.
+ *
+ * <p>Connections are served either by a bounded platform thread pool ({@code thread-mode=platform})
+ * or by one virtual thread per connection ({@code thread-mode=virtual}). The platform pool hands
+ * every connection straight to a thread and grows up to {@code max-connections} threads; it never
+ * queues a connection behind another long-lived one. In virtual mode an idle
+ * connection blocked in a socket read does not pin a carrier thread, so the number of open
+ * connections is bounded only by {@code max-connections} and the per-tenant limit.
+ *
+ * <p>A QUERY carrying a {@code fetchSize} opens a server-side cursor: the response holds the first
+ * batch, FETCH pulls the next batch and CLOSE_CURSOR releases it early. Cursors are scoped to the
+ * connection and closed once exhausted, when the connection ends, or by a background reaper after
+ * {@code cursor.idle-timeout} without a FETCH, so neither side has to hold the full result in
+ * memory and a quiet client cannot pin source connections. An open cursor keeps the query permit
+ * of the QUERY that opened it until it is closed, so open cursors count against
+ * {@code max-concurrent-queries}; FETCH runs under that permit instead of taking another one.
+ *
+ * <p>A CONNECT carrying {@code encoding=BINARY} switches the connection's later responses to
+ * {@link DnaJdbcFrame} frames: the response header stays JSON while QUERY and FETCH rows travel as
+ * a typed columnar batch, optionally LZ4 compressed when the client also asked for
+ * {@code compression=LZ4}. Clients that do not ask keep receiving plain JSON frames.
+ *
+ * <p>QUERY, FETCH and EXECUTE_* requests may carry a driver-generated {@code queryId}. A CANCEL
+ * with that id, sent as the only request on a fresh connection because the original one is busy
+ * waiting for the answer, cancels the Calcite statement and the source statements it pushed down
+ * and returns the query permit immediately. CANCEL needs no CONNECT: the random query id is the
+ * credential, and unknown ids are acknowledged without effect.
  */
 @Component
 public class FederationJdbcSocketServer implements DisposableBean {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(FederationJdbcSocketServer.class);
 
-  private static final int MAX_FRAME_SIZE = 16 * 1024 * 1024;
+  private static final Set<String> METADATA_ACTIONS = Set.of(
+      "CATALOGS", "SCHEMAS", "TABLE_TYPES", "TABLES", "COLUMNS", "PRIMARY_KEYS",
+      "INDEX_INFO", "IMPORTED_KEYS", "EXPORTED_KEYS", "TYPE_INFO", "SCHEMA_COLUMNS"
+  );
 
   private final FederationJdbcDriverService driverService;
 
   private final ObjectMapper objectMapper;
 
+  private final DnaJdbcRowBatchCodec rowBatchCodec;
+
+  private final FederationJdbcCancellationRegistry cancellations;
+
+  private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
   private final ExecutorService acceptExecutor;
 
-  private final ExecutorService connectionExecutor;
+  private volatile ExecutorService connectionExecutor;
+
+  private volatile ScheduledExecutorService cursorReaper;
+
+  private final Set<FederationJdbcCursorRegistry> cursorRegistries;
 
   private final AtomicBoolean started;
 
@@ -77,6 +129,12 @@ public class FederationJdbcSocketServer implements DisposableBean {
   @Value("${simplepoint.dna.jdbc.socket.max-connections:200}")
   private int maxConnections;
 
+  @Value("${simplepoint.dna.jdbc.socket.max-connections-per-tenant:0}")
+  private int maxConnectionsPerTenant;
+
+  @Value("${simplepoint.dna.jdbc.socket.thread-mode:platform}")
+  private String threadMode;
+
   @Value("${simplepoint.dna.jdbc.socket.idle-timeout:300000}")
   private int idleTimeoutMs;
 
@@ -95,7 +153,42 @@ public class FederationJdbcSocketServer implements DisposableBean {
   @Value("${simplepoint.dna.jdbc.socket.max-concurrent-queries:50}")
   private int maxConcurrentQueries;
 
-  private volatile Semaphore querySemaphore;
+  @Value("${simplepoint.dna.jdbc.socket.admission.max-queued-queries:200}")
+  private int maxQueuedQueries;
+
+  @Value("${simplepoint.dna.jdbc.socket.admission.max-concurrent-queries-per-tenant:0}")
+  private int maxConcurrentQueriesPerTenant;
+
+  @Value("${simplepoint.dna.jdbc.socket.admission.max-concurrent-metadata:20}")
+  private int maxConcurrentMetadata;
+
+  @Value("${simplepoint.dna.jdbc.socket.admission.max-queued-metadata:200}")
+  private int maxQueuedMetadata;
+
+  @Value("${simplepoint.dna.jdbc.socket.admission.queue-timeout:10000}")
+  private long queueTimeoutMs;
+
+  @Value("${simplepoint.dna.jdbc.socket.admission.tenant-weights:}")
+  private String tenantWeights;
+
+  @Value("${simplepoint.dna.jdbc.socket.cursor.max-open:16}")
+  private int maxOpenCursors;
+
+  @Value("${simplepoint.dna.jdbc.socket.cursor.idle-timeout:60000}")
+  private long cursorIdleTimeoutMs;
+
+  @Value("${simplepoint.dna.jdbc.socket.cursor.max-fetch-size:10000}")
+  private int maxFetchSize;
+
+  @Value("${simplepoint.dna.jdbc.socket.binary.enabled:true}")
+  private boolean binaryEnabled;
+
+  @Value("${simplepoint.dna.jdbc.socket.binary.compression-threshold:4096}")
+  private int compressionThreshold;
+
+  private volatile FederationJdbcAdmissionController admissionController;
+
+  private volatile FederationJdbcConnectionLimiter connectionLimiter;
 
   private volatile boolean running;
 
@@ -104,32 +197,27 @@ public class FederationJdbcSocketServer implements DisposableBean {
   /**
    * Creates the JDBC socket server bound to the DNA JDBC driver service facade.
    *
-   * @param driverService JDBC driver service facade
+   * @param driverService         JDBC driver service facade
+   * @param meterRegistryProvider registry receiving the admission metrics, when available
    */
-  public FederationJdbcSocketServer(final FederationJdbcDriverService driverService) {
+  public FederationJdbcSocketServer(
+      final FederationJdbcDriverService driverService,
+      final ObjectProvider<MeterRegistry> meterRegistryProvider
+  ) {
     this.driverService = driverService;
+    this.meterRegistryProvider = meterRegistryProvider;
     this.objectMapper = new ObjectMapper()
         .findAndRegisterModules()
         .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    this.rowBatchCodec = new DnaJdbcRowBatchCodec(objectMapper);
+    this.cancellations = new FederationJdbcCancellationRegistry();
     this.acceptExecutor = Executors.newSingleThreadExecutor(runnable -> {
       Thread thread = new Thread(runnable, "dna-jdbc-socket-accept");
       thread.setDaemon(true);
       return thread;
     });
-    this.connectionExecutor = new ThreadPoolExecutor(
-        4,
-        200,
-        60L,
-        TimeUnit.SECONDS,
-        new LinkedBlockingQueue<>(64),
-        runnable -> {
-          Thread thread = new Thread(runnable, "dna-jdbc-socket-client");
-          thread.setDaemon(true);
-          return thread;
-        },
-        new ThreadPoolExecutor.AbortPolicy()
-    );
     this.started = new AtomicBoolean(false);
+    this.cursorRegistries = ConcurrentHashMap.newKeySet();
   }
 
   /**
@@ -140,23 +228,102 @@ public class FederationJdbcSocketServer implements DisposableBean {
     if (!enabled || !started.compareAndSet(false, true)) {
       return;
     }
-    this.querySemaphore = new Semaphore(maxConcurrentQueries, true);
-    if (connectionExecutor instanceof ThreadPoolExecutor pool) {
-      pool.setMaximumPoolSize(maxConnections);
-    }
+    this.admissionController = createAdmissionController();
+    this.connectionLimiter = new FederationJdbcConnectionLimiter(maxConnections, maxConnectionsPerTenant);
+    this.connectionExecutor = createConnectionExecutor();
+    this.cursorReaper = createCursorReaper();
     try {
       ServerSocket socket = createServerSocket();
       socket.bind(new InetSocketAddress(host, port), backlog);
       this.serverSocket = socket;
       this.running = true;
       this.acceptExecutor.execute(this::acceptLoop);
-      LOGGER.info("DNA JDBC socket server listening on {}:{} (TLS={})", host, port, sslEnabled);
+      LOGGER.info(
+          "DNA JDBC socket server listening on {}:{} (TLS={}, threadMode={}, maxConnections={}, maxConnectionsPerTenant={})",
+          host, port, sslEnabled, resolveThreadMode(), maxConnections, maxConnectionsPerTenant
+      );
     } catch (IOException ex) {
       this.started.set(false);
       throw new IllegalStateException("启动 DNA JDBC Socket 服务失败", ex);
     }
   }
 
+  private FederationJdbcAdmissionController createAdmissionController() {
+    FederationJdbcAdmissionController controller = new FederationJdbcAdmissionController(
+        new FederationJdbcAdmissionController.LaneSettings(
+            maxConcurrentQueries, maxQueuedQueries, queueTimeoutMs, maxConcurrentQueriesPerTenant
+        ),
+        new FederationJdbcAdmissionController.LaneSettings(
+            maxConcurrentMetadata, maxQueuedMetadata, queueTimeoutMs, 0
+        ),
+        FederationJdbcAdmissionController.parseTenantWeights(tenantWeights)
+    );
+    MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+    if (meterRegistry != null) {
+      controller.bindTo(meterRegistry);
+    }
+    return controller;
+  }
+
+  private ExecutorService createConnectionExecutor() {
+    if ("VIRTUAL".equals(resolveThreadMode())) {
+      return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("dna-jdbc-socket-client-", 0).factory());
+    }
+    return platformConnectionExecutor(maxConnections);
+  }
+
+  /**
+   * Creates the platform-mode pool. A connection occupies its thread until it closes, so a queued
+   * connection would wait for another client to disconnect; the synchronous hand-off instead
+   * starts a thread per connection up to the cap and rejects the rest. A non-positive cap means
+   * unbounded, matching {@link FederationJdbcConnectionLimiter}.
+   */
+  static ThreadPoolExecutor platformConnectionExecutor(final int maxConnections) {
+    int maxThreads = maxConnections > 0 ? maxConnections : Integer.MAX_VALUE;
+    return new ThreadPoolExecutor(
+        Math.min(4, maxThreads),
+        maxThreads,
+        60L,
+        TimeUnit.SECONDS,
+        new SynchronousQueue<>(),
+        runnable -> {
+          Thread thread = new Thread(runnable, "dna-jdbc-socket-client");
+          thread.setDaemon(true);
+          return thread;
+        },
+        new ThreadPoolExecutor.AbortPolicy()
+    );
+  }
+
+  private ScheduledExecutorService createCursorReaper() {
+    if (cursorIdleTimeoutMs <= 0) {
+      return null;
+    }
+    ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "dna-jdbc-cursor-reaper");
+      thread.setDaemon(true);
+      return thread;
+    });
+    long period = Math.max(1_000L, cursorIdleTimeoutMs / 4);
+    reaper.scheduleWithFixedDelay(this::expireIdleCursors, period, period, TimeUnit.MILLISECONDS);
+    return reaper;
+  }
+
+  private void expireIdleCursors() {
+    for (FederationJdbcCursorRegistry registry : cursorRegistries) {
+      try {
+        registry.expireIdle();
+      } catch (RuntimeException ex) {
+        LOGGER.debug("DNA JDBC 空闲游标回收失败: {}", rootMessage(ex));
+      }
+    }
+  }
+
+  private String resolveThreadMode() {
+    String mode = threadMode == null ? "" : threadMode.trim().toUpperCase(Locale.ROOT);
+    return "VIRTUAL".equals(mode) ? "VIRTUAL" : "PLATFORM";
+  }
+
   private ServerSocket createServerSocket() throws IOException {
     if (!sslEnabled) {
       return new ServerSocket();
@@ -193,9 +360,22 @@ public class FederationJdbcSocketServer implements DisposableBean {
     while (running) {
       try {
         Socket socket = serverSocket.accept();
+        FederationJdbcConnectionLimiter limiter = connectionLimiter;
+        if (!limiter.tryAcquireConnection()) {
+          LOGGER.warn("DNA JDBC Socket 连接数已达上限 {}，拒绝新连接", maxConnections);
+          closeQuietly(socket);
+          continue;
+        }
         try {
-          connectionExecutor.execute(() -> handleConnection(socket));
+          connectionExecutor.execute(() -> {
+            try {
+              handleConnection(socket);
+            } finally {
+              limiter.releaseConnection();
+            }
+          });
         } catch (RejectedExecutionException ex) {
+          limiter.releaseConnection();
           LOGGER.warn("DNA JDBC Socket 连接池已满，拒绝新连接");
           closeQuietly(socket);
         }
@@ -218,6 +398,9 @@ public class FederationJdbcSocketServer implements DisposableBean {
     ) {
       client.setSoTimeout(idleTimeoutMs);
       ConnectionSession session = null;
+      DnaJdbcWireFormat wireFormat = DnaJdbcWireFormat.PLAIN_JSON;
+      FederationJdbcCursorRegistry cursors = new FederationJdbcCursorRegistry(maxOpenCursors, cursorIdleTimeoutMs);
+      cursorRegistries.add(cursors);
       try {
         while (running && !client.isClosed()) {
           SocketRequest request = readRequest(inputStream);
@@ -227,35 +410,51 @@ public class FederationJdbcSocketServer implements DisposableBean {
           SocketResponse response;
           try {
             long startNanos = System.nanoTime();
-            RequestOutcome outcome = handleRequest(session, request);
+            RequestOutcome outcome = handleRequest(session, cursors, request);
             long elapsedMs = (System.nanoTime() - startNanos) / 1_000_000L;
             if (LOGGER.isDebugEnabled()) {
               LOGGER.debug("DNA JDBC Socket [{}] completed in {}ms", request.action(), elapsedMs);
             }
-            closeReplacedSession(session, outcome.session());
+            closeReplacedSession(session, outcome.session(), cursors);
             session = outcome.session();
             response = outcome.response();
           } catch (AccessDeniedException | IllegalArgumentException | IllegalStateException ex) {
-            response = SocketResponse.error(rootMessage(ex));
+            response = SocketResponse.failure(ex);
           } catch (RuntimeException ex) {
             LOGGER.warn("DNA JDBC Socket request failed: {}", rootMessage(ex));
-            response = SocketResponse.error(rootMessage(ex));
+            response = SocketResponse.failure(ex);
+          }
+          writeResponse(outputStream, response.withEnvelope(request.requestId(), driverService.metadataVersion()), wireFormat);
+          if (response.wireFormat() != null) {
+            wireFormat = response.wireFormat();
           }
-          writeResponse(outputStream, response);
           if ("CLOSE".equalsIgnoreCase(request.action())) {
             return;
           }
         }
       } finally {
+        cursorRegistries.remove(cursors);
+        cursors.close();
         closeSession(session);
       }
+    } catch (SocketTimeoutException ex) {
+      LOGGER.debug("DNA JDBC Socket connection idle for more than {}ms, closing", idleTimeoutMs);
     } catch (IOException ex) {
       LOGGER.debug("DNA JDBC Socket connection closed: {}", rootMessage(ex));
     }
   }
 
-  private RequestOutcome handleRequest(final ConnectionSession session, final SocketRequest request) {
+  private RequestOutcome handleRequest(
+      final ConnectionSession session,
+      final FederationJdbcCursorRegistry cursors,
+      final SocketRequest request
+  ) {
     String action = normalizeAction(request.action());
+    if ("CANCEL".equals(action)) {
+      boolean cancelled = cancellations.cancel(request.queryId());
+      LOGGER.debug("DNA JDBC Socket CANCEL {}: {}", request.queryId(), cancelled ? "cancelled" : "not running");
+      return new RequestOutcome(session, SocketResponse.ok());
+    }
     if ("CONNECT".equals(action)) {
       FederationJdbcDriverModels.DriverRequest driverRequest = new FederationJdbcDriverModels.DriverRequest(
           request.loginSubject(),
@@ -265,12 +464,39 @@ public class FederationJdbcSocketServer implements DisposableBean {
           request.contextId()
       );
       FederationJdbcDriverService.DriverSession driverSession = driverService.openSession(driverRequest);
-      FederationJdbcDriverModels.PingResult pingResult = driverService.ping(driverSession, request.contextId());
-      ConnectionSession nextSession = new ConnectionSession(driverSession, pingResult.contextId());
-      return new RequestOutcome(nextSession, SocketResponse.ping(pingResult));
+      FederationJdbcDriverModels.PingResult pingResult;
+      try {
+        pingResult = driverService.ping(driverSession, request.contextId());
+      } catch (RuntimeException ex) {
+        driverSession.close();
+        throw ex;
+      }
+      if (!connectionLimiter.tryAcquireTenant(pingResult.tenantId())) {
+        driverSession.close();
+        throw new IllegalStateException("租户 JDBC 连接数已达上限: " + pingResult.tenantId());
+      }
+      ConnectionSession nextSession = new ConnectionSession(driverSession, pingResult.contextId(), pingResult.tenantId());
+      DnaJdbcWireFormat wireFormat = DnaJdbcWireFormat.negotiate(request.encoding(), request.compression(), binaryEnabled);
+      return new RequestOutcome(nextSession, SocketResponse.connect(pingResult, wireFormat));
     }
     ConnectionSession requiredSession = requireSession(session);
     String contextId = resolveContextId(requiredSession, request.contextId());
+    if (METADATA_ACTIONS.contains(action)) {
+      try (FederationJdbcAdmissionController.Permit ignored =
+               admit(FederationJdbcAdmissionController.Lane.METADATA, requiredSession, request)) {
+        return dispatch(action, requiredSession, contextId, cursors, request);
+      }
+    }
+    return dispatch(action, requiredSession, contextId, cursors, request);
+  }
+
+  private RequestOutcome dispatch(
+      final String action,
+      final ConnectionSession requiredSession,
+      final String contextId,
+      final FederationJdbcCursorRegistry cursors,
+      final SocketRequest request
+  ) {
     return switch (action) {
       case "PING" -> {
         FederationJdbcDriverModels.PingResult pingResult = driverService.ping(requiredSession.driverSession(), contextId);
@@ -315,6 +541,23 @@ public class FederationJdbcSocketServer implements DisposableBean {
               request.columnPattern()
           ))
       );
+      case "SCHEMA_COLUMNS" -> {
+        // Every column of one schema in a single frame; the driver filters tables locally.
+        if (request.schemaPattern() == null || request.schemaPattern().isBlank()) {
+          throw new IllegalArgumentException("SCHEMA_COLUMNS 需要指定 schema");
+        }
+        yield new RequestOutcome(
+            requiredSession,
+            SocketResponse.tabular(driverService.columns(
+                requiredSession.driverSession(),
+                contextId,
+                request.catalogPattern(),
+                request.schemaPattern(),
+                null,
+                null
+            ))
+        );
+      }
       case "PRIMARY_KEYS" -> new RequestOutcome(
           requiredSession,
           SocketResponse.tabular(driverService.primaryKeys(
@@ -361,24 +604,36 @@ public class FederationJdbcSocketServer implements DisposableBean {
           requiredSession,
           SocketResponse.tabular(driverService.typeInfo(requiredSession.driverSession(), contextId))
       );
-      case "QUERY" -> acquireAndExecute(() -> new RequestOutcome(
+      case "QUERY" -> acquireAndExecute(requiredSession, request, permit -> new RequestOutcome(
+          requiredSession,
+          query(requiredSession, contextId, cursors, request, permit)
+      ));
+      case "FETCH" -> execute(request, cursors.cancellation(request.cursorId()), HeldPermit.NONE, ignored -> new RequestOutcome(
           requiredSession,
-          SocketResponse.query(driverService.query(
+          fetch(cursors, request.cursorId(), resolveFetchSize(request.fetchSize()))
+      ));
+      case "CLOSE_CURSOR" -> {
+        cursors.release(request.cursorId());
+        yield new RequestOutcome(requiredSession, SocketResponse.ok());
+      }
+      case "EXECUTE_UPDATE" -> acquireAndExecute(requiredSession, request, ignored -> new RequestOutcome(
+          requiredSession,
+          SocketResponse.update(driverService.executeUpdate(
               requiredSession.driverSession(),
               contextId,
-              // CHECKSTYLE.SUPPRESS: LineLength for +1 lines
-              new FederationJdbcDriverModels.QueryRequest(request.sql(), request.defaultSchema(), request.catalogCode(), request.parameters(), request.maxRows())
+              new FederationJdbcDriverModels.QueryRequest(request.sql(), request.defaultSchema(), request.catalogCode(), request.parameters())
           ))
       ));
-      case "EXECUTE_UPDATE" -> acquireAndExecute(() -> new RequestOutcome(
+      case "EXECUTE_BATCH" -> acquireAndExecute(requiredSession, request, ignored -> new RequestOutcome(
           requiredSession,
-          SocketResponse.update(driverService.executeUpdate(
+          SocketResponse.batchUpdate(driverService.executeBatch(
               requiredSession.driverSession(),
               contextId,
-              new FederationJdbcDriverModels.QueryRequest(request.sql(), request.defaultSchema(), request.catalogCode(), request.parameters())
+              new FederationJdbcDriverModels.QueryRequest(request.sql(), request.defaultSchema(), request.catalogCode()),
+              request.batchParameters()
           ))
       ));
-      case "EXECUTE_DDL" -> acquireAndExecute(() -> new RequestOutcome(
+      case "EXECUTE_DDL" -> acquireAndExecute(requiredSession, request, ignored -> new RequestOutcome(
           requiredSession,
           SocketResponse.update(driverService.executeDdl(
               requiredSession.driverSession(),
@@ -400,41 +655,173 @@ public class FederationJdbcSocketServer implements DisposableBean {
         ConnectionSession currentSession = requiredSession;
         for (SocketRequest subRequest : batchRequests) {
           try {
-            RequestOutcome subOutcome = handleRequest(currentSession, subRequest);
+            RequestOutcome subOutcome = handleRequest(currentSession, cursors, subRequest);
             currentSession = subOutcome.session();
             batchResults.add(subOutcome.response());
           } catch (Exception ex) {
-            batchResults.add(SocketResponse.error(rootMessage(ex)));
+            batchResults.add(SocketResponse.failure(ex));
           }
         }
         yield new RequestOutcome(currentSession, SocketResponse.batch(batchResults));
       }
-      default -> throw new IllegalArgumentException("不支持的 DNA JDBC Socket 操作: " + action);
+      default -> throw new UnsupportedActionException(action);
     };
   }
 
+  private SocketResponse query(
+      final ConnectionSession session,
+      final String contextId,
+      final FederationJdbcCursorRegistry cursors,
+      final SocketRequest request,
+      final HeldPermit permit
+  ) {
+    FederationJdbcDriverModels.QueryRequest queryRequest = new FederationJdbcDriverModels.QueryRequest(
+        request.sql(),
+        request.defaultSchema(),
+        request.catalogCode(),
+        request.parameters(),
+        request.maxRows()
+    );
+    if (request.fetchSize() == null || request.fetchSize() < 1) {
+      return SocketResponse.query(driverService.query(session.driverSession(), contextId, queryRequest));
+    }
+    FederationSqlConsoleService.QueryCursor cursor = driverService.openCursor(
+        session.driverSession(),
+        contextId,
+        queryRequest,
+        resolveFetchSize(request.fetchSize())
+    );
+    FederationQueryModels.SqlQueryResult firstBatch = cursor.firstBatch();
+    if (!cursor.hasMore()) {
+      cursor.close();
+      return SocketResponse.cursor(firstBatch, new CursorResult(null, null, false));
+    }
+    String cursorId = cursors.register(cursor, CalciteQueryCancellation.current(), permit.handOver());
+    return SocketResponse.cursor(firstBatch, new CursorResult(cursorId, null, true));
+  }
+
+  private static SocketResponse fetch(
+      final FederationJdbcCursorRegistry cursors,
+      final String cursorId,
+      final int fetchSize
+  ) {
+    FederationSqlConsoleService.QueryCursor cursor = cursors.require(cursorId);
+    List<List<Object>> rows;
+    try {
+      rows = cursor.fetch(fetchSize);
+    } catch (RuntimeException ex) {
+      cursors.release(cursorId);
+      throw ex;
+    }
+    boolean hasMore = cursor.hasMore();
+    if (hasMore) {
+      cursors.markIdle(cursorId);
+    } else {
+      cursors.release(cursorId);
+    }
+    return SocketResponse.cursor(null, new CursorResult(cursorId, rows, hasMore));
+  }
+
+  private int resolveFetchSize(final Integer requestedFetchSize) {
+    int fetchSize = requestedFetchSize == null || requestedFetchSize < 1 ? maxFetchSize : requestedFetchSize;
+    return maxFetchSize > 0 ? Math.min(fetchSize, maxFetchSize) : fetchSize;
+  }
+
   /**
-   * Acquires a query permit from the concurrency semaphore, executes the
-   * action, and releases the permit. Rejects immediately when the pool
-   * is exhausted to prevent queue buildup under heavy load.
+   * Acquires a query permit from the admission controller, executes the action, and releases the
+   * permit unless the action handed it over to a cursor. Requests wait in a bounded queue shared
+   * fairly between tenants and catalogs, and are rejected once the queue is full or the wait
+   * exceeds the configured timeout.
    */
-  private RequestOutcome acquireAndExecute(final QueryAction action) {
-    Semaphore sem = querySemaphore;
-    if (sem != null && !sem.tryAcquire()) {
-      throw new IllegalStateException("服务器查询并发数已达上限，请稍后重试");
-    }
+  private RequestOutcome acquireAndExecute(
+      final ConnectionSession session,
+      final SocketRequest request,
+      final QueryAction action
+  ) {
+    HeldPermit permit = new HeldPermit(admit(FederationJdbcAdmissionController.Lane.QUERY, session, request));
     try {
-      return action.execute();
+      return execute(request, null, permit, action);
     } finally {
-      if (sem != null) {
-        sem.release();
+      permit.closeUnlessHandedOver();
+    }
+  }
+
+  /**
+   * Executes the action with a {@link CalciteQueryCancellation} bound to the thread and registered
+   * under the driver's query id, so a CANCEL from another connection cancels the Calcite and
+   * source statements and returns the permit right away.
+   */
+  private RequestOutcome execute(
+      final SocketRequest request,
+      final CalciteQueryCancellation cursorCancellation,
+      final HeldPermit permit,
+      final QueryAction action
+  ) {
+    String queryId = request.queryId();
+    CalciteQueryCancellation cancellation = cursorCancellation == null
+        ? new CalciteQueryCancellation()
+        : cursorCancellation;
+    try {
+      cancellations.register(queryId, cancellation, permit.releaseOnCancel());
+      try (CalciteQueryCancellation.Scope ignored = cancellation.bind()) {
+        return action.execute(permit);
+      }
+    } catch (RuntimeException ex) {
+      if (cancellation.isCancelled()) {
+        IllegalStateException cancelled = new IllegalStateException("DNA JDBC 查询已被取消");
+        cancelled.addSuppressed(ex);
+        throw cancelled;
       }
+      throw ex;
+    } finally {
+      cancellations.unregister(queryId, cancellation);
     }
   }
 
+  private FederationJdbcAdmissionController.Permit admit(
+      final FederationJdbcAdmissionController.Lane lane,
+      final ConnectionSession session,
+      final SocketRequest request
+  ) {
+    FederationJdbcAdmissionController controller = admissionController;
+    return controller == null ? null : controller.acquire(lane, session.tenantId(), request.catalogCode());
+  }
+
   @FunctionalInterface
   private interface QueryAction {
-    RequestOutcome execute();
+    RequestOutcome execute(HeldPermit permit);
+  }
+
+  /**
+   * Query permit held by one request. A QUERY that leaves a cursor open hands the permit over to
+   * the cursor registry, which returns it when the cursor is closed.
+   */
+  private static final class HeldPermit {
+
+    private static final HeldPermit NONE = new HeldPermit(null);
+
+    private final FederationJdbcAdmissionController.Permit permit;
+
+    private boolean handedOver;
+
+    private HeldPermit(final FederationJdbcAdmissionController.Permit permit) {
+      this.permit = permit;
+    }
+
+    private FederationJdbcAdmissionController.Permit handOver() {
+      handedOver = permit != null;
+      return permit;
+    }
+
+    private Runnable releaseOnCancel() {
+      return permit == null ? null : permit::close;
+    }
+
+    private void closeUnlessHandedOver() {
+      if (permit != null && !handedOver) {
+        permit.close();
+      }
+    }
   }
 
   private SocketRequest readRequest(final DataInputStream inputStream) throws IOException {
@@ -444,7 +831,7 @@ public class FederationJdbcSocketServer implements DisposableBean {
     } catch (EOFException ex) {
       return null;
     }
-    if (length <= 0 || length > MAX_FRAME_SIZE) {
+    if (length <= 0 || length > DnaJdbcFrame.MAX_FRAME_SIZE) {
       throw new IOException("DNA JDBC Socket 请求长度不合法: " + length);
     }
     byte[] payload = inputStream.readNBytes(length);
@@ -456,14 +843,39 @@ public class FederationJdbcSocketServer implements DisposableBean {
 
   private void writeResponse(
       final DataOutputStream outputStream,
-      final SocketResponse response
+      final SocketResponse response,
+      final DnaJdbcWireFormat wireFormat
   ) throws IOException {
-    byte[] payload = objectMapper.writeValueAsBytes(response);
+    byte[] payload;
+    try {
+      payload = encodeResponse(response, wireFormat);
+    } catch (IllegalArgumentException ex) {
+      payload = encodeResponse(
+          SocketResponse.error(ex.getMessage()).withEnvelope(response.requestId(), response.metadataVersion()),
+          wireFormat
+      );
+    }
     outputStream.writeInt(payload.length);
     outputStream.write(payload);
     outputStream.flush();
   }
 
+  private byte[] encodeResponse(final SocketResponse response, final DnaJdbcWireFormat wireFormat) throws IOException {
+    if (!wireFormat.binary()) {
+      return objectMapper.writeValueAsBytes(response);
+    }
+    int threshold = wireFormat.lz4() ? compressionThreshold : -1;
+    List<List<Object>> rows = response.rowBatch();
+    if (rows == null || rows.isEmpty()) {
+      return DnaJdbcFrame.encode(objectMapper.writeValueAsBytes(response), null, threshold);
+    }
+    return DnaJdbcFrame.encode(
+        objectMapper.writeValueAsBytes(response.withoutRowBatch()),
+        rowBatchCodec.encode(rows),
+        threshold
+    );
+  }
+
   private static String normalizeAction(final String action) {
     if (action == null || action.isBlank()) {
       throw new IllegalArgumentException("DNA JDBC Socket 请求缺少 action");
@@ -482,13 +894,18 @@ public class FederationJdbcSocketServer implements DisposableBean {
     return requestContextId == null || requestContextId.isBlank() ? session.contextId() : requestContextId;
   }
 
-  private void closeReplacedSession(final ConnectionSession previous, final ConnectionSession next) {
+  private void closeReplacedSession(
+      final ConnectionSession previous,
+      final ConnectionSession next,
+      final FederationJdbcCursorRegistry cursors
+  ) {
     if (previous == null) {
       return;
     }
     if (next != null && previous.driverSession() == next.driverSession()) {
       return;
     }
+    cursors.close();
     closeSession(previous);
   }
 
@@ -500,6 +917,8 @@ public class FederationJdbcSocketServer implements DisposableBean {
       session.driverSession().close();
     } catch (RuntimeException ex) {
       LOGGER.debug("DNA JDBC Socket session cleanup failed: {}", rootMessage(ex));
+    } finally {
+      connectionLimiter.releaseTenant(session.tenantId());
     }
   }
 
@@ -531,18 +950,26 @@ public class FederationJdbcSocketServer implements DisposableBean {
       socket.close();
     }
     acceptExecutor.shutdownNow();
-    connectionExecutor.shutdownNow();
+    ExecutorService executor = connectionExecutor;
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+    ScheduledExecutorService reaper = cursorReaper;
+    if (reaper != null) {
+      reaper.shutdownNow();
+    }
   }
 
   private record ConnectionSession(
       FederationJdbcDriverService.DriverSession driverSession,
-      String contextId
+      String contextId,
+      String tenantId
   ) {
 
     private ConnectionSession withContextId(final String resolvedContextId) {
       return resolvedContextId == null || resolvedContextId.isBlank()
           ? this
-          : new ConnectionSession(driverSession, resolvedContextId);
+          : new ConnectionSession(driverSession, resolvedContextId, tenantId);
     }
   }
 
@@ -568,7 +995,35 @@ public class FederationJdbcSocketServer implements DisposableBean {
       Boolean approximate,
       List<SocketRequest> batch,
       List<Object> parameters,
-      Integer maxRows
+      Integer maxRows,
+      Integer fetchSize,
+      String cursorId,
+      String encoding,
+      String compression,
+      List<List<Object>> batchParameters,
+      String queryId,
+      String requestId
+  ) {
+  }
+
+  /**
+   * Request naming an action this server does not implement; answered with
+   * {@link DnaJdbcErrorCodes#UNSUPPORTED_ACTION}.
+   */
+  private static final class UnsupportedActionException extends IllegalArgumentException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private UnsupportedActionException(final String action) {
+      super("不支持的 DNA JDBC Socket 操作: " + action);
+    }
+  }
+
+  private record CursorResult(
+      String cursorId,
+      List<List<Object>> rows,
+      boolean hasMore
   ) {
   }
 
@@ -579,35 +1034,113 @@ public class FederationJdbcSocketServer implements DisposableBean {
       FederationJdbcDriverModels.TabularResult tabularResult,
       FederationQueryModels.SqlQueryResult queryResult,
       FederationQueryModels.SqlUpdateResult updateResult,
-      List<SocketResponse> batchResults
+      List<SocketResponse> batchResults,
+      CursorResult cursor,
+      DnaJdbcWireFormat wireFormat,
+      FederationQueryModels.SqlBatchUpdateResult batchUpdateResult,
+      String requestId,
+      Long metadataVersion,
+      String errorCode
   ) {
 
+    private SocketResponse(
+        final Boolean success,
+        final String errorMessage,
+        final FederationJdbcDriverModels.PingResult pingResult,
+        final FederationJdbcDriverModels.TabularResult tabularResult,
+        final FederationQueryModels.SqlQueryResult queryResult,
+        final FederationQueryModels.SqlUpdateResult updateResult,
+        final List<SocketResponse> batchResults,
+        final CursorResult cursor,
+        final DnaJdbcWireFormat wireFormat,
+        final FederationQueryModels.SqlBatchUpdateResult batchUpdateResult
+    ) {
+      this(success, errorMessage, pingResult, tabularResult, queryResult, updateResult, batchResults, cursor,
+          wireFormat, batchUpdateResult, null, null, null);
+    }
+
     private static SocketResponse ok() {
-      return new SocketResponse(true, null, null, null, null, null, null);
+      return new SocketResponse(true, null, null, null, null, null, null, null, null, null);
     }
 
     private static SocketResponse error(final String errorMessage) {
-      return new SocketResponse(false, errorMessage, null, null, null, null, null);
+      return new SocketResponse(false, errorMessage, null, null, null, null, null, null, null, null);
+    }
+
+    /**
+     * Reports a failed request, tagging failures the driver must tell apart with an error code.
+     */
+    private static SocketResponse failure(final Throwable failure) {
+      String code = failure instanceof UnsupportedActionException ? DnaJdbcErrorCodes.UNSUPPORTED_ACTION : null;
+      return new SocketResponse(false, rootMessage(failure), null, null, null, null, null, null, null, null, null,
+          null, code);
     }
 
     private static SocketResponse ping(final FederationJdbcDriverModels.PingResult pingResult) {
-      return new SocketResponse(true, null, pingResult, null, null, null, null);
+      return connect(pingResult, null);
+    }
+
+    private static SocketResponse connect(
+        final FederationJdbcDriverModels.PingResult pingResult,
+        final DnaJdbcWireFormat wireFormat
+    ) {
+      return new SocketResponse(true, null, pingResult, null, null, null, null, null, wireFormat, null);
     }
 
     private static SocketResponse tabular(final FederationJdbcDriverModels.TabularResult tabularResult) {
-      return new SocketResponse(true, null, null, tabularResult, null, null, null);
+      return new SocketResponse(true, null, null, tabularResult, null, null, null, null, null, null);
     }
 
     private static SocketResponse query(final FederationQueryModels.SqlQueryResult queryResult) {
-      return new SocketResponse(true, null, null, null, queryResult, null, null);
+      return new SocketResponse(true, null, null, null, queryResult, null, null, null, null, null);
+    }
+
+    private static SocketResponse cursor(
+        final FederationQueryModels.SqlQueryResult queryResult,
+        final CursorResult cursor
+    ) {
+      return new SocketResponse(true, null, null, null, queryResult, null, null, cursor, null, null);
     }
 
     private static SocketResponse update(final FederationQueryModels.SqlUpdateResult updateResult) {
-      return new SocketResponse(true, null, null, null, null, updateResult, null);
+      return new SocketResponse(true, null, null, null, null, updateResult, null, null, null, null);
+    }
+
+    private static SocketResponse batchUpdate(final FederationQueryModels.SqlBatchUpdateResult batchUpdateResult) {
+      return new SocketResponse(true, null, null, null, null, null, null, null, null, batchUpdateResult);
     }
 
     private static SocketResponse batch(final List<SocketResponse> batchResults) {
-      return new SocketResponse(true, null, null, null, null, null, batchResults);
+      return new SocketResponse(true, null, null, null, null, null, batchResults, null, null, null);
+    }
+
+    /**
+     * Rows sent as a binary row batch: the query rows, or the cursor rows of a FETCH.
+     */
+    private List<List<Object>> rowBatch() {
+      if (queryResult != null) {
+        return queryResult.rows();
+      }
+      return cursor == null ? null : cursor.rows();
+    }
+
+    private SocketResponse withoutRowBatch() {
+      if (queryResult != null) {
+        return new SocketResponse(success, errorMessage, pingResult, tabularResult, queryResult.withRows(List.of()),
+            updateResult, batchResults, cursor, wireFormat, batchUpdateResult, requestId, metadataVersion, errorCode);
+      }
+      return new SocketResponse(success, errorMessage, pingResult, tabularResult, null, updateResult, batchResults,
+          new CursorResult(cursor.cursorId(), List.of(), cursor.hasMore()), wireFormat, batchUpdateResult,
+          requestId, metadataVersion, errorCode);
+    }
+
+    /**
+     * Echoes the request id so pipelining clients can correlate frames, and stamps the metadata
+     * version so driver caches notice schema changes.
+     */
+    private SocketResponse withEnvelope(final String echoedRequestId, final long version) {
+      return new SocketResponse(success, errorMessage, pingResult, tabularResult, queryResult, updateResult,
+          batchResults, cursor, wireFormat, batchUpdateResult, echoedRequestId, version, errorCode);
     }
   }
 }
@@ -0,0 +1,55 @@
+package org.simplepoint.plugin.dna.federation.service.support;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import org.simplepoint.plugin.dna.federation.api.vo.FederationQueryModels;
+
+/**
+ * Writes exported rows as a JSON array of objects keyed by column name.
+ */
+public final class FederationJsonExportWriter implements FederationExportWriter {
+
+  private final List<String> names;
+
+  private final JsonGenerator generator;
+
+  /**
+   * Creates a JSON writer.
+   *
+   * @param columns      result columns
+   * @param output       destination stream
+   * @param objectMapper mapper used to serialize cell values
+   * @throws IOException when writing the array start fails
+   */
+  public FederationJsonExportWriter(
+      final List<FederationQueryModels.SqlColumn> columns,
+      final OutputStream output,
+      final ObjectMapper objectMapper
+  ) throws IOException {
+    this.names = FederationExportWriter.columnNames(columns);
+    this.generator = objectMapper.getFactory().createGenerator(output);
+    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    generator.writeStartArray();
+  }
+
+  @Override
+  public void writeRows(final List<List<Object>> rows) throws IOException {
+    for (List<Object> row : rows) {
+      generator.writeStartObject();
+      for (int index = 0; index < names.size() && index < row.size(); index++) {
+        generator.writeFieldName(names.get(index));
+        generator.writeObject(row.get(index));
+      }
+      generator.writeEndObject();
+    }
+  }
+
+  @Override
+  public void finish() throws IOException {
+    generator.writeEndArray();
+    generator.close();
+  }
+}
@@ -3,26 +3,36 @@ package org.simplepoint.plugin.dna.federation.service.support;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import org.jspecify.annotations.Nullable;
 import org.simplepoint.plugin.dna.federation.api.vo.FederationJdbcDriverModels;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.Cursor;
-import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
 /**
- * Global Redis-backed L2 metadata cache for federation JDBC metadata results.
+ * Two-tier metadata cache for federation JDBC metadata results.
  *
- * <p>Falls back to a no-op when Redis is not available. The session-level
- * {@code ConcurrentHashMap} in {@code JdbcConnectionSession} acts as L1,
- * and this service acts as L2 shared across all sessions.</p>
+ * <p>L1 is a bounded in-process map shared by all sessions of this node, L2 is Redis shared by
+ * all nodes (a no-op when Redis is not configured). Entries are keyed by the request plus the
+ * current generation of every datasource, and of the schema, they were loaded from. Invalidating
+ * a datasource or a single schema only bumps its generation, so the affected entries stop being
+ * addressed on every tier at once while unrelated entries stay warm. Generations live in a Redis
+ * hash that each node re-reads at most once per sync interval.</p>
+ *
+ * <p>The sum of all generations is exposed as the metadata version that the JDBC socket server
+ * stamps on its responses, so driver-side caches follow the same invalidations.</p>
  */
 @Component
 public class FederationMetadataCacheService {
@@ -31,12 +41,35 @@ public class FederationMetadataCacheService {
 
   private static final String KEY_PREFIX = "dna:jdbc:meta:";
 
+  private static final String GENERATION_KEY = "dna:jdbc:meta-gen";
+
+  private static final String GLOBAL_TOKEN = "*";
+
   private final @Nullable StringRedisTemplate redisTemplate;
 
   private final ObjectMapper objectMapper;
 
+  private final Map<String, LocalEntry> localEntries = new ConcurrentHashMap<>();
+
+  private final Map<String, Long> generations = new ConcurrentHashMap<>();
+
+  private final Object generationMonitor = new Object();
+
+  private volatile long generationSum;
+
+  private volatile long lastGenerationSyncMillis;
+
   @Value("${simplepoint.dna.jdbc.metadata.cache.ttl-seconds:300}")
-  private long ttlSeconds;
+  private long ttlSeconds = 300L;
+
+  @Value("${simplepoint.dna.jdbc.metadata.cache.local.ttl-seconds:60}")
+  private long localTtlSeconds = 60L;
+
+  @Value("${simplepoint.dna.jdbc.metadata.cache.local.max-entries:5000}")
+  private int localMaxEntries = 5_000;
+
+  @Value("${simplepoint.dna.jdbc.metadata.cache.generation-sync-ms:1000}")
+  private long generationSyncMillis = 1_000L;
 
   /**
    * Creates the cache service with an optional Redis template.
@@ -53,20 +86,57 @@ public class FederationMetadataCacheService {
   }
 
   /**
-   * Creates a no-op cache service without Redis backing.
+   * Creates a local-only cache service without Redis backing.
    */
   public FederationMetadataCacheService() {
     this(null);
   }
 
   /**
-   * Retrieves a cached metadata result.
+   * Returns a cached metadata result scoped to the current generations of its datasources,
+   * loading and caching it on a miss.
+   *
+   * @param cacheKey        request key
+   * @param dataSourceCodes datasources the result is read from
+   * @param schemaPattern   requested schema pattern; a literal schema is tracked on its own
+   * @param loader          loads the result on a miss
+   * @return metadata result
+   */
+  public FederationJdbcDriverModels.TabularResult getOrLoad(
+      final String cacheKey,
+      final Collection<String> dataSourceCodes,
+      final String schemaPattern,
+      final Supplier<FederationJdbcDriverModels.TabularResult> loader
+  ) {
+    String scopedKey = scopedKey(cacheKey, dataSourceCodes, schemaPattern);
+    FederationJdbcDriverModels.TabularResult cached = get(scopedKey);
+    if (cached != null) {
+      return cached;
+    }
+    FederationJdbcDriverModels.TabularResult result = loader.get();
+    put(scopedKey, result);
+    return result;
+  }
+
+  /**
+   * Retrieves a cached metadata result from L1, then L2.
    *
    * @param cacheKey cache key (without prefix)
-   * @return cached result, or null if not found or Redis unavailable
+   * @return cached result, or null if not found
    */
   public FederationJdbcDriverModels.TabularResult get(final String cacheKey) {
-    if (redisTemplate == null || cacheKey == null) {
+    if (cacheKey == null) {
+      return null;
+    }
+    long nowMillis = System.currentTimeMillis();
+    LocalEntry local = localEntries.get(cacheKey);
+    if (local != null) {
+      if (local.expiresAtMillis() > nowMillis) {
+        return local.value();
+      }
+      localEntries.remove(cacheKey, local);
+    }
+    if (redisTemplate == null) {
       return null;
     }
     try {
@@ -74,7 +144,10 @@ public class FederationMetadataCacheService {
       if (json == null) {
         return null;
       }
-      return objectMapper.readValue(json, FederationJdbcDriverModels.TabularResult.class);
+      FederationJdbcDriverModels.TabularResult result =
+          objectMapper.readValue(json, FederationJdbcDriverModels.TabularResult.class);
+      putLocal(cacheKey, result, nowMillis);
+      return result;
     } catch (RuntimeException | JsonProcessingException ex) {
       LOGGER.debug("Redis metadata cache read failed for key {}: {}", cacheKey, ex.getMessage());
       return null;
@@ -82,13 +155,17 @@ public class FederationMetadataCacheService {
   }
 
   /**
-   * Stores a metadata result into the cache.
+   * Stores a metadata result into L1 and L2.
    *
    * @param cacheKey cache key (without prefix)
    * @param result metadata result to cache
    */
   public void put(final String cacheKey, final FederationJdbcDriverModels.TabularResult result) {
-    if (redisTemplate == null || cacheKey == null || result == null) {
+    if (cacheKey == null || result == null) {
+      return;
+    }
+    putLocal(cacheKey, result, System.currentTimeMillis());
+    if (redisTemplate == null) {
       return;
     }
     try {
@@ -100,38 +177,59 @@ public class FederationMetadataCacheService {
   }
 
   /**
-   * Flushes all cached metadata entries.
+   * Invalidates the cached metadata of one datasource, or of one of its schemas.
    *
-   * @return the number of entries flushed, or -1 if Redis is unavailable
+   * @param dataSourceCode datasource code
+   * @param schema         schema label, null to invalidate the whole datasource
    */
-  public long flushAll() {
-    if (redisTemplate == null) {
-      return -1;
+  public void invalidate(final String dataSourceCode, final String schema) {
+    String code = normalizeToken(dataSourceCode);
+    if (code == null) {
+      return;
     }
-    try {
-      ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(200).build();
-      long total = 0;
-      try (Cursor<String> cursor = redisTemplate.scan(options)) {
-        Set<String> batch = new HashSet<>();
-        while (cursor.hasNext()) {
-          batch.add(cursor.next());
-          if (batch.size() >= 200) {
-            Long deleted = redisTemplate.delete(batch);
-            total += deleted == null ? 0 : deleted;
-            batch.clear();
-          }
-        }
-        if (!batch.isEmpty()) {
-          Long deleted = redisTemplate.delete(batch);
-          total += deleted == null ? 0 : deleted;
-        }
-      }
-      LOGGER.info("Flushed {} DNA JDBC metadata cache entries", total);
-      return total;
-    } catch (RuntimeException ex) {
-      LOGGER.warn("Redis metadata cache flush failed: {}", ex.getMessage());
-      return -1;
+    String normalizedSchema = normalizeToken(schema);
+    if (normalizedSchema == null) {
+      bumpGeneration(code);
+    } else {
+      bumpGeneration(code + '/' + normalizedSchema);
+      bumpGeneration(code + "/*");
     }
+    LOGGER.debug("DNA JDBC metadata invalidated: {}{}", code, normalizedSchema == null ? "" : "/" + normalizedSchema);
+  }
+
+  /**
+   * Flushes all cached metadata entries by bumping the global generation. Every node stops
+   * addressing its L1 entries and the Redis entries at once; the orphaned Redis entries are not
+   * deleted and simply expire with their TTL.
+   *
+   * @return the number of L1 entries dropped on this node
+   */
+  public long flushAll() {
+    bumpGeneration(GLOBAL_TOKEN);
+    long dropped = localEntries.size();
+    localEntries.clear();
+    LOGGER.info("Flushed DNA JDBC metadata cache, {} local entries dropped", dropped);
+    return dropped;
+  }
+
+  /**
+   * Returns the current metadata version. It grows whenever any datasource, schema or the whole
+   * cache is invalidated, on this node or, once generations are synced, on another one.
+   *
+   * @return metadata version
+   */
+  public long metadataVersion() {
+    syncGenerations();
+    return generationSum;
+  }
+
+  /**
+   * Returns the number of entries held by the local tier.
+   *
+   * @return local entry count
+   */
+  public int localSize() {
+    return localEntries.size();
   }
 
   /**
@@ -142,4 +240,144 @@ public class FederationMetadataCacheService {
   public boolean isAvailable() {
     return redisTemplate != null;
   }
+
+  private String scopedKey(
+      final String cacheKey,
+      final Collection<String> dataSourceCodes,
+      final String schemaPattern
+  ) {
+    syncGenerations();
+    String schema = isLiteral(schemaPattern) ? normalizeToken(schemaPattern) : null;
+    StringBuilder key = new StringBuilder(cacheKey).append("|g").append(generation(GLOBAL_TOKEN));
+    Set<String> codes = new TreeSet<>();
+    if (dataSourceCodes != null) {
+      dataSourceCodes.stream().map(FederationMetadataCacheService::normalizeToken).filter(Objects::nonNull)
+          .forEach(codes::add);
+    }
+    for (String code : codes) {
+      key.append('|').append(code)
+          .append('@').append(generation(code))
+          .append('.').append(generation(schema == null ? code + "/*" : code + '/' + schema));
+    }
+    return key.toString();
+  }
+
+  private long generation(final String token) {
+    return generations.getOrDefault(token, 0L);
+  }
+
+  private void bumpGeneration(final String token) {
+    Long remote = null;
+    if (redisTemplate != null) {
+      try {
+        remote = redisTemplate.opsForHash().increment(GENERATION_KEY, token, 1L);
+      } catch (RuntimeException ex) {
+        LOGGER.warn("Redis metadata generation update failed for {}: {}", token, ex.getMessage());
+      }
+    }
+    synchronized (generationMonitor) {
+      long current = generation(token);
+      long next = remote == null ? current + 1 : Math.max(current + 1, remote);
+      generations.put(token, next);
+      generationSum += next - current;
+    }
+  }
+
+  /**
+   * Merges the shared generations from Redis, at most once per sync interval.
+   */
+  private void syncGenerations() {
+    if (redisTemplate == null) {
+      return;
+    }
+    long nowMillis = System.currentTimeMillis();
+    if (nowMillis - lastGenerationSyncMillis < generationSyncMillis) {
+      return;
+    }
+    lastGenerationSyncMillis = nowMillis;
+    Map<Object, Object> remote;
+    try {
+      remote = redisTemplate.opsForHash().entries(GENERATION_KEY);
+    } catch (RuntimeException ex) {
+      LOGGER.debug("Redis metadata generation sync failed: {}", ex.getMessage());
+      return;
+    }
+    synchronized (generationMonitor) {
+      remote.forEach((field, value) -> {
+        long parsed = parseLong(value);
+        String token = String.valueOf(field);
+        long current = generation(token);
+        if (parsed > current) {
+          generations.put(token, parsed);
+          generationSum += parsed - current;
+        }
+      });
+    }
+  }
+
+  private void putLocal(
+      final String cacheKey,
+      final FederationJdbcDriverModels.TabularResult result,
+      final long nowMillis
+  ) {
+    long ttlMillis = TimeUnit.SECONDS.toMillis(Math.max(0L, Math.min(localTtlSeconds, ttlSeconds)));
+    if (ttlMillis <= 0L || localMaxEntries <= 0) {
+      return;
+    }
+    if (localEntries.size() >= localMaxEntries) {
+      evictLocal(nowMillis);
+    }
+    localEntries.put(cacheKey, new LocalEntry(result, nowMillis + ttlMillis));
+  }
+
+  /**
+   * Drops expired local entries, then the entries closest to expiry until the tier has room.
+   */
+  private void evictLocal(final long nowMillis) {
+    localEntries.entrySet().removeIf(entry -> entry.getValue().expiresAtMillis() <= nowMillis);
+    int overflow = localEntries.size() - localMaxEntries + 1;
+    if (overflow <= 0) {
+      return;
+    }
+    localEntries.entrySet().stream()
+        .sorted(Map.Entry.comparingByValue((left, right) ->
+            Long.compare(left.expiresAtMillis(), right.expiresAtMillis())))
+        .limit(overflow)
+        .map(Map.Entry::getKey)
+        .toList()
+        .forEach(localEntries::remove);
+  }
+
+  private static boolean isLiteral(final String pattern) {
+    if (pattern == null || pattern.isBlank()) {
+      return false;
+    }
+    for (int index = 0; index < pattern.length(); index++) {
+      char current = pattern.charAt(index);
+      if (current == '\\') {
+        index++;
+      } else if (current == '%' || current == '_') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String normalizeToken(final String value) {
+    if (value == null || value.isBlank()) {
+      return null;
+    }
+    return value.trim().replace("\\", "").toLowerCase(Locale.ROOT);
+  }
+
+  private static long parseLong(final Object value) {
+    try {
+      return Long.parseLong(String.valueOf(value));
+    } catch (NumberFormatException ex) {
+      return 0L;
+    }
+  }
+
+  private record LocalEntry(FederationJdbcDriverModels.TabularResult value, long expiresAtMillis) {
+  }
 }
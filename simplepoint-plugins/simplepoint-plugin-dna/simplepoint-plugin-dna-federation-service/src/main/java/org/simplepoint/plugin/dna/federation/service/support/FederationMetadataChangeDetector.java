@@ -0,0 +1,145 @@
+package org.simplepoint.plugin.dna.federation.service.support;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.simplepoint.plugin.dna.core.api.entity.JdbcDataSourceDefinition;
+import org.simplepoint.plugin.dna.core.api.service.JdbcDataSourceDefinitionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Polls the per-schema DDL fingerprints of every enabled datasource and invalidates the cached
+ * metadata of exactly the schemas whose fingerprint changed, so schema changes made outside DNA
+ * show up within one polling interval instead of after the cache TTL.
+ *
+ * <p>Datasources whose dialect cannot fingerprint schemas are remembered and skipped; their
+ * metadata still expires through the cache TTL. A datasource without any schema yet has an empty
+ * fingerprint and keeps being polled, so its first table is noticed.
+ *
+ * <p>Every node polls on its own: one fingerprint query per enabled datasource per interval and
+ * node. Without Redis each node must, because its cache generations are local. With Redis the
+ * invalidations reach every node, so detection can be disabled on all nodes but one.
+ */
+@Component
+public class FederationMetadataChangeDetector {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FederationMetadataChangeDetector.class);
+
+  private final JdbcDataSourceDefinitionService dataSourceService;
+
+  private final FederationJdbcMetadataSupport metadataSupport;
+
+  private final FederationMetadataCacheService metadataCacheService;
+
+  private final Map<String, Map<String, String>> fingerprints = new ConcurrentHashMap<>();
+
+  private final Set<String> unsupported = ConcurrentHashMap.newKeySet();
+
+  @Value("${simplepoint.dna.jdbc.metadata.change-detection.enabled:true}")
+  private boolean enabled = true;
+
+  /**
+   * Creates the change detector.
+   *
+   * @param dataSourceService    datasource service
+   * @param metadataSupport      JDBC metadata support
+   * @param metadataCacheService metadata cache to invalidate
+   */
+  public FederationMetadataChangeDetector(
+      final JdbcDataSourceDefinitionService dataSourceService,
+      final FederationJdbcMetadataSupport metadataSupport,
+      final FederationMetadataCacheService metadataCacheService
+  ) {
+    this.dataSourceService = dataSourceService;
+    this.metadataSupport = metadataSupport;
+    this.metadataCacheService = metadataCacheService;
+  }
+
+  /**
+   * Runs one detection pass on the configured interval.
+   */
+  @Scheduled(
+      fixedDelayString = "${simplepoint.dna.jdbc.metadata.change-detection.interval-ms:60000}",
+      initialDelayString = "${simplepoint.dna.jdbc.metadata.change-detection.interval-ms:60000}"
+  )
+  public void poll() {
+    if (!enabled) {
+      return;
+    }
+    try {
+      int changed = detectChanges();
+      if (changed > 0) {
+        LOGGER.info("检测到 {} 个 Schema 结构变更，已失效对应的元数据缓存", changed);
+      }
+    } catch (RuntimeException ex) {
+      LOGGER.warn("元数据变更检测失败: {}", ex.getMessage(), ex);
+    }
+  }
+
+  /**
+   * Compares the current fingerprints of all enabled datasources with the previous pass and
+   * invalidates the schemas that were added, dropped or altered. The first pass of a datasource
+   * only records its fingerprints.
+   *
+   * @return number of schemas invalidated
+   */
+  public int detectChanges() {
+    List<JdbcDataSourceDefinition> dataSources = dataSourceService.listEnabledDefinitions();
+    Set<String> seen = new HashSet<>();
+    int changed = 0;
+    for (JdbcDataSourceDefinition dataSource : dataSources == null ? List.<JdbcDataSourceDefinition>of() : dataSources) {
+      String dataSourceId = dataSource.getId();
+      if (dataSourceId == null || dataSource.getCode() == null) {
+        continue;
+      }
+      seen.add(dataSourceId);
+      if (unsupported.contains(dataSourceId)) {
+        continue;
+      }
+      Map<String, String> current;
+      try {
+        Optional<Map<String, String>> fingerprint = metadataSupport.schemaFingerprints(dataSource);
+        if (fingerprint.isEmpty()) {
+          unsupported.add(dataSourceId);
+          continue;
+        }
+        current = fingerprint.get();
+      } catch (RuntimeException ex) {
+        LOGGER.debug("数据源 [{}] 元数据指纹读取失败: {}", dataSource.getCode(), ex.getMessage());
+        continue;
+      }
+      Map<String, String> previous = fingerprints.put(dataSourceId, Map.copyOf(current));
+      if (previous != null) {
+        changed += invalidateChanged(dataSource.getCode(), previous, current);
+      }
+    }
+    fingerprints.keySet().retainAll(seen);
+    unsupported.retainAll(seen);
+    return changed;
+  }
+
+  private int invalidateChanged(
+      final String dataSourceCode,
+      final Map<String, String> previous,
+      final Map<String, String> current
+  ) {
+    Set<String> schemas = new HashSet<>(previous.keySet());
+    schemas.addAll(current.keySet());
+    int changed = 0;
+    for (String schema : schemas) {
+      if (!Objects.equals(previous.get(schema), current.get(schema))) {
+        metadataCacheService.invalidate(dataSourceCode, schema);
+        changed++;
+      }
+    }
+    return changed;
+  }
+}
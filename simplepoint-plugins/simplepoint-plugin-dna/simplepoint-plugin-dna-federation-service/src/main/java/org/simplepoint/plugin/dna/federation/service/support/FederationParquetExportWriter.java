@@ -0,0 +1,568 @@
+package org.simplepoint.plugin.dna.federation.service.support;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.simplepoint.plugin.dna.federation.api.vo.FederationQueryModels;
+
+/**
+ * Writes exported rows as a Parquet file without external dependencies.
+ *
+ * <p>Rows are buffered column by column until a row group is full (by row count or buffered
+ * bytes), then each column is written as one PLAIN-encoded data page, optionally GZIP-compressed.
+ * Every column is OPTIONAL; the physical type follows the JDBC type (booleans, 32/64-bit integers,
+ * floats, doubles, DATE and TIMESTAMP_MILLIS), and everything else, including DECIMAL, is written
+ * as UTF-8 text so no precision is lost. The footer is encoded with the Thrift compact protocol as
+ * required by the format.
+ */
+public final class FederationParquetExportWriter implements FederationExportWriter {
+
+  private static final byte[] MAGIC = "PAR1".getBytes(StandardCharsets.US_ASCII);
+
+  private static final int ENCODING_PLAIN = 0;
+
+  private static final int ENCODING_RLE = 3;
+
+  private static final int CODEC_UNCOMPRESSED = 0;
+
+  private static final int CODEC_GZIP = 2;
+
+  private static final int PAGE_TYPE_DATA = 0;
+
+  private static final int REPETITION_OPTIONAL = 1;
+
+  private final OutputStream output;
+
+  private final List<ColumnBuffer> columns;
+
+  private final boolean gzip;
+
+  private final int rowGroupRows;
+
+  private final long rowGroupBytes;
+
+  private final List<RowGroupMeta> rowGroups = new ArrayList<>();
+
+  private long position;
+
+  private long totalRows;
+
+  private int bufferedRows;
+
+  /**
+   * Creates a Parquet writer.
+   *
+   * @param columns       result columns
+   * @param output        destination stream
+   * @param gzip          whether to compress pages with the GZIP codec
+   * @param rowGroupRows  maximum rows per row group
+   * @param rowGroupBytes approximate maximum buffered bytes per row group
+   */
+  public FederationParquetExportWriter(
+      final List<FederationQueryModels.SqlColumn> columns,
+      final OutputStream output,
+      final boolean gzip,
+      final int rowGroupRows,
+      final long rowGroupBytes
+  ) {
+    List<String> names = FederationExportWriter.columnNames(columns);
+    List<ColumnBuffer> buffers = new ArrayList<>(columns.size());
+    for (int index = 0; index < columns.size(); index++) {
+      buffers.add(new ColumnBuffer(names.get(index), ColumnKind.of(columns.get(index).jdbcType())));
+    }
+    this.columns = List.copyOf(buffers);
+    this.output = output;
+    this.gzip = gzip;
+    this.rowGroupRows = Math.max(1, rowGroupRows);
+    this.rowGroupBytes = Math.max(1L, rowGroupBytes);
+  }
+
+  @Override
+  public void writeRows(final List<List<Object>> rows) throws IOException {
+    for (List<Object> row : rows) {
+      long buffered = 0L;
+      for (int index = 0; index < columns.size(); index++) {
+        ColumnBuffer column = columns.get(index);
+        column.append(index < row.size() ? row.get(index) : null);
+        buffered += column.bufferedBytes();
+      }
+      bufferedRows++;
+      if (bufferedRows >= rowGroupRows || buffered >= rowGroupBytes) {
+        flushRowGroup();
+      }
+    }
+  }
+
+  @Override
+  public void finish() throws IOException {
+    flushRowGroup();
+    if (position == 0L) {
+      write(MAGIC);
+    }
+    byte[] footer = fileMetaData();
+    write(footer);
+    write(new byte[] {
+        (byte) footer.length, (byte) (footer.length >>> 8), (byte) (footer.length >>> 16), (byte) (footer.length >>> 24)
+    });
+    write(MAGIC);
+    output.flush();
+  }
+
+  private void flushRowGroup() throws IOException {
+    if (bufferedRows == 0) {
+      return;
+    }
+    if (position == 0L) {
+      write(MAGIC);
+    }
+    List<ChunkMeta> chunks = new ArrayList<>(columns.size());
+    long groupBytes = 0L;
+    for (ColumnBuffer column : columns) {
+      byte[] page = column.page();
+      byte[] data = gzip ? gzip(page) : page;
+      byte[] header = pageHeader(page.length, data.length, bufferedRows);
+      long offset = position;
+      write(header);
+      write(data);
+      chunks.add(new ChunkMeta(
+          column.name,
+          column.kind,
+          offset,
+          bufferedRows,
+          header.length + (long) page.length,
+          header.length + (long) data.length
+      ));
+      groupBytes += header.length + (long) page.length;
+      column.reset();
+    }
+    rowGroups.add(new RowGroupMeta(List.copyOf(chunks), groupBytes, bufferedRows));
+    totalRows += bufferedRows;
+    bufferedRows = 0;
+  }
+
+  private void write(final byte[] bytes) throws IOException {
+    output.write(bytes);
+    position += bytes.length;
+  }
+
+  private static byte[] gzip(final byte[] page) throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, page.length / 4));
+    try (GZIPOutputStream stream = new GZIPOutputStream(compressed)) {
+      stream.write(page);
+    }
+    return compressed.toByteArray();
+  }
+
+  private static byte[] pageHeader(final int uncompressedSize, final int compressedSize, final int numValues) {
+    CompactWriter thrift = new CompactWriter();
+    thrift.structBegin();
+    thrift.fieldI32(1, PAGE_TYPE_DATA);
+    thrift.fieldI32(2, uncompressedSize);
+    thrift.fieldI32(3, compressedSize);
+    thrift.fieldStructBegin(5);
+    thrift.fieldI32(1, numValues);
+    thrift.fieldI32(2, ENCODING_PLAIN);
+    thrift.fieldI32(3, ENCODING_RLE);
+    thrift.fieldI32(4, ENCODING_RLE);
+    thrift.structEnd();
+    thrift.structEnd();
+    return thrift.toByteArray();
+  }
+
+  private byte[] fileMetaData() {
+    CompactWriter thrift = new CompactWriter();
+    thrift.structBegin();
+    thrift.fieldI32(1, 1);
+    thrift.fieldList(2, CompactWriter.TYPE_STRUCT, columns.size() + 1);
+    thrift.structBegin();
+    thrift.fieldString(4, "schema");
+    thrift.fieldI32(5, columns.size());
+    thrift.structEnd();
+    for (ColumnBuffer column : columns) {
+      thrift.structBegin();
+      thrift.fieldI32(1, column.kind.physicalType);
+      thrift.fieldI32(3, REPETITION_OPTIONAL);
+      thrift.fieldString(4, column.name);
+      if (column.kind.convertedType >= 0) {
+        thrift.fieldI32(6, column.kind.convertedType);
+      }
+      thrift.structEnd();
+    }
+    thrift.fieldI64(3, totalRows);
+    thrift.fieldList(4, CompactWriter.TYPE_STRUCT, rowGroups.size());
+    for (RowGroupMeta rowGroup : rowGroups) {
+      thrift.structBegin();
+      thrift.fieldList(1, CompactWriter.TYPE_STRUCT, rowGroup.chunks().size());
+      for (ChunkMeta chunk : rowGroup.chunks()) {
+        thrift.structBegin();
+        thrift.fieldI64(2, chunk.offset());
+        thrift.fieldStructBegin(3);
+        thrift.fieldI32(1, chunk.kind().physicalType);
+        thrift.fieldList(2, CompactWriter.TYPE_I32, 2);
+        thrift.i32(ENCODING_PLAIN);
+        thrift.i32(ENCODING_RLE);
+        thrift.fieldList(3, CompactWriter.TYPE_BINARY, 1);
+        thrift.string(chunk.name());
+        thrift.fieldI32(4, gzip ? CODEC_GZIP : CODEC_UNCOMPRESSED);
+        thrift.fieldI64(5, chunk.numValues());
+        thrift.fieldI64(6, chunk.uncompressedSize());
+        thrift.fieldI64(7, chunk.compressedSize());
+        thrift.fieldI64(9, chunk.offset());
+        thrift.structEnd();
+        thrift.structEnd();
+      }
+      thrift.fieldI64(2, rowGroup.totalByteSize());
+      thrift.fieldI64(3, rowGroup.numRows());
+      thrift.structEnd();
+    }
+    thrift.fieldString(6, "simplepoint-dna");
+    thrift.structEnd();
+    return thrift.toByteArray();
+  }
+
+  /**
+   * Column type mapping: Parquet physical type and legacy converted type (-1 for none).
+   */
+  private enum ColumnKind {
+    BOOLEAN(0, -1),
+    INT32(1, -1),
+    DATE(1, 6),
+    INT64(2, -1),
+    TIMESTAMP(2, 9),
+    FLOAT(4, -1),
+    DOUBLE(5, -1),
+    STRING(6, 0),
+    BINARY(6, -1);
+
+    private final int physicalType;
+
+    private final int convertedType;
+
+    ColumnKind(final int physicalType, final int convertedType) {
+      this.physicalType = physicalType;
+      this.convertedType = convertedType;
+    }
+
+    private static ColumnKind of(final Integer jdbcType) {
+      if (jdbcType == null) {
+        return STRING;
+      }
+      return switch (jdbcType) {
+        case Types.BIT, Types.BOOLEAN -> BOOLEAN;
+        case Types.TINYINT, Types.SMALLINT, Types.INTEGER -> INT32;
+        case Types.BIGINT -> INT64;
+        case Types.REAL -> FLOAT;
+        case Types.FLOAT, Types.DOUBLE -> DOUBLE;
+        case Types.DATE -> DATE;
+        case Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE -> TIMESTAMP;
+        case Types.BINARY, Types.VARBINARY, Types.LONGVARBINARY, Types.BLOB -> BINARY;
+        default -> STRING;
+      };
+    }
+  }
+
+  /**
+   * Buffered values of one column in the current row group.
+   */
+  private static final class ColumnBuffer {
+
+    private final String name;
+
+    private final ColumnKind kind;
+
+    private final ByteArrayOutputStream definitionLevels = new ByteArrayOutputStream();
+
+    private final ByteArrayOutputStream values = new ByteArrayOutputStream();
+
+    private int pendingBits;
+
+    private int pendingBitCount;
+
+    private ColumnBuffer(final String name, final ColumnKind kind) {
+      this.name = name;
+      this.kind = kind;
+    }
+
+    private void append(final Object value) {
+      if (value == null) {
+        definitionLevels.write(0);
+        return;
+      }
+      definitionLevels.write(1);
+      switch (kind) {
+        case BOOLEAN -> appendBoolean(toBoolean(value));
+        case INT32 -> writeIntLe(toNumber(value).intValue());
+        case DATE -> writeIntLe(toEpochDay(value));
+        case INT64 -> writeLongLe(toNumber(value).longValue());
+        case TIMESTAMP -> writeLongLe(toEpochMillis(value));
+        case FLOAT -> writeIntLe(Float.floatToIntBits(toNumber(value).floatValue()));
+        case DOUBLE -> writeLongLe(Double.doubleToLongBits(toNumber(value).doubleValue()));
+        case BINARY -> writeBytes(value instanceof byte[] bytes
+            ? bytes : String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        default -> writeBytes(FederationExportWriter.text(value).getBytes(StandardCharsets.UTF_8));
+      }
+    }
+
+    private long bufferedBytes() {
+      return definitionLevels.size() + (long) values.size();
+    }
+
+    /**
+     * Encodes the data page body: length-prefixed RLE definition levels followed by the
+     * PLAIN values of the non-null cells.
+     */
+    private byte[] page() {
+      if (pendingBitCount > 0) {
+        values.write(pendingBits);
+        pendingBits = 0;
+        pendingBitCount = 0;
+      }
+      byte[] levels = encodeDefinitionLevels(definitionLevels.toByteArray());
+      ByteArrayOutputStream page = new ByteArrayOutputStream(4 + levels.length + values.size());
+      page.write(levels.length);
+      page.write(levels.length >>> 8);
+      page.write(levels.length >>> 16);
+      page.write(levels.length >>> 24);
+      page.writeBytes(levels);
+      page.writeBytes(values.toByteArray());
+      return page.toByteArray();
+    }
+
+    private void reset() {
+      definitionLevels.reset();
+      values.reset();
+      pendingBits = 0;
+      pendingBitCount = 0;
+    }
+
+    private void appendBoolean(final boolean value) {
+      if (value) {
+        pendingBits |= 1 << pendingBitCount;
+      }
+      if (++pendingBitCount == 8) {
+        values.write(pendingBits);
+        pendingBits = 0;
+        pendingBitCount = 0;
+      }
+    }
+
+    private void writeIntLe(final int value) {
+      values.write(value);
+      values.write(value >>> 8);
+      values.write(value >>> 16);
+      values.write(value >>> 24);
+    }
+
+    private void writeLongLe(final long value) {
+      writeIntLe((int) value);
+      writeIntLe((int) (value >>> 32));
+    }
+
+    private void writeBytes(final byte[] bytes) {
+      writeIntLe(bytes.length);
+      values.writeBytes(bytes);
+    }
+
+    /**
+     * RLE/bit-packing hybrid with bit width 1, written as RLE runs only.
+     */
+    private static byte[] encodeDefinitionLevels(final byte[] levels) {
+      ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+      int index = 0;
+      while (index < levels.length) {
+        byte level = levels[index];
+        int end = index + 1;
+        while (end < levels.length && levels[end] == level) {
+          end++;
+        }
+        CompactWriter.writeVarint(encoded, (long) (end - index) << 1);
+        encoded.write(level);
+        index = end;
+      }
+      return encoded.toByteArray();
+    }
+  }
+
+  private static boolean toBoolean(final Object value) {
+    if (value instanceof Boolean bool) {
+      return bool;
+    }
+    if (value instanceof Number number) {
+      return number.intValue() != 0;
+    }
+    String text = String.valueOf(value).trim();
+    return "true".equalsIgnoreCase(text) || "1".equals(text);
+  }
+
+  private static Number toNumber(final Object value) {
+    if (value instanceof Number number) {
+      return number;
+    }
+    try {
+      return new BigDecimal(String.valueOf(value).trim());
+    } catch (NumberFormatException ex) {
+      throw new IllegalStateException("导出值无法转换为数值: " + value, ex);
+    }
+  }
+
+  private static int toEpochDay(final Object value) {
+    if (value instanceof java.sql.Date date) {
+      return (int) date.toLocalDate().toEpochDay();
+    }
+    if (value instanceof LocalDate date) {
+      return (int) date.toEpochDay();
+    }
+    if (value instanceof java.util.Date date) {
+      return (int) Math.floorDiv(date.getTime(), 86_400_000L);
+    }
+    if (value instanceof Number number) {
+      return number.intValue();
+    }
+    return (int) LocalDate.parse(String.valueOf(value).trim()).toEpochDay();
+  }
+
+  private static long toEpochMillis(final Object value) {
+    if (value instanceof java.util.Date date) {
+      return date.getTime();
+    }
+    if (value instanceof LocalDateTime dateTime) {
+      return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+    if (value instanceof OffsetDateTime dateTime) {
+      return dateTime.toInstant().toEpochMilli();
+    }
+    if (value instanceof ZonedDateTime dateTime) {
+      return dateTime.toInstant().toEpochMilli();
+    }
+    if (value instanceof Instant instant) {
+      return instant.toEpochMilli();
+    }
+    if (value instanceof Number number) {
+      return number.longValue();
+    }
+    return LocalDateTime.parse(String.valueOf(value).trim().replace(' ', 'T')).toInstant(ZoneOffset.UTC).toEpochMilli();
+  }
+
+  private record ChunkMeta(
+      String name,
+      ColumnKind kind,
+      long offset,
+      long numValues,
+      long uncompressedSize,
+      long compressedSize
+  ) {
+  }
+
+  private record RowGroupMeta(List<ChunkMeta> chunks, long totalByteSize, long numRows) {
+  }
+
+  /**
+   * Minimal Thrift compact-protocol encoder for the Parquet page headers and footer.
+   */
+  private static final class CompactWriter {
+
+    private static final int TYPE_I32 = 5;
+
+    private static final int TYPE_I64 = 6;
+
+    private static final int TYPE_BINARY = 8;
+
+    private static final int TYPE_LIST = 9;
+
+    private static final int TYPE_STRUCT = 12;
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    private final Deque<Integer> fieldIds = new ArrayDeque<>();
+
+    private int lastFieldId;
+
+    private void structBegin() {
+      fieldIds.push(lastFieldId);
+      lastFieldId = 0;
+    }
+
+    private void structEnd() {
+      buffer.write(0);
+      lastFieldId = fieldIds.pop();
+    }
+
+    private void fieldStructBegin(final int id) {
+      fieldHeader(id, TYPE_STRUCT);
+      structBegin();
+    }
+
+    private void fieldI32(final int id, final int value) {
+      fieldHeader(id, TYPE_I32);
+      i32(value);
+    }
+
+    private void fieldI64(final int id, final long value) {
+      fieldHeader(id, TYPE_I64);
+      writeVarint(buffer, (value << 1) ^ (value >> 63));
+    }
+
+    private void fieldString(final int id, final String value) {
+      fieldHeader(id, TYPE_BINARY);
+      string(value);
+    }
+
+    private void fieldList(final int id, final int elementType, final int size) {
+      fieldHeader(id, TYPE_LIST);
+      if (size < 15) {
+        buffer.write(size << 4 | elementType);
+      } else {
+        buffer.write(0xF0 | elementType);
+        writeVarint(buffer, size);
+      }
+    }
+
+    private void i32(final int value) {
+      writeVarint(buffer, ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+    }
+
+    private void string(final String value) {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      writeVarint(buffer, bytes.length);
+      buffer.writeBytes(bytes);
+    }
+
+    private void fieldHeader(final int id, final int type) {
+      int delta = id - lastFieldId;
+      if (delta > 0 && delta <= 15) {
+        buffer.write(delta << 4 | type);
+      } else {
+        buffer.write(type);
+        i32(id);
+      }
+      lastFieldId = id;
+    }
+
+    private byte[] toByteArray() {
+      return buffer.toByteArray();
+    }
+
+    private static void writeVarint(final ByteArrayOutputStream target, final long value) {
+      long remaining = value;
+      while ((remaining & ~0x7FL) != 0L) {
+        target.write((int) ((remaining & 0x7F) | 0x80));
+        remaining >>>= 7;
+      }
+      target.write((int) remaining);
+    }
+  }
+}
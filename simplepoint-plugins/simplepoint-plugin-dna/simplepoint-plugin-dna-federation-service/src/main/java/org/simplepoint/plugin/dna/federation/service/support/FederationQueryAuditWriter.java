@@ -0,0 +1,269 @@
+package org.simplepoint.plugin.dna.federation.service.support;
+
+import static org.simplepoint.plugin.dna.federation.service.support.FederationServiceSupport.trimToNull;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.simplepoint.core.AuthorizationContext;
+import org.simplepoint.core.AuthorizationContextHolder;
+import org.simplepoint.plugin.dna.federation.api.entity.FederationQueryAudit;
+import org.simplepoint.plugin.dna.federation.api.service.FederationQueryAuditService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes federation query audit rows off the query path.
+ *
+ * <p>Audits are handed to a bounded in-memory queue and persisted by a single background writer
+ * in batches through {@link FederationQueryAuditService#create(java.util.Collection)}, so the
+ * audit insert no longer adds to query latency. When the queue is full the overflow policy
+ * decides whether the audit is dropped and counted ({@code drop}) or written on the calling
+ * thread ({@code caller-runs}). On shutdown the queue is drained on the closing thread once the
+ * writer has stopped or the shutdown timeout has passed, and audits submitted from then on are
+ * written on the calling thread.
+ */
+@Component
+public class FederationQueryAuditWriter implements DisposableBean {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FederationQueryAuditWriter.class);
+
+  private static final String ORG_DEPT_ID_ATTRIBUTE = "X-Org-Dept-Id";
+
+  private static final String METRIC_PREFIX = "simplepoint.dna.federation.audit";
+
+  private final FederationQueryAuditService auditService;
+
+  private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+  private final AtomicLong written = new AtomicLong();
+
+  private final AtomicLong dropped = new AtomicLong();
+
+  private final AtomicLong failed = new AtomicLong();
+
+  private final Object startMonitor = new Object();
+
+  private volatile BlockingQueue<FederationQueryAudit> queue;
+
+  private volatile Thread worker;
+
+  private volatile boolean stopping;
+
+  @Value("${simplepoint.dna.federation.audit.async.enabled:true}")
+  private boolean asyncEnabled = true;
+
+  @Value("${simplepoint.dna.federation.audit.async.queue-capacity:10000}")
+  private int queueCapacity = 10_000;
+
+  @Value("${simplepoint.dna.federation.audit.async.batch-size:200}")
+  private int batchSize = 200;
+
+  @Value("${simplepoint.dna.federation.audit.async.poll-interval:1000}")
+  private long pollIntervalMs = 1_000L;
+
+  @Value("${simplepoint.dna.federation.audit.async.overflow-policy:drop}")
+  private String overflowPolicy = "drop";
+
+  @Value("${simplepoint.dna.federation.audit.async.shutdown-timeout:10000}")
+  private long shutdownTimeoutMs = 10_000L;
+
+  /**
+   * Creates the audit writer.
+   *
+   * @param auditService          audit service persisting the rows
+   * @param meterRegistryProvider registry receiving the writer metrics, when available
+   */
+  public FederationQueryAuditWriter(
+      final FederationQueryAuditService auditService,
+      final ObjectProvider<MeterRegistry> meterRegistryProvider
+  ) {
+    this.auditService = auditService;
+    this.meterRegistryProvider = meterRegistryProvider;
+  }
+
+  /**
+   * Queues an audit row for the background writer. The row is written on the calling thread when
+   * asynchronous auditing is disabled or the writer is shutting down.
+   *
+   * @param audit audit row
+   */
+  public void submit(final FederationQueryAudit audit) {
+    if (!asyncEnabled || stopping) {
+      auditService.create(audit);
+      return;
+    }
+    applyOwnership(audit);
+    if (ensureStarted().offer(audit)) {
+      if (stopping) {
+        // destroy() may already have drained the queue; make sure this audit is not left behind
+        drainRemaining();
+      }
+      return;
+    }
+    if ("caller-runs".equals(overflowPolicy.trim().toLowerCase(Locale.ROOT))) {
+      auditService.create(audit);
+      return;
+    }
+    long count = dropped.incrementAndGet();
+    if (count == 1 || count % 1_000 == 0) {
+      LOGGER.warn("联邦查询审计队列已满 (容量 {})，已累计丢弃 {} 条审计记录", queueCapacity, count);
+    }
+  }
+
+  /**
+   * Returns a snapshot of the writer counters.
+   *
+   * @return writer statistics
+   */
+  public Stats stats() {
+    BlockingQueue<FederationQueryAudit> current = queue;
+    return new Stats(current == null ? 0 : current.size(), written.get(), dropped.get(), failed.get());
+  }
+
+  /**
+   * Stops accepting queued audits and flushes the remaining ones before shutdown.
+   */
+  @Override
+  public void destroy() {
+    stopping = true;
+    Thread current = worker;
+    if (current != null) {
+      try {
+        current.join(Math.max(1L, shutdownTimeoutMs));
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      if (current.isAlive()) {
+        LOGGER.warn("联邦查询审计写入线程未在 {}ms 内结束，在当前线程写入剩余 {} 条审计记录", shutdownTimeoutMs, stats().queued());
+      }
+    }
+    drainRemaining();
+  }
+
+  private BlockingQueue<FederationQueryAudit> ensureStarted() {
+    BlockingQueue<FederationQueryAudit> current = queue;
+    if (current != null) {
+      return current;
+    }
+    synchronized (startMonitor) {
+      if (queue == null) {
+        BlockingQueue<FederationQueryAudit> created = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        Thread thread = new Thread(() -> drain(created), "dna-federation-audit-writer");
+        thread.setDaemon(true);
+        queue = created;
+        worker = thread;
+        bindMetrics(created);
+        thread.start();
+      }
+      return queue;
+    }
+  }
+
+  private void drain(final BlockingQueue<FederationQueryAudit> source) {
+    int maxBatch = Math.max(1, batchSize);
+    List<FederationQueryAudit> batch = new ArrayList<>(maxBatch);
+    while (!stopping || !source.isEmpty()) {
+      try {
+        FederationQueryAudit first = source.poll(Math.max(1L, pollIntervalMs), TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      source.drainTo(batch, maxBatch - 1);
+      write(batch);
+      batch.clear();
+    }
+  }
+
+  private void drainRemaining() {
+    BlockingQueue<FederationQueryAudit> current = queue;
+    if (current == null) {
+      return;
+    }
+    List<FederationQueryAudit> batch = new ArrayList<>();
+    while (current.drainTo(batch, Math.max(1, batchSize)) > 0) {
+      write(batch);
+      batch.clear();
+    }
+  }
+
+  private void write(final List<FederationQueryAudit> batch) {
+    try {
+      auditService.create(new ArrayList<>(batch));
+      written.addAndGet(batch.size());
+      return;
+    } catch (RuntimeException ex) {
+      LOGGER.warn("联邦查询审计批量写入失败，改为逐条写入: {}", ex.getMessage());
+    }
+    for (FederationQueryAudit audit : batch) {
+      try {
+        auditService.create(audit);
+        written.incrementAndGet();
+      } catch (RuntimeException ex) {
+        failed.incrementAndGet();
+        LOGGER.warn("联邦查询审计写入失败: {}", ex.getMessage());
+      }
+    }
+  }
+
+  private void bindMetrics(final BlockingQueue<FederationQueryAudit> created) {
+    MeterRegistry registry = meterRegistryProvider == null ? null : meterRegistryProvider.getIfAvailable();
+    if (registry == null) {
+      return;
+    }
+    Gauge.builder(METRIC_PREFIX + ".queue.depth", created, BlockingQueue::size)
+        .description("联邦查询审计待写入条数")
+        .register(registry);
+    FunctionCounter.builder(METRIC_PREFIX + ".records", written, AtomicLong::doubleValue)
+        .tag("outcome", "written")
+        .register(registry);
+    FunctionCounter.builder(METRIC_PREFIX + ".records", dropped, AtomicLong::doubleValue)
+        .tag("outcome", "dropped")
+        .register(registry);
+    FunctionCounter.builder(METRIC_PREFIX + ".records", failed, AtomicLong::doubleValue)
+        .tag("outcome", "failed")
+        .register(registry);
+  }
+
+  /**
+   * Copies the request's ownership onto the audit row, since the background writer runs without
+   * the caller's authorization context.
+   */
+  private static void applyOwnership(final FederationQueryAudit audit) {
+    AuthorizationContext context = AuthorizationContextHolder.getContext();
+    if (context == null) {
+      return;
+    }
+    String userId = trimToNull(context.getUserId());
+    audit.setCreatedBy(userId);
+    audit.setUpdatedBy(userId);
+    audit.setCreateOrgDeptId(trimToNull(context.getAttribute(ORG_DEPT_ID_ATTRIBUTE)));
+  }
+
+  /**
+   * Audit writer counters.
+   *
+   * @param queued  audits waiting to be written
+   * @param written audits persisted
+   * @param dropped audits dropped because the queue was full
+   * @param failed  audits whose insert failed
+   */
+  public record Stats(int queued, long written, long dropped, long failed) {
+  }
+}
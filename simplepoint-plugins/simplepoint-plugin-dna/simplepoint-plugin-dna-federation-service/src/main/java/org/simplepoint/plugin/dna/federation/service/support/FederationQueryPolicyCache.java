@@ -0,0 +1,172 @@
+package org.simplepoint.plugin.dna.federation.service.support;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.simplepoint.plugin.dna.federation.api.entity.FederationQueryPolicy;
+import org.simplepoint.plugin.dna.federation.api.repository.FederationQueryPolicyRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Per-catalog snapshot of the effective federation query policy.
+ *
+ * <p>The first query against a catalog loads its active policies, picks the effective one (most
+ * recently updated, then created, then by code) and compiles it into an immutable
+ * {@link CompiledPolicy}; later queries reuse the snapshot without touching the database. Policy
+ * writes invalidate the affected catalogs once their transaction commits, and snapshots also
+ * expire after a TTL so instances that did not see the write converge on their own.
+ */
+@Component
+public class FederationQueryPolicyCache {
+
+  private static final Comparator<FederationQueryPolicy> EFFECTIVE_ORDER = Comparator.comparing(
+      FederationQueryPolicy::getUpdatedAt,
+      Comparator.nullsLast(Comparator.reverseOrder())
+  ).thenComparing(
+      FederationQueryPolicy::getCreatedAt,
+      Comparator.nullsLast(Comparator.reverseOrder())
+  ).thenComparing(FederationQueryPolicy::getCode, Comparator.nullsLast(String::compareTo));
+
+  private final FederationQueryPolicyRepository policyRepository;
+
+  private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+  @Value("${simplepoint.dna.federation.policy-cache.ttl-seconds:60}")
+  private long ttlSeconds = 60L;
+
+  /**
+   * Creates a policy cache.
+   *
+   * @param policyRepository query policy repository
+   */
+  public FederationQueryPolicyCache(final FederationQueryPolicyRepository policyRepository) {
+    this.policyRepository = policyRepository;
+  }
+
+  /**
+   * Returns the compiled effective policy of a catalog.
+   *
+   * @param catalogId datasource id
+   * @return compiled policy, empty when the catalog has no enabled policy
+   */
+  public Optional<CompiledPolicy> resolve(final String catalogId) {
+    long nowMillis = System.currentTimeMillis();
+    Snapshot snapshot = snapshots.get(catalogId);
+    if (snapshot == null || snapshot.expired(nowMillis)) {
+      snapshot = snapshots.compute(catalogId, (key, current) ->
+          current != null && !current.expired(nowMillis) ? current : load(key, nowMillis));
+    }
+    return Optional.ofNullable(snapshot.policy());
+  }
+
+  /**
+   * Drops the snapshots of the given catalogs now and again after the current transaction
+   * commits, so a concurrent query cannot re-cache the pre-commit policy.
+   *
+   * @param catalogIds affected catalog ids, all catalogs when null or empty
+   */
+  public void invalidate(final Collection<String> catalogIds) {
+    evict(catalogIds);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          evict(catalogIds);
+        }
+      });
+    }
+  }
+
+  /**
+   * Returns the number of cached catalog snapshots.
+   *
+   * @return snapshot count
+   */
+  public int size() {
+    return snapshots.size();
+  }
+
+  private void evict(final Collection<String> catalogIds) {
+    if (catalogIds == null || catalogIds.isEmpty()) {
+      snapshots.clear();
+      return;
+    }
+    catalogIds.stream().filter(Objects::nonNull).forEach(snapshots::remove);
+  }
+
+  private Snapshot load(final String catalogId, final long nowMillis) {
+    List<FederationQueryPolicy> policies = policyRepository.findAllActiveByCatalogId(catalogId);
+    CompiledPolicy compiled = policies == null ? null : policies.stream()
+        .filter(candidate -> Boolean.TRUE.equals(candidate.getEnabled()))
+        .sorted(EFFECTIVE_ORDER)
+        .findFirst()
+        .map(FederationQueryPolicyCache::compile)
+        .orElse(null);
+    long ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+    return new Snapshot(compiled, ttlSeconds <= 0 ? Long.MAX_VALUE : nowMillis + ttlMillis);
+  }
+
+  private static CompiledPolicy compile(final FederationQueryPolicy policy) {
+    String code = FederationServiceSupport.trimToNull(policy.getCode());
+    String violation = null;
+    if (!Boolean.TRUE.equals(policy.getAllowSqlConsole())) {
+      violation = "当前查询策略未开放 SQL 控制台: " + policy.getCode();
+    } else if (policy.getMaxRows() == null || policy.getMaxRows() < 1) {
+      violation = "查询策略未配置有效的最大返回行数: " + policy.getCode();
+    } else if (policy.getTimeoutMs() == null || policy.getTimeoutMs() < 1) {
+      violation = "查询策略未配置有效的超时时间: " + policy.getCode();
+    } else if (code == null) {
+      violation = "查询策略编码不能为空";
+    }
+    return new CompiledPolicy(
+        code,
+        policy.getMaxRows() == null ? 0 : policy.getMaxRows(),
+        policy.getTimeoutMs() == null ? 0 : policy.getTimeoutMs(),
+        Boolean.TRUE.equals(policy.getAllowCrossSourceJoin()),
+        violation
+    );
+  }
+
+  /**
+   * Effective query policy of a catalog, validated once when the snapshot is loaded.
+   *
+   * @param code                 policy code
+   * @param maxRows              maximum rows a query may return
+   * @param timeoutMs            query timeout in milliseconds
+   * @param allowCrossSourceJoin whether joins across datasources are allowed
+   * @param violation            reason the policy rejects every query, null when usable
+   */
+  public record CompiledPolicy(
+      String code,
+      int maxRows,
+      int timeoutMs,
+      boolean allowCrossSourceJoin,
+      String violation
+  ) {
+
+    /**
+     * Caps a client-requested row limit by the policy limit.
+     *
+     * @param requestedMaxRows row limit requested by the client, null or non-positive for none
+     * @return effective row limit
+     */
+    public int effectiveMaxRows(final Integer requestedMaxRows) {
+      return requestedMaxRows != null && requestedMaxRows > 0 ? Math.min(maxRows, requestedMaxRows) : maxRows;
+    }
+  }
+
+  private record Snapshot(CompiledPolicy policy, long expiresAtMillis) {
+
+    private boolean expired(final long nowMillis) {
+      return expiresAtMillis < nowMillis;
+    }
+  }
+}
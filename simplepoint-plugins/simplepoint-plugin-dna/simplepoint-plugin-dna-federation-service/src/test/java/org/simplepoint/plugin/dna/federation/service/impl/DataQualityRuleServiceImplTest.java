@@ -3,6 +3,7 @@ package org.simplepoint.plugin.dna.federation.service.impl;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.simplepoint.plugin.dna.federation.service.support.BaseServiceSchemaTestSupport.stubBaseServiceSchema;
@@ -13,6 +14,7 @@ import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.simplepoint.api.security.service.DetailsProviderService;
@@ -304,6 +306,33 @@ class DataQualityRuleServiceImplTest {
     assertThat(entity.getEnabled()).isFalse();
   }
 
+  @Test
+  void modifyByIdKeepsStoredWatermarkAndResetsItWhenColumnChanges() {
+    DataQualityRule current = validNotNullRule();
+    current.setId("r1");
+    current.setIncrementalColumn("dt");
+    current.setLastWatermark("2026-10-01");
+    when(repository.findActiveById("r1")).thenReturn(Optional.of(current));
+    when(repository.findActiveByCode(current.getCode())).thenReturn(Optional.of(current));
+    when(dataSourceService.findActiveById("catalog-1")).thenReturn(Optional.of(enabledDs("catalog-1", "MySQL")));
+    when(repository.findById("r1")).thenReturn(Optional.of(current));
+    when(repository.updateById(any(DataQualityRule.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+    DataQualityRule sameColumn = validNotNullRule();
+    sameColumn.setId("r1");
+    sameColumn.setIncrementalColumn(" dt ");
+    sameColumn.setLastWatermark("2099-01-01");
+    service().modifyById(sameColumn);
+    assertThat(sameColumn.getLastWatermark()).isEqualTo("2026-10-01");
+
+    DataQualityRule otherColumn = validNotNullRule();
+    otherColumn.setId("r1");
+    otherColumn.setIncrementalColumn("updated_at");
+    otherColumn.setLastWatermark("2099-01-01");
+    service().modifyById(otherColumn);
+    assertThat(otherColumn.getLastWatermark()).isNull();
+  }
+
   // ---- executeCheck ----
 
   @Test
@@ -437,6 +466,71 @@ class DataQualityRuleServiceImplTest {
     assertThat(result.getLastRunStatus()).isEqualTo("FAILED");
   }
 
+  @Test
+  void executeChecksFusesRulesOnSameTableIntoOneScan() {
+    DataQualityRule notNull = validNotNullRule();
+    notNull.setId("r1");
+    DataQualityRule rowCount = rowCountRule("10,100");
+    rowCount.setId("r2");
+    when(repository.findActiveById("r1")).thenReturn(Optional.of(notNull));
+    when(repository.findActiveById("r2")).thenReturn(Optional.of(rowCount));
+    when(dataSourceService.findActiveById("catalog-1")).thenReturn(Optional.of(enabledDs("catalog-1", "MySQL")));
+    when(sqlConsoleService.execute(any())).thenReturn(queryResult(List.of("0", "5")));
+    when(repository.findById("r1")).thenReturn(Optional.of(notNull));
+    when(repository.findById("r2")).thenReturn(Optional.of(rowCount));
+    when(repository.updateById(notNull)).thenReturn(notNull);
+    when(repository.updateById(rowCount)).thenReturn(rowCount);
+
+    List<DataQualityRule> result = service().executeChecks(List.of("r1", "r2"));
+
+    ArgumentCaptor<FederationQueryModels.SqlConsoleRequest> request =
+        ArgumentCaptor.forClass(FederationQueryModels.SqlConsoleRequest.class);
+    verify(sqlConsoleService, times(1)).execute(request.capture());
+    assertThat(request.getValue().sql()).isEqualTo(
+        "SELECT COUNT(CASE WHEN order_id IS NULL THEN 1 END) AS c0, COUNT(*) AS c1 FROM orders");
+    assertThat(result).extracting(DataQualityRule::getLastRunStatus).containsExactly("PASSED", "FAILED");
+  }
+
+  @Test
+  void executeScheduledChecksAdvancesIncrementalWatermark() {
+    DataQualityRule rule = validNotNullRule();
+    rule.setId("r1");
+    rule.setIncrementalColumn("dt");
+    rule.setLastWatermark("2026-10-01");
+    when(repository.findAllEnabled()).thenReturn(List.of(rule));
+    when(dataSourceService.findActiveById("catalog-1")).thenReturn(Optional.of(enabledDs("catalog-1", "MySQL")));
+    when(sqlConsoleService.execute(any())).thenReturn(queryResult(List.of("0", "2026-10-02")));
+    when(repository.findById("r1")).thenReturn(Optional.of(rule));
+    when(repository.updateById(rule)).thenReturn(rule);
+
+    service().executeScheduledChecks();
+
+    ArgumentCaptor<FederationQueryModels.SqlConsoleRequest> request =
+        ArgumentCaptor.forClass(FederationQueryModels.SqlConsoleRequest.class);
+    verify(sqlConsoleService).execute(request.capture());
+    assertThat(request.getValue().sql()).endsWith("WHERE dt > '2026-10-01'");
+    assertThat(rule.getLastRunStatus()).isEqualTo("PASSED");
+    assertThat(rule.getLastWatermark()).isEqualTo("2026-10-02");
+  }
+
+  @Test
+  void executeScheduledChecksKeepsWatermarkWhenCheckFails() {
+    DataQualityRule rule = validNotNullRule();
+    rule.setId("r1");
+    rule.setIncrementalColumn("dt");
+    rule.setLastWatermark("2026-10-01");
+    when(repository.findAllEnabled()).thenReturn(List.of(rule));
+    when(dataSourceService.findActiveById("catalog-1")).thenReturn(Optional.of(enabledDs("catalog-1", "MySQL")));
+    when(sqlConsoleService.execute(any())).thenReturn(queryResult(List.of("3", "2026-10-02")));
+    when(repository.findById("r1")).thenReturn(Optional.of(rule));
+    when(repository.updateById(rule)).thenReturn(rule);
+
+    service().executeScheduledChecks();
+
+    assertThat(rule.getLastRunStatus()).isEqualTo("FAILED");
+    assertThat(rule.getLastWatermark()).isEqualTo("2026-10-01");
+  }
+
   // ---- helpers ----
 
   private DataQualityRule validCustomSqlRule() {
@@ -485,7 +579,11 @@ class DataQualityRuleServiceImplTest {
   }
 
   private static FederationQueryModels.SqlQueryResult queryResult(final String value) {
-    List<List<Object>> rows = List.of(List.of(value));
+    return queryResult(List.of(value));
+  }
+
+  private static FederationQueryModels.SqlQueryResult queryResult(final List<Object> row) {
+    List<List<Object>> rows = List.of(row);
     return new FederationQueryModels.SqlQueryResult(
         null, null, 1000, 30000, false, false,
         List.of(), List.of(new FederationQueryModels.SqlColumn("cnt", "BIGINT")),
@@ -538,7 +538,6 @@ class FederationJdbcDriverServiceImplTest {
     }
   }
 
-
   private FederationJdbcDriverServiceImpl service() {
     return new FederationJdbcDriverServiceImpl(
         dataSourceService,
@@ -0,0 +1,457 @@
+package org.simplepoint.plugin.dna.federation.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.simplepoint.plugin.dna.federation.api.service.FederationQueryExportService;
+import org.simplepoint.plugin.dna.federation.api.service.FederationSqlConsoleService;
+import org.simplepoint.plugin.dna.federation.api.vo.FederationQueryModels;
+import org.simplepoint.plugin.dna.federation.service.support.FederationExportProgressRegistry;
+import org.simplepoint.plugin.storage.api.entity.ObjectStorageObject;
+import org.simplepoint.plugin.storage.api.model.ObjectStorageUploadRequest;
+import org.simplepoint.plugin.storage.client.service.ObjectStorageRemoteService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.io.Resource;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+class FederationQueryExportServiceImplTest {
+
+  private static final List<List<Object>> ROWS = List.of(
+      List.of(1, "Alice"),
+      Arrays.asList(2, null),
+      List.of(3, "Bob, Jr."),
+      List.of(4, "Carol"),
+      List.of(5, "Dave")
+  );
+
+  @AfterEach
+  void clearSecurityContext() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  void streamsCsvAndResumesFromRowWithoutHeader() throws Exception {
+    FederationQueryExportServiceImpl service = service(null);
+
+    ByteArrayOutputStream full = new ByteArrayOutputStream();
+    FederationQueryModels.SqlExportProgress progress;
+    try (FederationQueryExportService.ExportStream export = service.openStream(request("CSV", null, 0L))) {
+      assertEquals("export.csv", export.fileName());
+      progress = export.writeTo(full);
+    }
+    ByteArrayOutputStream resumed = new ByteArrayOutputStream();
+    try (FederationQueryExportService.ExportStream export = service.openStream(request("CSV", null, 3L))) {
+      export.writeTo(resumed);
+    }
+
+    assertEquals(
+        "\uFEFFid,name\n1,Alice\n2,\n3,\"Bob, Jr.\"\n4,Carol\n5,Dave\n",
+        full.toString(StandardCharsets.UTF_8)
+    );
+    assertEquals("4,Carol\n5,Dave\n", resumed.toString(StandardCharsets.UTF_8));
+    assertEquals("COMPLETED", progress.status());
+    assertEquals(5L, progress.rowsWritten());
+    assertEquals(full.size(), progress.bytesWritten());
+    assertEquals(progress.status(), service.progress(progress.exportId()).orElseThrow().status());
+  }
+
+  @Test
+  void gzipCompressesTextExports() throws Exception {
+    FederationQueryExportServiceImpl service = service(null);
+
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (FederationQueryExportService.ExportStream export = service.openStream(request("JSON", "GZIP", null))) {
+      assertEquals("export.json.gz", export.fileName());
+      assertEquals("application/gzip", export.contentType());
+      export.writeTo(compressed);
+    }
+
+    try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+      String json = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+      assertEquals(5, new ObjectMapper().readTree(json).size());
+      assertEquals("Bob, Jr.", new ObjectMapper().readTree(json).get(2).get("name").asText());
+    }
+  }
+
+  @Test
+  void rejectsRowResumeForFormatsThatCannotBeAppended() {
+    FederationQueryExportServiceImpl service = service(null);
+
+    assertThrows(IllegalArgumentException.class, () -> service.openStream(request("PARQUET", null, 2L)));
+    assertThrows(IllegalArgumentException.class, () -> service.openStream(request("XLSX", null, null)));
+  }
+
+  @Test
+  void uploadsPartsToObjectStorageAndResumesFromPart() throws Exception {
+    ObjectStorageRemoteService storage = mock(ObjectStorageRemoteService.class);
+    List<String> uploads = new ArrayList<>();
+    List<byte[]> contents = new ArrayList<>();
+    when(storage.upload(any(Resource.class), anyString(), anyString(), anyLong(), any(ObjectStorageUploadRequest.class)))
+        .thenAnswer(invocation -> {
+          ObjectStorageUploadRequest upload = invocation.getArgument(4);
+          uploads.add(upload.getDirectory() + "/" + invocation.getArgument(1));
+          contents.add(invocation.<Resource>getArgument(0).getContentAsByteArray());
+          ObjectStorageObject stored = new ObjectStorageObject();
+          stored.setId("obj-" + uploads.size());
+          return stored;
+        });
+    FederationQueryExportServiceImpl service = service(storage);
+    authenticate("alice");
+
+    FederationQueryModels.SqlExportProgress first = service.exportToStorage(storageRequest(2L, null, "exp-1"));
+    final FederationQueryModels.SqlExportProgress resumed = service.exportToStorage(storageRequest(2L, 2, "exp-1"));
+
+    String directory = ownerDirectory("alice") + "/exp-1";
+    assertEquals(
+        List.of(
+            directory + "/part-00000.parquet",
+            directory + "/part-00001.parquet",
+            directory + "/part-00002.parquet",
+            directory + "/part-00002.parquet"
+        ),
+        uploads
+    );
+    assertEquals(3, first.partsCompleted());
+    assertEquals(List.of("obj-1", "obj-2", "obj-3"), first.objectIds());
+    assertEquals(5L, first.rowsWritten());
+    assertEquals(3, resumed.partsCompleted());
+    assertEquals(1L, resumed.rowsWritten());
+    assertEquals(4L, resumed.startRow());
+    List<List<Object>> exported = new ArrayList<>();
+    for (byte[] content : contents.subList(0, 3)) {
+      ParquetFile parquet = ParquetFile.read(content);
+      assertEquals(List.of("id", "name"), parquet.columnNames());
+      assertEquals(List.of(1, 6), parquet.physicalTypes());
+      assertEquals(Arrays.asList(null, 0), parquet.convertedTypes());
+      exported.addAll(parquet.rows());
+    }
+    assertEquals(ROWS, exported);
+    assertEquals(ROWS.subList(4, 5), ParquetFile.read(contents.get(3)).rows());
+  }
+
+  @Test
+  void scopesExportIdsToTheSubmittingUser() {
+    ObjectStorageRemoteService storage = mock(ObjectStorageRemoteService.class);
+    List<String> directories = new ArrayList<>();
+    when(storage.upload(any(Resource.class), anyString(), anyString(), anyLong(), any(ObjectStorageUploadRequest.class)))
+        .thenAnswer(invocation -> {
+          directories.add(invocation.<ObjectStorageUploadRequest>getArgument(4).getDirectory());
+          return new ObjectStorageObject();
+        });
+    FederationQueryExportServiceImpl service = service(storage);
+
+    authenticate("alice");
+    service.exportToStorage(storageRequest(10L, null, "shared"));
+    assertTrue(service.progress("shared").isPresent());
+
+    authenticate("bob");
+    assertTrue(service.progress("shared").isEmpty());
+    assertThrows(IllegalStateException.class, () -> service.exportToStorage(storageRequest(10L, null, "shared")));
+    assertThrows(IllegalStateException.class, () -> service.openStream(streamRequest("shared")));
+    service.exportToStorage(storageRequest(10L, null, "bobs"));
+
+    assertEquals(2, directories.size());
+    assertEquals(ownerDirectory("alice") + "/shared", directories.get(0));
+    assertEquals(ownerDirectory("bob") + "/bobs", directories.get(1));
+  }
+
+  @Test
+  void rejectsSecondExportWithRunningIdAndReleasesIdWhenStreamIsClosed() throws Exception {
+    FederationQueryExportServiceImpl service = service(null);
+    authenticate("alice");
+
+    FederationQueryExportService.ExportStream running = service.openStream(streamRequest("exp-2"));
+    assertEquals("RUNNING", service.progress("exp-2").orElseThrow().status());
+    assertThrows(IllegalStateException.class, () -> service.openStream(streamRequest("exp-2")));
+
+    running.close();
+    assertEquals("FAILED", service.progress("exp-2").orElseThrow().status());
+    try (FederationQueryExportService.ExportStream resumed = service.openStream(streamRequest("exp-2"))) {
+      resumed.writeTo(new ByteArrayOutputStream());
+    }
+    assertEquals("COMPLETED", service.progress("exp-2").orElseThrow().status());
+  }
+
+  @Test
+  void storageExportFailsWithoutObjectStorageClient() {
+    FederationQueryExportServiceImpl service = service(null);
+
+    assertThrows(IllegalStateException.class, () -> service.exportToStorage(storageRequest(2L, null, null)));
+  }
+
+  private static String ownerDirectory(final String username) {
+    return "dna/exports/" + UUID.nameUUIDFromBytes(username.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static void authenticate(final String username) {
+    SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(username, null));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static FederationQueryExportServiceImpl service(final ObjectStorageRemoteService storage) {
+    ObjectProvider<ObjectStorageRemoteService> provider = mock(ObjectProvider.class);
+    when(provider.getIfAvailable()).thenReturn(storage);
+    return new FederationQueryExportServiceImpl(
+        new InMemorySqlConsoleService(),
+        new FederationExportProgressRegistry(),
+        new ObjectMapper(),
+        provider
+    );
+  }
+
+  private static FederationQueryModels.SqlExportRequest request(
+      final String format,
+      final String compression,
+      final Long startRow
+  ) {
+    return new FederationQueryModels.SqlExportRequest(
+        "cat1", "select id, name from t order by id", null, null, null, format, compression, startRow, null, null, null
+    );
+  }
+
+  private static FederationQueryModels.SqlExportRequest streamRequest(final String exportId) {
+    return new FederationQueryModels.SqlExportRequest(
+        "cat1", "select id, name from t order by id", null, null, null, "CSV", null, null, null, null, exportId
+    );
+  }
+
+  private static FederationQueryModels.SqlExportRequest storageRequest(
+      final Long partRows,
+      final Integer startPart,
+      final String exportId
+  ) {
+    return new FederationQueryModels.SqlExportRequest(
+        "cat1", "select id, name from t order by id", null, null, null, "PARQUET", null, null, partRows, startPart,
+        exportId
+    );
+  }
+
+  /**
+   * Console service whose cursor is the default in-memory slicing over a fixed result.
+   */
+  private static final class InMemorySqlConsoleService implements FederationSqlConsoleService {
+
+    @Override
+    public FederationQueryModels.SqlExplainResult explain(final FederationQueryModels.SqlConsoleRequest request) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public FederationQueryModels.SqlQueryResult execute(final FederationQueryModels.SqlConsoleRequest request) {
+      return new FederationQueryModels.SqlQueryResult(
+          request.catalogCode(),
+          "policy1",
+          1_000,
+          5_000,
+          false,
+          false,
+          List.of("ds1"),
+          List.of(
+              new FederationQueryModels.SqlColumn("id", "INTEGER", java.sql.Types.INTEGER),
+              new FederationQueryModels.SqlColumn("name", "VARCHAR", java.sql.Types.VARCHAR)
+          ),
+          ROWS,
+          false,
+          ROWS.size(),
+          1L,
+          "plan",
+          List.of(),
+          "summary"
+      );
+    }
+
+    @Override
+    public FederationQueryModels.SqlUpdateResult executeUpdate(final FederationQueryModels.SqlConsoleRequest request) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public FederationQueryModels.SqlUpdateResult executeDdl(final FederationQueryModels.SqlConsoleRequest request) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public FederationQueryModels.SqlExecuteResult smartExecute(final FederationQueryModels.SqlConsoleRequest request) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /**
+   * Reads back the subset of Parquet the export writer produces: one PLAIN data page per column
+   * chunk, optional columns, INT32 and BYTE_ARRAY values, optionally GZIP-compressed pages.
+   */
+  private record ParquetFile(
+      List<String> columnNames,
+      List<Integer> physicalTypes,
+      List<Integer> convertedTypes,
+      List<List<Object>> rows
+  ) {
+
+    private static ParquetFile read(final byte[] content) throws Exception {
+      assertArrayEquals("PAR1".getBytes(StandardCharsets.US_ASCII), Arrays.copyOfRange(content, 0, 4));
+      assertArrayEquals(
+          "PAR1".getBytes(StandardCharsets.US_ASCII),
+          Arrays.copyOfRange(content, content.length - 4, content.length)
+      );
+      ByteBuffer buffer = ByteBuffer.wrap(content).order(ByteOrder.LITTLE_ENDIAN);
+      int footerLength = buffer.getInt(content.length - 8);
+      buffer.position(content.length - 8 - footerLength);
+      Map<Integer, Object> footer = CompactReader.struct(buffer);
+      List<String> names = new ArrayList<>();
+      List<Integer> types = new ArrayList<>();
+      List<Integer> converted = new ArrayList<>();
+      List<Map<Integer, Object>> schema = CompactReader.structs(footer.get(2));
+      for (Map<Integer, Object> element : schema.subList(1, schema.size())) {
+        names.add(new String((byte[]) element.get(4), StandardCharsets.UTF_8));
+        types.add((Integer) element.get(1));
+        converted.add((Integer) element.get(6));
+      }
+      List<List<Object>> rows = new ArrayList<>();
+      for (Map<Integer, Object> rowGroup : CompactReader.structs(footer.get(4))) {
+        int numRows = ((Long) rowGroup.get(3)).intValue();
+        List<List<Object>> columns = new ArrayList<>();
+        List<Map<Integer, Object>> chunks = CompactReader.structs(rowGroup.get(1));
+        for (int index = 0; index < chunks.size(); index++) {
+          @SuppressWarnings("unchecked")
+          Map<Integer, Object> meta = (Map<Integer, Object>) chunks.get(index).get(3);
+          buffer.position(((Long) meta.get(9)).intValue());
+          Map<Integer, Object> pageHeader = CompactReader.struct(buffer);
+          byte[] page = new byte[(Integer) pageHeader.get(3)];
+          buffer.get(page);
+          if ((Integer) meta.get(4) == 2) {
+            try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(page))) {
+              page = input.readAllBytes();
+            }
+          }
+          columns.add(decodePage(page, types.get(index), numRows));
+        }
+        for (int row = 0; row < numRows; row++) {
+          List<Object> values = new ArrayList<>();
+          for (List<Object> column : columns) {
+            values.add(column.get(row));
+          }
+          rows.add(values);
+        }
+      }
+      return new ParquetFile(names, types, converted, rows);
+    }
+
+    private static List<Object> decodePage(final byte[] page, final int physicalType, final int numRows) {
+      ByteBuffer buffer = ByteBuffer.wrap(page).order(ByteOrder.LITTLE_ENDIAN);
+      int levelsEnd = buffer.getInt() + buffer.position();
+      List<Boolean> defined = new ArrayList<>();
+      while (buffer.position() < levelsEnd) {
+        long header = CompactReader.varint(buffer);
+        assertEquals(0L, header & 1L, "writer only emits RLE runs");
+        boolean present = buffer.get() == 1;
+        for (long run = 0; run < header >>> 1; run++) {
+          defined.add(present);
+        }
+      }
+      assertEquals(numRows, defined.size());
+      List<Object> values = new ArrayList<>();
+      for (boolean present : defined) {
+        if (!present) {
+          values.add(null);
+        } else if (physicalType == 1) {
+          values.add(buffer.getInt());
+        } else {
+          byte[] bytes = new byte[buffer.getInt()];
+          buffer.get(bytes);
+          values.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+      }
+      return values;
+    }
+  }
+
+  /**
+   * Thrift compact-protocol decoder limited to the field types used by Parquet metadata.
+   */
+  private static final class CompactReader {
+
+    private static Map<Integer, Object> struct(final ByteBuffer buffer) {
+      Map<Integer, Object> fields = new HashMap<>();
+      int fieldId = 0;
+      while (true) {
+        int header = buffer.get() & 0xFF;
+        if (header == 0) {
+          return fields;
+        }
+        int delta = header >>> 4;
+        fieldId = delta == 0 ? (int) zigzag(varint(buffer)) : fieldId + delta;
+        fields.put(fieldId, value(buffer, header & 0x0F));
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<Integer, Object>> structs(final Object list) {
+      return (List<Map<Integer, Object>>) list;
+    }
+
+    private static Object value(final ByteBuffer buffer, final int type) {
+      return switch (type) {
+        case 1 -> Boolean.TRUE;
+        case 2 -> Boolean.FALSE;
+        case 5 -> (int) zigzag(varint(buffer));
+        case 6 -> zigzag(varint(buffer));
+        case 8 -> {
+          byte[] bytes = new byte[(int) varint(buffer)];
+          buffer.get(bytes);
+          yield bytes;
+        }
+        case 9 -> {
+          int header = buffer.get() & 0xFF;
+          int size = header >>> 4 == 15 ? (int) varint(buffer) : header >>> 4;
+          List<Object> elements = new ArrayList<>(size);
+          for (int index = 0; index < size; index++) {
+            elements.add(value(buffer, header & 0x0F));
+          }
+          yield elements;
+        }
+        case 12 -> struct(buffer);
+        default -> throw new IllegalStateException("unexpected thrift type " + type);
+      };
+    }
+
+    private static long varint(final ByteBuffer buffer) {
+      long result = 0L;
+      int shift = 0;
+      while (true) {
+        int next = buffer.get() & 0xFF;
+        result |= (long) (next & 0x7F) << shift;
+        if ((next & 0x80) == 0) {
+          return result;
+        }
+        shift += 7;
+      }
+    }
+
+    private static long zigzag(final long value) {
+      return (value >>> 1) ^ -(value & 1L);
+    }
+  }
+}
@@ -20,6 +20,7 @@ import org.simplepoint.plugin.dna.core.api.entity.JdbcDataSourceDefinition;
 import org.simplepoint.plugin.dna.core.api.service.JdbcDataSourceDefinitionService;
 import org.simplepoint.plugin.dna.federation.api.entity.FederationQueryPolicy;
 import org.simplepoint.plugin.dna.federation.api.repository.FederationQueryPolicyRepository;
+import org.simplepoint.plugin.dna.federation.service.support.FederationQueryPolicyCache;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -36,13 +37,16 @@ class FederationQueryPolicyServiceImplTest {
   @Mock
   private JdbcDataSourceDefinitionService dataSourceService;
 
+  @Mock
+  private FederationQueryPolicyCache policyCache;
+
   @BeforeEach
   void setUp() {
     stubBaseServiceSchema(detailsProviderService);
   }
 
   private FederationQueryPolicyServiceImpl service() {
-    return new FederationQueryPolicyServiceImpl(repository, detailsProviderService, dataSourceService);
+    return new FederationQueryPolicyServiceImpl(repository, detailsProviderService, dataSourceService, policyCache);
   }
 
   // ---- findActiveById ----
@@ -133,6 +137,7 @@ class FederationQueryPolicyServiceImplTest {
 
     assertThat(result).isNotNull();
     verify(repository).save(policy);
+    verify(policyCache).invalidate(List.of("catalog-1"));
   }
 
   @Test
@@ -251,6 +256,7 @@ class FederationQueryPolicyServiceImplTest {
     FederationQueryPolicy result = service().modifyById(entity);
 
     assertThat(result).isNotNull();
+    verify(policyCache).invalidate(List.of("catalog-1", "catalog-1"));
   }
 
   @Test
@@ -1,17 +1,27 @@
 package org.simplepoint.plugin.dna.federation.service.impl;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -22,14 +32,18 @@ import org.simplepoint.data.calcite.core.query.CalciteQueryColumn;
 import org.simplepoint.data.calcite.core.query.CalciteQueryEngine;
 import org.simplepoint.data.calcite.core.query.CalciteQueryRequest;
 import org.simplepoint.data.calcite.core.query.CalciteQueryResult;
+import org.simplepoint.data.datasource.jdbc.SimpleDataSource;
 import org.simplepoint.plugin.dna.core.api.entity.JdbcDataSourceDefinition;
 import org.simplepoint.plugin.dna.core.api.service.JdbcDataSourceDefinitionService;
 import org.simplepoint.plugin.dna.federation.api.entity.FederationQueryAudit;
 import org.simplepoint.plugin.dna.federation.api.entity.FederationQueryPolicy;
 import org.simplepoint.plugin.dna.federation.api.repository.FederationQueryPolicyRepository;
 import org.simplepoint.plugin.dna.federation.api.service.FederationQueryAuditService;
+import org.simplepoint.plugin.dna.federation.api.vo.FederationJdbcDriverModels;
 import org.simplepoint.plugin.dna.federation.api.vo.FederationQueryModels;
 import org.simplepoint.plugin.dna.federation.service.support.FederationCalciteCatalogAssembler;
+import org.simplepoint.plugin.dna.federation.service.support.FederationMetadataCacheService;
+import org.simplepoint.plugin.dna.federation.service.support.FederationQueryPolicyCache;
 
 @ExtendWith(MockitoExtension.class)
 class FederationSqlConsoleServiceImplTest {
@@ -349,11 +363,12 @@ class FederationSqlConsoleServiceImplTest {
   private FederationSqlConsoleServiceImpl service() {
     return new FederationSqlConsoleServiceImpl(
         dataSourceService,
-        policyRepository,
+        new FederationQueryPolicyCache(policyRepository),
         auditService,
         catalogAssembler,
         queryEngine,
-        new org.simplepoint.plugin.dna.federation.service.support.FederationMetadataCacheService()
+        new FederationMetadataCacheService(),
+        null
     );
   }
 
@@ -425,6 +440,101 @@ class FederationSqlConsoleServiceImplTest {
         () -> service.executeUpdate(new FederationQueryModels.SqlConsoleRequest("ds1", "")));
   }
 
+  @Test
+  void executeBatchShouldRunParameterMatrixAsOneJdbcBatchTransaction() throws Exception {
+    JdbcDataSourceDefinition dataSource = enabledDataSource("ds-1", "ds1");
+    SimpleDataSource simpleDataSource = mock(SimpleDataSource.class);
+    Connection connection = mock(Connection.class);
+    PreparedStatement statement = mock(PreparedStatement.class);
+    when(dataSourceService.findActiveById("ds-1")).thenReturn(java.util.Optional.of(dataSource));
+    when(dataSourceService.requireSimpleDataSource("ds-1")).thenReturn(simpleDataSource);
+    when(simpleDataSource.getConnection()).thenReturn(connection);
+    when(connection.getAutoCommit()).thenReturn(true);
+    when(connection.prepareStatement("INSERT INTO orders (id, status) VALUES (?, ?)")).thenReturn(statement);
+    when(statement.executeBatch()).thenReturn(new int[] {1, 1, 1});
+    when(auditService.create(any(FederationQueryAudit.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    FederationSqlConsoleServiceImpl service = service();
+
+    FederationQueryModels.SqlBatchUpdateResult result = service.executeBatch(
+        "ds-1",
+        new FederationQueryModels.SqlConsoleRequest("ds1", "INSERT INTO ds1.orders (id, status) VALUES (?, ?)"),
+        List.of(List.of(1, "NEW"), List.of(2, "NEW"), List.of(3, "PAID"))
+    );
+
+    assertEquals("ds1", result.dataSourceCode());
+    assertArrayEquals(new long[] {1L, 1L, 1L}, result.updateCounts());
+    verify(statement, times(3)).addBatch();
+    verify(statement).executeBatch();
+    verify(statement).setObject(2, "PAID");
+    verify(connection).setAutoCommit(false);
+    verify(connection).commit();
+    verify(connection).setAutoCommit(true);
+    verify(statement, never()).executeUpdate();
+  }
+
+  @Test
+  void executeDdlShouldInvalidateOnlyTargetDataSourceMetadata() throws Exception {
+    JdbcDataSourceDefinition dataSource = enabledDataSource("ds-1", "ds1");
+    SimpleDataSource simpleDataSource = mock(SimpleDataSource.class);
+    Connection connection = mock(Connection.class);
+    Statement statement = mock(Statement.class);
+    when(dataSourceService.findActiveById("ds-1")).thenReturn(java.util.Optional.of(dataSource));
+    when(dataSourceService.requireSimpleDataSource("ds-1")).thenReturn(simpleDataSource);
+    when(simpleDataSource.getConnection()).thenReturn(connection);
+    when(connection.createStatement()).thenReturn(statement);
+    when(auditService.create(any(FederationQueryAudit.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    FederationMetadataCacheService metadataCache = new FederationMetadataCacheService();
+    AtomicInteger ds1Loads = new AtomicInteger();
+    AtomicInteger ds2Loads = new AtomicInteger();
+    metadataCache.getOrLoad("tables", List.of("ds1"), null, emptyResult(ds1Loads));
+    metadataCache.getOrLoad("tables", List.of("ds2"), null, emptyResult(ds2Loads));
+    FederationSqlConsoleServiceImpl service = new FederationSqlConsoleServiceImpl(
+        dataSourceService, new FederationQueryPolicyCache(policyRepository), auditService, catalogAssembler,
+        queryEngine, metadataCache, null
+    );
+    final long version = metadataCache.metadataVersion();
+
+    service.executeDdl(
+        "ds-1",
+        new FederationQueryModels.SqlConsoleRequest("ds1", "ALTER TABLE ds1.orders ADD note TEXT")
+    );
+    metadataCache.getOrLoad("tables", List.of("ds1"), null, emptyResult(ds1Loads));
+    metadataCache.getOrLoad("tables", List.of("ds2"), null, emptyResult(ds2Loads));
+
+    verify(statement).executeUpdate(anyString());
+    assertEquals(2, ds1Loads.get());
+    assertEquals(1, ds2Loads.get());
+    // The JDBC socket server stamps this version on its responses, so driver caches drop too.
+    assertEquals(version + 1, metadataCache.metadataVersion());
+  }
+
+  @Test
+  void failedDdlShouldKeepMetadataVersion() throws Exception {
+    JdbcDataSourceDefinition dataSource = enabledDataSource("ds-1", "ds1");
+    SimpleDataSource simpleDataSource = mock(SimpleDataSource.class);
+    Connection connection = mock(Connection.class);
+    Statement statement = mock(Statement.class);
+    when(dataSourceService.findActiveById("ds-1")).thenReturn(java.util.Optional.of(dataSource));
+    when(dataSourceService.requireSimpleDataSource("ds-1")).thenReturn(simpleDataSource);
+    when(simpleDataSource.getConnection()).thenReturn(connection);
+    when(connection.createStatement()).thenReturn(statement);
+    when(statement.executeUpdate(anyString())).thenThrow(new SQLException("column exists"));
+    when(auditService.create(any(FederationQueryAudit.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    FederationMetadataCacheService metadataCache = new FederationMetadataCacheService();
+    FederationSqlConsoleServiceImpl service = new FederationSqlConsoleServiceImpl(
+        dataSourceService, new FederationQueryPolicyCache(policyRepository), auditService, catalogAssembler,
+        queryEngine, metadataCache, null
+    );
+    final long version = metadataCache.metadataVersion();
+
+    assertThrows(IllegalStateException.class, () -> service.executeDdl(
+        "ds-1",
+        new FederationQueryModels.SqlConsoleRequest("ds1", "ALTER TABLE ds1.orders ADD note TEXT")
+    ));
+
+    assertEquals(version, metadataCache.metadataVersion());
+  }
+
   @Test
   void executeDdlShouldThrowWhenRequestIsNull() {
     FederationSqlConsoleServiceImpl service = service();
@@ -452,6 +562,13 @@ class FederationSqlConsoleServiceImplTest {
     verify(catalogAssembler).flushSchemaCache();
   }
 
+  private static Supplier<FederationJdbcDriverModels.TabularResult> emptyResult(final AtomicInteger loads) {
+    return () -> {
+      loads.incrementAndGet();
+      return new FederationJdbcDriverModels.TabularResult(List.of(), List.of());
+    };
+  }
+
   private boolean usesQuotedQualifiedName(final CalciteQueryRequest request) {
     return request != null
         && request.sql() != null
@@ -0,0 +1,51 @@
+package org.simplepoint.plugin.dna.federation.service.support;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.simplepoint.plugin.dna.federation.api.service.DataQualityRuleService;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+class DataQualityCheckSchedulerTest {
+
+  @Test
+  void runsChecksOnlyOnTheNodeHoldingTheLockAndReleasesIt() {
+    DataQualityRuleService ruleService = mock(DataQualityRuleService.class);
+    when(ruleService.executeScheduledChecks()).thenReturn(List.of());
+    StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    ValueOperations<String, String> values = mock(ValueOperations.class);
+    when(redisTemplate.opsForValue()).thenReturn(values);
+    when(values.setIfAbsent(eq("dna:data-quality:schedule-lock"), anyString(), any(Duration.class)))
+        .thenReturn(true, false);
+    DataQualityCheckScheduler scheduler = new DataQualityCheckScheduler(ruleService, redisTemplate);
+
+    scheduler.runChecks();
+    scheduler.runChecks();
+
+    verify(ruleService).executeScheduledChecks();
+    verify(redisTemplate).execute(any(RedisScript.class), anyList(), anyString());
+  }
+
+  @Test
+  void runsChecksLocallyWithoutRedis() {
+    DataQualityRuleService ruleService = mock(DataQualityRuleService.class);
+    when(ruleService.executeScheduledChecks()).thenThrow(new IllegalStateException("boom"));
+
+    new DataQualityCheckScheduler(ruleService, null).runChecks();
+
+    verify(ruleService).executeScheduledChecks();
+    verify(ruleService, never()).executeChecks(any());
+  }
+}
@@ -0,0 +1,86 @@
+package org.simplepoint.plugin.dna.federation.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.simplepoint.plugin.dna.federation.api.entity.DataQualityRule;
+import org.simplepoint.plugin.dna.federation.service.support.DataQualityScanPlanner.Plan;
+import org.simplepoint.plugin.dna.federation.service.support.DataQualityScanPlanner.TableScan;
+
+class DataQualityScanPlannerTest {
+
+  @Test
+  void fusesRulesOnSameTableIntoOneAggregateScan() {
+    Plan plan = new DataQualityScanPlanner(32).plan(List.of(
+        rule("NOT_NULL", "orders", "id", null),
+        rule("UNIQUE", "orders", "id", null),
+        rule("RANGE", "orders", "amount", "0,100"),
+        rule("ROW_COUNT", "orders", null, "1,10"),
+        rule("ROW_COUNT", "orders", null, null),
+        rule("NOT_NULL", "customers", "id", null)
+    ), false);
+
+    assertEquals(2, plan.scans().size());
+    TableScan orders = plan.scans().get(0);
+    assertEquals("SELECT COUNT(CASE WHEN id IS NULL THEN 1 END) AS c0, COUNT(*) - COUNT(DISTINCT id) AS c1, "
+        + "COUNT(CASE WHEN amount < 0.0 OR amount > 100.0 THEN 1 END) AS c2, COUNT(*) AS c3 FROM orders", orders.sql());
+    assertEquals(List.of(0, 1, 2, 3, 3), orders.checks().stream().map(DataQualityScanPlanner.PlannedCheck::valueIndex).toList());
+    assertEquals(-1, orders.watermarkIndex());
+    assertTrue(plan.rejected().isEmpty());
+  }
+
+  @Test
+  void restrictsRowLevelRulesToNewRowsInIncrementalMode() {
+    DataQualityRule notNull = rule("NOT_NULL", "events", "user_id", null);
+    notNull.setIncrementalColumn("dt");
+    notNull.setLastWatermark("2026-10-01");
+    DataQualityRule unique = rule("UNIQUE", "events", "event_id", null);
+    unique.setIncrementalColumn("dt");
+    unique.setLastWatermark("2026-10-01");
+
+    Plan plan = new DataQualityScanPlanner(32).plan(List.of(notNull, unique), true);
+
+    assertEquals(2, plan.scans().size());
+    TableScan incremental = plan.scans().get(0);
+    assertEquals("SELECT COUNT(CASE WHEN user_id IS NULL THEN 1 END) AS c0, MAX(dt) AS c1 FROM events"
+        + " WHERE dt > '2026-10-01'", incremental.sql());
+    assertEquals(1, incremental.watermarkIndex());
+    assertEquals("SELECT COUNT(*) - COUNT(DISTINCT event_id) AS c0 FROM events", plan.scans().get(1).sql());
+  }
+
+  @Test
+  void rejectsBrokenRulesWithoutFailingTheirTableAndSplitsLargeGroups() {
+    final DataQualityRule broken = rule("NOT_NULL", "orders", "id; drop", null);
+    final DataQualityRule custom = rule("CUSTOM_SQL", "orders", null, "0");
+    custom.setCheckSql("SELECT COUNT(*) FROM orders WHERE status = 'bad'");
+
+    Plan plan = new DataQualityScanPlanner(1).plan(List.of(
+        broken,
+        rule("NOT_NULL", "orders", "id", null),
+        rule("NOT_NULL", "orders", "name", null),
+        custom
+    ), false);
+
+    assertEquals(1, plan.rejected().size());
+    assertEquals(broken, plan.rejected().get(0).rule());
+    assertEquals(3, plan.scans().size());
+    assertEquals(custom.getCheckSql(), plan.scans().get(0).sql());
+  }
+
+  private static DataQualityRule rule(
+      final String type,
+      final String table,
+      final String column,
+      final String expected
+  ) {
+    DataQualityRule rule = new DataQualityRule();
+    rule.setCatalogId("catalog-1");
+    rule.setRuleType(type);
+    rule.setTargetTable(table);
+    rule.setTargetColumn(column);
+    rule.setExpectedValue(expected);
+    return rule;
+  }
+}
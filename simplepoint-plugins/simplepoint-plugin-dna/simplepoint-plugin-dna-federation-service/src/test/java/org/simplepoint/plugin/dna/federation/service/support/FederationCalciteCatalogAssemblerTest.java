@@ -5,12 +5,17 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.PrintWriter;
+import java.lang.reflect.Field;
 import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
@@ -20,6 +25,9 @@ import java.sql.Statement;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 import javax.sql.DataSource;
 import org.apache.calcite.schema.SchemaPlus;
@@ -176,6 +184,64 @@ class FederationCalciteCatalogAssemblerTest {
     assertEquals(1, assembler.flushSchemaCache());
   }
 
+  @Test
+  void assembleShouldServeCachedSchemaWhileRefreshingAheadInBackground() throws Exception {
+    JdbcDataSourceDefinition definition = cachedDefinition("refresh");
+    FederationCalciteCatalogAssembler assembler = new FederationCalciteCatalogAssembler(
+        dataSourceService,
+        driverService,
+        dialectManagementService
+    );
+    setField(assembler, "refreshAheadSeconds", 600L);
+
+    try (FederationCalciteCatalogAssembler.FederationCalciteCatalogAssembly first = assembler.assemble("refresh_ds", List.of(definition))) {
+      assertFalse(first.schemaCacheHit());
+    }
+    try (FederationCalciteCatalogAssembler.FederationCalciteCatalogAssembly second = assembler.assemble("refresh_ds", List.of(definition))) {
+      assertTrue(second.schemaCacheHit());
+    }
+    verify(driverService, timeout(5_000L).times(2)).findActiveById("driver-refresh");
+    assembler.destroy();
+  }
+
+  @Test
+  void assembleShouldBuildEachCatalogOnceForConcurrentRequests() throws Exception {
+    JdbcDataSourceDefinition definition = cachedDefinition("flight");
+    JdbcDriverDefinition driver = driverService.findActiveById("driver-flight").orElseThrow();
+    CountDownLatch building = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(driverService.findActiveById("driver-flight")).thenAnswer(invocation -> {
+      building.countDown();
+      release.await(5, TimeUnit.SECONDS);
+      return Optional.of(driver);
+    });
+    clearInvocations(driverService);
+    FederationCalciteCatalogAssembler assembler = new FederationCalciteCatalogAssembler(
+        dataSourceService,
+        driverService,
+        dialectManagementService
+    );
+
+    final CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> {
+      try (FederationCalciteCatalogAssembler.FederationCalciteCatalogAssembly assembly = assembler.assemble("flight_ds", List.of(definition))) {
+        return assembly.schemaCacheHit();
+      }
+    });
+    assertTrue(building.await(5, TimeUnit.SECONDS));
+    final CompletableFuture<Boolean> second = CompletableFuture.supplyAsync(() -> {
+      try (FederationCalciteCatalogAssembler.FederationCalciteCatalogAssembly assembly = assembler.assemble("flight_ds", List.of(definition))) {
+        return assembly.schemaCacheHit();
+      }
+    });
+    Thread.sleep(100L);
+    release.countDown();
+
+    assertFalse(first.get(5, TimeUnit.SECONDS));
+    assertTrue(second.get(5, TimeUnit.SECONDS));
+    verify(driverService, times(1)).findActiveById("driver-flight");
+    assertEquals(1, assembler.flushSchemaCache());
+  }
+
   @Test
   void assembleShouldExposeCatalogAndSchemaNamespaces() throws Exception {
     JdbcDataSource mainDataSource = createDataSource();
@@ -253,6 +319,57 @@ class FederationCalciteCatalogAssemblerTest {
     }
   }
 
+  @Test
+  void flushShouldKeepTransientDataSourcesOpenUntilLastAssemblyCloses() throws Exception {
+    JdbcDataSource mainDataSource = createDataSource();
+    JdbcDataSource auditDataSource = createDataSource();
+    initialize(mainDataSource, "create table root_table (id int primary key);");
+    initialize(auditDataSource, "create table audit_log (id int primary key);");
+
+    JdbcDataSourceDefinition definition = new JdbcDataSourceDefinition();
+    definition.setId("ds-lease");
+    definition.setCode("lease_ds");
+    definition.setDriverId("driver-lease");
+
+    JdbcDriverDefinition driver = new JdbcDriverDefinition();
+    driver.setId("driver-lease");
+    driver.setDatabaseType("postgresql");
+    driver.setDriverClassName("org.h2.Driver");
+    JdbcDatabaseDialect dialect = postgresLikeDialect();
+    SimpleDataSource transientDataSource = spy(new SimpleDataSource(auditDataSource));
+
+    when(dataSourceService.requireSimpleDataSource("ds-lease")).thenReturn(new SimpleDataSource(
+        wrapDataSource(mainDataSource, "main_db", List.of("main_db", "audit_db"))
+    ));
+    when(dataSourceService.createTransientSimpleDataSource("ds-lease", "jdbc:catalog:audit_db"))
+        .thenReturn(transientDataSource);
+    when(driverService.findActiveById("driver-lease")).thenReturn(Optional.of(driver));
+    when(dialectManagementService.resolveDialect(any())).thenReturn(Optional.of(dialect));
+
+    FederationCalciteCatalogAssembler assembler = new FederationCalciteCatalogAssembler(
+        dataSourceService,
+        driverService,
+        dialectManagementService
+    );
+
+    FederationCalciteCatalogAssembler.FederationCalciteCatalogAssembly running = assembler.assemble("lease_ds", List.of(definition));
+    FederationCalciteCatalogAssembler.FederationCalciteCatalogAssembly export = assembler.assemble("lease_ds", List.of(definition));
+    assertTrue(export.schemaCacheHit());
+    assertEquals(1, assembler.flushSchemaCache());
+
+    running.close();
+    running.close();
+    verify(transientDataSource, never()).close();
+
+    export.close();
+    verify(transientDataSource, times(1)).close();
+
+    try (FederationCalciteCatalogAssembler.FederationCalciteCatalogAssembly rebuilt = assembler.assemble("lease_ds", List.of(definition))) {
+      assertFalse(rebuilt.schemaCacheHit());
+    }
+    assembler.destroy();
+  }
+
   @Test
   void sanitizeCalciteConventionNameShouldHandleChineseCharacters() {
     assertEquals("S_u6D4B_u8BD5", FederationCalciteCatalogAssembler.sanitizeCalciteConventionName("测试"));
@@ -318,6 +435,38 @@ class FederationCalciteCatalogAssemblerTest {
     }
   }
 
+  private JdbcDataSourceDefinition cachedDefinition(final String name) throws Exception {
+    JdbcDataSource dataSource = createDataSource();
+    initialize(dataSource, "create table orders (id int primary key)");
+
+    JdbcDataSourceDefinition definition = new JdbcDataSourceDefinition();
+    definition.setId("ds-" + name);
+    definition.setCode(name + "_ds");
+    definition.setDriverId("driver-" + name);
+
+    JdbcDriverDefinition driver = new JdbcDriverDefinition();
+    driver.setId("driver-" + name);
+    driver.setDatabaseType("postgresql");
+    driver.setDriverClassName("org.h2.Driver");
+    JdbcDatabaseDialect dialect = mock(JdbcDatabaseDialect.class, Answers.CALLS_REAL_METHODS);
+    when(dialect.metadataCatalog(any(), any())).thenReturn(null);
+    when(dialect.visibleSchemas(any(), any(), any())).thenAnswer(invocation -> invocation.<List<String>>getArgument(0)
+        .stream()
+        .filter(schema -> schema != null && !"INFORMATION_SCHEMA".equalsIgnoreCase(schema))
+        .toList());
+
+    when(dataSourceService.requireSimpleDataSource("ds-" + name)).thenReturn(new SimpleDataSource(dataSource));
+    when(driverService.findActiveById("driver-" + name)).thenReturn(Optional.of(driver));
+    when(dialectManagementService.resolveDialect(any())).thenReturn(Optional.of(dialect));
+    return definition;
+  }
+
+  private static void setField(final Object target, final String name, final Object value) throws Exception {
+    Field field = target.getClass().getDeclaredField(name);
+    field.setAccessible(true);
+    field.set(target, value);
+  }
+
   private static JdbcDataSource createDataSource() {
     JdbcDataSource dataSource = new JdbcDataSource();
     dataSource.setURL("jdbc:h2:mem:federation-" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
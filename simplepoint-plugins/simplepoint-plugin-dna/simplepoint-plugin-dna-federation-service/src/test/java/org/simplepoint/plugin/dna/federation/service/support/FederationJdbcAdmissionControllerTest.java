@@ -0,0 +1,128 @@
+package org.simplepoint.plugin.dna.federation.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.simplepoint.plugin.dna.federation.service.support.FederationJdbcAdmissionController.Lane;
+import org.simplepoint.plugin.dna.federation.service.support.FederationJdbcAdmissionController.LaneSettings;
+import org.simplepoint.plugin.dna.federation.service.support.FederationJdbcAdmissionController.Permit;
+
+class FederationJdbcAdmissionControllerTest {
+
+  @Test
+  void freedSlotGoesToLeastLoadedTenantBeforeOlderWaitersOfBusyTenant() throws Exception {
+    FederationJdbcAdmissionController controller = controller(new LaneSettings(2, 10, 5_000L, 0), Map.of());
+    final Permit busy = controller.acquire(Lane.QUERY, "tenant-a", "sales");
+    final Permit running = controller.acquire(Lane.QUERY, "tenant-c", "sales");
+    List<String> order = new CopyOnWriteArrayList<>();
+    final Thread busyTenant = waiter(controller, "tenant-a", order);
+    awaitQueued(controller, 1);
+    final Thread otherTenant = waiter(controller, "tenant-b", order);
+    awaitQueued(controller, 2);
+
+    running.close();
+    otherTenant.join(5_000L);
+    busyTenant.join(5_000L);
+    busy.close();
+
+    assertEquals(List.of("tenant-b", "tenant-a"), order);
+    assertEquals(0, controller.stats(Lane.QUERY).active());
+  }
+
+  @Test
+  void rejectsWhenQueueIsFullAndTimesOutWhileWaiting() {
+    FederationJdbcAdmissionController controller = controller(new LaneSettings(1, 0, 50L, 0), Map.of());
+    try (Permit ignored = controller.acquire(Lane.QUERY, "tenant-a", null)) {
+      IllegalStateException full = assertThrows(IllegalStateException.class,
+          () -> controller.acquire(Lane.QUERY, "tenant-b", null));
+      assertTrue(full.getMessage().contains("排队已满"));
+    }
+
+    FederationJdbcAdmissionController queued = controller(new LaneSettings(1, 5, 50L, 0), Map.of());
+    try (Permit ignored = queued.acquire(Lane.QUERY, "tenant-a", null)) {
+      IllegalStateException timeout = assertThrows(IllegalStateException.class,
+          () -> queued.acquire(Lane.QUERY, "tenant-b", null));
+      assertTrue(timeout.getMessage().contains("排队超时"));
+    }
+    FederationJdbcAdmissionController.LaneStats stats = queued.stats(Lane.QUERY);
+    assertEquals(1L, stats.timedOut());
+    assertEquals(0, stats.queued());
+    assertEquals(0, stats.active());
+  }
+
+  @Test
+  void capsTenantAndKeepsMetadataLaneIndependent() {
+    FederationJdbcAdmissionController controller = controller(new LaneSettings(4, 5, 50L, 1), Map.of());
+    Permit first = controller.acquire(Lane.QUERY, "tenant-a", "sales");
+    assertThrows(IllegalStateException.class, () -> controller.acquire(Lane.QUERY, "tenant-a", "finance"));
+    try (Permit other = controller.acquire(Lane.QUERY, "tenant-b", "sales");
+         Permit metadata = controller.acquire(Lane.METADATA, "tenant-a", "sales")) {
+      assertEquals(2, controller.stats(Lane.QUERY).active());
+      assertEquals(1, controller.stats(Lane.METADATA).active());
+    }
+    first.close();
+    first.close();
+    assertEquals(0, controller.stats(Lane.QUERY).active());
+  }
+
+  @Test
+  void exposesLaneMetricsAndParsesTenantWeights() {
+    assertEquals(Map.of("a", 3, "b", 1), FederationJdbcAdmissionController.parseTenantWeights(" a=3, b=1,bad,c=x"));
+    FederationJdbcAdmissionController controller = controller(new LaneSettings(2, 5, 50L, 0), Map.of("a", 3));
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    controller.bindTo(registry);
+
+    try (Permit ignored = controller.acquire(Lane.QUERY, "a", null)) {
+      assertEquals(1.0, registry.get("simplepoint.dna.jdbc.admission.active").tag("lane", "query").gauge().value());
+    }
+    assertEquals(1L, registry.get("simplepoint.dna.jdbc.admission.wait").tag("lane", "query").timer().count());
+    assertEquals(1.0, registry.get("simplepoint.dna.jdbc.admission.requests")
+        .tags("lane", "query", "outcome", "admitted").functionCounter().count());
+    assertEquals(0.0, registry.get("simplepoint.dna.jdbc.admission.queue.depth").tag("lane", "metadata").gauge().value());
+  }
+
+  private static FederationJdbcAdmissionController controller(
+      final LaneSettings query,
+      final Map<String, Integer> weights
+  ) {
+    return new FederationJdbcAdmissionController(query, new LaneSettings(1, 5, 50L, 0), weights);
+  }
+
+  private static Thread waiter(
+      final FederationJdbcAdmissionController controller,
+      final String tenantId,
+      final List<String> order
+  ) {
+    CountDownLatch started = new CountDownLatch(1);
+    Thread thread = new Thread(() -> {
+      started.countDown();
+      try (Permit ignored = controller.acquire(Lane.QUERY, tenantId, "sales")) {
+        order.add(tenantId);
+      }
+    });
+    thread.start();
+    try {
+      started.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    return thread;
+  }
+
+  private static void awaitQueued(final FederationJdbcAdmissionController controller, final int queued)
+      throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (controller.stats(Lane.QUERY).queued() < queued && System.nanoTime() < deadline) {
+      Thread.sleep(5L);
+    }
+    assertEquals(queued, controller.stats(Lane.QUERY).queued());
+  }
+}
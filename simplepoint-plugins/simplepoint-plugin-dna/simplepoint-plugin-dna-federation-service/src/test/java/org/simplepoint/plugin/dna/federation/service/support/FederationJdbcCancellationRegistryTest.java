@@ -0,0 +1,54 @@
+package org.simplepoint.plugin.dna.federation.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.simplepoint.data.calcite.core.query.CalciteQueryCancellation;
+
+class FederationJdbcCancellationRegistryTest {
+
+  @Test
+  void cancelsRegisteredStatementsAndRunsReleaseCallbackOnce() throws Exception {
+    FederationJdbcCancellationRegistry registry = new FederationJdbcCancellationRegistry();
+    CalciteQueryCancellation cancellation = new CalciteQueryCancellation();
+    Statement statement = mock(Statement.class);
+    AtomicInteger released = new AtomicInteger();
+    cancellation.register(statement);
+    registry.register("q-1", cancellation, released::incrementAndGet);
+
+    assertTrue(registry.cancel("q-1"));
+    assertFalse(registry.cancel("q-1"));
+
+    verify(statement).cancel();
+    assertTrue(cancellation.isCancelled());
+    assertEquals(1, released.get());
+    assertEquals(0, registry.size());
+    assertThrows(SQLException.class, () -> cancellation.register(mock(Statement.class)));
+  }
+
+  @Test
+  void ignoresUnknownIdsAndKeepsEntriesOwnedByOtherRequests() {
+    FederationJdbcCancellationRegistry registry = new FederationJdbcCancellationRegistry();
+    CalciteQueryCancellation running = new CalciteQueryCancellation();
+    registry.register(null, running, null);
+    registry.register("q-1", running, null);
+
+    assertThrows(IllegalArgumentException.class,
+        () -> registry.register("q-1", new CalciteQueryCancellation(), null));
+    registry.unregister("q-1", new CalciteQueryCancellation());
+    assertEquals(1, registry.size());
+    assertFalse(registry.cancel("unknown"));
+    assertFalse(running.isCancelled());
+
+    registry.unregister("q-1", running);
+    assertEquals(0, registry.size());
+  }
+}
@@ -0,0 +1,49 @@
+package org.simplepoint.plugin.dna.federation.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class FederationJdbcConnectionLimiterTest {
+
+  @Test
+  void rejectsConnectionsBeyondGlobalLimit() {
+    FederationJdbcConnectionLimiter limiter = new FederationJdbcConnectionLimiter(2, 0);
+
+    assertTrue(limiter.tryAcquireConnection());
+    assertTrue(limiter.tryAcquireConnection());
+    assertFalse(limiter.tryAcquireConnection());
+
+    limiter.releaseConnection();
+    assertTrue(limiter.tryAcquireConnection());
+    assertEquals(2, limiter.activeConnections());
+  }
+
+  @Test
+  void enforcesPerTenantLimitIndependently() {
+    FederationJdbcConnectionLimiter limiter = new FederationJdbcConnectionLimiter(0, 1);
+
+    assertTrue(limiter.tryAcquireTenant("tenant-a"));
+    assertFalse(limiter.tryAcquireTenant("tenant-a"));
+    assertTrue(limiter.tryAcquireTenant("tenant-b"));
+    assertEquals(Map.of("tenant-a", 1, "tenant-b", 1), limiter.tenantConnections());
+
+    limiter.releaseTenant("tenant-a");
+    assertEquals(Map.of("tenant-b", 1), limiter.tenantConnections());
+    assertTrue(limiter.tryAcquireTenant("tenant-a"));
+  }
+
+  @Test
+  void treatsBlankTenantAsDefaultAndNonPositiveLimitsAsUnbounded() {
+    FederationJdbcConnectionLimiter limiter = new FederationJdbcConnectionLimiter(0, 0);
+
+    for (int index = 0; index < 100; index++) {
+      assertTrue(limiter.tryAcquireConnection());
+      assertTrue(limiter.tryAcquireTenant(index % 2 == 0 ? null : " "));
+    }
+    assertEquals(Map.of("default", 100), limiter.tenantConnections());
+  }
+}
@@ -0,0 +1,136 @@
+package org.simplepoint.plugin.dna.federation.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.simplepoint.plugin.dna.federation.api.service.FederationSqlConsoleService;
+import org.simplepoint.plugin.dna.federation.api.vo.FederationQueryModels;
+import org.simplepoint.plugin.dna.federation.service.support.FederationJdbcAdmissionController.Lane;
+import org.simplepoint.plugin.dna.federation.service.support.FederationJdbcAdmissionController.LaneSettings;
+
+class FederationJdbcCursorRegistryTest {
+
+  @Test
+  void closesCursorsIdleLongerThanTimeout() {
+    AtomicLong clock = new AtomicLong(1_000L);
+    FederationJdbcCursorRegistry registry = new FederationJdbcCursorRegistry(0, 100L, clock::get);
+    RecordingCursor stale = new RecordingCursor();
+    RecordingCursor active = new RecordingCursor();
+    final String staleId = registry.register(stale);
+    String activeId = registry.register(active);
+
+    clock.addAndGet(60L);
+    assertSame(active, registry.require(activeId));
+    registry.markIdle(activeId);
+    clock.addAndGet(60L);
+
+    assertEquals(1, registry.expireIdle());
+    assertTrue(stale.closed);
+    assertFalse(active.closed);
+    assertThrows(IllegalArgumentException.class, () -> registry.require(staleId));
+  }
+
+  @Test
+  void neverExpiresCursorWhileItIsInUse() {
+    AtomicLong clock = new AtomicLong(1_000L);
+    FederationJdbcCursorRegistry registry = new FederationJdbcCursorRegistry(0, 100L, clock::get);
+    RecordingCursor fetching = new RecordingCursor();
+    String cursorId = registry.register(fetching);
+
+    registry.require(cursorId);
+    clock.addAndGet(500L);
+    assertEquals(0, registry.expireIdle());
+
+    registry.markIdle(cursorId);
+    clock.addAndGet(100L);
+    assertEquals(1, registry.expireIdle());
+    assertTrue(fetching.closed);
+  }
+
+  @Test
+  void returnsHeldAdmissionPermitWhenCursorCloses() {
+    AtomicLong clock = new AtomicLong(1_000L);
+    FederationJdbcAdmissionController admission = new FederationJdbcAdmissionController(
+        new LaneSettings(3, 0, 0L, 0), new LaneSettings(1, 0, 0L, 0), Map.of());
+    FederationJdbcCursorRegistry registry = new FederationJdbcCursorRegistry(1, 100L, clock::get);
+    final String expiredId = registry.register(
+        new RecordingCursor(), null, admission.acquire(Lane.QUERY, "tenant-a", null));
+
+    assertThrows(IllegalStateException.class, () -> registry.register(
+        new RecordingCursor(), null, admission.acquire(Lane.QUERY, "tenant-a", null)));
+    assertEquals(1, admission.stats(Lane.QUERY).active());
+
+    clock.addAndGet(100L);
+    registry.expireIdle();
+    assertThrows(IllegalArgumentException.class, () -> registry.require(expiredId));
+    assertEquals(0, admission.stats(Lane.QUERY).active());
+
+    String releasedId = registry.register(
+        new RecordingCursor(), null, admission.acquire(Lane.QUERY, "tenant-a", null));
+    registry.release(releasedId);
+    registry.register(new RecordingCursor(), null, admission.acquire(Lane.QUERY, "tenant-a", null));
+    registry.close();
+    assertEquals(0, admission.stats(Lane.QUERY).active());
+  }
+
+  @Test
+  void rejectsAndClosesCursorBeyondLimit() {
+    FederationJdbcCursorRegistry registry = new FederationJdbcCursorRegistry(1, 0L);
+    registry.register(new RecordingCursor());
+    RecordingCursor rejected = new RecordingCursor();
+
+    assertThrows(IllegalStateException.class, () -> registry.register(rejected));
+    assertTrue(rejected.closed);
+    assertEquals(1, registry.size());
+  }
+
+  @Test
+  void releaseAndCloseReleaseCursors() {
+    FederationJdbcCursorRegistry registry = new FederationJdbcCursorRegistry(0, 0L);
+    RecordingCursor released = new RecordingCursor();
+    RecordingCursor remaining = new RecordingCursor();
+    String releasedId = registry.register(released);
+    registry.register(remaining);
+
+    registry.release(releasedId);
+    registry.release("unknown");
+    assertTrue(released.closed);
+    assertEquals(1, registry.size());
+
+    registry.close();
+    assertTrue(remaining.closed);
+    assertEquals(0, registry.size());
+  }
+
+  private static final class RecordingCursor implements FederationSqlConsoleService.QueryCursor {
+
+    private boolean closed;
+
+    @Override
+    public FederationQueryModels.SqlQueryResult firstBatch() {
+      return null;
+    }
+
+    @Override
+    public List<List<Object>> fetch(final int batchSize) {
+      return List.of();
+    }
+
+    @Override
+    public boolean hasMore() {
+      return !closed;
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+}
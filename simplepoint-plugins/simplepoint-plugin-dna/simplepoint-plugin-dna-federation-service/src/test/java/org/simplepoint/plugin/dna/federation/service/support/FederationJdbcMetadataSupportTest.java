@@ -2,8 +2,11 @@ package org.simplepoint.plugin.dna.federation.service.support;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.sql.Connection;
@@ -15,6 +18,7 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import org.h2.jdbcx.JdbcDataSource;
@@ -147,6 +151,30 @@ class FederationJdbcMetadataSupportTest {
     assertThat(noMatch.rows()).isEmpty();
   }
 
+  @Test
+  void schemaFingerprintsShouldPollOnBackgroundConnection() throws Exception {
+    JdbcDataSource dataSource = createDataSource();
+    initialize(dataSource, "create table orders (id int primary key);");
+
+    JdbcDataSourceDefinition definition = createDefinition(dataSource);
+    JdbcDatabaseDialect dialect = h2LikeDialect();
+    doReturn("select table_schema, count(*) from information_schema.tables "
+        + "where table_schema = 'PUBLIC' group by table_schema")
+        .when(dialect).buildMetadataFingerprintSql(any());
+    when(dataSourceService.openBackgroundConnection("ds-1")).thenAnswer(invocation -> dataSource.getConnection());
+    when(driverRepository.findActiveById("driver-1")).thenReturn(Optional.of(createDriver()));
+    when(dialectManagementService.resolveDialect(any())).thenReturn(Optional.of(dialect));
+
+    FederationJdbcMetadataSupport support = new FederationJdbcMetadataSupport(
+        dataSourceService,
+        driverRepository,
+        dialectManagementService
+    );
+
+    assertThat(support.schemaFingerprints(definition)).contains(Map.of("PUBLIC", "1"));
+    verify(dataSourceService, never()).requireSimpleDataSource(any());
+  }
+
   @Test
   void columnsShouldLoadForTablesWithUnderscores() throws Exception {
     JdbcDataSource dataSource = createDataSource();
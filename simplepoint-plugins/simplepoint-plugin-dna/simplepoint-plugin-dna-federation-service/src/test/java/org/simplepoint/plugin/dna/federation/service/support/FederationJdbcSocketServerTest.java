@@ -0,0 +1,43 @@
+package org.simplepoint.plugin.dna.federation.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class FederationJdbcSocketServerTest {
+
+  @Test
+  void platformPoolServesEveryConnectionUpToTheCapWithoutQueueing() throws InterruptedException {
+    ThreadPoolExecutor executor = FederationJdbcSocketServer.platformConnectionExecutor(8);
+    CountDownLatch started = new CountDownLatch(8);
+    CountDownLatch closed = new CountDownLatch(1);
+    try {
+      for (int i = 0; i < 8; i++) {
+        executor.execute(() -> {
+          started.countDown();
+          awaitQuietly(closed);
+        });
+      }
+
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+      assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {
+      }));
+    } finally {
+      closed.countDown();
+      executor.shutdownNow();
+    }
+  }
+
+  private static void awaitQuietly(final CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
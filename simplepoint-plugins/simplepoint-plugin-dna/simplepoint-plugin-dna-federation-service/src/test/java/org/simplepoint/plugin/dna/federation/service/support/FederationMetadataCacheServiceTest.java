@@ -0,0 +1,78 @@
+package org.simplepoint.plugin.dna.federation.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.simplepoint.plugin.dna.federation.api.vo.FederationJdbcDriverModels;
+
+class FederationMetadataCacheServiceTest {
+
+  @Test
+  void servesRepeatedLookupsFromLocalTierAndScopesByDataSources() {
+    FederationMetadataCacheService cache = new FederationMetadataCacheService();
+    AtomicInteger loads = new AtomicInteger();
+
+    cache.getOrLoad("tables:*:sales:*:*", List.of("ds1"), "sales", loader(loads));
+    cache.getOrLoad("tables:*:sales:*:*", List.of("ds1"), "sales", loader(loads));
+    cache.getOrLoad("tables:*:sales:*:*", List.of("ds1", "ds2"), "sales", loader(loads));
+
+    assertEquals(2, loads.get());
+    assertEquals(2, cache.localSize());
+  }
+
+  @Test
+  void schemaInvalidationOnlyReloadsThatSchemaAndWildcardLookups() {
+    FederationMetadataCacheService cache = new FederationMetadataCacheService();
+    AtomicInteger sales = new AtomicInteger();
+    AtomicInteger finance = new AtomicInteger();
+    AtomicInteger all = new AtomicInteger();
+    AtomicInteger other = new AtomicInteger();
+    Runnable lookups = () -> {
+      cache.getOrLoad("columns:*:sales:*:*", List.of("ds1"), "sales", loader(sales));
+      cache.getOrLoad("columns:*:finance:*:*", List.of("ds1"), "finance", loader(finance));
+      cache.getOrLoad("tables:*:*:*:*", List.of("ds1"), null, loader(all));
+      cache.getOrLoad("tables:*:*:*:*", List.of("ds2"), "%", loader(other));
+    };
+    lookups.run();
+    final long version = cache.metadataVersion();
+
+    cache.invalidate("DS1", "Sales");
+    lookups.run();
+
+    assertEquals(2, sales.get());
+    assertEquals(1, finance.get());
+    assertEquals(2, all.get());
+    assertEquals(1, other.get());
+    assertTrue(cache.metadataVersion() > version);
+
+    cache.invalidate("ds1", null);
+    lookups.run();
+    assertEquals(3, sales.get());
+    assertEquals(2, finance.get());
+    assertEquals(1, other.get());
+  }
+
+  @Test
+  void flushAllDropsEveryEntry() {
+    FederationMetadataCacheService cache = new FederationMetadataCacheService();
+    AtomicInteger loads = new AtomicInteger();
+    cache.getOrLoad("catalogs", List.of("ds1"), null, loader(loads));
+
+    assertEquals(1L, cache.flushAll());
+    cache.getOrLoad("catalogs", List.of("ds1"), null, loader(loads));
+
+    assertEquals(2, loads.get());
+    assertEquals(1L, cache.metadataVersion());
+  }
+
+  private static Supplier<FederationJdbcDriverModels.TabularResult> loader(final AtomicInteger counter) {
+    return () -> {
+      counter.incrementAndGet();
+      return new FederationJdbcDriverModels.TabularResult(List.of(), List.of());
+    };
+  }
+}
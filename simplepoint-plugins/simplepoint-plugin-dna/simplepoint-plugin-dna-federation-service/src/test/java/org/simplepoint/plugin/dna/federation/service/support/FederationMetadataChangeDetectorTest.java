@@ -0,0 +1,94 @@
+package org.simplepoint.plugin.dna.federation.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.simplepoint.plugin.dna.core.api.entity.JdbcDataSourceDefinition;
+import org.simplepoint.plugin.dna.core.api.service.JdbcDataSourceDefinitionService;
+
+class FederationMetadataChangeDetectorTest {
+
+  @Test
+  void invalidatesOnlySchemasWhoseFingerprintChanged() {
+    JdbcDataSourceDefinitionService dataSourceService = mock(JdbcDataSourceDefinitionService.class);
+    FederationJdbcMetadataSupport metadataSupport = mock(FederationJdbcMetadataSupport.class);
+    FederationMetadataCacheService cache = mock(FederationMetadataCacheService.class);
+    JdbcDataSourceDefinition dataSource = dataSource("ds-1", "ds1");
+    when(dataSourceService.listEnabledDefinitions()).thenReturn(List.of(dataSource));
+    when(metadataSupport.schemaFingerprints(dataSource)).thenReturn(
+        Optional.of(Map.of("sales", "3:100", "finance", "2:50", "legacy", "1:7")),
+        Optional.of(Map.of("sales", "4:120", "finance", "2:50", "audit", "1:9"))
+    );
+    FederationMetadataChangeDetector detector = new FederationMetadataChangeDetector(
+        dataSourceService, metadataSupport, cache
+    );
+
+    assertEquals(0, detector.detectChanges());
+    verifyNoInteractions(cache);
+
+    assertEquals(3, detector.detectChanges());
+    verify(cache).invalidate("ds1", "sales");
+    verify(cache).invalidate("ds1", "legacy");
+    verify(cache).invalidate("ds1", "audit");
+    verify(cache, never()).invalidate("ds1", "finance");
+  }
+
+  @Test
+  void skipsDataSourcesWithoutFingerprintSupport() {
+    JdbcDataSourceDefinitionService dataSourceService = mock(JdbcDataSourceDefinitionService.class);
+    FederationJdbcMetadataSupport metadataSupport = mock(FederationJdbcMetadataSupport.class);
+    FederationMetadataCacheService cache = mock(FederationMetadataCacheService.class);
+    JdbcDataSourceDefinition dataSource = dataSource("ds-2", "hive");
+    when(dataSourceService.listEnabledDefinitions()).thenReturn(List.of(dataSource));
+    when(metadataSupport.schemaFingerprints(dataSource)).thenReturn(Optional.empty());
+    FederationMetadataChangeDetector detector = new FederationMetadataChangeDetector(
+        dataSourceService, metadataSupport, cache
+    );
+
+    detector.detectChanges();
+    detector.detectChanges();
+
+    verify(metadataSupport, times(1)).schemaFingerprints(any());
+    verifyNoInteractions(cache);
+  }
+
+  @Test
+  void keepsPollingEmptyDatabaseUntilFirstSchemaAppears() {
+    JdbcDataSourceDefinitionService dataSourceService = mock(JdbcDataSourceDefinitionService.class);
+    FederationJdbcMetadataSupport metadataSupport = mock(FederationJdbcMetadataSupport.class);
+    FederationMetadataCacheService cache = mock(FederationMetadataCacheService.class);
+    JdbcDataSourceDefinition dataSource = dataSource("ds-3", "fresh");
+    when(dataSourceService.listEnabledDefinitions()).thenReturn(List.of(dataSource));
+    when(metadataSupport.schemaFingerprints(dataSource)).thenReturn(
+        Optional.of(Map.of()),
+        Optional.of(Map.of()),
+        Optional.of(Map.of("public", "1:1"))
+    );
+    FederationMetadataChangeDetector detector = new FederationMetadataChangeDetector(
+        dataSourceService, metadataSupport, cache
+    );
+
+    assertEquals(0, detector.detectChanges());
+    assertEquals(0, detector.detectChanges());
+    assertEquals(1, detector.detectChanges());
+    verify(cache).invalidate("fresh", "public");
+  }
+
+  private static JdbcDataSourceDefinition dataSource(final String id, final String code) {
+    JdbcDataSourceDefinition dataSource = new JdbcDataSourceDefinition();
+    dataSource.setId(id);
+    dataSource.setCode(code);
+    dataSource.setEnabled(true);
+    return dataSource;
+  }
+}
@@ -0,0 +1,133 @@
+package org.simplepoint.plugin.dna.federation.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.simplepoint.plugin.dna.federation.api.entity.FederationQueryAudit;
+import org.simplepoint.plugin.dna.federation.api.service.FederationQueryAuditService;
+
+class FederationQueryAuditWriterTest {
+
+  @Test
+  void writesQueuedAuditsInBatchesAndFlushesOnShutdown() {
+    FederationQueryAuditService auditService = mock(FederationQueryAuditService.class);
+    List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    when(auditService.create(anyCollection())).thenAnswer(invocation -> {
+      Collection<FederationQueryAudit> batch = invocation.getArgument(0);
+      batchSizes.add(batch.size());
+      return new ArrayList<>(batch);
+    });
+    FederationQueryAuditWriter writer = new FederationQueryAuditWriter(auditService, null);
+
+    for (int i = 0; i < 5; i++) {
+      writer.submit(audit("q" + i));
+    }
+    writer.destroy();
+
+    assertEquals(5, batchSizes.stream().mapToInt(Integer::intValue).sum());
+    assertEquals(new FederationQueryAuditWriter.Stats(0, 5L, 0L, 0L), writer.stats());
+    verify(auditService, never()).create(any(FederationQueryAudit.class));
+  }
+
+  @Test
+  void dropsAuditsWhenQueueIsFull() throws Exception {
+    FederationQueryAuditService auditService = mock(FederationQueryAuditService.class);
+    CountDownLatch writing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(auditService.create(anyCollection())).thenAnswer(invocation -> {
+      writing.countDown();
+      release.await(5, TimeUnit.SECONDS);
+      return new ArrayList<>(invocation.<Collection<FederationQueryAudit>>getArgument(0));
+    });
+    FederationQueryAuditWriter writer = new FederationQueryAuditWriter(auditService, null);
+    setField(writer, "queueCapacity", 1);
+
+    writer.submit(audit("running"));
+    assertTrue(writing.await(5, TimeUnit.SECONDS));
+    writer.submit(audit("queued"));
+    writer.submit(audit("dropped"));
+    assertEquals(1L, writer.stats().dropped());
+    assertEquals(1, writer.stats().queued());
+
+    release.countDown();
+    writer.destroy();
+    assertEquals(2L, writer.stats().written());
+  }
+
+  @Test
+  void drainsQueueOnClosingThreadWhenWorkerOutlivesShutdownTimeout() throws Exception {
+    FederationQueryAuditService auditService = mock(FederationQueryAuditService.class);
+    CountDownLatch writing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    List<String> writers = new CopyOnWriteArrayList<>();
+    when(auditService.create(anyCollection())).thenAnswer(invocation -> {
+      writers.add(Thread.currentThread().getName());
+      if (writing.getCount() > 0) {
+        writing.countDown();
+        release.await(5, TimeUnit.SECONDS);
+      }
+      return new ArrayList<>(invocation.<Collection<FederationQueryAudit>>getArgument(0));
+    });
+    FederationQueryAuditWriter writer = new FederationQueryAuditWriter(auditService, null);
+    setField(writer, "shutdownTimeoutMs", 50L);
+
+    writer.submit(audit("stuck"));
+    assertTrue(writing.await(5, TimeUnit.SECONDS));
+    writer.submit(audit("queued-1"));
+    writer.submit(audit("queued-2"));
+    writer.destroy();
+
+    assertEquals(0, writer.stats().queued());
+    assertEquals(2L, writer.stats().written());
+    assertTrue(writers.contains(Thread.currentThread().getName()));
+    release.countDown();
+  }
+
+  @Test
+  void retriesFailedBatchRowByRowAndCountsFailures() {
+    FederationQueryAuditService auditService = mock(FederationQueryAuditService.class);
+    when(auditService.create(anyCollection())).thenThrow(new IllegalStateException("batch failed"));
+    when(auditService.create(any(FederationQueryAudit.class))).thenAnswer(invocation -> {
+      FederationQueryAudit audit = invocation.getArgument(0);
+      if ("bad".equals(audit.getQueryText())) {
+        throw new IllegalStateException("row failed");
+      }
+      return audit;
+    });
+    FederationQueryAuditWriter writer = new FederationQueryAuditWriter(auditService, null);
+
+    writer.submit(audit("good"));
+    writer.submit(audit("bad"));
+    writer.destroy();
+
+    assertEquals(1L, writer.stats().failed());
+    assertEquals(1L, writer.stats().written());
+  }
+
+  private static FederationQueryAudit audit(final String sql) {
+    FederationQueryAudit audit = new FederationQueryAudit();
+    audit.setStatus("SUCCESS");
+    audit.setQueryText(sql);
+    return audit;
+  }
+
+  private static void setField(final Object target, final String name, final Object value) throws Exception {
+    Field field = target.getClass().getDeclaredField(name);
+    field.setAccessible(true);
+    field.set(target, value);
+  }
+}
@@ -0,0 +1,83 @@
+package org.simplepoint.plugin.dna.federation.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.simplepoint.plugin.dna.federation.api.entity.FederationQueryPolicy;
+import org.simplepoint.plugin.dna.federation.api.repository.FederationQueryPolicyRepository;
+import org.simplepoint.plugin.dna.federation.service.support.FederationQueryPolicyCache.CompiledPolicy;
+
+class FederationQueryPolicyCacheTest {
+
+  @Test
+  void reusesCompiledSnapshotUntilInvalidated() {
+    FederationQueryPolicyRepository repository = mock(FederationQueryPolicyRepository.class);
+    when(repository.findAllActiveByCatalogId("ds-1")).thenReturn(List.of(
+        policy("old", 100, Instant.parse("2026-01-01T00:00:00Z")),
+        policy("new", 500, Instant.parse("2026-02-01T00:00:00Z"))
+    ));
+    FederationQueryPolicyCache cache = new FederationQueryPolicyCache(repository);
+
+    CompiledPolicy first = cache.resolve("ds-1").orElseThrow();
+    CompiledPolicy second = cache.resolve("ds-1").orElseThrow();
+
+    assertEquals("new", first.code());
+    assertEquals(first, second);
+    verify(repository, times(1)).findAllActiveByCatalogId("ds-1");
+
+    cache.invalidate(List.of("ds-1"));
+    cache.resolve("ds-1");
+    verify(repository, times(2)).findAllActiveByCatalogId("ds-1");
+  }
+
+  @Test
+  void cachesMissingPolicyAndCompilesViolations() {
+    FederationQueryPolicyRepository repository = mock(FederationQueryPolicyRepository.class);
+    FederationQueryPolicy closed = policy("closed", 100, Instant.now());
+    closed.setAllowSqlConsole(false);
+    when(repository.findAllActiveByCatalogId("ds-closed")).thenReturn(List.of(closed));
+    when(repository.findAllActiveByCatalogId("ds-none")).thenReturn(List.of());
+    FederationQueryPolicyCache cache = new FederationQueryPolicyCache(repository);
+
+    assertFalse(cache.resolve("ds-none").isPresent());
+    assertFalse(cache.resolve("ds-none").isPresent());
+    verify(repository, times(1)).findAllActiveByCatalogId("ds-none");
+    assertTrue(cache.resolve("ds-closed").orElseThrow().violation().contains("SQL 控制台"));
+    assertEquals(2, cache.size());
+
+    cache.invalidate(null);
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void capsRequestedRowsByPolicyLimit() {
+    CompiledPolicy policy = new CompiledPolicy("p", 200, 1_000, false, null);
+
+    assertEquals(200, policy.effectiveMaxRows(null));
+    assertEquals(200, policy.effectiveMaxRows(0));
+    assertEquals(50, policy.effectiveMaxRows(50));
+    assertEquals(200, policy.effectiveMaxRows(5_000));
+    assertNull(policy.violation());
+  }
+
+  private static FederationQueryPolicy policy(final String code, final int maxRows, final Instant updatedAt) {
+    FederationQueryPolicy policy = new FederationQueryPolicy();
+    policy.setCode(code);
+    policy.setEnabled(true);
+    policy.setAllowSqlConsole(true);
+    policy.setAllowCrossSourceJoin(true);
+    policy.setMaxRows(maxRows);
+    policy.setTimeoutMs(30_000);
+    policy.setUpdatedAt(updatedAt);
+    return policy;
+  }
+}
@@ -6,6 +6,7 @@ import org.gradle.jvm.tasks.Jar
 import org.gradle.kotlin.dsl.the
 
 dependencies {
+    implementation(project(":simplepoint-plugins:simplepoint-plugin-dna:simplepoint-plugin-dna-jdbc-protocol"))
     testImplementation("org.springframework.boot:spring-boot-starter-test")
 }
 
@@ -0,0 +1,84 @@
+package org.simplepoint.plugin.dna.jdbc.driver;
+
+import java.io.Serial;
+import java.sql.BatchUpdateException;
+
+/**
+ * {@link BatchUpdateException} thrown by {@code DnaJdbcPreparedStatement#executeBatch()}.
+ *
+ * <p>Large batches are sent as several {@code EXECUTE_BATCH} frames and every frame commits in its
+ * own transaction on the target datasource. When a frame fails, the frames before it stay
+ * committed, the failing frame is rolled back, and later frames are never sent. When the failing
+ * frame got no answer (client timeout, cancel or lost connection) the server may have committed it,
+ * so its sets are reported as in doubt instead and the SQLState is {@code 40003}.
+ * {@link #getUpdateCounts()} holds the counts of the committed parameter sets only; the accessors
+ * below report how the batch was split between committed, rolled-back, in-doubt and unsent sets.
+ */
+public final class DnaJdbcBatchUpdateException extends BatchUpdateException {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  private final int committedParameterSets;
+
+  private final int failedParameterSets;
+
+  private final boolean failedFrameRolledBack;
+
+  private final int totalParameterSets;
+
+  DnaJdbcBatchUpdateException(
+      final String reason,
+      final String sqlState,
+      final int vendorCode,
+      final int[] committedUpdateCounts,
+      final int failedParameterSets,
+      final boolean failedFrameRolledBack,
+      final int totalParameterSets,
+      final Throwable cause
+  ) {
+    super(reason, sqlState, vendorCode, committedUpdateCounts, cause);
+    this.committedParameterSets = committedUpdateCounts.length;
+    this.failedParameterSets = failedParameterSets;
+    this.failedFrameRolledBack = failedFrameRolledBack;
+    this.totalParameterSets = totalParameterSets;
+  }
+
+  /**
+   * Returns the number of leading parameter sets that were committed before the failure.
+   *
+   * @return committed parameter sets
+   */
+  public int getCommittedParameterSets() {
+    return committedParameterSets;
+  }
+
+  /**
+   * Returns the number of parameter sets in the failing frame when the server reported that frame
+   * as failed, all of which were rolled back.
+   *
+   * @return rolled-back parameter sets, {@code 0} when the frame's outcome is unknown
+   */
+  public int getRolledBackParameterSets() {
+    return failedFrameRolledBack ? failedParameterSets : 0;
+  }
+
+  /**
+   * Returns the number of parameter sets in a failing frame that got no answer from the server.
+   * They may or may not have been committed and should be verified before retrying.
+   *
+   * @return in-doubt parameter sets, {@code 0} when the server reported the failure
+   */
+  public int getInDoubtParameterSets() {
+    return failedFrameRolledBack ? 0 : failedParameterSets;
+  }
+
+  /**
+   * Returns the number of parameter sets that were never sent because an earlier frame failed.
+   *
+   * @return unsent parameter sets
+   */
+  public int getUnsentParameterSets() {
+    return totalParameterSets - committedParameterSets - failedParameterSets;
+  }
+}
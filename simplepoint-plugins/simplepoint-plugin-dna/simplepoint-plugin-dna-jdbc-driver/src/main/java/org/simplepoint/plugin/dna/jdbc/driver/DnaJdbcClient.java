@@ -1,49 +1,100 @@
 package org.simplepoint.plugin.dna.jdbc.driver;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import org.simplepoint.plugin.dna.jdbc.protocol.DnaJdbcErrorCodes;
 
 /**
  * Transport facade used by the standalone DNA JDBC driver.
  * Caches metadata results to avoid redundant TCP round-trips during IDE refresh cycles.
- * Cached entries expire after a configurable TTL (default 300 s) so that schema
- * changes are picked up without a manual cache flush.
+ * Cached entries expire after a configurable TTL (default 300 s), and the whole cache is
+ * dropped as soon as a server response carries a new metadata version, so schema changes
+ * made through DNA are picked up without waiting for the TTL.
+ *
+ * <p>Column lookups for a concrete schema are answered from one SCHEMA_COLUMNS frame holding
+ * every column of that schema, so browsing N tables costs one round trip instead of N. The
+ * catalogs, table types, type info and schemas a database tool reads right after connecting are
+ * fetched together: the first of them that misses the cache pipelines every missing one.
  */
 final class DnaJdbcClient implements AutoCloseable {
 
+  private static final Logger LOGGER = Logger.getLogger(DnaJdbcClient.class.getName());
+
   private static final long DEFAULT_CACHE_TTL_SECONDS = 300;
 
+  private static final int DEFAULT_FETCH_SIZE = 1_000;
+
+  private static final List<String> NAVIGATOR_KEYS = List.of("catalogs", "tableTypes", "typeInfo", "schemas:*:*");
+
+  private static final List<String> NAVIGATOR_ACTIONS = List.of("CATALOGS", "TABLE_TYPES", "TYPE_INFO", "SCHEMAS");
+
   private final DnaJdbcSocketTransport transport;
 
   private final ConcurrentMap<String, TimedEntry> metadataCache;
 
   private final long cacheTtlMillis;
 
+  private final boolean metadataWarmup;
+
+  private final int defaultFetchSize;
+
+  private volatile boolean bulkColumns;
+
+  private volatile long cacheVersion = -1L;
+
   DnaJdbcClient(final DnaJdbcModels.ConnectionConfig config) throws SQLException {
     this.transport = new DnaJdbcSocketTransport(config);
     this.metadataCache = new ConcurrentHashMap<>();
     this.cacheTtlMillis = resolveCacheTtl(config) * 1_000L;
+    this.bulkColumns = resolveBooleanProperty(config, "metadataBulkColumns", true);
+    this.metadataWarmup = resolveBooleanProperty(config, "metadataWarmup", false);
+    this.defaultFetchSize = resolveFetchSize(config);
+  }
+
+  /**
+   * Fetch size new statements start with, from the {@code defaultFetchSize} property. Together
+   * with forward-only statements this makes plain {@code createStatement()} callers stream large
+   * results through a server cursor; {@code 0} restores fully buffered results.
+   */
+  int defaultFetchSize() {
+    return defaultFetchSize;
   }
 
   DnaJdbcModels.PingResult ping() throws SQLException {
     return transport.ping();
   }
 
+  /**
+   * Preloads the metadata every database tool asks for right after connecting (catalogs, table
+   * types, type info and schemas) with one pipelined round trip. Enabled by the
+   * {@code metadataWarmup} property; without it the same set is pipelined on the first metadata
+   * call instead. Failures only leave the cache cold.
+   */
+  void warmUpMetadata() {
+    if (metadataWarmup) {
+      prefetchNavigatorMetadata();
+    }
+  }
+
   DnaJdbcModels.TabularResult catalogs() throws SQLException {
-    return cachedMetadata("catalogs", () -> transport.catalogs());
+    return navigatorMetadata("catalogs", () -> transport.catalogs());
   }
 
   DnaJdbcModels.TabularResult schemas(final String catalogPattern, final String schemaPattern) throws SQLException {
-    return cachedMetadata("schemas:" + norm(catalogPattern) + ':' + norm(schemaPattern),
+    return navigatorMetadata("schemas:" + norm(catalogPattern) + ':' + norm(schemaPattern),
         () -> transport.schemas(catalogPattern, schemaPattern));
   }
 
   DnaJdbcModels.TabularResult tableTypes() throws SQLException {
-    return cachedMetadata("tableTypes", () -> transport.tableTypes());
+    return navigatorMetadata("tableTypes", () -> transport.tableTypes());
   }
 
   DnaJdbcModels.TabularResult tables(
@@ -63,6 +114,26 @@ final class DnaJdbcClient implements AutoCloseable {
       final String tablePattern,
       final String columnPattern
   ) throws SQLException {
+    if (bulkColumns && schemaPattern != null && !schemaPattern.isBlank() && !containsUnescapedWildcard(schemaPattern)) {
+      try {
+        DnaJdbcModels.TabularResult schemaColumns = cachedMetadata(
+            "schemaColumns:" + norm(catalogPattern) + ':' + schemaPattern,
+            () -> transport.schemaColumns(catalogPattern, schemaPattern));
+        DnaJdbcModels.TabularResult filtered = filterColumns(schemaColumns, tablePattern, columnPattern);
+        if (filtered != null) {
+          return filtered;
+        }
+      } catch (SQLException ex) {
+        // Servers without SCHEMA_COLUMNS reject the action; only then stop trying it. Any other
+        // failure falls back to per-table lookups for this call alone.
+        if (isUnsupportedAction(ex)) {
+          LOGGER.log(Level.FINE, "DNA JDBC SCHEMA_COLUMNS unavailable, using per-table COLUMNS", ex);
+          bulkColumns = false;
+        } else {
+          LOGGER.log(Level.FINE, "DNA JDBC SCHEMA_COLUMNS failed, using per-table COLUMNS once", ex);
+        }
+      }
+    }
     return cachedMetadata("columns:" + norm(catalogPattern) + ':' + norm(schemaPattern)
             + ':' + norm(tablePattern) + ':' + norm(columnPattern),
         () -> transport.columns(catalogPattern, schemaPattern, tablePattern, columnPattern));
@@ -108,7 +179,7 @@ final class DnaJdbcClient implements AutoCloseable {
   }
 
   DnaJdbcModels.TabularResult typeInfo() throws SQLException {
-    return cachedMetadata("typeInfo", () -> transport.typeInfo());
+    return navigatorMetadata("typeInfo", () -> transport.typeInfo());
   }
 
   DnaJdbcModels.QueryResult query(
@@ -116,9 +187,29 @@ final class DnaJdbcClient implements AutoCloseable {
       final String sql,
       final String defaultSchema,
       final List<Object> parameters,
-      final Integer maxRows
+      final Integer maxRows,
+      final Integer fetchSize
+  ) throws SQLException {
+    return transport.query(catalogCode, sql, defaultSchema, parameters, maxRows, fetchSize);
+  }
+
+  DnaJdbcModels.QueryPage openQuery(
+      final String catalogCode,
+      final String sql,
+      final String defaultSchema,
+      final List<Object> parameters,
+      final Integer maxRows,
+      final Integer fetchSize
   ) throws SQLException {
-    return transport.query(catalogCode, sql, defaultSchema, parameters, maxRows);
+    return transport.openQuery(catalogCode, sql, defaultSchema, parameters, maxRows, fetchSize);
+  }
+
+  DnaJdbcModels.CursorResult fetch(final String cursorId, final Integer fetchSize) throws SQLException {
+    return transport.fetch(cursorId, fetchSize);
+  }
+
+  void closeCursor(final String cursorId) throws SQLException {
+    transport.closeCursor(cursorId);
   }
 
   DnaJdbcModels.UpdateResult executeUpdate(
@@ -130,6 +221,15 @@ final class DnaJdbcClient implements AutoCloseable {
     return transport.executeUpdate(catalogCode, sql, defaultSchema, parameters);
   }
 
+  DnaJdbcModels.BatchUpdateResult executeBatch(
+      final String catalogCode,
+      final String sql,
+      final String defaultSchema,
+      final List<List<Object>> parameterSets
+  ) throws SQLException {
+    return transport.executeBatch(catalogCode, sql, defaultSchema, parameterSets);
+  }
+
   DnaJdbcModels.UpdateResult executeDdl(
       final String catalogCode,
       final String sql,
@@ -150,6 +250,18 @@ final class DnaJdbcClient implements AutoCloseable {
     transport.flushCache();
   }
 
+  String startQuery() {
+    return transport.startQuery();
+  }
+
+  void endQuery() {
+    transport.endQuery();
+  }
+
+  void cancel(final String queryId) throws SQLException {
+    transport.cancel(queryId);
+  }
+
   void setSocketTimeout(final int timeoutMs) throws SQLException {
     transport.setSocketTimeout(timeoutMs);
   }
@@ -160,10 +272,67 @@ final class DnaJdbcClient implements AutoCloseable {
     transport.close();
   }
 
+  /**
+   * Serves one of the navigator entries, first pipelining every navigator entry that is missing
+   * so a tool reading them one after another pays a single round trip.
+   */
+  private DnaJdbcModels.TabularResult navigatorMetadata(
+      final String key,
+      final MetadataSupplier supplier
+  ) throws SQLException {
+    if (NAVIGATOR_KEYS.contains(key)) {
+      syncCacheVersion();
+      if (!isFresh(key, System.currentTimeMillis())) {
+        prefetchNavigatorMetadata();
+      }
+    }
+    return cachedMetadata(key, supplier);
+  }
+
+  /**
+   * Loads the navigator entries missing from the cache with one pipelined round trip. A single
+   * missing entry is left to the regular call; failed entries stay cold and are loaded, with their
+   * error, by that call.
+   */
+  private void prefetchNavigatorMetadata() {
+    syncCacheVersion();
+    long now = System.currentTimeMillis();
+    List<String> keys = new ArrayList<>();
+    List<DnaJdbcModels.SocketRequest> requests = new ArrayList<>();
+    for (int i = 0; i < NAVIGATOR_KEYS.size(); i++) {
+      if (!isFresh(NAVIGATOR_KEYS.get(i), now)) {
+        keys.add(NAVIGATOR_KEYS.get(i));
+        requests.add(transport.request(NAVIGATOR_ACTIONS.get(i)).build());
+      }
+    }
+    if (requests.size() < 2) {
+      return;
+    }
+    try {
+      List<DnaJdbcModels.SocketResponse> responses = transport.pipeline(requests);
+      syncCacheVersion();
+      long loadedAt = System.currentTimeMillis();
+      for (int i = 0; i < keys.size() && i < responses.size(); i++) {
+        DnaJdbcModels.SocketResponse response = responses.get(i);
+        if (Boolean.TRUE.equals(response.success()) && response.tabularResult() != null) {
+          metadataCache.put(keys.get(i), new TimedEntry(response.tabularResult(), loadedAt));
+        }
+      }
+    } catch (SQLException ex) {
+      LOGGER.log(Level.FINE, "DNA JDBC metadata prefetch failed", ex);
+    }
+  }
+
+  private boolean isFresh(final String key, final long now) {
+    TimedEntry entry = metadataCache.get(key);
+    return entry != null && now - entry.timestamp < cacheTtlMillis;
+  }
+
   private DnaJdbcModels.TabularResult cachedMetadata(
       final String key,
       final MetadataSupplier supplier
   ) throws SQLException {
+    syncCacheVersion();
     long now = System.currentTimeMillis();
     evictExpired(now);
     TimedEntry entry = metadataCache.get(key);
@@ -171,12 +340,116 @@ final class DnaJdbcClient implements AutoCloseable {
       return entry.value;
     }
     DnaJdbcModels.TabularResult result = supplier.get();
+    // The response itself may announce a newer version; drop older entries before caching it.
+    syncCacheVersion();
     if (result != null) {
       metadataCache.put(key, new TimedEntry(result, now));
     }
     return result;
   }
 
+  /**
+   * Drops every cached entry once the server reports a metadata version other than the one
+   * the entries were loaded under.
+   */
+  private void syncCacheVersion() {
+    long serverVersion = transport.metadataVersion();
+    if (serverVersion != cacheVersion) {
+      metadataCache.clear();
+      cacheVersion = serverVersion;
+    }
+  }
+
+  /**
+   * Tells whether the server rejected a request because it does not know the action, as opposed
+   * to failing while running it.
+   */
+  private static boolean isUnsupportedAction(final SQLException ex) {
+    return ex instanceof DnaJdbcServerException serverException
+        && DnaJdbcErrorCodes.UNSUPPORTED_ACTION.equals(serverException.errorCode());
+  }
+
+  /**
+   * Filters schema-wide column rows down to a table and column pattern with the server's
+   * case-insensitive LIKE semantics, or returns null when the result lacks the name columns.
+   */
+
+  private static DnaJdbcModels.TabularResult filterColumns(
+      final DnaJdbcModels.TabularResult schemaColumns,
+      final String tablePattern,
+      final String columnPattern
+  ) {
+    if (schemaColumns == null || schemaColumns.columns() == null || schemaColumns.rows() == null) {
+      return null;
+    }
+    int tableIndex = columnIndex(schemaColumns.columns(), "TABLE_NAME");
+    int columnIndex = columnIndex(schemaColumns.columns(), "COLUMN_NAME");
+    if (tableIndex < 0 || columnIndex < 0) {
+      return null;
+    }
+    List<List<Object>> rows = new ArrayList<>();
+    for (List<Object> row : schemaColumns.rows()) {
+      if (matchesPattern(cell(row, tableIndex), tablePattern) && matchesPattern(cell(row, columnIndex), columnPattern)) {
+        rows.add(row);
+      }
+    }
+    return new DnaJdbcModels.TabularResult(schemaColumns.columns(), rows);
+  }
+
+  private static int columnIndex(final List<DnaJdbcModels.ColumnDef> columns, final String name) {
+    for (int i = 0; i < columns.size(); i++) {
+      if (columns.get(i) != null && name.equalsIgnoreCase(columns.get(i).name())) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static String cell(final List<Object> row, final int index) {
+    return row == null || index >= row.size() || row.get(index) == null ? null : row.get(index).toString();
+  }
+
+  private static boolean matchesPattern(final String value, final String pattern) {
+    if (pattern == null || pattern.isBlank()) {
+      return true;
+    }
+    if (value == null) {
+      return false;
+    }
+    String normalizedPattern = pattern.trim();
+    if (!containsUnescapedWildcard(normalizedPattern)) {
+      return value.trim().equalsIgnoreCase(normalizedPattern.replace("\\", ""));
+    }
+    StringBuilder regex = new StringBuilder();
+    for (int index = 0; index < normalizedPattern.length(); index++) {
+      char current = normalizedPattern.charAt(index);
+      if (current == '\\' && index + 1 < normalizedPattern.length()) {
+        regex.append(Pattern.quote(String.valueOf(normalizedPattern.charAt(++index))));
+      } else if (current == '%') {
+        regex.append(".*");
+      } else if (current == '_') {
+        regex.append('.');
+      } else {
+        regex.append(Pattern.quote(String.valueOf(current)));
+      }
+    }
+    return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE)
+        .matcher(value.trim())
+        .matches();
+  }
+
+  private static boolean containsUnescapedWildcard(final String value) {
+    for (int index = 0; index < value.length(); index++) {
+      char current = value.charAt(index);
+      if (current == '\\') {
+        index++;
+      } else if (current == '%' || current == '_') {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private void evictExpired(final long now) {
     Iterator<Map.Entry<String, TimedEntry>> it = metadataCache.entrySet().iterator();
     while (it.hasNext()) {
@@ -202,6 +475,31 @@ final class DnaJdbcClient implements AutoCloseable {
     }
   }
 
+  private static int resolveFetchSize(final DnaJdbcModels.ConnectionConfig config) {
+    String value = config.properties() == null ? null : config.properties().getProperty("defaultFetchSize");
+    if (value == null || value.isBlank()) {
+      return DEFAULT_FETCH_SIZE;
+    }
+    try {
+      int fetchSize = Integer.parseInt(value.trim());
+      return fetchSize >= 0 ? fetchSize : DEFAULT_FETCH_SIZE;
+    } catch (NumberFormatException e) {
+      return DEFAULT_FETCH_SIZE;
+    }
+  }
+
+  private static boolean resolveBooleanProperty(
+      final DnaJdbcModels.ConnectionConfig config,
+      final String key,
+      final boolean defaultValue
+  ) {
+    String value = config.properties() == null ? null : config.properties().getProperty(key);
+    if (value == null || value.isBlank()) {
+      return defaultValue;
+    }
+    return "true".equalsIgnoreCase(value.trim());
+  }
+
   private static String norm(final String value) {
     return value == null || value.isBlank() ? "*" : value;
   }
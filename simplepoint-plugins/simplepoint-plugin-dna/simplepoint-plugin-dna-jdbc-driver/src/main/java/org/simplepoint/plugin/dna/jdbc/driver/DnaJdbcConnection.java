@@ -69,6 +69,7 @@ final class DnaJdbcConnection implements Connection {
   static DnaJdbcConnection open(final DnaJdbcModels.ConnectionConfig config) throws SQLException {
     DnaJdbcClient client = new DnaJdbcClient(config);
     DnaJdbcModels.PingResult pingResult = client.ping();
+    client.warmUpMetadata();
     return new DnaJdbcConnection(
         config.originalUrl(),
         client,
@@ -123,7 +124,7 @@ final class DnaJdbcConnection implements Connection {
     ensureOpen();
     return new DnaJdbcStatement(
         this,
-        ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY, ResultSet.CLOSE_CURSORS_AT_COMMIT
+        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, ResultSet.CLOSE_CURSORS_AT_COMMIT
     );
   }
 
@@ -157,7 +158,7 @@ final class DnaJdbcConnection implements Connection {
     String normalizedSql = requireNonEmptySql(sql);
     return new DnaJdbcPreparedStatement(
         this, normalizedSql,
-        ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY, ResultSet.CLOSE_CURSORS_AT_COMMIT
+        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, ResultSet.CLOSE_CURSORS_AT_COMMIT
     );
   }
 
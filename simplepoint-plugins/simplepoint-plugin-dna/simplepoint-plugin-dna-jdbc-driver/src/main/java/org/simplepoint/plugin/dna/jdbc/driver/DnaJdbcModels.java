@@ -2,6 +2,7 @@ package org.simplepoint.plugin.dna.jdbc.driver;
 
 import java.net.URI;
 import java.util.List;
+import org.simplepoint.plugin.dna.jdbc.protocol.DnaJdbcWireFormat;
 
 /**
  * Client-side models used by the standalone DNA JDBC driver.
@@ -64,6 +65,26 @@ final class DnaJdbcModels {
   ) {
   }
 
+  record CursorResult(
+      String cursorId,
+      List<List<Object>> rows,
+      Boolean hasMore
+  ) {
+  }
+
+  /**
+   * First page of a query. {@code cursor} is only set when the server opened a cursor.
+   */
+  record QueryPage(
+      QueryResult result,
+      CursorResult cursor
+  ) {
+
+    boolean hasMore() {
+      return result != null && cursor != null && Boolean.TRUE.equals(cursor.hasMore());
+    }
+  }
+
   record UpdateResult(
       String catalogCode,
       String dataSourceCode,
@@ -73,6 +94,15 @@ final class DnaJdbcModels {
   ) {
   }
 
+  record BatchUpdateResult(
+      String catalogCode,
+      String dataSourceCode,
+      long[] updateCounts,
+      Long executionTimeMs,
+      String pushedSql
+  ) {
+  }
+
   record SocketRequest(
       String action,
       String loginSubject,
@@ -92,7 +122,14 @@ final class DnaJdbcModels {
       Boolean approximate,
       List<SocketRequest> batch,
       List<Object> parameters,
-      Integer maxRows
+      Integer maxRows,
+      Integer fetchSize,
+      String cursorId,
+      String encoding,
+      String compression,
+      List<List<Object>> batchParameters,
+      String queryId,
+      String requestId
   ) {
 
     static Builder builder(final String action) {
@@ -120,6 +157,13 @@ final class DnaJdbcModels {
       private List<SocketRequest> batch;
       private List<Object> parameters;
       private Integer maxRows;
+      private Integer fetchSize;
+      private String cursorId;
+      private String encoding;
+      private String compression;
+      private List<List<Object>> batchParameters;
+      private String queryId;
+      private String requestId;
 
       private Builder(final String action) {
         this.action = action;
@@ -215,17 +259,70 @@ final class DnaJdbcModels {
         return this;
       }
 
+      Builder fetchSize(final Integer value) {
+        this.fetchSize = value;
+        return this;
+      }
+
+      Builder cursorId(final String value) {
+        this.cursorId = value;
+        return this;
+      }
+
+      Builder encoding(final String value) {
+        this.encoding = value;
+        return this;
+      }
+
+      Builder compression(final String value) {
+        this.compression = value;
+        return this;
+      }
+
+      Builder batchParameters(final List<List<Object>> value) {
+        this.batchParameters = value;
+        return this;
+      }
+
+      Builder queryId(final String value) {
+        this.queryId = value;
+        return this;
+      }
+
+      Builder requestId(final String value) {
+        this.requestId = value;
+        return this;
+      }
+
       SocketRequest build() {
         return new SocketRequest(
             action, loginSubject, password, catalogCode, tenantId, contextId,
             schema, catalogPattern, schemaPattern, tablePattern, columnPattern,
             types, sql, defaultSchema, unique, approximate, batch, parameters,
-            maxRows
+            maxRows, fetchSize, cursorId, encoding, compression, batchParameters, queryId, requestId
         );
       }
     }
+
+    /**
+     * Returns a copy of this request tagged with a correlation id.
+     */
+    SocketRequest withRequestId(final String value) {
+      return new SocketRequest(
+          action, loginSubject, password, catalogCode, tenantId, contextId,
+          schema, catalogPattern, schemaPattern, tablePattern, columnPattern,
+          types, sql, defaultSchema, unique, approximate, batch, parameters,
+          maxRows, fetchSize, cursorId, encoding, compression, batchParameters, queryId, value
+      );
+    }
   }
 
+  /**
+   * Response envelope. {@code requestId} echoes the correlation id of the request it answers and
+   * {@code metadataVersion} is the server metadata version when the response was written; both are
+   * absent when talking to older servers. {@code errorCode} tags failures the driver reacts to,
+   * one of {@link org.simplepoint.plugin.dna.jdbc.protocol.DnaJdbcErrorCodes}.
+   */
   record SocketResponse(
       Boolean success,
       String errorMessage,
@@ -233,7 +330,104 @@ final class DnaJdbcModels {
       TabularResult tabularResult,
       QueryResult queryResult,
       UpdateResult updateResult,
-      List<SocketResponse> batchResults
+      List<SocketResponse> batchResults,
+      CursorResult cursor,
+      DnaJdbcWireFormat wireFormat,
+      BatchUpdateResult batchUpdateResult,
+      String requestId,
+      Long metadataVersion,
+      String errorCode
   ) {
+
+    SocketResponse(
+        final Boolean success,
+        final String errorMessage,
+        final PingResult pingResult,
+        final TabularResult tabularResult,
+        final QueryResult queryResult,
+        final UpdateResult updateResult,
+        final List<SocketResponse> batchResults
+    ) {
+      this(success, errorMessage, pingResult, tabularResult, queryResult, updateResult, batchResults, null);
+    }
+
+    SocketResponse(
+        final Boolean success,
+        final String errorMessage,
+        final PingResult pingResult,
+        final TabularResult tabularResult,
+        final QueryResult queryResult,
+        final UpdateResult updateResult,
+        final List<SocketResponse> batchResults,
+        final CursorResult cursor
+    ) {
+      this(success, errorMessage, pingResult, tabularResult, queryResult, updateResult, batchResults, cursor, null);
+    }
+
+    SocketResponse(
+        final Boolean success,
+        final String errorMessage,
+        final PingResult pingResult,
+        final TabularResult tabularResult,
+        final QueryResult queryResult,
+        final UpdateResult updateResult,
+        final List<SocketResponse> batchResults,
+        final CursorResult cursor,
+        final DnaJdbcWireFormat wireFormat
+    ) {
+      this(success, errorMessage, pingResult, tabularResult, queryResult, updateResult, batchResults, cursor,
+          wireFormat, null);
+    }
+
+    SocketResponse(
+        final Boolean success,
+        final String errorMessage,
+        final PingResult pingResult,
+        final TabularResult tabularResult,
+        final QueryResult queryResult,
+        final UpdateResult updateResult,
+        final List<SocketResponse> batchResults,
+        final CursorResult cursor,
+        final DnaJdbcWireFormat wireFormat,
+        final BatchUpdateResult batchUpdateResult
+    ) {
+      this(success, errorMessage, pingResult, tabularResult, queryResult, updateResult, batchResults, cursor,
+          wireFormat, batchUpdateResult, null, null);
+    }
+
+    SocketResponse(
+        final Boolean success,
+        final String errorMessage,
+        final PingResult pingResult,
+        final TabularResult tabularResult,
+        final QueryResult queryResult,
+        final UpdateResult updateResult,
+        final List<SocketResponse> batchResults,
+        final CursorResult cursor,
+        final DnaJdbcWireFormat wireFormat,
+        final BatchUpdateResult batchUpdateResult,
+        final String requestId,
+        final Long metadataVersion
+    ) {
+      this(success, errorMessage, pingResult, tabularResult, queryResult, updateResult, batchResults, cursor,
+          wireFormat, batchUpdateResult, requestId, metadataVersion, null);
+    }
+
+    /**
+     * Attaches rows decoded from a binary row batch to the query result, or to the cursor of a FETCH.
+     */
+    SocketResponse withRowBatch(final List<List<Object>> rows) {
+      if (queryResult != null) {
+        QueryResult withRows = new QueryResult(queryResult.columns(), rows, queryResult.truncated(), (long) rows.size());
+        return new SocketResponse(success, errorMessage, pingResult, tabularResult, withRows, updateResult,
+            batchResults, cursor, wireFormat, batchUpdateResult, requestId, metadataVersion, errorCode);
+      }
+      if (cursor != null) {
+        return new SocketResponse(success, errorMessage, pingResult, tabularResult, null, updateResult,
+            batchResults, new CursorResult(cursor.cursorId(), rows, cursor.hasMore()), wireFormat, batchUpdateResult,
+            requestId, metadataVersion, errorCode);
+      }
+      return this;
+    }
   }
 }
@@ -37,6 +37,11 @@ import java.util.Map;
  */
 final class DnaJdbcPreparedStatement extends DnaJdbcStatement implements PreparedStatement {
 
+  /**
+   * Parameter sets sent per EXECUTE_BATCH frame, keeping large batches under the frame size limit.
+   */
+  private static final int BATCH_CHUNK_SIZE = 5000;
+
   private final String sqlTemplate;
 
   private final Map<Integer, Object> parameters = new LinkedHashMap<>();
@@ -238,27 +243,35 @@ final class DnaJdbcPreparedStatement extends DnaJdbcStatement implements Prepare
     if (batchParameterSets.isEmpty()) {
       return new int[0];
     }
+    int[] counts = new int[batchParameterSets.size()];
+    int executed = 0;
+    int pending = 0;
     try {
-      java.util.List<DnaJdbcModels.SocketRequest> requests = new java.util.ArrayList<>(batchParameterSets.size());
-      for (java.util.List<Object> params : batchParameterSets) {
-        requests.add(DnaJdbcModels.SocketRequest.builder("EXECUTE_UPDATE")
-            .catalogCode(connection.currentCatalog())
-            .sql(sqlTemplate)
-            .defaultSchema(connection.currentSchema())
-            .parameters(params)
-            .build());
-      }
-      java.util.List<DnaJdbcModels.SocketResponse> responses = connection.client().batch(requests);
-      int[] counts = new int[batchParameterSets.size()];
-      for (int i = 0; i < counts.length; i++) {
-        if (i < responses.size() && Boolean.TRUE.equals(responses.get(i).success())) {
-          DnaJdbcModels.UpdateResult ur = responses.get(i).updateResult();
-          counts[i] = (int) (ur != null && ur.affectedRows() != null ? ur.affectedRows() : SUCCESS_NO_INFO);
-        } else {
-          counts[i] = EXECUTE_FAILED;
+      while (executed < counts.length) {
+        java.util.List<java.util.List<Object>> chunk = batchParameterSets.subList(
+            executed, Math.min(executed + BATCH_CHUNK_SIZE, counts.length)
+        );
+        pending = chunk.size();
+        long[] updateCounts = withTimeoutGuard("执行", () -> connection.client().executeBatch(
+            connection.currentCatalog(), sqlTemplate, connection.currentSchema(), chunk
+        ).updateCounts());
+        for (int i = 0; i < chunk.size(); i++) {
+          counts[executed + i] = i < updateCounts.length ? (int) updateCounts[i] : SUCCESS_NO_INFO;
         }
+        executed += chunk.size();
       }
       return counts;
+    } catch (SQLException ex) {
+      // Only a failure response proves the frame was rolled back; after a timeout, cancel or lost
+      // connection the server may still have committed it.
+      boolean rolledBack = DnaJdbcServerException.reportedByServer(ex);
+      throw new DnaJdbcBatchUpdateException(
+          "批量执行失败：前 " + executed + " 组参数已提交，随后 " + pending
+              + (rolledBack ? " 组已回滚" : " 组结果未知（服务端可能已提交）") + "，其余 "
+              + (counts.length - executed - pending) + " 组未执行：" + ex.getMessage(),
+          rolledBack ? ex.getSQLState() : "40003", ex.getErrorCode(), java.util.Arrays.copyOf(counts, executed),
+          pending, rolledBack, counts.length, ex
+      );
     } finally {
       batchParameterSets.clear();
     }
@@ -0,0 +1,1562 @@
+package org.simplepoint.plugin.dna.jdbc.driver;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.sql.rowset.serial.SerialBlob;
+import javax.sql.rowset.serial.SerialClob;
+import org.simplepoint.plugin.dna.jdbc.protocol.DnaJdbcRowBatch;
+
+/**
+ * Read-only {@link ResultSet} over rows decoded from DNA gateway responses.
+ *
+ * <p>Without a server cursor every row is already in memory and the result set is
+ * scroll-insensitive. With a cursor only the current batch is held: once it has been read the
+ * next batch is pulled with FETCH and the previous one is dropped, so the result set is
+ * forward-only. Typed getters convert the decoded cell directly instead of going through
+ * reflection, and closing the result set early releases the server cursor.
+ */
+final class DnaJdbcResultSet implements ResultSet {
+
+  private final Statement statement;
+
+  private final ResultSetMetaData metaData;
+
+  private final int[] jdbcTypes;
+
+  private final BatchCursor cursor;
+
+  private final int maxRows;
+
+  private Map<String, Integer> columnIndexes;
+
+  private List<List<Object>> rows;
+
+  private long batchOffset;
+
+  private int position;
+
+  private boolean cursorOpen;
+
+  private int fetchSize;
+
+  private boolean wasNull;
+
+  private boolean closed;
+
+  /**
+   * Creates a result set.
+   *
+   * @param statement statement that produced the rows, may be null for metadata results
+   * @param metaData  column metadata
+   * @param jdbcTypes resolved JDBC type per column
+   * @param firstRows rows already received
+   * @param cursor    server cursor holding the remaining rows, or null when every row is present
+   * @param maxRows   row limit, {@code 0} for unlimited
+   * @param fetchSize rows pulled per FETCH
+   */
+  DnaJdbcResultSet(
+      final Statement statement,
+      final ResultSetMetaData metaData,
+      final int[] jdbcTypes,
+      final List<List<Object>> firstRows,
+      final BatchCursor cursor,
+      final int maxRows,
+      final int fetchSize
+  ) {
+    this.statement = statement;
+    this.metaData = metaData;
+    this.jdbcTypes = jdbcTypes;
+    this.cursor = cursor;
+    this.cursorOpen = cursor != null;
+    this.maxRows = Math.max(maxRows, 0);
+    this.fetchSize = fetchSize;
+    List<List<Object>> initial = firstRows == null ? List.of() : firstRows;
+    this.rows = this.maxRows > 0 && initial.size() > this.maxRows ? initial.subList(0, this.maxRows) : initial;
+    this.position = -1;
+  }
+
+  /**
+   * Remaining rows of a server-side cursor.
+   */
+  interface BatchCursor {
+
+    /**
+     * Pulls the next batch.
+     *
+     * @param fetchSize requested rows
+     * @return next batch and whether more rows remain
+     * @throws SQLException when the FETCH fails
+     */
+    DnaJdbcModels.CursorResult fetch(int fetchSize) throws SQLException;
+
+    /**
+     * Releases the server cursor before it is exhausted.
+     *
+     * @throws SQLException when CLOSE_CURSOR fails
+     */
+    void close() throws SQLException;
+  }
+
+  // ------------------------------------------------------------------
+  // Navigation
+  // ------------------------------------------------------------------
+
+  @Override
+  public boolean next() throws SQLException {
+    ensureOpen();
+    if (position < rows.size()) {
+      position++;
+    }
+    while (position >= rows.size() && cursorOpen && !limitReached()) {
+      DnaJdbcModels.CursorResult batch = cursor.fetch(fetchSize);
+      cursorOpen = Boolean.TRUE.equals(batch.hasMore());
+      batchOffset += rows.size();
+      rows = batch.rows() == null ? List.of() : batch.rows();
+      position = 0;
+    }
+    if (position < rows.size() && limitReached()) {
+      position = rows.size();
+    }
+    if (position >= rows.size()) {
+      position = rows.size();
+      releaseCursor();
+      return false;
+    }
+    return true;
+  }
+
+  @Override
+  public boolean previous() throws SQLException {
+    ensureScrollable();
+    if (position >= 0) {
+      position--;
+    }
+    return position >= 0;
+  }
+
+  @Override
+  public boolean absolute(final int row) throws SQLException {
+    ensureScrollable();
+    int target = row >= 0 ? row : rows.size() + row + 1;
+    if (target <= 0) {
+      position = -1;
+      return false;
+    }
+    if (target > rows.size()) {
+      position = rows.size();
+      return false;
+    }
+    position = target - 1;
+    return true;
+  }
+
+  @Override
+  public boolean relative(final int rowCount) throws SQLException {
+    ensureScrollable();
+    if (position < 0 || position >= rows.size()) {
+      throw new SQLException("当前没有有效行，无法执行 relative", "24000");
+    }
+    return absolute(Math.max(position + 1 + rowCount, 0));
+  }
+
+  @Override
+  public boolean first() throws SQLException {
+    return absolute(1);
+  }
+
+  @Override
+  public boolean last() throws SQLException {
+    return absolute(-1);
+  }
+
+  @Override
+  public void beforeFirst() throws SQLException {
+    ensureScrollable();
+    position = -1;
+  }
+
+  @Override
+  public void afterLast() throws SQLException {
+    ensureScrollable();
+    position = rows.size();
+  }
+
+  @Override
+  public boolean isBeforeFirst() throws SQLException {
+    ensureOpen();
+    return batchOffset == 0 && position < 0 && (!rows.isEmpty() || cursorOpen);
+  }
+
+  @Override
+  public boolean isAfterLast() throws SQLException {
+    ensureOpen();
+    return position >= rows.size() && !cursorOpen && batchOffset + rows.size() > 0;
+  }
+
+  @Override
+  public boolean isFirst() throws SQLException {
+    ensureOpen();
+    return getRow() == 1;
+  }
+
+  @Override
+  public boolean isLast() throws SQLException {
+    ensureOpen();
+    if (position < 0 || position >= rows.size()) {
+      return false;
+    }
+    boolean lastInBatch = position == rows.size() - 1;
+    return lastInBatch && (!cursorOpen || maxRows > 0 && batchOffset + rows.size() >= maxRows);
+  }
+
+  @Override
+  public int getRow() throws SQLException {
+    ensureOpen();
+    return position >= 0 && position < rows.size() ? (int) (batchOffset + position + 1) : 0;
+  }
+
+  @Override
+  public int getType() throws SQLException {
+    return cursor == null ? TYPE_SCROLL_INSENSITIVE : TYPE_FORWARD_ONLY;
+  }
+
+  @Override
+  public int getConcurrency() throws SQLException {
+    return CONCUR_READ_ONLY;
+  }
+
+  @Override
+  public int getHoldability() throws SQLException {
+    return CLOSE_CURSORS_AT_COMMIT;
+  }
+
+  @Override
+  public void setFetchDirection(final int direction) throws SQLException {
+    if (direction != FETCH_FORWARD && cursor != null) {
+      throw new SQLException("DNA JDBC 流式结果集仅支持 FETCH_FORWARD");
+    }
+  }
+
+  @Override
+  public int getFetchDirection() throws SQLException {
+    return FETCH_FORWARD;
+  }
+
+  @Override
+  public void setFetchSize(final int rows) throws SQLException {
+    if (rows < 0) {
+      throw new SQLException("fetchSize 不能小于 0");
+    }
+    if (rows > 0) {
+      this.fetchSize = rows;
+    }
+  }
+
+  @Override
+  public int getFetchSize() throws SQLException {
+    return fetchSize;
+  }
+
+  // ------------------------------------------------------------------
+  // Column access
+  // ------------------------------------------------------------------
+
+  @Override
+  public int findColumn(final String columnLabel) throws SQLException {
+    ensureOpen();
+    if (columnIndexes == null) {
+      Map<String, Integer> indexes = new HashMap<>();
+      for (int index = metaData.getColumnCount(); index >= 1; index--) {
+        String label = metaData.getColumnLabel(index);
+        if (label != null) {
+          indexes.put(label.toUpperCase(Locale.ROOT), index);
+        }
+      }
+      columnIndexes = indexes;
+    }
+    Integer index = columnLabel == null ? null : columnIndexes.get(columnLabel.toUpperCase(Locale.ROOT));
+    if (index == null) {
+      throw new SQLException("结果集中不存在列: " + columnLabel, "42S22");
+    }
+    return index;
+  }
+
+  @Override
+  public boolean wasNull() throws SQLException {
+    return wasNull;
+  }
+
+  @Override
+  public ResultSetMetaData getMetaData() throws SQLException {
+    ensureOpen();
+    return metaData;
+  }
+
+  @Override
+  public Object getObject(final int columnIndex) throws SQLException {
+    return cell(columnIndex);
+  }
+
+  @Override
+  public Object getObject(final int columnIndex, final Map<String, Class<?>> map) throws SQLException {
+    return cell(columnIndex);
+  }
+
+  @Override
+  public <T> T getObject(final int columnIndex, final Class<T> type) throws SQLException {
+    if (type == null) {
+      throw new SQLException("目标类型不能为空");
+    }
+    Object value = cell(columnIndex);
+    if (value == null) {
+      return null;
+    }
+    Object converted;
+    if (type == String.class) {
+      converted = getString(columnIndex);
+    } else if (type == Integer.class || type == int.class) {
+      converted = getInt(columnIndex);
+    } else if (type == Long.class || type == long.class) {
+      converted = getLong(columnIndex);
+    } else if (type == Short.class || type == short.class) {
+      converted = getShort(columnIndex);
+    } else if (type == Byte.class || type == byte.class) {
+      converted = getByte(columnIndex);
+    } else if (type == Double.class || type == double.class) {
+      converted = getDouble(columnIndex);
+    } else if (type == Float.class || type == float.class) {
+      converted = getFloat(columnIndex);
+    } else if (type == Boolean.class || type == boolean.class) {
+      converted = getBoolean(columnIndex);
+    } else if (type == BigDecimal.class) {
+      converted = getBigDecimal(columnIndex);
+    } else if (type == BigInteger.class) {
+      converted = getBigDecimal(columnIndex).toBigInteger();
+    } else if (type == byte[].class) {
+      converted = getBytes(columnIndex);
+    } else if (type == Timestamp.class) {
+      converted = getTimestamp(columnIndex);
+    } else if (type == Date.class) {
+      converted = getDate(columnIndex);
+    } else if (type == Time.class) {
+      converted = getTime(columnIndex);
+    } else if (type == LocalDateTime.class) {
+      converted = getTimestamp(columnIndex).toLocalDateTime();
+    } else if (type == LocalDate.class) {
+      converted = getDate(columnIndex).toLocalDate();
+    } else if (type == LocalTime.class) {
+      converted = getTime(columnIndex).toLocalTime();
+    } else if (type == Instant.class) {
+      converted = getTimestamp(columnIndex).toInstant();
+    } else if (type == OffsetDateTime.class) {
+      converted = getTimestamp(columnIndex).toInstant().atZone(ZoneId.systemDefault()).toOffsetDateTime();
+    } else if (type.isInstance(value)) {
+      converted = value;
+    } else {
+      throw new SQLException("无法将列 " + columnIndex + " 转换为 " + type.getName(), "22018");
+    }
+    @SuppressWarnings("unchecked")
+    T result = (T) converted;
+    return result;
+  }
+
+  @Override
+  public Object getObject(final String columnLabel) throws SQLException {
+    return getObject(findColumn(columnLabel));
+  }
+
+  @Override
+  public Object getObject(final String columnLabel, final Map<String, Class<?>> map) throws SQLException {
+    return getObject(findColumn(columnLabel), map);
+  }
+
+  @Override
+  public <T> T getObject(final String columnLabel, final Class<T> type) throws SQLException {
+    return getObject(findColumn(columnLabel), type);
+  }
+
+  @Override
+  public String getString(final int columnIndex) throws SQLException {
+    Object value = cell(columnIndex);
+    if (value == null || value instanceof String) {
+      return (String) value;
+    }
+    if (value instanceof byte[] bytes) {
+      return Base64.getEncoder().encodeToString(bytes);
+    }
+    return value.toString();
+  }
+
+  @Override
+  public String getString(final String columnLabel) throws SQLException {
+    return getString(findColumn(columnLabel));
+  }
+
+  @Override
+  public boolean getBoolean(final int columnIndex) throws SQLException {
+    DnaJdbcRowBatch batch = primitiveBatch(columnIndex);
+    if (batch != null) {
+      return batch.getBoolean(position, columnIndex - 1);
+    }
+    Object value = cell(columnIndex);
+    if (value == null) {
+      return false;
+    }
+    if (value instanceof Boolean bool) {
+      return bool;
+    }
+    if (value instanceof Number number) {
+      return number.doubleValue() != 0d;
+    }
+    String text = value.toString().trim();
+    return "true".equalsIgnoreCase(text) || "1".equals(text) || "y".equalsIgnoreCase(text) || "yes".equalsIgnoreCase(text);
+  }
+
+  @Override
+  public boolean getBoolean(final String columnLabel) throws SQLException {
+    return getBoolean(findColumn(columnLabel));
+  }
+
+  @Override
+  public byte getByte(final int columnIndex) throws SQLException {
+    return (byte) toLong(columnIndex, cell(columnIndex));
+  }
+
+  @Override
+  public byte getByte(final String columnLabel) throws SQLException {
+    return getByte(findColumn(columnLabel));
+  }
+
+  @Override
+  public short getShort(final int columnIndex) throws SQLException {
+    return (short) toLong(columnIndex, cell(columnIndex));
+  }
+
+  @Override
+  public short getShort(final String columnLabel) throws SQLException {
+    return getShort(findColumn(columnLabel));
+  }
+
+  @Override
+  public int getInt(final int columnIndex) throws SQLException {
+    DnaJdbcRowBatch batch = primitiveBatch(columnIndex);
+    if (batch != null) {
+      return (int) batch.getLong(position, columnIndex - 1);
+    }
+    Object value = cell(columnIndex);
+    if (value instanceof Integer number) {
+      return number;
+    }
+    return (int) toLong(columnIndex, value);
+  }
+
+  @Override
+  public int getInt(final String columnLabel) throws SQLException {
+    return getInt(findColumn(columnLabel));
+  }
+
+  @Override
+  public long getLong(final int columnIndex) throws SQLException {
+    DnaJdbcRowBatch batch = primitiveBatch(columnIndex);
+    if (batch != null) {
+      return batch.getLong(position, columnIndex - 1);
+    }
+    Object value = cell(columnIndex);
+    if (value instanceof Long number) {
+      return number;
+    }
+    return toLong(columnIndex, value);
+  }
+
+  @Override
+  public long getLong(final String columnLabel) throws SQLException {
+    return getLong(findColumn(columnLabel));
+  }
+
+  @Override
+  public float getFloat(final int columnIndex) throws SQLException {
+    DnaJdbcRowBatch batch = primitiveBatch(columnIndex);
+    if (batch != null) {
+      return batch.getFloat(position, columnIndex - 1);
+    }
+    Object value = cell(columnIndex);
+    if (value instanceof Float number) {
+      return number;
+    }
+    return (float) toDouble(columnIndex, value);
+  }
+
+  @Override
+  public float getFloat(final String columnLabel) throws SQLException {
+    return getFloat(findColumn(columnLabel));
+  }
+
+  @Override
+  public double getDouble(final int columnIndex) throws SQLException {
+    DnaJdbcRowBatch batch = primitiveBatch(columnIndex);
+    if (batch != null) {
+      return batch.getDouble(position, columnIndex - 1);
+    }
+    Object value = cell(columnIndex);
+    if (value instanceof Double number) {
+      return number;
+    }
+    return toDouble(columnIndex, value);
+  }
+
+  @Override
+  public double getDouble(final String columnLabel) throws SQLException {
+    return getDouble(findColumn(columnLabel));
+  }
+
+  @Override
+  public BigDecimal getBigDecimal(final int columnIndex) throws SQLException {
+    Object value = cell(columnIndex);
+    if (value == null || value instanceof BigDecimal) {
+      return (BigDecimal) value;
+    }
+    if (value instanceof BigInteger number) {
+      return new BigDecimal(number);
+    }
+    if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      return BigDecimal.valueOf(((Number) value).longValue());
+    }
+    if (value instanceof Number number) {
+      return BigDecimal.valueOf(number.doubleValue());
+    }
+    if (value instanceof Boolean bool) {
+      return bool ? BigDecimal.ONE : BigDecimal.ZERO;
+    }
+    try {
+      return new BigDecimal(value.toString().trim());
+    } catch (NumberFormatException ex) {
+      throw conversionError(columnIndex, value, "DECIMAL", ex);
+    }
+  }
+
+  @Override
+  @Deprecated
+  public BigDecimal getBigDecimal(final int columnIndex, final int scale) throws SQLException {
+    BigDecimal value = getBigDecimal(columnIndex);
+    return value == null ? null : value.setScale(scale, RoundingMode.HALF_UP);
+  }
+
+  @Override
+  public BigDecimal getBigDecimal(final String columnLabel) throws SQLException {
+    return getBigDecimal(findColumn(columnLabel));
+  }
+
+  @Override
+  @Deprecated
+  public BigDecimal getBigDecimal(final String columnLabel, final int scale) throws SQLException {
+    return getBigDecimal(findColumn(columnLabel), scale);
+  }
+
+  @Override
+  public byte[] getBytes(final int columnIndex) throws SQLException {
+    Object value = cell(columnIndex);
+    if (value == null || value instanceof byte[]) {
+      return (byte[]) value;
+    }
+    String text = value.toString();
+    if (isBinaryType(jdbcTypes[columnIndex - 1])) {
+      try {
+        return Base64.getDecoder().decode(text);
+      } catch (IllegalArgumentException ex) {
+        return text.getBytes(StandardCharsets.UTF_8);
+      }
+    }
+    return text.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public byte[] getBytes(final String columnLabel) throws SQLException {
+    return getBytes(findColumn(columnLabel));
+  }
+
+  @Override
+  public Date getDate(final int columnIndex) throws SQLException {
+    return getDate(columnIndex, null);
+  }
+
+  @Override
+  public Date getDate(final int columnIndex, final Calendar cal) throws SQLException {
+    Object value = cell(columnIndex);
+    if (value == null) {
+      return null;
+    }
+    if (value instanceof Date date && cal == null) {
+      return date;
+    }
+    LocalDate localDate;
+    if (value instanceof String text && text.trim().length() == 10) {
+      try {
+        localDate = LocalDate.parse(text.trim());
+      } catch (DateTimeParseException ex) {
+        throw conversionError(columnIndex, value, "DATE", ex);
+      }
+    } else {
+      localDate = toLocalDateTime(columnIndex, value).toLocalDate();
+    }
+    if (cal == null) {
+      return Date.valueOf(localDate);
+    }
+    return new Date(localDate.atStartOfDay(cal.getTimeZone().toZoneId()).toInstant().toEpochMilli());
+  }
+
+  @Override
+  public Date getDate(final String columnLabel) throws SQLException {
+    return getDate(findColumn(columnLabel));
+  }
+
+  @Override
+  public Date getDate(final String columnLabel, final Calendar cal) throws SQLException {
+    return getDate(findColumn(columnLabel), cal);
+  }
+
+  @Override
+  public Time getTime(final int columnIndex) throws SQLException {
+    return getTime(columnIndex, null);
+  }
+
+  @Override
+  public Time getTime(final int columnIndex, final Calendar cal) throws SQLException {
+    Object value = cell(columnIndex);
+    if (value == null) {
+      return null;
+    }
+    if (value instanceof Time time && cal == null) {
+      return time;
+    }
+    LocalTime localTime;
+    if (value instanceof String text && text.indexOf('-') < 0) {
+      try {
+        localTime = LocalTime.parse(text.trim());
+      } catch (DateTimeParseException ex) {
+        throw conversionError(columnIndex, value, "TIME", ex);
+      }
+    } else {
+      localTime = toLocalDateTime(columnIndex, value).toLocalTime();
+    }
+    if (cal == null) {
+      return Time.valueOf(localTime);
+    }
+    return new Time(localTime.atDate(LocalDate.EPOCH).atZone(cal.getTimeZone().toZoneId()).toInstant().toEpochMilli());
+  }
+
+  @Override
+  public Time getTime(final String columnLabel) throws SQLException {
+    return getTime(findColumn(columnLabel));
+  }
+
+  @Override
+  public Time getTime(final String columnLabel, final Calendar cal) throws SQLException {
+    return getTime(findColumn(columnLabel), cal);
+  }
+
+  @Override
+  public Timestamp getTimestamp(final int columnIndex) throws SQLException {
+    return getTimestamp(columnIndex, null);
+  }
+
+  @Override
+  public Timestamp getTimestamp(final int columnIndex, final Calendar cal) throws SQLException {
+    Object value = cell(columnIndex);
+    if (value == null) {
+      return null;
+    }
+    if (value instanceof Timestamp timestamp && cal == null) {
+      return timestamp;
+    }
+    LocalDateTime localDateTime = toLocalDateTime(columnIndex, value);
+    if (cal == null) {
+      return Timestamp.valueOf(localDateTime);
+    }
+    return Timestamp.from(localDateTime.atZone(cal.getTimeZone().toZoneId()).toInstant());
+  }
+
+  @Override
+  public Timestamp getTimestamp(final String columnLabel) throws SQLException {
+    return getTimestamp(findColumn(columnLabel));
+  }
+
+  @Override
+  public Timestamp getTimestamp(final String columnLabel, final Calendar cal) throws SQLException {
+    return getTimestamp(findColumn(columnLabel), cal);
+  }
+
+  @Override
+  public InputStream getAsciiStream(final int columnIndex) throws SQLException {
+    String value = getString(columnIndex);
+    return value == null ? null : new ByteArrayInputStream(value.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  @Override
+  public InputStream getAsciiStream(final String columnLabel) throws SQLException {
+    return getAsciiStream(findColumn(columnLabel));
+  }
+
+  @Override
+  @Deprecated
+  public InputStream getUnicodeStream(final int columnIndex) throws SQLException {
+    String value = getString(columnIndex);
+    return value == null ? null : new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_16BE));
+  }
+
+  @Override
+  @Deprecated
+  public InputStream getUnicodeStream(final String columnLabel) throws SQLException {
+    return getUnicodeStream(findColumn(columnLabel));
+  }
+
+  @Override
+  public InputStream getBinaryStream(final int columnIndex) throws SQLException {
+    byte[] value = getBytes(columnIndex);
+    return value == null ? null : new ByteArrayInputStream(value);
+  }
+
+  @Override
+  public InputStream getBinaryStream(final String columnLabel) throws SQLException {
+    return getBinaryStream(findColumn(columnLabel));
+  }
+
+  @Override
+  public Reader getCharacterStream(final int columnIndex) throws SQLException {
+    String value = getString(columnIndex);
+    return value == null ? null : new StringReader(value);
+  }
+
+  @Override
+  public Reader getCharacterStream(final String columnLabel) throws SQLException {
+    return getCharacterStream(findColumn(columnLabel));
+  }
+
+  @Override
+  public Reader getNCharacterStream(final int columnIndex) throws SQLException {
+    return getCharacterStream(columnIndex);
+  }
+
+  @Override
+  public Reader getNCharacterStream(final String columnLabel) throws SQLException {
+    return getNCharacterStream(findColumn(columnLabel));
+  }
+
+  @Override
+  public String getNString(final int columnIndex) throws SQLException {
+    return getString(columnIndex);
+  }
+
+  @Override
+  public String getNString(final String columnLabel) throws SQLException {
+    return getNString(findColumn(columnLabel));
+  }
+
+  @Override
+  public Clob getClob(final int columnIndex) throws SQLException {
+    String value = getString(columnIndex);
+    return value == null ? null : new SerialClob(value.toCharArray());
+  }
+
+  @Override
+  public Clob getClob(final String columnLabel) throws SQLException {
+    return getClob(findColumn(columnLabel));
+  }
+
+  @Override
+  public NClob getNClob(final int columnIndex) throws SQLException {
+    throw unsupported("NClob");
+  }
+
+  @Override
+  public NClob getNClob(final String columnLabel) throws SQLException {
+    return getNClob(findColumn(columnLabel));
+  }
+
+  @Override
+  public Blob getBlob(final int columnIndex) throws SQLException {
+    byte[] value = getBytes(columnIndex);
+    return value == null ? null : new SerialBlob(value);
+  }
+
+  @Override
+  public Blob getBlob(final String columnLabel) throws SQLException {
+    return getBlob(findColumn(columnLabel));
+  }
+
+  @Override
+  public Array getArray(final int columnIndex) throws SQLException {
+    Object value = cell(columnIndex);
+    if (value == null || value instanceof Array) {
+      return (Array) value;
+    }
+    throw unsupported("Array");
+  }
+
+  @Override
+  public Array getArray(final String columnLabel) throws SQLException {
+    return getArray(findColumn(columnLabel));
+  }
+
+  @Override
+  public URL getURL(final int columnIndex) throws SQLException {
+    String value = getString(columnIndex);
+    if (value == null) {
+      return null;
+    }
+    try {
+      return URI.create(value.trim()).toURL();
+    } catch (IllegalArgumentException | MalformedURLException ex) {
+      throw conversionError(columnIndex, value, "URL", ex);
+    }
+  }
+
+  @Override
+  public URL getURL(final String columnLabel) throws SQLException {
+    return getURL(findColumn(columnLabel));
+  }
+
+  @Override
+  public Ref getRef(final int columnIndex) throws SQLException {
+    throw unsupported("Ref");
+  }
+
+  @Override
+  public Ref getRef(final String columnLabel) throws SQLException {
+    return getRef(findColumn(columnLabel));
+  }
+
+  @Override
+  public RowId getRowId(final int columnIndex) throws SQLException {
+    throw unsupported("RowId");
+  }
+
+  @Override
+  public RowId getRowId(final String columnLabel) throws SQLException {
+    return getRowId(findColumn(columnLabel));
+  }
+
+  @Override
+  public SQLXML getSQLXML(final int columnIndex) throws SQLException {
+    throw unsupported("SQLXML");
+  }
+
+  @Override
+  public SQLXML getSQLXML(final String columnLabel) throws SQLException {
+    return getSQLXML(findColumn(columnLabel));
+  }
+
+  // ------------------------------------------------------------------
+  // Lifecycle
+  // ------------------------------------------------------------------
+
+  @Override
+  public Statement getStatement() throws SQLException {
+    return statement;
+  }
+
+  @Override
+  public SQLWarning getWarnings() throws SQLException {
+    return null;
+  }
+
+  @Override
+  public void clearWarnings() throws SQLException {
+    // no warnings are collected
+  }
+
+  @Override
+  public String getCursorName() throws SQLException {
+    throw unsupported("命名游标");
+  }
+
+  @Override
+  public void close() throws SQLException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    rows = List.of();
+    releaseCursor();
+  }
+
+  @Override
+  public boolean isClosed() throws SQLException {
+    return closed;
+  }
+
+  @Override
+  public <T> T unwrap(final Class<T> iface) throws SQLException {
+    if (iface.isInstance(this)) {
+      return iface.cast(this);
+    }
+    throw new SQLException("不支持 unwrap 到 " + iface.getName());
+  }
+
+  @Override
+  public boolean isWrapperFor(final Class<?> iface) throws SQLException {
+    return iface.isInstance(this);
+  }
+
+  // ------------------------------------------------------------------
+  // Updates — the result set is read-only
+  // ------------------------------------------------------------------
+
+  @Override
+  public boolean rowUpdated() throws SQLException {
+    return false;
+  }
+
+  @Override
+  public boolean rowInserted() throws SQLException {
+    return false;
+  }
+
+  @Override
+  public boolean rowDeleted() throws SQLException {
+    return false;
+  }
+
+  @Override
+  public void insertRow() throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateRow() throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void deleteRow() throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void refreshRow() throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void cancelRowUpdates() throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void moveToInsertRow() throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void moveToCurrentRow() throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateNull(final int columnIndex) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateNull(final String columnLabel) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBoolean(final int columnIndex, final boolean x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBoolean(final String columnLabel, final boolean x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateByte(final int columnIndex, final byte x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateByte(final String columnLabel, final byte x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateShort(final int columnIndex, final short x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateShort(final String columnLabel, final short x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateInt(final int columnIndex, final int x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateInt(final String columnLabel, final int x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateLong(final int columnIndex, final long x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateLong(final String columnLabel, final long x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateFloat(final int columnIndex, final float x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateFloat(final String columnLabel, final float x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateDouble(final int columnIndex, final double x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateDouble(final String columnLabel, final double x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBigDecimal(final int columnIndex, final BigDecimal x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBigDecimal(final String columnLabel, final BigDecimal x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateString(final int columnIndex, final String x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateString(final String columnLabel, final String x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBytes(final int columnIndex, final byte[] x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBytes(final String columnLabel, final byte[] x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateDate(final int columnIndex, final Date x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateDate(final String columnLabel, final Date x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateTime(final int columnIndex, final Time x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateTime(final String columnLabel, final Time x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateTimestamp(final int columnIndex, final Timestamp x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateTimestamp(final String columnLabel, final Timestamp x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateAsciiStream(final int columnIndex, final InputStream x, final int length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateAsciiStream(final String columnLabel, final InputStream x, final int length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateAsciiStream(final int columnIndex, final InputStream x, final long length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateAsciiStream(final String columnLabel, final InputStream x, final long length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateAsciiStream(final int columnIndex, final InputStream x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateAsciiStream(final String columnLabel, final InputStream x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBinaryStream(final int columnIndex, final InputStream x, final int length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBinaryStream(final String columnLabel, final InputStream x, final int length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBinaryStream(final int columnIndex, final InputStream x, final long length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBinaryStream(final String columnLabel, final InputStream x, final long length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBinaryStream(final int columnIndex, final InputStream x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBinaryStream(final String columnLabel, final InputStream x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateCharacterStream(final int columnIndex, final Reader x, final int length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateCharacterStream(final String columnLabel, final Reader reader, final int length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateCharacterStream(final int columnIndex, final Reader x, final long length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateCharacterStream(final String columnLabel, final Reader reader, final long length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateCharacterStream(final int columnIndex, final Reader x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateCharacterStream(final String columnLabel, final Reader reader) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateObject(final int columnIndex, final Object x, final int scaleOrLength) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateObject(final int columnIndex, final Object x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateObject(final String columnLabel, final Object x, final int scaleOrLength) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateObject(final String columnLabel, final Object x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateRef(final int columnIndex, final Ref x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateRef(final String columnLabel, final Ref x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBlob(final int columnIndex, final Blob x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBlob(final String columnLabel, final Blob x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBlob(final int columnIndex, final InputStream inputStream, final long length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBlob(final String columnLabel, final InputStream inputStream, final long length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBlob(final int columnIndex, final InputStream inputStream) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBlob(final String columnLabel, final InputStream inputStream) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateClob(final int columnIndex, final Clob x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateClob(final String columnLabel, final Clob x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateClob(final int columnIndex, final Reader reader, final long length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateClob(final String columnLabel, final Reader reader, final long length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateClob(final int columnIndex, final Reader reader) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateClob(final String columnLabel, final Reader reader) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateArray(final int columnIndex, final Array x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateArray(final String columnLabel, final Array x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateRowId(final int columnIndex, final RowId x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateRowId(final String columnLabel, final RowId x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateNString(final int columnIndex, final String value) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateNString(final String columnLabel, final String value) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateNClob(final int columnIndex, final NClob value) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateNClob(final String columnLabel, final NClob value) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateNClob(final int columnIndex, final Reader reader, final long length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateNClob(final String columnLabel, final Reader reader, final long length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateNClob(final int columnIndex, final Reader reader) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateNClob(final String columnLabel, final Reader reader) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateSQLXML(final int columnIndex, final SQLXML xmlObject) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateSQLXML(final String columnLabel, final SQLXML xmlObject) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateNCharacterStream(final int columnIndex, final Reader x, final long length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateNCharacterStream(final String columnLabel, final Reader reader, final long length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateNCharacterStream(final int columnIndex, final Reader x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateNCharacterStream(final String columnLabel, final Reader reader) throws SQLException {
+    throw readOnly();
+  }
+
+  // ------------------------------------------------------------------
+  // Private helpers
+  // ------------------------------------------------------------------
+
+  private Object cell(final int columnIndex) throws SQLException {
+    ensureCell(columnIndex);
+    List<Object> row = rows.get(position);
+    Object value = row == null || columnIndex > row.size() ? null : row.get(columnIndex - 1);
+    wasNull = value == null;
+    return value;
+  }
+
+  /**
+   * Returns the current binary row batch when the column is held as primitives, so numeric getters
+   * skip boxing; returns null when the caller should fall back to {@link #cell(int)}.
+   */
+  private DnaJdbcRowBatch primitiveBatch(final int columnIndex) throws SQLException {
+    if (!(rows instanceof DnaJdbcRowBatch batch) || columnIndex < 1 || columnIndex > batch.columnCount()
+        || !batch.isPrimitive(columnIndex - 1)) {
+      return null;
+    }
+    ensureCell(columnIndex);
+    wasNull = batch.isNull(position, columnIndex - 1);
+    return batch;
+  }
+
+  private void ensureCell(final int columnIndex) throws SQLException {
+    ensureOpen();
+    if (position < 0 || position >= rows.size()) {
+      throw new SQLException("当前没有有效行，请先调用 next()", "24000");
+    }
+    if (columnIndex < 1 || columnIndex > jdbcTypes.length) {
+      throw new SQLException("列索引越界: " + columnIndex, "07009");
+    }
+  }
+
+  private boolean limitReached() {
+    return maxRows > 0 && batchOffset + Math.max(position, 0) >= maxRows;
+  }
+
+  private void releaseCursor() throws SQLException {
+    if (cursorOpen) {
+      cursorOpen = false;
+      cursor.close();
+    }
+  }
+
+  private void ensureOpen() throws SQLException {
+    if (closed) {
+      throw new SQLException("DNA JDBC 结果集已关闭");
+    }
+  }
+
+  private void ensureScrollable() throws SQLException {
+    ensureOpen();
+    if (cursor != null) {
+      throw new SQLException("DNA JDBC 流式结果集仅支持向前遍历");
+    }
+  }
+
+  private static long toLong(final int columnIndex, final Object value) throws SQLException {
+    if (value == null) {
+      return 0L;
+    }
+    if (value instanceof Number number) {
+      return number.longValue();
+    }
+    if (value instanceof Boolean bool) {
+      return bool ? 1L : 0L;
+    }
+    String text = value.toString().trim();
+    try {
+      return Long.parseLong(text);
+    } catch (NumberFormatException ex) {
+      try {
+        return new BigDecimal(text).longValue();
+      } catch (NumberFormatException nested) {
+        throw conversionError(columnIndex, value, "BIGINT", nested);
+      }
+    }
+  }
+
+  private static double toDouble(final int columnIndex, final Object value) throws SQLException {
+    if (value == null) {
+      return 0d;
+    }
+    if (value instanceof Number number) {
+      return number.doubleValue();
+    }
+    if (value instanceof Boolean bool) {
+      return bool ? 1d : 0d;
+    }
+    try {
+      return Double.parseDouble(value.toString().trim());
+    } catch (NumberFormatException ex) {
+      throw conversionError(columnIndex, value, "DOUBLE", ex);
+    }
+  }
+
+  private static LocalDateTime toLocalDateTime(final int columnIndex, final Object value) throws SQLException {
+    if (value instanceof Timestamp timestamp) {
+      return timestamp.toLocalDateTime();
+    }
+    if (value instanceof Date date) {
+      return date.toLocalDate().atStartOfDay();
+    }
+    if (value instanceof Time time) {
+      return time.toLocalTime().atDate(LocalDate.EPOCH);
+    }
+    if (value instanceof java.util.Date date) {
+      return new Timestamp(date.getTime()).toLocalDateTime();
+    }
+    if (value instanceof Number number) {
+      return new Timestamp(number.longValue()).toLocalDateTime();
+    }
+    if (value instanceof LocalDateTime localDateTime) {
+      return localDateTime;
+    }
+    String text = value.toString().trim();
+    try {
+      if (text.length() == 10) {
+        return LocalDate.parse(text).atStartOfDay();
+      }
+      if (text.indexOf('T') > 0) {
+        try {
+          return LocalDateTime.parse(text);
+        } catch (DateTimeParseException ex) {
+          return OffsetDateTime.parse(text).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        }
+      }
+      return Timestamp.valueOf(text).toLocalDateTime();
+    } catch (IllegalArgumentException | DateTimeParseException ex) {
+      throw conversionError(columnIndex, value, "TIMESTAMP", ex);
+    }
+  }
+
+  private static boolean isBinaryType(final int jdbcType) {
+    return switch (jdbcType) {
+      case Types.BINARY, Types.VARBINARY, Types.LONGVARBINARY, Types.BLOB -> true;
+      default -> false;
+    };
+  }
+
+  private static SQLException conversionError(
+      final int columnIndex,
+      final Object value,
+      final String targetType,
+      final Exception cause
+  ) {
+    return new SQLException("无法将列 " + columnIndex + " 的值 '" + value + "' 转换为 " + targetType, "22018", cause);
+  }
+
+  private static SQLFeatureNotSupportedException unsupported(final String feature) {
+    return new SQLFeatureNotSupportedException("DNA JDBC 驱动暂不支持: " + feature);
+  }
+
+  private static SQLFeatureNotSupportedException readOnly() {
+    return new SQLFeatureNotSupportedException("DNA JDBC 结果集为只读");
+  }
+}
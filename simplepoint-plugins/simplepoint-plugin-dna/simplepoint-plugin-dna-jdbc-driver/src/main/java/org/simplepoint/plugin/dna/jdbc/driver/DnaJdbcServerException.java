@@ -0,0 +1,48 @@
+package org.simplepoint.plugin.dna.jdbc.driver;
+
+import java.io.Serial;
+import java.sql.SQLException;
+
+/**
+ * {@link SQLException} for a request the DNA gateway answered with {@code success=false}.
+ *
+ * <p>Unlike transport failures and client-side timeouts, it proves the server finished the request
+ * and rolled back whatever it changed, so callers can tell a failed write from one whose outcome is
+ * unknown.
+ */
+final class DnaJdbcServerException extends SQLException {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  private final String errorCode;
+
+  DnaJdbcServerException(final String reason, final String errorCode) {
+    super(reason, "HY000");
+    this.errorCode = errorCode;
+  }
+
+  /**
+   * Returns the structured code the server attached to the failure.
+   *
+   * @return one of {@link org.simplepoint.plugin.dna.jdbc.protocol.DnaJdbcErrorCodes}, or null
+   */
+  String errorCode() {
+    return errorCode;
+  }
+
+  /**
+   * Tells whether a failure, or any of its causes, is an error reported by the server.
+   *
+   * @param failure failure to inspect
+   * @return whether the server answered the failed request
+   */
+  static boolean reportedByServer(final Throwable failure) {
+    for (Throwable current = failure; current != null; current = current.getCause()) {
+      if (current instanceof DnaJdbcServerException) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -11,11 +11,17 @@ import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.URI;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
+import org.simplepoint.plugin.dna.jdbc.protocol.DnaJdbcFrame;
+import org.simplepoint.plugin.dna.jdbc.protocol.DnaJdbcRowBatchCodec;
+import org.simplepoint.plugin.dna.jdbc.protocol.DnaJdbcWireFormat;
 
 final class DnaJdbcSocketTransport implements AutoCloseable {
 
@@ -25,10 +31,16 @@ final class DnaJdbcSocketTransport implements AutoCloseable {
 
   private static final int DEFAULT_READ_TIMEOUT_MS = 30000;
 
+  private static final String DEFAULT_ENCODING = DnaJdbcWireFormat.BINARY;
+
+  private static final String DEFAULT_COMPRESSION = DnaJdbcWireFormat.NONE;
+
   private static final Logger LOGGER = Logger.getLogger(DnaJdbcSocketTransport.class.getName());
 
   private final ObjectMapper objectMapper;
 
+  private final DnaJdbcRowBatchCodec rowBatchCodec;
+
   private final URI baseUri;
 
   private final String loginSubject;
@@ -43,6 +55,14 @@ final class DnaJdbcSocketTransport implements AutoCloseable {
 
   private final String configuredSchema;
 
+  private final String requestedEncoding;
+
+  private final String requestedCompression;
+
+  private final int connectTimeout;
+
+  private final boolean ssl;
+
   private final Socket socket;
 
   private final DataInputStream inputStream;
@@ -53,10 +73,19 @@ final class DnaJdbcSocketTransport implements AutoCloseable {
 
   private boolean connected;
 
+  private DnaJdbcWireFormat wireFormat;
+
+  private volatile String activeQueryId;
+
+  private final AtomicLong requestSequence = new AtomicLong();
+
+  private volatile long metadataVersion = -1L;
+
   DnaJdbcSocketTransport(final DnaJdbcModels.ConnectionConfig config) throws SQLException {
     this.objectMapper = new ObjectMapper()
         .findAndRegisterModules()
         .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    this.rowBatchCodec = new DnaJdbcRowBatchCodec(objectMapper);
     this.baseUri = config.baseUri();
     this.loginSubject = config.loginSubject();
     this.password = config.password();
@@ -64,36 +93,14 @@ final class DnaJdbcSocketTransport implements AutoCloseable {
     this.tenantId = config.tenantId();
     this.configuredContextId = config.contextId();
     this.configuredSchema = config.schema();
-    int connectTimeout = resolveProperty(config, "connectTimeout", DEFAULT_CONNECT_TIMEOUT_MS);
+    this.requestedEncoding = resolveStringProperty(config, "encoding", DEFAULT_ENCODING);
+    this.requestedCompression = resolveStringProperty(config, "compression", DEFAULT_COMPRESSION);
+    this.wireFormat = DnaJdbcWireFormat.PLAIN_JSON;
+    this.connectTimeout = resolveProperty(config, "connectTimeout", DEFAULT_CONNECT_TIMEOUT_MS);
+    this.ssl = resolveBooleanProperty(config, "ssl", false);
     int readTimeout = resolveProperty(config, "socketTimeout", DEFAULT_READ_TIMEOUT_MS);
-    boolean ssl = resolveBooleanProperty(config, "ssl", false);
     try {
-      Socket rawSocket = new Socket();
-      try {
-        rawSocket.setKeepAlive(true);
-        rawSocket.setTcpNoDelay(true);
-        rawSocket.connect(
-            new InetSocketAddress(baseUri.getHost(), resolvePort(baseUri)),
-            connectTimeout
-        );
-        if (ssl) {
-          SSLSocketFactory sslFactory = (SSLSocketFactory) SSLSocketFactory.getDefault();
-          SSLSocket sslSocket = (SSLSocket) sslFactory.createSocket(
-              rawSocket, baseUri.getHost(), resolvePort(baseUri), true
-          );
-          sslSocket.startHandshake();
-          this.socket = sslSocket;
-        } else {
-          this.socket = rawSocket;
-        }
-      } catch (IOException ex) {
-        try {
-          rawSocket.close();
-        } catch (IOException suppressed) {
-          ex.addSuppressed(suppressed);
-        }
-        throw ex;
-      }
+      this.socket = openSocket();
       this.socket.setSoTimeout(readTimeout);
       this.inputStream = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
       this.outputStream = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
@@ -102,6 +109,34 @@ final class DnaJdbcSocketTransport implements AutoCloseable {
     }
   }
 
+  private Socket openSocket() throws IOException {
+    Socket rawSocket = new Socket();
+    try {
+      rawSocket.setKeepAlive(true);
+      rawSocket.setTcpNoDelay(true);
+      rawSocket.connect(
+          new InetSocketAddress(baseUri.getHost(), resolvePort(baseUri)),
+          connectTimeout
+      );
+      if (!ssl) {
+        return rawSocket;
+      }
+      SSLSocketFactory sslFactory = (SSLSocketFactory) SSLSocketFactory.getDefault();
+      SSLSocket sslSocket = (SSLSocket) sslFactory.createSocket(
+          rawSocket, baseUri.getHost(), resolvePort(baseUri), true
+      );
+      sslSocket.startHandshake();
+      return sslSocket;
+    } catch (IOException ex) {
+      try {
+        rawSocket.close();
+      } catch (IOException suppressed) {
+        ex.addSuppressed(suppressed);
+      }
+      throw ex;
+    }
+  }
+
   DnaJdbcModels.PingResult ping() throws SQLException {
     if (!connected) {
       DnaJdbcModels.SocketResponse response = send(DnaJdbcModels.SocketRequest.builder("CONNECT")
@@ -111,9 +146,14 @@ final class DnaJdbcSocketTransport implements AutoCloseable {
           .tenantId(tenantId)
           .contextId(configuredContextId)
           .schema(configuredSchema)
+          .encoding(requestedEncoding)
+          .compression(requestedCompression)
           .build());
       DnaJdbcModels.PingResult result = requireSuccess(response).pingResult();
       this.connected = true;
+      if (response.wireFormat() != null) {
+        this.wireFormat = response.wireFormat();
+      }
       if (result != null && result.contextId() != null && !result.contextId().isBlank()) {
         this.sessionContextId = result.contextId();
       }
@@ -182,6 +222,17 @@ final class DnaJdbcSocketTransport implements AutoCloseable {
         .build())).tabularResult();
   }
 
+  /**
+   * Returns the columns of every table in one schema as a single frame.
+   */
+  DnaJdbcModels.TabularResult schemaColumns(final String catalog, final String schema) throws SQLException {
+    return requireSuccess(send(DnaJdbcModels.SocketRequest.builder("SCHEMA_COLUMNS")
+        .contextId(sessionContextId)
+        .catalogPattern(catalog)
+        .schemaPattern(schema)
+        .build())).tabularResult();
+  }
+
   DnaJdbcModels.TabularResult primaryKeys(
       final String catalog,
       final String schema,
@@ -244,21 +295,115 @@ final class DnaJdbcSocketTransport implements AutoCloseable {
         .build())).tabularResult();
   }
 
+  /**
+   * Executes a query and drains it. With a positive {@code fetchSize} the server opens a cursor
+   * and the remaining rows are pulled with FETCH in batches of that size.
+   */
   DnaJdbcModels.QueryResult query(
       final String catalogCode,
       final String sql,
       final String defaultSchema,
       final List<Object> parameters,
-      final Integer maxRows
+      final Integer maxRows,
+      final Integer fetchSize
   ) throws SQLException {
-    return requireSuccess(send(DnaJdbcModels.SocketRequest.builder("QUERY")
+    DnaJdbcModels.QueryPage page = openQuery(catalogCode, sql, defaultSchema, parameters, maxRows, fetchSize);
+    DnaJdbcModels.QueryResult result = page.result();
+    DnaJdbcModels.CursorResult cursor = page.cursor();
+    if (result == null || !page.hasMore()) {
+      return result;
+    }
+    List<List<Object>> rows = new ArrayList<>(result.rows() == null ? List.of() : result.rows());
+    try {
+      DnaJdbcModels.CursorResult batch;
+      do {
+        batch = fetch(cursor.cursorId(), fetchSize);
+        if (batch.rows() != null) {
+          rows.addAll(batch.rows());
+        }
+      } while (Boolean.TRUE.equals(batch.hasMore()));
+    } catch (SQLException ex) {
+      closeCursorQuietly(cursor.cursorId());
+      throw ex;
+    }
+    return new DnaJdbcModels.QueryResult(result.columns(), rows, result.truncated(), (long) rows.size());
+  }
+
+  /**
+   * Executes a query and returns only its first page. When the page reports more rows the
+   * caller owns the server cursor and must FETCH or CLOSE_CURSOR it.
+   */
+  DnaJdbcModels.QueryPage openQuery(
+      final String catalogCode,
+      final String sql,
+      final String defaultSchema,
+      final List<Object> parameters,
+      final Integer maxRows,
+      final Integer fetchSize
+  ) throws SQLException {
+    DnaJdbcModels.SocketResponse response = requireSuccess(send(DnaJdbcModels.SocketRequest.builder("QUERY")
+        .queryId(activeQueryId)
         .catalogCode(catalogCode)
         .contextId(sessionContextId)
         .sql(sql)
         .defaultSchema(defaultSchema)
         .parameters(parameters)
         .maxRows(maxRows)
-        .build())).queryResult();
+        .fetchSize(fetchSize != null && fetchSize > 0 ? fetchSize : null)
+        .build()));
+    return new DnaJdbcModels.QueryPage(response.queryResult(), response.cursor());
+  }
+
+  DnaJdbcModels.CursorResult fetch(final String cursorId, final Integer fetchSize) throws SQLException {
+    DnaJdbcModels.CursorResult cursor = requireSuccess(send(DnaJdbcModels.SocketRequest.builder("FETCH")
+        .queryId(activeQueryId)
+        .contextId(sessionContextId)
+        .cursorId(cursorId)
+        .fetchSize(fetchSize)
+        .build())).cursor();
+    if (cursor == null) {
+      throw new SQLException("DNA JDBC Socket FETCH 响应缺少游标数据", "HY000");
+    }
+    return cursor;
+  }
+
+  void closeCursor(final String cursorId) throws SQLException {
+    requireSuccess(send(DnaJdbcModels.SocketRequest.builder("CLOSE_CURSOR")
+        .contextId(sessionContextId)
+        .cursorId(cursorId)
+        .build()));
+  }
+
+  private void closeCursorQuietly(final String cursorId) {
+    try {
+      closeCursor(cursorId);
+    } catch (SQLException ex) {
+      LOGGER.log(Level.FINE, "Ignoring DNA JDBC Socket CLOSE_CURSOR failure", ex);
+    }
+  }
+
+  /**
+   * Executes one DML statement once per parameter set in a single EXECUTE_BATCH round trip;
+   * the server runs the matrix as a JDBC batch on the target datasource.
+   */
+  DnaJdbcModels.BatchUpdateResult executeBatch(
+      final String catalogCode,
+      final String sql,
+      final String defaultSchema,
+      final List<List<Object>> parameterSets
+  ) throws SQLException {
+    DnaJdbcModels.BatchUpdateResult result = requireSuccess(send(DnaJdbcModels.SocketRequest.builder("EXECUTE_BATCH")
+        .queryId(activeQueryId)
+        .catalogCode(catalogCode)
+        .contextId(sessionContextId)
+        .sql(sql)
+        .defaultSchema(defaultSchema)
+        .batchParameters(parameterSets)
+        .build())).batchUpdateResult();
+    if (result == null || result.updateCounts() == null) {
+      throw new SQLException("DNA JDBC Socket EXECUTE_BATCH 响应缺少更新计数", "HY000");
+    }
+    return result;
   }
 
   DnaJdbcModels.UpdateResult executeUpdate(
@@ -268,6 +413,7 @@ final class DnaJdbcSocketTransport implements AutoCloseable {
       final List<Object> parameters
   ) throws SQLException {
     return requireSuccess(send(DnaJdbcModels.SocketRequest.builder("EXECUTE_UPDATE")
+        .queryId(activeQueryId)
         .catalogCode(catalogCode)
         .contextId(sessionContextId)
         .sql(sql)
@@ -283,6 +429,7 @@ final class DnaJdbcSocketTransport implements AutoCloseable {
       final List<Object> parameters
   ) throws SQLException {
     return requireSuccess(send(DnaJdbcModels.SocketRequest.builder("EXECUTE_DDL")
+        .queryId(activeQueryId)
         .catalogCode(catalogCode)
         .contextId(sessionContextId)
         .sql(sql)
@@ -308,6 +455,93 @@ final class DnaJdbcSocketTransport implements AutoCloseable {
     return response.batchResults() != null ? response.batchResults() : List.of();
   }
 
+  /**
+   * Writes several requests back to back and then reads their responses, so N independent
+   * requests cost one round trip instead of N. The server answers frames in order; every
+   * response is matched to its request by correlation id. Responses are returned unchecked,
+   * one per request, in request order.
+   */
+  List<DnaJdbcModels.SocketResponse> pipeline(final List<DnaJdbcModels.SocketRequest> requests) throws SQLException {
+    if (requests == null || requests.isEmpty()) {
+      return List.of();
+    }
+    try {
+      List<String> requestIds = new ArrayList<>(requests.size());
+      for (DnaJdbcModels.SocketRequest request : requests) {
+        requestIds.add(writeRequest(request));
+      }
+      outputStream.flush();
+      List<DnaJdbcModels.SocketResponse> responses = new ArrayList<>(requests.size());
+      for (String requestId : requestIds) {
+        responses.add(readResponse(requestId));
+      }
+      return responses;
+    } catch (java.net.SocketTimeoutException ex) {
+      throw new SQLException("DNA JDBC Socket 通信超时", "08006", ex);
+    } catch (IOException ex) {
+      throw new SQLException("DNA JDBC Socket 通信失败: " + ex.getMessage(), "08006", ex);
+    }
+  }
+
+  /**
+   * Starts a request builder bound to the session context, for use with {@link #pipeline(List)}.
+   */
+  DnaJdbcModels.SocketRequest.Builder request(final String action) {
+    return DnaJdbcModels.SocketRequest.builder(action).contextId(sessionContextId);
+  }
+
+  /**
+   * Returns the server metadata version reported by the latest response, or -1 when the server
+   * does not report one.
+   */
+  long metadataVersion() {
+    return metadataVersion;
+  }
+
+  /**
+   * Tags the following QUERY, FETCH and EXECUTE_* requests with a fresh query id that a
+   * concurrent {@link #cancel(String)} can refer to.
+   *
+   * @return query id of the statement execution
+   */
+  String startQuery() {
+    String queryId = UUID.randomUUID().toString();
+    this.activeQueryId = queryId;
+    return queryId;
+  }
+
+  void endQuery() {
+    this.activeQueryId = null;
+  }
+
+  /**
+   * Asks the server to cancel a running query. The request connection is blocked waiting for the
+   * query result, so CANCEL travels as the only request on a short-lived side connection; it is
+   * sent before CONNECT and therefore always uses plain JSON frames.
+   *
+   * @param queryId query id returned by {@link #startQuery()}
+   * @throws SQLException when the side connection fails
+   */
+  void cancel(final String queryId) throws SQLException {
+    try (
+        Socket cancelSocket = openSocket();
+        DataInputStream cancelInput = new DataInputStream(new BufferedInputStream(cancelSocket.getInputStream()));
+        DataOutputStream cancelOutput = new DataOutputStream(new BufferedOutputStream(cancelSocket.getOutputStream()))
+    ) {
+      cancelSocket.setSoTimeout(connectTimeout);
+      byte[] payload = objectMapper.writeValueAsBytes(DnaJdbcModels.SocketRequest.builder("CANCEL")
+          .queryId(queryId)
+          .build());
+      cancelOutput.writeInt(payload.length);
+      cancelOutput.write(payload);
+      cancelOutput.flush();
+      byte[] responseBytes = cancelInput.readNBytes(cancelInput.readInt());
+      requireSuccess(objectMapper.readValue(responseBytes, DnaJdbcModels.SocketResponse.class));
+    } catch (IOException ex) {
+      throw new SQLException("DNA JDBC 取消查询失败: " + ex.getMessage(), "08006", ex);
+    }
+  }
+
   String catalogCode() {
     return catalogCode;
   }
@@ -351,10 +585,32 @@ final class DnaJdbcSocketTransport implements AutoCloseable {
 
   private DnaJdbcModels.SocketResponse send(final DnaJdbcModels.SocketRequest request) throws SQLException {
     try {
-      byte[] payload = objectMapper.writeValueAsBytes(request);
-      outputStream.writeInt(payload.length);
-      outputStream.write(payload);
+      String requestId = writeRequest(request);
       outputStream.flush();
+      return readResponse(requestId);
+    } catch (java.net.SocketTimeoutException ex) {
+      throw new SQLException("DNA JDBC Socket 通信超时", "08006", ex);
+    } catch (IOException ex) {
+      throw new SQLException("DNA JDBC Socket 通信失败: " + ex.getMessage(), "08006", ex);
+    }
+  }
+
+  private String writeRequest(final DnaJdbcModels.SocketRequest request) throws IOException {
+    String requestId = Long.toString(requestSequence.incrementAndGet());
+    byte[] payload = objectMapper.writeValueAsBytes(request.withRequestId(requestId));
+    outputStream.writeInt(payload.length);
+    outputStream.write(payload);
+    return requestId;
+  }
+
+  /**
+   * Reads the response to {@code requestId}. Responses carrying an older correlation id belong to
+   * requests that already timed out on this connection and are skipped, so a late answer can
+   * never be mistaken for the current one.
+   */
+  private DnaJdbcModels.SocketResponse readResponse(final String requestId) throws IOException, SQLException {
+    long expected = Long.parseLong(requestId);
+    while (true) {
       int length = inputStream.readInt();
       if (length < 0) {
         throw new SQLException("DNA JDBC Socket 响应长度不合法", "08006");
@@ -364,20 +620,52 @@ final class DnaJdbcSocketTransport implements AutoCloseable {
         throw new SQLException("DNA JDBC Socket 响应已中断 (期望 " + length + " 字节, 实际 "
             + responseBytes.length + " 字节)", "08006");
       }
+      DnaJdbcModels.SocketResponse response = decodeResponse(responseBytes);
+      if (response != null && response.metadataVersion() != null) {
+        this.metadataVersion = response.metadataVersion();
+      }
+      String responseId = response == null ? null : response.requestId();
+      if (responseId == null || responseId.equals(requestId)) {
+        return response;
+      }
+      if (parseRequestId(responseId) < expected) {
+        LOGGER.log(Level.FINE, "Discarding stale DNA JDBC Socket response {0}", responseId);
+        continue;
+      }
+      throw new SQLException("DNA JDBC Socket 响应与请求不匹配 (期望 " + requestId + ", 实际 " + responseId + ")", "08006");
+    }
+  }
+
+  private static long parseRequestId(final String requestId) {
+    try {
+      return Long.parseLong(requestId);
+    } catch (NumberFormatException ex) {
+      return Long.MAX_VALUE;
+    }
+  }
+
+  /**
+   * Decodes a response frame in the format negotiated at CONNECT; binary frames carry the
+   * query or FETCH rows as a columnar batch next to the JSON header.
+   */
+  private DnaJdbcModels.SocketResponse decodeResponse(final byte[] responseBytes) throws IOException, SQLException {
+    if (!wireFormat.binary()) {
       return objectMapper.readValue(responseBytes, DnaJdbcModels.SocketResponse.class);
-    } catch (java.net.SocketTimeoutException ex) {
-      throw new SQLException("DNA JDBC Socket 通信超时", "08006", ex);
-    } catch (IOException ex) {
-      throw new SQLException("DNA JDBC Socket 通信失败: " + ex.getMessage(), "08006", ex);
+    }
+    try {
+      DnaJdbcFrame frame = DnaJdbcFrame.decode(responseBytes);
+      DnaJdbcModels.SocketResponse response = objectMapper.readValue(frame.json(), DnaJdbcModels.SocketResponse.class);
+      return frame.rowBatch() == null ? response : response.withRowBatch(rowBatchCodec.decode(frame.rowBatch()));
+    } catch (IllegalArgumentException ex) {
+      throw new SQLException("DNA JDBC Socket 二进制响应解析失败: " + ex.getMessage(), "08006", ex);
     }
   }
 
   private static DnaJdbcModels.SocketResponse requireSuccess(final DnaJdbcModels.SocketResponse response) throws SQLException {
     if (response == null || !Boolean.TRUE.equals(response.success())) {
-      throw new SQLException(
-          response == null ? "DNA JDBC Socket 返回空响应" : response.errorMessage(),
-          "HY000"
-      );
+      throw response == null
+          ? new DnaJdbcServerException("DNA JDBC Socket 返回空响应", null)
+          : new DnaJdbcServerException(response.errorMessage(), response.errorCode());
     }
     return response;
   }
@@ -406,6 +694,18 @@ final class DnaJdbcSocketTransport implements AutoCloseable {
     }
   }
 
+  private static String resolveStringProperty(
+      final DnaJdbcModels.ConnectionConfig config,
+      final String key,
+      final String defaultValue
+  ) {
+    if (config.properties() == null) {
+      return defaultValue;
+    }
+    String value = config.properties().getProperty(key);
+    return value == null || value.isBlank() ? defaultValue : value.trim();
+  }
+
   private static boolean resolveBooleanProperty(
       final DnaJdbcModels.ConnectionConfig config,
       final String key,
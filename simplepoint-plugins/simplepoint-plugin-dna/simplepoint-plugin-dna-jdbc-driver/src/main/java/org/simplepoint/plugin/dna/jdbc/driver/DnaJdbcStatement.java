@@ -49,6 +49,10 @@ class DnaJdbcStatement implements Statement {
 
   private boolean lastExecuteWasQuery;
 
+  private volatile String runningQueryId;
+
+  private volatile boolean cancelRequested;
+
   DnaJdbcStatement(
       final DnaJdbcConnection connection,
       final int resultSetType,
@@ -59,6 +63,7 @@ class DnaJdbcStatement implements Statement {
     this.resultSetType = resultSetType;
     this.resultSetConcurrency = resultSetConcurrency;
     this.resultSetHoldability = resultSetHoldability;
+    this.fetchSize = connection.client().defaultFetchSize();
   }
 
   // ------------------------------------------------------------------
@@ -72,7 +77,10 @@ class DnaJdbcStatement implements Statement {
   /**
    * Executes the given SQL query against the DNA gateway and returns the
    * resulting {@link ResultSet}.  Any previously open result set is closed
-   * first.
+   * first.  Forward-only statements with a positive fetch size, which is
+   * what {@code createStatement()} and {@code prepareStatement(String)}
+   * return by default, keep the server cursor open and read it batch by
+   * batch; scrollable statements receive the whole result up front.
    *
    * @param sql the SQL query to execute (must not be {@code null})
    * @param parameters bind parameters for server-side prepared execution (may be {@code null})
@@ -82,10 +90,23 @@ class DnaJdbcStatement implements Statement {
   protected ResultSet doExecuteQuery(final String sql, final List<Object> parameters) throws SQLException {
     closeCurrentResultSet();
     Integer effectiveMaxRows = maxRows > 0 ? maxRows : null;
+    Integer effectiveFetchSize = fetchSize > 0 ? fetchSize : null;
+    if (resultSetType != ResultSet.TYPE_FORWARD_ONLY || effectiveFetchSize == null) {
+      return withTimeoutGuard("查询", () -> {
+        DnaJdbcModels.QueryResult result = connection.client().query(
+            connection.currentCatalog(), sql, connection.currentSchema(), parameters, effectiveMaxRows, effectiveFetchSize
+        );
+        currentResultSet = ResultSetBuilder.fromQueryResult(this, result, maxRows);
+        return currentResultSet;
+      });
+    }
     return withTimeoutGuard("查询", () -> {
-      DnaJdbcModels.QueryResult result =
-          connection.client().query(connection.currentCatalog(), sql, connection.currentSchema(), parameters, effectiveMaxRows);
-      currentResultSet = ResultSetBuilder.fromQueryResult(result, maxRows);
+      DnaJdbcModels.QueryPage page = connection.client().openQuery(
+          connection.currentCatalog(), sql, connection.currentSchema(), parameters, effectiveMaxRows, effectiveFetchSize
+      );
+      currentResultSet = page.hasMore()
+          ? ResultSetBuilder.fromCursor(this, page.result(), new ServerCursor(page.cursor().cursorId()), maxRows, fetchSize)
+          : ResultSetBuilder.fromQueryResult(this, page.result(), maxRows);
       return currentResultSet;
     });
   }
@@ -138,14 +159,16 @@ class DnaJdbcStatement implements Statement {
 
   /**
    * Applies the configured query timeout to the underlying socket, executes
-   * the action, and restores the original timeout on completion.
+   * the action, and restores the original timeout on completion.  The
+   * requests sent by the action carry a query id so that {@link #cancel()}
+   * can interrupt them from another thread.
    *
    * @param operationLabel label used in the timeout error message
    * @param action the callable to execute
    * @return the result of the action
    * @throws SQLException wrapping any timeout or execution error
    */
-  private <T> T withTimeoutGuard(
+  protected <T> T withTimeoutGuard(
       final String operationLabel,
       final SqlCallable<T> action
   ) throws SQLException {
@@ -155,22 +178,53 @@ class DnaJdbcStatement implements Statement {
       client.setSocketTimeout(queryTimeout * 1000);
       timeoutAdjusted = true;
     }
+    cancelRequested = false;
+    runningQueryId = client.startQuery();
     try {
       return action.call();
     } catch (SQLException ex) {
+      if (cancelRequested) {
+        throw new SQLException(operationLabel + "已取消", "57014", ex);
+      }
       if (timeoutAdjusted && ex.getCause() instanceof java.net.SocketTimeoutException) {
         throw new SQLException(operationLabel + "超时 (" + queryTimeout + "s)", "HYT00", ex);
       }
       throw ex;
     } finally {
+      runningQueryId = null;
+      client.endQuery();
       if (timeoutAdjusted) {
         client.setSocketTimeout(0);
       }
     }
   }
 
+  /**
+   * Server cursor read by a streaming result set of this statement.
+   */
+  private final class ServerCursor implements DnaJdbcResultSet.BatchCursor {
+
+    private final String cursorId;
+
+    private ServerCursor(final String cursorId) {
+      this.cursorId = cursorId;
+    }
+
+    @Override
+    public DnaJdbcModels.CursorResult fetch(final int batchSize) throws SQLException {
+      return withTimeoutGuard("查询", () -> connection.client().fetch(cursorId, batchSize));
+    }
+
+    @Override
+    public void close() throws SQLException {
+      if (!connection.isClosed()) {
+        connection.client().closeCursor(cursorId);
+      }
+    }
+  }
+
   @FunctionalInterface
-  private interface SqlCallable<T> {
+  protected interface SqlCallable<T> {
     T call() throws SQLException;
   }
 
@@ -474,6 +528,9 @@ class DnaJdbcStatement implements Statement {
 
   @Override
   public void setFetchSize(final int rows) throws SQLException {
+    if (rows < 0) {
+      throw new SQLException("fetchSize 不能小于 0");
+    }
     this.fetchSize = rows;
   }
 
@@ -570,9 +627,21 @@ class DnaJdbcStatement implements Statement {
     // no-op
   }
 
+  /**
+   * Cancels the query or FETCH this statement is currently waiting for.
+   * The server cancels the federated and pushed-down source statements and
+   * the waiting thread receives an {@link SQLException} with SQLState
+   * {@code 57014}.  Does nothing when no request is in flight.
+   */
   @Override
   public void cancel() throws SQLException {
-    // no-op
+    ensureOpen();
+    String queryId = runningQueryId;
+    if (queryId == null) {
+      return;
+    }
+    cancelRequested = true;
+    connection.client().cancel(queryId);
   }
 
   @Override
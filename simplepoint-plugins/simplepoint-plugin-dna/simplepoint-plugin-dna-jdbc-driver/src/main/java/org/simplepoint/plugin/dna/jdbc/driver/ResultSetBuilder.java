@@ -1,22 +1,20 @@
 package org.simplepoint.plugin.dna.jdbc.driver;
 
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import javax.sql.rowset.CachedRowSet;
 import javax.sql.rowset.RowSetMetaDataImpl;
-import javax.sql.rowset.RowSetProvider;
 
 /**
- * Builds cached JDBC result sets from DNA gateway responses.
+ * Builds {@link DnaJdbcResultSet} instances from DNA gateway responses.
+ *
+ * <p>Fully received results are scrollable; results backed by a server cursor are forward-only
+ * and pull further batches while they are read.
  *
  * <p>The server side now performs authoritative type mapping via dialect-specific
  * {@code JdbcTypeMapping} instances. The client side trusts the server-provided
@@ -102,31 +100,59 @@ final class ResultSetBuilder {
   static ResultSet fromTabularResult(final DnaJdbcModels.TabularResult result) throws SQLException {
     List<DnaJdbcModels.ColumnDef> columns = result == null ? List.of() : safeColumns(result.columns());
     List<List<Object>> rows = result == null || result.rows() == null ? List.of() : result.rows();
-    return build(columns, rows, 0);
+    return build(null, columns, rows, null, 0, 0);
   }
 
   static ResultSet fromQueryResult(final DnaJdbcModels.QueryResult result, final int maxRows) throws SQLException {
+    return fromQueryResult(null, result, maxRows);
+  }
+
+  static ResultSet fromQueryResult(
+      final Statement statement,
+      final DnaJdbcModels.QueryResult result,
+      final int maxRows
+  ) throws SQLException {
     List<DnaJdbcModels.ColumnDef> columns = result == null ? List.of() : safeColumns(result.columns());
     List<List<Object>> rows = result == null || result.rows() == null ? List.of() : result.rows();
-    return build(columns, rows, maxRows);
+    return build(statement, columns, rows, null, maxRows, 0);
+  }
+
+  /**
+   * Builds a forward-only result set over the first page of a query whose remaining rows are
+   * still held by a server cursor.
+   */
+  static ResultSet fromCursor(
+      final Statement statement,
+      final DnaJdbcModels.QueryResult firstPage,
+      final DnaJdbcResultSet.BatchCursor cursor,
+      final int maxRows,
+      final int fetchSize
+  ) throws SQLException {
+    List<DnaJdbcModels.ColumnDef> columns = firstPage == null ? List.of() : safeColumns(firstPage.columns());
+    List<List<Object>> rows = firstPage == null || firstPage.rows() == null ? List.of() : firstPage.rows();
+    return build(statement, columns, rows, cursor, maxRows, fetchSize);
   }
 
   static ResultSet emptyResultSet() throws SQLException {
-    return build(List.of(new DnaJdbcModels.ColumnDef("VALUE", "VARCHAR", Types.VARCHAR)), List.of(), 0);
+    return build(null, List.of(new DnaJdbcModels.ColumnDef("VALUE", "VARCHAR", Types.VARCHAR)), List.of(), null, 0, 0);
   }
 
   private static ResultSet build(
+      final Statement statement,
       final List<DnaJdbcModels.ColumnDef> columns,
       final List<List<Object>> rows,
-      final int maxRows
+      final DnaJdbcResultSet.BatchCursor cursor,
+      final int maxRows,
+      final int fetchSize
   ) throws SQLException {
-    CachedRowSet rowSet = RowSetProvider.newFactory().createCachedRowSet();
     RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
     metaData.setColumnCount(columns.size());
+    int[] jdbcTypes = new int[columns.size()];
     for (int index = 0; index < columns.size(); index++) {
       DnaJdbcModels.ColumnDef column = columns.get(index);
       int columnIndex = index + 1;
       int jdbcType = resolveJdbcType(column);
+      jdbcTypes[index] = jdbcType;
       metaData.setColumnLabel(columnIndex, column.name());
       metaData.setColumnName(columnIndex, column.name());
       metaData.setColumnType(columnIndex, jdbcType);
@@ -138,27 +164,7 @@ final class ResultSetBuilder {
       metaData.setSearchable(columnIndex, true);
       metaData.setSigned(columnIndex, isTypeSigned(jdbcType));
     }
-    rowSet.setMetaData(metaData);
-    int limit = maxRows > 0 ? Math.min(maxRows, rows.size()) : rows.size();
-    for (int rowIndex = 0; rowIndex < limit; rowIndex++) {
-      List<Object> row = rows.get(rowIndex) == null ? List.of() : rows.get(rowIndex);
-      rowSet.moveToInsertRow();
-      for (int columnIndex = 0; columnIndex < columns.size(); columnIndex++) {
-        rowSet.updateObject(columnIndex + 1, columnIndex < row.size() ? row.get(columnIndex) : null);
-      }
-      rowSet.insertRow();
-    }
-    rowSet.moveToCurrentRow();
-    rowSet.beforeFirst();
-    return wrap(rowSet);
-  }
-
-  private static ResultSet wrap(final CachedRowSet rowSet) {
-    return (ResultSet) Proxy.newProxyInstance(
-        ResultSet.class.getClassLoader(),
-        new Class<?>[] {ResultSet.class},
-        new ResultSetHandler(rowSet)
-    );
+    return new DnaJdbcResultSet(statement, metaData, jdbcTypes, rows, cursor, maxRows, fetchSize);
   }
 
   /**
@@ -232,66 +238,4 @@ final class ResultSetBuilder {
       default -> false;
     };
   }
-
-  private static final class ResultSetHandler implements InvocationHandler {
-
-    private final CachedRowSet delegate;
-
-    private ResultSetHandler(final CachedRowSet delegate) {
-      this.delegate = delegate;
-    }
-
-    @Override
-    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
-      Object[] safeArgs = args == null ? new Object[0] : args;
-      try {
-        return switch (method.getName()) {
-          case "toString" -> delegate.toString();
-          case "hashCode" -> System.identityHashCode(proxy);
-          case "equals" -> proxy == safeArgs[0];
-          case "unwrap" -> unwrap(proxy, safeArgs);
-          case "isWrapperFor" -> isWrapperFor(proxy, safeArgs);
-          case "absolute" -> absolute(safeArgs);
-          default -> method.invoke(delegate, safeArgs);
-        };
-      } catch (InvocationTargetException exception) {
-        throw exception.getCause();
-      }
-    }
-
-    private Object absolute(final Object[] args) throws SQLException {
-      int row = ((Number) args[0]).intValue();
-      if (row == 0) {
-        delegate.beforeFirst();
-        return false;
-      }
-      if (row < 0) {
-        return absoluteFromEnd(row);
-      }
-      return delegate.absolute(row);
-    }
-
-    private boolean absoluteFromEnd(final int row) throws SQLException {
-      delegate.last();
-      int rowCount = delegate.getRow();
-      int targetRow = rowCount + row + 1;
-      if (targetRow <= 0) {
-        delegate.beforeFirst();
-        return false;
-      }
-      return delegate.absolute(targetRow);
-    }
-
-    private static Object unwrap(final Object proxy, final Object[] args) throws SQLException {
-      Class<?> targetType = (Class<?>) args[0];
-      if (targetType.isInstance(proxy)) {
-        return proxy;
-      }
-      throw new SQLException("不支持 unwrap 到 " + targetType.getName());
-    }
-
-    private static boolean isWrapperFor(final Object proxy, final Object[] args) {
-      return ((Class<?>) args[0]).isInstance(proxy);
-    }
-  }
 }
@@ -1,6 +1,7 @@
 package org.simplepoint.plugin.dna.jdbc.driver;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -10,13 +11,23 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Test;
+import org.simplepoint.plugin.dna.jdbc.protocol.DnaJdbcErrorCodes;
+import org.simplepoint.plugin.dna.jdbc.protocol.DnaJdbcFrame;
+import org.simplepoint.plugin.dna.jdbc.protocol.DnaJdbcRowBatchCodec;
+import org.simplepoint.plugin.dna.jdbc.protocol.DnaJdbcWireFormat;
 
 class DnaJdbcSocketTransportTest {
 
@@ -59,7 +70,8 @@ class DnaJdbcSocketTransportTest {
                   null,
                   null
               );
-              case "TABLE_TYPES" -> new DnaJdbcModels.SocketResponse(
+              // The first navigator call pipelines the rest of the navigator metadata with it.
+              case "CATALOGS", "TABLE_TYPES", "TYPE_INFO", "SCHEMAS" -> new DnaJdbcModels.SocketResponse(
                   true,
                   null,
                   null,
@@ -102,9 +114,811 @@ class DnaJdbcSocketTransportTest {
       }
 
       serverFuture.get();
-      assertThat(actions).containsExactly("CONNECT", "TABLE_TYPES", "CLOSE");
+      assertThat(actions).containsExactly("CONNECT", "CATALOGS", "TABLE_TYPES", "TYPE_INFO", "SCHEMAS", "CLOSE");
     } finally {
       executor.shutdownNow();
     }
   }
+
+  @Test
+  void drainsServerCursorWithFetchRequests() throws Exception {
+    ObjectMapper objectMapper = new ObjectMapper()
+        .findAndRegisterModules()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    List<String> actions = new CopyOnWriteArrayList<>();
+    var executor = Executors.newSingleThreadExecutor();
+    List<DnaJdbcModels.ColumnDef> columns = List.of(new DnaJdbcModels.ColumnDef("ID", "INTEGER", java.sql.Types.INTEGER));
+
+    try (ServerSocket serverSocket = new ServerSocket(0)) {
+      final Future<?> serverFuture = executor.submit(() -> {
+        try (
+            Socket socket = serverSocket.accept();
+            DataInputStream inputStream = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))
+        ) {
+          int fetches = 0;
+          while (true) {
+            int length = inputStream.readInt();
+            byte[] payload = inputStream.readNBytes(length);
+            DnaJdbcModels.SocketRequest request = objectMapper.readValue(payload, DnaJdbcModels.SocketRequest.class);
+            actions.add(request.action() + (request.fetchSize() == null ? "" : ":" + request.fetchSize()));
+            DnaJdbcModels.SocketResponse response = switch (request.action()) {
+              case "CONNECT" -> new DnaJdbcModels.SocketResponse(
+                  true,
+                  null,
+                  new DnaJdbcModels.PingResult(null, "tenant-a", "ctx-1", "user-1", "alice@example.com", "DNA", "1.0", null),
+                  null,
+                  null,
+                  null,
+                  null
+              );
+              case "QUERY" -> new DnaJdbcModels.SocketResponse(
+                  true,
+                  null,
+                  null,
+                  null,
+                  new DnaJdbcModels.QueryResult(columns, List.of(List.of(1), List.of(2)), false, 2L),
+                  null,
+                  null,
+                  new DnaJdbcModels.CursorResult("c1", null, true)
+              );
+              case "FETCH" -> {
+                fetches++;
+                yield new DnaJdbcModels.SocketResponse(
+                    true,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    fetches == 1
+                        ? new DnaJdbcModels.CursorResult("c1", List.of(List.of(3), List.of(4)), true)
+                        : new DnaJdbcModels.CursorResult("c1", List.of(List.of(5)), false)
+                );
+              }
+              case "CLOSE" -> new DnaJdbcModels.SocketResponse(true, null, null, null, null, null, null);
+              default -> throw new SQLException("unexpected action: " + request.action());
+            };
+            byte[] responsePayload = objectMapper.writeValueAsBytes(response);
+            outputStream.writeInt(responsePayload.length);
+            outputStream.write(responsePayload);
+            outputStream.flush();
+            if ("CLOSE".equals(request.action())) {
+              return null;
+            }
+          }
+        }
+      });
+
+      Properties properties = new Properties();
+      properties.setProperty("user", "alice@example.com");
+      properties.setProperty("password", "secret");
+      DnaJdbcModels.ConnectionConfig config = DnaJdbcUrlParser.parse(
+          "jdbc:simplepoint:dna://127.0.0.1:" + serverSocket.getLocalPort(),
+          properties
+      );
+
+      try (DnaJdbcClient client = new DnaJdbcClient(config)) {
+        client.ping();
+        DnaJdbcModels.QueryResult result = client.query(null, "select id from t", null, null, null, 2);
+
+        assertThat(result.rows()).containsExactly(List.of(1), List.of(2), List.of(3), List.of(4), List.of(5));
+        assertThat(result.returnedRows()).isEqualTo(5L);
+      }
+
+      serverFuture.get();
+      assertThat(actions).containsExactly("CONNECT", "QUERY:2", "FETCH:2", "FETCH:2", "CLOSE");
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void sendsPreparedStatementBatchAsSingleExecuteBatchFrame() throws Exception {
+    ObjectMapper objectMapper = new ObjectMapper()
+        .findAndRegisterModules()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    List<DnaJdbcModels.SocketRequest> requests = new CopyOnWriteArrayList<>();
+    var executor = Executors.newSingleThreadExecutor();
+
+    try (ServerSocket serverSocket = new ServerSocket(0)) {
+      final Future<?> serverFuture = executor.submit(() -> {
+        try (
+            Socket socket = serverSocket.accept();
+            DataInputStream inputStream = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))
+        ) {
+          while (true) {
+            int length = inputStream.readInt();
+            byte[] payload = inputStream.readNBytes(length);
+            DnaJdbcModels.SocketRequest request = objectMapper.readValue(payload, DnaJdbcModels.SocketRequest.class);
+            requests.add(request);
+            DnaJdbcModels.SocketResponse response = switch (request.action()) {
+              case "CONNECT" -> new DnaJdbcModels.SocketResponse(
+                  true,
+                  null,
+                  new DnaJdbcModels.PingResult("ds1", "tenant-a", "ctx-1", "user-1", "alice@example.com", "DNA", "1.0", null),
+                  null,
+                  null,
+                  null,
+                  null
+              );
+              case "EXECUTE_BATCH" -> new DnaJdbcModels.SocketResponse(
+                  true, null, null, null, null, null, null, null, null,
+                  new DnaJdbcModels.BatchUpdateResult("ds1", "ds1", new long[] {1L, 1L, 0L}, 3L, request.sql())
+              );
+              case "CLOSE" -> new DnaJdbcModels.SocketResponse(true, null, null, null, null, null, null);
+              default -> throw new SQLException("unexpected action: " + request.action());
+            };
+            byte[] responsePayload = objectMapper.writeValueAsBytes(response);
+            outputStream.writeInt(responsePayload.length);
+            outputStream.write(responsePayload);
+            outputStream.flush();
+            if ("CLOSE".equals(request.action())) {
+              return null;
+            }
+          }
+        }
+      });
+
+      Properties properties = new Properties();
+      properties.setProperty("user", "alice@example.com");
+      properties.setProperty("password", "secret");
+      try (
+          Connection connection = new DnaJdbcDriver().connect(
+              "jdbc:simplepoint:dna://127.0.0.1:" + serverSocket.getLocalPort(), properties
+          );
+          PreparedStatement statement = connection.prepareStatement("update orders set status = ? where id = ?")
+      ) {
+        for (int id = 1; id <= 3; id++) {
+          statement.setString(1, "PAID");
+          statement.setInt(2, id);
+          statement.addBatch();
+        }
+        assertThat(statement.executeBatch()).containsExactly(1, 1, 0);
+      }
+
+      serverFuture.get();
+      assertThat(requests).extracting(DnaJdbcModels.SocketRequest::action)
+          .containsExactly("CONNECT", "EXECUTE_BATCH", "CLOSE");
+      DnaJdbcModels.SocketRequest batch = requests.get(1);
+      assertThat(batch.sql()).isEqualTo("update orders set status = ? where id = ?");
+      assertThat(batch.batchParameters()).containsExactly(List.of("PAID", 1), List.of("PAID", 2), List.of("PAID", 3));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void failedBatchFrameReportsCommittedAndRolledBackParameterSets() throws Exception {
+    ObjectMapper objectMapper = new ObjectMapper()
+        .findAndRegisterModules()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    List<DnaJdbcModels.SocketRequest> requests = new CopyOnWriteArrayList<>();
+    var executor = Executors.newSingleThreadExecutor();
+
+    try (ServerSocket serverSocket = new ServerSocket(0)) {
+      final Future<?> serverFuture = executor.submit(() -> {
+        try (
+            Socket socket = serverSocket.accept();
+            DataInputStream inputStream = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))
+        ) {
+          while (true) {
+            int length = inputStream.readInt();
+            byte[] payload = inputStream.readNBytes(length);
+            DnaJdbcModels.SocketRequest request = objectMapper.readValue(payload, DnaJdbcModels.SocketRequest.class);
+            requests.add(request);
+            long batches = requests.stream().filter(item -> "EXECUTE_BATCH".equals(item.action())).count();
+            DnaJdbcModels.SocketResponse response = switch (request.action()) {
+              case "CONNECT" -> new DnaJdbcModels.SocketResponse(
+                  true,
+                  null,
+                  new DnaJdbcModels.PingResult("ds1", "tenant-a", "ctx-1", "user-1", "alice@example.com", "DNA", "1.0", null),
+                  null,
+                  null,
+                  null,
+                  null
+              );
+              case "EXECUTE_BATCH" -> batches == 1
+                  ? new DnaJdbcModels.SocketResponse(
+                      true, null, null, null, null, null, null, null, null,
+                      new DnaJdbcModels.BatchUpdateResult(
+                          "ds1", "ds1", new long[request.batchParameters().size()], 0L, request.sql()
+                      )
+                  )
+                  : new DnaJdbcModels.SocketResponse(false, "duplicate key", null, null, null, null, null);
+              case "CLOSE" -> new DnaJdbcModels.SocketResponse(true, null, null, null, null, null, null);
+              default -> throw new SQLException("unexpected action: " + request.action());
+            };
+            byte[] responsePayload = objectMapper.writeValueAsBytes(response);
+            outputStream.writeInt(responsePayload.length);
+            outputStream.write(responsePayload);
+            outputStream.flush();
+            if ("CLOSE".equals(request.action())) {
+              return null;
+            }
+          }
+        }
+      });
+
+      Properties properties = new Properties();
+      properties.setProperty("user", "alice@example.com");
+      properties.setProperty("password", "secret");
+      try (
+          Connection connection = new DnaJdbcDriver().connect(
+              "jdbc:simplepoint:dna://127.0.0.1:" + serverSocket.getLocalPort(), properties
+          );
+          PreparedStatement statement = connection.prepareStatement("insert into orders(id) values (?)")
+      ) {
+        for (int id = 1; id <= 12_000; id++) {
+          statement.setInt(1, id);
+          statement.addBatch();
+        }
+        assertThatThrownBy(statement::executeBatch)
+            .isInstanceOfSatisfying(DnaJdbcBatchUpdateException.class, ex -> {
+              assertThat(ex.getUpdateCounts()).hasSize(5000);
+              assertThat(ex.getCommittedParameterSets()).isEqualTo(5000);
+              assertThat(ex.getRolledBackParameterSets()).isEqualTo(5000);
+              assertThat(ex.getInDoubtParameterSets()).isZero();
+              assertThat(ex.getUnsentParameterSets()).isEqualTo(2000);
+            });
+      }
+
+      serverFuture.get();
+      assertThat(requests).extracting(DnaJdbcModels.SocketRequest::action)
+          .containsExactly("CONNECT", "EXECUTE_BATCH", "EXECUTE_BATCH", "CLOSE");
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void unansweredBatchFrameIsReportedInDoubtRatherThanRolledBack() throws Exception {
+    ObjectMapper objectMapper = new ObjectMapper()
+        .findAndRegisterModules()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    List<String> actions = new CopyOnWriteArrayList<>();
+    var executor = Executors.newSingleThreadExecutor();
+
+    try (ServerSocket serverSocket = new ServerSocket(0)) {
+      final Future<?> serverFuture = executor.submit(() -> {
+        try (
+            Socket socket = serverSocket.accept();
+            DataInputStream inputStream = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))
+        ) {
+          while (true) {
+            int length = inputStream.readInt();
+            byte[] payload = inputStream.readNBytes(length);
+            DnaJdbcModels.SocketRequest request = objectMapper.readValue(payload, DnaJdbcModels.SocketRequest.class);
+            actions.add(request.action());
+            if (actions.stream().filter("EXECUTE_BATCH"::equals).count() == 2) {
+              // the connection drops after the second frame is received, before it is answered
+              return null;
+            }
+            DnaJdbcModels.SocketResponse response = "CONNECT".equals(request.action())
+                ? new DnaJdbcModels.SocketResponse(
+                    true,
+                    null,
+                    new DnaJdbcModels.PingResult("ds1", "tenant-a", "ctx-1", "user-1", "alice@example.com", "DNA", "1.0", null),
+                    null,
+                    null,
+                    null,
+                    null
+                )
+                : new DnaJdbcModels.SocketResponse(
+                    true, null, null, null, null, null, null, null, null,
+                    new DnaJdbcModels.BatchUpdateResult(
+                        "ds1", "ds1", new long[request.batchParameters().size()], 0L, request.sql()
+                    )
+                );
+            byte[] responsePayload = objectMapper.writeValueAsBytes(response);
+            outputStream.writeInt(responsePayload.length);
+            outputStream.write(responsePayload);
+            outputStream.flush();
+          }
+        }
+      });
+
+      Properties properties = new Properties();
+      properties.setProperty("user", "alice@example.com");
+      properties.setProperty("password", "secret");
+      try (
+          Connection connection = new DnaJdbcDriver().connect(
+              "jdbc:simplepoint:dna://127.0.0.1:" + serverSocket.getLocalPort(), properties
+          );
+          PreparedStatement statement = connection.prepareStatement("insert into orders(id) values (?)")
+      ) {
+        for (int id = 1; id <= 6_000; id++) {
+          statement.setInt(1, id);
+          statement.addBatch();
+        }
+        assertThatThrownBy(statement::executeBatch)
+            .isInstanceOfSatisfying(DnaJdbcBatchUpdateException.class, ex -> {
+              assertThat(ex.getSQLState()).isEqualTo("40003");
+              assertThat(ex.getCommittedParameterSets()).isEqualTo(5000);
+              assertThat(ex.getRolledBackParameterSets()).isZero();
+              assertThat(ex.getInDoubtParameterSets()).isEqualTo(1000);
+              assertThat(ex.getUnsentParameterSets()).isZero();
+            });
+      }
+
+      serverFuture.get();
+      assertThat(actions).containsExactly("CONNECT", "EXECUTE_BATCH", "EXECUTE_BATCH");
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void cancelsRunningQueryOverSideChannelConnection() throws Exception {
+    ObjectMapper objectMapper = new ObjectMapper()
+        .findAndRegisterModules()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    List<DnaJdbcModels.SocketRequest> requests = new CopyOnWriteArrayList<>();
+    CountDownLatch queryReceived = new CountDownLatch(1);
+    CompletableFuture<String> cancelledQueryId = new CompletableFuture<>();
+    var executor = Executors.newFixedThreadPool(2);
+
+    try (ServerSocket serverSocket = new ServerSocket(0)) {
+      final Future<?> serverFuture = executor.submit(() -> {
+        try (
+            Socket socket = serverSocket.accept();
+            DataInputStream inputStream = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))
+        ) {
+          executor.submit(() -> {
+            try (
+                Socket cancelSocket = serverSocket.accept();
+                DataInputStream cancelInput = new DataInputStream(new BufferedInputStream(cancelSocket.getInputStream()));
+                DataOutputStream cancelOutput = new DataOutputStream(
+                    new BufferedOutputStream(cancelSocket.getOutputStream())
+                )
+            ) {
+              DnaJdbcModels.SocketRequest cancel = objectMapper.readValue(
+                  cancelInput.readNBytes(cancelInput.readInt()), DnaJdbcModels.SocketRequest.class
+              );
+              requests.add(cancel);
+              byte[] ok = objectMapper.writeValueAsBytes(
+                  new DnaJdbcModels.SocketResponse(true, null, null, null, null, null, null)
+              );
+              cancelOutput.writeInt(ok.length);
+              cancelOutput.write(ok);
+              cancelOutput.flush();
+              cancelledQueryId.complete(cancel.queryId());
+            }
+            return null;
+          });
+          while (true) {
+            int length = inputStream.readInt();
+            byte[] payload = inputStream.readNBytes(length);
+            DnaJdbcModels.SocketRequest request = objectMapper.readValue(payload, DnaJdbcModels.SocketRequest.class);
+            requests.add(request);
+            DnaJdbcModels.SocketResponse response = switch (request.action()) {
+              case "CONNECT" -> new DnaJdbcModels.SocketResponse(
+                  true,
+                  null,
+                  new DnaJdbcModels.PingResult("ds1", "tenant-a", "ctx-1", "user-1", "alice@example.com", "DNA", "1.0", null),
+                  null,
+                  null,
+                  null,
+                  null
+              );
+              case "QUERY" -> {
+                queryReceived.countDown();
+                String cancelled = cancelledQueryId.get(5, TimeUnit.SECONDS);
+                yield new DnaJdbcModels.SocketResponse(
+                    false, "DNA JDBC 查询已被取消: " + cancelled, null, null, null, null, null
+                );
+              }
+              case "CLOSE" -> new DnaJdbcModels.SocketResponse(true, null, null, null, null, null, null);
+              default -> throw new SQLException("unexpected action: " + request.action());
+            };
+            byte[] responsePayload = objectMapper.writeValueAsBytes(response);
+            outputStream.writeInt(responsePayload.length);
+            outputStream.write(responsePayload);
+            outputStream.flush();
+            if ("CLOSE".equals(request.action())) {
+              return null;
+            }
+          }
+        }
+      });
+
+      Properties properties = new Properties();
+      properties.setProperty("user", "alice@example.com");
+      properties.setProperty("password", "secret");
+      properties.setProperty("encoding", "json");
+      try (
+          Connection connection = new DnaJdbcDriver().connect(
+              "jdbc:simplepoint:dna://127.0.0.1:" + serverSocket.getLocalPort(), properties
+          );
+          Statement statement = connection.createStatement()
+      ) {
+        Thread canceller = new Thread(() -> {
+          try {
+            queryReceived.await(5, TimeUnit.SECONDS);
+            statement.cancel();
+          } catch (Exception ex) {
+            cancelledQueryId.completeExceptionally(ex);
+          }
+        });
+        canceller.start();
+        assertThat(statement.getResultSetType()).isEqualTo(java.sql.ResultSet.TYPE_FORWARD_ONLY);
+        assertThat(statement.getFetchSize()).isEqualTo(1_000);
+        assertThatThrownBy(() -> statement.executeQuery("select * from orders"))
+            .isInstanceOf(SQLException.class)
+            .extracting(ex -> ((SQLException) ex).getSQLState())
+            .isEqualTo("57014");
+        canceller.join();
+      }
+
+      serverFuture.get();
+      assertThat(requests).extracting(DnaJdbcModels.SocketRequest::action)
+          .containsExactly("CONNECT", "QUERY", "CANCEL", "CLOSE");
+      assertThat(requests.get(1).queryId()).isNotBlank().isEqualTo(requests.get(2).queryId());
+      assertThat(requests.get(1).fetchSize()).isEqualTo(1_000);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void decodesBinaryRowBatchesNegotiatedAtConnect() throws Exception {
+    ObjectMapper objectMapper = new ObjectMapper()
+        .findAndRegisterModules()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    DnaJdbcRowBatchCodec rowBatchCodec = new DnaJdbcRowBatchCodec(objectMapper);
+    List<String> actions = new CopyOnWriteArrayList<>();
+    var executor = Executors.newSingleThreadExecutor();
+    List<DnaJdbcModels.ColumnDef> columns = List.of(
+        new DnaJdbcModels.ColumnDef("ID", "BIGINT", java.sql.Types.BIGINT),
+        new DnaJdbcModels.ColumnDef("STATUS", "VARCHAR", java.sql.Types.VARCHAR)
+    );
+    List<List<Object>> rows = new java.util.ArrayList<>();
+    for (long i = 0; i < 500; i++) {
+      rows.add(java.util.Arrays.asList(i, i % 3 == 0 ? null : "PAID"));
+    }
+
+    try (ServerSocket serverSocket = new ServerSocket(0)) {
+      final Future<?> serverFuture = executor.submit(() -> {
+        try (
+            Socket socket = serverSocket.accept();
+            DataInputStream inputStream = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))
+        ) {
+          while (true) {
+            int length = inputStream.readInt();
+            byte[] payload = inputStream.readNBytes(length);
+            DnaJdbcModels.SocketRequest request = objectMapper.readValue(payload, DnaJdbcModels.SocketRequest.class);
+            actions.add(request.action());
+            byte[] responsePayload = switch (request.action()) {
+              case "CONNECT" -> {
+                actions.add(request.encoding() + "/" + request.compression());
+                yield objectMapper.writeValueAsBytes(new DnaJdbcModels.SocketResponse(
+                    true,
+                    null,
+                    new DnaJdbcModels.PingResult(null, "tenant-a", "ctx-1", "user-1", "alice@example.com", "DNA", "1.0", null),
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    DnaJdbcWireFormat.negotiate(request.encoding(), request.compression(), true)
+                ));
+              }
+              case "QUERY" -> DnaJdbcFrame.encode(
+                  objectMapper.writeValueAsBytes(new DnaJdbcModels.SocketResponse(
+                      true, null, null, null, new DnaJdbcModels.QueryResult(columns, List.of(), false, 0L), null, null
+                  )),
+                  rowBatchCodec.encode(rows),
+                  0
+              );
+              case "CLOSE" -> DnaJdbcFrame.encode(
+                  objectMapper.writeValueAsBytes(new DnaJdbcModels.SocketResponse(true, null, null, null, null, null, null)),
+                  null,
+                  0
+              );
+              default -> throw new SQLException("unexpected action: " + request.action());
+            };
+            outputStream.writeInt(responsePayload.length);
+            outputStream.write(responsePayload);
+            outputStream.flush();
+            if ("CLOSE".equals(request.action())) {
+              return null;
+            }
+          }
+        }
+      });
+
+      Properties properties = new Properties();
+      properties.setProperty("user", "alice@example.com");
+      properties.setProperty("password", "secret");
+      properties.setProperty("compression", "lz4");
+      DnaJdbcModels.ConnectionConfig config = DnaJdbcUrlParser.parse(
+          "jdbc:simplepoint:dna://127.0.0.1:" + serverSocket.getLocalPort(),
+          properties
+      );
+
+      try (DnaJdbcClient client = new DnaJdbcClient(config)) {
+        client.ping();
+        DnaJdbcModels.QueryResult result = client.query(null, "select id, status from t", null, null, null, null);
+
+        assertThat(result.rows()).isEqualTo(rows);
+        assertThat(result.returnedRows()).isEqualTo(500L);
+        assertThat(result.columns()).isEqualTo(columns);
+      }
+
+      serverFuture.get();
+      assertThat(actions).containsExactly("CONNECT", "BINARY/lz4", "QUERY", "CLOSE");
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void pipelinesWarmupAndDropsCachedMetadataWhenVersionChanges() throws Exception {
+    ObjectMapper objectMapper = new ObjectMapper()
+        .findAndRegisterModules()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    List<DnaJdbcModels.SocketRequest> requests = new CopyOnWriteArrayList<>();
+    var executor = Executors.newSingleThreadExecutor();
+    DnaJdbcModels.TabularResult schemaColumns = new DnaJdbcModels.TabularResult(
+        List.of(
+            new DnaJdbcModels.ColumnDef("TABLE_NAME", "VARCHAR", java.sql.Types.VARCHAR),
+            new DnaJdbcModels.ColumnDef("COLUMN_NAME", "VARCHAR", java.sql.Types.VARCHAR)
+        ),
+        List.of(List.of("orders", "id"), List.of("orders", "status"), List.of("order_items", "id"), List.of("users", "id"))
+    );
+
+    try (ServerSocket serverSocket = new ServerSocket(0)) {
+      final Future<?> serverFuture = executor.submit(() -> {
+        try (
+            Socket socket = serverSocket.accept();
+            DataInputStream inputStream = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))
+        ) {
+          long version = 1L;
+          while (true) {
+            int length = inputStream.readInt();
+            byte[] payload = inputStream.readNBytes(length);
+            DnaJdbcModels.SocketRequest request = objectMapper.readValue(payload, DnaJdbcModels.SocketRequest.class);
+            requests.add(request);
+            PingOrTable body = switch (request.action()) {
+              case "CONNECT" -> new PingOrTable(
+                  new DnaJdbcModels.PingResult(null, "tenant-a", "ctx-1", "user-1", "alice@example.com", "DNA", "1.0", null),
+                  null
+              );
+              case "CATALOGS", "TABLE_TYPES", "TYPE_INFO", "SCHEMAS" -> new PingOrTable(null, new DnaJdbcModels.TabularResult(
+                  List.of(new DnaJdbcModels.ColumnDef("NAME", "VARCHAR", java.sql.Types.VARCHAR)),
+                  List.of(List.of(request.action()))
+              ));
+              case "SCHEMA_COLUMNS" -> {
+                // A DDL ran on the server since the warm-up.
+                version = 2L;
+                yield new PingOrTable(null, schemaColumns);
+              }
+              case "CLOSE" -> new PingOrTable(null, null);
+              default -> throw new SQLException("unexpected action: " + request.action());
+            };
+            byte[] responsePayload = objectMapper.writeValueAsBytes(new DnaJdbcModels.SocketResponse(
+                true, null, body.ping(), body.table(), null, null, null, null, null, null, request.requestId(), version
+            ));
+            outputStream.writeInt(responsePayload.length);
+            outputStream.write(responsePayload);
+            outputStream.flush();
+            if ("CLOSE".equals(request.action())) {
+              return null;
+            }
+          }
+        }
+      });
+
+      Properties properties = new Properties();
+      properties.setProperty("user", "alice@example.com");
+      properties.setProperty("password", "secret");
+      properties.setProperty("metadataWarmup", "true");
+      DnaJdbcModels.ConnectionConfig config = DnaJdbcUrlParser.parse(
+          "jdbc:simplepoint:dna://127.0.0.1:" + serverSocket.getLocalPort(),
+          properties
+      );
+
+      try (DnaJdbcClient client = new DnaJdbcClient(config)) {
+        client.ping();
+        client.warmUpMetadata();
+        assertThat(client.tableTypes().rows()).containsExactly(List.of("TABLE_TYPES"));
+
+        assertThat(client.columns(null, "sales", "ORDER%", null).rows())
+            .containsExactly(List.of("orders", "id"), List.of("orders", "status"), List.of("order_items", "id"));
+        assertThat(client.columns(null, "sales", "orders", "ID").rows()).containsExactly(List.of("orders", "id"));
+        assertThat(client.columns(null, "sales", "order\\_items", null).rows())
+            .containsExactly(List.of("order_items", "id"));
+        assertThat(client.catalogs().rows()).containsExactly(List.of("CATALOGS"));
+      }
+
+      serverFuture.get();
+      assertThat(requests).extracting(DnaJdbcModels.SocketRequest::action).containsExactly(
+          "CONNECT", "CATALOGS", "TABLE_TYPES", "TYPE_INFO", "SCHEMAS", "SCHEMA_COLUMNS",
+          "CATALOGS", "TABLE_TYPES", "TYPE_INFO", "SCHEMAS", "CLOSE"
+      );
+      assertThat(requests).extracting(DnaJdbcModels.SocketRequest::requestId).doesNotContainNull().doesNotHaveDuplicates();
+      assertThat(requests.get(5).schemaPattern()).isEqualTo("sales");
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void pipelinesNavigatorMetadataOnFirstCallWithoutWarmup() throws Exception {
+    ObjectMapper objectMapper = new ObjectMapper()
+        .findAndRegisterModules()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    List<String> actions = new CopyOnWriteArrayList<>();
+    var executor = Executors.newSingleThreadExecutor();
+
+    try (ServerSocket serverSocket = new ServerSocket(0)) {
+      final Future<?> serverFuture = executor.submit(() -> {
+        try (
+            Socket socket = serverSocket.accept();
+            DataInputStream inputStream = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))
+        ) {
+          while (true) {
+            int length = inputStream.readInt();
+            byte[] payload = inputStream.readNBytes(length);
+            DnaJdbcModels.SocketRequest request = objectMapper.readValue(payload, DnaJdbcModels.SocketRequest.class);
+            actions.add(request.action());
+            PingOrTable body = switch (request.action()) {
+              case "CONNECT" -> new PingOrTable(
+                  new DnaJdbcModels.PingResult(null, "tenant-a", "ctx-1", "user-1", "alice@example.com", "DNA", "1.0", null),
+                  null
+              );
+              case "CATALOGS", "TABLE_TYPES", "TYPE_INFO", "SCHEMAS" -> new PingOrTable(null, new DnaJdbcModels.TabularResult(
+                  List.of(new DnaJdbcModels.ColumnDef("NAME", "VARCHAR", java.sql.Types.VARCHAR)),
+                  List.of(List.of(request.action()))
+              ));
+              case "CLOSE" -> new PingOrTable(null, null);
+              default -> throw new SQLException("unexpected action: " + request.action());
+            };
+            byte[] responsePayload = objectMapper.writeValueAsBytes(new DnaJdbcModels.SocketResponse(
+                true, null, body.ping(), body.table(), null, null, null, null, null, null, request.requestId(), 1L
+            ));
+            outputStream.writeInt(responsePayload.length);
+            outputStream.write(responsePayload);
+            outputStream.flush();
+            if ("CLOSE".equals(request.action())) {
+              return null;
+            }
+          }
+        }
+      });
+
+      Properties properties = new Properties();
+      properties.setProperty("user", "alice@example.com");
+      properties.setProperty("password", "secret");
+      DnaJdbcModels.ConnectionConfig config = DnaJdbcUrlParser.parse(
+          "jdbc:simplepoint:dna://127.0.0.1:" + serverSocket.getLocalPort(),
+          properties
+      );
+
+      try (DnaJdbcClient client = new DnaJdbcClient(config)) {
+        client.ping();
+        client.warmUpMetadata();
+        assertThat(actions).containsExactly("CONNECT");
+
+        assertThat(client.catalogs().rows()).containsExactly(List.of("CATALOGS"));
+        assertThat(actions).containsExactly("CONNECT", "CATALOGS", "TABLE_TYPES", "TYPE_INFO", "SCHEMAS");
+        assertThat(client.schemas(null, null).rows()).containsExactly(List.of("SCHEMAS"));
+        assertThat(client.typeInfo().rows()).containsExactly(List.of("TYPE_INFO"));
+        assertThat(client.tableTypes().rows()).containsExactly(List.of("TABLE_TYPES"));
+      }
+
+      serverFuture.get();
+      assertThat(actions).containsExactly("CONNECT", "CATALOGS", "TABLE_TYPES", "TYPE_INFO", "SCHEMAS", "CLOSE");
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void fallsBackToPerTableColumnsWhenServerRejectsSchemaColumns() throws Exception {
+    assertThat(columnLookupActions("不支持的 DNA JDBC Socket 操作: SCHEMA_COLUMNS", DnaJdbcErrorCodes.UNSUPPORTED_ACTION))
+        .containsExactly("CONNECT", "SCHEMA_COLUMNS", "COLUMNS:orders", "COLUMNS:users", "CLOSE");
+  }
+
+  @Test
+  void keepsBulkColumnsAfterTransientSchemaColumnsFailure() throws Exception {
+    assertThat(columnLookupActions("目标数据源不支持 SCHEMA_COLUMNS 所需的元数据查询", null))
+        .containsExactly(
+            "CONNECT", "SCHEMA_COLUMNS", "COLUMNS:orders", "SCHEMA_COLUMNS", "COLUMNS:users", "CLOSE"
+        );
+  }
+
+  private static List<String> columnLookupActions(
+      final String schemaColumnsError,
+      final String schemaColumnsErrorCode
+  ) throws Exception {
+    ObjectMapper objectMapper = new ObjectMapper()
+        .findAndRegisterModules()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    List<String> actions = new CopyOnWriteArrayList<>();
+    var executor = Executors.newSingleThreadExecutor();
+
+    try (ServerSocket serverSocket = new ServerSocket(0)) {
+      final Future<?> serverFuture = executor.submit(() -> {
+        try (
+            Socket socket = serverSocket.accept();
+            DataInputStream inputStream = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))
+        ) {
+          while (true) {
+            int length = inputStream.readInt();
+            byte[] payload = inputStream.readNBytes(length);
+            DnaJdbcModels.SocketRequest request = objectMapper.readValue(payload, DnaJdbcModels.SocketRequest.class);
+            actions.add(request.action() + (request.tablePattern() == null ? "" : ":" + request.tablePattern()));
+            DnaJdbcModels.SocketResponse response = switch (request.action()) {
+              case "CONNECT" -> new DnaJdbcModels.SocketResponse(
+                  true,
+                  null,
+                  new DnaJdbcModels.PingResult(null, "tenant-a", "ctx-1", "user-1", "alice@example.com", "DNA", "1.0", null),
+                  null,
+                  null,
+                  null,
+                  null
+              );
+              case "SCHEMA_COLUMNS" -> new DnaJdbcModels.SocketResponse(
+                  false, schemaColumnsError, null, null, null, null, null, null, null, null, null, null,
+                  schemaColumnsErrorCode
+              );
+              case "COLUMNS" -> new DnaJdbcModels.SocketResponse(
+                  true,
+                  null,
+                  null,
+                  new DnaJdbcModels.TabularResult(
+                      List.of(new DnaJdbcModels.ColumnDef("COLUMN_NAME", "VARCHAR", java.sql.Types.VARCHAR)),
+                      List.of(List.of("id"))
+                  ),
+                  null,
+                  null,
+                  null
+              );
+              case "CLOSE" -> new DnaJdbcModels.SocketResponse(true, null, null, null, null, null, null);
+              default -> throw new SQLException("unexpected action: " + request.action());
+            };
+            byte[] responsePayload = objectMapper.writeValueAsBytes(response);
+            outputStream.writeInt(responsePayload.length);
+            outputStream.write(responsePayload);
+            outputStream.flush();
+            if ("CLOSE".equals(request.action())) {
+              return null;
+            }
+          }
+        }
+      });
+
+      Properties properties = new Properties();
+      properties.setProperty("user", "alice@example.com");
+      properties.setProperty("password", "secret");
+      DnaJdbcModels.ConnectionConfig config = DnaJdbcUrlParser.parse(
+          "jdbc:simplepoint:dna://127.0.0.1:" + serverSocket.getLocalPort(),
+          properties
+      );
+
+      try (DnaJdbcClient client = new DnaJdbcClient(config)) {
+        client.ping();
+        assertThat(client.columns(null, "sales", "orders", null).rows()).containsExactly(List.of("id"));
+        assertThat(client.columns(null, "sales", "users", null).rows()).containsExactly(List.of("id"));
+      }
+
+      serverFuture.get();
+      return actions;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private record PingOrTable(DnaJdbcModels.PingResult ping, DnaJdbcModels.TabularResult table) {
+  }
 }
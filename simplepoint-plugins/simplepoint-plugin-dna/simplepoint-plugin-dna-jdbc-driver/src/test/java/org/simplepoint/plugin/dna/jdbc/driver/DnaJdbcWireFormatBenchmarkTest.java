@@ -0,0 +1,175 @@
+package org.simplepoint.plugin.dna.jdbc.driver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.simplepoint.plugin.dna.jdbc.protocol.DnaJdbcFrame;
+import org.simplepoint.plugin.dna.jdbc.protocol.DnaJdbcRowBatchCodec;
+import org.simplepoint.plugin.dna.jdbc.protocol.DnaJdbcWireFormat;
+
+/**
+ * Loopback throughput comparison of the JSON, binary and binary+LZ4 response encodings.
+ * Run with {@code -Ddna.jdbc.benchmark=true}; the loopback server encodes every response the
+ * same way the DNA socket server does, so both encode and decode cost are measured.
+ */
+@EnabledIfSystemProperty(named = "dna.jdbc.benchmark", matches = "true")
+class DnaJdbcWireFormatBenchmarkTest {
+
+  private static final int ROWS = 50_000;
+
+  private static final int WARMUP_QUERIES = 5;
+
+  private static final int MEASURED_QUERIES = 20;
+
+  private final ObjectMapper objectMapper = new ObjectMapper()
+      .findAndRegisterModules()
+      .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  private final DnaJdbcRowBatchCodec rowBatchCodec = new DnaJdbcRowBatchCodec(objectMapper);
+
+  @Test
+  void compareResponseEncodingsOverLoopback() throws Exception {
+    List<DnaJdbcModels.ColumnDef> columns = List.of(
+        new DnaJdbcModels.ColumnDef("ID", "BIGINT", java.sql.Types.BIGINT),
+        new DnaJdbcModels.ColumnDef("QUANTITY", "INTEGER", java.sql.Types.INTEGER),
+        new DnaJdbcModels.ColumnDef("AMOUNT", "DOUBLE", java.sql.Types.DOUBLE),
+        new DnaJdbcModels.ColumnDef("PRICE", "DECIMAL", java.sql.Types.DECIMAL),
+        new DnaJdbcModels.ColumnDef("STATUS", "VARCHAR", java.sql.Types.VARCHAR),
+        new DnaJdbcModels.ColumnDef("CREATED_AT", "TIMESTAMP", java.sql.Types.TIMESTAMP)
+    );
+    List<List<Object>> rows = new ArrayList<>(ROWS);
+    for (int i = 0; i < ROWS; i++) {
+      rows.add(List.of(
+          1_000_000L + i,
+          i % 97,
+          i * 1.25d,
+          BigDecimal.valueOf(i * 13L, 2),
+          i % 5 == 0 ? "CANCELLED" : "COMPLETED",
+          "2026-10-" + (10 + i % 18) + " 12:" + (10 + i % 50) + ":00"
+      ));
+    }
+    DnaJdbcModels.QueryResult result = new DnaJdbcModels.QueryResult(columns, rows, false, (long) ROWS);
+
+    for (String[] mode : new String[][] {{"json", "none"}, {"binary", "none"}, {"binary", "lz4"}}) {
+      AtomicLong bytesSent = new AtomicLong();
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try (ServerSocket serverSocket = new ServerSocket(0)) {
+        executor.submit(() -> serve(serverSocket, result, bytesSent));
+        Properties properties = new Properties();
+        properties.setProperty("user", "bench");
+        properties.setProperty("password", "bench");
+        properties.setProperty("encoding", mode[0]);
+        properties.setProperty("compression", mode[1]);
+        DnaJdbcModels.ConnectionConfig config = DnaJdbcUrlParser.parse(
+            "jdbc:simplepoint:dna://127.0.0.1:" + serverSocket.getLocalPort(),
+            properties
+        );
+        try (DnaJdbcClient client = new DnaJdbcClient(config)) {
+          client.ping();
+          for (int i = 0; i < WARMUP_QUERIES; i++) {
+            client.query(null, "select * from orders", null, null, null, null);
+          }
+          long bytesBefore = bytesSent.get();
+          long start = System.nanoTime();
+          long received = 0;
+          for (int i = 0; i < MEASURED_QUERIES; i++) {
+            received += client.query(null, "select * from orders", null, null, null, null).rows().size();
+          }
+          double seconds = (System.nanoTime() - start) / 1_000_000_000d;
+          long bytesPerQuery = (bytesSent.get() - bytesBefore) / MEASURED_QUERIES;
+          assertThat(received).isEqualTo((long) ROWS * MEASURED_QUERIES);
+          System.out.printf(
+              "DNA JDBC %s/%s: %,.0f rows/s, %,d bytes per %,d-row response%n",
+              mode[0], mode[1], received / seconds, bytesPerQuery, ROWS
+          );
+        }
+      } finally {
+        executor.shutdownNow();
+      }
+    }
+  }
+
+  private Void serve(
+      final ServerSocket serverSocket,
+      final DnaJdbcModels.QueryResult result,
+      final AtomicLong bytesSent
+  ) throws Exception {
+    try (
+        Socket socket = serverSocket.accept();
+        DataInputStream inputStream = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))
+    ) {
+      DnaJdbcWireFormat wireFormat = DnaJdbcWireFormat.PLAIN_JSON;
+      while (true) {
+        byte[] payload;
+        try {
+          payload = inputStream.readNBytes(inputStream.readInt());
+        } catch (EOFException ex) {
+          return null;
+        }
+        DnaJdbcModels.SocketRequest request = objectMapper.readValue(payload, DnaJdbcModels.SocketRequest.class);
+        DnaJdbcModels.SocketResponse response = switch (request.action()) {
+          case "CONNECT" -> new DnaJdbcModels.SocketResponse(
+              true, null, new DnaJdbcModels.PingResult(null, "bench", "ctx", "bench", "bench", "DNA", "1.0", null),
+              null, null, null, null, null,
+              DnaJdbcWireFormat.negotiate(request.encoding(), request.compression(), true)
+          );
+          case "QUERY" -> new DnaJdbcModels.SocketResponse(true, null, null, null, result, null, null);
+          default -> new DnaJdbcModels.SocketResponse(true, null, null, null, null, null, null);
+        };
+        byte[] responsePayload = encode(response, wireFormat);
+        bytesSent.addAndGet(responsePayload.length);
+        outputStream.writeInt(responsePayload.length);
+        outputStream.write(responsePayload);
+        outputStream.flush();
+        if (response.wireFormat() != null) {
+          wireFormat = response.wireFormat();
+        }
+        if ("CLOSE".equals(request.action())) {
+          return null;
+        }
+      }
+    }
+  }
+
+  private byte[] encode(
+      final DnaJdbcModels.SocketResponse response,
+      final DnaJdbcWireFormat wireFormat
+  ) throws Exception {
+    if (!wireFormat.binary()) {
+      return objectMapper.writeValueAsBytes(response);
+    }
+    int threshold = wireFormat.lz4() ? 4096 : -1;
+    DnaJdbcModels.QueryResult queryResult = response.queryResult();
+    if (queryResult == null) {
+      return DnaJdbcFrame.encode(objectMapper.writeValueAsBytes(response), null, threshold);
+    }
+    DnaJdbcModels.SocketResponse header = new DnaJdbcModels.SocketResponse(
+        true, null, null, null,
+        new DnaJdbcModels.QueryResult(queryResult.columns(), List.of(), queryResult.truncated(), 0L),
+        null, null
+    );
+    return DnaJdbcFrame.encode(
+        objectMapper.writeValueAsBytes(header),
+        rowBatchCodec.encode(queryResult.rows()),
+        threshold
+    );
+  }
+}
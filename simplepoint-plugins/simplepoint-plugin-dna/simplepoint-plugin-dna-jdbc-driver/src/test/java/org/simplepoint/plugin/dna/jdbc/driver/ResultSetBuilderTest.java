@@ -1,12 +1,20 @@
 package org.simplepoint.plugin.dna.jdbc.driver;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import org.junit.jupiter.api.Test;
+import org.simplepoint.plugin.dna.jdbc.protocol.DnaJdbcRowBatchCodec;
 
 class ResultSetBuilderTest {
 
@@ -74,4 +82,145 @@ class ResultSetBuilderTest {
       assertThat(resultSet.getString(1)).isEqualTo("Alice");
     }
   }
+
+  @Test
+  void streamsCursorBatchesForwardOnly() throws SQLException {
+    DnaJdbcModels.QueryResult firstPage = new DnaJdbcModels.QueryResult(
+        List.of(new DnaJdbcModels.ColumnDef("id", "BIGINT", Types.BIGINT)),
+        List.of(List.of(1L), List.of(2L)),
+        false,
+        2L
+    );
+    RecordingCursor cursor = new RecordingCursor(List.of(
+        new DnaJdbcModels.CursorResult("c1", List.of(List.of(3L), List.of(4L)), true),
+        new DnaJdbcModels.CursorResult("c1", List.of(List.of(5L)), false)
+    ));
+
+    try (ResultSet resultSet = ResultSetBuilder.fromCursor(null, firstPage, cursor, 0, 2)) {
+      assertThat(resultSet.getType()).isEqualTo(ResultSet.TYPE_FORWARD_ONLY);
+      List<Long> ids = new ArrayList<>();
+      while (resultSet.next()) {
+        ids.add(resultSet.getLong(1));
+        assertThat(resultSet.getRow()).isEqualTo(ids.size());
+      }
+      assertThat(ids).containsExactly(1L, 2L, 3L, 4L, 5L);
+      assertThat(cursor.fetchSizes).containsExactly(2, 2);
+      assertThat(cursor.closed).isFalse();
+      assertThatThrownBy(resultSet::first).isInstanceOf(SQLException.class);
+    }
+  }
+
+  @Test
+  void releasesCursorWhenMaxRowsReachedOrClosedEarly() throws SQLException {
+    DnaJdbcModels.QueryResult firstPage = new DnaJdbcModels.QueryResult(
+        List.of(new DnaJdbcModels.ColumnDef("id", "INTEGER", Types.INTEGER)),
+        List.of(List.of(1), List.of(2)),
+        false,
+        2L
+    );
+    RecordingCursor limited = new RecordingCursor(List.of(
+        new DnaJdbcModels.CursorResult("c1", List.of(List.of(3), List.of(4)), true)
+    ));
+    try (ResultSet resultSet = ResultSetBuilder.fromCursor(null, firstPage, limited, 3, 2)) {
+      int count = 0;
+      while (resultSet.next()) {
+        count++;
+      }
+      assertThat(count).isEqualTo(3);
+      assertThat(limited.closed).isTrue();
+    }
+
+    RecordingCursor abandoned = new RecordingCursor(List.of());
+    ResultSet resultSet = ResultSetBuilder.fromCursor(null, firstPage, abandoned, 0, 2);
+    assertThat(resultSet.next()).isTrue();
+    resultSet.close();
+    assertThat(abandoned.closed).isTrue();
+    assertThat(abandoned.fetchSizes).isEmpty();
+  }
+
+  @Test
+  void convertsDecodedCellsInTypedGetters() throws SQLException {
+    DnaJdbcModels.QueryResult result = new DnaJdbcModels.QueryResult(
+        List.of(
+            new DnaJdbcModels.ColumnDef("qty", "INTEGER", Types.INTEGER),
+            new DnaJdbcModels.ColumnDef("price", "DECIMAL", Types.DECIMAL),
+            new DnaJdbcModels.ColumnDef("created_at", "TIMESTAMP", Types.TIMESTAMP),
+            new DnaJdbcModels.ColumnDef("payload", "VARBINARY", Types.VARBINARY),
+            new DnaJdbcModels.ColumnDef("note", "VARCHAR", Types.VARCHAR)
+        ),
+        List.of(Arrays.asList("7", new BigDecimal("12.50"), "2026-10-18 12:30:00", "AQID", null)),
+        false,
+        1L
+    );
+
+    try (ResultSet resultSet = ResultSetBuilder.fromQueryResult(result, 0)) {
+      assertThat(resultSet.next()).isTrue();
+      assertThat(resultSet.getInt("QTY")).isEqualTo(7);
+      assertThat(resultSet.getDouble("price")).isEqualTo(12.5d);
+      assertThat(resultSet.getObject(2, Long.class)).isEqualTo(12L);
+      assertThat(resultSet.getTimestamp(3)).isEqualTo(Timestamp.valueOf("2026-10-18 12:30:00"));
+      assertThat(resultSet.getObject(3, LocalDate.class)).isEqualTo(LocalDate.of(2026, 10, 18));
+      assertThat(resultSet.getBytes(4)).containsExactly(1, 2, 3);
+      assertThat(resultSet.getLong(5)).isZero();
+      assertThat(resultSet.wasNull()).isTrue();
+      assertThat(resultSet.getString(5)).isNull();
+      assertThatThrownBy(() -> resultSet.getInt(3)).isInstanceOf(SQLException.class);
+      assertThatThrownBy(() -> resultSet.updateInt(1, 1)).isInstanceOf(SQLException.class);
+    }
+  }
+
+  @Test
+  void readsPrimitiveColumnsOfBinaryBatches() throws SQLException {
+    DnaJdbcRowBatchCodec codec = new DnaJdbcRowBatchCodec(new ObjectMapper());
+    DnaJdbcModels.QueryResult result = new DnaJdbcModels.QueryResult(
+        List.of(
+            new DnaJdbcModels.ColumnDef("id", "BIGINT", Types.BIGINT),
+            new DnaJdbcModels.ColumnDef("ratio", "DOUBLE", Types.DOUBLE),
+            new DnaJdbcModels.ColumnDef("paid", "BOOLEAN", Types.BOOLEAN)
+        ),
+        codec.decode(codec.encode(List.of(Arrays.asList(42L, 0.5d, true), Arrays.asList(null, null, false)))),
+        false,
+        2L
+    );
+
+    try (ResultSet resultSet = ResultSetBuilder.fromQueryResult(result, 0)) {
+      assertThat(resultSet.next()).isTrue();
+      assertThat(resultSet.getInt(1)).isEqualTo(42);
+      assertThat(resultSet.wasNull()).isFalse();
+      assertThat(resultSet.getDouble(2)).isEqualTo(0.5d);
+      assertThat(resultSet.getBoolean(3)).isTrue();
+      assertThat(resultSet.getObject(1)).isEqualTo(42L);
+      assertThat(resultSet.next()).isTrue();
+      assertThat(resultSet.getLong(1)).isZero();
+      assertThat(resultSet.wasNull()).isTrue();
+      assertThat(resultSet.getFloat(2)).isZero();
+      assertThat(resultSet.wasNull()).isTrue();
+      assertThat(resultSet.getBoolean(3)).isFalse();
+      assertThat(resultSet.wasNull()).isFalse();
+    }
+  }
+
+  private static final class RecordingCursor implements DnaJdbcResultSet.BatchCursor {
+
+    private final List<DnaJdbcModels.CursorResult> batches;
+
+    private final List<Integer> fetchSizes = new ArrayList<>();
+
+    private boolean closed;
+
+    private RecordingCursor(final List<DnaJdbcModels.CursorResult> batches) {
+      this.batches = batches;
+    }
+
+    @Override
+    public DnaJdbcModels.CursorResult fetch(final int fetchSize) {
+      fetchSizes.add(fetchSize);
+      return batches.get(fetchSizes.size() - 1);
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
 }
@@ -0,0 +1,3 @@
+dependencies {
+    testImplementation("org.springframework.boot:spring-boot-starter-test")
+}
@@ -0,0 +1,18 @@
+package org.simplepoint.plugin.dna.jdbc.protocol;
+
+/**
+ * Machine-readable codes the DNA JDBC server puts in the {@code errorCode} field of a failed
+ * response, so the driver can react to a failure without parsing its message.
+ *
+ * <p>Failures without a dedicated code leave the field empty; older servers never send it.
+ */
+public final class DnaJdbcErrorCodes {
+
+  /**
+   * The server does not know the requested action, typically because it predates it.
+   */
+  public static final String UNSUPPORTED_ACTION = "UNSUPPORTED_ACTION";
+
+  private DnaJdbcErrorCodes() {
+  }
+}
@@ -0,0 +1,131 @@
+package org.simplepoint.plugin.dna.jdbc.protocol;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Binary DNA JDBC response frame body.
+ *
+ * <p>Layout: one flag byte, then the body. When {@link #FLAG_LZ4} is set the body is an int holding
+ * the uncompressed length followed by an LZ4 block; otherwise it is stored as is. The uncompressed
+ * body is an int JSON length, the JSON response header and, when {@link #FLAG_ROW_BATCH} is set,
+ * a row batch encoded by {@link DnaJdbcRowBatchCodec} that fills the rest of the frame. Neither the
+ * frame nor its uncompressed body may exceed {@link #MAX_FRAME_SIZE}; the uncompressed length is
+ * checked before anything is allocated, since it comes from the peer.
+ */
+public final class DnaJdbcFrame {
+
+  /**
+   * Set when the frame carries a row batch after the JSON header.
+   */
+  public static final int FLAG_ROW_BATCH = 0x01;
+
+  /**
+   * Set when the frame body is LZ4 compressed.
+   */
+  public static final int FLAG_LZ4 = 0x02;
+
+  /**
+   * Largest frame, and largest uncompressed frame body, either peer accepts.
+   */
+  public static final int MAX_FRAME_SIZE = 16 * 1024 * 1024;
+
+  private final byte[] json;
+
+  private final byte[] rowBatch;
+
+  private DnaJdbcFrame(final byte[] json, final byte[] rowBatch) {
+    this.json = json;
+    this.rowBatch = rowBatch;
+  }
+
+  /**
+   * Encodes a frame body.
+   *
+   * @param json                 JSON response header
+   * @param rowBatch             encoded row batch, may be null
+   * @param compressionThreshold minimum body size worth compressing, negative to disable compression
+   * @return frame body
+   * @throws IllegalArgumentException when the uncompressed body exceeds {@link #MAX_FRAME_SIZE}
+   */
+  public static byte[] encode(final byte[] json, final byte[] rowBatch, final int compressionThreshold) {
+    int rowBatchLength = rowBatch == null ? 0 : rowBatch.length;
+    long bodyLength = (long) Integer.BYTES + json.length + rowBatchLength;
+    if (bodyLength > MAX_FRAME_SIZE) {
+      throw new IllegalArgumentException("DNA JDBC 响应超过单帧上限 " + MAX_FRAME_SIZE + " 字节，请设置 fetchSize 分批读取");
+    }
+    ByteBuffer body = ByteBuffer.allocate(Integer.BYTES + json.length + rowBatchLength);
+    body.putInt(json.length).put(json);
+    if (rowBatch != null) {
+      body.put(rowBatch);
+    }
+    int flags = rowBatch == null ? 0 : FLAG_ROW_BATCH;
+    byte[] raw = body.array();
+    if (compressionThreshold >= 0 && raw.length >= compressionThreshold) {
+      byte[] compressed = DnaJdbcLz4.compress(raw);
+      if (compressed.length + Integer.BYTES < raw.length) {
+        return ByteBuffer.allocate(1 + Integer.BYTES + compressed.length)
+            .put((byte) (flags | FLAG_LZ4))
+            .putInt(raw.length)
+            .put(compressed)
+            .array();
+      }
+    }
+    byte[] frame = new byte[1 + raw.length];
+    frame[0] = (byte) flags;
+    System.arraycopy(raw, 0, frame, 1, raw.length);
+    return frame;
+  }
+
+  /**
+   * Decodes a frame body.
+   *
+   * @param frame frame body
+   * @return decoded frame
+   * @throws IllegalArgumentException when the frame is malformed
+   */
+  public static DnaJdbcFrame decode(final byte[] frame) {
+    if (frame.length < 1 + Integer.BYTES || frame.length > MAX_FRAME_SIZE + 1 + Integer.BYTES) {
+      throw new IllegalArgumentException("DNA JDBC 二进制帧长度不合法: " + frame.length);
+    }
+    int flags = frame[0] & 0xFF;
+    byte[] raw;
+    if ((flags & FLAG_LZ4) != 0) {
+      int rawLength = ByteBuffer.wrap(frame, 1, Integer.BYTES).getInt();
+      if (rawLength < Integer.BYTES || rawLength > MAX_FRAME_SIZE) {
+        throw new IllegalArgumentException("DNA JDBC 二进制帧解压长度不合法: " + rawLength);
+      }
+      raw = DnaJdbcLz4.decompress(Arrays.copyOfRange(frame, 1 + Integer.BYTES, frame.length), rawLength);
+    } else {
+      raw = Arrays.copyOfRange(frame, 1, frame.length);
+    }
+    ByteBuffer body = ByteBuffer.wrap(raw);
+    int jsonLength = body.getInt();
+    if (jsonLength < 0 || jsonLength > body.remaining()) {
+      throw new IllegalArgumentException("DNA JDBC 二进制帧头部长度不合法: " + jsonLength);
+    }
+    byte[] json = Arrays.copyOfRange(raw, Integer.BYTES, Integer.BYTES + jsonLength);
+    byte[] rowBatch = (flags & FLAG_ROW_BATCH) == 0
+        ? null
+        : Arrays.copyOfRange(raw, Integer.BYTES + jsonLength, raw.length);
+    return new DnaJdbcFrame(json, rowBatch);
+  }
+
+  /**
+   * Returns the JSON response header.
+   *
+   * @return JSON bytes
+   */
+  public byte[] json() {
+    return json;
+  }
+
+  /**
+   * Returns the encoded row batch.
+   *
+   * @return row batch bytes, or null when the frame has none
+   */
+  public byte[] rowBatch() {
+    return rowBatch;
+  }
+}
@@ -0,0 +1,211 @@
+package org.simplepoint.plugin.dna.jdbc.protocol;
+
+import java.util.Arrays;
+
+/**
+ * Dependency-free implementation of the LZ4 block format used to compress DNA JDBC frames.
+ *
+ * <p>The compressor is a single-pass greedy matcher with a 4096-entry hash table; it trades
+ * some ratio for speed, which suits row batches that are produced and consumed once. The block
+ * carries no length header, so callers must transport the uncompressed length themselves.
+ */
+public final class DnaJdbcLz4 {
+
+  private static final int MIN_MATCH = 4;
+
+  private static final int HASH_LOG = 12;
+
+  private static final int MF_LIMIT = 12;
+
+  private static final int LAST_LITERALS = 5;
+
+  private static final int MAX_DISTANCE = 65_535;
+
+  private static final int SKIP_TRIGGER = 6;
+
+  /**
+   * Upper bound of the LZ4 expansion ratio: each extra length byte adds at most 255 output bytes.
+   */
+  private static final int MAX_RATIO = 255;
+
+  private DnaJdbcLz4() {
+  }
+
+  /**
+   * Returns the largest block {@link #compress(byte[])} can produce for the given input length.
+   *
+   * @param length uncompressed length
+   * @return worst-case compressed length
+   */
+  public static int maxCompressedLength(final int length) {
+    return length + length / 255 + 16;
+  }
+
+  /**
+   * Compresses the input into a single LZ4 block.
+   *
+   * @param source uncompressed bytes
+   * @return LZ4 block
+   */
+  public static byte[] compress(final byte[] source) {
+    int sourceLength = source.length;
+    byte[] target = new byte[maxCompressedLength(sourceLength)];
+    int targetPos = 0;
+    int anchor = 0;
+    if (sourceLength > MF_LIMIT) {
+      int[] table = new int[1 << HASH_LOG];
+      Arrays.fill(table, -1);
+      int matchLimit = sourceLength - LAST_LITERALS;
+      int lastMatchStart = sourceLength - MF_LIMIT;
+      int pos = 0;
+      while (pos <= lastMatchStart) {
+        int sequence = readInt(source, pos);
+        int hash = hash(sequence);
+        int ref = table[hash];
+        table[hash] = pos;
+        if (ref < 0 || pos - ref > MAX_DISTANCE || readInt(source, ref) != sequence) {
+          pos += 1 + ((pos - anchor) >>> SKIP_TRIGGER);
+          continue;
+        }
+        while (pos > anchor && ref > 0 && source[pos - 1] == source[ref - 1]) {
+          pos--;
+          ref--;
+        }
+        int matchLength = MIN_MATCH;
+        while (pos + matchLength < matchLimit && source[ref + matchLength] == source[pos + matchLength]) {
+          matchLength++;
+        }
+        targetPos = writeSequence(source, anchor, pos - anchor, pos - ref, matchLength, target, targetPos);
+        pos += matchLength;
+        anchor = pos;
+      }
+    }
+    targetPos = writeLastLiterals(source, anchor, sourceLength - anchor, target, targetPos);
+    return Arrays.copyOf(target, targetPos);
+  }
+
+  /**
+   * Decompresses a single LZ4 block.
+   *
+   * @param source LZ4 block
+   * @param length exact uncompressed length, at most 255 times the block length
+   * @return uncompressed bytes
+   * @throws IllegalArgumentException when the block is malformed or does not match the length
+   */
+  public static byte[] decompress(final byte[] source, final int length) {
+    if (length < 0 || length > (long) source.length * MAX_RATIO) {
+      throw new IllegalArgumentException("LZ4 数据块声明长度不合法: " + length);
+    }
+    byte[] target = new byte[length];
+    int sourcePos = 0;
+    int targetPos = 0;
+    try {
+      while (sourcePos < source.length) {
+        int token = source[sourcePos++] & 0xFF;
+        int literalLength = token >>> 4;
+        if (literalLength == 15) {
+          int next;
+          do {
+            next = source[sourcePos++] & 0xFF;
+            literalLength += next;
+          } while (next == 255);
+        }
+        System.arraycopy(source, sourcePos, target, targetPos, literalLength);
+        sourcePos += literalLength;
+        targetPos += literalLength;
+        if (sourcePos >= source.length) {
+          break;
+        }
+        int offset = (source[sourcePos++] & 0xFF) | ((source[sourcePos++] & 0xFF) << 8);
+        if (offset == 0 || offset > targetPos) {
+          throw new IllegalArgumentException("LZ4 数据块偏移量不合法: " + offset);
+        }
+        int matchLength = token & 0x0F;
+        if (matchLength == 15) {
+          int next;
+          do {
+            next = source[sourcePos++] & 0xFF;
+            matchLength += next;
+          } while (next == 255);
+        }
+        matchLength += MIN_MATCH;
+        if (targetPos + matchLength > length) {
+          throw new IllegalArgumentException("LZ4 数据块超出声明长度: " + length);
+        }
+        int ref = targetPos - offset;
+        for (int i = 0; i < matchLength; i++) {
+          target[targetPos++] = target[ref++];
+        }
+      }
+    } catch (IndexOutOfBoundsException ex) {
+      throw new IllegalArgumentException("LZ4 数据块已损坏", ex);
+    }
+    if (targetPos != length) {
+      throw new IllegalArgumentException("LZ4 数据块长度不匹配 (期望 " + length + " 字节, 实际 " + targetPos + " 字节)");
+    }
+    return target;
+  }
+
+  private static int writeSequence(
+      final byte[] source,
+      final int literalStart,
+      final int literalLength,
+      final int offset,
+      final int matchLength,
+      final byte[] target,
+      final int targetStart
+  ) {
+    int targetPos = targetStart;
+    int matchCode = matchLength - MIN_MATCH;
+    target[targetPos++] = (byte) ((Math.min(literalLength, 15) << 4) | Math.min(matchCode, 15));
+    if (literalLength >= 15) {
+      targetPos = writeLength(literalLength - 15, target, targetPos);
+    }
+    System.arraycopy(source, literalStart, target, targetPos, literalLength);
+    targetPos += literalLength;
+    target[targetPos++] = (byte) offset;
+    target[targetPos++] = (byte) (offset >>> 8);
+    if (matchCode >= 15) {
+      targetPos = writeLength(matchCode - 15, target, targetPos);
+    }
+    return targetPos;
+  }
+
+  private static int writeLastLiterals(
+      final byte[] source,
+      final int literalStart,
+      final int literalLength,
+      final byte[] target,
+      final int targetStart
+  ) {
+    int targetPos = targetStart;
+    target[targetPos++] = (byte) (Math.min(literalLength, 15) << 4);
+    if (literalLength >= 15) {
+      targetPos = writeLength(literalLength - 15, target, targetPos);
+    }
+    System.arraycopy(source, literalStart, target, targetPos, literalLength);
+    return targetPos + literalLength;
+  }
+
+  private static int writeLength(final int length, final byte[] target, final int targetStart) {
+    int remaining = length;
+    int targetPos = targetStart;
+    while (remaining >= 255) {
+      target[targetPos++] = (byte) 255;
+      remaining -= 255;
+    }
+    target[targetPos++] = (byte) remaining;
+    return targetPos;
+  }
+
+  private static int readInt(final byte[] source, final int pos) {
+    return (source[pos] & 0xFF)
+        | (source[pos + 1] & 0xFF) << 8
+        | (source[pos + 2] & 0xFF) << 16
+        | (source[pos + 3] & 0xFF) << 24;
+  }
+
+  private static int hash(final int sequence) {
+    return (sequence * -1_640_531_535) >>> (32 - HASH_LOG);
+  }
+}
@@ -0,0 +1,256 @@
+package org.simplepoint.plugin.dna.jdbc.protocol;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Column-major rows decoded by {@link DnaJdbcRowBatchCodec}.
+ *
+ * <p>Boolean, integral and floating-point columns are held in primitive arrays plus a null bitmap;
+ * every other column keeps one object per cell. The batch is also a read-only list of rows so it
+ * can stand in wherever decoded JSON rows are expected, but {@link #getLong(int, int)},
+ * {@link #getDouble(int, int)} and friends read primitive columns without boxing a value per cell.
+ */
+public final class DnaJdbcRowBatch extends AbstractList<List<Object>> implements RandomAccess {
+
+  private final int rowCount;
+
+  private final Column[] columns;
+
+  DnaJdbcRowBatch(final int rowCount, final Column[] columns) {
+    this.rowCount = rowCount;
+    this.columns = columns;
+  }
+
+  @Override
+  public List<Object> get(final int row) {
+    if (row < 0 || row >= rowCount) {
+      throw new IndexOutOfBoundsException("Row " + row + " out of " + rowCount);
+    }
+    return new Row(row);
+  }
+
+  @Override
+  public int size() {
+    return rowCount;
+  }
+
+  /**
+   * Returns the number of columns in every row.
+   *
+   * @return column count
+   */
+  public int columnCount() {
+    return columns.length;
+  }
+
+  /**
+   * Tells whether a column is stored as primitives, so the typed getters avoid boxing.
+   *
+   * @param column zero-based column index
+   * @return whether the column holds booleans, integers or floating-point numbers
+   */
+  public boolean isPrimitive(final int column) {
+    return columns[column].isPrimitive();
+  }
+
+  /**
+   * Tells whether a cell is SQL NULL.
+   *
+   * @param row    zero-based row index
+   * @param column zero-based column index
+   * @return whether the cell is null
+   */
+  public boolean isNull(final int row, final int column) {
+    return columns[column].isNull(row);
+  }
+
+  /**
+   * Reads a cell of a primitive column as a long; booleans read as 1 or 0 and nulls as 0.
+   *
+   * @param row    zero-based row index
+   * @param column zero-based column index
+   * @return cell value
+   * @throws IllegalStateException when the column is not primitive
+   */
+  public long getLong(final int row, final int column) {
+    Column values = columns[column];
+    return switch (values.type) {
+      case DnaJdbcRowBatchCodec.TYPE_BOOLEAN -> values.booleans[row] ? 1L : 0L;
+      case DnaJdbcRowBatchCodec.TYPE_INT32 -> values.ints[row];
+      case DnaJdbcRowBatchCodec.TYPE_INT64 -> values.longs[row];
+      case DnaJdbcRowBatchCodec.TYPE_FLOAT32 -> (long) values.floats[row];
+      case DnaJdbcRowBatchCodec.TYPE_FLOAT64 -> (long) values.doubles[row];
+      default -> throw values.notPrimitive();
+    };
+  }
+
+  /**
+   * Reads a cell of a primitive column as a double; booleans read as 1 or 0 and nulls as 0.
+   *
+   * @param row    zero-based row index
+   * @param column zero-based column index
+   * @return cell value
+   * @throws IllegalStateException when the column is not primitive
+   */
+  public double getDouble(final int row, final int column) {
+    Column values = columns[column];
+    return switch (values.type) {
+      case DnaJdbcRowBatchCodec.TYPE_BOOLEAN -> values.booleans[row] ? 1d : 0d;
+      case DnaJdbcRowBatchCodec.TYPE_INT32 -> values.ints[row];
+      case DnaJdbcRowBatchCodec.TYPE_INT64 -> values.longs[row];
+      case DnaJdbcRowBatchCodec.TYPE_FLOAT32 -> values.floats[row];
+      case DnaJdbcRowBatchCodec.TYPE_FLOAT64 -> values.doubles[row];
+      default -> throw values.notPrimitive();
+    };
+  }
+
+  /**
+   * Reads a cell of a primitive column as a float, keeping FLOAT32 cells exact.
+   *
+   * @param row    zero-based row index
+   * @param column zero-based column index
+   * @return cell value
+   * @throws IllegalStateException when the column is not primitive
+   */
+  public float getFloat(final int row, final int column) {
+    Column values = columns[column];
+    return values.type == DnaJdbcRowBatchCodec.TYPE_FLOAT32 ? values.floats[row] : (float) getDouble(row, column);
+  }
+
+  /**
+   * Reads a cell of a primitive column as a boolean; numbers read as {@code true} when non-zero.
+   *
+   * @param row    zero-based row index
+   * @param column zero-based column index
+   * @return cell value
+   * @throws IllegalStateException when the column is not primitive
+   */
+  public boolean getBoolean(final int row, final int column) {
+    Column values = columns[column];
+    return values.type == DnaJdbcRowBatchCodec.TYPE_BOOLEAN ? values.booleans[row] : getDouble(row, column) != 0d;
+  }
+
+  /**
+   * Reads a cell as an object, boxing primitive columns.
+   *
+   * @param row    zero-based row index
+   * @param column zero-based column index
+   * @return cell value, or null
+   */
+  public Object getObject(final int row, final int column) {
+    return columns[column].get(row);
+  }
+
+  /**
+   * Values of one column. Only the array matching {@link #type} is allocated.
+   */
+  static final class Column {
+
+    private final byte type;
+
+    private final byte[] nullBitmap;
+
+    private boolean[] booleans;
+
+    private int[] ints;
+
+    private long[] longs;
+
+    private float[] floats;
+
+    private double[] doubles;
+
+    private Object[] objects;
+
+    Column(final byte type, final byte[] nullBitmap, final int rowCount) {
+      this.type = type;
+      this.nullBitmap = nullBitmap;
+      switch (type) {
+        case DnaJdbcRowBatchCodec.TYPE_NULL -> {
+          // every cell is null; nothing to hold
+        }
+        case DnaJdbcRowBatchCodec.TYPE_BOOLEAN -> booleans = new boolean[rowCount];
+        case DnaJdbcRowBatchCodec.TYPE_INT32 -> ints = new int[rowCount];
+        case DnaJdbcRowBatchCodec.TYPE_INT64 -> longs = new long[rowCount];
+        case DnaJdbcRowBatchCodec.TYPE_FLOAT32 -> floats = new float[rowCount];
+        case DnaJdbcRowBatchCodec.TYPE_FLOAT64 -> doubles = new double[rowCount];
+        default -> objects = new Object[rowCount];
+      }
+    }
+
+    boolean isPrimitive() {
+      return booleans != null || ints != null || longs != null || floats != null || doubles != null;
+    }
+
+    boolean isNull(final int row) {
+      return type == DnaJdbcRowBatchCodec.TYPE_NULL
+          || nullBitmap != null && (nullBitmap[row >>> 3] & (1 << (row & 7))) != 0;
+    }
+
+    void setBoolean(final int row, final boolean value) {
+      booleans[row] = value;
+    }
+
+    void setInt(final int row, final int value) {
+      ints[row] = value;
+    }
+
+    void setLong(final int row, final long value) {
+      longs[row] = value;
+    }
+
+    void setFloat(final int row, final float value) {
+      floats[row] = value;
+    }
+
+    void setDouble(final int row, final double value) {
+      doubles[row] = value;
+    }
+
+    void setObject(final int row, final Object value) {
+      objects[row] = value;
+    }
+
+    Object get(final int row) {
+      if (isNull(row)) {
+        return null;
+      }
+      return switch (type) {
+        case DnaJdbcRowBatchCodec.TYPE_BOOLEAN -> booleans[row];
+        case DnaJdbcRowBatchCodec.TYPE_INT32 -> ints[row];
+        case DnaJdbcRowBatchCodec.TYPE_INT64 -> longs[row];
+        case DnaJdbcRowBatchCodec.TYPE_FLOAT32 -> floats[row];
+        case DnaJdbcRowBatchCodec.TYPE_FLOAT64 -> doubles[row];
+        default -> objects[row];
+      };
+    }
+
+    private IllegalStateException notPrimitive() {
+      return new IllegalStateException("DNA JDBC 行批次列不是基本类型: " + type);
+    }
+  }
+
+  /**
+   * Read-only view of one row; primitive cells are boxed on access.
+   */
+  private final class Row extends AbstractList<Object> implements RandomAccess {
+
+    private final int row;
+
+    private Row(final int row) {
+      this.row = row;
+    }
+
+    @Override
+    public Object get(final int column) {
+      return columns[column].get(row);
+    }
+
+    @Override
+    public int size() {
+      return columns.length;
+    }
+  }
+}
@@ -0,0 +1,427 @@
+package org.simplepoint.plugin.dna.jdbc.protocol;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typed, column-major encoding of DNA JDBC row batches.
+ *
+ * <p>A batch starts with a format version, the row count and the column count. Each column then
+ * carries a type tag chosen from its non-null values, a null bitmap when any cell is null, and the
+ * non-null values packed back to back. Strings repeating often enough are dictionary encoded, and
+ * values without a dedicated tag fall back to per-cell JSON, so any row that survives a JSON round
+ * trip also survives this codec. Integral and floating-point values keep their Java type instead
+ * of being re-guessed from JSON text. Decimals whose unscaled value fits in a long are written as
+ * a zig-zag varint rather than as big-integer bytes. Decoding keeps boolean and numeric columns in
+ * primitive arrays, see {@link DnaJdbcRowBatch}.
+ */
+public final class DnaJdbcRowBatchCodec {
+
+  private static final int FORMAT_VERSION = 1;
+
+  static final byte TYPE_NULL = 0;
+
+  static final byte TYPE_BOOLEAN = 1;
+
+  static final byte TYPE_INT32 = 2;
+
+  static final byte TYPE_INT64 = 3;
+
+  static final byte TYPE_FLOAT32 = 4;
+
+  static final byte TYPE_FLOAT64 = 5;
+
+  static final byte TYPE_DECIMAL = 6;
+
+  static final byte TYPE_STRING = 7;
+
+  static final byte TYPE_STRING_DICT = 8;
+
+  static final byte TYPE_JSON = 9;
+
+  private final ObjectMapper objectMapper;
+
+  /**
+   * Creates a codec.
+   *
+   * @param objectMapper mapper used for values without a dedicated binary type
+   */
+  public DnaJdbcRowBatchCodec(final ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * Encodes rows column by column. Short rows are padded with nulls.
+   *
+   * @param rows rows to encode
+   * @return encoded batch
+   */
+  public byte[] encode(final List<List<Object>> rows) {
+    int columnCount = 0;
+    for (List<Object> row : rows) {
+      columnCount = Math.max(columnCount, row == null ? 0 : row.size());
+    }
+    Output output = new Output(64 + rows.size() * columnCount * 8);
+    output.writeByte(FORMAT_VERSION);
+    output.writeInt(rows.size());
+    output.writeInt(columnCount);
+    for (int column = 0; column < columnCount; column++) {
+      writeColumn(output, rows, column);
+    }
+    return output.toByteArray();
+  }
+
+  /**
+   * Decodes a batch produced by {@link #encode(List)}.
+   *
+   * @param batch encoded batch
+   * @return decoded rows
+   * @throws IllegalArgumentException when the batch is malformed
+   */
+  public DnaJdbcRowBatch decode(final byte[] batch) {
+    ByteBuffer input = ByteBuffer.wrap(batch);
+    try {
+      int version = input.get();
+      if (version != FORMAT_VERSION) {
+        throw new IllegalArgumentException("不支持的 DNA JDBC 行批次版本: " + version);
+      }
+      int rowCount = input.getInt();
+      int columnCount = input.getInt();
+      if (rowCount < 0 || columnCount < 0) {
+        throw new IllegalArgumentException("DNA JDBC 行批次尺寸不合法: " + rowCount + "x" + columnCount);
+      }
+      DnaJdbcRowBatch.Column[] columns = new DnaJdbcRowBatch.Column[columnCount];
+      for (int column = 0; column < columnCount; column++) {
+        columns[column] = readColumn(input, rowCount);
+      }
+      return new DnaJdbcRowBatch(rowCount, columns);
+    } catch (BufferUnderflowException | IndexOutOfBoundsException ex) {
+      throw new IllegalArgumentException("DNA JDBC 行批次已损坏", ex);
+    }
+  }
+
+  private void writeColumn(
+      final Output output,
+      final List<List<Object>> rows,
+      final int column
+  ) {
+    byte type = TYPE_NULL;
+    int nullCount = 0;
+    for (List<Object> row : rows) {
+      Object value = cell(row, column);
+      if (value == null) {
+        nullCount++;
+      } else {
+        type = mergeType(type, typeOf(value));
+      }
+    }
+    Map<String, Integer> dictionary = null;
+    if (type == TYPE_STRING) {
+      dictionary = buildDictionary(rows, column, rows.size() - nullCount);
+      if (dictionary != null) {
+        type = TYPE_STRING_DICT;
+      }
+    }
+    output.writeByte(type);
+    if (type == TYPE_NULL) {
+      return;
+    }
+    output.writeByte(nullCount > 0 ? 1 : 0);
+    if (nullCount > 0) {
+      byte[] bitmap = new byte[(rows.size() + 7) >>> 3];
+      for (int i = 0; i < rows.size(); i++) {
+        if (cell(rows.get(i), column) == null) {
+          bitmap[i >>> 3] |= (byte) (1 << (i & 7));
+        }
+      }
+      output.write(bitmap);
+    }
+    if (dictionary != null) {
+      output.writeVarInt(dictionary.size());
+      for (String entry : dictionary.keySet()) {
+        output.writeBytes(entry.getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    for (List<Object> row : rows) {
+      Object value = cell(row, column);
+      if (value != null) {
+        writeValue(output, type, value, dictionary);
+      }
+    }
+  }
+
+  private void writeValue(
+      final Output output,
+      final byte type,
+      final Object value,
+      final Map<String, Integer> dictionary
+  ) {
+    switch (type) {
+      case TYPE_BOOLEAN -> output.writeByte((Boolean) value ? 1 : 0);
+      case TYPE_INT32 -> output.writeInt(((Number) value).intValue());
+      case TYPE_INT64 -> output.writeLong(((Number) value).longValue());
+      case TYPE_FLOAT32 -> output.writeInt(Float.floatToRawIntBits((Float) value));
+      case TYPE_FLOAT64 -> output.writeLong(Double.doubleToRawLongBits((Double) value));
+      case TYPE_DECIMAL -> writeDecimal(output, (BigDecimal) value);
+      case TYPE_STRING -> output.writeBytes(((String) value).getBytes(StandardCharsets.UTF_8));
+      case TYPE_STRING_DICT -> output.writeVarInt(dictionary.get((String) value));
+      default -> {
+        try {
+          output.writeBytes(objectMapper.writeValueAsBytes(value));
+        } catch (IOException ex) {
+          throw new UncheckedIOException("DNA JDBC 行批次 JSON 单元格编码失败", ex);
+        }
+      }
+    }
+  }
+
+  private static void writeDecimal(final Output output, final BigDecimal decimal) {
+    output.writeVarLong(zigZag(decimal.scale()));
+    BigInteger unscaled = decimal.unscaledValue();
+    if (unscaled.bitLength() < Long.SIZE) {
+      output.writeVarInt(0);
+      output.writeVarLong(zigZag(unscaled.longValue()));
+    } else {
+      output.writeBytes(unscaled.toByteArray());
+    }
+  }
+
+  private static BigDecimal readDecimal(final ByteBuffer input) {
+    int scale = (int) unZigZag(readVarLong(input));
+    int length = readVarInt(input);
+    if (length == 0) {
+      return BigDecimal.valueOf(unZigZag(readVarLong(input)), scale);
+    }
+    byte[] bytes = new byte[length];
+    input.get(bytes);
+    return new BigDecimal(new BigInteger(bytes), scale);
+  }
+
+  private DnaJdbcRowBatch.Column readColumn(final ByteBuffer input, final int rowCount) {
+    byte type = input.get();
+    if (type == TYPE_NULL) {
+      return new DnaJdbcRowBatch.Column(type, null, rowCount);
+    }
+    byte[] bitmap = null;
+    if (input.get() != 0) {
+      bitmap = new byte[(rowCount + 7) >>> 3];
+      input.get(bitmap);
+    }
+    String[] dictionary = null;
+    if (type == TYPE_STRING_DICT) {
+      dictionary = new String[readVarInt(input)];
+      for (int i = 0; i < dictionary.length; i++) {
+        dictionary[i] = readString(input);
+      }
+    }
+    DnaJdbcRowBatch.Column values = new DnaJdbcRowBatch.Column(type, bitmap, rowCount);
+    for (int row = 0; row < rowCount; row++) {
+      if (bitmap == null || (bitmap[row >>> 3] & (1 << (row & 7))) == 0) {
+        switch (type) {
+          case TYPE_BOOLEAN -> values.setBoolean(row, input.get() != 0);
+          case TYPE_INT32 -> values.setInt(row, input.getInt());
+          case TYPE_INT64 -> values.setLong(row, input.getLong());
+          case TYPE_FLOAT32 -> values.setFloat(row, input.getFloat());
+          case TYPE_FLOAT64 -> values.setDouble(row, input.getDouble());
+          default -> values.setObject(row, readValue(input, type, dictionary));
+        }
+      }
+    }
+    return values;
+  }
+
+  private Object readValue(final ByteBuffer input, final byte type, final String[] dictionary) {
+    return switch (type) {
+      case TYPE_DECIMAL -> readDecimal(input);
+      case TYPE_STRING -> readString(input);
+      case TYPE_STRING_DICT -> dictionary[readVarInt(input)];
+      case TYPE_JSON -> {
+        try {
+          yield objectMapper.readValue(readBytes(input), Object.class);
+        } catch (IOException ex) {
+          throw new IllegalArgumentException("DNA JDBC 行批次 JSON 单元格解析失败", ex);
+        }
+      }
+      default -> throw new IllegalArgumentException("未知的 DNA JDBC 行批次列类型: " + type);
+    };
+  }
+
+  private static Map<String, Integer> buildDictionary(
+      final List<List<Object>> rows,
+      final int column,
+      final int nonNullCount
+  ) {
+    int limit = nonNullCount / 2;
+    Map<String, Integer> dictionary = new LinkedHashMap<>();
+    for (List<Object> row : rows) {
+      Object value = cell(row, column);
+      if (value != null && dictionary.putIfAbsent((String) value, dictionary.size()) == null
+          && dictionary.size() > limit) {
+        return null;
+      }
+    }
+    return dictionary;
+  }
+
+  private static byte typeOf(final Object value) {
+    if (value instanceof Boolean) {
+      return TYPE_BOOLEAN;
+    }
+    if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      return TYPE_INT32;
+    }
+    if (value instanceof Long) {
+      return TYPE_INT64;
+    }
+    if (value instanceof Float) {
+      return TYPE_FLOAT32;
+    }
+    if (value instanceof Double) {
+      return TYPE_FLOAT64;
+    }
+    if (value instanceof BigDecimal) {
+      return TYPE_DECIMAL;
+    }
+    if (value instanceof String) {
+      return TYPE_STRING;
+    }
+    return TYPE_JSON;
+  }
+
+  private static byte mergeType(final byte current, final byte next) {
+    if (current == TYPE_NULL || current == next) {
+      return next;
+    }
+    boolean integral = (current == TYPE_INT32 || current == TYPE_INT64) && (next == TYPE_INT32 || next == TYPE_INT64);
+    return integral ? TYPE_INT64 : TYPE_JSON;
+  }
+
+  private static Object cell(final List<Object> row, final int column) {
+    return row == null || column >= row.size() ? null : row.get(column);
+  }
+
+  private static byte[] readBytes(final ByteBuffer input) {
+    byte[] bytes = new byte[readVarInt(input)];
+    input.get(bytes);
+    return bytes;
+  }
+
+  private static String readString(final ByteBuffer input) {
+    int length = readVarInt(input);
+    String value = new String(input.array(), input.arrayOffset() + input.position(), length, StandardCharsets.UTF_8);
+    input.position(input.position() + length);
+    return value;
+  }
+
+  private static int readVarInt(final ByteBuffer input) {
+    int value = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      byte next = input.get();
+      value |= (next & 0x7F) << shift;
+      if ((next & 0x80) == 0) {
+        if (value < 0) {
+          throw new IllegalArgumentException("DNA JDBC 行批次长度不合法: " + value);
+        }
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("DNA JDBC 行批次变长整数过长");
+  }
+
+  private static long readVarLong(final ByteBuffer input) {
+    long value = 0;
+    for (int shift = 0; shift < 70; shift += 7) {
+      byte next = input.get();
+      value |= (long) (next & 0x7F) << shift;
+      if ((next & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("DNA JDBC 行批次变长整数过长");
+  }
+
+  private static long zigZag(final long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private static long unZigZag(final long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  /**
+   * Growable big-endian byte buffer; avoids the per-call overhead of a stream while encoding.
+   */
+  private static final class Output {
+
+    private byte[] buffer;
+
+    private int position;
+
+    private Output(final int initialCapacity) {
+      this.buffer = new byte[Math.max(initialCapacity, 16)];
+    }
+
+    private void ensure(final int additional) {
+      if (position + additional > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + additional));
+      }
+    }
+
+    private void writeByte(final int value) {
+      ensure(1);
+      buffer[position++] = (byte) value;
+    }
+
+    private void writeInt(final int value) {
+      ensure(Integer.BYTES);
+      buffer[position++] = (byte) (value >>> 24);
+      buffer[position++] = (byte) (value >>> 16);
+      buffer[position++] = (byte) (value >>> 8);
+      buffer[position++] = (byte) value;
+    }
+
+    private void writeLong(final long value) {
+      writeInt((int) (value >>> 32));
+      writeInt((int) value);
+    }
+
+    private void writeVarInt(final int value) {
+      writeVarLong(value & 0xFFFF_FFFFL);
+    }
+
+    private void writeVarLong(final long value) {
+      ensure(10);
+      long remaining = value;
+      while ((remaining & ~0x7FL) != 0) {
+        buffer[position++] = (byte) ((remaining & 0x7F) | 0x80);
+        remaining >>>= 7;
+      }
+      buffer[position++] = (byte) remaining;
+    }
+
+    private void write(final byte[] bytes) {
+      ensure(bytes.length);
+      System.arraycopy(bytes, 0, buffer, position, bytes.length);
+      position += bytes.length;
+    }
+
+    private void writeBytes(final byte[] bytes) {
+      writeVarInt(bytes.length);
+      write(bytes);
+    }
+
+    private byte[] toByteArray() {
+      return Arrays.copyOf(buffer, position);
+    }
+  }
+}
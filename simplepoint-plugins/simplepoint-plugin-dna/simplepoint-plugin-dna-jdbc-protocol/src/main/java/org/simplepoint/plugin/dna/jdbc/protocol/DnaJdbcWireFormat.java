@@ -0,0 +1,85 @@
+package org.simplepoint.plugin.dna.jdbc.protocol;
+
+import java.util.Locale;
+
+/**
+ * Response encoding agreed on by the DNA JDBC driver and server during CONNECT.
+ *
+ * <p>The driver sends the encoding and compression it would like to use; the server answers with
+ * the format it accepted. Frames switch to the agreed format right after the CONNECT response, and
+ * a server that does not answer keeps the connection on plain JSON frames.
+ *
+ * @param encoding    {@link #JSON} or {@link #BINARY}
+ * @param compression {@link #NONE} or {@link #LZ4}
+ */
+public record DnaJdbcWireFormat(String encoding, String compression) {
+
+  /**
+   * Plain JSON frames.
+   */
+  public static final String JSON = "JSON";
+
+  /**
+   * {@link DnaJdbcFrame} frames with row batches encoded by {@link DnaJdbcRowBatchCodec}.
+   */
+  public static final String BINARY = "BINARY";
+
+  /**
+   * Uncompressed frames.
+   */
+  public static final String NONE = "NONE";
+
+  /**
+   * LZ4 block compressed frames.
+   */
+  public static final String LZ4 = "LZ4";
+
+  /**
+   * Format used before negotiation and by peers that do not negotiate.
+   */
+  public static final DnaJdbcWireFormat PLAIN_JSON = new DnaJdbcWireFormat(JSON, NONE);
+
+  /**
+   * Resolves the format to accept for a client request.
+   *
+   * @param requestedEncoding    encoding requested by the client, may be null
+   * @param requestedCompression compression requested by the client, may be null
+   * @param binaryEnabled        whether the server allows binary frames
+   * @return accepted format, or null when the client did not ask for one
+   */
+  public static DnaJdbcWireFormat negotiate(
+      final String requestedEncoding,
+      final String requestedCompression,
+      final boolean binaryEnabled
+  ) {
+    if (requestedEncoding == null || requestedEncoding.isBlank()) {
+      return null;
+    }
+    if (!binaryEnabled || !BINARY.equals(normalize(requestedEncoding))) {
+      return PLAIN_JSON;
+    }
+    return new DnaJdbcWireFormat(BINARY, LZ4.equals(normalize(requestedCompression)) ? LZ4 : NONE);
+  }
+
+  /**
+   * Returns whether frames use the binary envelope.
+   *
+   * @return true for binary frames
+   */
+  public boolean binary() {
+    return BINARY.equals(normalize(encoding));
+  }
+
+  /**
+   * Returns whether binary frames may be LZ4 compressed.
+   *
+   * @return true when LZ4 was negotiated
+   */
+  public boolean lz4() {
+    return binary() && LZ4.equals(normalize(compression));
+  }
+
+  private static String normalize(final String value) {
+    return value == null ? "" : value.trim().toUpperCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,93 @@
+package org.simplepoint.plugin.dna.jdbc.protocol;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class DnaJdbcFrameTest {
+
+  @Test
+  void lz4RoundTripsCompressibleAndRandomInput() {
+    byte[] repetitive = "SELECT id, status FROM orders WHERE status = 'COMPLETED';".repeat(500)
+        .getBytes(StandardCharsets.UTF_8);
+    byte[] random = new byte[70_000];
+    new Random(42).nextBytes(random);
+    byte[] runs = new byte[100_000];
+    Arrays.fill(runs, 40_000, 100_000, (byte) 7);
+
+    for (byte[] input : new byte[][] {repetitive, random, runs, new byte[0], new byte[12], "abc".getBytes()}) {
+      byte[] compressed = DnaJdbcLz4.compress(input);
+      assertThat(compressed.length).isLessThanOrEqualTo(DnaJdbcLz4.maxCompressedLength(input.length));
+      assertThat(DnaJdbcLz4.decompress(compressed, input.length)).isEqualTo(input);
+    }
+    assertThat(DnaJdbcLz4.compress(repetitive).length).isLessThan(repetitive.length / 10);
+  }
+
+  @Test
+  void lz4RejectsMismatchedLength() {
+    byte[] compressed = DnaJdbcLz4.compress("hello hello hello hello".getBytes(StandardCharsets.UTF_8));
+
+    assertThatThrownBy(() -> DnaJdbcLz4.decompress(compressed, 5)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> DnaJdbcLz4.decompress(compressed, 500)).isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void rejectsDeclaredLengthsBeyondFrameLimitOrCompressionRatio() {
+    byte[] compressed = DnaJdbcLz4.compress("x".repeat(4_000).getBytes(StandardCharsets.UTF_8));
+    byte[] oversized = ByteBuffer.allocate(1 + Integer.BYTES + compressed.length)
+        .put((byte) DnaJdbcFrame.FLAG_LZ4)
+        .putInt(Integer.MAX_VALUE)
+        .put(compressed)
+        .array();
+    byte[] beyondRatio = ByteBuffer.allocate(1 + Integer.BYTES + compressed.length)
+        .put((byte) DnaJdbcFrame.FLAG_LZ4)
+        .putInt(compressed.length * 255 + 1)
+        .put(compressed)
+        .array();
+
+    assertThatThrownBy(() -> DnaJdbcFrame.decode(oversized))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("解压长度不合法");
+    assertThatThrownBy(() -> DnaJdbcFrame.decode(beyondRatio))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("声明长度不合法");
+    assertThatThrownBy(() -> DnaJdbcLz4.decompress(compressed, -1)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> DnaJdbcFrame.encode(new byte[DnaJdbcFrame.MAX_FRAME_SIZE], null, -1))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void framesCarryHeaderAndRowBatchWithOptionalCompression() {
+    byte[] json = "{\"success\":true}".getBytes(StandardCharsets.UTF_8);
+    byte[] rowBatch = "row".repeat(1_000).getBytes(StandardCharsets.UTF_8);
+
+    byte[] compressed = DnaJdbcFrame.encode(json, rowBatch, 0);
+    byte[] plain = DnaJdbcFrame.encode(json, rowBatch, -1);
+    final DnaJdbcFrame headerOnly = DnaJdbcFrame.decode(DnaJdbcFrame.encode(json, null, 0));
+
+    assertThat(compressed[0] & DnaJdbcFrame.FLAG_LZ4).isNotZero();
+    assertThat(plain[0] & DnaJdbcFrame.FLAG_LZ4).isZero();
+    assertThat(compressed.length).isLessThan(plain.length);
+    for (byte[] frame : new byte[][] {compressed, plain}) {
+      DnaJdbcFrame decoded = DnaJdbcFrame.decode(frame);
+      assertThat(decoded.json()).isEqualTo(json);
+      assertThat(decoded.rowBatch()).isEqualTo(rowBatch);
+    }
+    assertThat(headerOnly.json()).isEqualTo(json);
+    assertThat(headerOnly.rowBatch()).isNull();
+  }
+
+  @Test
+  void negotiatesBinaryOnlyWhenRequestedAndEnabled() {
+    assertThat(DnaJdbcWireFormat.negotiate(null, null, true)).isNull();
+    assertThat(DnaJdbcWireFormat.negotiate("binary", "lz4", false)).isEqualTo(DnaJdbcWireFormat.PLAIN_JSON);
+    assertThat(DnaJdbcWireFormat.negotiate("json", "lz4", true).binary()).isFalse();
+    assertThat(DnaJdbcWireFormat.negotiate("binary", null, true).lz4()).isFalse();
+    assertThat(DnaJdbcWireFormat.negotiate("binary", "lz4", true).lz4()).isTrue();
+  }
+}
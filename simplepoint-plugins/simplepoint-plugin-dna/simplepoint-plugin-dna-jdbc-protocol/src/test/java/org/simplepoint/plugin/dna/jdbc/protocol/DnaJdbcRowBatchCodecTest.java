@@ -0,0 +1,100 @@
+package org.simplepoint.plugin.dna.jdbc.protocol;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class DnaJdbcRowBatchCodecTest {
+
+  private final DnaJdbcRowBatchCodec codec = new DnaJdbcRowBatchCodec(new ObjectMapper());
+
+  @Test
+  void roundTripsTypedColumnsWithNulls() {
+    List<List<Object>> rows = List.of(
+        Arrays.asList(1, 10_000_000_000L, 1.5d, 2.5f, new BigDecimal("-12.340"), true, "alpha", null),
+        Arrays.asList(null, null, null, null, null, null, null, null),
+        Arrays.asList(3, 7L, -0.25d, 0f, new BigDecimal("1E+3"), false, "", null)
+    );
+
+    List<List<Object>> decoded = codec.decode(codec.encode(rows));
+
+    assertThat(decoded).isEqualTo(rows);
+    assertThat(decoded.get(0).get(3)).isInstanceOf(Float.class);
+    assertThat(((BigDecimal) decoded.get(2).get(4)).scale()).isEqualTo(-3);
+  }
+
+  @Test
+  void decodesPrimitiveColumnsIntoTypedAccessors() {
+    List<List<Object>> rows = List.of(
+        Arrays.asList(7, 10_000_000_000L, 2.5d, 1.25f, true, "a"),
+        Arrays.asList(null, -3L, null, 0f, false, null)
+    );
+
+    DnaJdbcRowBatch batch = codec.decode(codec.encode(rows));
+
+    assertThat(batch.columnCount()).isEqualTo(6);
+    assertThat(batch.isPrimitive(0)).isTrue();
+    assertThat(batch.isPrimitive(5)).isFalse();
+    assertThat(batch.getLong(0, 0)).isEqualTo(7L);
+    assertThat(batch.isNull(1, 0)).isTrue();
+    assertThat(batch.getLong(1, 0)).isZero();
+    assertThat(batch.getLong(0, 1)).isEqualTo(10_000_000_000L);
+    assertThat(batch.getDouble(1, 1)).isEqualTo(-3d);
+    assertThat(batch.getDouble(0, 2)).isEqualTo(2.5d);
+    assertThat(batch.getFloat(0, 3)).isEqualTo(1.25f);
+    assertThat(batch.getBoolean(0, 4)).isTrue();
+    assertThat(batch.getLong(0, 4)).isEqualTo(1L);
+    assertThat(batch.getObject(0, 5)).isEqualTo("a");
+    assertThat(batch.get(1)).isEqualTo(rows.get(1));
+    assertThatThrownBy(() -> batch.getLong(0, 5)).isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void dictionaryEncodesRepeatedStrings() {
+    List<List<Object>> repeated = new ArrayList<>();
+    List<List<Object>> distinct = new ArrayList<>();
+    for (int i = 0; i < 1_000; i++) {
+      repeated.add(List.of(i % 2 == 0 ? "COMPLETED" : "PENDING"));
+      distinct.add(List.of(String.format("ORDER-%05d", i)));
+    }
+
+    byte[] encoded = codec.encode(repeated);
+
+    assertThat(codec.decode(encoded)).isEqualTo(repeated);
+    assertThat(encoded.length).isLessThan(codec.encode(distinct).length / 4);
+    assertThat(codec.decode(codec.encode(distinct))).isEqualTo(distinct);
+  }
+
+  @Test
+  void fallsBackToJsonForMixedAndNestedValues() {
+    List<List<Object>> rows = List.of(
+        Arrays.asList(1, List.of("a", "b"), 'x'),
+        Arrays.asList(2L, Map.of("k", 1), null),
+        Arrays.asList("three", null, null)
+    );
+
+    List<List<Object>> decoded = codec.decode(codec.encode(rows));
+
+    assertThat(decoded.get(0)).containsExactly(1, List.of("a", "b"), "x");
+    assertThat(decoded.get(1)).containsExactly(2, Map.of("k", 1), null);
+    assertThat(decoded.get(2)).containsExactly("three", null, null);
+  }
+
+  @Test
+  void padsShortRowsAndRejectsCorruptBatches() {
+    List<List<Object>> decoded = codec.decode(codec.encode(List.of(List.of(1, 2), List.of(3))));
+
+    assertThat(decoded).containsExactly(List.of(1, 2), Arrays.asList(3, null));
+    assertThat(codec.decode(codec.encode(List.of()))).isEmpty();
+    assertThatThrownBy(() -> codec.decode("bad".getBytes(StandardCharsets.UTF_8)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
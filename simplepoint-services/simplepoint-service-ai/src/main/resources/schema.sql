@@ -33,6 +33,9 @@ CREATE UNIQUE INDEX IF NOT EXISTS uk_simpoint_ai_kb_active_tenant_code
   ON simpoint_ai_knowledge_bases (tenant_id, code)
   WHERE scope_type = 'TENANT' AND tenant_id IS NOT NULL AND deleted_at IS NULL;
 
+-- Optional per-knowledge-base HNSW candidate list size; NULL uses simplepoint.ai.knowledge.hnsw-ef-search.
+ALTER TABLE simpoint_ai_knowledge_bases ADD COLUMN IF NOT EXISTS vector_ef_search INTEGER;
+
 -- Refresh enum check constraints when an existing Hibernate-managed table predates new states.
 -- Keep these as plain statements because Spring's SQL initializer splits statements on semicolons.
 ALTER TABLE simpoint_ai_knowledge_documents
@@ -62,6 +65,31 @@ ALTER TABLE simpoint_ai_invocations
   ADD CONSTRAINT ck_simpoint_ai_invocation_status
   CHECK (status IN ('RUNNING', 'SUCCEEDED', 'FAILED', 'CANCELLED'));
 
+-- Per-minute usage totals maintained by the write-behind invocation ledger for billing queries.
+-- The expression index lets SYSTEM rows with a NULL tenant take part in ON CONFLICT upserts.
+CREATE TABLE IF NOT EXISTS simpoint_ai_usage_minutes (
+  minute_at TIMESTAMP WITH TIME ZONE NOT NULL,
+  scope_type VARCHAR(16) NOT NULL,
+  tenant_id VARCHAR(64),
+  model_definition_id VARCHAR(64) NOT NULL,
+  model_id VARCHAR(256) NOT NULL,
+  operation VARCHAR(32) NOT NULL,
+  invocations BIGINT NOT NULL DEFAULT 0,
+  failed_invocations BIGINT NOT NULL DEFAULT 0,
+  cancelled_invocations BIGINT NOT NULL DEFAULT 0,
+  input_tokens BIGINT NOT NULL DEFAULT 0,
+  output_tokens BIGINT NOT NULL DEFAULT 0,
+  total_tokens BIGINT NOT NULL DEFAULT 0,
+  cached_input_tokens BIGINT NOT NULL DEFAULT 0,
+  duration_millis BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_simpoint_ai_usage_minute
+  ON simpoint_ai_usage_minutes (minute_at, scope_type, COALESCE(tenant_id, ''),
+                                model_definition_id, operation);
+CREATE INDEX IF NOT EXISTS idx_simpoint_ai_usage_scope_minute
+  ON simpoint_ai_usage_minutes (scope_type, tenant_id, minute_at);
+
 CREATE TABLE IF NOT EXISTS simpoint_ai_knowledge_index_jobs (
   document_id VARCHAR(64) PRIMARY KEY,
   knowledge_base_id VARCHAR(64) NOT NULL,
@@ -105,6 +133,7 @@ CREATE TABLE IF NOT EXISTS simpoint_ai_knowledge_chunks (
   tenant_id VARCHAR(64),
   chunk_index INTEGER NOT NULL,
   content TEXT NOT NULL,
+  content_hash VARCHAR(64),
   content_tsv TSVECTOR GENERATED ALWAYS AS (to_tsvector('simple', content)) STORED,
   metadata_json TEXT,
   character_count INTEGER NOT NULL,
@@ -113,10 +142,16 @@ CREATE TABLE IF NOT EXISTS simpoint_ai_knowledge_chunks (
   created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
 
+-- Content hashes key embedding reuse and incremental chunk replacement; older rows keep NULL and
+-- are rewritten the next time their document is indexed.
+ALTER TABLE simpoint_ai_knowledge_chunks ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
+
 CREATE UNIQUE INDEX IF NOT EXISTS uk_simpoint_ai_kb_chunk_document_index
   ON simpoint_ai_knowledge_chunks (document_id, chunk_index);
 CREATE INDEX IF NOT EXISTS idx_simpoint_ai_kb_chunk_base
   ON simpoint_ai_knowledge_chunks (knowledge_base_id);
+CREATE INDEX IF NOT EXISTS idx_simpoint_ai_kb_chunk_hash
+  ON simpoint_ai_knowledge_chunks (knowledge_base_id, content_hash);
 CREATE INDEX IF NOT EXISTS idx_simpoint_ai_kb_chunk_scope
   ON simpoint_ai_knowledge_chunks (scope_type, tenant_id);
 CREATE INDEX IF NOT EXISTS idx_simpoint_ai_kb_chunk_tsv
@@ -125,3 +160,10 @@ CREATE INDEX IF NOT EXISTS idx_simpoint_ai_kb_chunk_trgm
   ON simpoint_ai_knowledge_chunks USING GIN (content gin_trgm_ops);
 CREATE INDEX IF NOT EXISTS idx_simpoint_ai_kb_chunk_embedding
   ON simpoint_ai_knowledge_chunks USING HNSW (embedding vector_cosine_ops);
+
+-- Half-precision storage (simplepoint.ai.knowledge.stored-vector-type=halfvec) needs pgvector 0.7+
+-- and a one-off migration of the column and its index:
+--   DROP INDEX IF EXISTS idx_simpoint_ai_kb_chunk_embedding;
+--   ALTER TABLE simpoint_ai_knowledge_chunks ALTER COLUMN embedding TYPE HALFVEC(2000);
+--   CREATE INDEX idx_simpoint_ai_kb_chunk_embedding
+--     ON simpoint_ai_knowledge_chunks USING HNSW (embedding halfvec_cosine_ops);